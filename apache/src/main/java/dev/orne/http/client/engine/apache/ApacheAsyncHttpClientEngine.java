@@ -0,0 +1,504 @@
+package dev.orne.http.client.engine.apache;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.lang3.Validate;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.cookie.CookieStore;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.message.BasicClassicHttpRequest;
+import org.apache.hc.core5.http.nio.AsyncEntityProducer;
+import org.apache.hc.core5.http.nio.AsyncRequestProducer;
+import org.apache.hc.core5.http.nio.entity.BasicAsyncEntityProducer;
+import org.apache.hc.core5.http.nio.support.BasicRequestProducer;
+import org.apache.hc.core5.http.protocol.BasicHttpContext;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.reactor.IOReactorConfig;
+
+import dev.orne.http.Methods;
+import dev.orne.http.client.FutureUtils;
+import dev.orne.http.client.HttpClientException;
+import dev.orne.http.client.engine.HttpClientEngine;
+import dev.orne.http.client.engine.InFlightRequests;
+import dev.orne.http.client.engine.HttpRequestCustomizer;
+import dev.orne.http.client.engine.HttpResponseHandler;
+
+/**
+ * Implementation of {@code HtppClientEngine} based on
+ * Apache HTTP Client 5.x asynchronous (non blocking) client.
+ * <p>
+ * Requests are executed by a fixed set of I/O reactor threads,
+ * so no thread is blocked waiting for the HTTP responses.
+ * The response bodies are fully buffered in memory by an
+ * {@code AsyncResponseConsumer} before the {@code HttpResponseHandler}
+ * is invoked in a thread of the handler executor, so response handling
+ * never blocks the I/O reactor threads.
+ * <p>
+ * Bodies produced by {@code HttpRequest.BodyProducer} instances are
+ * buffered in memory before the request is sent.
+ * 
+ * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ */
+public class ApacheAsyncHttpClientEngine
+implements HttpClientEngine {
+
+    /** The default number of I/O reactor threads. */
+    public static final int DEFAULT_IO_THREADS =
+            Runtime.getRuntime().availableProcessors();
+
+    /** The HTTP client's cookie store. */
+    private final @NotNull ApacheCookieStore cookieStore;
+    /** The asynchronous HTTP client. */
+    private final @NotNull CloseableHttpAsyncClient client;
+    /** The default request configuration. */
+    private final @NotNull RequestConfig requestConfig;
+    /** The executor of the HTTP response handlers. */
+    private final @NotNull Executor handlerExecutor;
+    /** The requests in flight. */
+    private final @NotNull InFlightRequests inFlightRequests = new InFlightRequests();
+
+    /**
+     * Creates a new instance with the default configuration.
+     * <p>
+     * This includes:
+     * <ul>
+     * <li>A clean {@code BasicCookieStore}.</li>
+     * <li>A default {@code HttpAsyncClient} with
+     * {@link #DEFAULT_IO_THREADS} I/O reactor threads.</li>
+     * <li>HTTP response handlers executed in
+     * {@code ForkJoinPool.commonPool()}.</li>
+     * </ul>
+     * <p>
+     * Custom configuration of {@code HttpAsyncClient} can be added
+     * overriding {@code configureRequestConfig(Build)} method.
+     * 
+     * @see #configureRequestConfig(RequestConfig.Builder)
+     */
+    public ApacheAsyncHttpClientEngine() {
+        this(DEFAULT_IO_THREADS);
+    }
+
+    /**
+     * Creates a new instance with the default configuration and
+     * the specified number of I/O reactor threads.
+     * 
+     * @param ioThreads The number of I/O reactor threads.
+     * @see #ApacheAsyncHttpClientEngine()
+     */
+    public ApacheAsyncHttpClientEngine(
+            final int ioThreads) {
+        this(ioThreads, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a new instance with the default configuration,
+     * the specified number of I/O reactor threads and the specified
+     * executor of the HTTP response handlers.
+     * 
+     * @param ioThreads The number of I/O reactor threads.
+     * @param handlerExecutor The executor of the HTTP response handlers.
+     * @see #ApacheAsyncHttpClientEngine()
+     */
+    public ApacheAsyncHttpClientEngine(
+            final int ioThreads,
+            final @NotNull Executor handlerExecutor) {
+        super();
+        Validate.isTrue(ioThreads > 0, "At least one I/O thread is required");
+        this.cookieStore = new ApacheCookieStore();
+        final RequestConfig.Builder requestConfigBuilder = RequestConfig.custom();
+        configureRequestConfig(requestConfigBuilder);
+        final RequestConfig requestConfig = requestConfigBuilder.build();
+        this.client = HttpAsyncClients.custom()
+                .setDefaultCookieStore(this.cookieStore.getDelegate())
+                .setDefaultRequestConfig(requestConfig)
+                .setIOReactorConfig(IOReactorConfig.custom()
+                        .setIoThreadCount(ioThreads)
+                        .build())
+                .build();
+        this.requestConfig = requestConfig;
+        this.handlerExecutor = Validate.notNull(handlerExecutor, "Handler executor is required");
+        this.client.start();
+    }
+
+    /**
+     * Creates a new instance with the specified components.
+     * <p>
+     * The HTTP client must be started by the caller.
+     * <p>
+     * The default configuration of the HTTP client is not known, so
+     * {@code RequestConfig.DEFAULT} is used as base of the requests with
+     * custom timeouts. Override {@link #getDefaultRequestConfig()} to
+     * change this behavior.
+     * <p>
+     * The HTTP response handlers are executed in
+     * {@code ForkJoinPool.commonPool()}.
+     * 
+     * @param cookieStore The HTTP client's cookie store.
+     * @param client The asynchronous HTTP client.
+     */
+    public ApacheAsyncHttpClientEngine(
+            final @NotNull CookieStore cookieStore,
+            final @NotNull CloseableHttpAsyncClient client) {
+        this(cookieStore, client, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a new instance with the specified components.
+     * <p>
+     * The HTTP client must be started by the caller.
+     * 
+     * @param cookieStore The HTTP client's cookie store.
+     * @param client The asynchronous HTTP client.
+     * @param handlerExecutor The executor of the HTTP response handlers.
+     * @see #ApacheAsyncHttpClientEngine(CookieStore, CloseableHttpAsyncClient)
+     */
+    public ApacheAsyncHttpClientEngine(
+            final @NotNull CookieStore cookieStore,
+            final @NotNull CloseableHttpAsyncClient client,
+            final @NotNull Executor handlerExecutor) {
+        super();
+        this.cookieStore = new ApacheCookieStore(cookieStore);
+        this.client = Validate.notNull(client, "HTTP client is required");
+        this.requestConfig = RequestConfig.DEFAULT;
+        this.handlerExecutor = Validate.notNull(handlerExecutor, "Handler executor is required");
+    }
+
+    /**
+     * Configures the requests build by the HTTP client.
+     * The implementations should override this method to configure their
+     * requests if needed.
+     * 
+     * @param builder The configuration builder
+     * @see ApacheHttpClientEngine#configureRequestConfig(RequestConfig.Builder)
+     */
+    protected void configureRequestConfig(
+            final @NotNull RequestConfig.Builder builder) {
+        // Override if needed
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull ApacheCookieStore getCookieStore() {
+        return this.cookieStore;
+    }
+
+    /**
+     * Returns the asynchronous HTTP client.
+     * 
+     * @return The asynchronous HTTP client.
+     */
+    protected @NotNull CloseableHttpAsyncClient getClient() {
+        return this.client;
+    }
+
+    /**
+     * Returns the default request configuration of the HTTP client,
+     * used as base of the requests with custom timeouts.
+     * 
+     * @return The default request configuration.
+     */
+    protected @NotNull RequestConfig getDefaultRequestConfig() {
+        return this.requestConfig;
+    }
+
+    /**
+     * Returns the executor of the HTTP response handlers.
+     * 
+     * @return The executor of the HTTP response handlers.
+     */
+    protected @NotNull Executor getHandlerExecutor() {
+        return this.handlerExecutor;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The connect and response timeouts set in the request are applied
+     * through a per request {@code RequestConfig} set in the HTTP context.
+     */
+    @Override
+    public @NotNull CompletionStage<Void> executeHttpRequest(
+            final @NotNull URI uri,
+            final @NotNull String method,
+            final @NotNull HttpRequestCustomizer requestCustomizer,
+            final @NotNull HttpResponseHandler responseHandler)
+    throws HttpClientException {
+        Validate.notNull(uri);
+        Validate.isTrue(uri.isAbsolute(), "The request URI must be absolute");
+        return this.inFlightRequests.execute(
+                () -> submitHttpRequest(uri, method, requestCustomizer, responseHandler));
+    }
+
+    /**
+     * Creates the HTTP request and submits it for execution.
+     * 
+     * @param uri The HTTP request target absolute URI.
+     * @param method The HTTP request method.
+     * @param requestCustomizer The HTTP request customizer.
+     * @param responseHandler The HTTP response handler.
+     * @return The future HTTP request result.
+     * @throws HttpClientException If an exception occurs creating the
+     * request
+     */
+    private @NotNull CompletionStage<Void> submitHttpRequest(
+            final @NotNull URI uri,
+            final @NotNull String method,
+            final @NotNull HttpRequestCustomizer requestCustomizer,
+            final @NotNull HttpResponseHandler responseHandler)
+    throws HttpClientException {
+        final ClassicHttpRequest request = createRequest(method, uri);
+        final ApacheHttpRequest engineRequest = new ApacheHttpRequest(request);
+        requestCustomizer.customizeRequest(engineRequest);
+        final RequestConfig config = engineRequest.createRequestConfig(getDefaultRequestConfig());
+        final HttpContext context;
+        if (config == null) {
+            context = getHttpContext();
+        } else {
+            final HttpClientContext requestContext = new HttpClientContext(
+                    new BasicHttpContext(getHttpContext()));
+            requestContext.setRequestConfig(config);
+            context = requestContext;
+        }
+        final CompletableFuture<Void> result = new CompletableFuture<>();
+        final Future<ClassicHttpResponse> exchange = execute(
+                request,
+                context,
+                new FutureCallback<ClassicHttpResponse>() {
+                    @Override
+                    public void completed(
+                            final ClassicHttpResponse response) {
+                        try {
+                            handlerExecutor.execute(() -> handleResponse(response, responseHandler, result));
+                        } catch (final RejectedExecutionException e) {
+                            result.completeExceptionally(e);
+                        }
+                    }
+                    @Override
+                    public void failed(
+                            final Exception e) {
+                        result.completeExceptionally(e);
+                    }
+                    @Override
+                    public void cancelled() {
+                        result.cancel(false);
+                    }
+                });
+        if (engineRequest.getTimeout() != null) {
+            FutureUtils.orTimeout(result, engineRequest.getTimeout(), this.handlerExecutor);
+        }
+        return FutureUtils.propagateCancellation(result, exchange);
+    }
+
+    /**
+     * Invokes the HTTP response handler with the received response and
+     * completes the HTTP request result.
+     * 
+     * @param response The HTTP response.
+     * @param responseHandler The HTTP response handler.
+     * @param result The HTTP request result.
+     */
+    private static void handleResponse(
+            final @NotNull ClassicHttpResponse response,
+            final @NotNull HttpResponseHandler responseHandler,
+            final @NotNull CompletableFuture<Void> result) {
+        try {
+            responseHandler.handle(new ApacheHttpResponse(response));
+            result.complete(null);
+        } catch (final RuntimeException e) {
+            result.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Executes the specified HTTP request with the HTTP client, fully
+     * buffering the response body before invoking the callback.
+     * 
+     * @param request The HTTP request.
+     * @param context The HTTP context, or {@code null} to use the default
+     * one.
+     * @param callback The HTTP response callback.
+     * @return The future of the HTTP request execution.
+     * @throws HttpClientException If an error occurs generating the
+     * HTTP request body.
+     */
+    protected @NotNull Future<ClassicHttpResponse> execute(
+            final @NotNull ClassicHttpRequest request,
+            final HttpContext context,
+            final @NotNull FutureCallback<ClassicHttpResponse> callback)
+    throws HttpClientException {
+        final AsyncRequestProducer producer = new BasicRequestProducer(
+                request,
+                createEntityProducer(request.getEntity()));
+        return this.client.execute(
+                producer,
+                new ApacheAsyncResponseConsumer(),
+                context,
+                callback);
+    }
+
+    /**
+     * Creates a new HTTP request to the specified path and with the specified
+     * HTTP method.
+     * <p>
+     * The request is used to collect the headers and body set by the
+     * request customizer.
+     * 
+     * @param method The HTTP method.
+     * @param path The target URI.
+     * @return The HTTP request.
+     * @throws HttpClientException If the specified method is not supported.
+     */
+    protected @NotNull ClassicHttpRequest createRequest(
+            final @NotNull String method,
+            final @NotNull URI path)
+    throws HttpClientException {
+        switch (method) {
+            case Methods.GET:
+            case Methods.HEAD:
+            case Methods.POST:
+            case Methods.PUT:
+            case Methods.DELETE:
+            case Methods.OPTIONS:
+            case Methods.TRACE:
+            case Methods.PATCH:
+                return new BasicClassicHttpRequest(method, path);
+            default:
+                throw new HttpClientException(
+                        String.format("Unsupported HTTP method: %s", method));
+        }
+    }
+
+    /**
+     * Creates the asynchronous entity producer for the specified
+     * HTTP request body entity.
+     * <p>
+     * File entities are streamed from the file. Other entities are
+     * buffered in memory.
+     * 
+     * @param entity The HTTP request body entity, if any.
+     * @return The asynchronous entity producer, or {@code null} if
+     * the request has no body.
+     * @throws HttpClientException If an error occurs generating the
+     * HTTP request body.
+     */
+    protected AsyncEntityProducer createEntityProducer(
+            final HttpEntity entity)
+    throws HttpClientException {
+        if (entity == null) {
+            return null;
+        }
+        if (entity instanceof ApacheFileEntity) {
+            return new ApacheFileEntityProducer(
+                    ((ApacheFileEntity) entity).getProducer(),
+                    entity.getContentType());
+        }
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try {
+            entity.writeTo(buffer);
+        } catch (final IOException e) {
+            throw new HttpClientException("Error generating HTTP request body", e);
+        }
+        final ContentType contentType;
+        if (entity.getContentType() == null) {
+            contentType = null;
+        } else {
+            contentType = ContentType.parse(entity.getContentType());
+        }
+        return new BasicAsyncEntityProducer(
+                buffer.toByteArray(),
+                contentType,
+                entity.isChunked());
+    }
+
+    /**
+     * Returns the HTTP context to use in the request.
+     * Default implementation returns {@code null}.
+     * 
+     * @return The HTTP context, or {@code null} to use the default one
+     * @throws HttpClientException If an exception occurs creating the
+     * HTTP context
+     */
+    protected HttpContext getHttpContext()
+    throws HttpClientException {
+        return null;
+    }
+
+    /**
+     * Returns the number of requests in flight.
+     * 
+     * @return The number of requests in flight.
+     */
+    public int getInFlightCount() {
+        return this.inFlightRequests.getCount();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The I/O reactor threads of the HTTP client are terminated when the
+     * client is closed.
+     */
+    @Override
+    public int shutdown(
+            final @NotNull Duration timeout)
+    throws IOException {
+        Validate.notNull(timeout, "Timeout is required");
+        final int aborted = this.inFlightRequests.shutdown(timeout);
+        close();
+        return aborted;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close()
+    throws IOException {
+        this.client.close(CloseMode.GRACEFUL);
+    }
+}
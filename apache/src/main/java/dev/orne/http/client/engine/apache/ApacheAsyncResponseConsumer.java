@@ -0,0 +1,95 @@
+package dev.orne.http.client.engine.apache;
+
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.io.IOException;
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.io.entity.ByteArrayEntity;
+import org.apache.hc.core5.http.message.BasicClassicHttpResponse;
+import org.apache.hc.core5.http.nio.entity.BasicAsyncEntityConsumer;
+import org.apache.hc.core5.http.nio.support.AbstractAsyncResponseConsumer;
+import org.apache.hc.core5.http.protocol.HttpContext;
+
+/**
+ * Asynchronous response consumer that buffers the HTTP response body
+ * and exposes the result as a classic HTTP response, allowing
+ * the reuse of {@code ApacheHttpResponse} and
+ * {@code ApacheHttpResponseBody} on asynchronous engines.
+ * 
+ * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ */
+class ApacheAsyncResponseConsumer
+extends AbstractAsyncResponseConsumer<ClassicHttpResponse, byte[]> {
+
+    /**
+     * Creates a new instance.
+     */
+    public ApacheAsyncResponseConsumer() {
+        super(new BasicAsyncEntityConsumer());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected @NotNull ClassicHttpResponse buildResult(
+            final @NotNull HttpResponse response,
+            final byte[] entity,
+            final ContentType contentType) {
+        final BasicClassicHttpResponse result = new BasicClassicHttpResponse(
+                response.getCode(),
+                response.getReasonPhrase());
+        result.setVersion(response.getVersion());
+        result.setHeaders(response.getHeaders());
+        if (entity != null) {
+            final Header encoding = response.getFirstHeader(HttpHeaders.CONTENT_ENCODING);
+            result.setEntity(new ByteArrayEntity(
+                    entity,
+                    contentType,
+                    encoding == null ? null : encoding.getValue()));
+        }
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void informationResponse(
+            final @NotNull HttpResponse response,
+            final HttpContext context)
+    throws HttpException, IOException {
+        // Informational responses are ignored
+    }
+}
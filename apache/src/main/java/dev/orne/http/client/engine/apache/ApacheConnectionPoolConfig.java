@@ -0,0 +1,368 @@
+package dev.orne.http.client.engine.apache;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.net.URISyntaxException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.lang3.Validate;
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+import org.apache.hc.client5.http.impl.DefaultSchemePortResolver;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.routing.RoutingSupport;
+import org.apache.hc.core5.http.HttpHost;
+
+import dev.orne.http.client.engine.HostResolver;
+
+/**
+ * Connection pool configuration of {@code ApacheHttpClientEngine}.
+ * <p>
+ * Default values are the same used by Apache HTTP Client 5.x
+ * {@code PoolingHttpClientConnectionManager}, with no connection
+ * eviction.
+ * 
+ * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see ApacheHttpClientEngine#ApacheHttpClientEngine(ApacheConnectionPoolConfig)
+ */
+public class ApacheConnectionPoolConfig {
+
+    /** The default maximum number of connections in the pool. */
+    public static final int DEFAULT_MAX_TOTAL =
+            PoolingHttpClientConnectionManager.DEFAULT_MAX_TOTAL_CONNECTIONS;
+    /** The default maximum number of connections per route. */
+    public static final int DEFAULT_MAX_PER_ROUTE =
+            PoolingHttpClientConnectionManager.DEFAULT_MAX_CONNECTIONS_PER_ROUTE;
+
+    /** The maximum number of connections in the pool. */
+    private int maxTotal = DEFAULT_MAX_TOTAL;
+    /** The default maximum number of connections per route. */
+    private int maxPerRoute = DEFAULT_MAX_PER_ROUTE;
+    /** The maximum number of connections per target host overrides. */
+    private final @NotNull Map<HttpHost, Integer> maxPerHost = new HashMap<>();
+    /** The total time to live of the connections. */
+    private Duration timeToLive;
+    /** The inactivity period after which connections are validated. */
+    private Duration validateAfterInactivity;
+    /** The idle time after which connections are evicted. */
+    private Duration maxIdleTime;
+    /** If expired connections must be evicted. */
+    private boolean evictExpired;
+    /** The resolver of the target host names. */
+    private HostResolver hostResolver;
+
+    /**
+     * Creates a new instance with the default configuration.
+     */
+    public ApacheConnectionPoolConfig() {
+        super();
+    }
+
+    /**
+     * Copy constructor.
+     * 
+     * @param copy The instance to copy.
+     */
+    public ApacheConnectionPoolConfig(
+            final @NotNull ApacheConnectionPoolConfig copy) {
+        super();
+        Validate.notNull(copy);
+        this.maxTotal = copy.maxTotal;
+        this.maxPerRoute = copy.maxPerRoute;
+        this.maxPerHost.putAll(copy.maxPerHost);
+        this.timeToLive = copy.timeToLive;
+        this.validateAfterInactivity = copy.validateAfterInactivity;
+        this.maxIdleTime = copy.maxIdleTime;
+        this.evictExpired = copy.evictExpired;
+        this.hostResolver = copy.hostResolver;
+    }
+
+    /**
+     * Returns the maximum number of connections in the pool.
+     * 
+     * @return The maximum number of connections in the pool.
+     */
+    public int getMaxTotal() {
+        return this.maxTotal;
+    }
+
+    /**
+     * Sets the maximum number of connections in the pool.
+     * 
+     * @param maxTotal The maximum number of connections in the pool.
+     */
+    public void setMaxTotal(
+            final int maxTotal) {
+        Validate.isTrue(maxTotal > 0, "The maximum number of connections must be positive");
+        this.maxTotal = maxTotal;
+    }
+
+    /**
+     * Returns the default maximum number of connections per route.
+     * 
+     * @return The default maximum number of connections per route.
+     */
+    public int getMaxPerRoute() {
+        return this.maxPerRoute;
+    }
+
+    /**
+     * Sets the default maximum number of connections per route.
+     * 
+     * @param maxPerRoute The default maximum number of connections
+     * per route.
+     */
+    public void setMaxPerRoute(
+            final int maxPerRoute) {
+        Validate.isTrue(maxPerRoute > 0, "The maximum number of connections must be positive");
+        this.maxPerRoute = maxPerRoute;
+    }
+
+    /**
+     * Returns the maximum number of connections per target host
+     * overrides.
+     * 
+     * @return The maximum number of connections per target host.
+     */
+    public @NotNull Map<HttpHost, Integer> getMaxPerHost() {
+        return Collections.unmodifiableMap(this.maxPerHost);
+    }
+
+    /**
+     * Sets the maximum number of connections for the direct route to the
+     * specified target host, overriding the default maximum number of
+     * connections per route.
+     * <p>
+     * The target host must be specified as {@code scheme://host[:port]}.
+     * If no port is specified the default port of the scheme is used.
+     * 
+     * @param host The target host.
+     * @param max The maximum number of connections for the target host.
+     * @throws IllegalArgumentException If the target host is not valid.
+     */
+    public void setMaxPerHost(
+            final @NotNull String host,
+            final int max) {
+        Validate.notNull(host, "The target host is required");
+        try {
+            setMaxPerHost(HttpHost.create(host), max);
+        } catch (final URISyntaxException e) {
+            throw new IllegalArgumentException("Invalid target host: " + host, e);
+        }
+    }
+
+    /**
+     * Sets the maximum number of connections for the direct route to the
+     * specified target host, overriding the default maximum number of
+     * connections per route.
+     * <p>
+     * If no port is specified the default port of the scheme is used.
+     * 
+     * @param host The target host.
+     * @param max The maximum number of connections for the target host.
+     */
+    public void setMaxPerHost(
+            final @NotNull HttpHost host,
+            final int max) {
+        Validate.notNull(host, "The target host is required");
+        Validate.isTrue(max > 0, "The maximum number of connections must be positive");
+        this.maxPerHost.put(
+                RoutingSupport.normalize(host, DefaultSchemePortResolver.INSTANCE),
+                max);
+    }
+
+    /**
+     * Returns the total time to live of the connections.
+     * 
+     * @return The total time to live of the connections, or {@code null}
+     * for no limit.
+     */
+    public Duration getTimeToLive() {
+        return this.timeToLive;
+    }
+
+    /**
+     * Sets the total time to live of the connections. Connections older
+     * than this time are not reused.
+     * 
+     * @param timeToLive The total time to live of the connections,
+     * or {@code null} for no limit.
+     */
+    public void setTimeToLive(
+            final Duration timeToLive) {
+        this.timeToLive = timeToLive;
+    }
+
+    /**
+     * Returns the inactivity period after which persistent connections
+     * are validated before being reused.
+     * 
+     * @return The inactivity period, or {@code null} to use the
+     * Apache HTTP Client default.
+     */
+    public Duration getValidateAfterInactivity() {
+        return this.validateAfterInactivity;
+    }
+
+    /**
+     * Sets the inactivity period after which persistent connections
+     * are validated before being reused.
+     * 
+     * @param validateAfterInactivity The inactivity period, or
+     * {@code null} to use the Apache HTTP Client default.
+     */
+    public void setValidateAfterInactivity(
+            final Duration validateAfterInactivity) {
+        this.validateAfterInactivity = validateAfterInactivity;
+    }
+
+    /**
+     * Returns the idle time after which connections are evicted from the
+     * pool by a background thread.
+     * 
+     * @return The maximum idle time of the connections, or {@code null}
+     * if idle connections are not evicted.
+     */
+    public Duration getMaxIdleTime() {
+        return this.maxIdleTime;
+    }
+
+    /**
+     * Sets the idle time after which connections are evicted from the
+     * pool by a background thread.
+     * 
+     * @param maxIdleTime The maximum idle time of the connections, or
+     * {@code null} to disable idle connections eviction.
+     */
+    public void setMaxIdleTime(
+            final Duration maxIdleTime) {
+        Validate.isTrue(
+                maxIdleTime == null || !maxIdleTime.isNegative() && !maxIdleTime.isZero(),
+                "The maximum idle time must be positive");
+        this.maxIdleTime = maxIdleTime;
+    }
+
+    /**
+     * Returns {@code true} if expired connections are evicted from the
+     * pool by a background thread.
+     * 
+     * @return If expired connections are evicted.
+     */
+    public boolean isEvictExpired() {
+        return this.evictExpired;
+    }
+
+    /**
+     * Sets if expired connections are evicted from the pool by a
+     * background thread.
+     * 
+     * @param evictExpired If expired connections are evicted.
+     */
+    public void setEvictExpired(
+            final boolean evictExpired) {
+        this.evictExpired = evictExpired;
+    }
+
+    /**
+     * Returns the resolver of the target host names of new connections.
+     * 
+     * @return The host resolver, or {@code null} to use the Apache
+     * HTTP Client default.
+     */
+    public HostResolver getHostResolver() {
+        return this.hostResolver;
+    }
+
+    /**
+     * Sets the resolver of the target host names of new connections,
+     * such as a {@code CachingHostResolver}.
+     * <p>
+     * The host resolver is not closed when the engine is closed.
+     * 
+     * @param hostResolver The host resolver, or {@code null} to use the
+     * Apache HTTP Client default.
+     */
+    public void setHostResolver(
+            final HostResolver hostResolver) {
+        this.hostResolver = hostResolver;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        return new HashCodeBuilder()
+                .append(getClass())
+                .append(this.maxTotal)
+                .append(this.maxPerRoute)
+                .append(this.maxPerHost)
+                .append(this.timeToLive)
+                .append(this.validateAfterInactivity)
+                .append(this.maxIdleTime)
+                .append(this.evictExpired)
+                .append(this.hostResolver)
+                .toHashCode();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(
+            final Object obj) {
+        if (obj == null) { return false; }
+        if (obj == this) { return true; }
+        if (obj.getClass() != getClass()) {
+            return false;
+        }
+        final ApacheConnectionPoolConfig other = (ApacheConnectionPoolConfig) obj;
+        return new EqualsBuilder()
+                .append(this.maxTotal, other.maxTotal)
+                .append(this.maxPerRoute, other.maxPerRoute)
+                .append(this.maxPerHost, other.maxPerHost)
+                .append(this.timeToLive, other.timeToLive)
+                .append(this.validateAfterInactivity, other.validateAfterInactivity)
+                .append(this.maxIdleTime, other.maxIdleTime)
+                .append(this.evictExpired, other.evictExpired)
+                .append(this.hostResolver, other.hostResolver)
+                .isEquals();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return ToStringBuilder.reflectionToString(this, ToStringStyle.SHORT_PREFIX_STYLE);
+    }
+}
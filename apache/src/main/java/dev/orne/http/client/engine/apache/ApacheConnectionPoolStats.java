@@ -0,0 +1,175 @@
+package dev.orne.http.client.engine.apache;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.io.Serializable;
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.lang3.Validate;
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+import org.apache.hc.core5.pool.PoolStats;
+
+/**
+ * Read-only snapshot of the connection pool statistics of
+ * {@code ApacheHttpClientEngine}, for the whole pool or for a
+ * single route.
+ * 
+ * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see ApacheHttpClientEngine#getPoolStats()
+ * @see ApacheHttpClientEngine#getRoutePoolStats()
+ */
+public class ApacheConnectionPoolStats
+implements Serializable {
+
+    /** The serial version UID. */
+    private static final long serialVersionUID = 1L;
+
+    /** The number of leased connections. */
+    private final int leased;
+    /** The number of connection requests waiting for a connection. */
+    private final int pending;
+    /** The number of idle connections available. */
+    private final int available;
+    /** The maximum number of connections. */
+    private final int max;
+
+    /**
+     * Creates a new instance.
+     * 
+     * @param leased The number of leased connections.
+     * @param pending The number of connection requests waiting for a
+     * connection.
+     * @param available The number of idle connections available.
+     * @param max The maximum number of connections.
+     */
+    public ApacheConnectionPoolStats(
+            final int leased,
+            final int pending,
+            final int available,
+            final int max) {
+        super();
+        this.leased = leased;
+        this.pending = pending;
+        this.available = available;
+        this.max = max;
+    }
+
+    /**
+     * Creates a new instance with the values of the specified
+     * Apache HTTP Client pool statistics.
+     * 
+     * @param stats The Apache HTTP Client pool statistics.
+     */
+    public ApacheConnectionPoolStats(
+            final @NotNull PoolStats stats) {
+        this(
+                Validate.notNull(stats).getLeased(),
+                stats.getPending(),
+                stats.getAvailable(),
+                stats.getMax());
+    }
+
+    /**
+     * Returns the number of leased connections.
+     * 
+     * @return The number of leased connections.
+     */
+    public int getLeased() {
+        return this.leased;
+    }
+
+    /**
+     * Returns the number of connection requests waiting for a connection.
+     * 
+     * @return The number of pending connection requests.
+     */
+    public int getPending() {
+        return this.pending;
+    }
+
+    /**
+     * Returns the number of idle connections available.
+     * 
+     * @return The number of idle connections available.
+     */
+    public int getAvailable() {
+        return this.available;
+    }
+
+    /**
+     * Returns the maximum number of connections.
+     * 
+     * @return The maximum number of connections.
+     */
+    public int getMax() {
+        return this.max;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        return new HashCodeBuilder()
+                .append(getClass())
+                .append(this.leased)
+                .append(this.pending)
+                .append(this.available)
+                .append(this.max)
+                .toHashCode();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(
+            final Object obj) {
+        if (obj == null) { return false; }
+        if (obj == this) { return true; }
+        if (obj.getClass() != getClass()) {
+            return false;
+        }
+        final ApacheConnectionPoolStats other = (ApacheConnectionPoolStats) obj;
+        return new EqualsBuilder()
+                .append(this.leased, other.leased)
+                .append(this.pending, other.pending)
+                .append(this.available, other.available)
+                .append(this.max, other.max)
+                .isEquals();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return ToStringBuilder.reflectionToString(this, ToStringStyle.SHORT_PREFIX_STYLE);
+    }
+}
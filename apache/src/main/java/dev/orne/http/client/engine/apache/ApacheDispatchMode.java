@@ -0,0 +1,121 @@
+package dev.orne.http.client.engine.apache;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.validation.constraints.NotNull;
+
+/**
+ * Dispatch modes of the blocking requests executed by
+ * {@code ApacheHttpClientEngine}.
+ * 
+ * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see ApacheHttpClientEngine#ApacheHttpClientEngine(ApacheConnectionPoolConfig, ApacheDispatchMode)
+ */
+public enum ApacheDispatchMode {
+
+    /**
+     * Requests are executed in the threads of a cached platform
+     * threads pool.
+     */
+    PLATFORM_THREADS {
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean isSupported() {
+            return true;
+        }
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public @NotNull ExecutorService createExecutor() {
+            return Executors.newCachedThreadPool();
+        }
+    },
+    /**
+     * Each request is executed in a new virtual thread.
+     * Requires Java 21 or above.
+     */
+    VIRTUAL_THREADS {
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean isSupported() {
+            return VirtualThreads.isSupported();
+        }
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public @NotNull ExecutorService createExecutor() {
+            return VirtualThreads.newVirtualThreadPerTaskExecutor();
+        }
+    },
+    /**
+     * Requests are executed in virtual threads if supported by the
+     * current runtime, in platform threads otherwise.
+     */
+    AUTO {
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean isSupported() {
+            return true;
+        }
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public @NotNull ExecutorService createExecutor() {
+            if (VIRTUAL_THREADS.isSupported()) {
+                return VIRTUAL_THREADS.createExecutor();
+            }
+            return PLATFORM_THREADS.createExecutor();
+        }
+    };
+
+    /**
+     * Returns {@code true} if this dispatch mode is supported in the current
+     * runtime.
+     * 
+     * @return If this dispatch mode is supported.
+     */
+    public abstract boolean isSupported();
+
+    /**
+     * Creates a new {@code ExecutorService} for this dispatch mode.
+     * 
+     * @return The new executor service.
+     * @throws UnsupportedOperationException If this dispatch mode is not
+     * supported in the current runtime.
+     */
+    public abstract @NotNull ExecutorService createExecutor();
+}
@@ -0,0 +1,101 @@
+package dev.orne.http.client.engine.apache;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.lang3.Validate;
+import org.apache.hc.client5.http.DnsResolver;
+
+import dev.orne.http.client.engine.HostResolver;
+
+/**
+ * Adapter of {@code HostResolver} to Apache HTTP Client 5.x
+ * {@code DnsResolver}.
+ * 
+ * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see ApacheConnectionPoolConfig#setHostResolver(HostResolver)
+ */
+public class ApacheDnsResolver
+implements DnsResolver {
+
+    /** The adapted host resolver. */
+    private final @NotNull HostResolver resolver;
+
+    /**
+     * Creates a new instance.
+     * 
+     * @param resolver The adapted host resolver.
+     */
+    public ApacheDnsResolver(
+            final @NotNull HostResolver resolver) {
+        super();
+        this.resolver = Validate.notNull(resolver, "Host resolver is required");
+    }
+
+    /**
+     * Returns the adapted host resolver.
+     * 
+     * @return The adapted host resolver.
+     */
+    public @NotNull HostResolver getResolver() {
+        return this.resolver;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public InetAddress[] resolve(
+            final @NotNull String host)
+    throws UnknownHostException {
+        return this.resolver.resolve(host);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Returns the canonical host name of the first resolved address,
+     * or the specified host name if the canonical name cannot be
+     * determined.
+     */
+    @Override
+    public String resolveCanonicalHostname(
+            final @NotNull String host)
+    throws UnknownHostException {
+        if (host == null) {
+            return null;
+        }
+        final InetAddress[] addresses = this.resolver.resolve(host);
+        final String canonical = addresses[0].getCanonicalHostName();
+        if (canonical.equals(addresses[0].getHostAddress())) {
+            return host;
+        }
+        return canonical;
+    }
+}
@@ -0,0 +1,128 @@
+package dev.orne.http.client.engine.apache;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.lang3.Validate;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.io.entity.AbstractHttpEntity;
+
+import dev.orne.http.client.engine.FileBodyProducer;
+
+/**
+ * Apache HTTP Client 5.x entity for file HTTP request bodies.
+ * <p>
+ * The entity has a known length and is repeatable. The classic client
+ * writes it through {@link FileBodyProducer#writeBody(OutputStream)},
+ * while the asynchronous clients send it with
+ * {@link ApacheFileEntityProducer}, without buffering the file in memory.
+ * 
+ * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ */
+public class ApacheFileEntity
+extends AbstractHttpEntity {
+
+    /** The file body producer. */
+    private final @NotNull FileBodyProducer producer;
+
+    /**
+     * Creates a new instance.
+     * 
+     * @param producer The file body producer.
+     * @param contentType The body content type.
+     */
+    public ApacheFileEntity(
+            final @NotNull FileBodyProducer producer,
+            final ContentType contentType) {
+        super(contentType, null, false);
+        this.producer = Validate.notNull(producer);
+    }
+
+    /**
+     * Returns the file body producer.
+     * 
+     * @return The file body producer.
+     */
+    public @NotNull FileBodyProducer getProducer() {
+        return this.producer;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isRepeatable() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getContentLength() {
+        return this.producer.getLength();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public InputStream getContent()
+    throws IOException {
+        return this.producer.openStream();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void writeTo(
+            final @NotNull OutputStream output)
+    throws IOException {
+        Validate.notNull(output);
+        this.producer.writeBody(output);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isStreaming() {
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() {
+        // No resources are held between writes
+    }
+}
@@ -0,0 +1,231 @@
+package dev.orne.http.client.engine.apache;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Collections;
+import java.util.Set;
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.lang3.Validate;
+import org.apache.hc.core5.http.nio.AsyncEntityProducer;
+import org.apache.hc.core5.http.nio.DataStreamChannel;
+
+import dev.orne.http.client.engine.FileBodyProducer;
+
+/**
+ * Apache HTTP Client 5.x asynchronous entity producer for file HTTP
+ * request bodies.
+ * <p>
+ * Reads the file region in fixed size chunks into a reusable buffer as
+ * the data stream channel accepts output, so the file is never fully
+ * buffered in memory. The producer is repeatable: releasing its resources
+ * rewinds it to the beginning of the body.
+ * 
+ * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ */
+public class ApacheFileEntityProducer
+implements AsyncEntityProducer {
+
+    /** The size of the transfer buffer. */
+    public static final int BUFFER_SIZE = 16 * 1024;
+
+    /** The file body producer. */
+    private final @NotNull FileBodyProducer producer;
+    /** The body content type header value, if any. */
+    private final String contentType;
+    /** The file channel being read, if open. */
+    private FileChannel source;
+    /** The transfer buffer, in read mode. */
+    private ByteBuffer buffer;
+    /** The bytes of the body already read from the file. */
+    private long offset;
+    /** The failure cause, if any. */
+    private volatile Exception exception;
+
+    /**
+     * Creates a new instance.
+     * 
+     * @param producer The file body producer.
+     * @param contentType The body content type header value, if any.
+     */
+    public ApacheFileEntityProducer(
+            final @NotNull FileBodyProducer producer,
+            final String contentType) {
+        super();
+        this.producer = Validate.notNull(producer);
+        this.contentType = contentType;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isRepeatable() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getContentType() {
+        return this.contentType;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getContentLength() {
+        return this.producer.getLength();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized int available() {
+        final long pending = this.producer.getLength() - this.offset
+                + (this.buffer == null ? 0 : this.buffer.remaining());
+        return (int) Math.min(Integer.MAX_VALUE, pending);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getContentEncoding() {
+        return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isChunked() {
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<String> getTrailerNames() {
+        return Collections.emptySet();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void produce(
+            final @NotNull DataStreamChannel channel)
+    throws IOException {
+        if (this.source == null) {
+            this.source = this.producer.openChannel();
+            this.buffer = ByteBuffer.allocate(
+                    (int) Math.min(BUFFER_SIZE, Math.max(1, this.producer.getLength())));
+            this.buffer.flip();
+            this.offset = 0;
+        }
+        while (true) {
+            if (!this.buffer.hasRemaining()) {
+                if (this.offset >= this.producer.getLength()) {
+                    channel.endStream();
+                    releaseResources();
+                    return;
+                }
+                fillBuffer();
+            }
+            if (channel.write(this.buffer) == 0) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Reads the next chunk of the body from the file into the transfer
+     * buffer.
+     * 
+     * @throws IOException If an I/O error occurs or the file is shorter
+     * than expected.
+     */
+    private void fillBuffer()
+    throws IOException {
+        this.buffer.clear();
+        final long remaining = this.producer.getLength() - this.offset;
+        if (remaining < this.buffer.capacity()) {
+            this.buffer.limit((int) remaining);
+        }
+        final int read = this.source.read(this.buffer, this.producer.getPosition() + this.offset);
+        if (read < 0) {
+            throw new EOFException("HTTP request body file is shorter than expected");
+        }
+        this.offset += read;
+        this.buffer.flip();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void failed(
+            final @NotNull Exception cause) {
+        this.exception = cause;
+        releaseResources();
+    }
+
+    /**
+     * Returns the failure cause, if any.
+     * 
+     * @return The failure cause.
+     */
+    public Exception getException() {
+        return this.exception;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void releaseResources() {
+        final FileChannel opened = this.source;
+        this.source = null;
+        this.buffer = null;
+        this.offset = 0;
+        if (opened != null) {
+            try {
+                this.producer.releaseChannel(opened);
+            } catch (final IOException e) {
+                // Ignore close errors
+            }
+        }
+    }
+}
@@ -0,0 +1,561 @@
+package dev.orne.http.client.engine.apache;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.lang3.Validate;
+import org.apache.hc.client5.http.config.TlsConfig;
+import org.apache.hc.client5.http.cookie.BasicCookieStore;
+import org.apache.hc.client5.http.cookie.CookieStore;
+import org.apache.hc.client5.http.impl.DefaultSchemePortResolver;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.routing.RoutingSupport;
+import org.apache.hc.core5.concurrent.ComplexFuture;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.ConnectionClosedException;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.HttpRequest;
+import org.apache.hc.core5.http.URIScheme;
+import org.apache.hc.core5.http.io.support.ClassicRequestBuilder;
+import org.apache.hc.core5.http.nio.AsyncEntityProducer;
+import org.apache.hc.core5.http.nio.support.BasicRequestProducer;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.http2.H2ConnectionException;
+import org.apache.hc.core5.http2.HttpVersionPolicy;
+import org.apache.hc.core5.http2.impl.nio.ProtocolNegotiationException;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.reactor.IOReactorConfig;
+
+import dev.orne.http.Methods;
+import dev.orne.http.client.HttpClientException;
+
+/**
+ * Implementation of {@code HtppClientEngine} based on
+ * Apache HTTP Client 5.x asynchronous HTTP/2 client.
+ * <p>
+ * Concurrent requests to the same host are multiplexed as HTTP/2 streams
+ * over a single connection per host, instead of requiring a connection
+ * per concurrent request. HTTP/2 is negotiated through ALPN for
+ * {@code https} hosts, and used with prior knowledge (h2c) for
+ * {@code http} hosts.
+ * <p>
+ * When HTTP/1.1 fallback is enabled, requests to hosts that fail to
+ * negotiate HTTP/2 before any HTTP/2 response is received from them are
+ * retried with a pooled HTTP/1.1 client if their HTTP method is idempotent,
+ * and subsequent requests to those hosts use HTTP/1.1 directly for the
+ * configured time. Requests with non idempotent HTTP methods are never
+ * replayed and fail with the negotiation error.
+ * <p>
+ * The response bodies are fully buffered in memory before the
+ * {@code HttpResponseHandler} is invoked, as in
+ * {@code ApacheAsyncHttpClientEngine}.
+ * 
+ * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see ApacheHttp2Config
+ */
+public class ApacheHttp2ClientEngine
+extends ApacheAsyncHttpClientEngine {
+
+    /** The HTTP/1.1 fallback client, if any. */
+    private final CloseableHttpAsyncClient http1Client;
+    /** The hosts known to support HTTP/2. */
+    private final @NotNull Set<HttpHost> http2Hosts = ConcurrentHashMap.newKeySet();
+    /** The time HTTP/1.1 is used for hosts that fail to negotiate HTTP/2. */
+    private final @NotNull Duration http1FallbackTtl;
+    /** The hosts that failed to negotiate HTTP/2, with the expiration in nanoseconds. */
+    private final @NotNull Map<HttpHost, Long> http1Hosts = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new instance with the default configuration.
+     * <p>
+     * This includes:
+     * <ul>
+     * <li>A clean {@code BasicCookieStore}.</li>
+     * <li>A default {@code ApacheHttp2Config}.</li>
+     * <li>{@link #DEFAULT_IO_THREADS} I/O reactor threads.</li>
+     * <li>HTTP response handlers executed in
+     * {@code ForkJoinPool.commonPool()}.</li>
+     * </ul>
+     */
+    public ApacheHttp2ClientEngine() {
+        this(new ApacheHttp2Config());
+    }
+
+    /**
+     * Creates a new instance with the specified HTTP/2 configuration.
+     * 
+     * @param config The HTTP/2 configuration.
+     * @see #ApacheHttp2ClientEngine()
+     */
+    public ApacheHttp2ClientEngine(
+            final @NotNull ApacheHttp2Config config) {
+        this(DEFAULT_IO_THREADS, config);
+    }
+
+    /**
+     * Creates a new instance with the specified number of I/O reactor
+     * threads and HTTP/2 configuration.
+     * 
+     * @param ioThreads The number of I/O reactor threads.
+     * @param config The HTTP/2 configuration.
+     * @see #ApacheHttp2ClientEngine()
+     */
+    public ApacheHttp2ClientEngine(
+            final int ioThreads,
+            final @NotNull ApacheHttp2Config config) {
+        this(ioThreads, config, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a new instance with the specified number of I/O reactor
+     * threads, HTTP/2 configuration and executor of the HTTP response
+     * handlers.
+     * 
+     * @param ioThreads The number of I/O reactor threads.
+     * @param config The HTTP/2 configuration.
+     * @param handlerExecutor The executor of the HTTP response handlers.
+     * @see #ApacheHttp2ClientEngine()
+     */
+    public ApacheHttp2ClientEngine(
+            final int ioThreads,
+            final @NotNull ApacheHttp2Config config,
+            final @NotNull Executor handlerExecutor) {
+        this(new BasicCookieStore(), ioThreads, new ApacheHttp2Config(config), handlerExecutor);
+    }
+
+    /**
+     * Creates a new instance with the specified cookie store, number of
+     * I/O reactor threads, HTTP/2 configuration and executor of the
+     * HTTP response handlers.
+     * 
+     * @param cookieStore The HTTP client's cookie store.
+     * @param ioThreads The number of I/O reactor threads.
+     * @param config The HTTP/2 configuration.
+     * @param handlerExecutor The executor of the HTTP response handlers.
+     */
+    private ApacheHttp2ClientEngine(
+            final @NotNull CookieStore cookieStore,
+            final int ioThreads,
+            final @NotNull ApacheHttp2Config config,
+            final @NotNull Executor handlerExecutor) {
+        this(
+                cookieStore,
+                createHttp2Client(cookieStore, ioThreads, config),
+                config.isHttp1Fallback() ? createHttp1Client(cookieStore, ioThreads) : null,
+                handlerExecutor,
+                config.getHttp1FallbackTtl());
+        getClient().start();
+        if (this.http1Client != null) {
+            this.http1Client.start();
+        }
+    }
+
+    /**
+     * Creates a new instance with the specified components.
+     * <p>
+     * The HTTP clients must be started by the caller. The HTTP/1.1 client
+     * should share the cookie store of the HTTP/2 client.
+     * 
+     * @param cookieStore The HTTP client's cookie store.
+     * @param http2Client The asynchronous HTTP/2 client.
+     * @param http1Client The asynchronous HTTP/1.1 fallback client, or
+     * {@code null} to disable HTTP/1.1 fallback.
+     */
+    public ApacheHttp2ClientEngine(
+            final @NotNull CookieStore cookieStore,
+            final @NotNull CloseableHttpAsyncClient http2Client,
+            final CloseableHttpAsyncClient http1Client) {
+        this(cookieStore, http2Client, http1Client, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a new instance with the specified components.
+     * <p>
+     * The HTTP clients must be started by the caller. The HTTP/1.1 client
+     * should share the cookie store of the HTTP/2 client.
+     * 
+     * @param cookieStore The HTTP client's cookie store.
+     * @param http2Client The asynchronous HTTP/2 client.
+     * @param http1Client The asynchronous HTTP/1.1 fallback client, or
+     * {@code null} to disable HTTP/1.1 fallback.
+     * @param handlerExecutor The executor of the HTTP response handlers.
+     */
+    public ApacheHttp2ClientEngine(
+            final @NotNull CookieStore cookieStore,
+            final @NotNull CloseableHttpAsyncClient http2Client,
+            final CloseableHttpAsyncClient http1Client,
+            final @NotNull Executor handlerExecutor) {
+        this(cookieStore, http2Client, http1Client, handlerExecutor,
+                ApacheHttp2Config.DEFAULT_HTTP1_FALLBACK_TTL);
+    }
+
+    /**
+     * Creates a new instance with the specified components.
+     * 
+     * @param cookieStore The HTTP client's cookie store.
+     * @param http2Client The asynchronous HTTP/2 client.
+     * @param http1Client The asynchronous HTTP/1.1 fallback client, or
+     * {@code null} to disable HTTP/1.1 fallback.
+     * @param handlerExecutor The executor of the HTTP response handlers.
+     * @param http1FallbackTtl The time HTTP/1.1 is used for hosts that
+     * fail to negotiate HTTP/2.
+     */
+    ApacheHttp2ClientEngine(
+            final @NotNull CookieStore cookieStore,
+            final @NotNull CloseableHttpAsyncClient http2Client,
+            final CloseableHttpAsyncClient http1Client,
+            final @NotNull Executor handlerExecutor,
+            final @NotNull Duration http1FallbackTtl) {
+        super(cookieStore, http2Client, handlerExecutor);
+        this.http1Client = http1Client;
+        this.http1FallbackTtl = Validate.notNull(http1FallbackTtl);
+    }
+
+    /**
+     * Creates the asynchronous HTTP/2 client.
+     * 
+     * @param cookieStore The HTTP client's cookie store.
+     * @param ioThreads The number of I/O reactor threads.
+     * @param config The HTTP/2 configuration.
+     * @return The asynchronous HTTP/2 client.
+     */
+    private static @NotNull CloseableHttpAsyncClient createHttp2Client(
+            final @NotNull CookieStore cookieStore,
+            final int ioThreads,
+            final @NotNull ApacheHttp2Config config) {
+        Validate.isTrue(ioThreads > 0, "At least one I/O thread is required");
+        return HttpAsyncClients.customHttp2()
+                .setDefaultCookieStore(cookieStore)
+                .setH2Config(config.toH2Config())
+                .setIOReactorConfig(IOReactorConfig.custom()
+                        .setIoThreadCount(ioThreads)
+                        .build())
+                .build();
+    }
+
+    /**
+     * Creates the asynchronous HTTP/1.1 fallback client.
+     * 
+     * @param cookieStore The HTTP client's cookie store.
+     * @param ioThreads The number of I/O reactor threads.
+     * @return The asynchronous HTTP/1.1 client.
+     */
+    private static @NotNull CloseableHttpAsyncClient createHttp1Client(
+            final @NotNull CookieStore cookieStore,
+            final int ioThreads) {
+        return HttpAsyncClients.custom()
+                .setDefaultCookieStore(cookieStore)
+                .setConnectionManager(PoolingAsyncClientConnectionManagerBuilder.create()
+                        .setDefaultTlsConfig(TlsConfig.custom()
+                                .setVersionPolicy(HttpVersionPolicy.FORCE_HTTP_1)
+                                .build())
+                        .build())
+                .setIOReactorConfig(IOReactorConfig.custom()
+                        .setIoThreadCount(ioThreads)
+                        .build())
+                .build();
+    }
+
+    /**
+     * Returns the asynchronous HTTP/1.1 fallback client, if any.
+     * 
+     * @return The asynchronous HTTP/1.1 client, or {@code null} if
+     * HTTP/1.1 fallback is disabled.
+     */
+    protected CloseableHttpAsyncClient getHttp1Client() {
+        return this.http1Client;
+    }
+
+    /**
+     * Returns {@code true} if the specified target host is known to
+     * support HTTP/2.
+     * 
+     * @param host The normalized target host.
+     * @return If the target host supports HTTP/2.
+     */
+    boolean isHttp2Host(
+            final @NotNull HttpHost host) {
+        return this.http2Hosts.contains(host);
+    }
+
+    /**
+     * Returns {@code true} if the specified target host failed to
+     * negotiate HTTP/2 and HTTP/1.1 is still used for it.
+     * Expired marks are removed.
+     * 
+     * @param host The normalized target host.
+     * @return If HTTP/1.1 is used for the target host.
+     */
+    boolean isHttp1Host(
+            final @NotNull HttpHost host) {
+        final Long expiration = this.http1Hosts.get(host);
+        if (expiration == null) {
+            return false;
+        }
+        if (System.nanoTime() - expiration < 0) {
+            return true;
+        }
+        this.http1Hosts.remove(host, expiration);
+        return false;
+    }
+
+    /**
+     * Marks the specified target host as failed to negotiate HTTP/2,
+     * using HTTP/1.1 for it during the configured time.
+     * 
+     * @param host The normalized target host.
+     */
+    void markHttp1Host(
+            final @NotNull HttpHost host) {
+        this.http1Hosts.put(host, System.nanoTime() + this.http1FallbackTtl.toNanos());
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Requests to hosts that failed to negotiate HTTP/2 are executed with
+     * the HTTP/1.1 fallback client. Requests with idempotent HTTP methods
+     * to hosts not known to support HTTP/2 are retried with the HTTP/1.1
+     * fallback client if HTTP/2 negotiation fails.
+     */
+    @Override
+    protected @NotNull Future<ClassicHttpResponse> execute(
+            final @NotNull ClassicHttpRequest request,
+            final HttpContext context,
+            final @NotNull FutureCallback<ClassicHttpResponse> callback)
+    throws HttpClientException {
+        final AsyncEntityProducer entityProducer = createEntityProducer(request.getEntity());
+        if (this.http1Client == null) {
+            return execute(getClient(), request, entityProducer, context, callback);
+        }
+        final HttpHost host = getTargetHost(request);
+        if (isHttp1Host(host)) {
+            return execute(this.http1Client, request, entityProducer, context, callback);
+        }
+        if (this.http2Hosts.contains(host)) {
+            return execute(getClient(), request, entityProducer, context, callback);
+        }
+        // The HTTP/2 client can modify the request while executing it
+        final ClassicHttpRequest fallbackRequest = ClassicRequestBuilder.copy(request).build();
+        final boolean replayable = Methods.isIdempotent(request.getMethod());
+        final AtomicReference<Future<ClassicHttpResponse>> current = new AtomicReference<>();
+        final ComplexFuture<ClassicHttpResponse> result = new ComplexFuture<>(callback);
+        // ComplexFuture cancels its dependency even when already completed
+        result.setDependency(() -> {
+            if (!result.isCancelled()) {
+                return false;
+            }
+            final Future<ClassicHttpResponse> exchange = current.get();
+            return exchange == null || exchange.cancel(true);
+        });
+        final Future<ClassicHttpResponse> http2Exchange = execute(
+                getClient(),
+                request,
+                entityProducer,
+                context,
+                new FutureCallback<ClassicHttpResponse>() {
+                    @Override
+                    public void completed(
+                            final ClassicHttpResponse response) {
+                        http2Hosts.add(host);
+                        result.completed(response);
+                    }
+                    @Override
+                    public void failed(
+                            final Exception e) {
+                        if (result.isDone()
+                                || http2Hosts.contains(host)
+                                || !isNegotiationFailure(host, e)) {
+                            result.failed(e);
+                            return;
+                        }
+                        markHttp1Host(host);
+                        if (replayable) {
+                            current.set(execute(
+                                    http1Client,
+                                    fallbackRequest,
+                                    entityProducer,
+                                    context,
+                                    new ForwardingCallback(result)));
+                            if (result.isCancelled()) {
+                                current.get().cancel(true);
+                            }
+                        } else {
+                            result.failed(e);
+                        }
+                    }
+                    @Override
+                    public void cancelled() {
+                        result.cancel();
+                    }
+                });
+        current.compareAndSet(null, http2Exchange);
+        return result;
+    }
+
+    /**
+     * Executes the specified HTTP request with the specified HTTP client,
+     * fully buffering the response body before invoking the callback.
+     * 
+     * @param client The HTTP client.
+     * @param request The HTTP request.
+     * @param entityProducer The HTTP request body producer, if any.
+     * @param context The HTTP context, or {@code null} to use the default
+     * one.
+     * @param callback The HTTP response callback.
+     * @return The future of the HTTP request execution.
+     */
+    private static @NotNull Future<ClassicHttpResponse> execute(
+            final @NotNull CloseableHttpAsyncClient client,
+            final @NotNull HttpRequest request,
+            final AsyncEntityProducer entityProducer,
+            final HttpContext context,
+            final @NotNull FutureCallback<ClassicHttpResponse> callback) {
+        return client.execute(
+                new BasicRequestProducer(request, entityProducer),
+                new ApacheAsyncResponseConsumer(),
+                context,
+                callback);
+    }
+
+    /**
+     * Returns the normalized target host of the specified HTTP request.
+     * 
+     * @param request The HTTP request.
+     * @return The normalized target host.
+     */
+    static @NotNull HttpHost getTargetHost(
+            final @NotNull HttpRequest request) {
+        return RoutingSupport.normalize(
+                new HttpHost(request.getScheme(), request.getAuthority()),
+                DefaultSchemePortResolver.INSTANCE);
+    }
+
+    /**
+     * Returns {@code true} if the specified HTTP/2 request execution error
+     * is caused by a failed HTTP/2 negotiation with a host not yet known
+     * to support HTTP/2.
+     * <p>
+     * For {@code https} hosts only ALPN negotiation failures are accepted.
+     * For {@code http} hosts, where HTTP/2 is used with prior knowledge,
+     * HTTP/1.1 servers reject the HTTP/2 connection preface closing the
+     * connection or answering with a malformed HTTP/2 frame, so connection
+     * closures and HTTP/2 connection errors are accepted too.
+     * 
+     * @param host The normalized target host.
+     * @param error The request execution error.
+     * @return If the error is caused by a failed HTTP/2 negotiation.
+     */
+    static boolean isNegotiationFailure(
+            final @NotNull HttpHost host,
+            final Exception error) {
+        if (error instanceof ProtocolNegotiationException) {
+            return true;
+        }
+        return URIScheme.HTTP.same(host.getSchemeName())
+                && (error instanceof H2ConnectionException
+                        || error instanceof ConnectionClosedException);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Closes the HTTP/1.1 fallback client too.
+     */
+    @Override
+    public void close()
+    throws IOException {
+        try {
+            super.close();
+        } finally {
+            if (this.http1Client != null) {
+                this.http1Client.close(CloseMode.GRACEFUL);
+            }
+        }
+    }
+
+    /**
+     * Callback that forwards the HTTP request execution events to a
+     * {@code ComplexFuture}.
+     */
+    private static class ForwardingCallback
+    implements FutureCallback<ClassicHttpResponse> {
+
+        /** The target future. */
+        private final @NotNull ComplexFuture<ClassicHttpResponse> target;
+
+        /**
+         * Creates a new instance.
+         * 
+         * @param target The target future.
+         */
+        ForwardingCallback(
+                final @NotNull ComplexFuture<ClassicHttpResponse> target) {
+            super();
+            this.target = target;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void completed(
+                final ClassicHttpResponse response) {
+            this.target.completed(response);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void failed(
+                final Exception e) {
+            this.target.failed(e);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void cancelled() {
+            this.target.cancel();
+        }
+    }
+}
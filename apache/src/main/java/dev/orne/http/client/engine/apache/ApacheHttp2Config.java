@@ -0,0 +1,240 @@
+package dev.orne.http.client.engine.apache;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.time.Duration;
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.lang3.Validate;
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+import org.apache.hc.core5.http2.config.H2Config;
+
+/**
+ * HTTP/2 configuration of {@code ApacheHttp2ClientEngine}.
+ * <p>
+ * Default values are the same used by Apache HTTP Core 5.x
+ * {@code H2Config}, with server push disabled and HTTP/1.1 fallback
+ * enabled.
+ * 
+ * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see ApacheHttp2ClientEngine#ApacheHttp2ClientEngine(ApacheHttp2Config)
+ */
+public class ApacheHttp2Config {
+
+    /** The default maximum number of concurrent streams per connection. */
+    public static final int DEFAULT_MAX_CONCURRENT_STREAMS =
+            H2Config.DEFAULT.getMaxConcurrentStreams();
+    /** The default initial flow control window size, in bytes. */
+    public static final int DEFAULT_INITIAL_WINDOW_SIZE =
+            H2Config.DEFAULT.getInitialWindowSize();
+    /** The default time HTTP/1.1 is used for hosts that fail to negotiate HTTP/2. */
+    public static final Duration DEFAULT_HTTP1_FALLBACK_TTL =
+            Duration.ofMinutes(10);
+
+    /** The maximum number of concurrent streams per connection. */
+    private int maxConcurrentStreams = DEFAULT_MAX_CONCURRENT_STREAMS;
+    /** The initial flow control window size, in bytes. */
+    private int initialWindowSize = DEFAULT_INITIAL_WINDOW_SIZE;
+    /** If HTTP/1.1 is used for hosts that fail to negotiate HTTP/2. */
+    private boolean http1Fallback = true;
+    /** The time HTTP/1.1 is used for hosts that fail to negotiate HTTP/2. */
+    private @NotNull Duration http1FallbackTtl = DEFAULT_HTTP1_FALLBACK_TTL;
+
+    /**
+     * Creates a new instance with the default configuration.
+     */
+    public ApacheHttp2Config() {
+        super();
+    }
+
+    /**
+     * Copy constructor.
+     * 
+     * @param copy The instance to copy.
+     */
+    public ApacheHttp2Config(
+            final @NotNull ApacheHttp2Config copy) {
+        super();
+        Validate.notNull(copy);
+        this.maxConcurrentStreams = copy.maxConcurrentStreams;
+        this.initialWindowSize = copy.initialWindowSize;
+        this.http1Fallback = copy.http1Fallback;
+        this.http1FallbackTtl = copy.http1FallbackTtl;
+    }
+
+    /**
+     * Returns the maximum number of concurrent streams per connection
+     * announced to the servers.
+     * 
+     * @return The maximum number of concurrent streams per connection.
+     */
+    public int getMaxConcurrentStreams() {
+        return this.maxConcurrentStreams;
+    }
+
+    /**
+     * Sets the maximum number of concurrent streams per connection
+     * announced to the servers.
+     * <p>
+     * Requests exceeding the maximum number of concurrent streams announced
+     * by a server are queued by its connection until a stream completes.
+     * 
+     * @param maxConcurrentStreams The maximum number of concurrent streams
+     * per connection.
+     */
+    public void setMaxConcurrentStreams(
+            final int maxConcurrentStreams) {
+        Validate.isTrue(maxConcurrentStreams > 0, "The maximum number of concurrent streams must be positive");
+        this.maxConcurrentStreams = maxConcurrentStreams;
+    }
+
+    /**
+     * Returns the initial flow control window size of the streams,
+     * in bytes.
+     * 
+     * @return The initial flow control window size.
+     */
+    public int getInitialWindowSize() {
+        return this.initialWindowSize;
+    }
+
+    /**
+     * Sets the initial flow control window size of the streams, in bytes.
+     * Larger windows allow receiving larger response bodies without waiting
+     * for window updates.
+     * 
+     * @param initialWindowSize The initial flow control window size.
+     */
+    public void setInitialWindowSize(
+            final int initialWindowSize) {
+        Validate.isTrue(initialWindowSize > 0, "The initial window size must be positive");
+        this.initialWindowSize = initialWindowSize;
+    }
+
+    /**
+     * Returns {@code true} if HTTP/1.1 is used for hosts that fail to
+     * negotiate HTTP/2.
+     * 
+     * @return If HTTP/1.1 fallback is enabled.
+     */
+    public boolean isHttp1Fallback() {
+        return this.http1Fallback;
+    }
+
+    /**
+     * Sets if HTTP/1.1 is used for hosts that fail to negotiate HTTP/2.
+     * 
+     * @param http1Fallback If HTTP/1.1 fallback is enabled.
+     */
+    public void setHttp1Fallback(
+            final boolean http1Fallback) {
+        this.http1Fallback = http1Fallback;
+    }
+
+    /**
+     * Returns the time HTTP/1.1 is used for hosts that fail to negotiate
+     * HTTP/2 before trying to negotiate HTTP/2 again.
+     * 
+     * @return The time HTTP/1.1 is used for hosts that fail to negotiate
+     * HTTP/2.
+     */
+    public @NotNull Duration getHttp1FallbackTtl() {
+        return this.http1FallbackTtl;
+    }
+
+    /**
+     * Sets the time HTTP/1.1 is used for hosts that fail to negotiate
+     * HTTP/2 before trying to negotiate HTTP/2 again.
+     * 
+     * @param http1FallbackTtl The time HTTP/1.1 is used for hosts that
+     * fail to negotiate HTTP/2.
+     */
+    public void setHttp1FallbackTtl(
+            final @NotNull Duration http1FallbackTtl) {
+        Validate.notNull(http1FallbackTtl);
+        Validate.isTrue(!http1FallbackTtl.isNegative() && !http1FallbackTtl.isZero(), "The HTTP/1.1 fallback TTL must be positive");
+        this.http1FallbackTtl = http1FallbackTtl;
+    }
+
+    /**
+     * Creates the Apache HTTP Core HTTP/2 configuration for this
+     * configuration. Server push is always disabled.
+     * 
+     * @return The Apache HTTP Core HTTP/2 configuration.
+     */
+    @NotNull H2Config toH2Config() {
+        return H2Config.custom()
+                .setMaxConcurrentStreams(this.maxConcurrentStreams)
+                .setInitialWindowSize(this.initialWindowSize)
+                .setPushEnabled(false)
+                .build();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        return new HashCodeBuilder()
+                .append(getClass())
+                .append(this.maxConcurrentStreams)
+                .append(this.initialWindowSize)
+                .append(this.http1Fallback)
+                .append(this.http1FallbackTtl)
+                .toHashCode();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(
+            final Object obj) {
+        if (obj == null) { return false; }
+        if (obj == this) { return true; }
+        if (obj.getClass() != getClass()) {
+            return false;
+        }
+        final ApacheHttp2Config other = (ApacheHttp2Config) obj;
+        return new EqualsBuilder()
+                .append(this.maxConcurrentStreams, other.maxConcurrentStreams)
+                .append(this.initialWindowSize, other.initialWindowSize)
+                .append(this.http1Fallback, other.http1Fallback)
+                .append(this.http1FallbackTtl, other.http1FallbackTtl)
+                .isEquals();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return ToStringBuilder.reflectionToString(this, ToStringStyle.SHORT_PREFIX_STYLE);
+    }
+}
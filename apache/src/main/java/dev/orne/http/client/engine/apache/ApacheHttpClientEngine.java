@@ -24,14 +24,19 @@ package dev.orne.http.client.engine.apache;
 
 import java.io.IOException;
 import java.net.URI;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import javax.validation.constraints.NotNull;
 
 import org.apache.commons.lang3.Validate;
+import org.apache.hc.client5.http.HttpRoute;
 import org.apache.hc.client5.http.classic.methods.HttpDelete;
 import org.apache.hc.client5.http.classic.methods.HttpGet;
 import org.apache.hc.client5.http.classic.methods.HttpHead;
@@ -40,17 +45,30 @@ import org.apache.hc.client5.http.classic.methods.HttpPatch;
 import org.apache.hc.client5.http.classic.methods.HttpPost;
 import org.apache.hc.client5.http.classic.methods.HttpPut;
 import org.apache.hc.client5.http.classic.methods.HttpTrace;
+import org.apache.hc.client5.http.classic.methods.HttpUriRequestBase;
+import org.apache.hc.client5.http.config.ConnectionConfig;
 import org.apache.hc.client5.http.config.RequestConfig;
 import org.apache.hc.client5.http.cookie.CookieStore;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClientBuilder;
 import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.concurrent.Cancellable;
 import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.URIScheme;
 import org.apache.hc.core5.http.protocol.HttpContext;
 import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.pool.ConnPoolControl;
+import org.apache.hc.core5.util.TimeValue;
 
 import dev.orne.http.Methods;
+import dev.orne.http.client.FutureUtils;
 import dev.orne.http.client.HttpClientException;
+import dev.orne.http.client.engine.AdmissionControl;
 import dev.orne.http.client.engine.HttpClientEngine;
+import dev.orne.http.client.engine.InFlightRequests;
 import dev.orne.http.client.engine.HttpRequestCustomizer;
 import dev.orne.http.client.engine.HttpResponseHandler;
 
@@ -71,6 +89,16 @@ implements HttpClientEngine {
     private final @NotNull CloseableHttpClient client;
     /** The asynchronous executor service. */
     private final @NotNull ExecutorService executor;
+    /** The HTTP client's connection pool, if known. */
+    private final ConnPoolControl<HttpRoute> connectionPool;
+    /** The admission control, if any. */
+    private final AdmissionControl admissionControl;
+    /** The default request configuration. */
+    private final @NotNull RequestConfig requestConfig;
+    /** If the executor service was created by this engine. */
+    private final boolean executorOwned;
+    /** The requests in flight. */
+    private final @NotNull InFlightRequests inFlightRequests = new InFlightRequests();
 
     /**
      * Creates a new instance with the default configuration.
@@ -79,6 +107,7 @@ implements HttpClientEngine {
      * <ul>
      * <li>A clean {@code BasicCookieStore}.</li>
      * <li>A default {@code HttpClient}.</li>
+     * <li>A default {@code ApacheConnectionPoolConfig}.</li>
      * <li>A default cached thread pool based {@code ExecutorService.}</li>
      * </ul>
      * <p>
@@ -88,20 +117,92 @@ implements HttpClientEngine {
      * @see #configureRequestConfig(org.apache.http.client.config.RequestConfig.Builder)
      */
     public ApacheHttpClientEngine() {
+        this(new ApacheConnectionPoolConfig());
+    }
+
+    /**
+     * Creates a new instance with the default configuration and the
+     * specified connection pool configuration.
+     * 
+     * @param poolConfig The connection pool configuration.
+     * @see #ApacheHttpClientEngine()
+     */
+    public ApacheHttpClientEngine(
+            final @NotNull ApacheConnectionPoolConfig poolConfig) {
+        this(poolConfig, ApacheDispatchMode.PLATFORM_THREADS);
+    }
+
+    /**
+     * Creates a new instance with the default configuration and the
+     * specified connection pool configuration and dispatch mode.
+     * 
+     * @param poolConfig The connection pool configuration.
+     * @param dispatchMode The dispatch mode of the blocking requests.
+     * @throws UnsupportedOperationException If the dispatch mode is not
+     * supported in the current runtime.
+     * @see #ApacheHttpClientEngine()
+     */
+    public ApacheHttpClientEngine(
+            final @NotNull ApacheConnectionPoolConfig poolConfig,
+            final @NotNull ApacheDispatchMode dispatchMode) {
+        this(poolConfig, dispatchMode, null);
+    }
+
+    /**
+     * Creates a new instance with the default configuration and the
+     * specified connection pool configuration, dispatch mode and
+     * admission control.
+     * <p>
+     * The admission control is closed when this engine is closed.
+     * 
+     * @param poolConfig The connection pool configuration.
+     * @param dispatchMode The dispatch mode of the blocking requests.
+     * @param admissionControl The admission control of the requests,
+     * or {@code null} to execute all the requests without limit.
+     * @throws UnsupportedOperationException If the dispatch mode is not
+     * supported in the current runtime.
+     * @see #ApacheHttpClientEngine()
+     */
+    public ApacheHttpClientEngine(
+            final @NotNull ApacheConnectionPoolConfig poolConfig,
+            final @NotNull ApacheDispatchMode dispatchMode,
+            final AdmissionControl admissionControl) {
         super();
+        Validate.notNull(poolConfig, "Connection pool configuration is required");
+        Validate.notNull(dispatchMode, "Dispatch mode is required");
+        if (!dispatchMode.isSupported()) {
+            throw new UnsupportedOperationException(
+                    "Dispatch mode not supported in current runtime: " + dispatchMode);
+        }
         this.cookieStore = new ApacheCookieStore();
         final RequestConfig.Builder requestConfigBuilder = RequestConfig.custom();
         configureRequestConfig(requestConfigBuilder);
         final RequestConfig requestConfig = requestConfigBuilder.build();
-        this.client = HttpClients.custom()
+        final PoolingHttpClientConnectionManager connectionManager =
+                createConnectionManager(poolConfig);
+        final HttpClientBuilder builder = HttpClients.custom()
                 .setDefaultCookieStore(this.cookieStore.getDelegate())
                 .setDefaultRequestConfig(requestConfig)
-                .build();
-        this.executor = Executors.newCachedThreadPool();
+                .setConnectionManager(connectionManager);
+        if (poolConfig.isEvictExpired()) {
+            builder.evictExpiredConnections();
+        }
+        if (poolConfig.getMaxIdleTime() != null) {
+            builder.evictIdleConnections(TimeValue.of(poolConfig.getMaxIdleTime()));
+        }
+        this.client = builder.build();
+        this.connectionPool = connectionManager;
+        this.executor = dispatchMode.createExecutor();
+        this.admissionControl = admissionControl;
+        this.requestConfig = requestConfig;
+        this.executorOwned = true;
     }
 
     /**
      * Creates a new instance with the specified components.
+     * <p>
+     * Connection pool statistics are not available for instances
+     * created with this constructor.
      * 
      * @param cookieStore The HTTP client's cookie store.
      * @param client The HTTP client.
@@ -111,10 +212,99 @@ implements HttpClientEngine {
             final @NotNull CookieStore cookieStore,
             final @NotNull CloseableHttpClient client,
             final @NotNull ExecutorService executor) {
+        this(cookieStore, client, executor, null, null);
+    }
+
+    /**
+     * Creates a new instance with the specified components.
+     * 
+     * @param cookieStore The HTTP client's cookie store.
+     * @param client The HTTP client.
+     * @param executor The asynchronous executor service.
+     * @param connectionPool The HTTP client's connection pool, used to
+     * retrieve the connection pool statistics.
+     */
+    public ApacheHttpClientEngine(
+            final @NotNull CookieStore cookieStore,
+            final @NotNull CloseableHttpClient client,
+            final @NotNull ExecutorService executor,
+            final @NotNull ConnPoolControl<HttpRoute> connectionPool) {
+        this(cookieStore, client, executor,
+                Validate.notNull(connectionPool, "Connection pool is required"),
+                null);
+    }
+
+    /**
+     * Creates a new instance with the specified components.
+     * <p>
+     * The admission control is closed when this engine is closed.
+     * The executor service is not shut down when this engine is closed.
+     * <p>
+     * The default configuration of the HTTP client is not known, so
+     * {@code RequestConfig.DEFAULT} is used as base of the requests with
+     * custom timeouts. Override {@link #getDefaultRequestConfig()} to
+     * change this behavior.
+     * 
+     * @param cookieStore The HTTP client's cookie store.
+     * @param client The HTTP client.
+     * @param executor The asynchronous executor service.
+     * @param connectionPool The HTTP client's connection pool, used to
+     * retrieve the connection pool statistics, or {@code null} if unknown.
+     * @param admissionControl The admission control of the requests,
+     * or {@code null} to execute all the requests without limit.
+     */
+    public ApacheHttpClientEngine(
+            final @NotNull CookieStore cookieStore,
+            final @NotNull CloseableHttpClient client,
+            final @NotNull ExecutorService executor,
+            final ConnPoolControl<HttpRoute> connectionPool,
+            final AdmissionControl admissionControl) {
         super();
         this.cookieStore = new ApacheCookieStore(cookieStore);
         this.client = Validate.notNull(client, "HTTP client is required");
         this.executor = Validate.notNull(executor, "Executor service is required");
+        this.connectionPool = connectionPool;
+        this.admissionControl = admissionControl;
+        this.requestConfig = RequestConfig.DEFAULT;
+        this.executorOwned = false;
+    }
+
+    /**
+     * Creates the pooling connection manager of the HTTP client.
+     * <p>
+     * Per host maximum connections overrides are applied to the direct
+     * routes to the configured target hosts. The configured host resolver,
+     * if any, resolves the target hosts of new connections.
+     * 
+     * @param config The connection pool configuration.
+     * @return The pooling connection manager.
+     */
+    protected @NotNull PoolingHttpClientConnectionManager createConnectionManager(
+            final @NotNull ApacheConnectionPoolConfig config) {
+        final ConnectionConfig.Builder connectionConfig = ConnectionConfig.custom();
+        if (config.getTimeToLive() != null) {
+            connectionConfig.setTimeToLive(TimeValue.of(config.getTimeToLive()));
+        }
+        if (config.getValidateAfterInactivity() != null) {
+            connectionConfig.setValidateAfterInactivity(
+                    TimeValue.of(config.getValidateAfterInactivity()));
+        }
+        final PoolingHttpClientConnectionManagerBuilder builder =
+                PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(config.getMaxTotal())
+                .setMaxConnPerRoute(config.getMaxPerRoute())
+                .setDefaultConnectionConfig(connectionConfig.build());
+        if (config.getHostResolver() != null) {
+            builder.setDnsResolver(new ApacheDnsResolver(config.getHostResolver()));
+        }
+        final PoolingHttpClientConnectionManager result = builder.build();
+        for (final Map.Entry<HttpHost, Integer> entry : config.getMaxPerHost().entrySet()) {
+            final HttpHost host = entry.getKey();
+            result.setMaxPerRoute(
+                    new HttpRoute(host, null, URIScheme.HTTPS.same(host.getSchemeName())),
+                    entry.getValue());
+        }
+        return result;
     }
 
     /**
@@ -164,8 +354,76 @@ implements HttpClientEngine {
         return this.executor;
     }
 
+    /**
+     * Returns the HTTP client's connection pool, if known.
+     * 
+     * @return The HTTP client's connection pool, or {@code null} if the
+     * connection pool is not known.
+     */
+    protected ConnPoolControl<HttpRoute> getConnectionPool() {
+        return this.connectionPool;
+    }
+
+    /**
+     * Returns the admission control of the requests, if any.
+     * <p>
+     * The admission control provides the requests in flight and queued
+     * and the rejected requests counters.
+     * 
+     * @return The admission control, or {@code null} if requests are
+     * executed without limit.
+     */
+    public AdmissionControl getAdmissionControl() {
+        return this.admissionControl;
+    }
+
+    /**
+     * Returns the default request configuration of the HTTP client,
+     * used as base of the requests with custom timeouts.
+     * 
+     * @return The default request configuration.
+     */
+    protected @NotNull RequestConfig getDefaultRequestConfig() {
+        return this.requestConfig;
+    }
+
+    /**
+     * Returns the total statistics of the HTTP client's connection pool.
+     * 
+     * @return The connection pool statistics, or {@code null} if the
+     * connection pool is not known.
+     */
+    public ApacheConnectionPoolStats getPoolStats() {
+        if (this.connectionPool == null) {
+            return null;
+        }
+        return new ApacheConnectionPoolStats(this.connectionPool.getTotalStats());
+    }
+
+    /**
+     * Returns the statistics of the HTTP client's connection pool for each
+     * route with connections or pending connection requests.
+     * 
+     * @return The connection pool statistics per route. Empty if the
+     * connection pool is not known.
+     */
+    public @NotNull Map<HttpRoute, ApacheConnectionPoolStats> getRoutePoolStats() {
+        if (this.connectionPool == null) {
+            return Collections.emptyMap();
+        }
+        final Map<HttpRoute, ApacheConnectionPoolStats> result = new HashMap<>();
+        for (final HttpRoute route : this.connectionPool.getRoutes()) {
+            result.put(route, new ApacheConnectionPoolStats(this.connectionPool.getStats(route)));
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
     /**
      * {@inheritDoc}
+     * <p>
+     * The connect and response timeouts set in the request are applied
+     * through a per request {@code RequestConfig}. The total timeout
+     * includes the time waiting in the admission control queue, if any.
      */
     @Override
     public @NotNull CompletionStage<Void> executeHttpRequest(
@@ -176,11 +434,64 @@ implements HttpClientEngine {
     throws HttpClientException {
         Validate.notNull(uri);
         Validate.isTrue(uri.isAbsolute(), "The request URI must be absolute");
+        return this.inFlightRequests.execute(
+                () -> submitHttpRequest(uri, method, requestCustomizer, responseHandler));
+    }
+
+    /**
+     * Creates the HTTP request and submits it for execution, through the
+     * admission control if configured.
+     * 
+     * @param uri The HTTP request target absolute URI.
+     * @param method The HTTP request method.
+     * @param requestCustomizer The HTTP request customizer.
+     * @param responseHandler The HTTP response handler.
+     * @return The future HTTP request result.
+     * @throws HttpClientException If an exception occurs creating the
+     * request
+     */
+    private @NotNull CompletionStage<Void> submitHttpRequest(
+            final @NotNull URI uri,
+            final @NotNull String method,
+            final @NotNull HttpRequestCustomizer requestCustomizer,
+            final @NotNull HttpResponseHandler responseHandler)
+    throws HttpClientException {
         final ClassicHttpRequest request = createRequest(method, uri);
-        requestCustomizer.customizeRequest(new ApacheHttpRequest(request));
+        final ApacheHttpRequest engineRequest = new ApacheHttpRequest(request);
+        requestCustomizer.customizeRequest(engineRequest);
+        final RequestConfig config = engineRequest.createRequestConfig(getDefaultRequestConfig());
+        if (config != null && request instanceof HttpUriRequestBase) {
+            ((HttpUriRequestBase) request).setConfig(config);
+        }
         final HttpContext context = getHttpContext();
+        final CompletionStage<Void> result;
+        if (this.admissionControl == null) {
+            result = executeHttpRequest(request, context, responseHandler);
+        } else {
+            result = this.admissionControl.submit(
+                    () -> executeHttpRequest(request, context, responseHandler));
+        }
+        if (engineRequest.getTimeout() == null) {
+            return result;
+        }
+        return FutureUtils.orTimeout(result.toCompletableFuture(), engineRequest.getTimeout());
+    }
+
+    /**
+     * Executes the specified HTTP request asynchronously in the executor
+     * service.
+     * 
+     * @param request The HTTP request.
+     * @param context The HTTP context, or {@code null} to use the default one.
+     * @param responseHandler The HTTP response handler.
+     * @return The future result of the HTTP request.
+     */
+    protected @NotNull CompletionStage<Void> executeHttpRequest(
+            final @NotNull ClassicHttpRequest request,
+            final HttpContext context,
+            final @NotNull HttpResponseHandler responseHandler) {
         final CompletableFuture<Void> responseFuture = new CompletableFuture<>();
-        final CompletableFuture<Void> result = CompletableFuture.runAsync(
+        final CompletableFuture<Void> task = CompletableFuture.runAsync(
                 () -> {
                     try {
                         this.client.execute(
@@ -196,7 +507,30 @@ implements HttpClientEngine {
                     }
                 },
                 this.executor);
-        return result.thenCompose(nop -> responseFuture);
+        final CompletableFuture<Void> result = task.thenCompose(nop -> responseFuture);
+        result.whenComplete((nop, error) -> {
+            if (!responseFuture.isDone()) {
+                // Cancelled or completed by caller
+                task.cancel(false);
+                abortRequest(request);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Aborts the specified HTTP request, if supported. If the request is
+     * in progress the connection is released and any response handling
+     * in progress fails. If the request has not been started yet is never
+     * sent.
+     * 
+     * @param request The HTTP request to abort.
+     */
+    protected void abortRequest(
+            final @NotNull ClassicHttpRequest request) {
+        if (request instanceof Cancellable) {
+            ((Cancellable) request).cancel();
+        }
     }
 
     /**
@@ -258,12 +592,75 @@ implements HttpClientEngine {
         return null;
     }
 
+    /**
+     * Returns the number of requests in flight, including the requests
+     * waiting in the admission control queue.
+     * 
+     * @return The number of requests in flight.
+     */
+    public int getInFlightCount() {
+        return this.inFlightRequests.getCount();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The executor service created by this engine is terminated, waiting
+     * for the aborted requests to release their threads within the
+     * specified timeout.
+     */
+    @Override
+    public int shutdown(
+            final @NotNull Duration timeout)
+    throws IOException {
+        Validate.notNull(timeout, "Timeout is required");
+        final long deadline = System.nanoTime() + timeout.toNanos();
+        final int aborted = this.inFlightRequests.shutdown(timeout);
+        close();
+        if (this.executorOwned) {
+            awaitTermination(this.executor, deadline);
+        }
+        return aborted;
+    }
+
+    /**
+     * Waits until the specified deadline for the specified executor service
+     * to terminate, forcing its termination after the deadline.
+     * 
+     * @param executor The executor service, already shut down.
+     * @param deadline The deadline, in {@code System.nanoTime()} units.
+     */
+    static void awaitTermination(
+            final @NotNull ExecutorService executor,
+            final long deadline) {
+        try {
+            if (!executor.awaitTermination(
+                    Math.max(0, deadline - System.nanoTime()),
+                    TimeUnit.NANOSECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (final InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
     /**
      * {@inheritDoc}
+     * <p>
+     * The executor service created by this engine is shut down, without
+     * waiting for the running requests. Use {@link #shutdown(Duration)}
+     * to drain the requests in flight before closing.
      */
     @Override
     public void close()
     throws IOException {
+        if (this.admissionControl != null) {
+            this.admissionControl.close();
+        }
         this.client.close(CloseMode.GRACEFUL);
+        if (this.executorOwned) {
+            this.executor.shutdown();
+        }
     }
 }
@@ -24,18 +24,23 @@ import java.io.IOException;
  * #L%
  */
 
+import java.time.Duration;
+
 import javax.validation.constraints.NotNull;
 
 import org.apache.commons.lang3.Validate;
+import org.apache.hc.client5.http.config.RequestConfig;
 import org.apache.hc.core5.http.HttpEntity;
 import org.apache.hc.core5.http.HttpEntityContainer;
 import org.apache.hc.core5.http.NameValuePair;
 import org.apache.hc.core5.http.io.entity.HttpEntities;
 import org.apache.hc.core5.http.message.BasicNameValuePair;
+import org.apache.hc.core5.util.Timeout;
 
 import dev.orne.http.ContentType;
 import dev.orne.http.client.HttpClientException;
 import dev.orne.http.client.HttpRequestBodyGenerationException;
+import dev.orne.http.client.engine.FileBodyProducer;
 import dev.orne.http.client.engine.HttpRequest;
 
 /**
@@ -51,6 +56,12 @@ implements HttpRequest {
 
     /** The Apache HTTP client request. */
     private final @NotNull org.apache.hc.core5.http.HttpRequest delegate;
+    /** The connect timeout of the request, if any. */
+    private Duration connectTimeout;
+    /** The response timeout of the request, if any. */
+    private Duration responseTimeout;
+    /** The total timeout of the request, if any. */
+    private Duration timeout;
 
     /**
      * Creates a new instance.
@@ -118,6 +129,9 @@ implements HttpRequest {
 
     /**
      * {@inheritDoc}
+     * <p>
+     * Bodies of {@code FileBodyProducer} instances are sent with a known
+     * length through {@code ApacheFileEntity}.
      */
     @Override
     public void setBody(
@@ -126,6 +140,12 @@ implements HttpRequest {
             final @NotNull BodyProducer dataProvider)
     throws HttpClientException {
         Validate.notNull(dataProvider);
+        if (dataProvider instanceof FileBodyProducer) {
+            setEntity(new ApacheFileEntity(
+                    (FileBodyProducer) dataProvider,
+                    asApacheContentType(contentType)));
+            return;
+        }
         setEntity(HttpEntities.create(
                 output -> {
                     try {
@@ -138,6 +158,106 @@ implements HttpRequest {
                 asApacheContentType(contentType)));
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setConnectTimeout(
+            final @NotNull Duration timeout) {
+        this.connectTimeout = validateTimeout(timeout, false);
+    }
+
+    /**
+     * Returns the connect timeout of the request, if any.
+     * 
+     * @return The connect timeout, or {@code null} to use the engine's
+     * default.
+     */
+    public Duration getConnectTimeout() {
+        return this.connectTimeout;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setResponseTimeout(
+            final @NotNull Duration timeout) {
+        this.responseTimeout = validateTimeout(timeout, false);
+    }
+
+    /**
+     * Returns the response timeout of the request, if any.
+     * 
+     * @return The response timeout, or {@code null} to use the engine's
+     * default.
+     */
+    public Duration getResponseTimeout() {
+        return this.responseTimeout;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setTimeout(
+            final @NotNull Duration timeout) {
+        this.timeout = validateTimeout(timeout, true);
+    }
+
+    /**
+     * Returns the total timeout of the request, if any.
+     * 
+     * @return The total timeout, or {@code null} for no total timeout.
+     */
+    public Duration getTimeout() {
+        return this.timeout;
+    }
+
+    /**
+     * Validates that the specified timeout is not {@code null} nor negative.
+     * <p>
+     * Zero timeouts are not allowed for socket level timeouts, as Apache
+     * HTTP client interprets them as infinite timeouts.
+     * 
+     * @param timeout The timeout to validate.
+     * @param allowZero If zero timeouts are allowed.
+     * @return The validated timeout.
+     */
+    protected static @NotNull Duration validateTimeout(
+            final @NotNull Duration timeout,
+            final boolean allowZero) {
+        Validate.notNull(timeout);
+        Validate.isTrue(!timeout.isNegative(), "Timeout cannot be negative");
+        Validate.isTrue(allowZero || !timeout.isZero(), "Timeout cannot be zero");
+        return timeout;
+    }
+
+    /**
+     * Creates the Apache HTTP client configuration of this request,
+     * applying the timeouts of this request over the specified default
+     * configuration.
+     * 
+     * @param defaults The default request configuration.
+     * @return The request configuration, or {@code null} if this request
+     * does not override the default configuration.
+     */
+    @SuppressWarnings("deprecation")
+    public RequestConfig createRequestConfig(
+            final @NotNull RequestConfig defaults) {
+        if (this.connectTimeout == null && this.responseTimeout == null) {
+            return null;
+        }
+        final RequestConfig.Builder builder = RequestConfig.copy(defaults);
+        if (this.connectTimeout != null) {
+            builder.setConnectTimeout(Timeout.of(this.connectTimeout));
+        }
+        if (this.responseTimeout != null) {
+            builder.setResponseTimeout(Timeout.of(this.responseTimeout));
+        }
+        return builder.build();
+    }
+
     /**
      * Sets the entity of the HTTP request body entity.
      * <p>
@@ -0,0 +1,71 @@
+package dev.orne.http.client.engine.apache;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.util.concurrent.ExecutorService;
+
+import javax.validation.constraints.NotNull;
+
+/**
+ * Virtual threads support detection and creation.
+ * <p>
+ * This is the Java 8 version of the class, included so the module can be
+ * compiled with Java 8 baseline. The virtual threads enabled version is
+ * packaged as a Java 21 multi-release class.
+ * 
+ * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ */
+final class VirtualThreads {
+
+    /**
+     * Private constructor.
+     */
+    private VirtualThreads() {
+        // Utility class
+    }
+
+    /**
+     * Returns {@code true} if virtual threads are supported in the current
+     * runtime.
+     * 
+     * @return If virtual threads are supported.
+     */
+    static boolean isSupported() {
+        return false;
+    }
+
+    /**
+     * Creates a new {@code ExecutorService} that starts a new virtual thread
+     * for each task.
+     * 
+     * @return The new executor service.
+     * @throws UnsupportedOperationException If virtual threads are not
+     * supported in the current runtime.
+     */
+    static @NotNull ExecutorService newVirtualThreadPerTaskExecutor() {
+        throw new UnsupportedOperationException(
+                "Virtual threads require Java 21 or above");
+    }
+}
@@ -0,0 +1,735 @@
+package dev.orne.http.client.engine.apache;
+
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.BDDMockito.willReturn;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Modifier;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.cookie.CookieStore;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.function.Supplier;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.io.entity.HttpEntities;
+import org.apache.hc.core5.http.nio.AsyncEntityProducer;
+import org.apache.hc.core5.http.nio.AsyncPushConsumer;
+import org.apache.hc.core5.http.nio.AsyncRequestProducer;
+import org.apache.hc.core5.http.nio.AsyncResponseConsumer;
+import org.apache.hc.core5.http.nio.HandlerFactory;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.reactor.IOReactorStatus;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import dev.orne.http.Methods;
+import dev.orne.http.client.HttpClientException;
+import dev.orne.http.client.HttpRequestRejectedException;
+import dev.orne.http.client.HttpRequestTimeoutException;
+import dev.orne.http.client.engine.FileBodyProducer;
+import dev.orne.http.client.engine.HttpRequest;
+import dev.orne.http.client.engine.HttpRequestCustomizer;
+import dev.orne.http.client.engine.HttpResponse;
+import dev.orne.http.client.engine.HttpResponseHandler;
+import dev.orne.test.rnd.generators.URIGenerator;
+
+/**
+ * Unit tests for {@code ApacheAsyncHttpClientEngine}.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see ApacheAsyncHttpClientEngine
+ */
+@Tag("ut")
+class ApacheAsyncHttpClientEngineTest {
+
+    private @Mock CookieStore cookieStore;
+    private @Mock CloseableHttpAsyncClient client;
+    private @Captor ArgumentCaptor<HttpRequest> requestCaptor;
+    private @Captor ArgumentCaptor<HttpResponse> responseCaptor;
+    private AutoCloseable mocks;
+
+    @BeforeEach public void openMocks() {
+        this.mocks = MockitoAnnotations.openMocks(this);
+    }
+
+    @AfterEach public void releaseMocks() throws Exception {
+        this.mocks.close();
+    }
+
+    /**
+     * Test for {@link ApacheAsyncHttpClientEngine#ApacheAsyncHttpClientEngine()}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testConstructor()
+    throws Throwable {
+        try (final ApacheAsyncHttpClientEngine engine = new ApacheAsyncHttpClientEngine()) {
+            assertNotNull(engine.getCookieStore());
+            assertNotNull(engine.getCookieStore().getDelegate());
+            assertNotNull(engine.getClient());
+            assertSame(ForkJoinPool.commonPool(), engine.getHandlerExecutor());
+        }
+        assertThrows(IllegalArgumentException.class, () -> new ApacheAsyncHttpClientEngine(0));
+        assertThrows(NullPointerException.class, () -> new ApacheAsyncHttpClientEngine(1, null));
+    }
+
+    /**
+     * Test for {@link ApacheAsyncHttpClientEngine#ApacheAsyncHttpClientEngine(CookieStore, CloseableHttpAsyncClient)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testComponentsConstructor()
+    throws Throwable {
+        try (final ApacheAsyncHttpClientEngine engine = new ApacheAsyncHttpClientEngine(
+                cookieStore,
+                client)) {
+            assertNotNull(engine.getCookieStore());
+            assertSame(cookieStore, engine.getCookieStore().getDelegate());
+            assertSame(client, engine.getClient());
+            assertSame(ForkJoinPool.commonPool(), engine.getHandlerExecutor());
+            then(cookieStore).shouldHaveNoInteractions();
+            then(client).shouldHaveNoInteractions();
+        }
+    }
+
+    /**
+     * Test for {@link ApacheAsyncHttpClientEngine#ApacheAsyncHttpClientEngine(CookieStore, CloseableHttpAsyncClient, java.util.concurrent.Executor)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testComponentsConstructor_HandlerExecutor()
+    throws Throwable {
+        final List<Runnable> tasks = new ArrayList<>();
+        try (final ApacheAsyncHttpClientEngine engine = new ApacheAsyncHttpClientEngine(
+                cookieStore,
+                client,
+                tasks::add)) {
+            assertNotNull(engine.getHandlerExecutor());
+            then(client).shouldHaveNoInteractions();
+        }
+        assertThrows(NullPointerException.class, () -> new ApacheAsyncHttpClientEngine(
+                cookieStore,
+                client,
+                null));
+    }
+
+    /**
+     * Test for {@link ApacheAsyncHttpClientEngine#createRequest(String, URI)}.
+     * @throws Throwable Should not happen
+     */
+    @ParameterizedTest
+    @MethodSource("knownHttpMethods")
+    void testCreateRequest(
+            final String method)
+    throws Throwable {
+        final URI uri = URI.create(URIGenerator.randomAbsolutePath());
+        try (final ApacheAsyncHttpClientEngine engine = new ApacheAsyncHttpClientEngine(
+                cookieStore,
+                client)) {
+            final ClassicHttpRequest result = engine.createRequest(method, uri);
+            assertEquals(uri, result.getUri());
+            assertEquals(method, result.getMethod());
+            assertThrows(HttpClientException.class, () -> engine.createRequest("NOT_AN_HTTP_METHOD", uri));
+        }
+    }
+
+    /**
+     * Test for {@link ApacheAsyncHttpClientEngine#createEntityProducer(org.apache.hc.core5.http.HttpEntity)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testCreateEntityProducer()
+    throws Throwable {
+        try (final ApacheAsyncHttpClientEngine engine = new ApacheAsyncHttpClientEngine(
+                cookieStore,
+                client)) {
+            assertNull(engine.createEntityProducer(null));
+            final AsyncEntityProducer result = engine.createEntityProducer(HttpEntities.create(
+                    output -> output.write("Test body".getBytes(StandardCharsets.UTF_8)),
+                    ContentType.TEXT_PLAIN));
+            assertNotNull(result);
+            assertEquals(ContentType.TEXT_PLAIN.toString(), result.getContentType());
+            assertEquals(9, result.getContentLength());
+        }
+    }
+
+    /**
+     * Test for {@link ApacheAsyncHttpClientEngine#createEntityProducer(org.apache.hc.core5.http.HttpEntity)}
+     * with file entity.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testCreateEntityProducer_File()
+    throws Throwable {
+        final FileBodyProducer file = new FileBodyProducer(Paths.get("body.bin"), 0, 100);
+        try (final ApacheAsyncHttpClientEngine engine = new ApacheAsyncHttpClientEngine(
+                cookieStore,
+                client)) {
+            final AsyncEntityProducer result = engine.createEntityProducer(
+                    new ApacheFileEntity(file, ContentType.TEXT_PLAIN));
+            assertInstanceOf(ApacheFileEntityProducer.class, result);
+            assertEquals(ContentType.TEXT_PLAIN.toString(), result.getContentType());
+            assertEquals(100, result.getContentLength());
+        }
+    }
+
+    /**
+     * Test for {@link ApacheAsyncHttpClientEngine#createEntityProducer(org.apache.hc.core5.http.HttpEntity)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testCreateEntityProducer_IOException()
+    throws Throwable {
+        final IOException error = new IOException();
+        try (final ApacheAsyncHttpClientEngine engine = new ApacheAsyncHttpClientEngine(
+                cookieStore,
+                client)) {
+            final HttpClientException result = assertThrows(HttpClientException.class,
+                    () -> engine.createEntityProducer(HttpEntities.create(
+                        output -> { throw error; },
+                        ContentType.TEXT_PLAIN)));
+            assertSame(error, result.getCause());
+        }
+    }
+
+    /**
+     * Test for {@link ApacheAsyncHttpClientEngine#getHttpContext()}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testGetHttpContext()
+    throws Throwable {
+        try (final ApacheAsyncHttpClientEngine engine = new ApacheAsyncHttpClientEngine(
+                cookieStore,
+                client)) {
+            assertNull(engine.getHttpContext());
+        }
+    }
+
+    /**
+     * Test for {@link ApacheAsyncHttpClientEngine#executeHttpRequest(URI, String, HttpRequestCustomizer, HttpResponseHandler)}.
+     * @throws Throwable Should not happen
+     */
+    @ParameterizedTest
+    @MethodSource("knownHttpMethods")
+    void testExecuteHttpRequest(
+            final String method)
+    throws Throwable {
+        final URI uri = new URI(
+                URIGenerator.randomScheme(),
+                URIGenerator.randomHostName(),
+                URIGenerator.randomAbsolutePath(),
+                null);
+        final HttpRequestCustomizer requestCustomizer = mock(HttpRequestCustomizer.class);
+        final HttpResponseHandler responseHandler = mock(HttpResponseHandler.class);
+        final ClassicHttpResponse apacheResponse = mock(ClassicHttpResponse.class);
+        final HttpContext context = mock(HttpContext.class);
+        final CapturingAsyncClient client = new CapturingAsyncClient();
+        try (final ApacheAsyncHttpClientEngine engine = spy(new ApacheAsyncHttpClientEngine(
+                cookieStore,
+                client,
+                Runnable::run))) {
+            willReturn(context).given(engine).getHttpContext();
+            final CompletableFuture<Void> result = engine.executeHttpRequest(
+                    uri,
+                    method,
+                    requestCustomizer,
+                    responseHandler).toCompletableFuture();
+            then(requestCustomizer).should().customizeRequest(requestCaptor.capture());
+            then(requestCustomizer).shouldHaveNoMoreInteractions();
+            final ApacheHttpRequest request = assertInstanceOf(
+                    ApacheHttpRequest.class,
+                    requestCaptor.getValue());
+            assertEquals(method, request.getDelegate().getMethod());
+            assertNotNull(client.producer);
+            assertInstanceOf(ApacheAsyncResponseConsumer.class, client.consumer);
+            assertSame(context, client.context);
+            then(responseHandler).shouldHaveNoInteractions();
+            assertFalse(result.isDone());
+            client.callback.completed(apacheResponse);
+            then(responseHandler).should().handle(responseCaptor.capture());
+            then(responseHandler).shouldHaveNoMoreInteractions();
+            final ApacheHttpResponse response = assertInstanceOf(
+                    ApacheHttpResponse.class,
+                    responseCaptor.getValue());
+            assertSame(apacheResponse, response.getDelegate());
+            assertTrue(result.isDone());
+            assertNull(result.get());
+        }
+    }
+
+    /**
+     * Test for {@link ApacheAsyncHttpClientEngine#executeHttpRequest(URI, String, HttpRequestCustomizer, HttpResponseHandler)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecuteHttpRequest_HandlerError()
+    throws Throwable {
+        final URI uri = new URI(
+                URIGenerator.randomScheme(),
+                URIGenerator.randomHostName(),
+                URIGenerator.randomAbsolutePath(),
+                null);
+        final HttpRequestCustomizer requestCustomizer = mock(HttpRequestCustomizer.class);
+        final HttpResponseHandler responseHandler = mock(HttpResponseHandler.class);
+        final ClassicHttpResponse apacheResponse = mock(ClassicHttpResponse.class);
+        final RuntimeException error = new RuntimeException();
+        willThrow(error).given(responseHandler).handle(any());
+        final CapturingAsyncClient client = new CapturingAsyncClient();
+        try (final ApacheAsyncHttpClientEngine engine = new ApacheAsyncHttpClientEngine(
+                cookieStore,
+                client,
+                Runnable::run)) {
+            final CompletableFuture<Void> result = engine.executeHttpRequest(
+                    uri,
+                    Methods.GET,
+                    requestCustomizer,
+                    responseHandler).toCompletableFuture();
+            assertNotNull(client.callback);
+            client.callback.completed(apacheResponse);
+            assertTrue(result.isDone());
+            final ExecutionException futureErr = assertThrows(ExecutionException.class, () -> result.get());
+            assertSame(error, futureErr.getCause());
+        }
+    }
+
+    /**
+     * Test for {@link ApacheAsyncHttpClientEngine#executeHttpRequest(URI, String, HttpRequestCustomizer, HttpResponseHandler)}
+     * with response handlers executed outside the I/O reactor threads.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecuteHttpRequest_HandlerExecutor()
+    throws Throwable {
+        final URI uri = new URI(
+                URIGenerator.randomScheme(),
+                URIGenerator.randomHostName(),
+                URIGenerator.randomAbsolutePath(),
+                null);
+        final HttpRequestCustomizer requestCustomizer = mock(HttpRequestCustomizer.class);
+        final HttpResponseHandler responseHandler = mock(HttpResponseHandler.class);
+        final ClassicHttpResponse apacheResponse = mock(ClassicHttpResponse.class);
+        final List<Runnable> tasks = new ArrayList<>();
+        final CapturingAsyncClient client = new CapturingAsyncClient();
+        try (final ApacheAsyncHttpClientEngine engine = new ApacheAsyncHttpClientEngine(
+                cookieStore,
+                client,
+                tasks::add)) {
+            final CompletableFuture<Void> result = engine.executeHttpRequest(
+                    uri,
+                    Methods.GET,
+                    requestCustomizer,
+                    responseHandler).toCompletableFuture();
+            client.callback.completed(apacheResponse);
+            then(responseHandler).shouldHaveNoInteractions();
+            assertFalse(result.isDone());
+            assertEquals(1, tasks.size());
+            tasks.get(0).run();
+            then(responseHandler).should().handle(any());
+            assertTrue(result.isDone());
+            assertNull(result.get());
+        }
+    }
+
+    /**
+     * Test for {@link ApacheAsyncHttpClientEngine#executeHttpRequest(URI, String, HttpRequestCustomizer, HttpResponseHandler)}
+     * with response handling rejected by the handler executor.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecuteHttpRequest_HandlerRejected()
+    throws Throwable {
+        final URI uri = new URI(
+                URIGenerator.randomScheme(),
+                URIGenerator.randomHostName(),
+                URIGenerator.randomAbsolutePath(),
+                null);
+        final HttpRequestCustomizer requestCustomizer = mock(HttpRequestCustomizer.class);
+        final HttpResponseHandler responseHandler = mock(HttpResponseHandler.class);
+        final ClassicHttpResponse apacheResponse = mock(ClassicHttpResponse.class);
+        final RejectedExecutionException error = new RejectedExecutionException();
+        final CapturingAsyncClient client = new CapturingAsyncClient();
+        try (final ApacheAsyncHttpClientEngine engine = new ApacheAsyncHttpClientEngine(
+                cookieStore,
+                client,
+                task -> { throw error; })) {
+            final CompletableFuture<Void> result = engine.executeHttpRequest(
+                    uri,
+                    Methods.GET,
+                    requestCustomizer,
+                    responseHandler).toCompletableFuture();
+            client.callback.completed(apacheResponse);
+            then(responseHandler).shouldHaveNoInteractions();
+            final ExecutionException futureErr = assertThrows(ExecutionException.class, () -> result.get());
+            assertSame(error, futureErr.getCause());
+        }
+    }
+
+    /**
+     * Test for {@link ApacheAsyncHttpClientEngine#executeHttpRequest(URI, String, HttpRequestCustomizer, HttpResponseHandler)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecuteHttpRequest_Failed()
+    throws Throwable {
+        final URI uri = new URI(
+                URIGenerator.randomScheme(),
+                URIGenerator.randomHostName(),
+                URIGenerator.randomAbsolutePath(),
+                null);
+        final HttpRequestCustomizer requestCustomizer = mock(HttpRequestCustomizer.class);
+        final HttpResponseHandler responseHandler = mock(HttpResponseHandler.class);
+        final IOException clientException = new IOException();
+        final CapturingAsyncClient client = new CapturingAsyncClient();
+        try (final ApacheAsyncHttpClientEngine engine = new ApacheAsyncHttpClientEngine(
+                cookieStore,
+                client)) {
+            final CompletableFuture<Void> result = engine.executeHttpRequest(
+                    uri,
+                    Methods.GET,
+                    requestCustomizer,
+                    responseHandler).toCompletableFuture();
+            assertNotNull(client.callback);
+            client.callback.failed(clientException);
+            then(responseHandler).shouldHaveNoInteractions();
+            assertTrue(result.isDone());
+            final ExecutionException futureErr = assertThrows(ExecutionException.class, () -> result.get());
+            assertSame(clientException, futureErr.getCause());
+        }
+    }
+
+    /**
+     * Test for {@link ApacheAsyncHttpClientEngine#executeHttpRequest(URI, String, HttpRequestCustomizer, HttpResponseHandler)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecuteHttpRequest_Cancelled()
+    throws Throwable {
+        final URI uri = new URI(
+                URIGenerator.randomScheme(),
+                URIGenerator.randomHostName(),
+                URIGenerator.randomAbsolutePath(),
+                null);
+        final HttpRequestCustomizer requestCustomizer = mock(HttpRequestCustomizer.class);
+        final HttpResponseHandler responseHandler = mock(HttpResponseHandler.class);
+        final CapturingAsyncClient client = new CapturingAsyncClient();
+        try (final ApacheAsyncHttpClientEngine engine = new ApacheAsyncHttpClientEngine(
+                cookieStore,
+                client)) {
+            final CompletableFuture<Void> result = engine.executeHttpRequest(
+                    uri,
+                    Methods.GET,
+                    requestCustomizer,
+                    responseHandler).toCompletableFuture();
+            assertNotNull(client.callback);
+            client.callback.cancelled();
+            then(responseHandler).shouldHaveNoInteractions();
+            assertTrue(result.isCancelled());
+            assertThrows(CancellationException.class, () -> result.get());
+        }
+    }
+
+    /**
+     * Test for {@link ApacheAsyncHttpClientEngine#executeHttpRequest(URI, String, HttpRequestCustomizer, HttpResponseHandler)}
+     * with cancelled result.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecuteHttpRequest_ResultCancelled()
+    throws Throwable {
+        final URI uri = new URI(
+                URIGenerator.randomScheme(),
+                URIGenerator.randomHostName(),
+                URIGenerator.randomAbsolutePath(),
+                null);
+        final HttpRequestCustomizer requestCustomizer = mock(HttpRequestCustomizer.class);
+        final HttpResponseHandler responseHandler = mock(HttpResponseHandler.class);
+        final CapturingAsyncClient client = new CapturingAsyncClient();
+        try (final ApacheAsyncHttpClientEngine engine = new ApacheAsyncHttpClientEngine(
+                cookieStore,
+                client)) {
+            final CompletableFuture<Void> result = engine.executeHttpRequest(
+                    uri,
+                    Methods.GET,
+                    requestCustomizer,
+                    responseHandler).toCompletableFuture();
+            assertNotNull(client.future);
+            assertFalse(client.future.isDone());
+            assertTrue(result.cancel(true));
+            assertTrue(client.future.isCancelled());
+            then(responseHandler).shouldHaveNoInteractions();
+        }
+    }
+
+    /**
+     * Test for {@link ApacheAsyncHttpClientEngine#executeHttpRequest(URI, String, HttpRequestCustomizer, HttpResponseHandler)}
+     * with request timeouts.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    @SuppressWarnings("deprecation")
+    void testExecuteHttpRequest_Timeouts()
+    throws Throwable {
+        final URI uri = URI.create("http://example.org/test");
+        final HttpResponseHandler responseHandler = mock(HttpResponseHandler.class);
+        final HttpRequestCustomizer requestCustomizer = request -> {
+            request.setConnectTimeout(Duration.ofMillis(100));
+            request.setResponseTimeout(Duration.ofMillis(200));
+            request.setTimeout(Duration.ofMillis(10));
+        };
+        final CapturingAsyncClient client = new CapturingAsyncClient();
+        try (final ApacheAsyncHttpClientEngine engine = new ApacheAsyncHttpClientEngine(
+                cookieStore,
+                client)) {
+            final CompletableFuture<Void> result = engine.executeHttpRequest(
+                    uri,
+                    Methods.GET,
+                    requestCustomizer,
+                    responseHandler).toCompletableFuture();
+            final RequestConfig config = HttpClientContext.adapt(client.context).getRequestConfig();
+            assertEquals(Timeout.ofMilliseconds(100), config.getConnectTimeout());
+            assertEquals(Timeout.ofMilliseconds(200), config.getResponseTimeout());
+            final ExecutionException thrown = assertThrows(ExecutionException.class,
+                    () -> result.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(HttpRequestTimeoutException.class, thrown.getCause());
+            assertTrue(client.future.isCancelled());
+            then(responseHandler).shouldHaveNoInteractions();
+        }
+    }
+
+    /**
+     * Test for {@link ApacheAsyncHttpClientEngine#close()}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testClose()
+    throws Throwable {
+        try (final ApacheAsyncHttpClientEngine engine = new ApacheAsyncHttpClientEngine(
+                cookieStore,
+                client)) {
+            then(cookieStore).shouldHaveNoInteractions();
+            then(client).shouldHaveNoInteractions();
+        }
+        then(cookieStore).shouldHaveNoInteractions();
+        then(client).should().close(CloseMode.GRACEFUL);
+        then(client).shouldHaveNoMoreInteractions();
+    }
+
+    /**
+     * Test for {@link ApacheAsyncHttpClientEngine#shutdown(Duration)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testShutdown()
+    throws Throwable {
+        final URI uri = URI.create("http://example.org/test");
+        final HttpResponseHandler responseHandler = mock(HttpResponseHandler.class);
+        final CapturingAsyncClient client = new CapturingAsyncClient();
+        final ApacheAsyncHttpClientEngine engine = new ApacheAsyncHttpClientEngine(
+                cookieStore,
+                client);
+        final CompletableFuture<Void> result = engine.executeHttpRequest(
+                uri,
+                Methods.GET,
+                request -> {},
+                responseHandler).toCompletableFuture();
+        assertEquals(1, engine.getInFlightCount());
+        assertEquals(1, engine.shutdown(Duration.ZERO));
+        assertTrue(result.isCancelled());
+        assertEquals(0, engine.getInFlightCount());
+        assertThrows(HttpRequestRejectedException.class, () -> engine.executeHttpRequest(
+                uri,
+                Methods.GET,
+                request -> {},
+                responseHandler));
+        then(responseHandler).shouldHaveNoInteractions();
+    }
+
+    /**
+     * Test for {@link ApacheAsyncResponseConsumer}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testResponseConsumer()
+    throws Throwable {
+        final byte[] content = "Test body".getBytes(StandardCharsets.UTF_8);
+        final org.apache.hc.core5.http.message.BasicHttpResponse response =
+                new org.apache.hc.core5.http.message.BasicHttpResponse(200, "OK");
+        response.addHeader("X-Test", "value");
+        final ApacheAsyncResponseConsumer consumer = new ApacheAsyncResponseConsumer();
+        final ClassicHttpResponse result = consumer.buildResult(
+                response,
+                content,
+                ContentType.TEXT_PLAIN);
+        assertEquals(200, result.getCode());
+        assertEquals("OK", result.getReasonPhrase());
+        assertEquals("value", result.getFirstHeader("X-Test").getValue());
+        assertNotNull(result.getEntity());
+        assertEquals(ContentType.TEXT_PLAIN.toString(), result.getEntity().getContentType());
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        result.getEntity().writeTo(buffer);
+        assertArrayEquals(content, buffer.toByteArray());
+        assertNull(consumer.buildResult(response, null, null).getEntity());
+    }
+
+    private static Stream<Arguments> knownHttpMethods() {
+        return Stream.of(Methods.class.getDeclaredFields())
+                .filter(field -> {
+                    return String.class.equals(field.getType())
+                            && Modifier.isStatic(field.getModifiers())
+                            && Modifier.isFinal(field.getModifiers());
+                })
+                .map(field -> {
+                    try {
+                        return String.valueOf(field.get(null));
+                    } catch (ReflectiveOperationException e) {
+                        throw new RuntimeException(e);
+                    }
+                })
+                .filter(method -> !Methods.CONNECT.equals(method))
+                .map(value -> Arguments.of(value));
+    }
+
+    /**
+     * Asynchronous HTTP client that captures the executed requests.
+     * <p>
+     * Required because {@code CloseableHttpAsyncClient.execute()} methods
+     * are final.
+     */
+    private static class CapturingAsyncClient
+    extends CloseableHttpAsyncClient {
+
+        private AsyncRequestProducer producer;
+        private AsyncResponseConsumer<?> consumer;
+        private HttpContext context;
+        private FutureCallback<ClassicHttpResponse> callback;
+        private CompletableFuture<?> future;
+
+        @Override
+        public void start() {
+            // NOP
+        }
+
+        @Override
+        public IOReactorStatus getStatus() {
+            return IOReactorStatus.ACTIVE;
+        }
+
+        @Override
+        public void awaitShutdown(
+                final TimeValue waitTime) {
+            // NOP
+        }
+
+        @Override
+        public void initiateShutdown() {
+            // NOP
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        protected <T> Future<T> doExecute(
+                final HttpHost target,
+                final AsyncRequestProducer requestProducer,
+                final AsyncResponseConsumer<T> responseConsumer,
+                final HandlerFactory<AsyncPushConsumer> pushHandlerFactory,
+                final HttpContext context,
+                final FutureCallback<T> callback) {
+            this.producer = requestProducer;
+            this.consumer = responseConsumer;
+            this.context = context;
+            this.callback = (FutureCallback<ClassicHttpResponse>) callback;
+            final CompletableFuture<T> result = new CompletableFuture<>();
+            this.future = result;
+            return result;
+        }
+
+        @Override
+        public void register(
+                final String hostname,
+                final String uriPattern,
+                final Supplier<AsyncPushConsumer> supplier) {
+            // NOP
+        }
+
+        @Override
+        public void close(
+                final CloseMode closeMode) {
+            // NOP
+        }
+
+        @Override
+        public void close() {
+            // NOP
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package dev.orne.http.client.engine.apache;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+
+import org.apache.hc.core5.http.HttpHost;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import dev.orne.http.client.engine.HostResolver;
+
+/**
+ * Unit tests for {@code ApacheConnectionPoolConfig}.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see ApacheConnectionPoolConfig
+ */
+@Tag("ut")
+class ApacheConnectionPoolConfigTest {
+
+    /**
+     * Test for {@link ApacheConnectionPoolConfig#ApacheConnectionPoolConfig()}.
+     */
+    @Test
+    void testConstructor() {
+        final ApacheConnectionPoolConfig config = new ApacheConnectionPoolConfig();
+        assertEquals(ApacheConnectionPoolConfig.DEFAULT_MAX_TOTAL, config.getMaxTotal());
+        assertEquals(ApacheConnectionPoolConfig.DEFAULT_MAX_PER_ROUTE, config.getMaxPerRoute());
+        assertTrue(config.getMaxPerHost().isEmpty());
+        assertNull(config.getTimeToLive());
+        assertNull(config.getValidateAfterInactivity());
+        assertNull(config.getMaxIdleTime());
+        assertFalse(config.isEvictExpired());
+        assertNull(config.getHostResolver());
+    }
+
+    /**
+     * Test for {@link ApacheConnectionPoolConfig#ApacheConnectionPoolConfig(ApacheConnectionPoolConfig)}.
+     */
+    @Test
+    void testCopyConstructor() {
+        assertThrows(NullPointerException.class, () -> new ApacheConnectionPoolConfig(null));
+        final ApacheConnectionPoolConfig config = randomConfig();
+        final ApacheConnectionPoolConfig result = new ApacheConnectionPoolConfig(config);
+        assertEquals(config.getMaxTotal(), result.getMaxTotal());
+        assertEquals(config.getMaxPerRoute(), result.getMaxPerRoute());
+        assertEquals(config.getMaxPerHost(), result.getMaxPerHost());
+        assertEquals(config.getTimeToLive(), result.getTimeToLive());
+        assertEquals(config.getValidateAfterInactivity(), result.getValidateAfterInactivity());
+        assertEquals(config.getMaxIdleTime(), result.getMaxIdleTime());
+        assertEquals(config.isEvictExpired(), result.isEvictExpired());
+        assertSame(config.getHostResolver(), result.getHostResolver());
+        result.setMaxPerHost("http://other.example.org", 1);
+        assertNotEquals(config.getMaxPerHost(), result.getMaxPerHost());
+    }
+
+    /**
+     * Test for {@link ApacheConnectionPoolConfig#setMaxTotal(int)} and
+     * {@link ApacheConnectionPoolConfig#setMaxPerRoute(int)}.
+     */
+    @Test
+    void testLimits() {
+        final ApacheConnectionPoolConfig config = new ApacheConnectionPoolConfig();
+        assertThrows(IllegalArgumentException.class, () -> config.setMaxTotal(0));
+        assertThrows(IllegalArgumentException.class, () -> config.setMaxTotal(-1));
+        assertThrows(IllegalArgumentException.class, () -> config.setMaxPerRoute(0));
+        assertThrows(IllegalArgumentException.class, () -> config.setMaxPerRoute(-1));
+        config.setMaxTotal(100);
+        config.setMaxPerRoute(20);
+        assertEquals(100, config.getMaxTotal());
+        assertEquals(20, config.getMaxPerRoute());
+    }
+
+    /**
+     * Test for {@link ApacheConnectionPoolConfig#setMaxPerHost(String, int)}.
+     */
+    @Test
+    void testSetMaxPerHost_String() {
+        final ApacheConnectionPoolConfig config = new ApacheConnectionPoolConfig();
+        assertThrows(NullPointerException.class, () -> config.setMaxPerHost((String) null, 1));
+        assertThrows(IllegalArgumentException.class, () -> config.setMaxPerHost("http://example.org:port", 1));
+        assertThrows(IllegalArgumentException.class, () -> config.setMaxPerHost("http://example.org", 0));
+        config.setMaxPerHost("https://example.org", 10);
+        config.setMaxPerHost("http://example.org:8080", 5);
+        final Map<HttpHost, Integer> result = config.getMaxPerHost();
+        assertEquals(2, result.size());
+        assertEquals(10, result.get(new HttpHost("https", "example.org", 443)));
+        assertEquals(5, result.get(new HttpHost("http", "example.org", 8080)));
+        assertThrows(UnsupportedOperationException.class, () -> result.clear());
+    }
+
+    /**
+     * Test for {@link ApacheConnectionPoolConfig#setMaxPerHost(HttpHost, int)}.
+     */
+    @Test
+    void testSetMaxPerHost_HttpHost() {
+        final ApacheConnectionPoolConfig config = new ApacheConnectionPoolConfig();
+        assertThrows(NullPointerException.class, () -> config.setMaxPerHost((HttpHost) null, 1));
+        assertThrows(IllegalArgumentException.class, () -> config.setMaxPerHost(new HttpHost("example.org"), -1));
+        config.setMaxPerHost(new HttpHost("http", "example.org", -1), 8);
+        assertEquals(
+                Collections.singletonMap(new HttpHost("http", "example.org", 80), 8),
+                config.getMaxPerHost());
+        config.setMaxPerHost(new HttpHost("http", "example.org", 80), 4);
+        assertEquals(
+                Collections.singletonMap(new HttpHost("http", "example.org", 80), 4),
+                config.getMaxPerHost());
+    }
+
+    /**
+     * Test for connection lifecycle properties.
+     */
+    @Test
+    void testConnectionLifecycle() {
+        final ApacheConnectionPoolConfig config = new ApacheConnectionPoolConfig();
+        config.setTimeToLive(Duration.ofMinutes(1));
+        assertEquals(Duration.ofMinutes(1), config.getTimeToLive());
+        config.setTimeToLive(null);
+        assertNull(config.getTimeToLive());
+        config.setValidateAfterInactivity(Duration.ofSeconds(2));
+        assertEquals(Duration.ofSeconds(2), config.getValidateAfterInactivity());
+        config.setValidateAfterInactivity(null);
+        assertNull(config.getValidateAfterInactivity());
+        assertThrows(IllegalArgumentException.class, () -> config.setMaxIdleTime(Duration.ZERO));
+        assertThrows(IllegalArgumentException.class, () -> config.setMaxIdleTime(Duration.ofSeconds(-1)));
+        config.setMaxIdleTime(Duration.ofSeconds(30));
+        assertEquals(Duration.ofSeconds(30), config.getMaxIdleTime());
+        config.setMaxIdleTime(null);
+        assertNull(config.getMaxIdleTime());
+        config.setEvictExpired(true);
+        assertTrue(config.isEvictExpired());
+        config.setEvictExpired(false);
+        assertFalse(config.isEvictExpired());
+    }
+
+    /**
+     * Test for {@link ApacheConnectionPoolConfig#hashCode()},
+     * {@link ApacheConnectionPoolConfig#equals(Object)} and
+     * {@link ApacheConnectionPoolConfig#toString()}.
+     */
+    @Test
+    void testHashCodeEqualToString() {
+        final ApacheConnectionPoolConfig config = randomConfig();
+        assertNotEquals(config, null);
+        assertEquals(config, config);
+        assertNotEquals(config, new Object());
+        assertNotNull(config.toString());
+        ApacheConnectionPoolConfig other = new ApacheConnectionPoolConfig(config);
+        assertEquals(config.hashCode(), other.hashCode());
+        assertEquals(config, other);
+        assertEquals(config.toString(), other.toString());
+        other = new ApacheConnectionPoolConfig(config);
+        other.setMaxTotal(config.getMaxTotal() + 1);
+        assertNotEquals(config, other);
+        other = new ApacheConnectionPoolConfig(config);
+        other.setMaxPerRoute(config.getMaxPerRoute() + 1);
+        assertNotEquals(config, other);
+        other = new ApacheConnectionPoolConfig(config);
+        other.setMaxPerHost("http://other.example.org", 1);
+        assertNotEquals(config, other);
+        other = new ApacheConnectionPoolConfig(config);
+        other.setTimeToLive(null);
+        assertNotEquals(config, other);
+        other = new ApacheConnectionPoolConfig(config);
+        other.setValidateAfterInactivity(null);
+        assertNotEquals(config, other);
+        other = new ApacheConnectionPoolConfig(config);
+        other.setMaxIdleTime(null);
+        assertNotEquals(config, other);
+        other = new ApacheConnectionPoolConfig(config);
+        other.setEvictExpired(!config.isEvictExpired());
+        assertNotEquals(config, other);
+        other = new ApacheConnectionPoolConfig(config);
+        other.setHostResolver(null);
+        assertNotEquals(config, other);
+    }
+
+    private static ApacheConnectionPoolConfig randomConfig() {
+        final ApacheConnectionPoolConfig config = new ApacheConnectionPoolConfig();
+        config.setMaxTotal(40);
+        config.setMaxPerRoute(8);
+        config.setMaxPerHost("https://example.org", 16);
+        config.setTimeToLive(Duration.ofMinutes(10));
+        config.setValidateAfterInactivity(Duration.ofSeconds(5));
+        config.setMaxIdleTime(Duration.ofMinutes(1));
+        config.setEvictExpired(true);
+        config.setHostResolver(HostResolver.SYSTEM);
+        return config;
+    }
+}
@@ -0,0 +1,99 @@
+package dev.orne.http.client.engine.apache;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.apache.commons.lang3.SerializationUtils;
+import org.apache.hc.core5.pool.PoolStats;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@code ApacheConnectionPoolStats}.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see ApacheConnectionPoolStats
+ */
+@Tag("ut")
+class ApacheConnectionPoolStatsTest {
+
+    /**
+     * Test for {@link ApacheConnectionPoolStats#ApacheConnectionPoolStats(int, int, int, int)}.
+     */
+    @Test
+    void testConstructor() {
+        final ApacheConnectionPoolStats stats = new ApacheConnectionPoolStats(1, 2, 3, 4);
+        assertEquals(1, stats.getLeased());
+        assertEquals(2, stats.getPending());
+        assertEquals(3, stats.getAvailable());
+        assertEquals(4, stats.getMax());
+    }
+
+    /**
+     * Test for {@link ApacheConnectionPoolStats#ApacheConnectionPoolStats(PoolStats)}.
+     */
+    @Test
+    void testPoolStatsConstructor() {
+        assertThrows(NullPointerException.class, () -> new ApacheConnectionPoolStats(null));
+        final ApacheConnectionPoolStats stats = new ApacheConnectionPoolStats(
+                new PoolStats(5, 6, 7, 8));
+        assertEquals(5, stats.getLeased());
+        assertEquals(6, stats.getPending());
+        assertEquals(7, stats.getAvailable());
+        assertEquals(8, stats.getMax());
+    }
+
+    /**
+     * Test for {@link ApacheConnectionPoolStats#hashCode()},
+     * {@link ApacheConnectionPoolStats#equals(Object)} and
+     * {@link ApacheConnectionPoolStats#toString()}.
+     */
+    @Test
+    void testHashCodeEqualToString() {
+        final ApacheConnectionPoolStats stats = new ApacheConnectionPoolStats(1, 2, 3, 4);
+        assertNotEquals(stats, null);
+        assertEquals(stats, stats);
+        assertNotEquals(stats, new Object());
+        assertNotNull(stats.toString());
+        final ApacheConnectionPoolStats other = new ApacheConnectionPoolStats(1, 2, 3, 4);
+        assertEquals(stats.hashCode(), other.hashCode());
+        assertEquals(stats, other);
+        assertEquals(stats.toString(), other.toString());
+        assertNotEquals(stats, new ApacheConnectionPoolStats(0, 2, 3, 4));
+        assertNotEquals(stats, new ApacheConnectionPoolStats(1, 0, 3, 4));
+        assertNotEquals(stats, new ApacheConnectionPoolStats(1, 2, 0, 4));
+        assertNotEquals(stats, new ApacheConnectionPoolStats(1, 2, 3, 0));
+    }
+
+    /**
+     * Test for serialization.
+     */
+    @Test
+    void testSerialization() {
+        final ApacheConnectionPoolStats stats = new ApacheConnectionPoolStats(1, 2, 3, 4);
+        assertEquals(stats, SerializationUtils.roundtrip(stats));
+    }
+}
@@ -0,0 +1,130 @@
+package dev.orne.http.client.engine.apache;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.*;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+/**
+ * Unit tests for {@code ApacheDispatchMode}.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see ApacheDispatchMode
+ */
+@Tag("ut")
+class ApacheDispatchModeTest {
+
+    /**
+     * Test for {@link ApacheDispatchMode#PLATFORM_THREADS}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testPlatformThreads()
+    throws Throwable {
+        assertTrue(ApacheDispatchMode.PLATFORM_THREADS.isSupported());
+        final ExecutorService executor = ApacheDispatchMode.PLATFORM_THREADS.createExecutor();
+        try {
+            assertInstanceOf(ThreadPoolExecutor.class, executor);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Test for {@link ApacheDispatchMode#VIRTUAL_THREADS}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testVirtualThreads_Unsupported()
+    throws Throwable {
+        assumeFalse(VirtualThreads.isSupported());
+        assertFalse(ApacheDispatchMode.VIRTUAL_THREADS.isSupported());
+        assertThrows(UnsupportedOperationException.class,
+                () -> ApacheDispatchMode.VIRTUAL_THREADS.createExecutor());
+    }
+
+    /**
+     * Test for {@link ApacheDispatchMode#VIRTUAL_THREADS}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testVirtualThreads_Supported()
+    throws Throwable {
+        assumeTrue(VirtualThreads.isSupported());
+        assertTrue(ApacheDispatchMode.VIRTUAL_THREADS.isSupported());
+        final ExecutorService executor = ApacheDispatchMode.VIRTUAL_THREADS.createExecutor();
+        try {
+            assertFalse(executor instanceof ThreadPoolExecutor);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Test for {@link ApacheDispatchMode#AUTO}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testAuto()
+    throws Throwable {
+        assertTrue(ApacheDispatchMode.AUTO.isSupported());
+        final ExecutorService executor = ApacheDispatchMode.AUTO.createExecutor();
+        try {
+            assertEquals(
+                    !VirtualThreads.isSupported(),
+                    executor instanceof ThreadPoolExecutor);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Test for {@link ApacheDispatchMode#createExecutor()}.
+     * @throws Throwable Should not happen
+     */
+    @ParameterizedTest
+    @EnumSource(ApacheDispatchMode.class)
+    void testCreateExecutor(
+            final ApacheDispatchMode mode)
+    throws Throwable {
+        assumeTrue(mode.isSupported());
+        final ExecutorService executor = mode.createExecutor();
+        try {
+            assertEquals("ok", executor.submit(() -> "ok").get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        }
+    }
+}
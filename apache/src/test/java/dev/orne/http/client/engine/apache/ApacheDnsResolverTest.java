@@ -0,0 +1,114 @@
+package dev.orne.http.client.engine.apache;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.BDDMockito.*;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import dev.orne.http.client.engine.HostResolver;
+
+/**
+ * Unit tests for {@code ApacheDnsResolver}.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see ApacheDnsResolver
+ */
+@Tag("ut")
+class ApacheDnsResolverTest {
+
+    private @Mock HostResolver resolver;
+    private AutoCloseable mocks;
+
+    @BeforeEach
+    void initMocks() {
+        mocks = MockitoAnnotations.openMocks(this);
+    }
+
+    @AfterEach
+    void closeMocks() throws Exception {
+        mocks.close();
+    }
+
+    /**
+     * Test for {@link ApacheDnsResolver#ApacheDnsResolver(HostResolver)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testConstructor()
+    throws Throwable {
+        assertThrows(NullPointerException.class, () -> new ApacheDnsResolver(null));
+        final ApacheDnsResolver result = new ApacheDnsResolver(resolver);
+        assertSame(resolver, result.getResolver());
+        then(resolver).shouldHaveNoInteractions();
+    }
+
+    /**
+     * Test for {@link ApacheDnsResolver#resolve(String)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testResolve()
+    throws Throwable {
+        final InetAddress[] addresses = new InetAddress[] {
+                InetAddress.getByAddress("example.org", new byte[] { 10, 0, 0, 1 }),
+                InetAddress.getByAddress("example.org", new byte[] { 10, 0, 0, 2 })
+        };
+        willReturn(addresses).given(resolver).resolve("example.org");
+        willThrow(new UnknownHostException("unknown.example.org"))
+                .given(resolver).resolve("unknown.example.org");
+        final ApacheDnsResolver result = new ApacheDnsResolver(resolver);
+        assertSame(addresses, result.resolve("example.org"));
+        assertThrows(UnknownHostException.class, () -> result.resolve("unknown.example.org"));
+    }
+
+    /**
+     * Test for {@link ApacheDnsResolver#resolveCanonicalHostname(String)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testResolveCanonicalHostname()
+    throws Throwable {
+        final InetAddress address = InetAddress.getByAddress(
+                "example.org", new byte[] { 127, 0, 0, 1 });
+        willReturn(new InetAddress[] { address }).given(resolver).resolve("example.org");
+        willThrow(new UnknownHostException("unknown.example.org"))
+                .given(resolver).resolve("unknown.example.org");
+        final ApacheDnsResolver result = new ApacheDnsResolver(resolver);
+        assertNull(result.resolveCanonicalHostname(null));
+        assertNotNull(result.resolveCanonicalHostname("example.org"));
+        assertThrows(UnknownHostException.class,
+                () -> result.resolveCanonicalHostname("unknown.example.org"));
+    }
+}
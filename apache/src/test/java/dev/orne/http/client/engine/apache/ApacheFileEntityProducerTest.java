@@ -0,0 +1,191 @@
+package dev.orne.http.client.engine.apache;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.BDDMockito.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.apache.commons.lang3.RandomUtils;
+import org.apache.hc.core5.http.nio.DataStreamChannel;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import dev.orne.http.client.engine.FileBodyProducer;
+
+/**
+ * Unit tests for {@code ApacheFileEntityProducer}.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see ApacheFileEntityProducer
+ */
+@Tag("ut")
+class ApacheFileEntityProducerTest {
+
+    /**
+     * Test for {@link ApacheFileEntityProducer#ApacheFileEntityProducer(FileBodyProducer, String)}.
+     * @param tempDir The temporary directory
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testConstructor(
+            final @TempDir Path tempDir)
+    throws Throwable {
+        final FileBodyProducer file = new FileBodyProducer(tempDir.resolve("body.bin"), 0, 100);
+        assertThrows(NullPointerException.class, () -> new ApacheFileEntityProducer(null, "text/plain"));
+        final ApacheFileEntityProducer producer = new ApacheFileEntityProducer(file, "text/plain");
+        assertEquals("text/plain", producer.getContentType());
+        assertEquals(100, producer.getContentLength());
+        assertEquals(100, producer.available());
+        assertNull(producer.getContentEncoding());
+        assertFalse(producer.isChunked());
+        assertTrue(producer.isRepeatable());
+        assertTrue(producer.getTrailerNames().isEmpty());
+        assertNull(producer.getException());
+    }
+
+    /**
+     * Test for {@link ApacheFileEntityProducer#produce(DataStreamChannel)}.
+     * @param tempDir The temporary directory
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testProduce(
+            final @TempDir Path tempDir)
+    throws Throwable {
+        final byte[] content = RandomUtils.nextBytes(50000);
+        final Path path = tempDir.resolve("body.bin");
+        Files.write(path, content);
+        final ApacheFileEntityProducer producer = new ApacheFileEntityProducer(
+                new FileBodyProducer(path, 100, 40000),
+                null);
+        for (int i = 0; i < 2; i++) {
+            final LimitedChannel channel = new LimitedChannel(7000);
+            while (!channel.ended) {
+                channel.capacity = 7000;
+                producer.produce(channel);
+            }
+            assertArrayEquals(
+                    Arrays.copyOfRange(content, 100, 40100),
+                    channel.output.toByteArray());
+        }
+    }
+
+    /**
+     * Test for {@link ApacheFileEntityProducer#produce(DataStreamChannel)}
+     * with truncated file.
+     * @param tempDir The temporary directory
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testProduce_Truncated(
+            final @TempDir Path tempDir)
+    throws Throwable {
+        final Path path = tempDir.resolve("body.bin");
+        Files.write(path, new byte[100]);
+        final ApacheFileEntityProducer producer = new ApacheFileEntityProducer(
+                new FileBodyProducer(path, 0, 200),
+                null);
+        final LimitedChannel channel = new LimitedChannel(Integer.MAX_VALUE);
+        final EOFException error = assertThrows(EOFException.class, () -> producer.produce(channel));
+        producer.failed(error);
+        assertSame(error, producer.getException());
+        assertEquals(100, channel.output.size());
+        assertFalse(channel.ended);
+    }
+
+    /**
+     * Test for {@link ApacheFileEntityProducer#produce(DataStreamChannel)}
+     * with empty body.
+     * @param tempDir The temporary directory
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testProduce_Empty(
+            final @TempDir Path tempDir)
+    throws Throwable {
+        final Path path = tempDir.resolve("body.bin");
+        Files.write(path, new byte[0]);
+        final ApacheFileEntityProducer producer = new ApacheFileEntityProducer(
+                FileBodyProducer.of(path),
+                null);
+        final DataStreamChannel channel = mock(DataStreamChannel.class);
+        producer.produce(channel);
+        then(channel).should().endStream();
+        then(channel).shouldHaveNoMoreInteractions();
+    }
+
+    /**
+     * Data stream channel that accepts a limited amount of data on each
+     * production round.
+     */
+    private static class LimitedChannel
+    implements DataStreamChannel {
+
+        private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        private int capacity;
+        private boolean ended;
+
+        LimitedChannel(
+                final int capacity) {
+            super();
+            this.capacity = capacity;
+        }
+
+        @Override
+        public void requestOutput() {
+            // No op
+        }
+
+        @Override
+        public int write(
+                final ByteBuffer src) {
+            final int count = Math.min(this.capacity, src.remaining());
+            final byte[] data = new byte[count];
+            src.get(data);
+            this.output.write(data, 0, count);
+            this.capacity -= count;
+            return count;
+        }
+
+        @Override
+        public void endStream() {
+            this.ended = true;
+        }
+
+        @Override
+        public void endStream(
+                final java.util.List<? extends org.apache.hc.core5.http.Header> trailers) {
+            this.ended = true;
+        }
+    }
+}
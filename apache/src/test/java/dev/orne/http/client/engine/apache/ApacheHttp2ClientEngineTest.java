@@ -0,0 +1,510 @@
+package dev.orne.http.client.engine.apache;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.BDDMockito.*;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.hc.client5.http.cookie.CookieStore;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.core5.http.ConnectionClosedException;
+import org.apache.hc.core5.http.EntityDetails;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.HttpRequest;
+import org.apache.hc.core5.http.Message;
+import org.apache.hc.core5.http.URIScheme;
+import org.apache.hc.core5.http.impl.bootstrap.HttpAsyncServer;
+import org.apache.hc.core5.http.message.BasicHttpRequest;
+import org.apache.hc.core5.http.nio.AsyncRequestConsumer;
+import org.apache.hc.core5.http.nio.AsyncServerRequestHandler;
+import org.apache.hc.core5.http.nio.entity.StringAsyncEntityConsumer;
+import org.apache.hc.core5.http.nio.support.BasicRequestConsumer;
+import org.apache.hc.core5.http.nio.support.BasicResponseProducer;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.http2.H2ConnectionException;
+import org.apache.hc.core5.http2.H2Error;
+import org.apache.hc.core5.http2.HttpVersionPolicy;
+import org.apache.hc.core5.http2.impl.nio.ProtocolNegotiationException;
+import org.apache.hc.core5.http2.impl.nio.bootstrap.H2ServerBootstrap;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.reactor.IOSession;
+import org.apache.hc.core5.reactor.IOSessionListener;
+import org.apache.hc.core5.reactor.ListenerEndpoint;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import dev.orne.http.ContentType;
+import dev.orne.http.MediaTypes;
+import dev.orne.http.Methods;
+import dev.orne.http.client.engine.HttpRequestCustomizer;
+import dev.orne.http.client.engine.HttpResponse;
+import dev.orne.http.client.engine.HttpResponseHandler;
+
+/**
+ * Unit tests for {@code ApacheHttp2ClientEngine}.
+ * <p>
+ * Requests are executed against local stub HTTP servers.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see ApacheHttp2ClientEngine
+ */
+@Tag("ut")
+class ApacheHttp2ClientEngineTest {
+
+    private StubServer server;
+
+    @AfterEach void stopServer() {
+        if (this.server != null) {
+            this.server.close();
+        }
+    }
+
+    /**
+     * Test for {@link ApacheHttp2ClientEngine#ApacheHttp2ClientEngine()}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testConstructor()
+    throws Throwable {
+        try (final ApacheHttp2ClientEngine engine = new ApacheHttp2ClientEngine()) {
+            assertNotNull(engine.getCookieStore());
+            assertNotNull(engine.getCookieStore().getDelegate());
+            assertNotNull(engine.getClient());
+            assertNotNull(engine.getHttp1Client());
+            assertSame(ForkJoinPool.commonPool(), engine.getHandlerExecutor());
+        }
+        final ApacheHttp2Config config = new ApacheHttp2Config();
+        config.setHttp1Fallback(false);
+        try (final ApacheHttp2ClientEngine engine = new ApacheHttp2ClientEngine(1, config)) {
+            assertNotNull(engine.getClient());
+            assertNull(engine.getHttp1Client());
+        }
+        final Executor handlerExecutor = Runnable::run;
+        try (final ApacheHttp2ClientEngine engine = new ApacheHttp2ClientEngine(1, config, handlerExecutor)) {
+            assertSame(handlerExecutor, engine.getHandlerExecutor());
+        }
+        assertThrows(NullPointerException.class, () -> new ApacheHttp2ClientEngine(null));
+        assertThrows(IllegalArgumentException.class, () -> new ApacheHttp2ClientEngine(0, config));
+    }
+
+    /**
+     * Test for {@link ApacheHttp2ClientEngine#ApacheHttp2ClientEngine(CookieStore, CloseableHttpAsyncClient, CloseableHttpAsyncClient)}
+     * and {@link ApacheHttp2ClientEngine#close()}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testComponentsConstructor()
+    throws Throwable {
+        final CookieStore cookieStore = mock(CookieStore.class);
+        final CloseableHttpAsyncClient http2Client = mock(CloseableHttpAsyncClient.class);
+        final CloseableHttpAsyncClient http1Client = mock(CloseableHttpAsyncClient.class);
+        try (final ApacheHttp2ClientEngine engine = new ApacheHttp2ClientEngine(
+                cookieStore,
+                http2Client,
+                http1Client)) {
+            assertSame(cookieStore, engine.getCookieStore().getDelegate());
+            assertSame(http2Client, engine.getClient());
+            assertSame(http1Client, engine.getHttp1Client());
+            then(http2Client).shouldHaveNoInteractions();
+            then(http1Client).shouldHaveNoInteractions();
+        }
+        then(http2Client).should().close(CloseMode.GRACEFUL);
+        then(http1Client).should().close(CloseMode.GRACEFUL);
+        try (final ApacheHttp2ClientEngine engine = new ApacheHttp2ClientEngine(
+                cookieStore,
+                http2Client,
+                null)) {
+            assertNull(engine.getHttp1Client());
+        }
+        final Executor handlerExecutor = Runnable::run;
+        try (final ApacheHttp2ClientEngine engine = new ApacheHttp2ClientEngine(
+                cookieStore,
+                http2Client,
+                http1Client,
+                handlerExecutor)) {
+            assertSame(http1Client, engine.getHttp1Client());
+            assertSame(handlerExecutor, engine.getHandlerExecutor());
+        }
+    }
+
+    /**
+     * Test for {@link ApacheHttp2ClientEngine#getTargetHost(HttpRequest)}.
+     */
+    @Test
+    void testGetTargetHost() {
+        assertEquals(
+                new HttpHost("http", "example.org", 80),
+                ApacheHttp2ClientEngine.getTargetHost(
+                        new BasicHttpRequest(Methods.GET, URI.create("http://example.org/path"))));
+        assertEquals(
+                new HttpHost("https", "example.org", 8443),
+                ApacheHttp2ClientEngine.getTargetHost(
+                        new BasicHttpRequest(Methods.GET, URI.create("https://example.org:8443/path"))));
+    }
+
+    /**
+     * Test for {@link ApacheHttp2ClientEngine#isNegotiationFailure(HttpHost, Exception)}.
+     */
+    @Test
+    void testIsNegotiationFailure() {
+        final HttpHost http = new HttpHost("http", "example.org", 80);
+        final HttpHost https = new HttpHost("https", "example.org", 443);
+        assertTrue(ApacheHttp2ClientEngine.isNegotiationFailure(
+                http, new ProtocolNegotiationException("ALPN")));
+        assertTrue(ApacheHttp2ClientEngine.isNegotiationFailure(
+                http, new H2ConnectionException(H2Error.PROTOCOL_ERROR, "Unexpected frame")));
+        assertTrue(ApacheHttp2ClientEngine.isNegotiationFailure(
+                http, new ConnectionClosedException()));
+        assertFalse(ApacheHttp2ClientEngine.isNegotiationFailure(http, new IOException()));
+        assertFalse(ApacheHttp2ClientEngine.isNegotiationFailure(http, null));
+        assertTrue(ApacheHttp2ClientEngine.isNegotiationFailure(
+                https, new ProtocolNegotiationException("ALPN")));
+        assertFalse(ApacheHttp2ClientEngine.isNegotiationFailure(
+                https, new H2ConnectionException(H2Error.PROTOCOL_ERROR, "Unexpected frame")));
+        assertFalse(ApacheHttp2ClientEngine.isNegotiationFailure(
+                https, new ConnectionClosedException()));
+        assertFalse(ApacheHttp2ClientEngine.isNegotiationFailure(https, new IOException()));
+    }
+
+    /**
+     * Test for {@link ApacheHttp2ClientEngine#markHttp1Host(HttpHost)}
+     * and {@link ApacheHttp2ClientEngine#isHttp1Host(HttpHost)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testMarkHttp1Host()
+    throws Throwable {
+        final HttpHost host = new HttpHost("http", "example.org", 80);
+        final CookieStore cookieStore = mock(CookieStore.class);
+        final CloseableHttpAsyncClient http2Client = mock(CloseableHttpAsyncClient.class);
+        final CloseableHttpAsyncClient http1Client = mock(CloseableHttpAsyncClient.class);
+        try (final ApacheHttp2ClientEngine engine = new ApacheHttp2ClientEngine(
+                cookieStore,
+                http2Client,
+                http1Client,
+                Runnable::run,
+                Duration.ofMinutes(1))) {
+            assertFalse(engine.isHttp1Host(host));
+            engine.markHttp1Host(host);
+            assertTrue(engine.isHttp1Host(host));
+            assertFalse(engine.isHttp1Host(new HttpHost("https", "example.org", 443)));
+        }
+        try (final ApacheHttp2ClientEngine engine = new ApacheHttp2ClientEngine(
+                cookieStore,
+                http2Client,
+                http1Client,
+                Runnable::run,
+                Duration.ofMillis(1))) {
+            engine.markHttp1Host(host);
+            Thread.sleep(10);
+            assertFalse(engine.isHttp1Host(host));
+        }
+    }
+
+    /**
+     * Test for {@link ApacheHttp2ClientEngine#executeHttpRequest(URI, String, HttpRequestCustomizer, HttpResponseHandler)}
+     * multiplexing concurrent requests over a single HTTP/2 connection.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecuteHttpRequest_Multiplexed()
+    throws Throwable {
+        this.server = new StubServer(HttpVersionPolicy.FORCE_HTTP_2, 100);
+        final URI uri = this.server.uri("/test");
+        try (final ApacheHttp2ClientEngine engine = new ApacheHttp2ClientEngine(1, new ApacheHttp2Config())) {
+            final List<String> bodies = new ArrayList<>();
+            final CompletableFuture<?>[] futures = new CompletableFuture<?>[20];
+            for (int i = 0; i < futures.length; i++) {
+                futures[i] = engine.executeHttpRequest(
+                        uri,
+                        Methods.GET,
+                        request -> {},
+                        response -> {
+                            synchronized (bodies) {
+                                bodies.add(readBody(response));
+                            }
+                        })
+                    .toCompletableFuture();
+            }
+            CompletableFuture.allOf(futures).get(10, TimeUnit.SECONDS);
+            assertEquals(20, bodies.size());
+            for (final String body : bodies) {
+                assertEquals("HTTP/2.0", body);
+            }
+            assertEquals(1, this.server.connections.get());
+            assertTrue(engine.isHttp2Host(new HttpHost("http", "127.0.0.1", this.server.port)));
+            engine.executeHttpRequest(
+                    uri,
+                    Methods.GET,
+                    request -> {},
+                    response -> assertEquals("HTTP/2.0", readBody(response)))
+                .toCompletableFuture()
+                .get(10, TimeUnit.SECONDS);
+            assertEquals(1, this.server.connections.get());
+        }
+    }
+
+    /**
+     * Test for {@link ApacheHttp2ClientEngine#executeHttpRequest(URI, String, HttpRequestCustomizer, HttpResponseHandler)}
+     * falling back to HTTP/1.1.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecuteHttpRequest_Http1Fallback()
+    throws Throwable {
+        this.server = new StubServer(HttpVersionPolicy.FORCE_HTTP_1, 0);
+        final URI uri = this.server.uri("/test");
+        final HttpHost host = new HttpHost("http", "127.0.0.1", this.server.port);
+        try (final ApacheHttp2ClientEngine engine = new ApacheHttp2ClientEngine(1, new ApacheHttp2Config())) {
+            for (int i = 0; i < 2; i++) {
+                final List<String> bodies = new ArrayList<>();
+                engine.executeHttpRequest(
+                        uri,
+                        Methods.GET,
+                        request -> {},
+                        response -> bodies.add(readBody(response)))
+                    .toCompletableFuture()
+                    .get(10, TimeUnit.SECONDS);
+                assertEquals(1, bodies.size());
+                assertEquals("HTTP/1.1", bodies.get(0));
+                assertTrue(engine.isHttp1Host(host));
+                assertFalse(engine.isHttp2Host(host));
+            }
+            assertEquals(2, this.server.requests.get());
+        }
+    }
+
+    /**
+     * Test for {@link ApacheHttp2ClientEngine#executeHttpRequest(URI, String, HttpRequestCustomizer, HttpResponseHandler)}
+     * falling back to HTTP/1.1 without replaying non idempotent requests.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecuteHttpRequest_Http1Fallback_NotIdempotent()
+    throws Throwable {
+        this.server = new StubServer(HttpVersionPolicy.FORCE_HTTP_1, 0);
+        final URI uri = this.server.uri("/test");
+        final HttpHost host = new HttpHost("http", "127.0.0.1", this.server.port);
+        try (final ApacheHttp2ClientEngine engine = new ApacheHttp2ClientEngine(1, new ApacheHttp2Config())) {
+            final CompletableFuture<Void> result = engine.executeHttpRequest(
+                    uri,
+                    Methods.POST,
+                    request -> request.setBody(
+                            ContentType.of(MediaTypes.Application.OCTET_STREAM),
+                            new byte[] { 1, 2, 3 }),
+                    response -> fail("Unexpected response"))
+                .toCompletableFuture();
+            final ExecutionException thrown = assertThrows(ExecutionException.class,
+                    () -> result.get(10, TimeUnit.SECONDS));
+            assertTrue(ApacheHttp2ClientEngine.isNegotiationFailure(host, (Exception) thrown.getCause()));
+            assertEquals(0, this.server.requests.get());
+            assertTrue(engine.isHttp1Host(host));
+            final List<String> bodies = new ArrayList<>();
+            engine.executeHttpRequest(
+                    uri,
+                    Methods.POST,
+                    request -> request.setBody(
+                            ContentType.of(MediaTypes.Application.OCTET_STREAM),
+                            new byte[] { 1, 2, 3 }),
+                    response -> bodies.add(readBody(response)))
+                .toCompletableFuture()
+                .get(10, TimeUnit.SECONDS);
+            assertEquals(1, bodies.size());
+            assertEquals("HTTP/1.1", bodies.get(0));
+            assertEquals(1, this.server.requests.get());
+        }
+    }
+
+    /**
+     * Test for {@link ApacheHttp2ClientEngine#executeHttpRequest(URI, String, HttpRequestCustomizer, HttpResponseHandler)}
+     * with HTTP/1.1 fallback disabled.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecuteHttpRequest_NoFallback()
+    throws Throwable {
+        this.server = new StubServer(HttpVersionPolicy.FORCE_HTTP_1, 0);
+        final ApacheHttp2Config config = new ApacheHttp2Config();
+        config.setHttp1Fallback(false);
+        try (final ApacheHttp2ClientEngine engine = new ApacheHttp2ClientEngine(1, config)) {
+            final CompletableFuture<Void> result = engine.executeHttpRequest(
+                    this.server.uri("/test"),
+                    Methods.GET,
+                    request -> {},
+                    response -> fail("Unexpected response"))
+                .toCompletableFuture();
+            final ExecutionException thrown = assertThrows(ExecutionException.class,
+                    () -> result.get(10, TimeUnit.SECONDS));
+            assertTrue(ApacheHttp2ClientEngine.isNegotiationFailure(
+                    new HttpHost("http", "127.0.0.1", this.server.port),
+                    (Exception) thrown.getCause()));
+            assertEquals(0, this.server.requests.get());
+        }
+    }
+
+    private static String readBody(
+            final HttpResponse response) {
+        try {
+            return new String(
+                    IOUtils.toByteArray(response.getBody().getContent()),
+                    StandardCharsets.UTF_8);
+        } catch (final Exception e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    /**
+     * Local stub HTTP server that responds with the HTTP version of the
+     * requests after a delay.
+     */
+    private static class StubServer
+    implements AutoCloseable {
+
+        final AtomicInteger connections = new AtomicInteger();
+        final AtomicInteger requests = new AtomicInteger();
+        final int port;
+        private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        private final HttpAsyncServer server;
+
+        StubServer(
+                final HttpVersionPolicy versionPolicy,
+                final long delayMillis)
+        throws Exception {
+            this.server = H2ServerBootstrap.bootstrap()
+                    .setVersionPolicy(versionPolicy)
+                    .setIOSessionListener(new ConnectionCounter(this.connections))
+                    .register("*", new AsyncServerRequestHandler<Message<HttpRequest, String>>() {
+                        @Override
+                        public AsyncRequestConsumer<Message<HttpRequest, String>> prepare(
+                                final HttpRequest request,
+                                final EntityDetails entityDetails,
+                                final HttpContext context) {
+                            return new BasicRequestConsumer<>(
+                                    entityDetails == null ? null : new StringAsyncEntityConsumer());
+                        }
+                        @Override
+                        public void handle(
+                                final Message<HttpRequest, String> message,
+                                final ResponseTrigger trigger,
+                                final HttpContext context) {
+                            requests.incrementAndGet();
+                            final String version = message.getHead().getVersion().format();
+                            scheduler.schedule(() -> {
+                                try {
+                                    trigger.submitResponse(new BasicResponseProducer(200, version), context);
+                                } catch (final Exception e) {
+                                    throw new IllegalStateException(e);
+                                }
+                            }, delayMillis, TimeUnit.MILLISECONDS);
+                        }
+                    })
+                    .create();
+            this.server.start();
+            final ListenerEndpoint endpoint = this.server.listen(
+                    new InetSocketAddress(InetAddress.getLoopbackAddress(), 0),
+                    URIScheme.HTTP).get();
+            this.port = ((InetSocketAddress) endpoint.getAddress()).getPort();
+        }
+
+        URI uri(
+                final String path) {
+            return URI.create("http://127.0.0.1:" + this.port + path);
+        }
+
+        @Override
+        public void close() {
+            this.server.close(CloseMode.IMMEDIATE);
+            this.scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * I/O session listener that counts the accepted connections.
+     */
+    private static class ConnectionCounter
+    implements IOSessionListener {
+
+        private final AtomicInteger counter;
+
+        ConnectionCounter(
+                final AtomicInteger counter) {
+            this.counter = counter;
+        }
+
+        @Override
+        public void connected(final IOSession session) {
+            this.counter.incrementAndGet();
+        }
+
+        @Override
+        public void startTls(final IOSession session) {
+            // No action
+        }
+
+        @Override
+        public void inputReady(final IOSession session) {
+            // No action
+        }
+
+        @Override
+        public void outputReady(final IOSession session) {
+            // No action
+        }
+
+        @Override
+        public void timeout(final IOSession session) {
+            // No action
+        }
+
+        @Override
+        public void exception(final IOSession session, final Exception ex) {
+            // No action
+        }
+
+        @Override
+        public void disconnected(final IOSession session) {
+            // No action
+        }
+    }
+}
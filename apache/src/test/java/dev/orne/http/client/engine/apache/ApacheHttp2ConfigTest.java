@@ -0,0 +1,146 @@
+package dev.orne.http.client.engine.apache;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+
+import org.apache.hc.core5.http2.config.H2Config;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@code ApacheHttp2Config}.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see ApacheHttp2Config
+ */
+@Tag("ut")
+class ApacheHttp2ConfigTest {
+
+    /**
+     * Test for {@link ApacheHttp2Config#ApacheHttp2Config()}.
+     */
+    @Test
+    void testConstructor() {
+        final ApacheHttp2Config config = new ApacheHttp2Config();
+        assertEquals(ApacheHttp2Config.DEFAULT_MAX_CONCURRENT_STREAMS, config.getMaxConcurrentStreams());
+        assertEquals(ApacheHttp2Config.DEFAULT_INITIAL_WINDOW_SIZE, config.getInitialWindowSize());
+        assertTrue(config.isHttp1Fallback());
+        assertEquals(ApacheHttp2Config.DEFAULT_HTTP1_FALLBACK_TTL, config.getHttp1FallbackTtl());
+    }
+
+    /**
+     * Test for {@link ApacheHttp2Config#ApacheHttp2Config(ApacheHttp2Config)}.
+     */
+    @Test
+    void testCopyConstructor() {
+        assertThrows(NullPointerException.class, () -> new ApacheHttp2Config(null));
+        final ApacheHttp2Config config = randomConfig();
+        final ApacheHttp2Config result = new ApacheHttp2Config(config);
+        assertEquals(config.getMaxConcurrentStreams(), result.getMaxConcurrentStreams());
+        assertEquals(config.getInitialWindowSize(), result.getInitialWindowSize());
+        assertEquals(config.isHttp1Fallback(), result.isHttp1Fallback());
+        assertEquals(config.getHttp1FallbackTtl(), result.getHttp1FallbackTtl());
+    }
+
+    /**
+     * Test for {@link ApacheHttp2Config#setMaxConcurrentStreams(int)},
+     * {@link ApacheHttp2Config#setInitialWindowSize(int)},
+     * {@link ApacheHttp2Config#setHttp1Fallback(boolean)} and
+     * {@link ApacheHttp2Config#setHttp1FallbackTtl(Duration)}.
+     */
+    @Test
+    void testSetters() {
+        final ApacheHttp2Config config = new ApacheHttp2Config();
+        assertThrows(IllegalArgumentException.class, () -> config.setMaxConcurrentStreams(0));
+        assertThrows(IllegalArgumentException.class, () -> config.setMaxConcurrentStreams(-1));
+        assertThrows(IllegalArgumentException.class, () -> config.setInitialWindowSize(0));
+        assertThrows(IllegalArgumentException.class, () -> config.setInitialWindowSize(-1));
+        assertThrows(NullPointerException.class, () -> config.setHttp1FallbackTtl(null));
+        assertThrows(IllegalArgumentException.class, () -> config.setHttp1FallbackTtl(Duration.ZERO));
+        assertThrows(IllegalArgumentException.class, () -> config.setHttp1FallbackTtl(Duration.ofSeconds(-1)));
+        config.setMaxConcurrentStreams(16);
+        config.setInitialWindowSize(1024 * 1024);
+        config.setHttp1Fallback(false);
+        config.setHttp1FallbackTtl(Duration.ofMinutes(1));
+        assertEquals(16, config.getMaxConcurrentStreams());
+        assertEquals(1024 * 1024, config.getInitialWindowSize());
+        assertFalse(config.isHttp1Fallback());
+        assertEquals(Duration.ofMinutes(1), config.getHttp1FallbackTtl());
+    }
+
+    /**
+     * Test for {@link ApacheHttp2Config#toH2Config()}.
+     */
+    @Test
+    void testToH2Config() {
+        final ApacheHttp2Config config = randomConfig();
+        final H2Config result = config.toH2Config();
+        assertEquals(config.getMaxConcurrentStreams(), result.getMaxConcurrentStreams());
+        assertEquals(config.getInitialWindowSize(), result.getInitialWindowSize());
+        assertFalse(result.isPushEnabled());
+    }
+
+    /**
+     * Test for {@link ApacheHttp2Config#hashCode()},
+     * {@link ApacheHttp2Config#equals(Object)} and
+     * {@link ApacheHttp2Config#toString()}.
+     */
+    @Test
+    void testHashCodeEqualToString() {
+        final ApacheHttp2Config config = randomConfig();
+        assertNotEquals(config, null);
+        assertEquals(config, config);
+        assertNotEquals(config, new Object());
+        assertNotNull(config.toString());
+        ApacheHttp2Config other = new ApacheHttp2Config(config);
+        assertEquals(config.hashCode(), other.hashCode());
+        assertEquals(config, other);
+        assertEquals(config.toString(), other.toString());
+        other = new ApacheHttp2Config(config);
+        other.setMaxConcurrentStreams(config.getMaxConcurrentStreams() + 1);
+        assertNotEquals(config, other);
+        other = new ApacheHttp2Config(config);
+        other.setInitialWindowSize(config.getInitialWindowSize() + 1);
+        assertNotEquals(config, other);
+        other = new ApacheHttp2Config(config);
+        other.setHttp1Fallback(!config.isHttp1Fallback());
+        assertNotEquals(config, other);
+        other = new ApacheHttp2Config(config);
+        other.setHttp1FallbackTtl(config.getHttp1FallbackTtl().plusSeconds(1));
+        assertNotEquals(config, other);
+    }
+
+    private static ApacheHttp2Config randomConfig() {
+        final ApacheHttp2Config config = new ApacheHttp2Config();
+        config.setMaxConcurrentStreams(32);
+        config.setInitialWindowSize(256 * 1024);
+        config.setHttp1Fallback(false);
+        config.setHttp1FallbackTtl(Duration.ofMinutes(5));
+        return config;
+    }
+}
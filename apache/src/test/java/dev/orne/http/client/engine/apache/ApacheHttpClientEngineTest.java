@@ -26,6 +26,7 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -36,24 +37,38 @@ import static org.mockito.BDDMockito.given;
 import static org.mockito.BDDMockito.then;
 import static org.mockito.BDDMockito.willReturn;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
 
 import java.io.IOException;
 import java.lang.reflect.Modifier;
 import java.net.URI;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Stream;
 
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.classic.methods.HttpUriRequestBase;
 import org.apache.hc.client5.http.config.RequestConfig;
 import org.apache.hc.client5.http.cookie.CookieStore;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
 import org.apache.hc.core5.http.ClassicHttpRequest;
 import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.HttpHost;
 import org.apache.hc.core5.http.io.HttpClientResponseHandler;
 import org.apache.hc.core5.http.protocol.HttpContext;
 import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.pool.ConnPoolControl;
+import org.apache.hc.core5.pool.PoolStats;
+import org.apache.hc.core5.util.Timeout;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Tag;
@@ -67,12 +82,18 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
 import dev.orne.http.Methods;
+import dev.orne.http.client.BaseHttpServiceClient;
 import dev.orne.http.client.HttpClientException;
+import dev.orne.http.client.HttpRequestRejectedException;
+import dev.orne.http.client.HttpRequestTimeoutException;
+import dev.orne.http.client.engine.AdmissionControl;
 import dev.orne.http.client.engine.HttpClientEngine;
+import dev.orne.http.client.engine.HttpClientEngineRegistry;
 import dev.orne.http.client.engine.HttpRequest;
 import dev.orne.http.client.engine.HttpRequestCustomizer;
 import dev.orne.http.client.engine.HttpResponse;
 import dev.orne.http.client.engine.HttpResponseHandler;
+import dev.orne.http.client.engine.SharedHttpClientEngine;
 import dev.orne.test.rnd.generators.URIGenerator;
 
 /**
@@ -89,6 +110,8 @@ class ApacheHttpClientEngineTest {
     private @Mock CookieStore cookieStore;
     private @Mock CloseableHttpClient client;
     private @Mock ExecutorService executor;
+    private @Mock ConnPoolControl<HttpRoute> connectionPool;
+    private @Mock AdmissionControl admissionControl;
     private @Captor ArgumentCaptor<HttpRequest> requestCaptor;
     private @Captor ArgumentCaptor<Runnable> runnableCaptor;
     private @Captor ArgumentCaptor<HttpClientResponseHandler<?>> engineHandlerCaptor;
@@ -113,6 +136,45 @@ class ApacheHttpClientEngineTest {
         assertInstanceOf(ApacheHttpClientEngine.class, HttpClientEngine.fromSpi());
     }
 
+    /**
+     * Test for {@link HttpClientEngineRegistry#acquire()}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testSharedSPI()
+    throws Throwable {
+        final HttpClientEngineRegistry registry = new HttpClientEngineRegistry();
+        final SharedHttpClientEngine lease1 = registry.acquire();
+        final SharedHttpClientEngine lease2 = registry.acquire();
+        assertInstanceOf(ApacheHttpClientEngine.class, lease1.getDelegate());
+        assertSame(lease1.getDelegate(), lease2.getDelegate());
+        assertEquals(2, registry.getReferenceCount(HttpClientEngineRegistry.SPI_KEY));
+        lease1.close();
+        lease2.close();
+        assertEquals(0, registry.getReferenceCount(HttpClientEngineRegistry.SPI_KEY));
+        try (final SharedHttpClientEngine lease3 = registry.acquire()) {
+            assertNotSame(lease1.getDelegate(), lease3.getDelegate());
+        }
+    }
+
+    /**
+     * Test for {@link BaseHttpServiceClient#BaseHttpServiceClient(URI)}
+     * not sharing the SPI engine.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testDefaultClientEngines()
+    throws Throwable {
+        final URI baseURI = URI.create("http://example.org/");
+        try (final BaseHttpServiceClient client1 = new BaseHttpServiceClient(baseURI);
+                final BaseHttpServiceClient client2 = new BaseHttpServiceClient(baseURI)) {
+            assertInstanceOf(ApacheHttpClientEngine.class, client1.getEngine());
+            assertInstanceOf(ApacheHttpClientEngine.class, client2.getEngine());
+            assertNotSame(client1.getEngine(), client2.getEngine());
+            assertNotSame(client1.getCookieStore(), client2.getCookieStore());
+        }
+    }
+
     /**
      * Test for {@link ApacheHttpClientEngine#ApacheHttpClientEngine()}.
      * @throws Throwable Should not happen
@@ -125,6 +187,162 @@ class ApacheHttpClientEngineTest {
             assertNotNull(engine.getCookieStore().getDelegate());
             assertNotNull(engine.getClient());
             assertNotNull(engine.getExecutor());
+            assertNotNull(engine.getConnectionPool());
+            assertEquals(
+                    new ApacheConnectionPoolStats(0, 0, 0, ApacheConnectionPoolConfig.DEFAULT_MAX_TOTAL),
+                    engine.getPoolStats());
+            assertTrue(engine.getRoutePoolStats().isEmpty());
+        }
+    }
+
+    /**
+     * Test for {@link ApacheHttpClientEngine#ApacheHttpClientEngine(ApacheConnectionPoolConfig)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testPoolConfigConstructor()
+    throws Throwable {
+        assertThrows(NullPointerException.class, () -> new ApacheHttpClientEngine(
+                (ApacheConnectionPoolConfig) null));
+        final ApacheConnectionPoolConfig config = new ApacheConnectionPoolConfig();
+        config.setMaxTotal(50);
+        config.setMaxPerRoute(10);
+        config.setMaxPerHost("https://example.org", 20);
+        config.setTimeToLive(Duration.ofMinutes(5));
+        config.setValidateAfterInactivity(Duration.ofSeconds(2));
+        config.setMaxIdleTime(Duration.ofSeconds(30));
+        config.setEvictExpired(true);
+        try (final ApacheHttpClientEngine engine = new ApacheHttpClientEngine(config)) {
+            assertNotNull(engine.getCookieStore());
+            assertNotNull(engine.getClient());
+            assertNotNull(engine.getExecutor());
+            final PoolingHttpClientConnectionManager pool =
+                    assertInstanceOf(PoolingHttpClientConnectionManager.class, engine.getConnectionPool());
+            assertEquals(50, pool.getMaxTotal());
+            assertEquals(10, pool.getDefaultMaxPerRoute());
+            assertEquals(20, pool.getMaxPerRoute(new HttpRoute(
+                    new HttpHost("https", "example.org", 443), null, true)));
+            assertEquals(10, pool.getMaxPerRoute(new HttpRoute(
+                    new HttpHost("http", "example.org", 80))));
+            assertEquals(new ApacheConnectionPoolStats(0, 0, 0, 50), engine.getPoolStats());
+        }
+    }
+
+    /**
+     * Test for {@link ApacheHttpClientEngine#ApacheHttpClientEngine(ApacheConnectionPoolConfig, ApacheDispatchMode)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testDispatchModeConstructor()
+    throws Throwable {
+        final ApacheConnectionPoolConfig config = new ApacheConnectionPoolConfig();
+        assertThrows(NullPointerException.class, () -> new ApacheHttpClientEngine(
+                null,
+                ApacheDispatchMode.PLATFORM_THREADS));
+        assertThrows(NullPointerException.class, () -> new ApacheHttpClientEngine(
+                config,
+                null));
+        try (final ApacheHttpClientEngine engine = new ApacheHttpClientEngine(
+                config,
+                ApacheDispatchMode.PLATFORM_THREADS)) {
+            assertInstanceOf(ThreadPoolExecutor.class, engine.getExecutor());
+        }
+        try (final ApacheHttpClientEngine engine = new ApacheHttpClientEngine(
+                config,
+                ApacheDispatchMode.AUTO)) {
+            assertNotNull(engine.getExecutor());
+        }
+        if (ApacheDispatchMode.VIRTUAL_THREADS.isSupported()) {
+            try (final ApacheHttpClientEngine engine = new ApacheHttpClientEngine(
+                    config,
+                    ApacheDispatchMode.VIRTUAL_THREADS)) {
+                assertFalse(engine.getExecutor() instanceof ThreadPoolExecutor);
+            }
+        } else {
+            assertThrows(UnsupportedOperationException.class, () -> new ApacheHttpClientEngine(
+                    config,
+                    ApacheDispatchMode.VIRTUAL_THREADS));
+        }
+    }
+
+    /**
+     * Test for {@link ApacheHttpClientEngine#ApacheHttpClientEngine(ApacheConnectionPoolConfig, ApacheDispatchMode, AdmissionControl)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testAdmissionControlConstructor()
+    throws Throwable {
+        final ApacheConnectionPoolConfig config = new ApacheConnectionPoolConfig();
+        try (final ApacheHttpClientEngine engine = new ApacheHttpClientEngine(
+                config,
+                ApacheDispatchMode.PLATFORM_THREADS,
+                null)) {
+            assertNull(engine.getAdmissionControl());
+        }
+        try (final ApacheHttpClientEngine engine = new ApacheHttpClientEngine(
+                config,
+                ApacheDispatchMode.PLATFORM_THREADS,
+                admissionControl)) {
+            assertSame(admissionControl, engine.getAdmissionControl());
+            assertNotNull(engine.getConnectionPool());
+            then(admissionControl).shouldHaveNoInteractions();
+        }
+        then(admissionControl).should().close();
+    }
+
+    /**
+     * Test for {@link ApacheHttpClientEngine#ApacheHttpClientEngine(CookieStore, CloseableHttpClient, ExecutorService, ConnPoolControl, AdmissionControl)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testFullComponentsConstructor()
+    throws Throwable {
+        try (final ApacheHttpClientEngine engine = new ApacheHttpClientEngine(
+                cookieStore,
+                client,
+                executor,
+                null,
+                null)) {
+            assertNull(engine.getConnectionPool());
+            assertNull(engine.getAdmissionControl());
+        }
+        try (final ApacheHttpClientEngine engine = new ApacheHttpClientEngine(
+                cookieStore,
+                client,
+                executor,
+                connectionPool,
+                admissionControl)) {
+            assertSame(cookieStore, engine.getCookieStore().getDelegate());
+            assertSame(client, engine.getClient());
+            assertSame(executor, engine.getExecutor());
+            assertSame(connectionPool, engine.getConnectionPool());
+            assertSame(admissionControl, engine.getAdmissionControl());
+            then(admissionControl).shouldHaveNoInteractions();
+        }
+        then(admissionControl).should().close();
+        then(client).should(times(2)).close(CloseMode.GRACEFUL);
+    }
+
+    /**
+     * Test for {@link ApacheHttpClientEngine#createConnectionManager(ApacheConnectionPoolConfig)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testCreateConnectionManager()
+    throws Throwable {
+        final ApacheConnectionPoolConfig config = new ApacheConnectionPoolConfig();
+        config.setMaxPerHost("http://example.org:8080", 3);
+        try (final ApacheHttpClientEngine engine = new ApacheHttpClientEngine(
+                cookieStore,
+                client,
+                executor)) {
+            try (final PoolingHttpClientConnectionManager result =
+                    engine.createConnectionManager(config)) {
+                assertEquals(ApacheConnectionPoolConfig.DEFAULT_MAX_TOTAL, result.getMaxTotal());
+                assertEquals(ApacheConnectionPoolConfig.DEFAULT_MAX_PER_ROUTE, result.getDefaultMaxPerRoute());
+                assertEquals(3, result.getMaxPerRoute(new HttpRoute(
+                        new HttpHost("http", "example.org", 8080))));
+            }
         }
     }
 
@@ -143,12 +361,48 @@ class ApacheHttpClientEngineTest {
             assertSame(cookieStore, engine.getCookieStore().getDelegate());
             assertSame(client, engine.getClient());
             assertSame(executor, engine.getExecutor());
+            assertNull(engine.getConnectionPool());
+            assertNull(engine.getPoolStats());
+            assertTrue(engine.getRoutePoolStats().isEmpty());
             then(cookieStore).shouldHaveNoInteractions();
             then(client).shouldHaveNoInteractions();
             then(executor).shouldHaveNoInteractions();
         }
     }
 
+    /**
+     * Test for {@link ApacheHttpClientEngine#ApacheHttpClientEngine(CookieStore, CloseableHttpClient, ExecutorService, ConnPoolControl)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testPoolComponentsConstructor()
+    throws Throwable {
+        assertThrows(NullPointerException.class, () -> new ApacheHttpClientEngine(
+                cookieStore,
+                client,
+                executor,
+                null));
+        final HttpRoute route = new HttpRoute(new HttpHost("http", "example.org", 80));
+        given(connectionPool.getTotalStats()).willReturn(new PoolStats(1, 2, 3, 4));
+        given(connectionPool.getRoutes()).willReturn(Collections.singleton(route));
+        given(connectionPool.getStats(route)).willReturn(new PoolStats(5, 6, 7, 8));
+        try (final ApacheHttpClientEngine engine = new ApacheHttpClientEngine(
+                cookieStore,
+                client,
+                executor,
+                connectionPool)) {
+            assertSame(cookieStore, engine.getCookieStore().getDelegate());
+            assertSame(client, engine.getClient());
+            assertSame(executor, engine.getExecutor());
+            assertSame(connectionPool, engine.getConnectionPool());
+            assertEquals(new ApacheConnectionPoolStats(1, 2, 3, 4), engine.getPoolStats());
+            final Map<HttpRoute, ApacheConnectionPoolStats> routeStats = engine.getRoutePoolStats();
+            assertEquals(1, routeStats.size());
+            assertEquals(new ApacheConnectionPoolStats(5, 6, 7, 8), routeStats.get(route));
+            assertThrows(UnsupportedOperationException.class, () -> routeStats.clear());
+        }
+    }
+
     /**
      * Test for {@link ApacheHttpClientEngine#configureRequestConfig(RequestConfig.Builder)}.
      * @throws Throwable Should not happen
@@ -202,6 +456,56 @@ class ApacheHttpClientEngineTest {
         }
     }
 
+    /**
+     * Test for {@link ApacheHttpClientEngine#executeHttpRequest(URI, String, HttpRequestCustomizer, HttpResponseHandler)}
+     * with admission control.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecuteHttpRequest_AdmissionControl()
+    throws Throwable {
+        final URI uri = URI.create("http://example.org/test");
+        final HttpRequestCustomizer requestCustomizer = mock(HttpRequestCustomizer.class);
+        final HttpResponseHandler responseHandler = mock(HttpResponseHandler.class);
+        final ClassicHttpResponse apacheResponse = mock(ClassicHttpResponse.class);
+        final AdmissionControl admissionControl = new AdmissionControl(1, 0, null);
+        try (final ApacheHttpClientEngine engine = new ApacheHttpClientEngine(
+                cookieStore,
+                client,
+                executor,
+                null,
+                admissionControl)) {
+            final CompletableFuture<Void> result = engine.executeHttpRequest(
+                    uri,
+                    Methods.GET,
+                    requestCustomizer,
+                    responseHandler).toCompletableFuture();
+            then(executor).should().execute(runnableCaptor.capture());
+            assertEquals(1, admissionControl.getInFlight());
+            final CompletableFuture<Void> rejected = engine.executeHttpRequest(
+                    uri,
+                    Methods.GET,
+                    requestCustomizer,
+                    responseHandler).toCompletableFuture();
+            assertTrue(rejected.isCompletedExceptionally());
+            final ExecutionException thrown = assertThrows(ExecutionException.class, () -> rejected.get());
+            assertInstanceOf(HttpRequestRejectedException.class, thrown.getCause());
+            assertEquals(1, admissionControl.getRejectedCount());
+            then(executor).shouldHaveNoMoreInteractions();
+            runnableCaptor.getValue().run();
+            then(client).should().execute(
+                    any(ClassicHttpRequest.class),
+                    any(),
+                    engineHandlerCaptor.capture());
+            engineHandlerCaptor.getValue().handleResponse(apacheResponse);
+            assertDoesNotThrow(() -> result.get());
+            assertEquals(0, admissionControl.getInFlight());
+        }
+        final CompletableFuture<Void> closed = admissionControl.submit(
+                () -> CompletableFuture.<Void>completedFuture(null)).toCompletableFuture();
+        assertTrue(closed.isCompletedExceptionally());
+    }
+
     /**
      * Test for {@link ApacheHttpClientEngine#executeHttpRequest(URI, String, HttpRequestCustomizer, HttpResponseHandler)}.
      * @throws Throwable Should not happen
@@ -265,6 +569,117 @@ class ApacheHttpClientEngineTest {
         }
     }
 
+    /**
+     * Test for {@link ApacheHttpClientEngine#executeHttpRequest(URI, String, HttpRequestCustomizer, HttpResponseHandler)}
+     * with cancelled result.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecuteHttpRequest_Cancelled()
+    throws Throwable {
+        final URI uri = URI.create("http://example.org/test");
+        final HttpRequestCustomizer requestCustomizer = mock(HttpRequestCustomizer.class);
+        final HttpResponseHandler responseHandler = mock(HttpResponseHandler.class);
+        try (final ApacheHttpClientEngine engine = new ApacheHttpClientEngine(
+                cookieStore,
+                client,
+                executor)) {
+            final CompletableFuture<Void> result = engine.executeHttpRequest(
+                    uri,
+                    Methods.GET,
+                    requestCustomizer,
+                    responseHandler).toCompletableFuture();
+            then(requestCustomizer).should().customizeRequest(requestCaptor.capture());
+            then(executor).should().execute(runnableCaptor.capture());
+            final ApacheHttpRequest request = assertInstanceOf(
+                    ApacheHttpRequest.class,
+                    requestCaptor.getValue());
+            final HttpUriRequestBase apacheRequest = assertInstanceOf(
+                    HttpUriRequestBase.class,
+                    request.getDelegate());
+            assertFalse(apacheRequest.isCancelled());
+            assertTrue(result.cancel(true));
+            assertTrue(apacheRequest.isCancelled());
+            runnableCaptor.getValue().run();
+            then(client).shouldHaveNoInteractions();
+            then(responseHandler).shouldHaveNoInteractions();
+        }
+    }
+
+    /**
+     * Test for {@link ApacheHttpClientEngine#executeHttpRequest(URI, String, HttpRequestCustomizer, HttpResponseHandler)}
+     * with request timeouts.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecuteHttpRequest_Timeouts()
+    throws Throwable {
+        final URI uri = URI.create("http://example.org/test");
+        final HttpResponseHandler responseHandler = mock(HttpResponseHandler.class);
+        final HttpRequestCustomizer requestCustomizer = request -> {
+            request.setConnectTimeout(Duration.ofMillis(100));
+            request.setResponseTimeout(Duration.ofMillis(200));
+            request.setTimeout(Duration.ofMillis(10));
+        };
+        try (final ApacheHttpClientEngine engine = new ApacheHttpClientEngine(
+                cookieStore,
+                client,
+                executor)) {
+            final CompletableFuture<Void> result = engine.executeHttpRequest(
+                    uri,
+                    Methods.GET,
+                    requestCustomizer,
+                    responseHandler).toCompletableFuture();
+            then(executor).should().execute(runnableCaptor.capture());
+            final ExecutionException thrown = assertThrows(ExecutionException.class,
+                    () -> result.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(HttpRequestTimeoutException.class, thrown.getCause());
+            runnableCaptor.getValue().run();
+            then(client).shouldHaveNoInteractions();
+            then(responseHandler).shouldHaveNoInteractions();
+        }
+    }
+
+    /**
+     * Test for {@link ApacheHttpClientEngine#executeHttpRequest(URI, String, HttpRequestCustomizer, HttpResponseHandler)}
+     * with per request timeouts configuration.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    @SuppressWarnings("deprecation")
+    void testExecuteHttpRequest_RequestConfig()
+    throws Throwable {
+        final URI uri = URI.create("http://example.org/test");
+        final HttpResponseHandler responseHandler = mock(HttpResponseHandler.class);
+        final HttpRequestCustomizer requestCustomizer = request -> {
+            request.setConnectTimeout(Duration.ofMillis(100));
+            request.setResponseTimeout(Duration.ofMillis(200));
+        };
+        try (final ApacheHttpClientEngine engine = new ApacheHttpClientEngine(
+                cookieStore,
+                client,
+                executor)) {
+            engine.executeHttpRequest(
+                    uri,
+                    Methods.GET,
+                    requestCustomizer,
+                    responseHandler);
+            then(executor).should().execute(runnableCaptor.capture());
+            runnableCaptor.getValue().run();
+            final ArgumentCaptor<ClassicHttpRequest> captor = ArgumentCaptor.forClass(ClassicHttpRequest.class);
+            then(client).should().execute(
+                    captor.capture(),
+                    any(),
+                    engineHandlerCaptor.capture());
+            final HttpUriRequestBase request = assertInstanceOf(
+                    HttpUriRequestBase.class,
+                    captor.getValue());
+            assertNotNull(request.getConfig());
+            assertEquals(Timeout.ofMilliseconds(100), request.getConfig().getConnectTimeout());
+            assertEquals(Timeout.ofMilliseconds(200), request.getConfig().getResponseTimeout());
+        }
+    }
+
     /**
      * Test for {@link ApacheHttpClientEngine#executeHttpRequest(URI, String, HttpRequestCustomizer, HttpResponseHandler)}.
      * @throws Throwable Should not happen
@@ -343,6 +758,72 @@ class ApacheHttpClientEngineTest {
         then(executor).shouldHaveNoInteractions();
     }
 
+    /**
+     * Test for {@link ApacheHttpClientEngine#close()} with executor
+     * created by the engine.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testClose_OwnedExecutor()
+    throws Throwable {
+        final ApacheHttpClientEngine engine = new ApacheHttpClientEngine();
+        assertFalse(engine.getExecutor().isShutdown());
+        engine.close();
+        assertTrue(engine.getExecutor().isShutdown());
+    }
+
+    /**
+     * Test for {@link ApacheHttpClientEngine#shutdown(Duration)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testShutdown()
+    throws Throwable {
+        final URI uri = URI.create("http://example.org/test");
+        final HttpRequestCustomizer requestCustomizer = mock(HttpRequestCustomizer.class);
+        final HttpResponseHandler responseHandler = mock(HttpResponseHandler.class);
+        final ApacheHttpClientEngine engine = new ApacheHttpClientEngine(
+                cookieStore,
+                client,
+                executor);
+        final CompletableFuture<Void> result = engine.executeHttpRequest(
+                uri,
+                Methods.GET,
+                requestCustomizer,
+                responseHandler).toCompletableFuture();
+        then(requestCustomizer).should().customizeRequest(requestCaptor.capture());
+        final HttpUriRequestBase apacheRequest = assertInstanceOf(
+                HttpUriRequestBase.class,
+                ((ApacheHttpRequest) requestCaptor.getValue()).getDelegate());
+        assertEquals(1, engine.getInFlightCount());
+        assertThrows(NullPointerException.class, () -> engine.shutdown(null));
+        assertEquals(1, engine.shutdown(Duration.ofMillis(10)));
+        assertTrue(result.isCancelled());
+        assertTrue(apacheRequest.isCancelled());
+        assertEquals(0, engine.getInFlightCount());
+        assertThrows(HttpRequestRejectedException.class, () -> engine.executeHttpRequest(
+                uri,
+                Methods.GET,
+                requestCustomizer,
+                responseHandler));
+        then(client).should().close(CloseMode.GRACEFUL);
+        then(executor).should(never()).shutdown();
+        then(executor).should(never()).shutdownNow();
+    }
+
+    /**
+     * Test for {@link ApacheHttpClientEngine#shutdown(Duration)} with
+     * executor created by the engine.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testShutdown_OwnedExecutor()
+    throws Throwable {
+        final ApacheHttpClientEngine engine = new ApacheHttpClientEngine();
+        assertEquals(0, engine.shutdown(Duration.ofSeconds(1)));
+        assertTrue(engine.getExecutor().isTerminated());
+    }
+
     private static Stream<Arguments> knownHttpMethods() {
         return Stream.of(Methods.class.getDeclaredFields())
                 .filter(field -> {
@@ -27,17 +27,25 @@ import static org.mockito.BDDMockito.*;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
 
 import org.apache.commons.lang3.RandomUtils;
+import org.apache.hc.client5.http.config.RequestConfig;
 import org.apache.hc.core5.http.HttpEntity;
 import org.apache.hc.core5.http.HttpEntityContainer;
 import org.apache.hc.core5.http.HttpRequest;
+import org.apache.hc.core5.util.Timeout;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.Mock;
@@ -108,6 +116,69 @@ class ApacheHttpRequestTest {
         then(delegate).shouldHaveNoMoreInteractions();
     }
 
+    /**
+     * Test for {@link ApacheHttpRequest#setConnectTimeout(Duration)},
+     * {@link ApacheHttpRequest#setResponseTimeout(Duration)} and
+     * {@link ApacheHttpRequest#setTimeout(Duration)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testTimeouts()
+    throws Throwable {
+        final ApacheHttpRequest request = new ApacheHttpRequest(delegate);
+        assertNull(request.getConnectTimeout());
+        assertNull(request.getResponseTimeout());
+        assertNull(request.getTimeout());
+        assertThrows(NullPointerException.class, () -> request.setConnectTimeout(null));
+        assertThrows(IllegalArgumentException.class, () -> request.setConnectTimeout(Duration.ZERO));
+        assertThrows(IllegalArgumentException.class, () -> request.setConnectTimeout(Duration.ofMillis(-1)));
+        assertThrows(NullPointerException.class, () -> request.setResponseTimeout(null));
+        assertThrows(IllegalArgumentException.class, () -> request.setResponseTimeout(Duration.ZERO));
+        assertThrows(IllegalArgumentException.class, () -> request.setResponseTimeout(Duration.ofMillis(-1)));
+        assertThrows(NullPointerException.class, () -> request.setTimeout(null));
+        assertThrows(IllegalArgumentException.class, () -> request.setTimeout(Duration.ofMillis(-1)));
+        request.setConnectTimeout(Duration.ofMillis(100));
+        request.setResponseTimeout(Duration.ofMillis(200));
+        request.setTimeout(Duration.ZERO);
+        assertEquals(Duration.ofMillis(100), request.getConnectTimeout());
+        assertEquals(Duration.ofMillis(200), request.getResponseTimeout());
+        assertEquals(Duration.ZERO, request.getTimeout());
+        request.setDeadline(Instant.now().minusSeconds(1));
+        assertEquals(Duration.ZERO, request.getTimeout());
+        request.setDeadline(Instant.now().plusSeconds(60));
+        assertFalse(request.getTimeout().isNegative());
+        assertTrue(request.getTimeout().compareTo(Duration.ofSeconds(60)) <= 0);
+        then(delegate).shouldHaveNoInteractions();
+    }
+
+    /**
+     * Test for {@link ApacheHttpRequest#createRequestConfig(RequestConfig)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    @SuppressWarnings("deprecation")
+    void testCreateRequestConfig()
+    throws Throwable {
+        final RequestConfig defaults = RequestConfig.custom()
+                .setConnectionRequestTimeout(Timeout.ofSeconds(5))
+                .setResponseTimeout(Timeout.ofSeconds(30))
+                .build();
+        final ApacheHttpRequest request = new ApacheHttpRequest(delegate);
+        assertNull(request.createRequestConfig(defaults));
+        request.setTimeout(Duration.ofSeconds(1));
+        assertNull(request.createRequestConfig(defaults));
+        request.setResponseTimeout(Duration.ofMillis(200));
+        RequestConfig result = request.createRequestConfig(defaults);
+        assertEquals(Timeout.ofMilliseconds(200), result.getResponseTimeout());
+        assertEquals(defaults.getConnectTimeout(), result.getConnectTimeout());
+        assertEquals(Timeout.ofSeconds(5), result.getConnectionRequestTimeout());
+        request.setConnectTimeout(Duration.ofMillis(100));
+        result = request.createRequestConfig(defaults);
+        assertEquals(Timeout.ofMilliseconds(200), result.getResponseTimeout());
+        assertEquals(Timeout.ofMilliseconds(100), result.getConnectTimeout());
+        assertEquals(Timeout.ofSeconds(5), result.getConnectionRequestTimeout());
+    }
+
     /**
      * Test for {@link ApacheHttpRequest#setBody(dev.orne.http.ContentType, String)}.
      * @throws Throwable Should not happen
@@ -219,6 +290,50 @@ class ApacheHttpRequestTest {
         }
     }
 
+    /**
+     * Test for {@link ApacheHttpRequest#setBody(ContentType, long, BodyProducer)}
+     * with file body.
+     * @param tempDir The temporary directory
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testSetBody_File(
+            final @TempDir Path tempDir)
+    throws Throwable {
+        final ApacheHttpRequest request = new ApacheHttpRequest(entityDelegate);
+        final dev.orne.http.ContentType contentType = dev.orne.http.ContentType.of(
+                MediaTypes.Application.OCTET_STREAM);
+        final byte[] body = RandomUtils.nextBytes(50);
+        final Path file = tempDir.resolve("body.bin");
+        Files.write(file, body);
+        request.setBody(contentType, file);
+        then(entityDelegate).should().setEntity(
+                entityCaptor.capture());
+        then(entityDelegate).shouldHaveNoMoreInteractions();
+        final ApacheFileEntity entity = assertInstanceOf(ApacheFileEntity.class, entityCaptor.getValue());
+        assertEquals(file, entity.getProducer().getFile());
+        assertEquals(contentType.getHeader(), entity.getContentType());
+        assertEquals(50, entity.getContentLength());
+        assertFalse(entity.isChunked());
+        assertTrue(entity.isRepeatable());
+        assertFalse(entity.isStreaming());
+        for (int i = 0; i < 2; i++) {
+            try (final ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+                entity.writeTo(out);
+                assertArrayEquals(body, out.toByteArray());
+            }
+        }
+        try (final InputStream content = entity.getContent();
+                final ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            final byte[] buffer = new byte[16];
+            int read;
+            while ((read = content.read(buffer)) >= 0) {
+                out.write(buffer, 0, read);
+            }
+            assertArrayEquals(body, out.toByteArray());
+        }
+    }
+
     /**
      * Test for {@link ApacheHttpRequest#setBody(ContentType, BodyProducer)}.
      * @throws Throwable Should not happen
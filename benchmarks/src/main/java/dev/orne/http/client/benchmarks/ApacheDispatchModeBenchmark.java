@@ -0,0 +1,186 @@
+package dev.orne.http.client.benchmarks;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import dev.orne.http.Methods;
+import dev.orne.http.StatusCodes;
+import dev.orne.http.client.engine.apache.ApacheConnectionPoolConfig;
+import dev.orne.http.client.engine.apache.ApacheDispatchMode;
+import dev.orne.http.client.engine.apache.ApacheHttpClientEngine;
+
+/**
+ * Compares the dispatch modes of {@code ApacheHttpClientEngine} executing
+ * bursts of concurrent requests against a local HTTP server with simulated
+ * latency.
+ * <p>
+ * Each benchmark invocation executes {@code concurrency} concurrent requests
+ * and waits for all of them to complete. The connection pool is limited to
+ * {@code maxConnections} connections, so most requests wait for a pooled
+ * connection, as in a saturated production client.
+ * <p>
+ * Run with {@code java -jar benchmarks/target/benchmarks.jar ApacheDispatchModeBenchmark}
+ * in a Java 21+ runtime. Raise the open files limit ({@code ulimit -n})
+ * when increasing {@code maxConnections}.
+ * 
+ * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ApacheDispatchModeBenchmark {
+
+    /** The response body. */
+    private static final byte[] RESPONSE = "OK".getBytes(StandardCharsets.US_ASCII);
+
+    /** The dispatch mode of the engine. */
+    @Param({ "PLATFORM_THREADS", "VIRTUAL_THREADS" })
+    public ApacheDispatchMode dispatchMode;
+    /** The number of concurrent requests per invocation. */
+    @Param({ "1000", "10000" })
+    public int concurrency;
+    /** The maximum number of pooled connections. */
+    @Param({ "200" })
+    public int maxConnections;
+    /** The simulated server latency, in milliseconds. */
+    @Param({ "10" })
+    public long latencyMillis;
+
+    /** The server executor service. */
+    private ExecutorService serverExecutor;
+    /** The local HTTP server. */
+    private HttpServer server;
+    /** The request URI. */
+    private URI uri;
+    /** The benchmarked engine. */
+    private ApacheHttpClientEngine engine;
+
+    /**
+     * Starts the local HTTP server and creates the benchmarked engine.
+     * 
+     * @throws IOException If an error occurs starting the server.
+     */
+    @Setup(Level.Trial)
+    public void setUp()
+    throws IOException {
+        this.serverExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        this.server = HttpServer.create(
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0),
+                maxConnections);
+        this.server.createContext("/", this::handle);
+        this.server.setExecutor(this.serverExecutor);
+        this.server.start();
+        this.uri = URI.create("http://localhost:" + this.server.getAddress().getPort() + "/");
+        final ApacheConnectionPoolConfig poolConfig = new ApacheConnectionPoolConfig();
+        poolConfig.setMaxTotal(this.maxConnections);
+        poolConfig.setMaxPerRoute(this.maxConnections);
+        this.engine = new ApacheHttpClientEngine(poolConfig, this.dispatchMode);
+    }
+
+    /**
+     * Closes the benchmarked engine and stops the local HTTP server.
+     * 
+     * @throws IOException If an error occurs closing the engine.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown()
+    throws IOException {
+        this.engine.close();
+        this.server.stop(0);
+        this.serverExecutor.shutdownNow();
+    }
+
+    /**
+     * Executes {@code concurrency} concurrent requests and waits for all
+     * of them to complete.
+     * 
+     * @throws Exception If an error occurs.
+     */
+    @Benchmark
+    public void concurrentRequests()
+    throws Exception {
+        final CompletableFuture<?>[] futures = new CompletableFuture<?>[this.concurrency];
+        for (int i = 0; i < this.concurrency; i++) {
+            futures[i] = this.engine.executeHttpRequest(
+                    this.uri,
+                    Methods.GET,
+                    request -> { /* No customization */ },
+                    response -> { /* Body consumed by engine */ })
+                .toCompletableFuture();
+        }
+        CompletableFuture.allOf(futures).get();
+    }
+
+    /**
+     * Handles a request to the local HTTP server, responding after the
+     * simulated latency.
+     * 
+     * @param exchange The HTTP exchange.
+     * @throws IOException If an error occurs sending the response.
+     */
+    private void handle(
+            final HttpExchange exchange)
+    throws IOException {
+        try {
+            Thread.sleep(this.latencyMillis);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        exchange.sendResponseHeaders(StatusCodes.OK, RESPONSE.length);
+        try (final OutputStream out = exchange.getResponseBody()) {
+            out.write(RESPONSE);
+        }
+    }
+}
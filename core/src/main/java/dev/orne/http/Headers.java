@@ -415,6 +415,13 @@ public final class Headers {
              * specification.
              */
             public static final String DNT = "DNT";
+            /**
+             * Unique key that allows the server to recognize retries of a
+             * non-idempotent request, making it fault-tolerant.
+             * <p>
+             * Status: IETF draft
+             */
+            public static final String IDEMPOTENCY_KEY = "Idempotency-Key";
             /**
              * A de facto standard for identifying the originating IP address
              * of a client connecting to a web server through an HTTP proxy or
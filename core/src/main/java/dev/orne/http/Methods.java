@@ -51,6 +51,27 @@ public final class Methods {
     /** RFC 5789 */
     public static final String PATCH = "PATCH";
 
+    /**
+     * Returns {@code true} if the HTTP method is idempotent, as defined
+     * in RFC 9110 Section 9.2.2.
+     * <p>
+     * Requests with idempotent methods can be safely retried, as the
+     * intended effect of multiple identical requests is the same as
+     * the effect of a single request. Method names are case-sensitive.
+     * 
+     * @param method The HTTP method.
+     * @return If the HTTP method is idempotent.
+     */
+    public static boolean isIdempotent(
+            final String method) {
+        return GET.equals(method)
+                || HEAD.equals(method)
+                || PUT.equals(method)
+                || DELETE.equals(method)
+                || OPTIONS.equals(method)
+                || TRACE.equals(method);
+    }
+
     /**
      * Private constructor.
      */
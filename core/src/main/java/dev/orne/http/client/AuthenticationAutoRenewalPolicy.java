@@ -33,10 +33,16 @@ import javax.validation.constraints.NotNull;
  * when the service client has auto renewal enabled and stored credentials
  * and the execution of one or more operations have failed because the
  * previous authentication has expired.
+ * <p>
+ * Implementations that delay the authentication renewal or the retry of
+ * the operations should use the shared timer, through
+ * {@code HashedWheelTimer.shared().delay(Duration)}, instead of blocking
+ * threads or scheduling tasks in dedicated executors.
  * 
  * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
  * @version 1.0, 2023-06
  * @since 0.1
+ * @see dev.orne.http.client.engine.HashedWheelTimer
  */
 public interface AuthenticationAutoRenewalPolicy {
 
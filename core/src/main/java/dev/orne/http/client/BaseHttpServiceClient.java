@@ -34,6 +34,7 @@ import org.apache.commons.lang3.Validate;
 
 import dev.orne.http.client.cookie.CookieStore;
 import dev.orne.http.client.engine.HttpClientEngine;
+import dev.orne.http.client.engine.HttpClientEngineRegistry;
 import dev.orne.http.client.op.StatusIndependentOperation;
 
 /**
@@ -89,9 +90,13 @@ implements HttpServiceClient {
      * <p>
      * The base URI must be absolute, as is used to resolve
      * relative URIs of operations.
+     * <p>
+     * To share an engine with other clients, including its cookie store,
+     * use a lease acquired from {@code HttpClientEngineRegistry}.
      * 
      * @param engine The HTTP client engine.
      * @param baseURI The HTTP service's base URI.
+     * @see HttpClientEngineRegistry#acquire(Object, java.util.function.Supplier)
      */
     public BaseHttpServiceClient(
             final @NotNull HttpClientEngine engine,
@@ -107,6 +112,9 @@ implements HttpServiceClient {
      * <p>
      * The base URL, must be absolute, as is used to resolve
      * relative URIs of operations.
+     * <p>
+     * To share an engine with other clients, including its cookie store,
+     * use a lease acquired from {@code HttpClientEngineRegistry}.
      * 
      * @param engine The HTTP client engine.
      * @param baseURL The HTTP service's base URL.
@@ -159,6 +167,10 @@ implements HttpServiceClient {
 
     /**
      * {@inheritDoc}
+     * <p>
+     * Closes the HTTP client engine. For engines shared through
+     * {@code HttpClientEngineRegistry} only this client's reference is
+     * released.
      */
     @Override
     public void close()
@@ -22,11 +22,20 @@ package dev.orne.http.client;
  * #L%
  */
 
+import java.time.Duration;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 
 import javax.validation.constraints.NotNull;
 
+import org.apache.commons.lang3.Validate;
+
+import dev.orne.http.client.engine.HashedWheelTimer;
+
 /**
  * Utility methods for {@code Future} handling.
  * 
@@ -60,4 +69,90 @@ public final class FutureUtils {
         result.completeExceptionally(t);
         return result;
     }
+
+    /**
+     * Propagates the cancellation of the specified dependent stage to the
+     * source future it depends on.
+     * <p>
+     * {@code CompletableFuture} does not propagate the cancellation of a
+     * dependent stage to its source. If the returned future is cancelled,
+     * or otherwise completed by the caller before the source completes,
+     * the source future is cancelled, aborting the underlying work.
+     * 
+     * @param <R> The future result type.
+     * @param dependent The dependent stage.
+     * @param source The source future the dependent stage depends on.
+     * @return The dependent stage, as {@code CompletableFuture}.
+     */
+    public static <R> @NotNull CompletableFuture<R> propagateCancellation(
+            final @NotNull CompletionStage<R> dependent,
+            final @NotNull Future<?> source) {
+        final CompletableFuture<R> result = dependent.toCompletableFuture();
+        result.whenComplete((value, error) -> source.cancel(true));
+        return result;
+    }
+
+    /**
+     * Completes the specified future exceptionally with a
+     * {@code HttpRequestTimeoutException} if not completed before the
+     * specified timeout.
+     * <p>
+     * Required because {@code CompletableFuture.orTimeout()} is not
+     * available until Java 9. The timeout is scheduled in the shared
+     * {@code HashedWheelTimer}, and cancelled when the future is completed.
+     * The future is completed in {@code ForkJoinPool.commonPool()}.
+     * 
+     * @param <R> The future result type.
+     * @param future The future to complete on timeout.
+     * @param timeout The timeout.
+     * @return The same future, for method chaining.
+     * @see #orTimeout(CompletableFuture, Duration, Executor)
+     */
+    public static <R> @NotNull CompletableFuture<R> orTimeout(
+            final @NotNull CompletableFuture<R> future,
+            final @NotNull Duration timeout) {
+        return orTimeout(future, timeout, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Completes the specified future exceptionally with a
+     * {@code HttpRequestTimeoutException} if not completed before the
+     * specified timeout.
+     * <p>
+     * The timeout is scheduled in the shared {@code HashedWheelTimer}, and
+     * cancelled when the future is completed. The future is completed in
+     * the specified executor, so the dependent stages never run in the
+     * timer thread. If the executor rejects the completion the future is
+     * completed in the timer thread.
+     * 
+     * @param <R> The future result type.
+     * @param future The future to complete on timeout.
+     * @param timeout The timeout.
+     * @param executor The executor to complete the future in.
+     * @return The same future, for method chaining.
+     */
+    public static <R> @NotNull CompletableFuture<R> orTimeout(
+            final @NotNull CompletableFuture<R> future,
+            final @NotNull Duration timeout,
+            final @NotNull Executor executor) {
+        Validate.notNull(future);
+        Validate.notNull(timeout);
+        Validate.notNull(executor);
+        Validate.isTrue(!timeout.isNegative(), "Timeout cannot be negative");
+        if (!future.isDone()) {
+            final Runnable expiration = () -> future.completeExceptionally(new HttpRequestTimeoutException(
+                    String.format("HTTP request timed out after %s", timeout)));
+            final HashedWheelTimer.Timeout task = HashedWheelTimer.shared().schedule(
+                    () -> {
+                        try {
+                            executor.execute(expiration);
+                        } catch (final RejectedExecutionException e) {
+                            expiration.run();
+                        }
+                    },
+                    timeout);
+            future.whenComplete((value, error) -> task.cancel());
+        }
+        return future;
+    }
 }
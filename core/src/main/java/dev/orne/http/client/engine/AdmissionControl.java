@@ -0,0 +1,385 @@
+package dev.orne.http.client.engine;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.lang3.Validate;
+
+import dev.orne.http.client.FutureUtils;
+import dev.orne.http.client.HttpRequestRejectedException;
+
+/**
+ * Admission control for HTTP client engines.
+ * <p>
+ * Limits the number of requests in flight. Requests submitted while the
+ * limit is reached wait in a bounded queue, without holding any thread,
+ * until a previous request completes. Requests submitted while the queue
+ * is full, or that wait in the queue longer than the queue timeout, are
+ * rejected failing fast with {@code HttpRequestRejectedException}.
+ * 
+ * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see HttpRequestRejectedException
+ */
+public class AdmissionControl
+implements AutoCloseable {
+
+    /** The maximum number of requests in flight. */
+    private final int maxInFlight;
+    /** The maximum number of requests waiting in queue. */
+    private final int maxQueued;
+    /** The maximum time requests wait in queue. */
+    private final Duration queueTimeout;
+    /** The queue timeout timer. */
+    private final @NotNull HashedWheelTimer timer;
+    /** The state lock. */
+    private final Lock lock = new ReentrantLock();
+    /** The requests waiting in queue. */
+    private final Deque<CompletableFuture<Void>> queue = new ArrayDeque<>();
+    /** The number of requests in flight. */
+    private int inFlight;
+    /** If this instance has been closed. */
+    private boolean closed;
+    /** The number of requests rejected because the queue was full. */
+    private final AtomicLong rejectedCount = new AtomicLong();
+    /** The number of requests rejected because the queue timeout expired. */
+    private final AtomicLong expiredCount = new AtomicLong();
+
+    /**
+     * Creates a new instance.
+     * <p>
+     * Queued requests are expired with the shared {@code HashedWheelTimer}.
+     * 
+     * @param maxInFlight The maximum number of requests in flight.
+     * @param maxQueued The maximum number of requests waiting in queue.
+     * Zero to reject requests as soon as the in flight limit is reached.
+     * @param queueTimeout The maximum time requests wait in queue, or
+     * {@code null} to wait indefinitely.
+     */
+    public AdmissionControl(
+            final int maxInFlight,
+            final int maxQueued,
+            final Duration queueTimeout) {
+        this(maxInFlight, maxQueued, queueTimeout, HashedWheelTimer.shared());
+    }
+
+    /**
+     * Creates a new instance.
+     * <p>
+     * The specified timer is not closed when this instance is closed.
+     * 
+     * @param maxInFlight The maximum number of requests in flight.
+     * @param maxQueued The maximum number of requests waiting in queue.
+     * Zero to reject requests as soon as the in flight limit is reached.
+     * @param queueTimeout The maximum time requests wait in queue, or
+     * {@code null} to wait indefinitely.
+     * @param timer The timer used to expire the queued requests.
+     */
+    public AdmissionControl(
+            final int maxInFlight,
+            final int maxQueued,
+            final Duration queueTimeout,
+            final @NotNull HashedWheelTimer timer) {
+        super();
+        Validate.isTrue(maxInFlight > 0, "The maximum number of requests in flight must be positive");
+        Validate.isTrue(maxQueued >= 0, "The maximum number of queued requests cannot be negative");
+        Validate.isTrue(
+                queueTimeout == null || !queueTimeout.isNegative(),
+                "The queue timeout cannot be negative");
+        this.maxInFlight = maxInFlight;
+        this.maxQueued = maxQueued;
+        this.queueTimeout = queueTimeout;
+        this.timer = Validate.notNull(timer, "Timer is required");
+    }
+
+    /**
+     * Returns the maximum number of requests in flight.
+     * 
+     * @return The maximum number of requests in flight.
+     */
+    public int getMaxInFlight() {
+        return this.maxInFlight;
+    }
+
+    /**
+     * Returns the maximum number of requests waiting in queue.
+     * 
+     * @return The maximum number of requests waiting in queue.
+     */
+    public int getMaxQueued() {
+        return this.maxQueued;
+    }
+
+    /**
+     * Returns the maximum time requests wait in queue.
+     * 
+     * @return The maximum time requests wait in queue, or {@code null}
+     * if requests wait indefinitely.
+     */
+    public Duration getQueueTimeout() {
+        return this.queueTimeout;
+    }
+
+    /**
+     * Returns the current number of requests in flight.
+     * 
+     * @return The number of requests in flight.
+     */
+    public int getInFlight() {
+        this.lock.lock();
+        try {
+            return this.inFlight;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the current number of requests waiting in queue.
+     * 
+     * @return The number of requests waiting in queue.
+     */
+    public int getQueueDepth() {
+        this.lock.lock();
+        try {
+            return this.queue.size();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the total number of requests rejected because the queue
+     * was full.
+     * 
+     * @return The number of requests rejected because the queue was full.
+     */
+    public long getRejectedCount() {
+        return this.rejectedCount.get();
+    }
+
+    /**
+     * Returns the total number of requests rejected because the queue
+     * timeout expired.
+     * 
+     * @return The number of requests rejected because the queue
+     * timeout expired.
+     */
+    public long getExpiredCount() {
+        return this.expiredCount.get();
+    }
+
+    /**
+     * Submits the specified request for execution.
+     * <p>
+     * The request is started immediately if the in flight limit has not
+     * been reached. Otherwise waits in queue until a previous request
+     * completes. If the queue is full, the queue timeout expires or this
+     * instance is closed the returned {@code CompletionStage} completes
+     * exceptionally with {@code HttpRequestRejectedException} and the
+     * request is never started.
+     * <p>
+     * Cancelling the returned future removes the request from the queue
+     * if not started yet, or cancels the started request otherwise.
+     * 
+     * @param <T> The request result type.
+     * @param request The request starting function.
+     * @return The request result.
+     */
+    public <T> @NotNull CompletionStage<T> submit(
+            final @NotNull Supplier<? extends CompletionStage<T>> request) {
+        Validate.notNull(request);
+        final CompletableFuture<Void> permit = acquire();
+        final AtomicBoolean claimed = new AtomicBoolean();
+        final AtomicReference<CompletionStage<T>> started = new AtomicReference<>();
+        final CompletableFuture<T> result = permit.thenCompose(nop -> {
+            if (!claimed.compareAndSet(false, true)) {
+                return FutureUtils.completableFailure(new CancellationException());
+            }
+            final CompletionStage<T> stage;
+            try {
+                stage = Validate.notNull(request.get());
+            } catch (final RuntimeException e) {
+                release();
+                throw e;
+            }
+            started.set(stage);
+            return stage.whenComplete((value, error) -> release());
+        });
+        result.whenComplete((value, error) -> {
+            permit.cancel(false);
+            if (!permit.isCompletedExceptionally() && claimed.compareAndSet(false, true)) {
+                // Permit granted but request not started
+                release();
+            }
+            final CompletionStage<T> stage = started.get();
+            if (stage != null) {
+                stage.toCompletableFuture().cancel(true);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Acquires a request execution permit.
+     * 
+     * @return A {@code CompletionStage} completed when the permit is
+     * acquired.
+     */
+    protected @NotNull CompletableFuture<Void> acquire() {
+        final CompletableFuture<Void> waiter;
+        this.lock.lock();
+        try {
+            if (this.closed) {
+                return FutureUtils.<Void>completableFailure(new HttpRequestRejectedException(
+                        "Admission control closed")).toCompletableFuture();
+            }
+            if (this.inFlight < this.maxInFlight) {
+                this.inFlight++;
+                return CompletableFuture.completedFuture(null);
+            }
+            if (this.queue.size() >= this.maxQueued) {
+                this.rejectedCount.incrementAndGet();
+                return FutureUtils.<Void>completableFailure(new HttpRequestRejectedException(
+                        String.format(
+                                "Request rejected with %d requests in flight and %d requests queued",
+                                this.inFlight,
+                                this.queue.size()))).toCompletableFuture();
+            }
+            waiter = new CompletableFuture<>();
+            this.queue.addLast(waiter);
+        } finally {
+            this.lock.unlock();
+        }
+        waiter.whenComplete((nop, error) -> {
+            if (waiter.isCancelled()) {
+                remove(waiter);
+            }
+        });
+        if (this.queueTimeout == null) {
+            return waiter;
+        }
+        final HashedWheelTimer.Timeout timeout = this.timer.schedule(
+                () -> expire(waiter),
+                this.queueTimeout);
+        waiter.whenComplete((nop, error) -> timeout.cancel());
+        return waiter;
+    }
+
+    /**
+     * Releases a request execution permit, passing it to the next
+     * request waiting in queue, if any.
+     */
+    protected void release() {
+        while (true) {
+            final CompletableFuture<Void> next;
+            this.lock.lock();
+            try {
+                next = this.queue.pollFirst();
+                if (next == null) {
+                    this.inFlight--;
+                    return;
+                }
+            } finally {
+                this.lock.unlock();
+            }
+            if (next.complete(null)) {
+                return;
+            }
+            // Waiter already completed, pass the permit to the next one
+        }
+    }
+
+    /**
+     * Rejects the specified queued request after the queue timeout
+     * expiration.
+     * 
+     * @param waiter The queued request.
+     */
+    protected void expire(
+            final @NotNull CompletableFuture<Void> waiter) {
+        if (remove(waiter)) {
+            this.expiredCount.incrementAndGet();
+            waiter.completeExceptionally(new HttpRequestRejectedException(
+                    String.format(
+                            "Request rejected after waiting in queue for %s",
+                            this.queueTimeout)));
+        }
+    }
+
+    /**
+     * Removes the specified request from the queue.
+     * 
+     * @param waiter The queued request.
+     * @return If the request was in the queue.
+     */
+    protected boolean remove(
+            final @NotNull CompletableFuture<Void> waiter) {
+        this.lock.lock();
+        try {
+            return this.queue.remove(waiter);
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Rejects all the queued requests and any further request. Requests
+     * in flight are not affected.
+     */
+    @Override
+    public void close() {
+        final List<CompletableFuture<Void>> waiters;
+        this.lock.lock();
+        try {
+            this.closed = true;
+            waiters = new ArrayList<>(this.queue);
+            this.queue.clear();
+        } finally {
+            this.lock.unlock();
+        }
+        for (final CompletableFuture<Void> waiter : waiters) {
+            waiter.completeExceptionally(new HttpRequestRejectedException(
+                    "Admission control closed"));
+        }
+    }
+}
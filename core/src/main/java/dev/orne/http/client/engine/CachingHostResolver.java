@@ -0,0 +1,561 @@
+package dev.orne.http.client.engine;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Host resolver that caches the addresses resolved by a delegated
+ * resolver in memory, regardless of the JVM name service cache settings.
+ * <p>
+ * Resolved addresses are cached for the time to live configured in the
+ * {@code DnsCachePolicy}. Hosts with enough hits in the current time to
+ * live period are resolved again in background before expiration, while
+ * the cached addresses keep being served, so connection churn to popular
+ * hosts never blocks on name resolution. Resolution failures can be
+ * cached too, to avoid repeated slow lookups of unknown hosts.
+ * <p>
+ * The addresses of hosts with multiple addresses are rotated on each
+ * resolution, so new connections are distributed among them in round
+ * robin.
+ * <p>
+ * Static host overrides can be registered with
+ * {@link #setHostOverride(String, InetAddress...)}, taking precedence
+ * over the cache and the delegated resolver. Useful for tests and for
+ * pinning hosts to known addresses.
+ * 
+ * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see DnsCachePolicy
+ */
+public class CachingHostResolver
+implements HostResolver, AutoCloseable {
+
+    /** The delegated resolver. */
+    private final @NotNull HostResolver delegate;
+    /** The cache configuration. */
+    private final @NotNull DnsCachePolicy policy;
+    /** The executor of the background refreshes. */
+    private final @NotNull Executor executor;
+    /** The executor created by this instance, if any. */
+    private final ExecutorService ownedExecutor;
+    /** The monotonic clock, in nanoseconds. */
+    private final @NotNull LongSupplier clock;
+    /** The cached entries, by lower case host name. */
+    private final @NotNull ConcurrentMap<String, Entry> cache = new ConcurrentHashMap<>();
+    /** The static host overrides, by lower case host name. */
+    private final @NotNull ConcurrentMap<String, Entry> overrides = new ConcurrentHashMap<>();
+    /** The number of resolutions served from the cache. */
+    private final @NotNull AtomicLong hitCount = new AtomicLong();
+    /** The number of resolutions delegated to the resolver. */
+    private final @NotNull AtomicLong missCount = new AtomicLong();
+    /** The number of successful background refreshes. */
+    private final @NotNull AtomicLong refreshCount = new AtomicLong();
+    /** If this resolver has been closed. */
+    private volatile boolean closed;
+
+    /**
+     * Creates a new instance with the default configuration over the
+     * system name service.
+     */
+    public CachingHostResolver() {
+        this(new DnsCachePolicy());
+    }
+
+    /**
+     * Creates a new instance with the specified configuration over the
+     * system name service.
+     * 
+     * @param policy The cache configuration.
+     */
+    public CachingHostResolver(
+            final @NotNull DnsCachePolicy policy) {
+        this(policy, HostResolver.SYSTEM);
+    }
+
+    /**
+     * Creates a new instance with the specified configuration over the
+     * specified resolver.
+     * <p>
+     * Background refreshes are executed in a daemon thread created by
+     * this instance, stopped when this resolver is closed.
+     * 
+     * @param policy The cache configuration.
+     * @param delegate The delegated resolver.
+     */
+    public CachingHostResolver(
+            final @NotNull DnsCachePolicy policy,
+            final @NotNull HostResolver delegate) {
+        this(policy, delegate, null, System::nanoTime);
+    }
+
+    /**
+     * Creates a new instance with the specified configuration over the
+     * specified resolver.
+     * <p>
+     * The specified executor is not shut down when this resolver
+     * is closed.
+     * 
+     * @param policy The cache configuration.
+     * @param delegate The delegated resolver.
+     * @param executor The executor of the background refreshes.
+     */
+    public CachingHostResolver(
+            final @NotNull DnsCachePolicy policy,
+            final @NotNull HostResolver delegate,
+            final @NotNull Executor executor) {
+        this(policy, delegate,
+                Validate.notNull(executor, "Executor is required"),
+                System::nanoTime);
+    }
+
+    /**
+     * Creates a new instance with the specified configuration over the
+     * specified resolver and clock.
+     * 
+     * @param policy The cache configuration.
+     * @param delegate The delegated resolver.
+     * @param executor The executor of the background refreshes, or
+     * {@code null} to create a daemon thread executor.
+     * @param clock The monotonic clock, in nanoseconds.
+     */
+    CachingHostResolver(
+            final @NotNull DnsCachePolicy policy,
+            final @NotNull HostResolver delegate,
+            final Executor executor,
+            final @NotNull LongSupplier clock) {
+        super();
+        Validate.notNull(policy, "Cache policy is required");
+        Validate.notNull(delegate, "Delegated resolver is required");
+        Validate.notNull(clock, "Clock is required");
+        this.policy = new DnsCachePolicy(policy);
+        this.delegate = delegate;
+        if (executor == null) {
+            this.ownedExecutor = Executors.newSingleThreadExecutor(task -> {
+                final Thread thread = new Thread(task, "http-client-dns");
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.executor = this.ownedExecutor;
+        } else {
+            this.ownedExecutor = null;
+            this.executor = executor;
+        }
+        this.clock = clock;
+    }
+
+    /**
+     * Returns a copy of the cache configuration.
+     * 
+     * @return The cache configuration.
+     */
+    public @NotNull DnsCachePolicy getPolicy() {
+        return new DnsCachePolicy(this.policy);
+    }
+
+    /**
+     * Returns the delegated resolver.
+     * 
+     * @return The delegated resolver.
+     */
+    public @NotNull HostResolver getDelegate() {
+        return this.delegate;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The addresses of the host override or the cached entry are
+     * returned if available, rotated for round robin distribution.
+     * Otherwise the host is resolved with the delegated resolver and
+     * cached.
+     */
+    @Override
+    public @NotNull InetAddress[] resolve(
+            final @NotNull String host)
+    throws UnknownHostException {
+        Validate.notNull(host, "Host is required");
+        final String key = host.toLowerCase(Locale.ROOT);
+        final Entry override = this.overrides.get(key);
+        if (override != null) {
+            return override.next();
+        }
+        final long now = this.clock.getAsLong();
+        final Entry entry = this.cache.get(key);
+        if (entry != null && now - entry.expiresAt < 0) {
+            this.hitCount.incrementAndGet();
+            final int hits = entry.hits.incrementAndGet();
+            if (entry.addresses != null
+                    && now - entry.refreshAt >= 0
+                    && hits >= this.policy.getRefreshMinHits()
+                    && entry.refreshing.compareAndSet(false, true)) {
+                scheduleRefresh(key, host, entry);
+            }
+            return entry.next();
+        }
+        this.missCount.incrementAndGet();
+        return lookup(key, host, now).next();
+    }
+
+    /**
+     * Resolves the specified host with the delegated resolver and caches
+     * the result.
+     * 
+     * @param key The cache key.
+     * @param host The host name.
+     * @param now The current time, in nanoseconds.
+     * @return The new cache entry.
+     * @throws UnknownHostException If the host cannot be resolved and
+     * resolution failures are not cached.
+     */
+    private @NotNull Entry lookup(
+            final @NotNull String key,
+            final @NotNull String host,
+            final long now)
+    throws UnknownHostException {
+        Entry entry;
+        try {
+            entry = createEntry(delegateResolve(host), now);
+        } catch (final UnknownHostException e) {
+            final long negativeTtl = this.policy.getNegativeTtl().toNanos();
+            if (negativeTtl == 0) {
+                this.cache.remove(key);
+                throw e;
+            }
+            entry = new Entry(null, e.getMessage(), now + negativeTtl, now + negativeTtl);
+        }
+        store(key, entry, now);
+        return entry;
+    }
+
+    /**
+     * Resolves the specified host with the delegated resolver.
+     * 
+     * @param host The host name.
+     * @return The resolved addresses, never empty.
+     * @throws UnknownHostException If the host cannot be resolved.
+     */
+    private @NotNull InetAddress[] delegateResolve(
+            final @NotNull String host)
+    throws UnknownHostException {
+        final InetAddress[] addresses = this.delegate.resolve(host);
+        if (addresses == null || addresses.length == 0) {
+            throw new UnknownHostException(host);
+        }
+        return addresses.clone();
+    }
+
+    /**
+     * Creates a new cache entry for the specified resolved addresses.
+     * 
+     * @param addresses The resolved addresses.
+     * @param now The current time, in nanoseconds.
+     * @return The new cache entry.
+     */
+    private @NotNull Entry createEntry(
+            final @NotNull InetAddress[] addresses,
+            final long now) {
+        final long ttl = this.policy.getTtl().toNanos();
+        final long refreshAfter = (long) (ttl * this.policy.getRefreshRatio());
+        return new Entry(addresses, null, now + ttl, now + refreshAfter);
+    }
+
+    /**
+     * Stores the specified entry in the cache, evicting entries if
+     * the cache is full.
+     * 
+     * @param key The cache key.
+     * @param entry The cache entry.
+     * @param now The current time, in nanoseconds.
+     */
+    private void store(
+            final @NotNull String key,
+            final @NotNull Entry entry,
+            final long now) {
+        if (!this.cache.containsKey(key)
+                && this.cache.size() >= this.policy.getMaxEntries()) {
+            evict(now);
+        }
+        this.cache.put(key, entry);
+    }
+
+    /**
+     * Evicts the expired entries of the cache. If none is expired,
+     * the entry with less hits is evicted.
+     * 
+     * @param now The current time, in nanoseconds.
+     */
+    private void evict(
+            final long now) {
+        boolean evicted = false;
+        String leastUsed = null;
+        int leastHits = Integer.MAX_VALUE;
+        final Iterator<Map.Entry<String, Entry>> it = this.cache.entrySet().iterator();
+        while (it.hasNext()) {
+            final Map.Entry<String, Entry> mapEntry = it.next();
+            final Entry entry = mapEntry.getValue();
+            if (now - entry.expiresAt >= 0) {
+                it.remove();
+                evicted = true;
+            } else if (entry.hits.get() < leastHits) {
+                leastHits = entry.hits.get();
+                leastUsed = mapEntry.getKey();
+            }
+        }
+        if (!evicted && leastUsed != null) {
+            this.cache.remove(leastUsed);
+        }
+    }
+
+    /**
+     * Schedules the background refresh of the specified cache entry.
+     * 
+     * @param key The cache key.
+     * @param host The host name.
+     * @param entry The cache entry to refresh.
+     */
+    protected void scheduleRefresh(
+            final @NotNull String key,
+            final @NotNull String host,
+            final @NotNull Entry entry) {
+        if (this.closed) {
+            return;
+        }
+        try {
+            this.executor.execute(() -> refresh(key, host, entry));
+        } catch (final RejectedExecutionException e) {
+            entry.refreshing.set(false);
+        }
+    }
+
+    /**
+     * Resolves again the specified host and replaces the cache entry.
+     * <p>
+     * If the resolution fails the current entry is kept until its
+     * expiration, after which the host is resolved on demand.
+     * 
+     * @param key The cache key.
+     * @param host The host name.
+     * @param entry The cache entry to refresh.
+     */
+    void refresh(
+            final @NotNull String key,
+            final @NotNull String host,
+            final @NotNull Entry entry) {
+        try {
+            final InetAddress[] addresses = delegateResolve(host);
+            if (this.cache.replace(key, entry, createEntry(addresses, this.clock.getAsLong()))) {
+                this.refreshCount.incrementAndGet();
+            }
+        } catch (final UnknownHostException | RuntimeException e) {
+            // Keep serving the current addresses until expiration
+        }
+    }
+
+    /**
+     * Sets the static addresses of the specified host, taking precedence
+     * over the cache and the delegated resolver.
+     * 
+     * @param host The host name.
+     * @param addresses The addresses of the host.
+     */
+    public void setHostOverride(
+            final @NotNull String host,
+            final @NotNull InetAddress... addresses) {
+        Validate.notNull(host, "Host is required");
+        Validate.notEmpty(addresses, "At least one address is required");
+        Validate.noNullElements(addresses, "Addresses cannot be null");
+        this.overrides.put(
+                host.toLowerCase(Locale.ROOT),
+                new Entry(addresses.clone(), null, Long.MAX_VALUE, Long.MAX_VALUE));
+    }
+
+    /**
+     * Removes the static addresses of the specified host, if any.
+     * 
+     * @param host The host name.
+     */
+    public void removeHostOverride(
+            final @NotNull String host) {
+        Validate.notNull(host, "Host is required");
+        this.overrides.remove(host.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Removes the cached entry of the specified host, if any.
+     * 
+     * @param host The host name.
+     */
+    public void invalidate(
+            final @NotNull String host) {
+        Validate.notNull(host, "Host is required");
+        this.cache.remove(host.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Removes all the cached entries. Host overrides are kept.
+     */
+    public void invalidateAll() {
+        this.cache.clear();
+    }
+
+    /**
+     * Returns the number of cached hosts, including expired entries
+     * pending of eviction.
+     * 
+     * @return The number of cached hosts.
+     */
+    public int getCacheSize() {
+        return this.cache.size();
+    }
+
+    /**
+     * Returns the number of resolutions served from the cache.
+     * 
+     * @return The number of cache hits.
+     */
+    public long getHitCount() {
+        return this.hitCount.get();
+    }
+
+    /**
+     * Returns the number of resolutions delegated to the resolver
+     * on demand.
+     * 
+     * @return The number of cache misses.
+     */
+    public long getMissCount() {
+        return this.missCount.get();
+    }
+
+    /**
+     * Returns the number of successful background refreshes.
+     * 
+     * @return The number of background refreshes.
+     */
+    public long getRefreshCount() {
+        return this.refreshCount.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Stops the background refreshes and clears the cache. Resolutions
+     * after close are delegated on demand.
+     */
+    @Override
+    public void close() {
+        this.closed = true;
+        if (this.ownedExecutor != null) {
+            this.ownedExecutor.shutdownNow();
+        }
+        this.cache.clear();
+    }
+
+    /**
+     * Cached resolution of a host.
+     * 
+     * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
+     * @version 1.0, 2023-10
+     * @since CachingHostResolver 1.0
+     */
+    protected static final class Entry {
+
+        /** The resolved addresses, or {@code null} on resolution failure. */
+        private final InetAddress[] addresses;
+        /** The resolution failure message. */
+        private final String failure;
+        /** The expiration time, in nanoseconds. */
+        private final long expiresAt;
+        /** The time after which the entry is refreshed, in nanoseconds. */
+        private final long refreshAt;
+        /** The round robin cursor. */
+        private final @NotNull AtomicInteger cursor = new AtomicInteger();
+        /** The number of hits. */
+        private final @NotNull AtomicInteger hits = new AtomicInteger();
+        /** If a background refresh has been scheduled. */
+        private final @NotNull AtomicBoolean refreshing = new AtomicBoolean();
+
+        /**
+         * Creates a new instance.
+         * 
+         * @param addresses The resolved addresses, or {@code null} on
+         * resolution failure.
+         * @param failure The resolution failure message.
+         * @param expiresAt The expiration time, in nanoseconds.
+         * @param refreshAt The time after which the entry is refreshed,
+         * in nanoseconds.
+         */
+        Entry(
+                final InetAddress[] addresses,
+                final String failure,
+                final long expiresAt,
+                final long refreshAt) {
+            super();
+            this.addresses = addresses;
+            this.failure = failure;
+            this.expiresAt = expiresAt;
+            this.refreshAt = refreshAt;
+        }
+
+        /**
+         * Returns the addresses rotated for the next resolution.
+         * 
+         * @return The rotated addresses.
+         * @throws UnknownHostException If the entry caches a resolution
+         * failure.
+         */
+        @NotNull InetAddress[] next()
+        throws UnknownHostException {
+            if (this.addresses == null) {
+                throw new UnknownHostException(this.failure);
+            }
+            final int count = this.addresses.length;
+            final InetAddress[] result = new InetAddress[count];
+            final int start = Math.floorMod(this.cursor.getAndIncrement(), count);
+            for (int i = 0; i < count; i++) {
+                result[i] = this.addresses[(start + i) % count];
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,535 @@
+package dev.orne.http.client.engine;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Circuit breaker of the calls to a single target.
+ * <p>
+ * The circuit starts closed, recording the outcome of the calls in a
+ * count based sliding window. When the failure rate or the slow call
+ * rate of the window reaches its threshold the circuit is opened, and
+ * calls are rejected until the open duration expires. Then the circuit
+ * is half open and a limited number of probe calls is allowed. If all
+ * the probe calls succeed the circuit is closed again, while the first
+ * failed probe call opens the circuit again.
+ * <p>
+ * The state transitions and the sliding window are lock-free. Each state
+ * is an immutable phase replaced atomically, and the outcomes of calls
+ * permitted in a previous phase are ignored.
+ * 
+ * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see CircuitBreakerConfig
+ */
+public class CircuitBreaker {
+
+    /** The circuit breaker configuration. */
+    private final @NotNull CircuitBreakerConfig config;
+    /** The monotonic clock, in nanoseconds. */
+    private final @NotNull LongSupplier clock;
+    /** The time circuits stay open, in nanoseconds. */
+    private final long openNanos;
+    /** The slow call duration threshold, in nanoseconds. */
+    private final long slowCallNanos;
+    /** The current phase. */
+    private final AtomicReference<Phase> phase;
+    /** The number of calls rejected. */
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    /**
+     * Creates a new closed circuit breaker.
+     * 
+     * @param config The circuit breaker configuration.
+     */
+    public CircuitBreaker(
+            final @NotNull CircuitBreakerConfig config) {
+        this(config, System::nanoTime);
+    }
+
+    /**
+     * Creates a new closed circuit breaker.
+     * 
+     * @param config The circuit breaker configuration.
+     * @param clock The monotonic clock, in nanoseconds.
+     */
+    CircuitBreaker(
+            final @NotNull CircuitBreakerConfig config,
+            final @NotNull LongSupplier clock) {
+        super();
+        this.config = new CircuitBreakerConfig(Validate.notNull(config, "Configuration is required"));
+        this.clock = Validate.notNull(clock, "Clock is required");
+        this.openNanos = toNanos(this.config.getOpenDuration());
+        this.slowCallNanos = toNanos(this.config.getSlowCallDuration());
+        this.phase = new AtomicReference<>(closed());
+    }
+
+    /**
+     * Returns a copy of the circuit breaker configuration.
+     * 
+     * @return The circuit breaker configuration.
+     */
+    public @NotNull CircuitBreakerConfig getConfig() {
+        return new CircuitBreakerConfig(this.config);
+    }
+
+    /**
+     * Returns the current state of the circuit.
+     * <p>
+     * Open circuits are transitioned to half open state by the first call
+     * attempted after the open duration expires.
+     * 
+     * @return The current state of the circuit.
+     */
+    public @NotNull State getState() {
+        return this.phase.get().state;
+    }
+
+    /**
+     * Returns the failure rate of the sliding window of the closed circuit.
+     * 
+     * @return The failure rate, or zero if the circuit is not closed or no
+     * call has been recorded.
+     */
+    public double getFailureRate() {
+        final Window window = this.phase.get().window;
+        return window == null ? 0 : window.getFailureRate();
+    }
+
+    /**
+     * Returns the slow call rate of the sliding window of the closed
+     * circuit.
+     * 
+     * @return The slow call rate, or zero if the circuit is not closed or
+     * no call has been recorded.
+     */
+    public double getSlowCallRate() {
+        final Window window = this.phase.get().window;
+        return window == null ? 0 : window.getSlowCallRate();
+    }
+
+    /**
+     * Returns the total number of calls rejected.
+     * 
+     * @return The number of calls rejected.
+     */
+    public long getRejectedCount() {
+        return this.rejectedCount.get();
+    }
+
+    /**
+     * Tries to acquire the permission to perform a call.
+     * <p>
+     * The outcome of the call must be recorded in the returned permit,
+     * or the permit released if the call is not performed or its outcome
+     * is not relevant.
+     * 
+     * @return The call permit, or {@code null} if the circuit is open.
+     */
+    public Permit tryAcquire() {
+        while (true) {
+            final Phase current = this.phase.get();
+            final long now = this.clock.getAsLong();
+            switch (current.state) {
+                case CLOSED:
+                    return new Permit(current, now);
+                case OPEN:
+                    if (now - current.since < this.openNanos) {
+                        this.rejectedCount.incrementAndGet();
+                        return null;
+                    }
+                    this.phase.compareAndSet(current, halfOpen(now));
+                    break;
+                case HALF_OPEN:
+                default:
+                    if (current.acquireProbe()) {
+                        return new Permit(current, now);
+                    }
+                    this.rejectedCount.incrementAndGet();
+                    return null;
+            }
+        }
+    }
+
+    /**
+     * Records the outcome of a call permitted in the specified phase.
+     * 
+     * @param permitted The phase the call was permitted in.
+     * @param failure If the call failed.
+     * @param durationNanos The call duration, in nanoseconds.
+     */
+    private void record(
+            final @NotNull Phase permitted,
+            final boolean failure,
+            final long durationNanos) {
+        if (this.phase.get() != permitted) {
+            return;
+        }
+        final boolean slow = durationNanos >= this.slowCallNanos;
+        if (permitted.state == State.CLOSED) {
+            permitted.window.record(failure, slow);
+            if (permitted.window.isTripped()) {
+                this.phase.compareAndSet(permitted, open());
+            }
+        } else if (failure) {
+            this.phase.compareAndSet(permitted, open());
+        } else if (permitted.probeSucceeded()) {
+            this.phase.compareAndSet(permitted, closed());
+        }
+    }
+
+    /**
+     * Creates a new closed phase.
+     * 
+     * @return The new phase.
+     */
+    private @NotNull Phase closed() {
+        return new Phase(
+                State.CLOSED,
+                this.clock.getAsLong(),
+                new Window(this.config),
+                0);
+    }
+
+    /**
+     * Creates a new open phase.
+     * 
+     * @return The new phase.
+     */
+    private @NotNull Phase open() {
+        return new Phase(State.OPEN, this.clock.getAsLong(), null, 0);
+    }
+
+    /**
+     * Creates a new half open phase.
+     * 
+     * @param now The current time, in nanoseconds.
+     * @return The new phase.
+     */
+    private @NotNull Phase halfOpen(
+            final long now) {
+        return new Phase(State.HALF_OPEN, now, null, this.config.getHalfOpenProbes());
+    }
+
+    /**
+     * Converts the specified duration to nanoseconds, saturating on
+     * overflow.
+     * 
+     * @param duration The duration.
+     * @return The duration in nanoseconds.
+     */
+    private static long toNanos(
+            final @NotNull Duration duration) {
+        try {
+            return duration.toNanos();
+        } catch (final ArithmeticException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    /**
+     * Circuit states.
+     * 
+     * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
+     * @version 1.0, 2023-10
+     * @since CircuitBreaker 1.0
+     */
+    public enum State {
+        /** Calls are permitted and their outcome recorded. */
+        CLOSED,
+        /** Calls are rejected. */
+        OPEN,
+        /** A limited number of probe calls are permitted. */
+        HALF_OPEN
+    }
+
+    /**
+     * Permission to perform a call.
+     * <p>
+     * Only the first outcome recorded, or release, of each permit has
+     * effect.
+     * 
+     * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
+     * @version 1.0, 2023-10
+     * @since CircuitBreaker 1.0
+     */
+    public final class Permit {
+
+        /** The phase the call was permitted in. */
+        private final @NotNull Phase permitted;
+        /** The call start time, in nanoseconds. */
+        private final long start;
+        /** If the permit has been used. */
+        private final AtomicBoolean used = new AtomicBoolean();
+
+        /**
+         * Creates a new instance.
+         * 
+         * @param permitted The phase the call was permitted in.
+         * @param start The call start time, in nanoseconds.
+         */
+        private Permit(
+                final @NotNull Phase permitted,
+                final long start) {
+            super();
+            this.permitted = permitted;
+            this.start = start;
+        }
+
+        /**
+         * Records the successful completion of the call.
+         */
+        public void recordSuccess() {
+            if (this.used.compareAndSet(false, true)) {
+                record(this.permitted, false, CircuitBreaker.this.clock.getAsLong() - this.start);
+            }
+        }
+
+        /**
+         * Records the failure of the call.
+         */
+        public void recordFailure() {
+            if (this.used.compareAndSet(false, true)) {
+                record(this.permitted, true, CircuitBreaker.this.clock.getAsLong() - this.start);
+            }
+        }
+
+        /**
+         * Releases the permit without recording any outcome.
+         */
+        public void release() {
+            if (this.used.compareAndSet(false, true)) {
+                this.permitted.releaseProbe();
+            }
+        }
+    }
+
+    /**
+     * Immutable state of the circuit, with its mutable counters.
+     * 
+     * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
+     * @version 1.0, 2023-10
+     * @since CircuitBreaker 1.0
+     */
+    private static final class Phase {
+
+        /** The circuit state. */
+        private final @NotNull State state;
+        /** The phase start time, in nanoseconds. */
+        private final long since;
+        /** The sliding window of closed state. */
+        private final Window window;
+        /** The remaining probe calls of half open state. */
+        private final AtomicInteger probes;
+        /** The probe calls pending to succeed in half open state. */
+        private final AtomicInteger pendingSuccesses;
+
+        /**
+         * Creates a new instance.
+         * 
+         * @param state The circuit state.
+         * @param since The phase start time, in nanoseconds.
+         * @param window The sliding window of closed state.
+         * @param probes The probe calls of half open state.
+         */
+        private Phase(
+                final @NotNull State state,
+                final long since,
+                final Window window,
+                final int probes) {
+            super();
+            this.state = state;
+            this.since = since;
+            this.window = window;
+            this.probes = new AtomicInteger(probes);
+            this.pendingSuccesses = new AtomicInteger(probes);
+        }
+
+        /**
+         * Tries to acquire a probe call.
+         * 
+         * @return If a probe call has been acquired.
+         */
+        private boolean acquireProbe() {
+            int current;
+            do {
+                current = this.probes.get();
+                if (current <= 0) {
+                    return false;
+                }
+            } while (!this.probes.compareAndSet(current, current - 1));
+            return true;
+        }
+
+        /**
+         * Releases a probe call acquired in half open state.
+         */
+        private void releaseProbe() {
+            if (this.state == State.HALF_OPEN) {
+                this.probes.incrementAndGet();
+            }
+        }
+
+        /**
+         * Records a successful probe call.
+         * 
+         * @return If all the probe calls have succeeded.
+         */
+        private boolean probeSucceeded() {
+            return this.pendingSuccesses.decrementAndGet() == 0;
+        }
+    }
+
+    /**
+     * Lock-free count based sliding window of call outcomes.
+     * <p>
+     * Each call overwrites the outcome of the oldest call in a ring
+     * buffer, updating the window counters with the difference.
+     * 
+     * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
+     * @version 1.0, 2023-10
+     * @since CircuitBreaker 1.0
+     */
+    private static final class Window {
+
+        /** The flag of recorded outcomes. */
+        private static final int RECORDED = 1;
+        /** The flag of failed calls. */
+        private static final int FAILED = 2;
+        /** The flag of slow calls. */
+        private static final int SLOW = 4;
+
+        /** The outcomes ring buffer. */
+        private final AtomicIntegerArray outcomes;
+        /** The next ring buffer position. */
+        private final AtomicLong cursor = new AtomicLong();
+        /** The number of calls in the window. */
+        private final AtomicInteger calls = new AtomicInteger();
+        /** The number of failed calls in the window. */
+        private final AtomicInteger failures = new AtomicInteger();
+        /** The number of slow calls in the window. */
+        private final AtomicInteger slowCalls = new AtomicInteger();
+        /** The minimum number of calls to trip the circuit. */
+        private final int minimumCalls;
+        /** The failure rate threshold. */
+        private final double failureRateThreshold;
+        /** The slow call rate threshold. */
+        private final double slowCallRateThreshold;
+
+        /**
+         * Creates a new instance.
+         * 
+         * @param config The circuit breaker configuration.
+         */
+        private Window(
+                final @NotNull CircuitBreakerConfig config) {
+            super();
+            this.outcomes = new AtomicIntegerArray(config.getSlidingWindowSize());
+            this.minimumCalls = Math.min(config.getMinimumCalls(), config.getSlidingWindowSize());
+            this.failureRateThreshold = config.getFailureRateThreshold();
+            this.slowCallRateThreshold = config.getSlowCallRateThreshold();
+        }
+
+        /**
+         * Records the outcome of a call.
+         * 
+         * @param failure If the call failed.
+         * @param slow If the call was slow.
+         */
+        private void record(
+                final boolean failure,
+                final boolean slow) {
+            final int outcome = RECORDED | (failure ? FAILED : 0) | (slow ? SLOW : 0);
+            final int index = (int) (this.cursor.getAndIncrement() % this.outcomes.length());
+            final int previous = this.outcomes.getAndSet(index, outcome);
+            if ((previous & RECORDED) == 0) {
+                this.calls.incrementAndGet();
+            }
+            final int failureDelta = flag(outcome, FAILED) - flag(previous, FAILED);
+            if (failureDelta != 0) {
+                this.failures.addAndGet(failureDelta);
+            }
+            final int slowDelta = flag(outcome, SLOW) - flag(previous, SLOW);
+            if (slowDelta != 0) {
+                this.slowCalls.addAndGet(slowDelta);
+            }
+        }
+
+        /**
+         * Returns {@code 1} if the specified flag is set in the specified
+         * outcome, {@code 0} otherwise.
+         * 
+         * @param outcome The call outcome.
+         * @param flag The flag.
+         * @return The flag value.
+         */
+        private static int flag(
+                final int outcome,
+                final int flag) {
+            return (outcome & flag) == 0 ? 0 : 1;
+        }
+
+        /**
+         * Returns the failure rate of the window.
+         * 
+         * @return The failure rate.
+         */
+        private double getFailureRate() {
+            final int total = this.calls.get();
+            return total == 0 ? 0 : (double) this.failures.get() / total;
+        }
+
+        /**
+         * Returns the slow call rate of the window.
+         * 
+         * @return The slow call rate.
+         */
+        private double getSlowCallRate() {
+            final int total = this.calls.get();
+            return total == 0 ? 0 : (double) this.slowCalls.get() / total;
+        }
+
+        /**
+         * Returns {@code true} if the window rates must open the circuit.
+         * 
+         * @return If the circuit must be opened.
+         */
+        private boolean isTripped() {
+            return this.calls.get() >= this.minimumCalls
+                    && (getFailureRate() >= this.failureRateThreshold
+                            || getSlowCallRate() >= this.slowCallRateThreshold);
+        }
+    }
+}
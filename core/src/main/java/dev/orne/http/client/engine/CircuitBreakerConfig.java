@@ -0,0 +1,355 @@
+package dev.orne.http.client.engine;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.lang3.Validate;
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+import dev.orne.http.StatusCodes;
+
+/**
+ * Configuration of the circuit breakers of
+ * {@code CircuitBreakingHttpClientEngine}.
+ * <p>
+ * By default circuits are opened when at least half of the last 100 calls
+ * to a host failed, with a minimum of 10 calls, or when all of them took
+ * 5 seconds or more. Open circuits reject calls for 30 seconds and then
+ * allow 3 probe calls to decide if the circuit is closed again.
+ * 
+ * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see CircuitBreaker
+ * @see CircuitBreakingHttpClientEngine
+ */
+public class CircuitBreakerConfig {
+
+    /** The default failure rate threshold. */
+    public static final double DEFAULT_FAILURE_RATE_THRESHOLD = 0.5;
+    /** The default slow call rate threshold. */
+    public static final double DEFAULT_SLOW_CALL_RATE_THRESHOLD = 1.0;
+    /** The default slow call duration threshold. */
+    public static final Duration DEFAULT_SLOW_CALL_DURATION = Duration.ofSeconds(5);
+    /** The default sliding window size, in calls. */
+    public static final int DEFAULT_SLIDING_WINDOW_SIZE = 100;
+    /** The default minimum number of calls to calculate the rates. */
+    public static final int DEFAULT_MINIMUM_CALLS = 10;
+    /** The default time circuits stay open. */
+    public static final Duration DEFAULT_OPEN_DURATION = Duration.ofSeconds(30);
+    /** The default number of probe calls in half open state. */
+    public static final int DEFAULT_HALF_OPEN_PROBES = 3;
+    /** The default response status codes recorded as failures. */
+    public static final Set<Integer> DEFAULT_FAILURE_STATUS_CODES =
+            Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+                    StatusCodes.INTERNAL_SERVER_ERROR,
+                    StatusCodes.BAD_GATEWAY,
+                    StatusCodes.SERVICE_UNAVAILABLE,
+                    StatusCodes.GATEWAY_TIMEOUT)));
+
+    /** The failure rate threshold. */
+    private double failureRateThreshold = DEFAULT_FAILURE_RATE_THRESHOLD;
+    /** The slow call rate threshold. */
+    private double slowCallRateThreshold = DEFAULT_SLOW_CALL_RATE_THRESHOLD;
+    /** The slow call duration threshold. */
+    private @NotNull Duration slowCallDuration = DEFAULT_SLOW_CALL_DURATION;
+    /** The sliding window size, in calls. */
+    private int slidingWindowSize = DEFAULT_SLIDING_WINDOW_SIZE;
+    /** The minimum number of calls to calculate the rates. */
+    private int minimumCalls = DEFAULT_MINIMUM_CALLS;
+    /** The time circuits stay open. */
+    private @NotNull Duration openDuration = DEFAULT_OPEN_DURATION;
+    /** The number of probe calls in half open state. */
+    private int halfOpenProbes = DEFAULT_HALF_OPEN_PROBES;
+    /** The response status codes recorded as failures. */
+    private @NotNull Set<Integer> failureStatusCodes = DEFAULT_FAILURE_STATUS_CODES;
+
+    /**
+     * Creates a new instance with the default configuration.
+     */
+    public CircuitBreakerConfig() {
+        super();
+    }
+
+    /**
+     * Copy constructor.
+     * 
+     * @param copy The instance to copy.
+     */
+    public CircuitBreakerConfig(
+            final @NotNull CircuitBreakerConfig copy) {
+        super();
+        Validate.notNull(copy);
+        this.failureRateThreshold = copy.failureRateThreshold;
+        this.slowCallRateThreshold = copy.slowCallRateThreshold;
+        this.slowCallDuration = copy.slowCallDuration;
+        this.slidingWindowSize = copy.slidingWindowSize;
+        this.minimumCalls = copy.minimumCalls;
+        this.openDuration = copy.openDuration;
+        this.halfOpenProbes = copy.halfOpenProbes;
+        this.failureStatusCodes = copy.failureStatusCodes;
+    }
+
+    /**
+     * Returns the failure rate, between 0 and 1, that opens the circuit.
+     * 
+     * @return The failure rate threshold.
+     */
+    public double getFailureRateThreshold() {
+        return this.failureRateThreshold;
+    }
+
+    /**
+     * Sets the failure rate, between 0 and 1, that opens the circuit.
+     * 
+     * @param threshold The failure rate threshold.
+     */
+    public void setFailureRateThreshold(
+            final double threshold) {
+        Validate.isTrue(threshold > 0 && threshold <= 1, "The failure rate threshold must be between 0 and 1");
+        this.failureRateThreshold = threshold;
+    }
+
+    /**
+     * Returns the slow call rate, between 0 and 1, that opens the circuit.
+     * 
+     * @return The slow call rate threshold.
+     */
+    public double getSlowCallRateThreshold() {
+        return this.slowCallRateThreshold;
+    }
+
+    /**
+     * Sets the slow call rate, between 0 and 1, that opens the circuit.
+     * 
+     * @param threshold The slow call rate threshold.
+     */
+    public void setSlowCallRateThreshold(
+            final double threshold) {
+        Validate.isTrue(threshold > 0 && threshold <= 1, "The slow call rate threshold must be between 0 and 1");
+        this.slowCallRateThreshold = threshold;
+    }
+
+    /**
+     * Returns the duration from which calls are recorded as slow.
+     * 
+     * @return The slow call duration threshold.
+     */
+    public @NotNull Duration getSlowCallDuration() {
+        return this.slowCallDuration;
+    }
+
+    /**
+     * Sets the duration from which calls are recorded as slow.
+     * 
+     * @param duration The slow call duration threshold.
+     */
+    public void setSlowCallDuration(
+            final @NotNull Duration duration) {
+        Validate.notNull(duration, "Slow call duration is required");
+        Validate.isTrue(!duration.isNegative(), "The slow call duration cannot be negative");
+        this.slowCallDuration = duration;
+    }
+
+    /**
+     * Returns the number of last calls used to calculate the failure and
+     * slow call rates.
+     * 
+     * @return The sliding window size.
+     */
+    public int getSlidingWindowSize() {
+        return this.slidingWindowSize;
+    }
+
+    /**
+     * Sets the number of last calls used to calculate the failure and
+     * slow call rates.
+     * 
+     * @param size The sliding window size.
+     */
+    public void setSlidingWindowSize(
+            final int size) {
+        Validate.isTrue(size > 0, "The sliding window size must be positive");
+        this.slidingWindowSize = size;
+    }
+
+    /**
+     * Returns the minimum number of calls recorded in the sliding window
+     * before the circuit can be opened.
+     * 
+     * @return The minimum number of calls.
+     */
+    public int getMinimumCalls() {
+        return this.minimumCalls;
+    }
+
+    /**
+     * Sets the minimum number of calls recorded in the sliding window
+     * before the circuit can be opened. Values greater than the sliding
+     * window size are capped to the sliding window size.
+     * 
+     * @param minimumCalls The minimum number of calls.
+     */
+    public void setMinimumCalls(
+            final int minimumCalls) {
+        Validate.isTrue(minimumCalls > 0, "The minimum number of calls must be positive");
+        this.minimumCalls = minimumCalls;
+    }
+
+    /**
+     * Returns the time circuits stay open before allowing probe calls.
+     * 
+     * @return The time circuits stay open.
+     */
+    public @NotNull Duration getOpenDuration() {
+        return this.openDuration;
+    }
+
+    /**
+     * Sets the time circuits stay open before allowing probe calls.
+     * 
+     * @param duration The time circuits stay open.
+     */
+    public void setOpenDuration(
+            final @NotNull Duration duration) {
+        Validate.notNull(duration, "Open duration is required");
+        Validate.isTrue(!duration.isNegative(), "The open duration cannot be negative");
+        this.openDuration = duration;
+    }
+
+    /**
+     * Returns the number of probe calls allowed in half open state.
+     * 
+     * @return The number of probe calls.
+     */
+    public int getHalfOpenProbes() {
+        return this.halfOpenProbes;
+    }
+
+    /**
+     * Sets the number of probe calls allowed in half open state.
+     * The circuit is closed if all the probe calls succeed, and opened
+     * again on the first failed probe call.
+     * 
+     * @param probes The number of probe calls.
+     */
+    public void setHalfOpenProbes(
+            final int probes) {
+        Validate.isTrue(probes > 0, "The number of probe calls must be positive");
+        this.halfOpenProbes = probes;
+    }
+
+    /**
+     * Returns the response status codes recorded as failures.
+     * 
+     * @return The response status codes recorded as failures.
+     */
+    public @NotNull Set<Integer> getFailureStatusCodes() {
+        return this.failureStatusCodes;
+    }
+
+    /**
+     * Sets the response status codes recorded as failures.
+     * An empty set records transport failures only.
+     * 
+     * @param codes The response status codes recorded as failures.
+     */
+    public void setFailureStatusCodes(
+            final @NotNull Set<Integer> codes) {
+        Validate.notNull(codes, "Status codes are required");
+        Validate.noNullElements(codes, "Status codes cannot contain nulls");
+        this.failureStatusCodes = Collections.unmodifiableSet(new HashSet<>(codes));
+    }
+
+    /**
+     * Returns {@code true} if responses with the specified status code
+     * are recorded as failures.
+     * 
+     * @param statusCode The HTTP response status code.
+     * @return If responses with the status code are recorded as failures.
+     */
+    public boolean isFailureStatusCode(
+            final int statusCode) {
+        return this.failureStatusCodes.contains(statusCode);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        return new HashCodeBuilder()
+                .append(getClass())
+                .append(this.failureRateThreshold)
+                .append(this.slowCallRateThreshold)
+                .append(this.slowCallDuration)
+                .append(this.slidingWindowSize)
+                .append(this.minimumCalls)
+                .append(this.openDuration)
+                .append(this.halfOpenProbes)
+                .append(this.failureStatusCodes)
+                .toHashCode();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(
+            final Object obj) {
+        if (obj == null) { return false; }
+        if (obj == this) { return true; }
+        if (obj.getClass() != getClass()) {
+            return false;
+        }
+        final CircuitBreakerConfig other = (CircuitBreakerConfig) obj;
+        return new EqualsBuilder()
+                .append(this.failureRateThreshold, other.failureRateThreshold)
+                .append(this.slowCallRateThreshold, other.slowCallRateThreshold)
+                .append(this.slowCallDuration, other.slowCallDuration)
+                .append(this.slidingWindowSize, other.slidingWindowSize)
+                .append(this.minimumCalls, other.minimumCalls)
+                .append(this.openDuration, other.openDuration)
+                .append(this.halfOpenProbes, other.halfOpenProbes)
+                .append(this.failureStatusCodes, other.failureStatusCodes)
+                .isEquals();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return ToStringBuilder.reflectionToString(this, ToStringStyle.SHORT_PREFIX_STYLE);
+    }
+}
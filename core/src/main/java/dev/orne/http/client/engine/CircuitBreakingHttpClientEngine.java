@@ -0,0 +1,254 @@
+package dev.orne.http.client.engine;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.lang3.Validate;
+
+import dev.orne.http.client.CircuitBreakerOpenException;
+import dev.orne.http.client.FutureUtils;
+import dev.orne.http.client.HttpClientException;
+import dev.orne.http.client.HttpRequestTimeoutException;
+import dev.orne.http.client.cookie.CookieStore;
+
+/**
+ * HTTP client engine that protects the requests of a delegated HTTP client
+ * engine with per host circuit breakers.
+ * <p>
+ * Requests are grouped by the host and port of their URI. Requests to a
+ * host whose circuit is open fail fast with
+ * {@code CircuitBreakerOpenException}, without being passed to the
+ * delegated engine, so no connection is leased or waited for.
+ * <p>
+ * Requests failed with an {@code IOException} or a
+ * {@code HttpRequestTimeoutException}, and responses with a status code
+ * configured as failure in the {@code CircuitBreakerConfig}, are recorded
+ * as failures. Requests cancelled, rejected or failed for other reasons
+ * before receiving a response are not recorded.
+ * 
+ * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see CircuitBreaker
+ * @see CircuitBreakerConfig
+ */
+public class CircuitBreakingHttpClientEngine
+implements HttpClientEngine {
+
+    /** Status code marker of requests without response. */
+    private static final int NO_RESPONSE = -1;
+
+    /** The delegated HTTP client engine. */
+    private final @NotNull HttpClientEngine delegate;
+    /** The circuit breakers configuration. */
+    private final @NotNull CircuitBreakerConfig config;
+    /** The circuit breakers, by host and port. */
+    private final ConcurrentMap<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new instance with the default circuit breakers
+     * configuration.
+     * 
+     * @param delegate The delegated HTTP client engine.
+     */
+    public CircuitBreakingHttpClientEngine(
+            final @NotNull HttpClientEngine delegate) {
+        this(delegate, new CircuitBreakerConfig());
+    }
+
+    /**
+     * Creates a new instance.
+     * 
+     * @param delegate The delegated HTTP client engine.
+     * @param config The circuit breakers configuration.
+     */
+    public CircuitBreakingHttpClientEngine(
+            final @NotNull HttpClientEngine delegate,
+            final @NotNull CircuitBreakerConfig config) {
+        super();
+        this.delegate = Validate.notNull(delegate, "Delegated engine is required");
+        this.config = new CircuitBreakerConfig(Validate.notNull(config, "Configuration is required"));
+    }
+
+    /**
+     * Returns the delegated HTTP client engine.
+     * 
+     * @return The delegated HTTP client engine.
+     */
+    public @NotNull HttpClientEngine getDelegate() {
+        return this.delegate;
+    }
+
+    /**
+     * Returns a copy of the circuit breakers configuration.
+     * 
+     * @return The circuit breakers configuration.
+     */
+    public @NotNull CircuitBreakerConfig getConfig() {
+        return new CircuitBreakerConfig(this.config);
+    }
+
+    /**
+     * Returns the circuit breaker of the host of the specified URI,
+     * creating it if required.
+     * 
+     * @param uri The request URI.
+     * @return The circuit breaker of the host.
+     */
+    public @NotNull CircuitBreaker getCircuitBreaker(
+            final @NotNull URI uri) {
+        final String key = getCircuitKey(uri);
+        final CircuitBreaker breaker = this.breakers.get(key);
+        if (breaker != null) {
+            return breaker;
+        }
+        return this.breakers.computeIfAbsent(key, k -> new CircuitBreaker(this.config));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull CookieStore getCookieStore() {
+        return this.delegate.getCookieStore();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * If the circuit of the target host is open the returned future is
+     * completed exceptionally with {@code CircuitBreakerOpenException}.
+     * 
+     * @see CircuitBreakerOpenException
+     */
+    @Override
+    public @NotNull CompletionStage<Void> executeHttpRequest(
+            final @NotNull URI uri,
+            final @NotNull String method,
+            final @NotNull HttpRequestCustomizer requestCustomizer,
+            final @NotNull HttpResponseHandler responseHandler)
+    throws HttpClientException {
+        Validate.notNull(uri);
+        Validate.notNull(method);
+        Validate.notNull(requestCustomizer);
+        Validate.notNull(responseHandler);
+        final CircuitBreaker.Permit permit = getCircuitBreaker(uri).tryAcquire();
+        if (permit == null) {
+            return FutureUtils.completableFailure(new CircuitBreakerOpenException(
+                    String.format("Circuit breaker open for %s", getCircuitKey(uri))));
+        }
+        final AtomicInteger status = new AtomicInteger(NO_RESPONSE);
+        final CompletionStage<Void> result;
+        try {
+            result = this.delegate.executeHttpRequest(uri, method, requestCustomizer, response -> {
+                status.set(response.getStatusCode());
+                responseHandler.handle(response);
+            });
+        } catch (final HttpClientException | RuntimeException e) {
+            permit.release();
+            throw e;
+        }
+        result.whenComplete((nop, error) -> {
+            final int statusCode = status.get();
+            if (statusCode != NO_RESPONSE) {
+                if (this.config.isFailureStatusCode(statusCode)) {
+                    permit.recordFailure();
+                } else {
+                    permit.recordSuccess();
+                }
+            } else if (error == null) {
+                permit.recordSuccess();
+            } else if (isFailure(error)) {
+                permit.recordFailure();
+            } else {
+                permit.release();
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Returns {@code true} if the specified failure of a request without
+     * response is recorded as a failure of the target host.
+     * 
+     * @param error The request failure.
+     * @return If the failure is recorded.
+     */
+    protected boolean isFailure(
+            final @NotNull Throwable error) {
+        Throwable cause = error;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException)
+                && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause instanceof IOException
+                || cause instanceof HttpRequestTimeoutException;
+    }
+
+    /**
+     * Returns the circuit key of the specified URI, composed by its host,
+     * in lower case, and port. Default ports are used for URIs without
+     * port.
+     * 
+     * @param uri The request URI.
+     * @return The circuit key.
+     */
+    protected static @NotNull String getCircuitKey(
+            final @NotNull URI uri) {
+        return HttpHosts.getKey(uri);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Shuts down the delegated engine.
+     */
+    @Override
+    public int shutdown(
+            final @NotNull Duration timeout)
+    throws IOException {
+        return this.delegate.shutdown(timeout);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Closes the delegated engine.
+     */
+    @Override
+    public void close()
+    throws IOException {
+        this.delegate.close();
+    }
+}
@@ -0,0 +1,251 @@
+package dev.orne.http.client.engine;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.lang3.Validate;
+
+import dev.orne.http.ContentType;
+import dev.orne.http.Headers;
+import dev.orne.http.client.HttpClientException;
+
+/**
+ * HTTP request that compresses the request bodies set through it while
+ * they are streamed to the actual HTTP request.
+ * <p>
+ * The bodies are encoded with the configured content encoder as they are
+ * written by the engine, so the full payload is never buffered in memory.
+ * The {@code Content-Encoding} header is added to the request and the
+ * body is sent with unknown length, using chunked transfer encoding in
+ * HTTP/1.1.
+ * <p>
+ * Useful to compress the bodies produced by body helpers that set the
+ * body themselves:
+ * <pre>
+ * JacksonHttpBody.produce(entity, CompressingHttpRequest.gzip(request));
+ * </pre>
+ * Note that the target server must support the content coding.
+ * 
+ * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see ContentEncoder
+ */
+public class CompressingHttpRequest
+implements HttpRequest {
+
+    /** The default charset of text bodies. */
+    private static final Charset DEFAULT_CHARSET = StandardCharsets.UTF_8;
+
+    /** The actual HTTP request. */
+    private final @NotNull HttpRequest target;
+    /** The content coding. */
+    private final @NotNull String coding;
+    /** The content encoder. */
+    private final @NotNull ContentEncoder encoder;
+
+    /**
+     * Creates a new instance.
+     * 
+     * @param target The actual HTTP request.
+     * @param coding The content coding, used as {@code Content-Encoding}
+     * header value.
+     * @param encoder The content encoder.
+     */
+    public CompressingHttpRequest(
+            final @NotNull HttpRequest target,
+            final @NotNull String coding,
+            final @NotNull ContentEncoder encoder) {
+        super();
+        this.target = Validate.notNull(target, "HTTP request is required");
+        this.coding = Validate.notBlank(coding, "Content coding is required");
+        this.encoder = Validate.notNull(encoder, "Content encoder is required");
+    }
+
+    /**
+     * Creates a new instance that compresses the request bodies with
+     * {@code gzip} content coding.
+     * 
+     * @param target The actual HTTP request.
+     * @return The compressing HTTP request.
+     */
+    public static @NotNull CompressingHttpRequest gzip(
+            final @NotNull HttpRequest target) {
+        return new CompressingHttpRequest(target, ContentDecoderRegistry.GZIP, ContentEncoder.GZIP);
+    }
+
+    /**
+     * Wraps the specified body producer with a body producer that encodes
+     * the body with the specified encoder while it is written.
+     * 
+     * @param encoder The content encoder.
+     * @param bodyProducer The body content producer.
+     * @return The encoding body producer.
+     */
+    public static @NotNull BodyProducer encode(
+            final @NotNull ContentEncoder encoder,
+            final @NotNull BodyProducer bodyProducer) {
+        Validate.notNull(encoder, "Content encoder is required");
+        Validate.notNull(bodyProducer, "Body producer is required");
+        return output -> {
+            try (final OutputStream encoded = encoder.encode(output)) {
+                bodyProducer.writeBody(encoded);
+            }
+        };
+    }
+
+    /**
+     * Returns the actual HTTP request.
+     * 
+     * @return The actual HTTP request.
+     */
+    public @NotNull HttpRequest getTarget() {
+        return this.target;
+    }
+
+    /**
+     * Returns the content coding.
+     * 
+     * @return The content coding.
+     */
+    public @NotNull String getCoding() {
+        return this.coding;
+    }
+
+    /**
+     * Returns the content encoder.
+     * 
+     * @return The content encoder.
+     */
+    public @NotNull ContentEncoder getEncoder() {
+        return this.encoder;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void addHeader(
+            final @NotNull String header,
+            final @NotNull String... values)
+    throws HttpClientException {
+        this.target.addHeader(header, values);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The body is encoded with the charset of the content type, or
+     * UTF-8 if not specified, and compressed.
+     */
+    @Override
+    public void setBody(
+            final @NotNull ContentType contentType,
+            final @NotNull String body)
+    throws HttpClientException {
+        Validate.notNull(contentType);
+        Validate.notNull(body);
+        final Charset charset = contentType.getCharset();
+        setBody(contentType, body.getBytes(charset == null ? DEFAULT_CHARSET : charset));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The body is compressed while being written.
+     */
+    @Override
+    public void setBody(
+            final @NotNull ContentType contentType,
+            final @NotNull byte[] body)
+    throws HttpClientException {
+        Validate.notNull(contentType);
+        Validate.notNull(body);
+        setBody(contentType, -1, output -> output.write(body));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The body is compressed while being written, and sent with unknown
+     * length.
+     */
+    @Override
+    public void setBody(
+            final @NotNull ContentType contentType,
+            final long length,
+            final @NotNull BodyProducer bodyProducer)
+    throws HttpClientException {
+        Validate.notNull(contentType);
+        Validate.notNull(bodyProducer);
+        this.target.addHeader(Headers.Request.CONTENT_ENCODING, this.coding);
+        this.target.setBody(contentType, -1, encode(this.encoder, bodyProducer));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setConnectTimeout(
+            final @NotNull Duration timeout)
+    throws HttpClientException {
+        this.target.setConnectTimeout(timeout);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setResponseTimeout(
+            final @NotNull Duration timeout)
+    throws HttpClientException {
+        this.target.setResponseTimeout(timeout);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setTimeout(
+            final @NotNull Duration timeout)
+    throws HttpClientException {
+        this.target.setTimeout(timeout);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setDeadline(
+            final @NotNull Instant deadline)
+    throws HttpClientException {
+        this.target.setDeadline(deadline);
+    }
+}
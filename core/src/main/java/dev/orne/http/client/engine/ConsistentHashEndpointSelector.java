@@ -0,0 +1,277 @@
+package dev.orne.http.client.engine;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Endpoint selector that routes requests by key through a consistent
+ * hash ring, so requests with the same key hit the same endpoint and its
+ * warm caches.
+ * <p>
+ * Each endpoint is placed in the ring as a number of virtual nodes, to
+ * spread the keys evenly. When endpoints are added, removed or ejected
+ * only the keys of the affected endpoints are remapped.
+ * <p>
+ * Loads are bounded: endpoints with more requests in flight than the load
+ * factor times the average are skipped, and the request is routed to the
+ * next endpoint in the ring. This prevents hot keys from overloading a
+ * single endpoint.
+ * <p>
+ * By default the routing key is the raw path of the request URI, so
+ * operations route by the resource they request. A custom routing key
+ * extractor can be provided, for example to include query parameters.
+ * 
+ * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see LoadBalancingHttpClientEngine
+ */
+public class ConsistentHashEndpointSelector
+implements EndpointSelector {
+
+    /** The default number of virtual nodes per endpoint. */
+    public static final int DEFAULT_VIRTUAL_NODES = 100;
+    /** The default load factor. */
+    public static final double DEFAULT_LOAD_FACTOR = 1.25;
+
+    /** The number of virtual nodes per endpoint. */
+    private final int virtualNodes;
+    /** The maximum load of each endpoint, relative to the average. */
+    private final double loadFactor;
+    /** The routing key extractor. */
+    private final @NotNull Function<@NotNull URI, String> keyExtractor;
+    /** The hash ring of the last endpoints. */
+    private volatile Ring ring;
+
+    /**
+     * Creates a new instance with the default number of virtual nodes and
+     * load factor, that routes requests by URI path.
+     */
+    public ConsistentHashEndpointSelector() {
+        this(DEFAULT_VIRTUAL_NODES, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * Creates a new instance that routes requests by URI path.
+     * 
+     * @param virtualNodes The number of virtual nodes per endpoint.
+     * @param loadFactor The maximum load of each endpoint, relative to
+     * the average. {@code Double.POSITIVE_INFINITY} disables load bounding.
+     */
+    public ConsistentHashEndpointSelector(
+            final int virtualNodes,
+            final double loadFactor) {
+        this(virtualNodes, loadFactor, URI::getRawPath);
+    }
+
+    /**
+     * Creates a new instance.
+     * 
+     * @param virtualNodes The number of virtual nodes per endpoint.
+     * @param loadFactor The maximum load of each endpoint, relative to
+     * the average. {@code Double.POSITIVE_INFINITY} disables load bounding.
+     * @param keyExtractor The routing key extractor.
+     */
+    public ConsistentHashEndpointSelector(
+            final int virtualNodes,
+            final double loadFactor,
+            final @NotNull Function<@NotNull URI, String> keyExtractor) {
+        super();
+        Validate.isTrue(virtualNodes > 0, "The number of virtual nodes must be positive");
+        Validate.isTrue(loadFactor >= 1, "The load factor must be at least 1");
+        this.virtualNodes = virtualNodes;
+        this.loadFactor = loadFactor;
+        this.keyExtractor = Validate.notNull(keyExtractor, "Routing key extractor is required");
+    }
+
+    /**
+     * Returns the number of virtual nodes per endpoint.
+     * 
+     * @return The number of virtual nodes per endpoint.
+     */
+    public int getVirtualNodes() {
+        return this.virtualNodes;
+    }
+
+    /**
+     * Returns the maximum load of each endpoint, relative to the average.
+     * 
+     * @return The load factor.
+     */
+    public double getLoadFactor() {
+        return this.loadFactor;
+    }
+
+    /**
+     * Returns the routing key extractor.
+     * 
+     * @return The routing key extractor.
+     */
+    public @NotNull Function<@NotNull URI, String> getKeyExtractor() {
+        return this.keyExtractor;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull Endpoint select(
+            final @NotNull List<@NotNull Endpoint> endpoints,
+            final @NotNull URI uri) {
+        final int size = endpoints.size();
+        if (size == 1) {
+            return endpoints.get(0);
+        }
+        final Ring current = getRing(endpoints);
+        final String key = this.keyExtractor.apply(uri);
+        final int start = current.locate(hash(key == null ? "" : key));
+        if (Double.isInfinite(this.loadFactor)) {
+            return current.owners[start];
+        }
+        long total = 1;
+        for (int i = 0; i < size; i++) {
+            total += endpoints.get(i).getOutstanding();
+        }
+        final double capacity = Math.ceil(this.loadFactor * total / size);
+        final int nodes = current.owners.length;
+        for (int i = 0; i < nodes; i++) {
+            final Endpoint candidate = current.owners[(start + i) % nodes];
+            if (candidate.getOutstanding() + 1 <= capacity) {
+                return candidate;
+            }
+        }
+        return current.owners[start];
+    }
+
+    /**
+     * Returns the hash ring of the specified endpoints, building it if
+     * the endpoints changed.
+     * 
+     * @param endpoints The endpoints.
+     * @return The hash ring.
+     */
+    protected @NotNull Ring getRing(
+            final @NotNull List<@NotNull Endpoint> endpoints) {
+        Ring current = this.ring;
+        if (current == null || !current.endpoints.equals(endpoints)) {
+            current = new Ring(endpoints, this.virtualNodes);
+            this.ring = current;
+        }
+        return current;
+    }
+
+    /**
+     * Returns the 64 bits hash of the specified value, using FNV-1a
+     * followed by the MurmurHash3 finalizer, for well spread ring
+     * positions.
+     * 
+     * @param value The value.
+     * @return The hash.
+     */
+    static long hash(
+            final @NotNull String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (final byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    /**
+     * Immutable consistent hash ring of a list of endpoints.
+     * 
+     * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
+     * @version 1.0, 2023-10
+     * @since ConsistentHashEndpointSelector 1.0
+     */
+    protected static final class Ring {
+
+        /** The endpoints in the ring. */
+        private final @NotNull List<@NotNull Endpoint> endpoints;
+        /** The sorted positions of the virtual nodes. */
+        private final long[] positions;
+        /** The endpoints of the virtual nodes, by position. */
+        private final Endpoint[] owners;
+
+        /**
+         * Creates a new instance.
+         * 
+         * @param endpoints The endpoints in the ring.
+         * @param virtualNodes The number of virtual nodes per endpoint.
+         */
+        private Ring(
+                final @NotNull List<@NotNull Endpoint> endpoints,
+                final int virtualNodes) {
+            super();
+            this.endpoints = new ArrayList<>(endpoints);
+            final int nodes = endpoints.size() * virtualNodes;
+            final long[][] entries = new long[nodes][];
+            int index = 0;
+            for (int e = 0; e < endpoints.size(); e++) {
+                final String prefix = endpoints.get(e).getURI().toString() + "#";
+                for (int v = 0; v < virtualNodes; v++) {
+                    entries[index++] = new long[] { hash(prefix + v), e };
+                }
+            }
+            Arrays.sort(entries, (a, b) -> a[0] != b[0]
+                    ? Long.compare(a[0], b[0])
+                    : Long.compare(a[1], b[1]));
+            this.positions = new long[nodes];
+            this.owners = new Endpoint[nodes];
+            for (int i = 0; i < nodes; i++) {
+                this.positions[i] = entries[i][0];
+                this.owners[i] = endpoints.get((int) entries[i][1]);
+            }
+        }
+
+        /**
+         * Returns the index of the first virtual node at or after the
+         * specified position, wrapping around the ring.
+         * 
+         * @param position The position in the ring.
+         * @return The index of the virtual node.
+         */
+        private int locate(
+                final long position) {
+            final int index = Arrays.binarySearch(this.positions, position);
+            final int next = index >= 0 ? index : -index - 1;
+            return next == this.positions.length ? 0 : next;
+        }
+    }
+}
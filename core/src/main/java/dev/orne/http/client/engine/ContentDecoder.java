@@ -0,0 +1,57 @@
+package dev.orne.http.client.engine;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.validation.constraints.NotNull;
+
+/**
+ * Decoder of HTTP response bodies encoded with a content coding, such as
+ * {@code gzip} or {@code br}.
+ * <p>
+ * Implementations must be thread safe.
+ * 
+ * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see ContentDecoderRegistry
+ */
+@FunctionalInterface
+public interface ContentDecoder {
+
+    /**
+     * Wraps the specified encoded content with a stream that decodes it
+     * while being read.
+     * <p>
+     * Closing the returned stream must close the encoded content stream.
+     * 
+     * @param content The encoded content.
+     * @return The decoded content.
+     * @throws IOException If an error occurs reading the encoded content.
+     */
+    @NotNull InputStream decode(
+            @NotNull InputStream content)
+    throws IOException;
+}
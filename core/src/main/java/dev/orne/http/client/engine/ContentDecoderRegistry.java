@@ -0,0 +1,325 @@
+package dev.orne.http.client.engine;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.lang3.Validate;
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+/**
+ * Registry of the content decoders supported by
+ * {@code DecompressingHttpClientEngine}, by content coding.
+ * <p>
+ * By default {@code gzip}, {@code x-gzip} and {@code deflate} codings
+ * are supported, with the JDK built in decoders. Other codings, such as
+ * {@code br} and {@code zstd}, can be supported registering decoders
+ * based on third party libraries:
+ * <pre>
+ * registry.register("br", BrotliInputStream::new);
+ * registry.register("zstd", ZstdInputStream::new);
+ * </pre>
+ * 
+ * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see DecompressingHttpClientEngine
+ */
+public class ContentDecoderRegistry {
+
+    /** The {@code gzip} content coding. */
+    public static final String GZIP = "gzip";
+    /** The {@code x-gzip} content coding, alias of {@code gzip}. */
+    public static final String X_GZIP = "x-gzip";
+    /** The {@code deflate} content coding. */
+    public static final String DEFLATE = "deflate";
+    /** The {@code identity} content coding. */
+    public static final String IDENTITY = "identity";
+    /** The {@code gzip} content decoder. */
+    public static final ContentDecoder GZIP_DECODER = GZIPInputStream::new;
+    /**
+     * The {@code deflate} content decoder. Supports both {@code zlib}
+     * wrapped and raw deflate contents.
+     */
+    public static final ContentDecoder DEFLATE_DECODER = ContentDecoderRegistry::inflate;
+
+    /** The content decoders, by lower case content coding. */
+    private final @NotNull Map<String, ContentDecoder> decoders = new LinkedHashMap<>();
+
+    /**
+     * Creates a new instance with the default content decoders.
+     */
+    public ContentDecoderRegistry() {
+        super();
+        this.decoders.put(GZIP, GZIP_DECODER);
+        this.decoders.put(X_GZIP, GZIP_DECODER);
+        this.decoders.put(DEFLATE, DEFLATE_DECODER);
+    }
+
+    /**
+     * Copy constructor.
+     * 
+     * @param copy The instance to copy.
+     */
+    public ContentDecoderRegistry(
+            final @NotNull ContentDecoderRegistry copy) {
+        super();
+        Validate.notNull(copy);
+        this.decoders.putAll(copy.decoders);
+    }
+
+    /**
+     * Registers the decoder of the specified content coding, replacing
+     * the current decoder, if any.
+     * 
+     * @param coding The content coding.
+     * @param decoder The content decoder.
+     */
+    public void register(
+            final @NotNull String coding,
+            final @NotNull ContentDecoder decoder) {
+        Validate.notBlank(coding, "Content coding is required");
+        Validate.notNull(decoder, "Content decoder is required");
+        final String key = coding.trim().toLowerCase(Locale.ROOT);
+        Validate.isTrue(!IDENTITY.equals(key), "The identity content coding cannot be decoded");
+        this.decoders.put(key, decoder);
+    }
+
+    /**
+     * Unregisters the decoder of the specified content coding, if any.
+     * 
+     * @param coding The content coding.
+     */
+    public void unregister(
+            final @NotNull String coding) {
+        Validate.notNull(coding, "Content coding is required");
+        this.decoders.remove(coding.trim().toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Returns the decoder of the specified content coding.
+     * 
+     * @param coding The content coding.
+     * @return The content decoder, or {@code null} if the content coding
+     * is not supported.
+     */
+    public ContentDecoder getDecoder(
+            final @NotNull String coding) {
+        Validate.notNull(coding, "Content coding is required");
+        return this.decoders.get(coding.trim().toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Returns the supported content codings, in registration order.
+     * 
+     * @return The supported content codings.
+     */
+    public @NotNull Set<String> getCodings() {
+        return Collections.unmodifiableSet(this.decoders.keySet());
+    }
+
+    /**
+     * Returns the value of the {@code Accept-Encoding} header that
+     * negotiates the supported content codings.
+     * 
+     * @return The {@code Accept-Encoding} header value, or {@code null}
+     * if no content coding is supported.
+     */
+    public String getAcceptEncoding() {
+        if (this.decoders.isEmpty()) {
+            return null;
+        }
+        return String.join(", ", this.decoders.keySet());
+    }
+
+    /**
+     * Returns {@code true} if all the content codings of the specified
+     * {@code Content-Encoding} header value are supported.
+     * 
+     * @param contentEncoding The {@code Content-Encoding} header value.
+     * @return If the content encoding can be decoded.
+     */
+    public boolean isSupported(
+            final @NotNull String contentEncoding) {
+        Validate.notNull(contentEncoding, "Content encoding is required");
+        for (final String coding : parseCodings(contentEncoding)) {
+            if (!this.decoders.containsKey(coding)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Wraps the specified content encoded with the specified
+     * {@code Content-Encoding} header value with streams that decode it
+     * while being read. The content codings are decoded in the reverse
+     * order they were applied.
+     * <p>
+     * Empty contents are returned as is.
+     * 
+     * @param contentEncoding The {@code Content-Encoding} header value.
+     * @param content The encoded content.
+     * @return The decoded content.
+     * @throws IOException If a content coding is not supported or an
+     * error occurs reading the encoded content.
+     */
+    public @NotNull InputStream decode(
+            final @NotNull String contentEncoding,
+            final @NotNull InputStream content)
+    throws IOException {
+        Validate.notNull(contentEncoding, "Content encoding is required");
+        Validate.notNull(content, "Content is required");
+        final List<String> codings = parseCodings(contentEncoding);
+        if (codings.isEmpty()) {
+            return content;
+        }
+        final PushbackInputStream input = new PushbackInputStream(content, 1);
+        final int first = input.read();
+        if (first == -1) {
+            return input;
+        }
+        input.unread(first);
+        InputStream result = input;
+        for (int i = codings.size() - 1; i >= 0; i--) {
+            final ContentDecoder decoder = this.decoders.get(codings.get(i));
+            if (decoder == null) {
+                throw new IOException("Unsupported content coding: " + codings.get(i));
+            }
+            result = decoder.decode(result);
+        }
+        return result;
+    }
+
+    /**
+     * Parses the content codings of the specified {@code Content-Encoding}
+     * header value, in the order they were applied, ignoring the
+     * {@code identity} coding.
+     * 
+     * @param contentEncoding The {@code Content-Encoding} header value.
+     * @return The content codings, in lower case.
+     */
+    static @NotNull List<String> parseCodings(
+            final @NotNull String contentEncoding) {
+        final List<String> result = new ArrayList<>();
+        for (final String part : contentEncoding.split(",")) {
+            final String coding = part.trim().toLowerCase(Locale.ROOT);
+            if (!coding.isEmpty() && !IDENTITY.equals(coding)) {
+                result.add(coding);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Wraps the specified {@code deflate} encoded content with a stream
+     * that inflates it. Both {@code zlib} wrapped and raw deflate contents
+     * are supported, as some servers send the latter.
+     * 
+     * @param content The encoded content.
+     * @return The decoded content.
+     * @throws IOException If an error occurs reading the encoded content.
+     */
+    static @NotNull InputStream inflate(
+            final @NotNull InputStream content)
+    throws IOException {
+        final PushbackInputStream input = new PushbackInputStream(content, 2);
+        final byte[] header = new byte[2];
+        int read = 0;
+        while (read < header.length) {
+            final int count = input.read(header, read, header.length - read);
+            if (count == -1) {
+                break;
+            }
+            read += count;
+        }
+        input.unread(header, 0, read);
+        final boolean zlib = read == 2
+                && (header[0] & 0x0F) == 8
+                && (((header[0] & 0xFF) << 8) | (header[1] & 0xFF)) % 31 == 0;
+        return new InflaterInputStream(input, new Inflater(!zlib)) {
+            @Override
+            public void close()
+            throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    this.inf.end();
+                }
+            }
+        };
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        return new HashCodeBuilder()
+                .append(getClass())
+                .append(this.decoders)
+                .toHashCode();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(
+            final Object obj) {
+        if (obj == null) { return false; }
+        if (obj == this) { return true; }
+        if (obj.getClass() != getClass()) {
+            return false;
+        }
+        final ContentDecoderRegistry other = (ContentDecoderRegistry) obj;
+        return new EqualsBuilder()
+                .append(this.decoders, other.decoders)
+                .isEquals();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return ToStringBuilder.reflectionToString(this, ToStringStyle.SHORT_PREFIX_STYLE);
+    }
+}
@@ -0,0 +1,67 @@
+package dev.orne.http.client.engine;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import javax.validation.constraints.NotNull;
+
+/**
+ * Encoder of HTTP request bodies with a content coding, such as
+ * {@code gzip} or {@code zstd}.
+ * <p>
+ * Implementations must be thread safe.
+ * 
+ * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see CompressingHttpRequest
+ */
+@FunctionalInterface
+public interface ContentEncoder {
+
+    /** The size of the buffers of the built in encoders. */
+    int BUFFER_SIZE = 8192;
+    /** The {@code gzip} content encoder. */
+    @NotNull ContentEncoder GZIP = output -> new GZIPOutputStream(output, BUFFER_SIZE);
+    /** The {@code deflate} ({@code zlib} wrapped) content encoder. */
+    @NotNull ContentEncoder DEFLATE = output -> new DeflaterOutputStream(output);
+
+    /**
+     * Wraps the specified output with a stream that encodes the content
+     * while being written.
+     * <p>
+     * Closing the returned stream must finish the encoding and close the
+     * specified output.
+     * 
+     * @param output The output of the encoded content.
+     * @return The output of the content to encode.
+     * @throws IOException If an error occurs writing the encoded content.
+     */
+    @NotNull OutputStream encode(
+            @NotNull OutputStream output)
+    throws IOException;
+}
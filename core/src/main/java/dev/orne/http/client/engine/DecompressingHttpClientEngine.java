@@ -0,0 +1,487 @@
+package dev.orne.http.client.engine;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.lang3.Validate;
+
+import dev.orne.http.ContentType;
+import dev.orne.http.Headers;
+import dev.orne.http.client.HttpClientException;
+import dev.orne.http.client.HttpResponseBodyParsingException;
+import dev.orne.http.client.HttpResponseHandlingException;
+import dev.orne.http.client.cookie.CookieStore;
+
+/**
+ * HTTP client engine that negotiates compressed responses with the
+ * servers and transparently decodes them.
+ * <p>
+ * An {@code Accept-Encoding} header with the content codings supported by
+ * the {@code ContentDecoderRegistry} is added to the requests, and the
+ * bodies of the responses with a supported {@code Content-Encoding} are
+ * decoded while being read, so body parsers see plain content. The
+ * {@code Content-Encoding} and {@code Content-Length} headers of decoded
+ * responses are hidden, and the length of decoded bodies is reported as
+ * unknown ({@code -1}).
+ * <p>
+ * Requests customized with an explicit {@code Accept-Encoding} header are
+ * neither negotiated nor decoded. Use {@code Accept-Encoding: identity}
+ * to disable compression for a specific request, or any other value to
+ * handle the encoded response bodies in the operation.
+ * 
+ * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see ContentDecoderRegistry
+ */
+public class DecompressingHttpClientEngine
+implements HttpClientEngine {
+
+    /** The delegated HTTP client engine. */
+    private final @NotNull HttpClientEngine delegate;
+    /** The content decoders. */
+    private final @NotNull ContentDecoderRegistry decoders;
+    /** The {@code Accept-Encoding} header value, if any. */
+    private final String acceptEncoding;
+
+    /**
+     * Creates a new instance with the default content decoders.
+     * 
+     * @param delegate The delegated HTTP client engine.
+     */
+    public DecompressingHttpClientEngine(
+            final @NotNull HttpClientEngine delegate) {
+        this(delegate, new ContentDecoderRegistry());
+    }
+
+    /**
+     * Creates a new instance.
+     * 
+     * @param delegate The delegated HTTP client engine.
+     * @param decoders The content decoders.
+     */
+    public DecompressingHttpClientEngine(
+            final @NotNull HttpClientEngine delegate,
+            final @NotNull ContentDecoderRegistry decoders) {
+        super();
+        this.delegate = Validate.notNull(delegate, "Delegated engine is required");
+        this.decoders = new ContentDecoderRegistry(
+                Validate.notNull(decoders, "Content decoders are required"));
+        this.acceptEncoding = this.decoders.getAcceptEncoding();
+    }
+
+    /**
+     * Returns the delegated HTTP client engine.
+     * 
+     * @return The delegated HTTP client engine.
+     */
+    public @NotNull HttpClientEngine getDelegate() {
+        return this.delegate;
+    }
+
+    /**
+     * Returns a copy of the content decoders.
+     * 
+     * @return The content decoders.
+     */
+    public @NotNull ContentDecoderRegistry getDecoders() {
+        return new ContentDecoderRegistry(this.decoders);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull CookieStore getCookieStore() {
+        return this.delegate.getCookieStore();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Negotiates the supported content codings, unless the request is
+     * customized with an explicit {@code Accept-Encoding} header, and
+     * decodes the response body.
+     */
+    @Override
+    public @NotNull CompletionStage<Void> executeHttpRequest(
+            final @NotNull URI uri,
+            final @NotNull String method,
+            final @NotNull HttpRequestCustomizer requestCustomizer,
+            final @NotNull HttpResponseHandler responseHandler)
+    throws HttpClientException {
+        Validate.notNull(uri);
+        Validate.notNull(method);
+        Validate.notNull(requestCustomizer);
+        Validate.notNull(responseHandler);
+        if (this.acceptEncoding == null) {
+            return this.delegate.executeHttpRequest(uri, method, requestCustomizer, responseHandler);
+        }
+        final AtomicBoolean negotiated = new AtomicBoolean();
+        return this.delegate.executeHttpRequest(uri, method, request -> {
+            final NegotiatingHttpRequest negotiating = new NegotiatingHttpRequest(request);
+            requestCustomizer.customizeRequest(negotiating);
+            if (negotiating.explicit) {
+                negotiated.set(false);
+            } else {
+                request.addHeader(Headers.Request.ACCEPT_ENCODING, this.acceptEncoding);
+                negotiated.set(true);
+            }
+        }, response -> responseHandler.handle(negotiated.get()
+                ? new DecodingHttpResponse(response)
+                : response));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Shuts down the delegated engine.
+     */
+    @Override
+    public int shutdown(
+            final @NotNull Duration timeout)
+    throws IOException {
+        return this.delegate.shutdown(timeout);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Closes the delegated engine.
+     */
+    @Override
+    public void close()
+    throws IOException {
+        this.delegate.close();
+    }
+
+    /**
+     * HTTP request that detects explicit {@code Accept-Encoding} headers
+     * set by the request customizer.
+     * 
+     * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
+     * @version 1.0, 2023-10
+     * @since DecompressingHttpClientEngine 1.0
+     */
+    private static final class NegotiatingHttpRequest
+    implements HttpRequest {
+
+        /** The actual HTTP request. */
+        private final @NotNull HttpRequest target;
+        /** If an explicit {@code Accept-Encoding} header has been set. */
+        private boolean explicit;
+
+        /**
+         * Creates a new instance.
+         * 
+         * @param target The actual HTTP request.
+         */
+        private NegotiatingHttpRequest(
+                final @NotNull HttpRequest target) {
+            super();
+            this.target = target;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void addHeader(
+                final @NotNull String header,
+                final @NotNull String... values)
+        throws HttpClientException {
+            this.target.addHeader(header, values);
+            if (Headers.Request.ACCEPT_ENCODING.equalsIgnoreCase(header)) {
+                this.explicit = true;
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void setBody(
+                final @NotNull ContentType contentType,
+                final @NotNull String body)
+        throws HttpClientException {
+            this.target.setBody(contentType, body);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void setBody(
+                final @NotNull ContentType contentType,
+                final @NotNull byte[] body)
+        throws HttpClientException {
+            this.target.setBody(contentType, body);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void setBody(
+                final @NotNull ContentType contentType,
+                final long length,
+                final @NotNull BodyProducer bodyProducer)
+        throws HttpClientException {
+            this.target.setBody(contentType, length, bodyProducer);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void setConnectTimeout(
+                final @NotNull Duration timeout)
+        throws HttpClientException {
+            this.target.setConnectTimeout(timeout);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void setResponseTimeout(
+                final @NotNull Duration timeout)
+        throws HttpClientException {
+            this.target.setResponseTimeout(timeout);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void setTimeout(
+                final @NotNull Duration timeout)
+        throws HttpClientException {
+            this.target.setTimeout(timeout);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void setDeadline(
+                final @NotNull Instant deadline)
+        throws HttpClientException {
+            this.target.setDeadline(deadline);
+        }
+    }
+
+    /**
+     * HTTP response that decodes the response body if encoded with
+     * supported content codings.
+     * 
+     * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
+     * @version 1.0, 2023-10
+     * @since DecompressingHttpClientEngine 1.0
+     */
+    private final class DecodingHttpResponse
+    implements HttpResponse {
+
+        /** The actual HTTP response. */
+        private final @NotNull HttpResponse target;
+        /** If the content encoding has been resolved. */
+        private boolean resolved;
+        /** The supported content encoding of the response, if any. */
+        private String encoding;
+
+        /**
+         * Creates a new instance.
+         * 
+         * @param target The actual HTTP response.
+         */
+        private DecodingHttpResponse(
+                final @NotNull HttpResponse target) {
+            super();
+            this.target = target;
+        }
+
+        /**
+         * Returns the content encoding of the response body, if decoded.
+         * 
+         * @return The content encoding, or {@code null} if the response
+         * body is not decoded.
+         * @throws HttpClientException If an error occurs retrieving
+         * response's headers.
+         */
+        private String getEncoding()
+        throws HttpClientException {
+            if (!this.resolved) {
+                final String[] values = this.target.getHeader(Headers.Response.CONTENT_ENCODING);
+                if (values.length > 0) {
+                    final String value = String.join(",", values);
+                    if (!ContentDecoderRegistry.parseCodings(value).isEmpty()
+                            && DecompressingHttpClientEngine.this.decoders.isSupported(value)) {
+                        this.encoding = value;
+                    }
+                }
+                this.resolved = true;
+            }
+            return this.encoding;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int getStatusCode() {
+            return this.target.getStatusCode();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String getStatusReason() {
+            return this.target.getStatusReason();
+        }
+
+        /**
+         * {@inheritDoc}
+         * <p>
+         * The {@code Content-Encoding} and {@code Content-Length} headers
+         * of decoded responses are hidden.
+         */
+        @Override
+        public @NotNull String[] getHeader(
+                final @NotNull String header)
+        throws HttpClientException {
+            if (getEncoding() != null
+                    && (Headers.Response.CONTENT_ENCODING.equalsIgnoreCase(header)
+                            || Headers.Response.CONTENT_LENGTH.equalsIgnoreCase(header))) {
+                return new String[0];
+            }
+            return this.target.getHeader(header);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public HttpResponseBody getBody()
+        throws HttpClientException {
+            final HttpResponseBody body = this.target.getBody();
+            final String contentEncoding = getEncoding();
+            if (body == null || contentEncoding == null) {
+                return body;
+            }
+            return new DecodedHttpResponseBody(body, contentEncoding);
+        }
+    }
+
+    /**
+     * HTTP response body decoded while being read.
+     * 
+     * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
+     * @version 1.0, 2023-10
+     * @since DecompressingHttpClientEngine 1.0
+     */
+    private final class DecodedHttpResponseBody
+    implements HttpResponseBody {
+
+        /** The encoded HTTP response body. */
+        private final @NotNull HttpResponseBody target;
+        /** The content encoding. */
+        private final @NotNull String encoding;
+
+        /**
+         * Creates a new instance.
+         * 
+         * @param target The encoded HTTP response body.
+         * @param encoding The content encoding.
+         */
+        private DecodedHttpResponseBody(
+                final @NotNull HttpResponseBody target,
+                final @NotNull String encoding) {
+            super();
+            this.target = target;
+            this.encoding = encoding;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public ContentType getContentType()
+        throws HttpResponseHandlingException {
+            return this.target.getContentType();
+        }
+
+        /**
+         * {@inheritDoc}
+         * <p>
+         * The length of the decoded content is unknown.
+         */
+        @Override
+        public long getContentLength() {
+            return -1;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public InputStream getContent()
+        throws HttpResponseHandlingException {
+            final InputStream content = this.target.getContent();
+            if (content == null) {
+                return null;
+            }
+            try {
+                return DecompressingHttpClientEngine.this.decoders.decode(this.encoding, content);
+            } catch (final IOException e) {
+                try {
+                    content.close();
+                } catch (final IOException ce) {
+                    e.addSuppressed(ce);
+                }
+                throw new HttpResponseBodyParsingException(
+                        "Error decoding HTTP response body content", e);
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         * <p>
+         * The encoded content is discarded without decoding it.
+         */
+        @Override
+        public void discard()
+        throws HttpResponseHandlingException {
+            this.target.discard();
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package dev.orne.http.client.engine;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.time.Duration;
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.lang3.Validate;
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+/**
+ * Host name resolution cache configuration of {@code CachingHostResolver}.
+ * <p>
+ * By default resolved addresses are cached for 60 seconds and resolution
+ * failures for 5 seconds, up to 1024 hosts. Hosts looked up at least
+ * twice are refreshed in background once the 80% of their time to live
+ * has elapsed, so popular hosts never wait for name resolution.
+ * 
+ * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see CachingHostResolver
+ */
+public class DnsCachePolicy {
+
+    /** The default time to live of resolved addresses. */
+    public static final Duration DEFAULT_TTL = Duration.ofSeconds(60);
+    /** The default time to live of resolution failures. */
+    public static final Duration DEFAULT_NEGATIVE_TTL = Duration.ofSeconds(5);
+    /** The default elapsed time to live ratio after which entries are refreshed. */
+    public static final double DEFAULT_REFRESH_RATIO = 0.8;
+    /** The default minimum number of hits for an entry to be refreshed. */
+    public static final int DEFAULT_REFRESH_MIN_HITS = 2;
+    /** The default maximum number of cached hosts. */
+    public static final int DEFAULT_MAX_ENTRIES = 1024;
+
+    /** The time to live of resolved addresses. */
+    private @NotNull Duration ttl = DEFAULT_TTL;
+    /** The time to live of resolution failures. */
+    private @NotNull Duration negativeTtl = DEFAULT_NEGATIVE_TTL;
+    /** The elapsed time to live ratio after which entries are refreshed. */
+    private double refreshRatio = DEFAULT_REFRESH_RATIO;
+    /** The minimum number of hits for an entry to be refreshed. */
+    private int refreshMinHits = DEFAULT_REFRESH_MIN_HITS;
+    /** The maximum number of cached hosts. */
+    private int maxEntries = DEFAULT_MAX_ENTRIES;
+
+    /**
+     * Creates a new instance with the default configuration.
+     */
+    public DnsCachePolicy() {
+        super();
+    }
+
+    /**
+     * Copy constructor.
+     * 
+     * @param copy The instance to copy.
+     */
+    public DnsCachePolicy(
+            final @NotNull DnsCachePolicy copy) {
+        super();
+        Validate.notNull(copy);
+        this.ttl = copy.ttl;
+        this.negativeTtl = copy.negativeTtl;
+        this.refreshRatio = copy.refreshRatio;
+        this.refreshMinHits = copy.refreshMinHits;
+        this.maxEntries = copy.maxEntries;
+    }
+
+    /**
+     * Returns the time to live of resolved addresses.
+     * 
+     * @return The time to live of resolved addresses.
+     */
+    public @NotNull Duration getTtl() {
+        return this.ttl;
+    }
+
+    /**
+     * Sets the time to live of resolved addresses.
+     * 
+     * @param ttl The time to live of resolved addresses.
+     */
+    public void setTtl(
+            final @NotNull Duration ttl) {
+        Validate.notNull(ttl, "Time to live is required");
+        Validate.isTrue(!ttl.isNegative() && !ttl.isZero(), "The time to live must be positive");
+        this.ttl = ttl;
+    }
+
+    /**
+     * Returns the time to live of resolution failures.
+     * 
+     * @return The time to live of resolution failures. Zero if
+     * resolution failures are not cached.
+     */
+    public @NotNull Duration getNegativeTtl() {
+        return this.negativeTtl;
+    }
+
+    /**
+     * Sets the time to live of resolution failures.
+     * 
+     * @param negativeTtl The time to live of resolution failures.
+     * Zero to disable caching of resolution failures.
+     */
+    public void setNegativeTtl(
+            final @NotNull Duration negativeTtl) {
+        Validate.notNull(negativeTtl, "Negative time to live is required");
+        Validate.isTrue(!negativeTtl.isNegative(), "The negative time to live cannot be negative");
+        this.negativeTtl = negativeTtl;
+    }
+
+    /**
+     * Returns the elapsed time to live ratio after which the entries
+     * are refreshed in background.
+     * 
+     * @return The refresh ratio, between 0 (exclusive) and 1 (inclusive).
+     */
+    public double getRefreshRatio() {
+        return this.refreshRatio;
+    }
+
+    /**
+     * Sets the elapsed time to live ratio after which the entries are
+     * refreshed in background. A ratio of 1 disables the background
+     * refresh.
+     * 
+     * @param refreshRatio The refresh ratio, between 0 (exclusive) and
+     * 1 (inclusive).
+     */
+    public void setRefreshRatio(
+            final double refreshRatio) {
+        Validate.isTrue(refreshRatio > 0 && refreshRatio <= 1,
+                "The refresh ratio must be between 0 (exclusive) and 1 (inclusive)");
+        this.refreshRatio = refreshRatio;
+    }
+
+    /**
+     * Returns the minimum number of hits for an entry to be refreshed
+     * in background.
+     * 
+     * @return The minimum number of hits.
+     */
+    public int getRefreshMinHits() {
+        return this.refreshMinHits;
+    }
+
+    /**
+     * Sets the minimum number of hits for an entry to be refreshed in
+     * background. Less popular hosts are resolved again on expiration.
+     * 
+     * @param refreshMinHits The minimum number of hits.
+     */
+    public void setRefreshMinHits(
+            final int refreshMinHits) {
+        Validate.isTrue(refreshMinHits >= 0, "The minimum number of hits cannot be negative");
+        this.refreshMinHits = refreshMinHits;
+    }
+
+    /**
+     * Returns the maximum number of cached hosts.
+     * 
+     * @return The maximum number of cached hosts.
+     */
+    public int getMaxEntries() {
+        return this.maxEntries;
+    }
+
+    /**
+     * Sets the maximum number of cached hosts.
+     * 
+     * @param maxEntries The maximum number of cached hosts.
+     */
+    public void setMaxEntries(
+            final int maxEntries) {
+        Validate.isTrue(maxEntries > 0, "The maximum number of entries must be positive");
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        return new HashCodeBuilder()
+                .append(getClass())
+                .append(this.ttl)
+                .append(this.negativeTtl)
+                .append(this.refreshRatio)
+                .append(this.refreshMinHits)
+                .append(this.maxEntries)
+                .toHashCode();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(
+            final Object obj) {
+        if (obj == null) { return false; }
+        if (obj == this) { return true; }
+        if (obj.getClass() != getClass()) {
+            return false;
+        }
+        final DnsCachePolicy other = (DnsCachePolicy) obj;
+        return new EqualsBuilder()
+                .append(this.ttl, other.ttl)
+                .append(this.negativeTtl, other.negativeTtl)
+                .append(this.refreshRatio, other.refreshRatio)
+                .append(this.refreshMinHits, other.refreshMinHits)
+                .append(this.maxEntries, other.maxEntries)
+                .isEquals();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return ToStringBuilder.reflectionToString(this, ToStringStyle.SHORT_PREFIX_STYLE);
+    }
+}
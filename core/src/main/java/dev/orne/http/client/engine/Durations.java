@@ -0,0 +1,67 @@
+package dev.orne.http.client.engine;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.time.Duration;
+
+import javax.validation.constraints.NotNull;
+
+/**
+ * Utility methods for {@code Duration} conversions.
+ * 
+ * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ */
+final class Durations {
+
+    /**
+     * The maximum number of nanoseconds returned by conversions. Leaves
+     * room to add the result to {@code System.nanoTime()} based values
+     * without overflow.
+     */
+    static final long MAX_NANOS = Long.MAX_VALUE / 2;
+
+    /**
+     * Private constructor.
+     */
+    private Durations() {
+        // Utility class
+    }
+
+    /**
+     * Converts the specified duration to nanoseconds, saturating to
+     * {@link #MAX_NANOS} and {@code -MAX_NANOS}.
+     * 
+     * @param duration The duration.
+     * @return The duration in nanoseconds.
+     */
+    static long toNanos(
+            final @NotNull Duration duration) {
+        try {
+            return Math.max(-MAX_NANOS, Math.min(MAX_NANOS, duration.toNanos()));
+        } catch (final ArithmeticException e) {
+            return duration.isNegative() ? -MAX_NANOS : MAX_NANOS;
+        }
+    }
+}
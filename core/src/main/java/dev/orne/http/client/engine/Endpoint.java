@@ -0,0 +1,243 @@
+package dev.orne.http.client.engine;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Endpoint of a replicated HTTP service, balanced by
+ * {@code LoadBalancingHttpClientEngine}.
+ * <p>
+ * Tracks the requests in flight to the endpoint and the exponentially
+ * weighted moving averages (EWMA) of its latency and error rate, used to
+ * select the endpoint of each request and to eject outlier endpoints.
+ * 
+ * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see LoadBalancingHttpClientEngine
+ */
+public class Endpoint {
+
+    /** The endpoint base URI. */
+    private final @NotNull URI uri;
+    /** The endpoint base URI, as string. */
+    private final @NotNull String prefix;
+    /** The requests in flight. */
+    private final AtomicInteger outstanding = new AtomicInteger();
+    /** The latency moving average, in nanoseconds. */
+    private double latency;
+    /** The error rate moving average. */
+    private double errorRate;
+    /** The number of requests completed since the last ejection. */
+    private long sampleCount;
+    /** The number of times the endpoint has been ejected. */
+    private long ejectionCount;
+    /** If the endpoint is ejected. */
+    private volatile boolean ejected;
+    /** The time the ejection expires, in nanoseconds. */
+    private volatile long ejectedUntil;
+
+    /**
+     * Creates a new instance.
+     * 
+     * @param uri The endpoint base URI.
+     */
+    public Endpoint(
+            final @NotNull URI uri) {
+        super();
+        Validate.notNull(uri, "Endpoint URI is required");
+        Validate.isTrue(uri.isAbsolute(), "Endpoint URI must be absolute");
+        this.uri = uri;
+        this.prefix = uri.toString();
+    }
+
+    /**
+     * Returns the endpoint base URI.
+     * 
+     * @return The endpoint base URI.
+     */
+    public @NotNull URI getURI() {
+        return this.uri;
+    }
+
+    /**
+     * Returns the number of requests in flight to the endpoint.
+     * 
+     * @return The requests in flight.
+     */
+    public int getOutstanding() {
+        return this.outstanding.get();
+    }
+
+    /**
+     * Returns the moving average of the latency of the endpoint.
+     * 
+     * @return The latency moving average.
+     */
+    public synchronized @NotNull Duration getLatency() {
+        return Duration.ofNanos((long) this.latency);
+    }
+
+    /**
+     * Returns the moving average of the error rate of the endpoint.
+     * 
+     * @return The error rate moving average, between 0 and 1.
+     */
+    public synchronized double getErrorRate() {
+        return this.errorRate;
+    }
+
+    /**
+     * Returns the number of requests completed since the endpoint was
+     * last ejected.
+     * 
+     * @return The number of requests completed.
+     */
+    public synchronized long getSampleCount() {
+        return this.sampleCount;
+    }
+
+    /**
+     * Returns the number of times the endpoint has been ejected.
+     * 
+     * @return The number of ejections.
+     */
+    public synchronized long getEjectionCount() {
+        return this.ejectionCount;
+    }
+
+    /**
+     * Returns {@code true} if the endpoint is ejected.
+     * 
+     * @return If the endpoint is ejected.
+     */
+    public boolean isEjected() {
+        return this.ejected;
+    }
+
+    /**
+     * Resolves the specified URI suffix against the endpoint base URI.
+     * 
+     * @param suffix The URI suffix, relative to the service base URI.
+     * @return The absolute URI in this endpoint.
+     */
+    @NotNull URI resolve(
+            final @NotNull String suffix) {
+        return URI.create(this.prefix + suffix);
+    }
+
+    /**
+     * Returns the latency moving average, in nanoseconds.
+     * 
+     * @return The latency moving average, in nanoseconds.
+     */
+    synchronized double getLatencyNanos() {
+        return this.latency;
+    }
+
+    /**
+     * Registers the start of a request to the endpoint.
+     */
+    void onStart() {
+        this.outstanding.incrementAndGet();
+    }
+
+    /**
+     * Registers the end of a request to the endpoint without recording
+     * its outcome.
+     */
+    void onRelease() {
+        this.outstanding.decrementAndGet();
+    }
+
+    /**
+     * Registers the completion of a request to the endpoint.
+     * 
+     * @param latencyNanos The request latency, in nanoseconds.
+     * @param failure If the request failed.
+     * @param weight The weight of the new sample in the moving averages.
+     */
+    void onComplete(
+            final long latencyNanos,
+            final boolean failure,
+            final double weight) {
+        this.outstanding.decrementAndGet();
+        synchronized (this) {
+            final double sample = failure ? 1 : 0;
+            if (this.sampleCount == 0) {
+                this.latency = latencyNanos;
+                this.errorRate = sample;
+            } else {
+                this.latency += weight * (latencyNanos - this.latency);
+                this.errorRate += weight * (sample - this.errorRate);
+            }
+            this.sampleCount++;
+        }
+    }
+
+    /**
+     * Ejects the endpoint until the specified time, resetting its moving
+     * averages.
+     * 
+     * @param until The time the ejection expires, in nanoseconds.
+     */
+    synchronized void eject(
+            final long until) {
+        this.ejectedUntil = until;
+        this.ejected = true;
+        this.ejectionCount++;
+        this.latency = 0;
+        this.errorRate = 0;
+        this.sampleCount = 0;
+    }
+
+    /**
+     * Returns {@code true} if the endpoint is not ejected at the specified
+     * time. Expired ejections are cleared.
+     * 
+     * @param now The current time, in nanoseconds.
+     * @return If the endpoint is available.
+     */
+    boolean isAvailable(
+            final long now) {
+        if (this.ejected && now - this.ejectedUntil >= 0) {
+            this.ejected = false;
+        }
+        return !this.ejected;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return this.prefix;
+    }
+}
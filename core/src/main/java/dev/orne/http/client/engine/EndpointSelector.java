@@ -0,0 +1,55 @@
+package dev.orne.http.client.engine;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.net.URI;
+import java.util.List;
+
+import javax.validation.constraints.NotNull;
+
+/**
+ * Strategy for selecting the endpoint of each request balanced by
+ * {@code LoadBalancingHttpClientEngine}.
+ * <p>
+ * Implementations must be thread safe.
+ * 
+ * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see LoadBalancingHttpClientEngine
+ */
+@FunctionalInterface
+public interface EndpointSelector {
+
+    /**
+     * Selects the endpoint to send the request to.
+     * 
+     * @param endpoints The available endpoints, never empty, in the order
+     * configured in the engine.
+     * @param uri The HTTP request URI, under the service base URI.
+     * @return The selected endpoint, one of the available endpoints.
+     */
+    @NotNull Endpoint select(
+            @NotNull List<@NotNull Endpoint> endpoints,
+            @NotNull URI uri);
+}
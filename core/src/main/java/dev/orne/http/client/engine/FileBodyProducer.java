@@ -0,0 +1,439 @@
+package dev.orne.http.client.engine;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.lang3.Validate;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+import dev.orne.http.client.HttpRequestBodyGenerationException;
+
+/**
+ * HTTP request body producer that sends a region of a file.
+ * <p>
+ * The body length is known in advance, so engines can send it with a
+ * {@code Content-Length} header instead of chunked transfer encoding.
+ * Engines aware of this producer can send the file region directly to
+ * the transport channel with {@link FileChannel#transferTo(long, long,
+ * WritableByteChannel)}, allowing zero copy transfers where the platform
+ * supports them. Otherwise {@link #writeBody(OutputStream)} copies the
+ * region through the JDK temporary direct buffer pool.
+ * <p>
+ * The file region is read with absolute positions, so the body can be
+ * written several times, for example when retrying the request. Producers
+ * created for a file channel never change the position of the channel
+ * nor close it.
+ * 
+ * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see HttpRequest#setBody(dev.orne.http.ContentType, Path)
+ * @see HttpRequest#setBody(dev.orne.http.ContentType, FileChannel)
+ */
+public class FileBodyProducer
+implements HttpRequest.BodyProducer {
+
+    /** The file to read the body from, if any. */
+    private final Path file;
+    /** The file channel to read the body from, if any. */
+    private final FileChannel channel;
+    /** The position of the body in the file. */
+    private final long position;
+    /** The body length. */
+    private final long length;
+
+    /**
+     * Creates a new instance that sends the specified region of the
+     * specified file.
+     * 
+     * @param file The file to read the body from.
+     * @param position The position of the body in the file.
+     * @param length The body length.
+     */
+    public FileBodyProducer(
+            final @NotNull Path file,
+            final long position,
+            final long length) {
+        super();
+        this.file = Validate.notNull(file);
+        this.channel = null;
+        this.position = validatePosition(position);
+        this.length = validateLength(length);
+    }
+
+    /**
+     * Creates a new instance that sends the specified region of the
+     * specified file channel.
+     * <p>
+     * The channel is not closed by the producer.
+     * 
+     * @param channel The file channel to read the body from.
+     * @param position The position of the body in the file.
+     * @param length The body length.
+     */
+    public FileBodyProducer(
+            final @NotNull FileChannel channel,
+            final long position,
+            final long length) {
+        super();
+        this.file = null;
+        this.channel = Validate.notNull(channel);
+        this.position = validatePosition(position);
+        this.length = validateLength(length);
+    }
+
+    /**
+     * Creates a new instance that sends the whole contents of the
+     * specified file.
+     * 
+     * @param file The file to read the body from.
+     * @return The created producer.
+     * @throws HttpRequestBodyGenerationException If an error occurs
+     * retrieving the size of the file.
+     */
+    public static @NotNull FileBodyProducer of(
+            final @NotNull Path file)
+    throws HttpRequestBodyGenerationException {
+        Validate.notNull(file);
+        try {
+            return new FileBodyProducer(file, 0, Files.size(file));
+        } catch (final IOException e) {
+            throw new HttpRequestBodyGenerationException(
+                    String.format("Error reading HTTP request body file %s", file),
+                    e);
+        }
+    }
+
+    /**
+     * Creates a new instance that sends the contents of the specified
+     * file channel from its current position to its end.
+     * 
+     * @param channel The file channel to read the body from.
+     * @return The created producer.
+     * @throws HttpRequestBodyGenerationException If an error occurs
+     * retrieving the position or size of the file channel.
+     */
+    public static @NotNull FileBodyProducer of(
+            final @NotNull FileChannel channel)
+    throws HttpRequestBodyGenerationException {
+        Validate.notNull(channel);
+        try {
+            final long position = channel.position();
+            return new FileBodyProducer(
+                    channel,
+                    position,
+                    Math.max(0, channel.size() - position));
+        } catch (final IOException e) {
+            throw new HttpRequestBodyGenerationException("Error reading HTTP request body file channel", e);
+        }
+    }
+
+    /**
+     * Validates the position of the body in the file.
+     * 
+     * @param position The position to validate.
+     * @return The validated position.
+     */
+    private static long validatePosition(
+            final long position) {
+        Validate.isTrue(position >= 0, "Position must be non negative");
+        return position;
+    }
+
+    /**
+     * Validates the length of the body.
+     * 
+     * @param length The length to validate.
+     * @return The validated length.
+     */
+    private static long validateLength(
+            final long length) {
+        Validate.isTrue(length >= 0, "Length must be non negative");
+        return length;
+    }
+
+    /**
+     * Returns the file to read the body from, if any.
+     * 
+     * @return The file, or {@code null} if the producer reads from
+     * a file channel.
+     */
+    public Path getFile() {
+        return this.file;
+    }
+
+    /**
+     * Returns the file channel to read the body from, if any.
+     * 
+     * @return The file channel, or {@code null} if the producer reads from
+     * a file.
+     */
+    public FileChannel getChannel() {
+        return this.channel;
+    }
+
+    /**
+     * Returns the position of the body in the file.
+     * 
+     * @return The position of the body.
+     */
+    public long getPosition() {
+        return this.position;
+    }
+
+    /**
+     * Returns the body length.
+     * 
+     * @return The body length.
+     */
+    public long getLength() {
+        return this.length;
+    }
+
+    /**
+     * Returns {@code true} if the body covers the whole contents of
+     * a file, from its beginning to its end.
+     * 
+     * @return If the body covers the whole file.
+     * @throws IOException If an error occurs retrieving the size of
+     * the file.
+     */
+    public boolean isWholeFile()
+    throws IOException {
+        return this.file != null
+                && this.position == 0
+                && this.length == Files.size(this.file);
+    }
+
+    /**
+     * Opens a channel to read the body from.
+     * <p>
+     * The returned channel must be released with
+     * {@link #releaseChannel(FileChannel)} once the body has been sent.
+     * 
+     * @return The file channel.
+     * @throws IOException If an error occurs opening the file.
+     */
+    public @NotNull FileChannel openChannel()
+    throws IOException {
+        if (this.channel == null) {
+            return FileChannel.open(this.file, StandardOpenOption.READ);
+        }
+        return this.channel;
+    }
+
+    /**
+     * Releases a channel returned by {@link #openChannel()}, closing it
+     * if opened by this producer.
+     * 
+     * @param opened The channel to release.
+     * @throws IOException If an error occurs closing the channel.
+     */
+    public void releaseChannel(
+            final @NotNull FileChannel opened)
+    throws IOException {
+        if (opened != this.channel) {
+            opened.close();
+        }
+    }
+
+    /**
+     * Transfers the remaining bytes of the body, starting at the specified
+     * offset from the beginning of the body, to the specified target
+     * channel.
+     * <p>
+     * Transfers as many bytes as the target channel accepts without
+     * blocking, so it can be used with non blocking channels.
+     * 
+     * @param source The channel returned by {@link #openChannel()}.
+     * @param offset The offset from the beginning of the body.
+     * @param target The target channel.
+     * @return The number of bytes transferred.
+     * @throws IOException If an error occurs transferring the data or
+     * the file is shorter than expected.
+     */
+    public long transferTo(
+            final @NotNull FileChannel source,
+            final long offset,
+            final @NotNull WritableByteChannel target)
+    throws IOException {
+        final long remaining = this.length - offset;
+        if (remaining <= 0) {
+            return 0;
+        }
+        final long transferred = source.transferTo(this.position + offset, remaining, target);
+        if (transferred == 0 && source.size() < this.position + this.length) {
+            throw new EOFException("HTTP request body file is shorter than expected");
+        }
+        return transferred;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Copies the body through {@link FileChannel#transferTo(long, long,
+     * WritableByteChannel)}, that uses the JDK temporary direct buffer
+     * pool for targets other than file and socket channels.
+     */
+    @Override
+    public void writeBody(
+            final @NotNull OutputStream output)
+    throws IOException {
+        Validate.notNull(output);
+        final WritableByteChannel target = Channels.newChannel(output);
+        final FileChannel source = openChannel();
+        try {
+            long offset = 0;
+            while (offset < this.length) {
+                offset += transferTo(source, offset, target);
+            }
+        } finally {
+            releaseChannel(source);
+        }
+    }
+
+    /**
+     * Opens an input stream that reads the body.
+     * <p>
+     * Closing the returned stream releases the underlying channel.
+     * 
+     * @return The body input stream.
+     * @throws IOException If an error occurs opening the file.
+     */
+    public @NotNull InputStream openStream()
+    throws IOException {
+        return new RegionInputStream(openChannel());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return ToStringBuilder.reflectionToString(this, ToStringStyle.SHORT_PREFIX_STYLE);
+    }
+
+    /**
+     * Input stream that reads the body region from a file channel with
+     * absolute positions.
+     * 
+     * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
+     * @version 1.0, 2023-10
+     * @since FileBodyProducer 1.0
+     */
+    private class RegionInputStream
+    extends InputStream {
+
+        /** The source file channel. */
+        private final FileChannel source;
+        /** The offset of the next byte from the beginning of the body. */
+        private long offset;
+        /** If the stream has been closed. */
+        private boolean closed;
+
+        /**
+         * Creates a new instance.
+         * 
+         * @param source The source file channel.
+         */
+        RegionInputStream(
+                final @NotNull FileChannel source) {
+            super();
+            this.source = source;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int read()
+        throws IOException {
+            final byte[] single = new byte[1];
+            return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int read(
+                final @NotNull byte[] buffer,
+                final int off,
+                final int len)
+        throws IOException {
+            if (this.closed) {
+                throw new IOException("Stream closed");
+            }
+            final long remaining = FileBodyProducer.this.length - this.offset;
+            if (remaining <= 0) {
+                return -1;
+            }
+            if (len == 0) {
+                return 0;
+            }
+            final int count = (int) Math.min(len, remaining);
+            final int read = this.source.read(
+                    ByteBuffer.wrap(buffer, off, count),
+                    FileBodyProducer.this.position + this.offset);
+            if (read < 0) {
+                throw new EOFException("HTTP request body file is shorter than expected");
+            }
+            this.offset += read;
+            return read;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int available() {
+            return (int) Math.min(Integer.MAX_VALUE, FileBodyProducer.this.length - this.offset);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void close()
+        throws IOException {
+            if (!this.closed) {
+                this.closed = true;
+                releaseChannel(this.source);
+            }
+        }
+    }
+}
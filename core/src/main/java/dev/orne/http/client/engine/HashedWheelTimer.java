@@ -0,0 +1,545 @@
+package dev.orne.http.client.engine;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Low overhead timer for request timeouts, based on a hashed wheel.
+ * <p>
+ * Timeouts are placed in the wheel bucket of their deadline tick by a single
+ * worker thread, that advances the wheel once per tick and expires the
+ * timeouts of the current bucket. Scheduling and cancelling timeouts are
+ * O(1) lock free operations, and the worker thread wakes up once per tick,
+ * not once per timeout, and sleeps while no timeout is pending.
+ * <p>
+ * The precision of the timeouts is the tick duration: timeouts are expired
+ * up to a tick after their deadline. Timeout tasks are executed in the
+ * worker thread and must be short, non blocking tasks, such as completing
+ * a future.
+ * <p>
+ * A shared instance for all the HTTP client engines and operations is
+ * available through {@link #shared()}.
+ * 
+ * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ */
+public class HashedWheelTimer
+implements AutoCloseable {
+
+    /** The default tick duration. */
+    public static final Duration DEFAULT_TICK_DURATION = Duration.ofMillis(10);
+    /** The default number of ticks per wheel. */
+    public static final int DEFAULT_TICKS_PER_WHEEL = 512;
+
+    /** The tick duration, in nanoseconds. */
+    private final long tickNanos;
+    /** The wheel buckets. */
+    private final Bucket[] wheel;
+    /** The wheel buckets index mask. */
+    private final int mask;
+    /** The timeouts pending to be placed in the wheel. */
+    private final Queue<Timeout> scheduled = new ConcurrentLinkedQueue<>();
+    /** The cancelled timeouts pending to be removed from the wheel. */
+    private final Queue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+    /** The number of pending timeouts. */
+    private final AtomicInteger pending = new AtomicInteger();
+    /** If the worker thread has been started. */
+    private final AtomicBoolean started = new AtomicBoolean();
+    /** The worker thread. */
+    private final Thread worker;
+    /** The start time of the wheel, in nanoseconds. */
+    private final long startTime;
+    /** If this timer has been closed. */
+    private volatile boolean closed;
+
+    /**
+     * Creates a new instance with the default tick duration and ticks
+     * per wheel and a daemon worker thread.
+     */
+    public HashedWheelTimer() {
+        this(DEFAULT_TICK_DURATION, DEFAULT_TICKS_PER_WHEEL);
+    }
+
+    /**
+     * Creates a new instance with the specified tick duration and ticks
+     * per wheel and a daemon worker thread.
+     * 
+     * @param tickDuration The tick duration.
+     * @param ticksPerWheel The number of ticks per wheel. Rounded up to
+     * the next power of two.
+     */
+    public HashedWheelTimer(
+            final @NotNull Duration tickDuration,
+            final int ticksPerWheel) {
+        this(tickDuration, ticksPerWheel, task -> {
+            final Thread thread = new Thread(task, "http-client-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Creates a new instance with the specified tick duration, ticks
+     * per wheel and worker thread factory.
+     * <p>
+     * The worker thread is started when the first timeout is scheduled.
+     * 
+     * @param tickDuration The tick duration.
+     * @param ticksPerWheel The number of ticks per wheel. Rounded up to
+     * the next power of two.
+     * @param threadFactory The worker thread factory.
+     */
+    public HashedWheelTimer(
+            final @NotNull Duration tickDuration,
+            final int ticksPerWheel,
+            final @NotNull ThreadFactory threadFactory) {
+        super();
+        Validate.notNull(tickDuration, "Tick duration is required");
+        Validate.isTrue(
+                !tickDuration.isNegative() && !tickDuration.isZero(),
+                "Tick duration must be positive");
+        Validate.isTrue(
+                ticksPerWheel > 0 && ticksPerWheel <= (1 << 30),
+                "Ticks per wheel must be between 1 and 2^30");
+        Validate.notNull(threadFactory, "Thread factory is required");
+        this.tickNanos = tickDuration.toNanos();
+        int size = 1;
+        while (size < ticksPerWheel) {
+            size <<= 1;
+        }
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            this.wheel[i] = new Bucket();
+        }
+        this.mask = size - 1;
+        this.startTime = System.nanoTime();
+        this.worker = Validate.notNull(
+                threadFactory.newThread(this::run),
+                "Thread factory returned no thread");
+    }
+
+    /**
+     * Returns the shared instance, with the default tick duration and
+     * ticks per wheel and a daemon worker thread.
+     * <p>
+     * The shared instance cannot be closed.
+     * 
+     * @return The shared instance.
+     */
+    public static @NotNull HashedWheelTimer shared() {
+        return SharedHolder.INSTANCE;
+    }
+
+    /**
+     * Returns the tick duration.
+     * 
+     * @return The tick duration.
+     */
+    public @NotNull Duration getTickDuration() {
+        return Duration.ofNanos(this.tickNanos);
+    }
+
+    /**
+     * Returns the number of ticks per wheel.
+     * 
+     * @return The number of ticks per wheel.
+     */
+    public int getTicksPerWheel() {
+        return this.wheel.length;
+    }
+
+    /**
+     * Returns the number of timeouts pending of expiration or removal.
+     * 
+     * @return The number of pending timeouts.
+     */
+    public int getPendingTimeouts() {
+        return this.pending.get();
+    }
+
+    /**
+     * Schedules the specified task for execution after the specified delay.
+     * 
+     * @param task The task to execute.
+     * @param delay The delay.
+     * @return The scheduled timeout.
+     * @throws IllegalStateException If this timer has been closed.
+     */
+    public @NotNull Timeout schedule(
+            final @NotNull Runnable task,
+            final @NotNull Duration delay) {
+        Validate.notNull(task, "Task is required");
+        Validate.notNull(delay, "Delay is required");
+        Validate.validState(!this.closed, "Timer closed");
+        start();
+        final long delayNanos = delay.isNegative() ? 0 : saturatedNanos(delay);
+        final Timeout timeout = new Timeout(
+                this,
+                task,
+                System.nanoTime() - this.startTime + delayNanos);
+        if (this.pending.getAndIncrement() == 0) {
+            LockSupport.unpark(this.worker);
+        }
+        this.scheduled.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Returns a {@code CompletionStage} completed after the specified delay.
+     * <p>
+     * Useful for retry delays and authentication renewal back offs.
+     * Cancelling the returned future cancels the underlying timeout.
+     * 
+     * @param delay The delay.
+     * @return A {@code CompletionStage} completed after the delay.
+     * @throws IllegalStateException If this timer has been closed.
+     */
+    public @NotNull CompletionStage<Void> delay(
+            final @NotNull Duration delay) {
+        final CompletableFuture<Void> result = new CompletableFuture<>();
+        final Timeout timeout = schedule(() -> result.complete(null), delay);
+        result.whenComplete((nop, error) -> timeout.cancel());
+        return result;
+    }
+
+    /**
+     * Starts the worker thread, if not started yet.
+     */
+    protected void start() {
+        if (this.started.compareAndSet(false, true)) {
+            this.worker.start();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Stops the worker thread. Pending timeouts are never expired.
+     */
+    @Override
+    public void close() {
+        this.closed = true;
+        LockSupport.unpark(this.worker);
+    }
+
+    /**
+     * Runs the worker thread loop.
+     */
+    private void run() {
+        long tick = (System.nanoTime() - this.startTime) / this.tickNanos;
+        while (!this.closed) {
+            if (this.pending.get() == 0) {
+                LockSupport.park(this);
+                tick = Math.max(tick, (System.nanoTime() - this.startTime) / this.tickNanos);
+                continue;
+            }
+            final long tickDeadline = (tick + 1) * this.tickNanos;
+            long sleep = tickDeadline - (System.nanoTime() - this.startTime);
+            while (sleep > 0 && !this.closed) {
+                LockSupport.parkNanos(this, sleep);
+                sleep = tickDeadline - (System.nanoTime() - this.startTime);
+            }
+            if (this.closed) {
+                return;
+            }
+            removeCancelled();
+            transferScheduled(tick);
+            this.wheel[(int) (tick & this.mask)].expire(tickDeadline);
+            tick++;
+        }
+    }
+
+    /**
+     * Removes the cancelled timeouts from the wheel.
+     */
+    private void removeCancelled() {
+        Timeout timeout = this.cancelled.poll();
+        while (timeout != null) {
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+            }
+            this.pending.decrementAndGet();
+            timeout = this.cancelled.poll();
+        }
+    }
+
+    /**
+     * Places the scheduled timeouts in their wheel buckets.
+     * 
+     * @param tick The current tick.
+     */
+    private void transferScheduled(
+            final long tick) {
+        Timeout timeout = this.scheduled.poll();
+        while (timeout != null) {
+            if (timeout.state == Timeout.ST_INIT) {
+                final long deadlineTick = timeout.deadline / this.tickNanos;
+                timeout.remainingRounds = (deadlineTick - tick) / this.wheel.length;
+                final long targetTick = Math.max(deadlineTick, tick);
+                this.wheel[(int) (targetTick & this.mask)].add(timeout);
+            }
+            timeout = this.scheduled.poll();
+        }
+    }
+
+    /**
+     * Converts the specified duration to nanoseconds, saturating on
+     * overflow.
+     * 
+     * @param duration The duration.
+     * @return The duration in nanoseconds.
+     */
+    private static long saturatedNanos(
+            final @NotNull Duration duration) {
+        try {
+            return duration.toNanos();
+        } catch (final ArithmeticException e) {
+            return Long.MAX_VALUE / 2;
+        }
+    }
+
+    /**
+     * Timeout scheduled in a {@code HashedWheelTimer}.
+     * 
+     * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
+     * @version 1.0, 2023-10
+     * @since HashedWheelTimer 1.0
+     */
+    public static final class Timeout {
+
+        /** The initial state. */
+        private static final int ST_INIT = 0;
+        /** The cancelled state. */
+        private static final int ST_CANCELLED = 1;
+        /** The expired state. */
+        private static final int ST_EXPIRED = 2;
+        /** The state updater. */
+        private static final AtomicIntegerFieldUpdater<Timeout> STATE =
+                AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "state");
+
+        /** The owner timer. */
+        private final @NotNull HashedWheelTimer timer;
+        /** The task to execute on expiration. */
+        private final @NotNull Runnable task;
+        /** The deadline, in nanoseconds since the timer start. */
+        private final long deadline;
+        /** The timeout state. */
+        private volatile int state = ST_INIT;
+        /** The remaining wheel rounds before expiration. */
+        private long remainingRounds;
+        /** The containing bucket, if placed in the wheel. */
+        private Bucket bucket;
+        /** The next timeout in the bucket. */
+        private Timeout next;
+        /** The previous timeout in the bucket. */
+        private Timeout prev;
+
+        /**
+         * Creates a new instance.
+         * 
+         * @param timer The owner timer.
+         * @param task The task to execute on expiration.
+         * @param deadline The deadline, in nanoseconds since the timer
+         * start.
+         */
+        private Timeout(
+                final @NotNull HashedWheelTimer timer,
+                final @NotNull Runnable task,
+                final long deadline) {
+            super();
+            this.timer = timer;
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Cancels this timeout, if not expired yet.
+         * 
+         * @return If this timeout has been cancelled by this call.
+         */
+        public boolean cancel() {
+            if (!STATE.compareAndSet(this, ST_INIT, ST_CANCELLED)) {
+                return false;
+            }
+            this.timer.cancelled.add(this);
+            return true;
+        }
+
+        /**
+         * Returns {@code true} if this timeout has been cancelled.
+         * 
+         * @return If this timeout has been cancelled.
+         */
+        public boolean isCancelled() {
+            return this.state == ST_CANCELLED;
+        }
+
+        /**
+         * Returns {@code true} if this timeout has expired.
+         * 
+         * @return If this timeout has expired.
+         */
+        public boolean isExpired() {
+            return this.state == ST_EXPIRED;
+        }
+
+        /**
+         * Expires this timeout, executing its task, if not cancelled.
+         */
+        private void expire() {
+            if (!STATE.compareAndSet(this, ST_INIT, ST_EXPIRED)) {
+                return;
+            }
+            this.timer.pending.decrementAndGet();
+            try {
+                this.task.run();
+            } catch (final RuntimeException e) {
+                // Timeout task errors must not stop the worker thread
+            }
+        }
+    }
+
+    /**
+     * Bucket of the wheel, a doubly linked list of timeouts.
+     * Only accessed by the worker thread.
+     * 
+     * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
+     * @version 1.0, 2023-10
+     * @since HashedWheelTimer 1.0
+     */
+    private static final class Bucket {
+
+        /** The first timeout. */
+        private Timeout head;
+        /** The last timeout. */
+        private Timeout tail;
+
+        /**
+         * Adds the specified timeout to this bucket.
+         * 
+         * @param timeout The timeout to add.
+         */
+        private void add(
+                final @NotNull Timeout timeout) {
+            timeout.bucket = this;
+            if (this.head == null) {
+                this.head = timeout;
+                this.tail = timeout;
+            } else {
+                this.tail.next = timeout;
+                timeout.prev = this.tail;
+                this.tail = timeout;
+            }
+        }
+
+        /**
+         * Removes the specified timeout from this bucket.
+         * 
+         * @param timeout The timeout to remove.
+         * @return The next timeout in the bucket.
+         */
+        private Timeout remove(
+                final @NotNull Timeout timeout) {
+            final Timeout next = timeout.next;
+            if (timeout.prev != null) {
+                timeout.prev.next = next;
+            }
+            if (next != null) {
+                next.prev = timeout.prev;
+            }
+            if (timeout == this.head) {
+                this.head = next;
+            }
+            if (timeout == this.tail) {
+                this.tail = timeout.prev;
+            }
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+            return next;
+        }
+
+        /**
+         * Expires the timeouts of this bucket with no remaining rounds.
+         * 
+         * @param tickDeadline The deadline of the current tick.
+         */
+        private void expire(
+                final long tickDeadline) {
+            Timeout timeout = this.head;
+            while (timeout != null) {
+                if (timeout.isCancelled()) {
+                    // Removed by the cancelled queue processing
+                    timeout = timeout.next;
+                } else if (timeout.remainingRounds <= 0 && timeout.deadline <= tickDeadline) {
+                    final Timeout expired = timeout;
+                    timeout = remove(expired);
+                    expired.expire();
+                } else {
+                    timeout.remainingRounds--;
+                    timeout = timeout.next;
+                }
+            }
+        }
+    }
+
+    /**
+     * Holder of the shared instance, created on first use.
+     * 
+     * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
+     * @version 1.0, 2023-10
+     * @since HashedWheelTimer 1.0
+     */
+    private static final class SharedHolder {
+
+        /** The shared instance. */
+        private static final HashedWheelTimer INSTANCE = new HashedWheelTimer() {
+            @Override
+            public void close() {
+                // Shared instance cannot be closed
+            }
+        };
+
+        /**
+         * Private constructor.
+         */
+        private SharedHolder() {
+            // Holder class
+        }
+    }
+}
@@ -0,0 +1,495 @@
+package dev.orne.http.client.engine;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.lang3.Validate;
+
+import dev.orne.http.Methods;
+import dev.orne.http.client.HttpClientException;
+import dev.orne.http.client.cookie.CookieStore;
+
+/**
+ * HTTP client engine that hedges the slow {@code GET} requests of a
+ * delegated HTTP client engine to reduce tail latency.
+ * <p>
+ * The latency of the responses is tracked per host. When a {@code GET}
+ * request takes longer than the configured percentile of the latency of
+ * its host, a second identical request is sent. The first response
+ * received is passed to the response handler and the other request is
+ * cancelled. The hedged requests are limited to a ratio of the requests
+ * by a {@code RetryBudget}.
+ * <p>
+ * The request customizer is called once per request. The customizations
+ * are recorded and replayed in the hedged request. Hedged requests are
+ * started in the configured executor, never in the timer thread that
+ * schedules the hedging delays.
+ * 
+ * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see HedgingPolicy
+ */
+public class HedgingHttpClientEngine
+implements HttpClientEngine {
+
+    /** The delegated HTTP client engine. */
+    private final @NotNull HttpClientEngine delegate;
+    /** The hedging configuration. */
+    private final @NotNull HedgingPolicy policy;
+    /** The hedged requests budget. */
+    private final @NotNull RetryBudget budget;
+    /** The hedging delays timer. */
+    private final @NotNull HashedWheelTimer timer;
+    /** The executor of the hedged requests. */
+    private final @NotNull Executor executor;
+    /** The latency trackers, by host and port. */
+    private final ConcurrentMap<String, LatencyTracker> trackers = new ConcurrentHashMap<>();
+    /** The number of hedged requests sent. */
+    private final AtomicLong hedgeCount = new AtomicLong();
+
+    /**
+     * Creates a new instance with the default hedging configuration.
+     * 
+     * @param delegate The delegated HTTP client engine.
+     */
+    public HedgingHttpClientEngine(
+            final @NotNull HttpClientEngine delegate) {
+        this(delegate, new HedgingPolicy());
+    }
+
+    /**
+     * Creates a new instance.
+     * <p>
+     * Hedging delays are scheduled in the shared {@code HashedWheelTimer}.
+     * Hedged requests are started in {@code ForkJoinPool.commonPool()}.
+     * 
+     * @param delegate The delegated HTTP client engine.
+     * @param policy The hedging configuration.
+     */
+    public HedgingHttpClientEngine(
+            final @NotNull HttpClientEngine delegate,
+            final @NotNull HedgingPolicy policy) {
+        this(delegate, policy, HashedWheelTimer.shared());
+    }
+
+    /**
+     * Creates a new instance.
+     * <p>
+     * The specified timer is not closed when this engine is closed.
+     * Hedged requests are started in {@code ForkJoinPool.commonPool()}.
+     * 
+     * @param delegate The delegated HTTP client engine.
+     * @param policy The hedging configuration.
+     * @param timer The timer used to schedule the hedging delays.
+     */
+    public HedgingHttpClientEngine(
+            final @NotNull HttpClientEngine delegate,
+            final @NotNull HedgingPolicy policy,
+            final @NotNull HashedWheelTimer timer) {
+        this(delegate, policy, timer, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a new instance.
+     * <p>
+     * The specified timer and executor are not closed when this engine is
+     * closed. Hedged requests rejected by the executor are not sent.
+     * 
+     * @param delegate The delegated HTTP client engine.
+     * @param policy The hedging configuration.
+     * @param timer The timer used to schedule the hedging delays.
+     * @param executor The executor of the hedged requests.
+     */
+    public HedgingHttpClientEngine(
+            final @NotNull HttpClientEngine delegate,
+            final @NotNull HedgingPolicy policy,
+            final @NotNull HashedWheelTimer timer,
+            final @NotNull Executor executor) {
+        super();
+        this.delegate = Validate.notNull(delegate, "Delegated engine is required");
+        this.policy = new HedgingPolicy(Validate.notNull(policy, "Hedging policy is required"));
+        this.timer = Validate.notNull(timer, "Timer is required");
+        this.executor = Validate.notNull(executor, "Executor is required");
+        this.budget = new RetryBudget(this.policy.getHedgeRatio(), RetryBudget.DEFAULT_MAX_BALANCE);
+    }
+
+    /**
+     * Returns the delegated HTTP client engine.
+     * 
+     * @return The delegated HTTP client engine.
+     */
+    public @NotNull HttpClientEngine getDelegate() {
+        return this.delegate;
+    }
+
+    /**
+     * Returns a copy of the hedging configuration.
+     * 
+     * @return The hedging configuration.
+     */
+    public @NotNull HedgingPolicy getPolicy() {
+        return new HedgingPolicy(this.policy);
+    }
+
+    /**
+     * Returns the total number of hedged requests sent.
+     * 
+     * @return The number of hedged requests sent.
+     */
+    public long getHedgeCount() {
+        return this.hedgeCount.get();
+    }
+
+    /**
+     * Returns the latency tracker of the host of the specified URI,
+     * creating it if required.
+     * 
+     * @param uri The request URI.
+     * @return The latency tracker of the host.
+     */
+    public @NotNull LatencyTracker getLatencyTracker(
+            final @NotNull URI uri) {
+        final String key = HttpHosts.getKey(uri);
+        final LatencyTracker tracker = this.trackers.get(key);
+        if (tracker != null) {
+            return tracker;
+        }
+        return this.trackers.computeIfAbsent(key, k -> new LatencyTracker(
+                this.policy.getPercentile(),
+                this.policy.getWindowSize(),
+                this.policy.getMinSamples()));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull CookieStore getCookieStore() {
+        return this.delegate.getCookieStore();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull CompletionStage<Void> executeHttpRequest(
+            final @NotNull URI uri,
+            final @NotNull String method,
+            final @NotNull HttpRequestCustomizer requestCustomizer,
+            final @NotNull HttpResponseHandler responseHandler)
+    throws HttpClientException {
+        Validate.notNull(uri);
+        Validate.notNull(method);
+        Validate.notNull(requestCustomizer);
+        Validate.notNull(responseHandler);
+        if (!Methods.GET.equals(method)) {
+            return this.delegate.executeHttpRequest(uri, method, requestCustomizer, responseHandler);
+        }
+        this.budget.onRequest();
+        final LatencyTracker tracker = getLatencyTracker(uri);
+        final Duration delay = tracker.getValue();
+        final long start = System.nanoTime();
+        if (delay == null) {
+            return this.delegate.executeHttpRequest(uri, method, requestCustomizer, response -> {
+                tracker.record(System.nanoTime() - start);
+                responseHandler.handle(response);
+            });
+        }
+        return new Execution(uri, requestCustomizer, responseHandler, tracker, start)
+                .start(delay);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Shuts down the delegated engine.
+     */
+    @Override
+    public int shutdown(
+            final @NotNull Duration timeout)
+    throws IOException {
+        return this.delegate.shutdown(timeout);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Closes the delegated engine.
+     */
+    @Override
+    public void close()
+    throws IOException {
+        this.delegate.close();
+    }
+
+    /**
+     * Execution of a hedged {@code GET} request.
+     * 
+     * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
+     * @version 1.0, 2023-10
+     * @since HedgingHttpClientEngine 1.0
+     */
+    private final class Execution {
+
+        /** The HTTP request target absolute URI. */
+        private final @NotNull URI uri;
+        /** The HTTP request customizer. */
+        private final @NotNull HttpRequestCustomizer requestCustomizer;
+        /** The HTTP response handler. */
+        private final @NotNull HttpResponseHandler responseHandler;
+        /** The latency tracker of the target host. */
+        private final @NotNull LatencyTracker tracker;
+        /** The request start time, in nanoseconds. */
+        private final long start;
+        /** The recorded HTTP request customizations. */
+        private final HttpRequestRecorder recorder = new HttpRequestRecorder(true, null);
+        /** The HTTP request result. */
+        private final CompletableFuture<Void> result = new CompletableFuture<>();
+        /** The attempt whose response is handled. */
+        private final AtomicReference<Attempt> winner = new AtomicReference<>();
+        /** The original attempt. */
+        private Attempt primary;
+        /** The hedged attempt. */
+        private Attempt hedge;
+        /** The number of attempts in flight. */
+        private int inFlight;
+        /** The hedging delay timeout. */
+        private HashedWheelTimer.Timeout timeout;
+
+        /**
+         * Creates a new instance.
+         * 
+         * @param uri The HTTP request target absolute URI.
+         * @param requestCustomizer The HTTP request customizer.
+         * @param responseHandler The HTTP response handler.
+         * @param tracker The latency tracker of the target host.
+         * @param start The request start time, in nanoseconds.
+         */
+        private Execution(
+                final @NotNull URI uri,
+                final @NotNull HttpRequestCustomizer requestCustomizer,
+                final @NotNull HttpResponseHandler responseHandler,
+                final @NotNull LatencyTracker tracker,
+                final long start) {
+            super();
+            this.uri = uri;
+            this.requestCustomizer = requestCustomizer;
+            this.responseHandler = responseHandler;
+            this.tracker = tracker;
+            this.start = start;
+        }
+
+        /**
+         * Starts the original attempt and schedules the hedged attempt.
+         * 
+         * @param delay The hedging delay.
+         * @return The HTTP request result.
+         * @throws HttpClientException If an exception occurs executing the
+         * request
+         */
+        private @NotNull CompletionStage<Void> start(
+                final @NotNull Duration delay)
+        throws HttpClientException {
+            final Attempt attempt = new Attempt();
+            synchronized (this) {
+                this.primary = attempt;
+                this.inFlight = 1;
+            }
+            attempt.launch(request -> this.recorder.record(this.requestCustomizer, request));
+            synchronized (this) {
+                if (!this.result.isDone()) {
+                    this.timeout = HedgingHttpClientEngine.this.timer.schedule(this::onHedgingDelay, delay);
+                }
+            }
+            this.result.whenComplete((nop, error) -> cancelAll(null));
+            return this.result;
+        }
+
+        /**
+         * Starts the hedged attempt in the configured executor when the
+         * hedging delay elapses.
+         */
+        private void onHedgingDelay() {
+            try {
+                HedgingHttpClientEngine.this.executor.execute(this::hedge);
+            } catch (final RejectedExecutionException e) {
+                // The original attempt is still in flight. Do not hedge.
+            }
+        }
+
+        /**
+         * Starts the hedged attempt, if the original attempt is still in
+         * flight and the hedging budget allows it.
+         */
+        private void hedge() {
+            final Attempt attempt = new Attempt();
+            synchronized (this) {
+                if (this.result.isDone()
+                        || this.inFlight == 0
+                        || this.winner.get() != null
+                        || !this.recorder.isRecorded()
+                        || !HedgingHttpClientEngine.this.budget.tryRetry()) {
+                    return;
+                }
+                this.hedge = attempt;
+                this.inFlight++;
+            }
+            HedgingHttpClientEngine.this.hedgeCount.incrementAndGet();
+            try {
+                attempt.launch(this.recorder::replay);
+            } catch (final HttpClientException | RuntimeException e) {
+                onAttemptCompleted(attempt, e);
+            }
+            if (this.result.isDone() || this.winner.get() != null && this.winner.get() != attempt) {
+                attempt.cancel();
+            }
+        }
+
+        /**
+         * Completes the request when the winner attempt completes, or when
+         * all the attempts fail without response.
+         * 
+         * @param attempt The completed attempt.
+         * @param error The attempt failure, if any.
+         */
+        private void onAttemptCompleted(
+                final @NotNull Attempt attempt,
+                final Throwable error) {
+            final Attempt handled = this.winner.get();
+            if (handled != null && handled != attempt) {
+                return;
+            }
+            if (handled == null && error != null) {
+                synchronized (this) {
+                    this.inFlight--;
+                    if (this.inFlight > 0) {
+                        return;
+                    }
+                }
+            }
+            if (error == null) {
+                this.result.complete(null);
+            } else {
+                this.result.completeExceptionally(error);
+            }
+        }
+
+        /**
+         * Cancels the hedging delay and the attempts other than the
+         * specified one.
+         * 
+         * @param retained The attempt not to cancel, if any.
+         */
+        private void cancelAll(
+                final Attempt retained) {
+            final HashedWheelTimer.Timeout pendingTimeout;
+            final Attempt original;
+            final Attempt hedged;
+            synchronized (this) {
+                pendingTimeout = this.timeout;
+                original = this.primary;
+                hedged = this.hedge;
+            }
+            if (pendingTimeout != null) {
+                pendingTimeout.cancel();
+            }
+            if (original != null && original != retained) {
+                original.cancel();
+            }
+            if (hedged != null && hedged != retained) {
+                hedged.cancel();
+            }
+        }
+
+        /**
+         * Attempt of the hedged request.
+         * 
+         * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
+         * @version 1.0, 2023-10
+         * @since HedgingHttpClientEngine 1.0
+         */
+        private final class Attempt
+        implements HttpResponseHandler {
+
+            /** The attempt result. */
+            private volatile CompletableFuture<Void> future;
+
+            /**
+             * Starts the attempt.
+             * 
+             * @param customizer The HTTP request customizer of the attempt.
+             * @throws HttpClientException If an exception occurs executing
+             * the request
+             */
+            private void launch(
+                    final @NotNull HttpRequestCustomizer customizer)
+            throws HttpClientException {
+                this.future = HedgingHttpClientEngine.this.delegate
+                        .executeHttpRequest(Execution.this.uri, Methods.GET, customizer, this)
+                        .toCompletableFuture();
+                this.future.whenComplete((nop, error) -> onAttemptCompleted(this, error));
+            }
+
+            /**
+             * Cancels the attempt, if started.
+             */
+            private void cancel() {
+                final CompletableFuture<Void> current = this.future;
+                if (current != null && !current.isDone()) {
+                    current.cancel(true);
+                }
+            }
+
+            /**
+             * {@inheritDoc}
+             * <p>
+             * Only the first response received is passed to the response
+             * handler. The other attempts are cancelled.
+             */
+            @Override
+            public void handle(
+                    final @NotNull HttpResponse response) {
+                if (Execution.this.winner.compareAndSet(null, this)) {
+                    Execution.this.tracker.record(System.nanoTime() - Execution.this.start);
+                    cancelAll(this);
+                    Execution.this.responseHandler.handle(response);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package dev.orne.http.client.engine;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.lang3.Validate;
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+/**
+ * Hedging configuration of {@code HedgingHttpClientEngine}.
+ * <p>
+ * By default a hedged request is sent when a request takes longer than
+ * the 95th percentile of the latency of the last 1000 requests to the same
+ * host, once at least 100 requests have been recorded. Hedged requests
+ * are limited to 5% of the requests.
+ * 
+ * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see HedgingHttpClientEngine
+ */
+public class HedgingPolicy {
+
+    /** The default latency percentile that triggers hedged requests. */
+    public static final double DEFAULT_PERCENTILE = 0.95;
+    /** The default number of last latencies tracked per host. */
+    public static final int DEFAULT_WINDOW_SIZE = 1000;
+    /** The default minimum number of latencies to hedge requests. */
+    public static final int DEFAULT_MIN_SAMPLES = 100;
+    /** The default maximum ratio of hedged requests to requests. */
+    public static final double DEFAULT_HEDGE_RATIO = 0.05;
+
+    /** The latency percentile that triggers hedged requests. */
+    private double percentile = DEFAULT_PERCENTILE;
+    /** The number of last latencies tracked per host. */
+    private int windowSize = DEFAULT_WINDOW_SIZE;
+    /** The minimum number of latencies to hedge requests. */
+    private int minSamples = DEFAULT_MIN_SAMPLES;
+    /** The maximum ratio of hedged requests to requests. */
+    private double hedgeRatio = DEFAULT_HEDGE_RATIO;
+
+    /**
+     * Creates a new instance with the default configuration.
+     */
+    public HedgingPolicy() {
+        super();
+    }
+
+    /**
+     * Copy constructor.
+     * 
+     * @param copy The instance to copy.
+     */
+    public HedgingPolicy(
+            final @NotNull HedgingPolicy copy) {
+        super();
+        Validate.notNull(copy);
+        this.percentile = copy.percentile;
+        this.windowSize = copy.windowSize;
+        this.minSamples = copy.minSamples;
+        this.hedgeRatio = copy.hedgeRatio;
+    }
+
+    /**
+     * Returns the latency percentile, between 0 and 1, after which a
+     * hedged request is sent.
+     * 
+     * @return The latency percentile.
+     */
+    public double getPercentile() {
+        return this.percentile;
+    }
+
+    /**
+     * Sets the latency percentile, between 0 and 1, after which a
+     * hedged request is sent.
+     * 
+     * @param percentile The latency percentile.
+     */
+    public void setPercentile(
+            final double percentile) {
+        Validate.isTrue(percentile > 0 && percentile < 1, "The percentile must be between 0 and 1");
+        this.percentile = percentile;
+    }
+
+    /**
+     * Returns the number of last latencies tracked per host.
+     * 
+     * @return The number of last latencies tracked.
+     */
+    public int getWindowSize() {
+        return this.windowSize;
+    }
+
+    /**
+     * Sets the number of last latencies tracked per host.
+     * 
+     * @param windowSize The number of last latencies tracked.
+     */
+    public void setWindowSize(
+            final int windowSize) {
+        Validate.isTrue(windowSize > 0, "The window size must be positive");
+        this.windowSize = windowSize;
+    }
+
+    /**
+     * Returns the minimum number of latencies recorded for a host before
+     * hedging its requests.
+     * 
+     * @return The minimum number of latencies.
+     */
+    public int getMinSamples() {
+        return this.minSamples;
+    }
+
+    /**
+     * Sets the minimum number of latencies recorded for a host before
+     * hedging its requests. Values greater than the window size are
+     * capped to the window size.
+     * 
+     * @param minSamples The minimum number of latencies.
+     */
+    public void setMinSamples(
+            final int minSamples) {
+        Validate.isTrue(minSamples > 0, "The minimum number of samples must be positive");
+        this.minSamples = minSamples;
+    }
+
+    /**
+     * Returns the maximum ratio, between 0 and 1, of hedged requests to
+     * requests.
+     * 
+     * @return The maximum ratio of hedged requests.
+     */
+    public double getHedgeRatio() {
+        return this.hedgeRatio;
+    }
+
+    /**
+     * Sets the maximum ratio, between 0 and 1, of hedged requests to
+     * requests.
+     * 
+     * @param hedgeRatio The maximum ratio of hedged requests.
+     */
+    public void setHedgeRatio(
+            final double hedgeRatio) {
+        Validate.isTrue(hedgeRatio >= 0 && hedgeRatio <= 1, "The hedge ratio must be between 0 and 1");
+        this.hedgeRatio = hedgeRatio;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        return new HashCodeBuilder()
+                .append(getClass())
+                .append(this.percentile)
+                .append(this.windowSize)
+                .append(this.minSamples)
+                .append(this.hedgeRatio)
+                .toHashCode();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(
+            final Object obj) {
+        if (obj == null) { return false; }
+        if (obj == this) { return true; }
+        if (obj.getClass() != getClass()) {
+            return false;
+        }
+        final HedgingPolicy other = (HedgingPolicy) obj;
+        return new EqualsBuilder()
+                .append(this.percentile, other.percentile)
+                .append(this.windowSize, other.windowSize)
+                .append(this.minSamples, other.minSamples)
+                .append(this.hedgeRatio, other.hedgeRatio)
+                .isEquals();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return ToStringBuilder.reflectionToString(this, ToStringStyle.SHORT_PREFIX_STYLE);
+    }
+}
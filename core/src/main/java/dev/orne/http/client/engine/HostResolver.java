@@ -0,0 +1,59 @@
+package dev.orne.http.client.engine;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+import javax.validation.constraints.NotNull;
+
+/**
+ * Resolver of host names to IP addresses used by the HTTP client engines
+ * to open new connections.
+ * <p>
+ * Implementations must be thread safe.
+ * 
+ * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see CachingHostResolver
+ */
+@FunctionalInterface
+public interface HostResolver {
+
+    /** The resolver based on the system name service. */
+    @NotNull HostResolver SYSTEM = InetAddress::getAllByName;
+
+    /**
+     * Resolves the IP addresses of the specified host.
+     * <p>
+     * Connections are attempted to the returned addresses in order.
+     * 
+     * @param host The host name.
+     * @return The IP addresses of the host, never empty.
+     * @throws UnknownHostException If the host cannot be resolved.
+     */
+    @NotNull InetAddress[] resolve(
+            @NotNull String host)
+    throws UnknownHostException;
+}
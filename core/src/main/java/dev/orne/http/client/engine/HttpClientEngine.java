@@ -23,9 +23,9 @@ package dev.orne.http.client.engine;
  */
 
 import java.io.Closeable;
+import java.io.IOException;
 import java.net.URI;
-import java.util.Iterator;
-import java.util.ServiceLoader;
+import java.time.Duration;
 import java.util.concurrent.CompletionStage;
 
 import javax.validation.constraints.NotNull;
@@ -52,6 +52,10 @@ extends Closeable {
 
     /**
      * Executes the operation's HTTP request.
+     * <p>
+     * Cancelling the returned future, or completing it before the request
+     * completes, aborts the HTTP request, releasing its connection and
+     * stopping any response handling in progress.
      * 
      * @param uri The HTTP request target absolute URI.
      * @param method The HTTP request method.
@@ -68,6 +72,30 @@ extends Closeable {
             @NotNull HttpResponseHandler responseHandler)
     throws HttpClientException;
 
+    /**
+     * Shuts down this engine gracefully.
+     * <p>
+     * Further requests are rejected with
+     * {@code HttpRequestRejectedException}, the requests in flight are
+     * given up to the specified timeout to complete and the requests still
+     * in flight after the timeout are aborted. Then the engine is closed,
+     * terminating any executor created by the engine.
+     * <p>
+     * The default implementation does not track the requests in flight,
+     * and just closes the engine.
+     * 
+     * @param timeout The maximum time to wait for the requests in flight.
+     * @return The number of requests aborted.
+     * @throws IOException If an error occurs closing the engine.
+     * @see InFlightRequests
+     */
+    default int shutdown(
+            final @NotNull Duration timeout)
+    throws IOException {
+        close();
+        return 0;
+    }
+
     /**
      * Returns the first HTTP client engine declared through file
      * {@code META-INF/services/dev.orne.http.client.engine.HttpClientEngine}
@@ -77,16 +105,19 @@ extends Closeable {
      * {@code ServiceLoader} will be returned. To choose a specific engine
      * when multiple implementations are available use client's constructor
      * that accepts a engine as argument.
+     * <p>
+     * Implementations that cannot be instantiated in the current runtime
+     * (for example, engines that require a newer Java version) are
+     * skipped.
+     * <p>
+     * The {@code ServiceLoader} lookup is cached, so each call creates a new
+     * instance of the same engine type without scanning the class-path
+     * again. To share a single engine between clients use
+     * {@link HttpClientEngineRegistry#acquire()}.
      * 
      * @return The HTTP client engine to use.
      */
     static @NotNull HttpClientEngine fromSpi() {
-        final ServiceLoader<HttpClientEngine> loader = ServiceLoader.load(HttpClientEngine.class);
-        final Iterator<HttpClientEngine> iterator = loader.iterator();
-        if (iterator.hasNext()) {
-            return iterator.next();
-        } else {
-            throw new IllegalStateException("No HTTP service client engine in classpath");
-        }
+        return HttpClientEngineRegistry.createSpiEngine();
     }
 }
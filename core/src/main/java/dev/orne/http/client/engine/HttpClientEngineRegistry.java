@@ -0,0 +1,376 @@
+package dev.orne.http.client.engine;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.lang.ref.Reference;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.InvocationTargetException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.WeakHashMap;
+import java.util.function.Supplier;
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Registry of shared, reference counted, HTTP client engines.
+ * <p>
+ * Engines are shared by configuration key. The first acquisition of a key
+ * creates the engine; next acquisitions of the same key share it. Each
+ * acquisition returns a new {@code SharedHttpClientEngine} lease, whose
+ * {@code close()} releases a reference instead of closing the engine. The
+ * engine is closed, and removed from the registry, when the last lease is
+ * closed.
+ * <p>
+ * Note that the leases of the same key share the engine's cookie store.
+ * 
+ * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see SharedHttpClientEngine
+ */
+public class HttpClientEngineRegistry {
+
+    /** The configuration key of the engine loaded through SPI. */
+    public static final Object SPI_KEY = HttpClientEngine.class;
+
+    /** The registered engines, by configuration key. */
+    private final Map<Object, Registration> engines = new HashMap<>();
+
+    /**
+     * Creates a new instance.
+     */
+    public HttpClientEngineRegistry() {
+        super();
+    }
+
+    /**
+     * Returns the shared instance.
+     * 
+     * @return The shared instance.
+     */
+    public static @NotNull HttpClientEngineRegistry shared() {
+        return SharedHolder.INSTANCE;
+    }
+
+    /**
+     * Acquires a lease of the shared HTTP client engine loaded through SPI.
+     * 
+     * @return The lease of the shared HTTP client engine.
+     * @see HttpClientEngine#fromSpi()
+     */
+    public @NotNull SharedHttpClientEngine acquire() {
+        return acquire(SPI_KEY, HttpClientEngine::fromSpi);
+    }
+
+    /**
+     * Acquires a lease of the shared HTTP client engine for the specified
+     * configuration key, creating the engine with the specified factory if
+     * not registered.
+     * <p>
+     * Configuration keys are compared by {@code equals()}, so keys must be
+     * immutable, or not modified after acquisition.
+     * 
+     * @param key The engine configuration key.
+     * @param factory The engine factory.
+     * @return The lease of the shared HTTP client engine.
+     */
+    public @NotNull SharedHttpClientEngine acquire(
+            final @NotNull Object key,
+            final @NotNull Supplier<? extends HttpClientEngine> factory) {
+        Validate.notNull(key, "Engine configuration key is required");
+        Validate.notNull(factory, "Engine factory is required");
+        synchronized (this.engines) {
+            Registration registration = this.engines.get(key);
+            if (registration == null) {
+                registration = new Registration(key, Validate.notNull(
+                        factory.get(),
+                        "Engine factory returned no engine"));
+                this.engines.put(key, registration);
+            }
+            registration.references++;
+            return new SharedHttpClientEngine(this, registration);
+        }
+    }
+
+    /**
+     * Returns the number of open leases of the shared HTTP client engine
+     * for the specified configuration key.
+     * 
+     * @param key The engine configuration key.
+     * @return The number of open leases, zero if not registered.
+     */
+    public int getReferenceCount(
+            final @NotNull Object key) {
+        synchronized (this.engines) {
+            final Registration registration = this.engines.get(key);
+            return registration == null ? 0 : registration.references;
+        }
+    }
+
+    /**
+     * Releases a reference to the specified registered engine, closing it
+     * if this is the last reference.
+     * 
+     * @param registration The engine registration.
+     * @throws IOException If an error occurs closing the engine.
+     */
+    void release(
+            final @NotNull Registration registration)
+    throws IOException {
+        if (releaseReference(registration)) {
+            registration.engine.close();
+        }
+    }
+
+    /**
+     * Releases a reference to the specified registered engine, shutting it
+     * down gracefully if this is the last reference.
+     * 
+     * @param registration The engine registration.
+     * @param timeout The maximum time to wait for the requests in flight.
+     * @return The number of requests aborted.
+     * @throws IOException If an error occurs closing the engine.
+     * @see HttpClientEngine#shutdown(Duration)
+     */
+    int release(
+            final @NotNull Registration registration,
+            final @NotNull Duration timeout)
+    throws IOException {
+        if (releaseReference(registration)) {
+            return registration.engine.shutdown(timeout);
+        }
+        return 0;
+    }
+
+    /**
+     * Releases a reference to the specified registered engine, removing
+     * it from this registry if this is the last reference.
+     * 
+     * @param registration The engine registration.
+     * @return If this was the last reference.
+     */
+    private boolean releaseReference(
+            final @NotNull Registration registration) {
+        synchronized (this.engines) {
+            registration.references--;
+            if (registration.references > 0) {
+                return false;
+            }
+            this.engines.remove(registration.key, registration);
+            return true;
+        }
+    }
+
+    /**
+     * Returns the type of the first HTTP client engine declared through
+     * file
+     * {@code META-INF/services/dev.orne.http.client.engine.HttpClientEngine}
+     * that can be instantiated in the current runtime.
+     * <p>
+     * The {@code ServiceLoader} lookup is executed once per context class
+     * loader; later calls return the cached type. The engine instantiated
+     * by the lookup is closed.
+     * 
+     * @return The type of the HTTP client engine to use.
+     */
+    static @NotNull Class<? extends HttpClientEngine> getSpiEngineType() {
+        final ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        synchronized (SpiCache.TYPES) {
+            final Class<? extends HttpClientEngine> cached = getCachedSpiEngineType(classLoader);
+            if (cached != null) {
+                return cached;
+            }
+            final HttpClientEngine probe = loadSpiEngine(classLoader);
+            try {
+                return probe.getClass();
+            } finally {
+                try {
+                    probe.close();
+                } catch (final IOException e) {
+                    // Only the engine type is required
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates a new instance of the HTTP client engine declared through
+     * SPI, using the cached engine type.
+     * <p>
+     * If the engine type is not cached yet, the engine instantiated by the
+     * {@code ServiceLoader} lookup is returned.
+     * 
+     * @return The new HTTP client engine.
+     * @see #getSpiEngineType()
+     */
+    static @NotNull HttpClientEngine createSpiEngine() {
+        final ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        final Class<? extends HttpClientEngine> type;
+        synchronized (SpiCache.TYPES) {
+            type = getCachedSpiEngineType(classLoader);
+            if (type == null) {
+                return loadSpiEngine(classLoader);
+            }
+        }
+        try {
+            return type.getConstructor().newInstance();
+        } catch (final InvocationTargetException e) {
+            throw new IllegalStateException(
+                    String.format("Error creating HTTP service client engine %s", type.getName()),
+                    e.getCause());
+        } catch (final ReflectiveOperationException e) {
+            throw new IllegalStateException(
+                    String.format("Error creating HTTP service client engine %s", type.getName()),
+                    e);
+        }
+    }
+
+    /**
+     * Returns the cached type of the HTTP client engine declared through
+     * SPI in the specified class loader. Must be called holding the
+     * cache's lock.
+     * 
+     * @param classLoader The class loader.
+     * @return The cached HTTP client engine type, or {@code null} if not
+     * cached.
+     */
+    private static Class<? extends HttpClientEngine> getCachedSpiEngineType(
+            final ClassLoader classLoader) {
+        final Reference<Class<? extends HttpClientEngine>> cached = SpiCache.TYPES.get(classLoader);
+        return cached == null ? null : cached.get();
+    }
+
+    /**
+     * Loads the first HTTP client engine declared through SPI in the
+     * specified class loader, caching its type. Must be called holding
+     * the cache's lock.
+     * 
+     * @param classLoader The class loader.
+     * @return The HTTP client engine.
+     */
+    private static @NotNull HttpClientEngine loadSpiEngine(
+            final ClassLoader classLoader) {
+        final ServiceLoader<HttpClientEngine> loader = ServiceLoader.load(HttpClientEngine.class, classLoader);
+        final Iterator<HttpClientEngine> iterator = loader.iterator();
+        while (iterator.hasNext()) {
+            try {
+                final HttpClientEngine engine = iterator.next();
+                SpiCache.TYPES.put(classLoader, new WeakReference<>(engine.getClass()));
+                return engine;
+            } catch (final ServiceConfigurationError e) {
+                // Engine not available in current runtime. Try next one.
+            }
+        }
+        throw new IllegalStateException("No HTTP service client engine in classpath");
+    }
+
+    /**
+     * Registered HTTP client engine.
+     * 
+     * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
+     * @version 1.0, 2023-10
+     * @since HttpClientEngineRegistry 1.0
+     */
+    static final class Registration {
+
+        /** The engine configuration key. */
+        private final @NotNull Object key;
+        /** The shared engine. */
+        private final @NotNull HttpClientEngine engine;
+        /** The number of open leases. Guarded by the registry's map. */
+        private int references;
+
+        /**
+         * Creates a new instance.
+         * 
+         * @param key The engine configuration key.
+         * @param engine The shared engine.
+         */
+        Registration(
+                final @NotNull Object key,
+                final @NotNull HttpClientEngine engine) {
+            super();
+            this.key = key;
+            this.engine = engine;
+        }
+
+        /**
+         * Returns the shared engine.
+         * 
+         * @return The shared engine.
+         */
+        @NotNull HttpClientEngine getEngine() {
+            return this.engine;
+        }
+    }
+
+    /**
+     * Cache of the HTTP client engine types loaded through SPI, by
+     * class loader.
+     * 
+     * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
+     * @version 1.0, 2023-10
+     * @since HttpClientEngineRegistry 1.0
+     */
+    private static final class SpiCache {
+
+        /** The cached engine types, by class loader. */
+        private static final Map<ClassLoader, Reference<Class<? extends HttpClientEngine>>> TYPES =
+                new WeakHashMap<>();
+
+        /**
+         * Private constructor.
+         */
+        private SpiCache() {
+            // Holder class
+        }
+    }
+
+    /**
+     * Holder of the shared instance, created on first use.
+     * 
+     * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
+     * @version 1.0, 2023-10
+     * @since HttpClientEngineRegistry 1.0
+     */
+    private static final class SharedHolder {
+
+        /** The shared instance. */
+        private static final HttpClientEngineRegistry INSTANCE = new HttpClientEngineRegistry();
+
+        /**
+         * Private constructor.
+         */
+        private SharedHolder() {
+            // Holder class
+        }
+    }
+}
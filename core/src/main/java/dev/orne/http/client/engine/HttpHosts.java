@@ -0,0 +1,70 @@
+package dev.orne.http.client.engine;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.net.URI;
+import java.util.Locale;
+
+import javax.validation.constraints.NotNull;
+
+/**
+ * Utility methods for the target hosts of HTTP requests.
+ * 
+ * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ */
+final class HttpHosts {
+
+    /** The default HTTP port. */
+    private static final int HTTP_PORT = 80;
+    /** The default HTTPS port. */
+    private static final int HTTPS_PORT = 443;
+
+    /**
+     * Private constructor.
+     */
+    private HttpHosts() {
+        // Utility class
+    }
+
+    /**
+     * Returns the key of the target host of the specified URI, composed by
+     * its host, in lower case, and port. Default ports are used for URIs
+     * without port.
+     * 
+     * @param uri The request URI.
+     * @return The target host key.
+     */
+    static @NotNull String getKey(
+            final @NotNull URI uri) {
+        final String host = uri.getHost() == null
+                ? String.valueOf(uri.getAuthority())
+                : uri.getHost().toLowerCase(Locale.ROOT);
+        int port = uri.getPort();
+        if (port == -1) {
+            port = "https".equalsIgnoreCase(uri.getScheme()) ? HTTPS_PORT : HTTP_PORT;
+        }
+        return host + ":" + port;
+    }
+}
@@ -24,6 +24,10 @@ package dev.orne.http.client.engine;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
 
 import javax.validation.constraints.NotNull;
 
@@ -123,6 +127,128 @@ public interface HttpRequest {
             @NotNull BodyProducer bodyProducer)
     throws HttpClientException;
 
+    /**
+     * Sets the contents of the specified file as HTTP request body.
+     * <p>
+     * The body is sent with a known length. Engines may send the file
+     * directly to the transport with {@code FileChannel.transferTo()}
+     * instead of copying it through an output stream.
+     * 
+     * @param contentType The body content type.
+     * @param file The file to send.
+     * @throws HttpClientException If an error occurs setting the HTTP
+     * request body.
+     * @see FileBodyProducer
+     */
+    default void setBody(
+            @NotNull ContentType contentType,
+            @NotNull Path file)
+    throws HttpClientException {
+        final FileBodyProducer producer = FileBodyProducer.of(file);
+        setBody(contentType, producer.getLength(), producer);
+    }
+
+    /**
+     * Sets the contents of the specified file channel, from its current
+     * position to its end, as HTTP request body.
+     * <p>
+     * The body is sent with a known length. Engines may send the file
+     * directly to the transport with {@code FileChannel.transferTo()}
+     * instead of copying it through an output stream. The position of
+     * the channel is not changed and the channel is not closed.
+     * 
+     * @param contentType The body content type.
+     * @param channel The file channel to send.
+     * @throws HttpClientException If an error occurs setting the HTTP
+     * request body.
+     * @see FileBodyProducer
+     */
+    default void setBody(
+            @NotNull ContentType contentType,
+            @NotNull FileChannel channel)
+    throws HttpClientException {
+        final FileBodyProducer producer = FileBodyProducer.of(channel);
+        setBody(contentType, producer.getLength(), producer);
+    }
+
+    /**
+     * Sets the maximum time to wait for the connection to the target host
+     * to be established.
+     * <p>
+     * Overrides the engine wide connect timeout for this request.
+     * <p>
+     * Default implementation throws {@code HttpClientException}, as
+     * the timeout is not supported.
+     * 
+     * @param timeout The connect timeout.
+     * @throws HttpClientException If an error occurs setting the timeout
+     * or the timeout is not supported.
+     */
+    default void setConnectTimeout(
+            @NotNull Duration timeout)
+    throws HttpClientException {
+        throw new HttpClientException("Request connect timeout not supported");
+    }
+
+    /**
+     * Sets the maximum time to wait for response data once the request
+     * has been sent, including the time to the first response byte.
+     * <p>
+     * Overrides the engine wide response timeout for this request.
+     * <p>
+     * Default implementation throws {@code HttpClientException}, as
+     * the timeout is not supported.
+     * 
+     * @param timeout The response timeout.
+     * @throws HttpClientException If an error occurs setting the timeout
+     * or the timeout is not supported.
+     */
+    default void setResponseTimeout(
+            @NotNull Duration timeout)
+    throws HttpClientException {
+        throw new HttpClientException("Request response timeout not supported");
+    }
+
+    /**
+     * Sets the total timeout of the HTTP request.
+     * <p>
+     * The total timeout covers the whole request execution, including
+     * queueing, connection, request sending and response handling. If the
+     * request is not completed in time it is aborted and its future result
+     * completes exceptionally with {@code HttpRequestTimeoutException}.
+     * <p>
+     * Default implementation throws {@code HttpClientException}, as
+     * the timeout is not supported.
+     * 
+     * @param timeout The total timeout.
+     * @throws HttpClientException If an error occurs setting the timeout
+     * or the timeout is not supported.
+     * @see dev.orne.http.client.HttpRequestTimeoutException
+     */
+    default void setTimeout(
+            @NotNull Duration timeout)
+    throws HttpClientException {
+        throw new HttpClientException("Request total timeout not supported");
+    }
+
+    /**
+     * Sets the deadline of the HTTP request.
+     * <p>
+     * Sets the total timeout of the request to the time remaining until
+     * the specified instant. Passed deadlines result in a zero total
+     * timeout.
+     * 
+     * @param deadline The instant the request must be completed before.
+     * @throws HttpClientException If an error occurs setting the deadline.
+     * @see #setTimeout(Duration)
+     */
+    default void setDeadline(
+            @NotNull Instant deadline)
+    throws HttpClientException {
+        final Duration remaining = Duration.between(Instant.now(), deadline);
+        setTimeout(remaining.isNegative() ? Duration.ZERO : remaining);
+    }
+
     /**
      * Functional interface for HTTP request body producers.
      * 
@@ -0,0 +1,323 @@
+package dev.orne.http.client.engine;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.validation.constraints.NotNull;
+
+import dev.orne.http.ContentType;
+import dev.orne.http.client.HttpClientException;
+import dev.orne.http.client.HttpRequestBodyGenerationException;
+
+/**
+ * Recorder of the customizations of a HTTP request, that can be
+ * replayed in other attempts of the same request.
+ * <p>
+ * Bodies set through {@code HttpRequest.BodyProducer} are buffered in
+ * memory when the request is idempotent. Total timeouts are recorded as
+ * deadlines, so they cover all the attempts of the request.
+ * 
+ * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see RetryingHttpClientEngine
+ * @see HedgingHttpClientEngine
+ */
+class HttpRequestRecorder {
+
+    /** The header that marks requests as idempotent. */
+    private final String idempotencyHeader;
+    /** The recorded customizations. */
+    private final List<Step> steps = new ArrayList<>();
+    /** If the request is idempotent. */
+    private volatile boolean idempotent;
+    /** If the request can be replayed. */
+    private volatile boolean replayable = true;
+    /** The request deadline. */
+    private volatile Instant deadline;
+    /** If the customizations have been recorded. */
+    private volatile boolean recorded;
+
+    /**
+     * Creates a new instance.
+     * 
+     * @param idempotent If the HTTP request method is idempotent.
+     * @param idempotencyHeader The header that marks requests as
+     * idempotent, if any.
+     */
+    HttpRequestRecorder(
+            final boolean idempotent,
+            final String idempotencyHeader) {
+        super();
+        this.idempotent = idempotent;
+        this.idempotencyHeader = idempotencyHeader;
+    }
+
+    /**
+     * Returns {@code true} if the request is idempotent and can be
+     * replayed.
+     * 
+     * @return If the request can be retried.
+     */
+    boolean isRetryable() {
+        return this.idempotent && this.replayable;
+    }
+
+    /**
+     * Returns {@code true} if the customizations have been recorded
+     * successfully, and can be replayed.
+     * 
+     * @return If the customizations have been recorded.
+     */
+    boolean isRecorded() {
+        return this.recorded;
+    }
+
+    /**
+     * Returns the request deadline.
+     * 
+     * @return The request deadline, or {@code null} if not set.
+     */
+    Instant getDeadline() {
+        return this.deadline;
+    }
+
+    /**
+     * Customizes the specified HTTP request with the specified
+     * customizer, recording the customizations.
+     * 
+     * @param customizer The HTTP request customizer.
+     * @param request The HTTP request.
+     * @throws HttpClientException If an error occurs preparing the HTTP
+     * request.
+     */
+    void record(
+            final @NotNull HttpRequestCustomizer customizer,
+            final @NotNull HttpRequest request)
+    throws HttpClientException {
+        this.steps.clear();
+        customizer.customizeRequest(new Recording(request));
+        this.recorded = true;
+    }
+
+    /**
+     * Replays the recorded customizations in the specified HTTP request.
+     * 
+     * @param request The HTTP request.
+     * @throws HttpClientException If an error occurs preparing the HTTP
+     * request.
+     */
+    void replay(
+            final @NotNull HttpRequest request)
+    throws HttpClientException {
+        for (final Step step : this.steps) {
+            step.apply(request);
+        }
+    }
+
+    /**
+     * Recorded HTTP request customization.
+     * 
+     * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
+     * @version 1.0, 2023-10
+     * @since HttpRequestRecorder 1.0
+     */
+    @FunctionalInterface
+    private interface Step {
+
+        /**
+         * Applies the customization to the specified HTTP request.
+         * 
+         * @param request The HTTP request.
+         * @throws HttpClientException If an error occurs customizing
+         * the HTTP request.
+         */
+        void apply(
+                @NotNull HttpRequest request)
+        throws HttpClientException;
+    }
+
+    /**
+     * HTTP request that records the customizations applied to the
+     * actual HTTP request.
+     * 
+     * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
+     * @version 1.0, 2023-10
+     * @since HttpRequestRecorder 1.0
+     */
+    private final class Recording
+    implements HttpRequest {
+
+        /** The actual HTTP request. */
+        private final @NotNull HttpRequest target;
+
+        /**
+         * Creates a new instance.
+         * 
+         * @param target The actual HTTP request.
+         */
+        private Recording(
+                final @NotNull HttpRequest target) {
+            super();
+            this.target = target;
+        }
+
+        /**
+         * Applies the specified customization to the actual HTTP
+         * request and records it.
+         * 
+         * @param step The customization.
+         * @throws HttpClientException If an error occurs customizing
+         * the HTTP request.
+         */
+        private void apply(
+                final @NotNull Step step)
+        throws HttpClientException {
+            step.apply(this.target);
+            HttpRequestRecorder.this.steps.add(step);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void addHeader(
+                final @NotNull String header,
+                final @NotNull String... values)
+        throws HttpClientException {
+            final String[] copy = values.clone();
+            apply(request -> request.addHeader(header, copy));
+            if (header.equalsIgnoreCase(HttpRequestRecorder.this.idempotencyHeader)) {
+                HttpRequestRecorder.this.idempotent = true;
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void setBody(
+                final @NotNull ContentType contentType,
+                final @NotNull String body)
+        throws HttpClientException {
+            apply(request -> request.setBody(contentType, body));
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void setBody(
+                final @NotNull ContentType contentType,
+                final @NotNull byte[] body)
+        throws HttpClientException {
+            apply(request -> request.setBody(contentType, body));
+        }
+
+        /**
+         * {@inheritDoc}
+         * <p>
+         * If the request is idempotent the body is buffered in memory,
+         * so it can be replayed. Otherwise the request is not retried.
+         * File bodies are replayed from the file instead of being
+         * buffered.
+         */
+        @Override
+        public void setBody(
+                final @NotNull ContentType contentType,
+                final long length,
+                final @NotNull BodyProducer bodyProducer)
+        throws HttpClientException {
+            if (!HttpRequestRecorder.this.idempotent) {
+                HttpRequestRecorder.this.replayable = false;
+                this.target.setBody(contentType, length, bodyProducer);
+                return;
+            }
+            if (bodyProducer instanceof FileBodyProducer) {
+                apply(request -> request.setBody(contentType, length, bodyProducer));
+                return;
+            }
+            final ByteArrayOutputStream buffer = new ByteArrayOutputStream(
+                    length > 0 && length < Integer.MAX_VALUE ? (int) length : 256);
+            try {
+                bodyProducer.writeBody(buffer);
+            } catch (final IOException e) {
+                throw new HttpRequestBodyGenerationException("Error buffering HTTP request body", e);
+            }
+            final byte[] body = buffer.toByteArray();
+            apply(request -> request.setBody(contentType, body));
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void setConnectTimeout(
+                final @NotNull Duration timeout)
+        throws HttpClientException {
+            apply(request -> request.setConnectTimeout(timeout));
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void setResponseTimeout(
+                final @NotNull Duration timeout)
+        throws HttpClientException {
+            apply(request -> request.setResponseTimeout(timeout));
+        }
+
+        /**
+         * {@inheritDoc}
+         * <p>
+         * The total timeout covers all the attempts of the request.
+         */
+        @Override
+        public void setTimeout(
+                final @NotNull Duration timeout)
+        throws HttpClientException {
+            this.target.setTimeout(timeout);
+            final Instant requestDeadline = Instant.now().plus(timeout);
+            HttpRequestRecorder.this.deadline = requestDeadline;
+            HttpRequestRecorder.this.steps.add(request -> request.setDeadline(requestDeadline));
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void setDeadline(
+                final @NotNull Instant deadline)
+        throws HttpClientException {
+            apply(request -> request.setDeadline(deadline));
+            HttpRequestRecorder.this.deadline = deadline;
+        }
+    }
+}
@@ -26,10 +26,19 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 
 import javax.validation.constraints.NotNull;
 
+import org.apache.commons.lang3.Validate;
+
 import dev.orne.http.ContentType;
 import dev.orne.http.client.HttpResponseBodyParsingException;
 import dev.orne.http.client.HttpResponseHandlingException;
@@ -44,6 +53,9 @@ import dev.orne.http.client.body.HttpResponseBodyParser;
  */
 public interface HttpResponseBody {
 
+    /** The size of the buffers used to transfer the content to channels. */
+    int TRANSFER_BUFFER_SIZE = 64 * 1024;
+
     /**
      * Returns the content type of the response body.
      * 
@@ -77,6 +89,155 @@ public interface HttpResponseBody {
     InputStream getContent()
     throws HttpResponseHandlingException;
 
+    /**
+     * Returns a channel with the content of the response body.
+     * <p>
+     * The calling method is responsible of closing the channel.
+     * <p>
+     * The default implementation adapts the stream returned by
+     * {@link #getContent()}. Implementations backed by buffers or channels
+     * should override this method to avoid intermediate copies.
+     * 
+     * @return The content of the response body, if any.
+     * @throws HttpResponseHandlingException If an error occurs retrieving
+     * the response body content.
+     */
+    default ReadableByteChannel getContentChannel()
+    throws HttpResponseHandlingException {
+        final InputStream content = getContent();
+        if (content == null) {
+            return null;
+        }
+        return Channels.newChannel(content);
+    }
+
+    /**
+     * Reads the whole content of the response body in a buffer.
+     * <p>
+     * The returned buffer is ready to be read, with its position at the
+     * start of the content and its limit at the end of the content.
+     * Implementations backed by buffers may return read only views of
+     * their buffers.
+     * 
+     * @return The content of the response body, or {@code null} if no
+     * body content is available.
+     * @throws HttpResponseHandlingException If an error occurs reading
+     * the response body content.
+     */
+    default ByteBuffer getContentBuffer()
+    throws HttpResponseHandlingException {
+        try (final ReadableByteChannel channel = getContentChannel()) {
+            if (channel == null) {
+                return null;
+            }
+            final long length = getContentLength();
+            ByteBuffer buffer = ByteBuffer.allocate(length >= 0 && length < Integer.MAX_VALUE
+                    ? (int) length
+                    : TRANSFER_BUFFER_SIZE);
+            while (true) {
+                if (!buffer.hasRemaining()) {
+                    final ByteBuffer probe = ByteBuffer.allocate(1);
+                    if (channel.read(probe) == -1) {
+                        break;
+                    }
+                    final long capacity = Math.max(
+                            (long) buffer.capacity() * 2,
+                            TRANSFER_BUFFER_SIZE);
+                    if (capacity > Integer.MAX_VALUE - 8) {
+                        throw new HttpResponseHandlingException(
+                                "Response body content too large for a buffer");
+                    }
+                    buffer.flip();
+                    buffer = ByteBuffer.allocate((int) capacity).put(buffer);
+                    probe.flip();
+                    buffer.put(probe);
+                } else if (channel.read(buffer) == -1) {
+                    break;
+                }
+            }
+            buffer.flip();
+            return buffer;
+        } catch (final IOException e) {
+            throw new HttpResponseHandlingException(
+                    "Error reading response body content", e);
+        }
+    }
+
+    /**
+     * Transfers the content of the response body to the specified channel.
+     * The channel is not closed.
+     * <p>
+     * Content transferred to a {@code FileChannel} is written starting at
+     * its current position, that is advanced to the end of the written
+     * content, through {@code FileChannel.transferFrom()}, that avoids
+     * intermediate heap copies. Other channels are written through a
+     * direct buffer.
+     * 
+     * @param target The target channel.
+     * @return The number of bytes transferred.
+     * @throws HttpResponseHandlingException If an error occurs transferring
+     * the response body content.
+     */
+    default long transferTo(
+            final @NotNull WritableByteChannel target)
+    throws HttpResponseHandlingException {
+        Validate.notNull(target, "Target channel is required");
+        try (final ReadableByteChannel source = getContentChannel()) {
+            if (source == null) {
+                return 0;
+            }
+            long total = 0;
+            if (target instanceof FileChannel) {
+                final FileChannel file = (FileChannel) target;
+                final long start = file.position();
+                long count;
+                while ((count = file.transferFrom(source, start + total, TRANSFER_BUFFER_SIZE)) > 0) {
+                    total += count;
+                }
+                file.position(start + total);
+            } else {
+                final ByteBuffer buffer = ByteBuffer.allocateDirect(TRANSFER_BUFFER_SIZE);
+                while (source.read(buffer) != -1) {
+                    buffer.flip();
+                    while (buffer.hasRemaining()) {
+                        total += target.write(buffer);
+                    }
+                    buffer.clear();
+                }
+            }
+            return total;
+        } catch (final IOException e) {
+            throw new HttpResponseHandlingException(
+                    "Error transferring response body content", e);
+        }
+    }
+
+    /**
+     * Transfers the content of the response body to the specified file,
+     * creating or truncating it.
+     * 
+     * @param target The target file.
+     * @return The number of bytes transferred.
+     * @throws HttpResponseHandlingException If an error occurs transferring
+     * the response body content.
+     * @see #transferTo(WritableByteChannel)
+     */
+    default long transferTo(
+            final @NotNull Path target)
+    throws HttpResponseHandlingException {
+        Validate.notNull(target, "Target file is required");
+        try (final FileChannel channel = FileChannel.open(
+                target,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            return transferTo(channel);
+        } catch (final IOException e) {
+            throw new HttpResponseHandlingException(
+                    "Error writing response body content to " + target, e);
+        }
+    }
+
     /**
      * Creates a HTTP response body reader.
      * <p>
@@ -0,0 +1,186 @@
+package dev.orne.http.client.engine;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.lang3.Validate;
+
+import dev.orne.http.client.HttpClientException;
+import dev.orne.http.client.HttpRequestRejectedException;
+
+/**
+ * Tracker of the requests in flight of a HTTP client engine, supporting
+ * graceful shutdown.
+ * <p>
+ * Once shut down, further requests are rejected with
+ * {@code HttpRequestRejectedException}, the requests in flight are given
+ * a grace period to complete and the requests still in flight after the
+ * grace period are aborted cancelling their futures.
+ * 
+ * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see HttpClientEngine#shutdown(Duration)
+ */
+public class InFlightRequests {
+
+    /** The shutdown lock. Read locked while registering requests. */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    /** The requests in flight. */
+    private final Set<CompletableFuture<?>> requests = ConcurrentHashMap.newKeySet();
+    /** If this instance has been shut down. */
+    private volatile boolean shutdown;
+
+    /**
+     * Creates a new instance.
+     */
+    public InFlightRequests() {
+        super();
+    }
+
+    /**
+     * Starts the specified request execution and tracks the resulting
+     * future until completed.
+     * 
+     * @param <T> The request result type.
+     * @param execution The request execution.
+     * @return The tracked future of the request result.
+     * @throws HttpRequestRejectedException If this instance has been
+     * shut down.
+     * @throws HttpClientException If an exception occurs starting the
+     * request execution.
+     */
+    public <T> @NotNull CompletableFuture<T> execute(
+            final @NotNull Execution<T> execution)
+    throws HttpClientException {
+        Validate.notNull(execution, "Request execution is required");
+        this.lock.readLock().lock();
+        try {
+            if (this.shutdown) {
+                throw new HttpRequestRejectedException("HTTP client engine is shut down");
+            }
+            final CompletableFuture<T> result = execution.execute().toCompletableFuture();
+            this.requests.add(result);
+            result.whenComplete((value, error) -> this.requests.remove(result));
+            return result;
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the number of requests in flight.
+     * 
+     * @return The number of requests in flight.
+     */
+    public int getCount() {
+        return this.requests.size();
+    }
+
+    /**
+     * Returns {@code true} if this instance has been shut down.
+     * 
+     * @return If this instance has been shut down.
+     */
+    public boolean isShutdown() {
+        return this.shutdown;
+    }
+
+    /**
+     * Shuts down this instance, rejecting further requests and waiting up
+     * to the specified timeout for the requests in flight to complete.
+     * Requests still in flight after the timeout are aborted.
+     * <p>
+     * If the current thread is interrupted while waiting the requests in
+     * flight are aborted immediately, preserving the interrupted status.
+     * 
+     * @param timeout The maximum time to wait for the requests in flight.
+     * @return The number of requests aborted.
+     */
+    public int shutdown(
+            final @NotNull Duration timeout) {
+        Validate.notNull(timeout, "Timeout is required");
+        Validate.isTrue(!timeout.isNegative(), "Timeout cannot be negative");
+        this.lock.writeLock().lock();
+        try {
+            this.shutdown = true;
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+        final List<CompletableFuture<?>> pending = new ArrayList<>(this.requests);
+        if (pending.isEmpty()) {
+            return 0;
+        }
+        try {
+            CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0]))
+                .get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (final ExecutionException | TimeoutException e) {
+            // Failed requests are done. Abort the remaining ones.
+        }
+        int aborted = 0;
+        for (final CompletableFuture<?> request : pending) {
+            if (request.cancel(true)) {
+                aborted++;
+            }
+        }
+        return aborted;
+    }
+
+    /**
+     * Request execution.
+     * 
+     * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
+     * @version 1.0, 2023-10
+     * @param <T> The request result type.
+     * @since InFlightRequests 1.0
+     */
+    @FunctionalInterface
+    public interface Execution<T> {
+
+        /**
+         * Starts the request execution.
+         * 
+         * @return The future of the request result.
+         * @throws HttpClientException If an exception occurs starting the
+         * request execution.
+         */
+        @NotNull CompletionStage<T> execute()
+        throws HttpClientException;
+    }
+}
@@ -0,0 +1,147 @@
+package dev.orne.http.client.engine;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Tracker of a percentile of the latency of the last requests.
+ * <p>
+ * The latencies are recorded in a lock-free ring buffer. The percentile
+ * is recalculated each time a tenth of the buffer has been renewed, so
+ * the sorting cost is amortized between the recorded requests.
+ * 
+ * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see HedgingHttpClientEngine
+ */
+public class LatencyTracker {
+
+    /** The tracked percentile, between 0 and 1. */
+    private final double percentile;
+    /** The minimum number of samples to calculate the percentile. */
+    private final int minSamples;
+    /** The number of samples between percentile calculations. */
+    private final int refreshInterval;
+    /** The latency samples ring buffer, in nanoseconds. */
+    private final AtomicLongArray samples;
+    /** The number of samples recorded. */
+    private final AtomicLong count = new AtomicLong();
+    /** The last calculated percentile, in nanoseconds. */
+    private volatile long value = -1;
+
+    /**
+     * Creates a new instance.
+     * 
+     * @param percentile The tracked percentile, between 0 and 1.
+     * @param windowSize The number of last samples used to calculate the
+     * percentile.
+     * @param minSamples The minimum number of samples to calculate the
+     * percentile.
+     */
+    public LatencyTracker(
+            final double percentile,
+            final int windowSize,
+            final int minSamples) {
+        super();
+        Validate.isTrue(percentile > 0 && percentile < 1, "The percentile must be between 0 and 1");
+        Validate.isTrue(windowSize > 0, "The window size must be positive");
+        Validate.isTrue(minSamples > 0, "The minimum number of samples must be positive");
+        this.percentile = percentile;
+        this.minSamples = Math.min(minSamples, windowSize);
+        this.refreshInterval = Math.max(1, windowSize / 10);
+        this.samples = new AtomicLongArray(windowSize);
+    }
+
+    /**
+     * Returns the tracked percentile, between 0 and 1.
+     * 
+     * @return The tracked percentile.
+     */
+    public double getPercentile() {
+        return this.percentile;
+    }
+
+    /**
+     * Returns the total number of samples recorded.
+     * 
+     * @return The number of samples recorded.
+     */
+    public long getSampleCount() {
+        return this.count.get();
+    }
+
+    /**
+     * Records the latency of a request.
+     * 
+     * @param nanos The request latency, in nanoseconds.
+     */
+    public void record(
+            final long nanos) {
+        final long index = this.count.getAndIncrement();
+        this.samples.set((int) (index % this.samples.length()), Math.max(0, nanos));
+        final long recorded = index + 1;
+        if (recorded >= this.minSamples
+                && (recorded == this.minSamples || recorded % this.refreshInterval == 0)) {
+            refresh();
+        }
+    }
+
+    /**
+     * Returns the tracked percentile of the latency of the last requests.
+     * 
+     * @return The latency percentile, or {@code null} if not enough
+     * samples have been recorded.
+     */
+    public Duration getValue() {
+        if (this.count.get() < this.minSamples) {
+            return null;
+        }
+        long current = this.value;
+        if (current < 0) {
+            refresh();
+            current = this.value;
+        }
+        return Duration.ofNanos(current);
+    }
+
+    /**
+     * Recalculates the tracked percentile.
+     */
+    protected void refresh() {
+        final int size = (int) Math.min(this.count.get(), this.samples.length());
+        final long[] sorted = new long[size];
+        for (int i = 0; i < size; i++) {
+            sorted[i] = this.samples.get(i);
+        }
+        Arrays.sort(sorted);
+        final int index = (int) Math.ceil(this.percentile * size) - 1;
+        this.value = sorted[Math.max(0, Math.min(size - 1, index))];
+    }
+}
@@ -0,0 +1,92 @@
+package dev.orne.http.client.engine;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import javax.validation.constraints.NotNull;
+
+/**
+ * Endpoint selector that applies the power of two choices over the least
+ * outstanding requests.
+ * <p>
+ * Two distinct endpoints are picked at random and the one with less
+ * requests in flight is selected, breaking ties with the latency moving
+ * average. This spreads the load almost as well as a full least loaded
+ * scan, without herding all the clients onto the same endpoint.
+ * 
+ * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see LoadBalancingHttpClientEngine
+ */
+public class LeastOutstandingEndpointSelector
+implements EndpointSelector {
+
+    /**
+     * Creates a new instance.
+     */
+    public LeastOutstandingEndpointSelector() {
+        super();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull Endpoint select(
+            final @NotNull List<@NotNull Endpoint> endpoints,
+            final @NotNull URI uri) {
+        final int size = endpoints.size();
+        if (size == 1) {
+            return endpoints.get(0);
+        }
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        final int first = random.nextInt(size);
+        int second = random.nextInt(size - 1);
+        if (second >= first) {
+            second++;
+        }
+        return choose(endpoints.get(first), endpoints.get(second));
+    }
+
+    /**
+     * Chooses the less loaded of the specified endpoints.
+     * 
+     * @param first The first candidate.
+     * @param second The second candidate.
+     * @return The chosen endpoint.
+     */
+    protected @NotNull Endpoint choose(
+            final @NotNull Endpoint first,
+            final @NotNull Endpoint second) {
+        final int firstOutstanding = first.getOutstanding();
+        final int secondOutstanding = second.getOutstanding();
+        if (firstOutstanding != secondOutstanding) {
+            return firstOutstanding < secondOutstanding ? first : second;
+        }
+        return second.getLatencyNanos() < first.getLatencyNanos() ? second : first;
+    }
+}
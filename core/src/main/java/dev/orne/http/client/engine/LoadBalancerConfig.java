@@ -0,0 +1,328 @@
+package dev.orne.http.client.engine;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.lang3.Validate;
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+import dev.orne.http.StatusCodes;
+
+/**
+ * Configuration of the passive outlier detection of
+ * {@code LoadBalancingHttpClientEngine}.
+ * <p>
+ * The error rate and latency of each endpoint are tracked as exponentially
+ * weighted moving averages (EWMA), with a weight of 0.1 for each new
+ * sample. By default endpoints are ejected for 30 seconds when, after at
+ * least 20 requests, half of their requests fail or their latency is
+ * three times the average latency of the other endpoints. No more than
+ * half of the endpoints are ejected at the same time.
+ * 
+ * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see Endpoint
+ * @see LoadBalancingHttpClientEngine
+ */
+public class LoadBalancerConfig {
+
+    /** The default weight of new samples in the moving averages. */
+    public static final double DEFAULT_EWMA_WEIGHT = 0.1;
+    /** The default minimum number of requests before ejection. */
+    public static final int DEFAULT_MIN_REQUESTS = 20;
+    /** The default error rate threshold. */
+    public static final double DEFAULT_ERROR_RATE_THRESHOLD = 0.5;
+    /** The default latency threshold, relative to the other endpoints. */
+    public static final double DEFAULT_LATENCY_THRESHOLD = 3;
+    /** The default ejection duration. */
+    public static final Duration DEFAULT_EJECTION_DURATION = Duration.ofSeconds(30);
+    /** The default maximum ratio of ejected endpoints. */
+    public static final double DEFAULT_MAX_EJECTED_RATIO = 0.5;
+    /** The default failure response status codes. */
+    public static final Set<Integer> DEFAULT_FAILURE_STATUS_CODES =
+            Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+                    StatusCodes.INTERNAL_SERVER_ERROR,
+                    StatusCodes.BAD_GATEWAY,
+                    StatusCodes.SERVICE_UNAVAILABLE,
+                    StatusCodes.GATEWAY_TIMEOUT)));
+
+    /** The weight of new samples in the moving averages. */
+    private double ewmaWeight = DEFAULT_EWMA_WEIGHT;
+    /** The minimum number of requests before ejection. */
+    private int minRequests = DEFAULT_MIN_REQUESTS;
+    /** The error rate threshold. */
+    private double errorRateThreshold = DEFAULT_ERROR_RATE_THRESHOLD;
+    /** The latency threshold, relative to the other endpoints. */
+    private double latencyThreshold = DEFAULT_LATENCY_THRESHOLD;
+    /** The ejection duration. */
+    private @NotNull Duration ejectionDuration = DEFAULT_EJECTION_DURATION;
+    /** The maximum ratio of ejected endpoints. */
+    private double maxEjectedRatio = DEFAULT_MAX_EJECTED_RATIO;
+    /** The failure response status codes. */
+    private @NotNull Set<Integer> failureStatusCodes = DEFAULT_FAILURE_STATUS_CODES;
+
+    /**
+     * Creates a new instance with the default configuration.
+     */
+    public LoadBalancerConfig() {
+        super();
+    }
+
+    /**
+     * Copy constructor.
+     * 
+     * @param copy The instance to copy.
+     */
+    public LoadBalancerConfig(
+            final @NotNull LoadBalancerConfig copy) {
+        super();
+        Validate.notNull(copy);
+        this.ewmaWeight = copy.ewmaWeight;
+        this.minRequests = copy.minRequests;
+        this.errorRateThreshold = copy.errorRateThreshold;
+        this.latencyThreshold = copy.latencyThreshold;
+        this.ejectionDuration = copy.ejectionDuration;
+        this.maxEjectedRatio = copy.maxEjectedRatio;
+        this.failureStatusCodes = copy.failureStatusCodes;
+    }
+
+    /**
+     * Returns the weight of new samples in the moving averages.
+     * 
+     * @return The weight of new samples.
+     */
+    public double getEwmaWeight() {
+        return this.ewmaWeight;
+    }
+
+    /**
+     * Sets the weight of new samples in the moving averages.
+     * Higher weights react faster to changes.
+     * 
+     * @param ewmaWeight The weight of new samples.
+     */
+    public void setEwmaWeight(
+            final double ewmaWeight) {
+        Validate.isTrue(ewmaWeight > 0 && ewmaWeight <= 1, "The EWMA weight must be between 0 and 1");
+        this.ewmaWeight = ewmaWeight;
+    }
+
+    /**
+     * Returns the minimum number of completed requests before an endpoint
+     * can be ejected.
+     * 
+     * @return The minimum number of requests.
+     */
+    public int getMinRequests() {
+        return this.minRequests;
+    }
+
+    /**
+     * Sets the minimum number of completed requests before an endpoint
+     * can be ejected.
+     * 
+     * @param minRequests The minimum number of requests.
+     */
+    public void setMinRequests(
+            final int minRequests) {
+        Validate.isTrue(minRequests > 0, "The minimum number of requests must be positive");
+        this.minRequests = minRequests;
+    }
+
+    /**
+     * Returns the error rate at which endpoints are ejected.
+     * 
+     * @return The error rate threshold.
+     */
+    public double getErrorRateThreshold() {
+        return this.errorRateThreshold;
+    }
+
+    /**
+     * Sets the error rate at which endpoints are ejected.
+     * 
+     * @param threshold The error rate threshold.
+     */
+    public void setErrorRateThreshold(
+            final double threshold) {
+        Validate.isTrue(threshold > 0 && threshold <= 1, "The error rate threshold must be between 0 and 1");
+        this.errorRateThreshold = threshold;
+    }
+
+    /**
+     * Returns the latency, relative to the average latency of the other
+     * endpoints, at which endpoints are ejected.
+     * 
+     * @return The latency threshold.
+     */
+    public double getLatencyThreshold() {
+        return this.latencyThreshold;
+    }
+
+    /**
+     * Sets the latency, relative to the average latency of the other
+     * endpoints, at which endpoints are ejected.
+     * {@code Double.POSITIVE_INFINITY} disables latency based ejection.
+     * 
+     * @param threshold The latency threshold.
+     */
+    public void setLatencyThreshold(
+            final double threshold) {
+        Validate.isTrue(threshold > 1, "The latency threshold must be greater than 1");
+        this.latencyThreshold = threshold;
+    }
+
+    /**
+     * Returns the time ejected endpoints receive no requests.
+     * 
+     * @return The ejection duration.
+     */
+    public @NotNull Duration getEjectionDuration() {
+        return this.ejectionDuration;
+    }
+
+    /**
+     * Sets the time ejected endpoints receive no requests.
+     * 
+     * @param duration The ejection duration.
+     */
+    public void setEjectionDuration(
+            final @NotNull Duration duration) {
+        Validate.notNull(duration, "Ejection duration is required");
+        Validate.isTrue(!duration.isNegative() && !duration.isZero(), "The ejection duration must be positive");
+        this.ejectionDuration = duration;
+    }
+
+    /**
+     * Returns the maximum ratio of endpoints ejected at the same time.
+     * 
+     * @return The maximum ratio of ejected endpoints.
+     */
+    public double getMaxEjectedRatio() {
+        return this.maxEjectedRatio;
+    }
+
+    /**
+     * Sets the maximum ratio of endpoints ejected at the same time.
+     * Zero disables ejection.
+     * 
+     * @param ratio The maximum ratio of ejected endpoints.
+     */
+    public void setMaxEjectedRatio(
+            final double ratio) {
+        Validate.isTrue(ratio >= 0 && ratio <= 1, "The maximum ejected ratio must be between 0 and 1");
+        this.maxEjectedRatio = ratio;
+    }
+
+    /**
+     * Returns the response status codes recorded as failures.
+     * 
+     * @return The failure response status codes.
+     */
+    public @NotNull Set<Integer> getFailureStatusCodes() {
+        return this.failureStatusCodes;
+    }
+
+    /**
+     * Sets the response status codes recorded as failures.
+     * 
+     * @param codes The failure response status codes.
+     */
+    public void setFailureStatusCodes(
+            final @NotNull Set<Integer> codes) {
+        Validate.notNull(codes, "Status codes are required");
+        Validate.noNullElements(codes, "Status codes cannot contain nulls");
+        this.failureStatusCodes = Collections.unmodifiableSet(new HashSet<>(codes));
+    }
+
+    /**
+     * Returns {@code true} if responses with the specified status code are
+     * recorded as failures.
+     * 
+     * @param statusCode The HTTP response status code.
+     * @return If responses with the status code are failures.
+     */
+    public boolean isFailureStatusCode(
+            final int statusCode) {
+        return this.failureStatusCodes.contains(statusCode);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        return new HashCodeBuilder()
+                .append(getClass())
+                .append(this.ewmaWeight)
+                .append(this.minRequests)
+                .append(this.errorRateThreshold)
+                .append(this.latencyThreshold)
+                .append(this.ejectionDuration)
+                .append(this.maxEjectedRatio)
+                .append(this.failureStatusCodes)
+                .toHashCode();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(
+            final Object obj) {
+        if (obj == null) { return false; }
+        if (obj == this) { return true; }
+        if (obj.getClass() != getClass()) {
+            return false;
+        }
+        final LoadBalancerConfig other = (LoadBalancerConfig) obj;
+        return new EqualsBuilder()
+                .append(this.ewmaWeight, other.ewmaWeight)
+                .append(this.minRequests, other.minRequests)
+                .append(this.errorRateThreshold, other.errorRateThreshold)
+                .append(this.latencyThreshold, other.latencyThreshold)
+                .append(this.ejectionDuration, other.ejectionDuration)
+                .append(this.maxEjectedRatio, other.maxEjectedRatio)
+                .append(this.failureStatusCodes, other.failureStatusCodes)
+                .isEquals();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return ToStringBuilder.reflectionToString(this, ToStringStyle.SHORT_PREFIX_STYLE);
+    }
+}
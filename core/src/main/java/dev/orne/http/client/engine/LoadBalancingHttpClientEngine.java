@@ -0,0 +1,439 @@
+package dev.orne.http.client.engine;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.lang3.Validate;
+
+import dev.orne.http.client.HttpClientException;
+import dev.orne.http.client.HttpRequestTimeoutException;
+import dev.orne.http.client.cookie.CookieStore;
+
+/**
+ * HTTP client engine that balances the requests to a replicated HTTP
+ * service between its endpoints, without an external load balancer.
+ * <p>
+ * Service clients are configured with the service base URI. Requests
+ * under the service base URI are sent to one of the endpoints, replacing
+ * the service base URI prefix with the base URI of the endpoint selected
+ * by the {@code EndpointSelector}, the power of two choices over the least
+ * outstanding requests by default. Other requests are passed to the
+ * delegated engine unchanged.
+ * <p>
+ * Endpoints are passively checked for outliers. Endpoints whose error rate
+ * or latency moving averages exceed the thresholds configured in the
+ * {@code LoadBalancerConfig} are ejected for a while. If all the endpoints
+ * are ejected requests are balanced between all of them.
+ * 
+ * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see Endpoint
+ * @see EndpointSelector
+ * @see LoadBalancerConfig
+ */
+public class LoadBalancingHttpClientEngine
+implements HttpClientEngine {
+
+    /** Status code marker of requests without response. */
+    private static final int NO_RESPONSE = -1;
+
+    /** The delegated HTTP client engine. */
+    private final @NotNull HttpClientEngine delegate;
+    /** The service base URI. */
+    private final @NotNull URI serviceURI;
+    /** The service base URI, as string. */
+    private final @NotNull String servicePrefix;
+    /** The outlier detection configuration. */
+    private final @NotNull LoadBalancerConfig config;
+    /** The endpoint selector. */
+    private final @NotNull EndpointSelector selector;
+    /** The monotonic clock, in nanoseconds. */
+    private final @NotNull LongSupplier clock;
+    /** The service endpoints. */
+    private volatile @NotNull List<@NotNull Endpoint> endpoints;
+
+    /**
+     * Creates a new instance with the default outlier detection
+     * configuration and the power of two choices endpoint selector.
+     * 
+     * @param delegate The delegated HTTP client engine.
+     * @param serviceURI The service base URI.
+     * @param endpoints The base URIs of the service endpoints.
+     */
+    public LoadBalancingHttpClientEngine(
+            final @NotNull HttpClientEngine delegate,
+            final @NotNull URI serviceURI,
+            final @NotNull Collection<@NotNull URI> endpoints) {
+        this(delegate, serviceURI, endpoints, new LoadBalancerConfig());
+    }
+
+    /**
+     * Creates a new instance with the power of two choices endpoint
+     * selector.
+     * 
+     * @param delegate The delegated HTTP client engine.
+     * @param serviceURI The service base URI.
+     * @param endpoints The base URIs of the service endpoints.
+     * @param config The outlier detection configuration.
+     */
+    public LoadBalancingHttpClientEngine(
+            final @NotNull HttpClientEngine delegate,
+            final @NotNull URI serviceURI,
+            final @NotNull Collection<@NotNull URI> endpoints,
+            final @NotNull LoadBalancerConfig config) {
+        this(delegate, serviceURI, endpoints, config, new LeastOutstandingEndpointSelector());
+    }
+
+    /**
+     * Creates a new instance.
+     * 
+     * @param delegate The delegated HTTP client engine.
+     * @param serviceURI The service base URI.
+     * @param endpoints The base URIs of the service endpoints.
+     * @param config The outlier detection configuration.
+     * @param selector The endpoint selector.
+     */
+    public LoadBalancingHttpClientEngine(
+            final @NotNull HttpClientEngine delegate,
+            final @NotNull URI serviceURI,
+            final @NotNull Collection<@NotNull URI> endpoints,
+            final @NotNull LoadBalancerConfig config,
+            final @NotNull EndpointSelector selector) {
+        this(delegate, serviceURI, endpoints, config, selector, System::nanoTime);
+    }
+
+    /**
+     * Creates a new instance.
+     * 
+     * @param delegate The delegated HTTP client engine.
+     * @param serviceURI The service base URI.
+     * @param endpoints The base URIs of the service endpoints.
+     * @param config The outlier detection configuration.
+     * @param selector The endpoint selector.
+     * @param clock The monotonic clock, in nanoseconds.
+     */
+    LoadBalancingHttpClientEngine(
+            final @NotNull HttpClientEngine delegate,
+            final @NotNull URI serviceURI,
+            final @NotNull Collection<@NotNull URI> endpoints,
+            final @NotNull LoadBalancerConfig config,
+            final @NotNull EndpointSelector selector,
+            final @NotNull LongSupplier clock) {
+        super();
+        this.delegate = Validate.notNull(delegate, "Delegated engine is required");
+        this.serviceURI = Validate.notNull(serviceURI, "Service URI is required");
+        Validate.isTrue(serviceURI.isAbsolute(), "Service URI must be absolute");
+        this.servicePrefix = serviceURI.toString();
+        this.config = new LoadBalancerConfig(Validate.notNull(config, "Configuration is required"));
+        this.selector = Validate.notNull(selector, "Endpoint selector is required");
+        this.clock = Validate.notNull(clock, "Clock is required");
+        this.endpoints = createEndpoints(endpoints, Collections.emptyList());
+    }
+
+    /**
+     * Returns the delegated HTTP client engine.
+     * 
+     * @return The delegated HTTP client engine.
+     */
+    public @NotNull HttpClientEngine getDelegate() {
+        return this.delegate;
+    }
+
+    /**
+     * Returns the service base URI.
+     * 
+     * @return The service base URI.
+     */
+    public @NotNull URI getServiceURI() {
+        return this.serviceURI;
+    }
+
+    /**
+     * Returns a copy of the outlier detection configuration.
+     * 
+     * @return The outlier detection configuration.
+     */
+    public @NotNull LoadBalancerConfig getConfig() {
+        return new LoadBalancerConfig(this.config);
+    }
+
+    /**
+     * Returns the endpoint selector.
+     * 
+     * @return The endpoint selector.
+     */
+    public @NotNull EndpointSelector getSelector() {
+        return this.selector;
+    }
+
+    /**
+     * Returns the service endpoints.
+     * 
+     * @return The service endpoints.
+     */
+    public @NotNull List<@NotNull Endpoint> getEndpoints() {
+        return this.endpoints;
+    }
+
+    /**
+     * Replaces the service endpoints. Endpoints with the same base URI
+     * than current ones keep their state.
+     * 
+     * @param uris The base URIs of the service endpoints.
+     */
+    public synchronized void setEndpoints(
+            final @NotNull Collection<@NotNull URI> uris) {
+        this.endpoints = createEndpoints(uris, this.endpoints);
+    }
+
+    /**
+     * Creates the endpoints with the specified base URIs, reusing the
+     * specified current endpoints.
+     * 
+     * @param uris The base URIs of the service endpoints.
+     * @param current The current endpoints.
+     * @return The unmodifiable list of endpoints.
+     */
+    private static @NotNull List<@NotNull Endpoint> createEndpoints(
+            final @NotNull Collection<@NotNull URI> uris,
+            final @NotNull List<@NotNull Endpoint> current) {
+        Validate.notNull(uris, "Endpoints are required");
+        Validate.noNullElements(uris, "Endpoints cannot contain nulls");
+        Validate.notEmpty(uris, "At least one endpoint is required");
+        final Map<URI, Endpoint> existing = new HashMap<>();
+        for (final Endpoint endpoint : current) {
+            existing.put(endpoint.getURI(), endpoint);
+        }
+        final List<Endpoint> result = new ArrayList<>(uris.size());
+        for (final URI uri : uris) {
+            final Endpoint endpoint = existing.remove(uri);
+            result.add(endpoint == null ? new Endpoint(uri) : endpoint);
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull CookieStore getCookieStore() {
+        return this.delegate.getCookieStore();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Requests under the service base URI are sent to the selected
+     * endpoint.
+     */
+    @Override
+    public @NotNull CompletionStage<Void> executeHttpRequest(
+            final @NotNull URI uri,
+            final @NotNull String method,
+            final @NotNull HttpRequestCustomizer requestCustomizer,
+            final @NotNull HttpResponseHandler responseHandler)
+    throws HttpClientException {
+        Validate.notNull(uri);
+        Validate.notNull(method);
+        Validate.notNull(requestCustomizer);
+        Validate.notNull(responseHandler);
+        final String target = uri.toString();
+        if (!target.startsWith(this.servicePrefix)) {
+            return this.delegate.executeHttpRequest(uri, method, requestCustomizer, responseHandler);
+        }
+        final Endpoint endpoint = this.selector.select(getAvailableEndpoints(), uri);
+        final URI resolved = endpoint.resolve(target.substring(this.servicePrefix.length()));
+        final AtomicInteger status = new AtomicInteger(NO_RESPONSE);
+        final long start = this.clock.getAsLong();
+        endpoint.onStart();
+        final CompletionStage<Void> result;
+        try {
+            result = this.delegate.executeHttpRequest(resolved, method, requestCustomizer, response -> {
+                status.set(response.getStatusCode());
+                responseHandler.handle(response);
+            });
+        } catch (final HttpClientException | RuntimeException e) {
+            endpoint.onRelease();
+            throw e;
+        }
+        result.whenComplete((nop, error) -> {
+            final long now = this.clock.getAsLong();
+            final int statusCode = status.get();
+            final boolean failure;
+            if (statusCode != NO_RESPONSE) {
+                failure = this.config.isFailureStatusCode(statusCode);
+            } else if (error == null) {
+                failure = false;
+            } else if (isFailure(error)) {
+                failure = true;
+            } else {
+                endpoint.onRelease();
+                return;
+            }
+            endpoint.onComplete(now - start, failure, this.config.getEwmaWeight());
+            checkOutlier(endpoint, now);
+        });
+        return result;
+    }
+
+    /**
+     * Returns the endpoints not ejected, or all the endpoints if all of
+     * them are ejected.
+     * 
+     * @return The available endpoints.
+     */
+    protected @NotNull List<@NotNull Endpoint> getAvailableEndpoints() {
+        final List<Endpoint> all = this.endpoints;
+        final long now = this.clock.getAsLong();
+        List<Endpoint> available = null;
+        for (int i = 0; i < all.size(); i++) {
+            final Endpoint endpoint = all.get(i);
+            if (endpoint.isAvailable(now)) {
+                if (available != null) {
+                    available.add(endpoint);
+                }
+            } else if (available == null) {
+                available = new ArrayList<>(all.subList(0, i));
+            }
+        }
+        if (available == null || available.isEmpty()) {
+            return all;
+        }
+        return available;
+    }
+
+    /**
+     * Ejects the specified endpoint if its error rate or latency exceed the
+     * configured thresholds, unless the maximum ratio of ejected endpoints
+     * has been reached.
+     * 
+     * @param endpoint The endpoint to check.
+     * @param now The current time, in nanoseconds.
+     */
+    protected void checkOutlier(
+            final @NotNull Endpoint endpoint,
+            final long now) {
+        if (endpoint.isEjected()
+                || endpoint.getSampleCount() < this.config.getMinRequests()
+                || !isOutlier(endpoint)) {
+            return;
+        }
+        synchronized (this) {
+            final List<Endpoint> all = this.endpoints;
+            final int maxEjected = (int) (all.size() * this.config.getMaxEjectedRatio());
+            int ejected = 0;
+            for (final Endpoint other : all) {
+                if (other.isEjected()) {
+                    ejected++;
+                }
+            }
+            if (ejected < maxEjected && !endpoint.isEjected() && all.contains(endpoint)) {
+                endpoint.eject(now + this.config.getEjectionDuration().toNanos());
+            }
+        }
+    }
+
+    /**
+     * Returns {@code true} if the error rate or latency of the specified
+     * endpoint exceed the configured thresholds.
+     * 
+     * @param endpoint The endpoint to check.
+     * @return If the endpoint is an outlier.
+     */
+    protected boolean isOutlier(
+            final @NotNull Endpoint endpoint) {
+        if (endpoint.getErrorRate() >= this.config.getErrorRateThreshold()) {
+            return true;
+        }
+        double total = 0;
+        int count = 0;
+        for (final Endpoint other : this.endpoints) {
+            if (other != endpoint
+                    && !other.isEjected()
+                    && other.getSampleCount() >= this.config.getMinRequests()) {
+                total += other.getLatencyNanos();
+                count++;
+            }
+        }
+        return count > 0
+                && endpoint.getLatencyNanos() > total / count * this.config.getLatencyThreshold();
+    }
+
+    /**
+     * Returns {@code true} if the specified failure of a request without
+     * response is recorded as an endpoint error.
+     * 
+     * @param error The request failure.
+     * @return If the failure is recorded.
+     */
+    protected boolean isFailure(
+            final @NotNull Throwable error) {
+        Throwable cause = error;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException)
+                && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause instanceof IOException
+                || cause instanceof HttpRequestTimeoutException;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Shuts down the delegated engine.
+     */
+    @Override
+    public int shutdown(
+            final @NotNull Duration timeout)
+    throws IOException {
+        return this.delegate.shutdown(timeout);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Closes the delegated engine.
+     */
+    @Override
+    public void close()
+    throws IOException {
+        this.delegate.close();
+    }
+}
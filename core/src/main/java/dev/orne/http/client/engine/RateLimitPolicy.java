@@ -0,0 +1,355 @@
+package dev.orne.http.client.engine;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.lang3.Validate;
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+import dev.orne.http.StatusCodes;
+
+/**
+ * Rate limiting configuration of {@code RateLimitingHttpClientEngine}.
+ * <p>
+ * By default requests are limited to 10 per second per host, with bursts
+ * of up to 10 requests. Requests wait up to 30 seconds for a permit
+ * before being rejected. Responses with status code 429 halve the rate
+ * of the host, down to a 10% of the configured rate, and honour the
+ * {@code Retry-After} header. Each successful response recovers a 2% of
+ * the configured rate.
+ * 
+ * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see RateLimiter
+ * @see RateLimitingHttpClientEngine
+ */
+public class RateLimitPolicy {
+
+    /** The default permits per second. */
+    public static final double DEFAULT_PERMITS_PER_SECOND = 10;
+    /** The default maximum burst size. */
+    public static final int DEFAULT_BURST = 10;
+    /** The default maximum wait for a permit. */
+    public static final Duration DEFAULT_MAX_WAIT = Duration.ofSeconds(30);
+    /** The default per host rate limiting flag. */
+    public static final boolean DEFAULT_PER_HOST = true;
+    /** The default response status codes that tighten the rate. */
+    public static final Set<Integer> DEFAULT_THROTTLE_STATUS_CODES =
+            Collections.singleton(StatusCodes.TOO_MANY_REQUESTS);
+    /** The default rate multiplier applied when throttled. */
+    public static final double DEFAULT_THROTTLE_FACTOR = 0.5;
+    /** The default minimum rate, relative to the configured rate. */
+    public static final double DEFAULT_MIN_RATE_RATIO = 0.1;
+    /** The default rate recovered per successful response, relative to the configured rate. */
+    public static final double DEFAULT_RECOVERY_RATIO = 0.02;
+
+    /** The permits per second. */
+    private double permitsPerSecond = DEFAULT_PERMITS_PER_SECOND;
+    /** The maximum burst size. */
+    private int burst = DEFAULT_BURST;
+    /** The maximum wait for a permit. */
+    private @NotNull Duration maxWait = DEFAULT_MAX_WAIT;
+    /** If requests are rate limited per host. */
+    private boolean perHost = DEFAULT_PER_HOST;
+    /** The response status codes that tighten the rate. */
+    private @NotNull Set<Integer> throttleStatusCodes = DEFAULT_THROTTLE_STATUS_CODES;
+    /** The rate multiplier applied when throttled. */
+    private double throttleFactor = DEFAULT_THROTTLE_FACTOR;
+    /** The minimum rate, relative to the configured rate. */
+    private double minRateRatio = DEFAULT_MIN_RATE_RATIO;
+    /** The rate recovered per successful response, relative to the configured rate. */
+    private double recoveryRatio = DEFAULT_RECOVERY_RATIO;
+
+    /**
+     * Creates a new instance with the default configuration.
+     */
+    public RateLimitPolicy() {
+        super();
+    }
+
+    /**
+     * Copy constructor.
+     * 
+     * @param copy The instance to copy.
+     */
+    public RateLimitPolicy(
+            final @NotNull RateLimitPolicy copy) {
+        super();
+        Validate.notNull(copy);
+        this.permitsPerSecond = copy.permitsPerSecond;
+        this.burst = copy.burst;
+        this.maxWait = copy.maxWait;
+        this.perHost = copy.perHost;
+        this.throttleStatusCodes = copy.throttleStatusCodes;
+        this.throttleFactor = copy.throttleFactor;
+        this.minRateRatio = copy.minRateRatio;
+        this.recoveryRatio = copy.recoveryRatio;
+    }
+
+    /**
+     * Returns the permits per second.
+     * 
+     * @return The permits per second.
+     */
+    public double getPermitsPerSecond() {
+        return this.permitsPerSecond;
+    }
+
+    /**
+     * Sets the permits per second.
+     * 
+     * @param permitsPerSecond The permits per second.
+     */
+    public void setPermitsPerSecond(
+            final double permitsPerSecond) {
+        Validate.isTrue(permitsPerSecond > 0 && Double.isFinite(permitsPerSecond),
+                "The permits per second must be positive");
+        this.permitsPerSecond = permitsPerSecond;
+    }
+
+    /**
+     * Returns the maximum burst size, the number of permits that can be
+     * accumulated while idle.
+     * 
+     * @return The maximum burst size.
+     */
+    public int getBurst() {
+        return this.burst;
+    }
+
+    /**
+     * Sets the maximum burst size, the number of permits that can be
+     * accumulated while idle.
+     * 
+     * @param burst The maximum burst size.
+     */
+    public void setBurst(
+            final int burst) {
+        Validate.isTrue(burst > 0, "The burst size must be positive");
+        this.burst = burst;
+    }
+
+    /**
+     * Returns the maximum wait for a permit. Requests that would wait
+     * longer are rejected.
+     * 
+     * @return The maximum wait for a permit.
+     */
+    public @NotNull Duration getMaxWait() {
+        return this.maxWait;
+    }
+
+    /**
+     * Sets the maximum wait for a permit. Requests that would wait
+     * longer are rejected. Zero rejects requests without available
+     * permits immediately.
+     * 
+     * @param maxWait The maximum wait for a permit.
+     */
+    public void setMaxWait(
+            final @NotNull Duration maxWait) {
+        Validate.notNull(maxWait, "Maximum wait is required");
+        Validate.isTrue(!maxWait.isNegative(), "The maximum wait cannot be negative");
+        this.maxWait = maxWait;
+    }
+
+    /**
+     * Returns {@code true} if requests are rate limited per host.
+     * Otherwise a single rate limit is applied to all the requests.
+     * 
+     * @return If requests are rate limited per host.
+     */
+    public boolean isPerHost() {
+        return this.perHost;
+    }
+
+    /**
+     * Sets if requests are rate limited per host.
+     * Otherwise a single rate limit is applied to all the requests.
+     * 
+     * @param perHost If requests are rate limited per host.
+     */
+    public void setPerHost(
+            final boolean perHost) {
+        this.perHost = perHost;
+    }
+
+    /**
+     * Returns the response status codes that tighten the rate.
+     * 
+     * @return The response status codes that tighten the rate.
+     */
+    public @NotNull Set<Integer> getThrottleStatusCodes() {
+        return this.throttleStatusCodes;
+    }
+
+    /**
+     * Sets the response status codes that tighten the rate.
+     * 
+     * @param codes The response status codes that tighten the rate.
+     */
+    public void setThrottleStatusCodes(
+            final @NotNull Set<Integer> codes) {
+        Validate.notNull(codes, "Status codes are required");
+        Validate.noNullElements(codes, "Status codes cannot contain nulls");
+        this.throttleStatusCodes = Collections.unmodifiableSet(new HashSet<>(codes));
+    }
+
+    /**
+     * Returns {@code true} if responses with the specified status code
+     * tighten the rate.
+     * 
+     * @param statusCode The HTTP response status code.
+     * @return If responses with the status code tighten the rate.
+     */
+    public boolean isThrottleStatusCode(
+            final int statusCode) {
+        return this.throttleStatusCodes.contains(statusCode);
+    }
+
+    /**
+     * Returns the rate multiplier applied when throttled.
+     * 
+     * @return The rate multiplier applied when throttled.
+     */
+    public double getThrottleFactor() {
+        return this.throttleFactor;
+    }
+
+    /**
+     * Sets the rate multiplier applied when throttled.
+     * One disables rate tightening.
+     * 
+     * @param throttleFactor The rate multiplier applied when throttled.
+     */
+    public void setThrottleFactor(
+            final double throttleFactor) {
+        Validate.isTrue(throttleFactor > 0 && throttleFactor <= 1,
+                "The throttle factor must be between 0 and 1");
+        this.throttleFactor = throttleFactor;
+    }
+
+    /**
+     * Returns the minimum rate, relative to the configured rate.
+     * 
+     * @return The minimum rate ratio.
+     */
+    public double getMinRateRatio() {
+        return this.minRateRatio;
+    }
+
+    /**
+     * Sets the minimum rate, relative to the configured rate.
+     * 
+     * @param minRateRatio The minimum rate ratio.
+     */
+    public void setMinRateRatio(
+            final double minRateRatio) {
+        Validate.isTrue(minRateRatio > 0 && minRateRatio <= 1,
+                "The minimum rate ratio must be between 0 and 1");
+        this.minRateRatio = minRateRatio;
+    }
+
+    /**
+     * Returns the rate recovered per successful response, relative to the
+     * configured rate.
+     * 
+     * @return The recovery ratio.
+     */
+    public double getRecoveryRatio() {
+        return this.recoveryRatio;
+    }
+
+    /**
+     * Sets the rate recovered per successful response, relative to the
+     * configured rate.
+     * 
+     * @param recoveryRatio The recovery ratio.
+     */
+    public void setRecoveryRatio(
+            final double recoveryRatio) {
+        Validate.isTrue(recoveryRatio > 0 && recoveryRatio <= 1,
+                "The recovery ratio must be between 0 and 1");
+        this.recoveryRatio = recoveryRatio;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        return new HashCodeBuilder()
+                .append(getClass())
+                .append(this.permitsPerSecond)
+                .append(this.burst)
+                .append(this.maxWait)
+                .append(this.perHost)
+                .append(this.throttleStatusCodes)
+                .append(this.throttleFactor)
+                .append(this.minRateRatio)
+                .append(this.recoveryRatio)
+                .toHashCode();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(
+            final Object obj) {
+        if (obj == null) { return false; }
+        if (obj == this) { return true; }
+        if (obj.getClass() != getClass()) {
+            return false;
+        }
+        final RateLimitPolicy other = (RateLimitPolicy) obj;
+        return new EqualsBuilder()
+                .append(this.permitsPerSecond, other.permitsPerSecond)
+                .append(this.burst, other.burst)
+                .append(this.maxWait, other.maxWait)
+                .append(this.perHost, other.perHost)
+                .append(this.throttleStatusCodes, other.throttleStatusCodes)
+                .append(this.throttleFactor, other.throttleFactor)
+                .append(this.minRateRatio, other.minRateRatio)
+                .append(this.recoveryRatio, other.recoveryRatio)
+                .isEquals();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return ToStringBuilder.reflectionToString(this, ToStringStyle.SHORT_PREFIX_STYLE);
+    }
+}
@@ -0,0 +1,73 @@
+package dev.orne.http.client.engine;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Token bucket rate limiter with adaptive rate.
+ * <p>
+ * Permits are refilled at the current rate, up to the configured burst
+ * size. Permits are reserved in advance: a caller without available
+ * permits gets the time it must wait for its permit, so waits can be
+ * scheduled asynchronously instead of blocking threads.
+ * <p>
+ * When the target signals that its quota is exceeded the limiter is
+ * throttled: the current rate is multiplied by the throttle factor, down
+ * to the minimum rate, the accumulated permits are discarded and, if
+ * requested, no permits are refilled during the specified pause. Each
+ * successful call recovers part of the configured rate.
+ * 
+ * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see RateLimitPolicy
+ */
+public class RateLimiter {
+
+    /** Nanoseconds per second. */
+    private static final double NANOS_PER_SECOND = 1_000_000_000d;
+    /** The maximum pause, in nanoseconds, that keeps clock arithmetic safe. */
+    private static final long MAX_PAUSE_NANOS = Long.MAX_VALUE / 4;
+
+    /** The rate limiting configuration. */
+    private final @NotNull RateLimitPolicy policy;
+    /** The monotonic clock, in nanoseconds. */
+    private final @NotNull LongSupplier clock;
+    /** The number of reservations rejected. */
+    private final AtomicLong rejectedCount = new AtomicLong();
+    /** The current rate, in permits per second. */
+    private double rate;
+    /** The available permits. Negative when permits are reserved in advance. */
+    private double permits;
+    /** The time of the last refill, in nanoseconds. */
+    private long refilledAt;
+    /** The time until no permits are refilled, in nanoseconds. */
+    private long pausedUntil;
+}
@@ -0,0 +1,371 @@
+package dev.orne.http.client.engine;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.lang3.Validate;
+
+import dev.orne.http.Headers;
+import dev.orne.http.StatusCodes;
+import dev.orne.http.client.FutureUtils;
+import dev.orne.http.client.HttpClientException;
+import dev.orne.http.client.RateLimitExceededException;
+import dev.orne.http.client.cookie.CookieStore;
+
+/**
+ * HTTP client engine that limits the rate of the requests of a delegated
+ * HTTP client engine with token buckets.
+ * <p>
+ * Requests are rate limited per host and port of their URI, or all
+ * together, as configured in the {@code RateLimitPolicy}. Requests
+ * without an available permit wait for it asynchronously, scheduled in a
+ * {@code HashedWheelTimer}, so no thread is blocked, and are dispatched
+ * in the configured executor once the permit is available, never in the
+ * timer thread. Requests that would
+ * wait longer than the maximum wait configured fail fast with
+ * {@code RateLimitExceededException}, without being passed to the
+ * delegated engine.
+ * <p>
+ * Responses with a throttle status code, {@code 429 Too Many Requests} by
+ * default, tighten the rate of the host and pause it for the time
+ * requested in the {@code Retry-After} header. Successful responses
+ * recover the configured rate progressively. Service clients that detect
+ * quota errors in the response bodies, like {@code AuthorizationException}
+ * subclasses, can report them through
+ * {@link #throttle(URI, Duration)}.
+ * 
+ * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see RateLimiter
+ * @see RateLimitPolicy
+ */
+public class RateLimitingHttpClientEngine
+implements HttpClientEngine {
+
+    /** The delegated HTTP client engine. */
+    private final @NotNull HttpClientEngine delegate;
+    /** The rate limiting configuration. */
+    private final @NotNull RateLimitPolicy policy;
+    /** The permit waits timer. */
+    private final @NotNull HashedWheelTimer timer;
+    /** The executor of the requests dispatched after a permit wait. */
+    private final @NotNull Executor executor;
+    /** The rate limiter shared by all hosts, if not limited per host. */
+    private final RateLimiter sharedLimiter;
+    /** The rate limiters, by host and port. */
+    private final ConcurrentMap<String, RateLimiter> limiters = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new instance with the default rate limiting configuration.
+     * 
+     * @param delegate The delegated HTTP client engine.
+     */
+    public RateLimitingHttpClientEngine(
+            final @NotNull HttpClientEngine delegate) {
+        this(delegate, new RateLimitPolicy());
+    }
+
+    /**
+     * Creates a new instance.
+     * <p>
+     * Permit waits are scheduled in the shared {@code HashedWheelTimer}.
+     * Requests are dispatched after their permit wait in
+     * {@code ForkJoinPool.commonPool()}.
+     * 
+     * @param delegate The delegated HTTP client engine.
+     * @param policy The rate limiting configuration.
+     */
+    public RateLimitingHttpClientEngine(
+            final @NotNull HttpClientEngine delegate,
+            final @NotNull RateLimitPolicy policy) {
+        this(delegate, policy, HashedWheelTimer.shared());
+    }
+
+    /**
+     * Creates a new instance.
+     * <p>
+     * The specified timer is not closed when this engine is closed.
+     * Requests are dispatched after their permit wait in
+     * {@code ForkJoinPool.commonPool()}.
+     * 
+     * @param delegate The delegated HTTP client engine.
+     * @param policy The rate limiting configuration.
+     * @param timer The timer used to schedule the permit waits.
+     */
+    public RateLimitingHttpClientEngine(
+            final @NotNull HttpClientEngine delegate,
+            final @NotNull RateLimitPolicy policy,
+            final @NotNull HashedWheelTimer timer) {
+        this(delegate, policy, timer, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a new instance.
+     * <p>
+     * The specified timer and executor are not closed when this engine is
+     * closed. Requests whose dispatch is rejected by the executor fail with
+     * the rejection, releasing their permit.
+     * 
+     * @param delegate The delegated HTTP client engine.
+     * @param policy The rate limiting configuration.
+     * @param timer The timer used to schedule the permit waits.
+     * @param executor The executor of the requests dispatched after a
+     * permit wait.
+     */
+    public RateLimitingHttpClientEngine(
+            final @NotNull HttpClientEngine delegate,
+            final @NotNull RateLimitPolicy policy,
+            final @NotNull HashedWheelTimer timer,
+            final @NotNull Executor executor) {
+        super();
+        this.delegate = Validate.notNull(delegate, "Delegated engine is required");
+        this.policy = new RateLimitPolicy(Validate.notNull(policy, "Rate limit policy is required"));
+        this.timer = Validate.notNull(timer, "Timer is required");
+        this.executor = Validate.notNull(executor, "Executor is required");
+        this.sharedLimiter = this.policy.isPerHost() ? null : new RateLimiter(this.policy);
+    }
+
+    /**
+     * Returns the delegated HTTP client engine.
+     * 
+     * @return The delegated HTTP client engine.
+     */
+    public @NotNull HttpClientEngine getDelegate() {
+        return this.delegate;
+    }
+
+    /**
+     * Returns a copy of the rate limiting configuration.
+     * 
+     * @return The rate limiting configuration.
+     */
+    public @NotNull RateLimitPolicy getPolicy() {
+        return new RateLimitPolicy(this.policy);
+    }
+
+    /**
+     * Returns the rate limiter of the requests to the specified URI,
+     * creating it if required.
+     * 
+     * @param uri The request URI.
+     * @return The rate limiter of the requests.
+     */
+    public @NotNull RateLimiter getRateLimiter(
+            final @NotNull URI uri) {
+        if (this.sharedLimiter != null) {
+            return this.sharedLimiter;
+        }
+        final String key = HttpHosts.getKey(uri);
+        final RateLimiter limiter = this.limiters.get(key);
+        if (limiter != null) {
+            return limiter;
+        }
+        return this.limiters.computeIfAbsent(key, k -> new RateLimiter(this.policy));
+    }
+
+    /**
+     * Tightens the rate of the requests to the specified URI, after the
+     * service signals that its quota has been exceeded.
+     * 
+     * @param uri The request URI.
+     * @param pause The time to pause the requests, or {@code null} to
+     * only tighten the rate.
+     */
+    public void throttle(
+            final @NotNull URI uri,
+            final Duration pause) {
+        getRateLimiter(uri).throttle(pause);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull CookieStore getCookieStore() {
+        return this.delegate.getCookieStore();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * If no permit is available within the maximum wait the returned future
+     * is completed exceptionally with {@code RateLimitExceededException}.
+     * Cancelling the returned future while waiting for a permit releases
+     * the permit.
+     * 
+     * @see RateLimitExceededException
+     */
+    @Override
+    public @NotNull CompletionStage<Void> executeHttpRequest(
+            final @NotNull URI uri,
+            final @NotNull String method,
+            final @NotNull HttpRequestCustomizer requestCustomizer,
+            final @NotNull HttpResponseHandler responseHandler)
+    throws HttpClientException {
+        Validate.notNull(uri);
+        Validate.notNull(method);
+        Validate.notNull(requestCustomizer);
+        Validate.notNull(responseHandler);
+        final RateLimiter limiter = getRateLimiter(uri);
+        final Duration wait = limiter.reserve(this.policy.getMaxWait());
+        if (wait == null) {
+            return FutureUtils.completableFailure(new RateLimitExceededException(
+                    String.format("Rate limit exceeded for %s", HttpHosts.getKey(uri))));
+        }
+        if (wait.isZero()) {
+            return dispatch(limiter, uri, method, requestCustomizer, responseHandler);
+        }
+        final CompletableFuture<Void> result = new CompletableFuture<>();
+        final AtomicReference<CompletableFuture<Void>> dispatched = new AtomicReference<>();
+        final Runnable task = () -> {
+            if (result.isDone()) {
+                limiter.release();
+                return;
+            }
+            try {
+                final CompletableFuture<Void> exchange = dispatch(
+                        limiter, uri, method, requestCustomizer, responseHandler)
+                        .toCompletableFuture();
+                dispatched.set(exchange);
+                exchange.whenComplete((nop, error) -> {
+                    if (error == null) {
+                        result.complete(null);
+                    } else {
+                        result.completeExceptionally(error);
+                    }
+                });
+                if (result.isCancelled()) {
+                    exchange.cancel(true);
+                }
+            } catch (final HttpClientException | RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        };
+        final HashedWheelTimer.Timeout timeout = this.timer.schedule(() -> {
+            try {
+                this.executor.execute(task);
+            } catch (final RejectedExecutionException e) {
+                limiter.release();
+                result.completeExceptionally(e);
+            }
+        }, wait);
+        result.whenComplete((nop, error) -> {
+            if (timeout.cancel()) {
+                limiter.release();
+            }
+            final CompletableFuture<Void> exchange = dispatched.get();
+            if (exchange != null && !exchange.isDone()) {
+                exchange.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Executes the HTTP request in the delegated engine, adapting the rate
+     * limiter to the response status code.
+     * 
+     * @param limiter The rate limiter of the request.
+     * @param uri The HTTP request target absolute URI.
+     * @param method The HTTP request method.
+     * @param requestCustomizer The HTTP request customizer.
+     * @param responseHandler The HTTP response handler.
+     * @return The HTTP request result.
+     * @throws HttpClientException If an exception occurs executing the
+     * request
+     */
+    protected @NotNull CompletionStage<Void> dispatch(
+            final @NotNull RateLimiter limiter,
+            final @NotNull URI uri,
+            final @NotNull String method,
+            final @NotNull HttpRequestCustomizer requestCustomizer,
+            final @NotNull HttpResponseHandler responseHandler)
+    throws HttpClientException {
+        return this.delegate.executeHttpRequest(uri, method, requestCustomizer, response -> {
+            final int statusCode = response.getStatusCode();
+            if (this.policy.isThrottleStatusCode(statusCode)) {
+                limiter.throttle(getRetryAfter(response));
+            } else if (StatusCodes.isSuccess(statusCode)) {
+                limiter.recover();
+            }
+            responseHandler.handle(response);
+        });
+    }
+
+    /**
+     * Returns the delay requested in the {@code Retry-After} header of the
+     * specified HTTP response.
+     * 
+     * @param response The HTTP response.
+     * @return The requested delay, or {@code null} if not present or not
+     * valid.
+     */
+    protected Duration getRetryAfter(
+            final @NotNull HttpResponse response) {
+        try {
+            final String value = response.getFirstHeaderValue(Headers.Response.RETRY_AFTER);
+            return value == null ? null : RetryingHttpClientEngine.parseRetryAfter(value, Instant.now());
+        } catch (final HttpClientException e) {
+            return null;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Shuts down the delegated engine. Requests waiting for a permit are
+     * rejected by the delegated engine when dispatched.
+     */
+    @Override
+    public int shutdown(
+            final @NotNull Duration timeout)
+    throws IOException {
+        return this.delegate.shutdown(timeout);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Closes the delegated engine.
+     */
+    @Override
+    public void close()
+    throws IOException {
+        this.delegate.close();
+    }
+}
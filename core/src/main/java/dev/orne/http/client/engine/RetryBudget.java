@@ -0,0 +1,141 @@
+package dev.orne.http.client.engine;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Retry budget shared by the requests of one or more
+ * {@code RetryingHttpClientEngine}.
+ * <p>
+ * Caps the retries to a ratio of the requests, so a retry storm cannot
+ * amplify an outage of the target servers. Each request deposits the
+ * retry ratio in the budget balance and each retry withdraws one unit.
+ * Retries are not attempted while the balance is below one unit.
+ * <p>
+ * The balance starts full and is capped to the maximum balance, which
+ * allows a few retries when the request rate is low.
+ * 
+ * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see RetryingHttpClientEngine
+ */
+public class RetryBudget {
+
+    /** The default ratio of retries to requests. */
+    public static final double DEFAULT_RATIO = 0.2;
+    /** The default maximum balance, in retries. */
+    public static final int DEFAULT_MAX_BALANCE = 10;
+    /** The balance units per retry. */
+    private static final long UNIT = 1000;
+
+    /** The ratio of retries to requests. */
+    private final double ratio;
+    /** The maximum balance, in retries. */
+    private final int maxBalance;
+    /** The balance units deposited per request. */
+    private final long deposit;
+    /** The balance, in units. */
+    private final AtomicLong balance;
+
+    /**
+     * Creates a new instance with the default ratio of retries to requests
+     * and maximum balance.
+     */
+    public RetryBudget() {
+        this(DEFAULT_RATIO, DEFAULT_MAX_BALANCE);
+    }
+
+    /**
+     * Creates a new instance.
+     * 
+     * @param ratio The ratio of retries to requests, between 0 and 1.
+     * @param maxBalance The maximum balance, in retries.
+     */
+    public RetryBudget(
+            final double ratio,
+            final int maxBalance) {
+        super();
+        Validate.isTrue(ratio >= 0 && ratio <= 1, "The retry ratio must be between 0 and 1");
+        Validate.isTrue(maxBalance >= 0, "The maximum balance cannot be negative");
+        this.ratio = ratio;
+        this.maxBalance = maxBalance;
+        this.deposit = Math.round(ratio * UNIT);
+        this.balance = new AtomicLong(maxBalance * UNIT);
+    }
+
+    /**
+     * Returns the ratio of retries to requests.
+     * 
+     * @return The ratio of retries to requests.
+     */
+    public double getRatio() {
+        return this.ratio;
+    }
+
+    /**
+     * Returns the maximum balance, in retries.
+     * 
+     * @return The maximum balance.
+     */
+    public int getMaxBalance() {
+        return this.maxBalance;
+    }
+
+    /**
+     * Returns the current balance, in retries.
+     * 
+     * @return The current balance.
+     */
+    public double getBalance() {
+        return (double) this.balance.get() / UNIT;
+    }
+
+    /**
+     * Registers a new request, depositing the retry ratio in the budget
+     * balance.
+     */
+    public void onRequest() {
+        final long max = this.maxBalance * UNIT;
+        this.balance.updateAndGet(current -> Math.min(max, current + this.deposit));
+    }
+
+    /**
+     * Tries to withdraw a retry from the budget balance.
+     * 
+     * @return If the retry is allowed by the budget.
+     */
+    public boolean tryRetry() {
+        long current;
+        do {
+            current = this.balance.get();
+            if (current < UNIT) {
+                return false;
+            }
+        } while (!this.balance.compareAndSet(current, current - UNIT));
+        return true;
+    }
+}
@@ -0,0 +1,130 @@
+package dev.orne.http.client.engine;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.lang3.Validate;
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+import dev.orne.http.Headers;
+import dev.orne.http.StatusCodes;
+
+/**
+ * Retry configuration of {@code RetryingHttpClientEngine}.
+ * <p>
+ * By default failed requests are retried up to 3 times, with exponential
+ * back off delays with full jitter starting at 100 milliseconds and
+ * capped at 10 seconds. Responses with status codes 429, 502, 503 and
+ * 504 are retried, and requests with header {@code Idempotency-Key} are
+ * retried regardless of their method.
+ * 
+ * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see RetryingHttpClientEngine
+ */
+public class RetryPolicy {
+
+    /** The default maximum number of retries per request. */
+    public static final int DEFAULT_MAX_RETRIES = 3;
+    /** The default base back off delay. */
+    public static final Duration DEFAULT_BASE_DELAY = Duration.ofMillis(100);
+    /** The default maximum back off delay. */
+    public static final Duration DEFAULT_MAX_DELAY = Duration.ofSeconds(10);
+    /** The default retryable response status codes. */
+    public static final Set<Integer> DEFAULT_RETRYABLE_STATUS_CODES =
+            Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+                    StatusCodes.TOO_MANY_REQUESTS,
+                    StatusCodes.BAD_GATEWAY,
+                    StatusCodes.SERVICE_UNAVAILABLE,
+                    StatusCodes.GATEWAY_TIMEOUT)));
+    /** The default idempotency header. */
+    public static final String DEFAULT_IDEMPOTENCY_HEADER =
+            Headers.Request.NonStandard.IDEMPOTENCY_KEY;
+
+    /** The maximum number of retries per request. */
+    private int maxRetries = DEFAULT_MAX_RETRIES;
+    /** The base back off delay. */
+    private @NotNull Duration baseDelay = DEFAULT_BASE_DELAY;
+    /** The maximum back off delay. */
+    private @NotNull Duration maxDelay = DEFAULT_MAX_DELAY;
+    /** The retryable response status codes. */
+    private @NotNull Set<Integer> retryableStatusCodes = DEFAULT_RETRYABLE_STATUS_CODES;
+    /** The header that marks requests as idempotent. */
+    private String idempotencyHeader = DEFAULT_IDEMPOTENCY_HEADER;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        return new HashCodeBuilder()
+                .append(getClass())
+                .append(this.maxRetries)
+                .append(this.baseDelay)
+                .append(this.maxDelay)
+                .append(this.retryableStatusCodes)
+                .append(this.idempotencyHeader)
+                .toHashCode();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(
+            final Object obj) {
+        if (obj == null) { return false; }
+        if (obj == this) { return true; }
+        if (obj.getClass() != getClass()) {
+            return false;
+        }
+        final RetryPolicy other = (RetryPolicy) obj;
+        return new EqualsBuilder()
+                .append(this.maxRetries, other.maxRetries)
+                .append(this.baseDelay, other.baseDelay)
+                .append(this.maxDelay, other.maxDelay)
+                .append(this.retryableStatusCodes, other.retryableStatusCodes)
+                .append(this.idempotencyHeader, other.idempotencyHeader)
+                .isEquals();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return ToStringBuilder.reflectionToString(this, ToStringStyle.SHORT_PREFIX_STYLE);
+    }
+}
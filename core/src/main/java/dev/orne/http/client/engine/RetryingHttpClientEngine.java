@@ -0,0 +1,556 @@
+package dev.orne.http.client.engine;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.lang3.Validate;
+
+import dev.orne.http.Headers;
+import dev.orne.http.Methods;
+import dev.orne.http.client.HttpClientException;
+import dev.orne.http.client.cookie.CookieStore;
+
+/**
+ * HTTP client engine that retries the failed requests of a delegated
+ * HTTP client engine.
+ * <p>
+ * Requests failed with an {@code IOException} before the response is
+ * handled, and requests with a response status code configured as
+ * retryable in the {@code RetryPolicy}, are retried with exponential back
+ * off delays with full jitter. The delay requested by the server through
+ * the {@code Retry-After} response header is honoured. The responses of
+ * the retried attempts are discarded without calling the response
+ * handler.
+ * <p>
+ * Only requests with idempotent methods, or with the idempotency header
+ * configured in the {@code RetryPolicy}, are retried. Retries are capped
+ * by a {@code RetryBudget}, that can be shared between engines, so a retry
+ * storm cannot amplify an outage of the target servers.
+ * <p>
+ * The request customizer is called once per request. The customizations
+ * are recorded and replayed in each retry. Bodies set through
+ * {@code HttpRequest.BodyProducer} are buffered in memory when the
+ * request is retryable, so they can be sent again. The total timeout, or
+ * deadline, of the request covers all its attempts and back off delays.
+ * <p>
+ * Retries are started in the configured executor, never in the timer
+ * thread that schedules the back off delays.
+ * 
+ * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see RetryPolicy
+ * @see RetryBudget
+ */
+public class RetryingHttpClientEngine
+implements HttpClientEngine {
+
+    /** The delegated HTTP client engine. */
+    private final @NotNull HttpClientEngine delegate;
+    /** The retry configuration. */
+    private final @NotNull RetryPolicy policy;
+    /** The retry budget. */
+    private final @NotNull RetryBudget budget;
+    /** The back off delays timer. */
+    private final @NotNull HashedWheelTimer timer;
+    /** The executor of the retries. */
+    private final @NotNull Executor executor;
+    /** The number of retries attempted. */
+    private final AtomicLong retryCount = new AtomicLong();
+
+    /**
+     * Creates a new instance with the default retry configuration and
+     * a private retry budget.
+     * 
+     * @param delegate The delegated HTTP client engine.
+     */
+    public RetryingHttpClientEngine(
+            final @NotNull HttpClientEngine delegate) {
+        this(delegate, new RetryPolicy());
+    }
+
+    /**
+     * Creates a new instance with a private retry budget.
+     * 
+     * @param delegate The delegated HTTP client engine.
+     * @param policy The retry configuration.
+     */
+    public RetryingHttpClientEngine(
+            final @NotNull HttpClientEngine delegate,
+            final @NotNull RetryPolicy policy) {
+        this(delegate, policy, new RetryBudget());
+    }
+
+    /**
+     * Creates a new instance.
+     * <p>
+     * Back off delays are scheduled in the shared {@code HashedWheelTimer}.
+     * Retries are started in {@code ForkJoinPool.commonPool()}.
+     * 
+     * @param delegate The delegated HTTP client engine.
+     * @param policy The retry configuration.
+     * @param budget The retry budget.
+     */
+    public RetryingHttpClientEngine(
+            final @NotNull HttpClientEngine delegate,
+            final @NotNull RetryPolicy policy,
+            final @NotNull RetryBudget budget) {
+        this(delegate, policy, budget, HashedWheelTimer.shared());
+    }
+
+    /**
+     * Creates a new instance.
+     * <p>
+     * The specified timer is not closed when this engine is closed.
+     * Retries are started in {@code ForkJoinPool.commonPool()}.
+     * 
+     * @param delegate The delegated HTTP client engine.
+     * @param policy The retry configuration.
+     * @param budget The retry budget.
+     * @param timer The timer used to schedule the back off delays.
+     */
+    public RetryingHttpClientEngine(
+            final @NotNull HttpClientEngine delegate,
+            final @NotNull RetryPolicy policy,
+            final @NotNull RetryBudget budget,
+            final @NotNull HashedWheelTimer timer) {
+        this(delegate, policy, budget, timer, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a new instance.
+     * <p>
+     * The specified timer and executor are not closed when this engine is
+     * closed. Requests whose retry is rejected by the executor fail with
+     * the rejection.
+     * 
+     * @param delegate The delegated HTTP client engine.
+     * @param policy The retry configuration.
+     * @param budget The retry budget.
+     * @param timer The timer used to schedule the back off delays.
+     * @param executor The executor of the retries.
+     */
+    public RetryingHttpClientEngine(
+            final @NotNull HttpClientEngine delegate,
+            final @NotNull RetryPolicy policy,
+            final @NotNull RetryBudget budget,
+            final @NotNull HashedWheelTimer timer,
+            final @NotNull Executor executor) {
+        super();
+        this.delegate = Validate.notNull(delegate, "Delegated engine is required");
+        this.policy = new RetryPolicy(Validate.notNull(policy, "Retry policy is required"));
+        this.budget = Validate.notNull(budget, "Retry budget is required");
+        this.timer = Validate.notNull(timer, "Timer is required");
+        this.executor = Validate.notNull(executor, "Executor is required");
+    }
+
+    /**
+     * Returns the delegated HTTP client engine.
+     * 
+     * @return The delegated HTTP client engine.
+     */
+    public @NotNull HttpClientEngine getDelegate() {
+        return this.delegate;
+    }
+
+    /**
+     * Returns a copy of the retry configuration.
+     * 
+     * @return The retry configuration.
+     */
+    public @NotNull RetryPolicy getPolicy() {
+        return new RetryPolicy(this.policy);
+    }
+
+    /**
+     * Returns the retry budget.
+     * 
+     * @return The retry budget.
+     */
+    public @NotNull RetryBudget getBudget() {
+        return this.budget;
+    }
+
+    /**
+     * Returns the total number of retries attempted.
+     * 
+     * @return The number of retries attempted.
+     */
+    public long getRetryCount() {
+        return this.retryCount.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull CookieStore getCookieStore() {
+        return this.delegate.getCookieStore();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull CompletionStage<Void> executeHttpRequest(
+            final @NotNull URI uri,
+            final @NotNull String method,
+            final @NotNull HttpRequestCustomizer requestCustomizer,
+            final @NotNull HttpResponseHandler responseHandler)
+    throws HttpClientException {
+        Validate.notNull(uri);
+        Validate.notNull(method);
+        Validate.notNull(requestCustomizer);
+        Validate.notNull(responseHandler);
+        this.budget.onRequest();
+        final boolean idempotent = Methods.isIdempotent(method);
+        if (this.policy.getMaxRetries() == 0
+                || !idempotent && this.policy.getIdempotencyHeader() == null) {
+            return this.delegate.executeHttpRequest(uri, method, requestCustomizer, responseHandler);
+        }
+        return new Execution(uri, method, requestCustomizer, responseHandler, idempotent)
+                .start();
+    }
+
+    /**
+     * Returns {@code true} if the specified failure of a request attempt
+     * is a transport failure that can be retried.
+     * 
+     * @param error The request attempt failure.
+     * @return If the failure can be retried.
+     */
+    protected boolean isRetryableFailure(
+            final @NotNull Throwable error) {
+        Throwable cause = error;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException)
+                && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause instanceof IOException;
+    }
+
+    /**
+     * Parses the value of a {@code Retry-After} response header, as a
+     * number of seconds or a HTTP date.
+     * 
+     * @param value The header value.
+     * @param now The current instant.
+     * @return The requested retry delay, or {@code null} if the value is
+     * not valid.
+     */
+    static Duration parseRetryAfter(
+            final @NotNull String value,
+            final @NotNull Instant now) {
+        final String trimmed = value.trim();
+        if (!trimmed.isEmpty() && trimmed.chars().allMatch(Character::isDigit)) {
+            try {
+                return Duration.ofSeconds(Long.parseLong(trimmed));
+            } catch (final NumberFormatException e) {
+                return null;
+            }
+        }
+        try {
+            final Duration delay = Duration.between(
+                    now,
+                    ZonedDateTime.parse(trimmed, DateTimeFormatter.RFC_1123_DATE_TIME));
+            return delay.isNegative() ? Duration.ZERO : delay;
+        } catch (final DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Shuts down the delegated engine. Requests waiting for a back off
+     * delay are rejected by the delegated engine when retried.
+     */
+    @Override
+    public int shutdown(
+            final @NotNull Duration timeout)
+    throws IOException {
+        return this.delegate.shutdown(timeout);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Closes the delegated engine.
+     */
+    @Override
+    public void close()
+    throws IOException {
+        this.delegate.close();
+    }
+
+    /**
+     * Execution of a HTTP request, including its retries.
+     * 
+     * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
+     * @version 1.0, 2023-10
+     * @since RetryingHttpClientEngine 1.0
+     */
+    private final class Execution {
+
+        /** The HTTP request target absolute URI. */
+        private final @NotNull URI uri;
+        /** The HTTP request method. */
+        private final @NotNull String method;
+        /** The HTTP request customizer. */
+        private final @NotNull HttpRequestCustomizer requestCustomizer;
+        /** The HTTP response handler. */
+        private final @NotNull HttpResponseHandler responseHandler;
+        /** The recorded HTTP request customizations. */
+        private final @NotNull HttpRequestRecorder recorder;
+        /** The HTTP request result. */
+        private final CompletableFuture<Void> result = new CompletableFuture<>();
+        /** The request attempt or back off delay in progress. */
+        private final AtomicReference<Future<?>> pending = new AtomicReference<>();
+        /** The number of retries attempted. */
+        private volatile int retries;
+
+        /**
+         * Creates a new instance.
+         * 
+         * @param uri The HTTP request target absolute URI.
+         * @param method The HTTP request method.
+         * @param requestCustomizer The HTTP request customizer.
+         * @param responseHandler The HTTP response handler.
+         * @param idempotent If the HTTP request method is idempotent.
+         */
+        private Execution(
+                final @NotNull URI uri,
+                final @NotNull String method,
+                final @NotNull HttpRequestCustomizer requestCustomizer,
+                final @NotNull HttpResponseHandler responseHandler,
+                final boolean idempotent) {
+            super();
+            this.uri = uri;
+            this.method = method;
+            this.requestCustomizer = requestCustomizer;
+            this.responseHandler = responseHandler;
+            this.recorder = new HttpRequestRecorder(
+                    idempotent,
+                    RetryingHttpClientEngine.this.policy.getIdempotencyHeader());
+        }
+
+        /**
+         * Starts the first request attempt.
+         * 
+         * @return The HTTP request result.
+         * @throws HttpClientException If an exception occurs executing the
+         * request
+         */
+        private @NotNull CompletionStage<Void> start()
+        throws HttpClientException {
+            this.result.whenComplete((nop, error) -> cancelPending());
+            attempt(request -> this.recorder.record(this.requestCustomizer, request));
+            return this.result;
+        }
+
+        /**
+         * Starts a request attempt.
+         * 
+         * @param customizer The HTTP request customizer of the attempt.
+         * @throws HttpClientException If an exception occurs executing the
+         * request
+         */
+        private void attempt(
+                final @NotNull HttpRequestCustomizer customizer)
+        throws HttpClientException {
+            final Attempt attempt = new Attempt();
+            final CompletableFuture<Void> stage = RetryingHttpClientEngine.this.delegate
+                    .executeHttpRequest(this.uri, this.method, customizer, attempt)
+                    .toCompletableFuture();
+            this.pending.set(stage);
+            if (this.result.isDone()) {
+                stage.cancel(true);
+            }
+            stage.whenComplete((nop, error) -> onAttemptCompleted(attempt, error));
+        }
+
+        /**
+         * Retries the request, replaying the recorded customizations.
+         */
+        private void retry() {
+            if (this.result.isDone()) {
+                return;
+            }
+            try {
+                attempt(this.recorder::replay);
+            } catch (final HttpClientException | RuntimeException e) {
+                this.result.completeExceptionally(e);
+            }
+        }
+
+        /**
+         * Completes the request, or schedules a retry, when a request
+         * attempt completes.
+         * 
+         * @param attempt The completed attempt.
+         * @param error The attempt failure, if any.
+         */
+        private void onAttemptCompleted(
+                final @NotNull Attempt attempt,
+                final Throwable error) {
+            if (this.result.isDone()) {
+                return;
+            }
+            Duration delay = attempt.retryDelay;
+            if (delay == null) {
+                if (error == null) {
+                    this.result.complete(null);
+                    return;
+                }
+                if (attempt.handled || !isRetryableFailure(error)) {
+                    this.result.completeExceptionally(error);
+                    return;
+                }
+                delay = RetryingHttpClientEngine.this.policy.getBackoffDelay(this.retries + 1);
+                if (!tryRetry(delay)) {
+                    this.result.completeExceptionally(error);
+                    return;
+                }
+            }
+            this.retries++;
+            RetryingHttpClientEngine.this.retryCount.incrementAndGet();
+            final CompletableFuture<Void> wait = RetryingHttpClientEngine.this.timer
+                    .delay(delay)
+                    .toCompletableFuture();
+            this.pending.set(wait);
+            if (this.result.isDone()) {
+                wait.cancel(false);
+            }
+            wait.thenRunAsync(this::retry, RetryingHttpClientEngine.this.executor)
+                .whenComplete((nop, rejection) -> {
+                    // Executor rejections complete the stage with the wrapped rejection
+                    if (rejection instanceof CompletionException && rejection.getCause() != null) {
+                        this.result.completeExceptionally(rejection.getCause());
+                    }
+                });
+        }
+
+        /**
+         * Returns {@code true} if the request can be retried after the
+         * specified delay, withdrawing the retry from the retry budget.
+         * 
+         * @param delay The back off delay.
+         * @return If the request can be retried.
+         */
+        private boolean tryRetry(
+                final @NotNull Duration delay) {
+            final Instant deadline = this.recorder.getDeadline();
+            return this.retries < RetryingHttpClientEngine.this.policy.getMaxRetries()
+                    && this.recorder.isRetryable()
+                    && (deadline == null || Instant.now().plus(delay).isBefore(deadline))
+                    && RetryingHttpClientEngine.this.budget.tryRetry();
+        }
+
+        /**
+         * Returns the delay to retry the request after the specified
+         * response, or {@code null} if the response must be handled.
+         * 
+         * @param response The HTTP response.
+         * @return The retry delay, or {@code null} if not retried.
+         */
+        private Duration getRetryDelay(
+                final @NotNull HttpResponse response) {
+            final RetryPolicy config = RetryingHttpClientEngine.this.policy;
+            if (!config.isRetryableStatusCode(response.getStatusCode())) {
+                return null;
+            }
+            Duration delay = null;
+            try {
+                final String retryAfter = response.getFirstHeaderValue(Headers.Response.RETRY_AFTER);
+                if (retryAfter != null) {
+                    delay = parseRetryAfter(retryAfter, Instant.now());
+                }
+            } catch (final HttpClientException e) {
+                // Ignore invalid Retry-After header
+            }
+            if (delay == null) {
+                delay = config.getBackoffDelay(this.retries + 1);
+            } else if (delay.compareTo(config.getMaxDelay()) > 0) {
+                return null;
+            }
+            return tryRetry(delay) ? delay : null;
+        }
+
+        /**
+         * Cancels the request attempt or back off delay in progress.
+         */
+        private void cancelPending() {
+            final Future<?> current = this.pending.get();
+            if (current != null && !current.isDone()) {
+                current.cancel(true);
+            }
+        }
+
+        /**
+         * Response handler of a request attempt.
+         * 
+         * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
+         * @version 1.0, 2023-10
+         * @since RetryingHttpClientEngine 1.0
+         */
+        private final class Attempt
+        implements HttpResponseHandler {
+
+            /** If the response has been passed to the response handler. */
+            private volatile boolean handled;
+            /** The retry delay, if the response must be retried. */
+            private volatile Duration retryDelay;
+
+            /**
+             * {@inheritDoc}
+             */
+            @Override
+            public void handle(
+                    final @NotNull HttpResponse response) {
+                this.retryDelay = getRetryDelay(response);
+                if (this.retryDelay == null) {
+                    this.handled = true;
+                    Execution.this.responseHandler.handle(response);
+                }
+            }
+        }
+    }
+}
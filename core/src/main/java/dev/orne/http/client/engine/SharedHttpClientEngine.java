@@ -0,0 +1,148 @@
+package dev.orne.http.client.engine;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.lang3.Validate;
+
+import dev.orne.http.client.HttpClientException;
+import dev.orne.http.client.cookie.CookieStore;
+
+/**
+ * Lease of a shared HTTP client engine registered in a
+ * {@code HttpClientEngineRegistry}.
+ * <p>
+ * Delegates the requests to the shared engine. Closing the lease releases
+ * its reference to the shared engine, which is closed when the last lease
+ * is closed. Closing a lease more than once has no effect.
+ * 
+ * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see HttpClientEngineRegistry
+ */
+public class SharedHttpClientEngine
+implements HttpClientEngine {
+
+    /** The registry of the shared engine. */
+    private final @NotNull HttpClientEngineRegistry registry;
+    /** The shared engine registration. */
+    private final @NotNull HttpClientEngineRegistry.Registration registration;
+    /** If this lease has been closed. */
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    /**
+     * Creates a new instance.
+     * 
+     * @param registry The registry of the shared engine.
+     * @param registration The shared engine registration.
+     */
+    SharedHttpClientEngine(
+            final @NotNull HttpClientEngineRegistry registry,
+            final @NotNull HttpClientEngineRegistry.Registration registration) {
+        super();
+        this.registry = registry;
+        this.registration = registration;
+    }
+
+    /**
+     * Returns the shared HTTP client engine.
+     * 
+     * @return The shared HTTP client engine.
+     */
+    public @NotNull HttpClientEngine getDelegate() {
+        return this.registration.getEngine();
+    }
+
+    /**
+     * Returns {@code true} if this lease has been closed.
+     * 
+     * @return If this lease has been closed.
+     */
+    public boolean isClosed() {
+        return this.closed.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull CookieStore getCookieStore() {
+        return getDelegate().getCookieStore();
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @throws IllegalStateException If this lease has been closed.
+     */
+    @Override
+    public @NotNull CompletionStage<Void> executeHttpRequest(
+            final @NotNull URI uri,
+            final @NotNull String method,
+            final @NotNull HttpRequestCustomizer requestCustomizer,
+            final @NotNull HttpResponseHandler responseHandler)
+    throws HttpClientException {
+        Validate.validState(!this.closed.get(), "Shared HTTP client engine lease is closed");
+        return getDelegate().executeHttpRequest(uri, method, requestCustomizer, responseHandler);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Releases the reference to the shared engine, shutting it down if this
+     * is the last open lease. Otherwise the shared engine is not affected
+     * and no request is aborted.
+     */
+    @Override
+    public int shutdown(
+            final @NotNull Duration timeout)
+    throws IOException {
+        Validate.notNull(timeout, "Timeout is required");
+        if (this.closed.compareAndSet(false, true)) {
+            return this.registry.release(this.registration, timeout);
+        }
+        return 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Releases the reference to the shared engine, closing it if this is
+     * the last open lease.
+     */
+    @Override
+    public void close()
+    throws IOException {
+        if (this.closed.compareAndSet(false, true)) {
+            this.registry.release(this.registration);
+        }
+    }
+}
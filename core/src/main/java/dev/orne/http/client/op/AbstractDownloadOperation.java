@@ -0,0 +1,796 @@
+package dev.orne.http.client.op;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Future;
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.lang3.Validate;
+
+import dev.orne.http.Headers;
+import dev.orne.http.Methods;
+import dev.orne.http.StatusCodes;
+import dev.orne.http.client.FutureUtils;
+import dev.orne.http.client.HttpClientException;
+import dev.orne.http.client.HttpResponseHandlingException;
+import dev.orne.http.client.HttpResponseStatusException;
+import dev.orne.http.client.HttpServiceClient;
+import dev.orne.http.client.engine.HttpClientEngine;
+import dev.orne.http.client.engine.HttpResponse;
+import dev.orne.http.client.engine.HttpResponseBody;
+import dev.orne.http.client.engine.HttpResponseHandler;
+
+/**
+ * Abstract operation for {@code HttpServiceClient} that downloads
+ * a resource to a file.
+ * <p>
+ * The resource is first probed with a {@code HEAD} request. If the server
+ * supports byte ranges and reports the resource length, the resource is
+ * split in up to {@link #getMaxSegments()} segments of at least
+ * {@link #getMinSegmentSize()} bytes, fetched concurrently with
+ * {@code Range} requests. The engine executes the concurrent requests over
+ * separate pooled connections. Each segment is written at its offset of the
+ * preallocated target file with {@code FileChannel} positional writes.
+ * Otherwise the resource is downloaded with a single {@code GET} request.
+ * <p>
+ * If the resource has a strong entity tag or a last modification date,
+ * the progress of segmented downloads is persisted in a state file next
+ * to the target file. Executing the operation again for the same target
+ * resumes the interrupted download, requesting only the missing data.
+ * Range requests carry the validator in a {@code If-Range} header, so
+ * changes of the resource during the download are detected, discarding
+ * the download state.
+ * 
+ * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @param <P> The execution parameters type
+ * @since 0.1
+ * @see DownloadResult
+ */
+public abstract class AbstractDownloadOperation<P>
+extends AbstractStatusIndependentOperation<P, Long, DownloadResult> {
+
+    /** The default maximum number of concurrent segments. */
+    public static final int DEFAULT_MAX_SEGMENTS = 4;
+    /** The default minimum segment size, in bytes. */
+    public static final long DEFAULT_MIN_SEGMENT_SIZE = 4L * 1024 * 1024;
+    /** The size of the segment transfer buffers. */
+    public static final int BUFFER_SIZE = 64 * 1024;
+    /** The suffix of the download state files. */
+    public static final String STATE_FILE_SUFFIX = ".download";
+    /** The byte range unit. */
+    private static final String BYTES_UNIT = "bytes";
+    /** The prefix of weak entity tags. */
+    private static final String WEAK_ETAG_PREFIX = "W/";
+
+    /**
+     * Creates a new instance.
+     */
+    protected AbstractDownloadOperation() {
+        super();
+    }
+
+    /**
+     * Returns the file to download the resource to.
+     * 
+     * @param params The operation execution parameters.
+     * @return The target file.
+     */
+    protected abstract @NotNull Path getTargetFile(
+            P params);
+
+    /**
+     * Returns the maximum number of segments to download concurrently.
+     * <p>
+     * Default implementation returns {@link #DEFAULT_MAX_SEGMENTS}.
+     * 
+     * @return The maximum number of segments.
+     */
+    protected int getMaxSegments() {
+        return DEFAULT_MAX_SEGMENTS;
+    }
+
+    /**
+     * Returns the minimum size of the segments. Resources smaller than
+     * twice this size are downloaded in a single segment.
+     * <p>
+     * Default implementation returns {@link #DEFAULT_MIN_SEGMENT_SIZE}.
+     * 
+     * @return The minimum segment size, in bytes.
+     */
+    protected long getMinSegmentSize() {
+        return DEFAULT_MIN_SEGMENT_SIZE;
+    }
+
+    /**
+     * Returns the file to persist the download state of the specified
+     * target file to.
+     * <p>
+     * Default implementation returns a sibling of the target file with
+     * the {@link #STATE_FILE_SUFFIX} suffix.
+     * 
+     * @param target The target file.
+     * @return The download state file.
+     */
+    protected @NotNull Path getStateFile(
+            final @NotNull Path target) {
+        return target.resolveSibling(target.getFileName() + STATE_FILE_SUFFIX);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected @NotNull String getRequestMethod() {
+        return Methods.GET;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Cancelling the returned future cancels the HTTP requests in progress.
+     * The progress of segmented downloads is persisted, so the download
+     * can be resumed.
+     */
+    @Override
+    public @NotNull CompletionStage<DownloadResult> execute(
+            final P params,
+            final @NotNull HttpServiceClient client) {
+        final URI requestURI;
+        try {
+            requestURI = resolveRequestURI(
+                    getRequestURI(params),
+                    client);
+        } catch (final HttpClientException e) {
+            return FutureUtils.completableFailure(e);
+        }
+        final Path target = Validate.notNull(getTargetFile(params), "Target file is required");
+        final Download download = new Download(params, client, requestURI, target);
+        download.start();
+        return download.result;
+    }
+
+    /**
+     * Executes the single request download of the resource, for servers
+     * that do not support byte ranges.
+     * 
+     * @param params The operation execution parameters.
+     * @param client The client to execute the operation with.
+     * @return The future operation result.
+     */
+    protected @NotNull CompletionStage<DownloadResult> executeSingle(
+            final P params,
+            final @NotNull HttpServiceClient client) {
+        return super.execute(params, client);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Writes the response body to the target file.
+     */
+    @Override
+    protected Long parseResponse(
+            final P params,
+            final @NotNull HttpResponse response,
+            final @NotNull HttpResponseBody body)
+    throws HttpResponseHandlingException {
+        return body.transferTo(getTargetFile(params));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected DownloadResult processResponse(
+            final P params,
+            final Long entity,
+            final @NotNull HttpResponse response)
+    throws HttpResponseHandlingException {
+        final Path target = getTargetFile(params);
+        final long length;
+        if (entity == null) {
+            try {
+                Files.deleteIfExists(target);
+                Files.createFile(target);
+            } catch (final IOException e) {
+                throw new HttpResponseHandlingException(
+                        String.format("Error creating download target file %s", target),
+                        e);
+            }
+            length = 0;
+        } else {
+            length = entity;
+        }
+        final String validator;
+        try {
+            validator = getValidator(response);
+        } catch (final HttpResponseHandlingException e) {
+            throw e;
+        } catch (final HttpClientException e) {
+            throw new HttpResponseHandlingException(e);
+        }
+        return new DownloadResult(target, length, validator, 1, 0);
+    }
+
+    /**
+     * Returns the validator of the resource to use in {@code If-Range}
+     * headers, if any.
+     * <p>
+     * Returns the entity tag of the resource, if strong, or its last
+     * modification date otherwise.
+     * 
+     * @param response The HTTP response.
+     * @return The resource validator, or {@code null} if the response has
+     * no suitable validator.
+     * @throws HttpClientException If an error occurs retrieving the
+     * response headers.
+     */
+    protected static String getValidator(
+            final @NotNull HttpResponse response)
+    throws HttpClientException {
+        final String etag = response.getFirstHeaderValue(Headers.Response.ETAG);
+        if (etag != null && !etag.startsWith(WEAK_ETAG_PREFIX)) {
+            return etag;
+        }
+        return response.getFirstHeaderValue(Headers.Response.LAST_MODIFIED);
+    }
+
+    /**
+     * Returns {@code true} if the response declares support for
+     * {@code bytes} range requests.
+     * 
+     * @param response The HTTP response.
+     * @return If the server supports byte ranges.
+     * @throws HttpClientException If an error occurs retrieving the
+     * response headers.
+     */
+    protected static boolean acceptsByteRanges(
+            final @NotNull HttpResponse response)
+    throws HttpClientException {
+        for (final String value : response.getHeader(Headers.Response.ACCEPT_RANGES)) {
+            for (final String unit : value.split(",")) {
+                if (BYTES_UNIT.equals(unit.trim().toLowerCase(Locale.ROOT))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the content length declared by the response, if any.
+     * 
+     * @param response The HTTP response.
+     * @return The content length, or {@code -1} if not declared or invalid.
+     * @throws HttpClientException If an error occurs retrieving the
+     * response headers.
+     */
+    protected static long getContentLength(
+            final @NotNull HttpResponse response)
+    throws HttpClientException {
+        final String value = response.getFirstHeaderValue(Headers.Response.CONTENT_LENGTH);
+        if (value == null) {
+            return -1;
+        }
+        try {
+            final long length = Long.parseLong(value.trim());
+            return length < 0 ? -1 : length;
+        } catch (final NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Returns the number of segments to download a resource of the
+     * specified length in.
+     * 
+     * @param length The resource length.
+     * @return The number of segments.
+     */
+    protected int getSegmentCount(
+            final long length) {
+        final long bySize = length / Math.max(1, getMinSegmentSize());
+        return (int) Math.max(1, Math.min(Math.max(1, getMaxSegments()), bySize));
+    }
+
+    /**
+     * Execution of a download.
+     * 
+     * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
+     * @version 1.0, 2023-10
+     * @since AbstractDownloadOperation 1.0
+     */
+    private class Download {
+
+        /** The operation execution parameters. */
+        private final P params;
+        /** The client to execute the operation with. */
+        private final @NotNull HttpServiceClient client;
+        /** The resource URI. */
+        private final @NotNull URI uri;
+        /** The target file. */
+        private final @NotNull Path target;
+        /** The download state file. */
+        private final @NotNull Path stateFile;
+        /** The future operation result. */
+        private final @NotNull CompletableFuture<DownloadResult> result =
+                new CompletableFuture<>();
+        /** The HTTP exchanges in progress. */
+        private final @NotNull List<Future<?>> exchanges = new CopyOnWriteArrayList<>();
+        /** If the resource has changed during the download. */
+        private volatile boolean changed;
+
+        /**
+         * Creates a new instance.
+         * 
+         * @param params The operation execution parameters.
+         * @param client The client to execute the operation with.
+         * @param uri The resource URI.
+         * @param target The target file.
+         */
+        Download(
+                final P params,
+                final @NotNull HttpServiceClient client,
+                final @NotNull URI uri,
+                final @NotNull Path target) {
+            super();
+            this.params = params;
+            this.client = client;
+            this.uri = uri;
+            this.target = target;
+            this.stateFile = getStateFile(target);
+            this.result.whenComplete((value, error) -> {
+                for (final Future<?> exchange : this.exchanges) {
+                    exchange.cancel(true);
+                }
+            });
+        }
+
+        /**
+         * Starts the download probing the resource.
+         */
+        void start() {
+            final HttpClientEngine engine = this.client.getEngine();
+            final ProbeHandler probe = new ProbeHandler();
+            final CompletableFuture<Void> exchange;
+            try {
+                exchange = engine.executeHttpRequest(
+                        this.uri,
+                        Methods.HEAD,
+                        request -> prepareRequest(this.params, request),
+                        probe)
+                    .toCompletableFuture();
+            } catch (final HttpClientException | RuntimeException e) {
+                this.result.completeExceptionally(e);
+                return;
+            }
+            this.exchanges.add(exchange);
+            exchange.whenComplete((nop, error) -> {
+                if (error != null) {
+                    this.result.completeExceptionally(unwrap(error));
+                } else if (probe.ranges && probe.length > 0) {
+                    startSegmented(probe.length, probe.validator);
+                } else {
+                    startSingle();
+                }
+            });
+        }
+
+        /**
+         * Downloads the resource with a single request.
+         */
+        private void startSingle() {
+            final CompletableFuture<DownloadResult> single =
+                    executeSingle(this.params, this.client).toCompletableFuture();
+            this.exchanges.add(single);
+            single.whenComplete((value, error) -> {
+                if (error == null) {
+                    try {
+                        DownloadState.delete(this.stateFile);
+                    } catch (final IOException e) {
+                        // Stale state files are ignored on resume
+                    }
+                    this.result.complete(value);
+                } else {
+                    this.result.completeExceptionally(unwrap(error));
+                }
+            });
+        }
+
+        /**
+         * Downloads the resource in concurrent segments, resuming the
+         * persisted download state if it matches the resource.
+         * 
+         * @param length The resource length.
+         * @param validator The resource validator, if any.
+         */
+        private void startSegmented(
+                final long length,
+                final String validator) {
+            final DownloadState previous = validator == null ? null : DownloadState.load(this.stateFile);
+            final boolean resume = previous != null
+                    && previous.matches(validator, length)
+                    && Files.exists(this.target);
+            final DownloadState state = resume
+                    ? previous
+                    : DownloadState.plan(validator, length, getSegmentCount(length));
+            final long resumed = resume ? state.getDone() : 0;
+            final FileChannel channel;
+            try {
+                channel = openTarget(length, resume);
+                if (validator == null) {
+                    DownloadState.delete(this.stateFile);
+                } else {
+                    state.store(this.stateFile);
+                }
+            } catch (final IOException e) {
+                this.result.completeExceptionally(new HttpResponseHandlingException(
+                        String.format("Error preparing download target file %s", this.target),
+                        e));
+                return;
+            }
+            final List<CompletableFuture<Void>> segments = new ArrayList<>();
+            for (final DownloadState.Segment segment : state.getSegments()) {
+                if (segment.getRemaining() > 0) {
+                    segments.add(fetchSegment(segment, validator, length, channel));
+                }
+            }
+            CompletableFuture.allOf(segments.toArray(new CompletableFuture<?>[0]))
+                .whenComplete((nop, error) -> complete(state, channel, resumed, error));
+        }
+
+        /**
+         * Opens the target file for writing, preallocating the resource
+         * length.
+         * 
+         * @param length The resource length.
+         * @param resume If an interrupted download is being resumed.
+         * @return The target file channel.
+         * @throws IOException If an I/O error occurs.
+         */
+        private @NotNull FileChannel openTarget(
+                final long length,
+                final boolean resume)
+        throws IOException {
+            final FileChannel channel = resume
+                    ? FileChannel.open(this.target, StandardOpenOption.WRITE)
+                    : FileChannel.open(this.target, StandardOpenOption.CREATE,
+                            StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            try {
+                if (channel.size() > length) {
+                    channel.truncate(length);
+                } else if (channel.size() < length) {
+                    channel.write(ByteBuffer.allocate(1), length - 1);
+                }
+            } catch (final IOException e) {
+                channel.close();
+                throw e;
+            }
+            return channel;
+        }
+
+        /**
+         * Fetches the pending data of the specified segment.
+         * 
+         * @param segment The segment.
+         * @param validator The resource validator, if any.
+         * @param length The resource length.
+         * @param channel The target file channel.
+         * @return The future segment completion.
+         */
+        private @NotNull CompletableFuture<Void> fetchSegment(
+                final @NotNull DownloadState.Segment segment,
+                final String validator,
+                final long length,
+                final @NotNull FileChannel channel) {
+            final SegmentHandler handler = new SegmentHandler(segment, length, channel);
+            final CompletableFuture<Void> exchange;
+            try {
+                exchange = this.client.getEngine().executeHttpRequest(
+                        this.uri,
+                        Methods.GET,
+                        request -> {
+                            prepareRequest(this.params, request);
+                            request.addHeader(
+                                    Headers.Request.RANGE,
+                                    BYTES_UNIT + "=" + segment.getPosition() + "-" + segment.getEnd());
+                            if (validator != null) {
+                                request.addHeader(Headers.Request.IF_RANGE, validator);
+                            }
+                        },
+                        handler)
+                    .toCompletableFuture();
+            } catch (final HttpClientException | RuntimeException e) {
+                final CompletableFuture<Void> failed = new CompletableFuture<>();
+                failed.completeExceptionally(e);
+                return failed;
+            }
+            this.exchanges.add(exchange);
+            return exchange.thenRun(() -> {
+                if (handler.error != null) {
+                    throw new CompletionException(handler.error);
+                }
+            });
+        }
+
+        /**
+         * Completes the segmented download, persisting the download
+         * state if not completed successfully.
+         * 
+         * @param state The download state.
+         * @param channel The target file channel.
+         * @param resumed The bytes recovered from a previous download.
+         * @param error The segment failure, if any.
+         */
+        private void complete(
+                final @NotNull DownloadState state,
+                final @NotNull FileChannel channel,
+                final long resumed,
+                final Throwable error) {
+            try {
+                channel.close();
+                if (error == null || this.changed || state.getValidator() == null) {
+                    DownloadState.delete(this.stateFile);
+                } else {
+                    state.store(this.stateFile);
+                }
+            } catch (final IOException e) {
+                if (error == null) {
+                    this.result.completeExceptionally(new HttpResponseHandlingException(
+                            String.format("Error completing download target file %s", this.target),
+                            e));
+                    return;
+                }
+            }
+            if (error == null) {
+                this.result.complete(new DownloadResult(
+                        this.target,
+                        state.getLength(),
+                        state.getValidator(),
+                        state.getSegments().length,
+                        resumed));
+            } else {
+                this.result.completeExceptionally(unwrap(error));
+            }
+        }
+
+        /**
+         * Handler of the probe response.
+         * 
+         * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
+         * @version 1.0, 2023-10
+         * @since AbstractDownloadOperation 1.0
+         */
+        private class ProbeHandler
+        implements HttpResponseHandler {
+
+            /** If the server supports byte ranges. */
+            private boolean ranges;
+            /** The resource length. */
+            private long length = -1;
+            /** The resource validator, if any. */
+            private String validator;
+
+            /**
+             * {@inheritDoc}
+             * <p>
+             * Error responses are ignored, falling back to a single
+             * request download that reports the error.
+             */
+            @Override
+            public void handle(
+                    final @NotNull HttpResponse response) {
+                try {
+                    final HttpResponseBody body = response.getBody();
+                    if (body != null) {
+                        body.discard();
+                    }
+                    if (StatusCodes.isSuccess(response.getStatusCode())) {
+                        this.ranges = acceptsByteRanges(response);
+                        this.length = getContentLength(response);
+                        this.validator = getValidator(response);
+                    }
+                } catch (final HttpClientException e) {
+                    this.ranges = false;
+                }
+            }
+        }
+
+        /**
+         * Handler of segment responses, that writes the segment data
+         * at its offset of the target file.
+         * 
+         * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
+         * @version 1.0, 2023-10
+         * @since AbstractDownloadOperation 1.0
+         */
+        private class SegmentHandler
+        implements HttpResponseHandler {
+
+            /** The segment. */
+            private final @NotNull DownloadState.Segment segment;
+            /** The resource length. */
+            private final long length;
+            /** The target file channel. */
+            private final @NotNull FileChannel channel;
+            /** The error occurred during response handling. */
+            private volatile HttpClientException error;
+
+            /**
+             * Creates a new instance.
+             * 
+             * @param segment The segment.
+             * @param length The resource length.
+             * @param channel The target file channel.
+             */
+            SegmentHandler(
+                    final @NotNull DownloadState.Segment segment,
+                    final long length,
+                    final @NotNull FileChannel channel) {
+                super();
+                this.segment = segment;
+                this.length = length;
+                this.channel = channel;
+            }
+
+            /**
+             * {@inheritDoc}
+             */
+            @Override
+            public void handle(
+                    final @NotNull HttpResponse response) {
+                try {
+                    checkResponse(response);
+                    writeBody(response.getBody());
+                } catch (final HttpClientException e) {
+                    this.error = e;
+                    try {
+                        final HttpResponseBody body = response.getBody();
+                        if (body != null) {
+                            body.discard();
+                        }
+                    } catch (final HttpClientException ignored) {
+                        // Already failed
+                    }
+                }
+            }
+
+            /**
+             * Verifies that the response contains the requested range of
+             * the same resource.
+             * 
+             * @param response The HTTP response.
+             * @throws HttpClientException If the response is not valid.
+             */
+            private void checkResponse(
+                    final @NotNull HttpResponse response)
+            throws HttpClientException {
+                final int status = response.getStatusCode();
+                if (status == StatusCodes.OK) {
+                    Download.this.changed = true;
+                    throw new HttpResponseHandlingException(
+                            "Downloaded resource changed during download");
+                }
+                if (status != StatusCodes.PARTIAL_CONTENT) {
+                    processResponseStatus(response);
+                    throw new HttpResponseStatusException(
+                            status,
+                            response.getStatusReason(),
+                            "Unexpected HTTP status for range request");
+                }
+                final String range = response.getFirstHeaderValue(Headers.Response.CONTENT_RANGE);
+                final String expected = BYTES_UNIT + " " + this.segment.getPosition() + "-" + this.segment.getEnd() + "/";
+                if (range == null
+                        || !range.startsWith(expected)
+                        || !isExpectedLength(range.substring(expected.length()))) {
+                    Download.this.changed = true;
+                    throw new HttpResponseHandlingException(String.format(
+                            "Unexpected content range for download segment: %s", range));
+                }
+            }
+
+            /**
+             * Returns {@code true} if the specified complete length of
+             * a {@code Content-Range} header matches the resource length.
+             * 
+             * @param value The complete length.
+             * @return If the complete length matches.
+             */
+            private boolean isExpectedLength(
+                    final @NotNull String value) {
+                return "*".equals(value) || String.valueOf(this.length).equals(value);
+            }
+
+            /**
+             * Writes the segment data at its offset of the target file.
+             * 
+             * @param body The HTTP response body.
+             * @throws HttpResponseHandlingException If an error occurs
+             * transferring the data or the response is truncated.
+             */
+            private void writeBody(
+                    final HttpResponseBody body)
+            throws HttpResponseHandlingException {
+                if (body == null) {
+                    throw new HttpResponseHandlingException("Missing download segment data");
+                }
+                try (final ReadableByteChannel input = body.getContentChannel()) {
+                    if (input == null) {
+                        throw new HttpResponseHandlingException("Missing download segment data");
+                    }
+                    final ByteBuffer buffer = ByteBuffer.allocate(
+                            (int) Math.min(BUFFER_SIZE, this.segment.getRemaining()));
+                    while (this.segment.getRemaining() > 0) {
+                        buffer.clear();
+                        if (this.segment.getRemaining() < buffer.capacity()) {
+                            buffer.limit((int) this.segment.getRemaining());
+                        }
+                        final int read = input.read(buffer);
+                        if (read < 0) {
+                            throw new HttpResponseHandlingException("Truncated download segment data");
+                        }
+                        buffer.flip();
+                        long position = this.segment.getPosition();
+                        while (buffer.hasRemaining()) {
+                            position += this.channel.write(buffer, position);
+                        }
+                        this.segment.advance(read);
+                    }
+                } catch (final IOException e) {
+                    throw new HttpResponseHandlingException("Error writing download segment data", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Unwraps the cause of {@code CompletionException} instances.
+     * 
+     * @param error The error.
+     * @return The unwrapped error.
+     */
+    private static @NotNull Throwable unwrap(
+            final @NotNull Throwable error) {
+        if (error instanceof CompletionException && error.getCause() != null) {
+            return error.getCause();
+        }
+        return error;
+    }
+}
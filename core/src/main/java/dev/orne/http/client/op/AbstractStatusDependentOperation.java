@@ -23,8 +23,9 @@ package dev.orne.http.client.op;
  */
 
 import java.net.URI;
-import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
 
 import javax.validation.constraints.NotNull;
 
@@ -33,9 +34,9 @@ import dev.orne.http.client.HttpClientException;
 import dev.orne.http.client.HttpResponseHandlingException;
 import dev.orne.http.client.HttpResponseStatusException;
 import dev.orne.http.client.StatedHttpServiceClient;
+import dev.orne.http.client.engine.HttpRequest;
 import dev.orne.http.client.engine.HttpResponse;
 import dev.orne.http.client.engine.HttpResponseBody;
-import dev.orne.http.client.engine.HttpRequest;
 
 /**
  * Abstract status dependent operation for {@code StatedHttpServiceClient}.
@@ -61,6 +62,9 @@ implements StatusDependentOperation<P, R, S> {
 
     /**
      * {@inheritDoc}
+     * <p>
+     * Cancelling the returned future cancels the HTTP request in progress,
+     * releasing its resources.
      */
     @Override
     public @NotNull CompletionStage<R> execute(
@@ -73,18 +77,21 @@ implements StatusDependentOperation<P, R, S> {
                     client);
             final OperationResponseHandler<R> handler =
                     createResponseHandler(params, status);
-            return client.getEngine().executeHttpRequest(
+            final CompletableFuture<Void> exchange = client.getEngine().executeHttpRequest(
                     requestURI,
                     getRequestMethod(),
                     request -> prepareRequest(params, status, request),
                     handler)
-            .thenApply(nop -> {
-                try {
-                    return handler.getResult();
-                } catch (HttpClientException e) {
-                    throw new CompletionException(e);
-                }
-            });
+                .toCompletableFuture();
+            return FutureUtils.propagateCancellation(
+                    exchange.thenApply(nop -> {
+                        try {
+                            return handler.getResult();
+                        } catch (HttpClientException e) {
+                            throw new CompletionException(e);
+                        }
+                    }),
+                    exchange);
         } catch (final HttpClientException e) {
             return FutureUtils.completableFailure(e);
         }
@@ -23,8 +23,9 @@ package dev.orne.http.client.op;
  */
 
 import java.net.URI;
-import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
 
 import javax.validation.constraints.NotNull;
 
@@ -60,6 +61,9 @@ implements StatusIndependentOperation<P, R> {
 
     /**
      * {@inheritDoc}
+     * <p>
+     * Cancelling the returned future cancels the HTTP request in progress,
+     * releasing its resources.
      */
     @Override
     public @NotNull CompletionStage<R> execute(
@@ -71,18 +75,21 @@ implements StatusIndependentOperation<P, R> {
                     client);
             final OperationResponseHandler<R> handler =
                     createResponseHandler(params);
-            return client.getEngine().executeHttpRequest(
+            final CompletableFuture<Void> exchange = client.getEngine().executeHttpRequest(
                     requestURI,
                     getRequestMethod(),
                     request -> prepareRequest(params, request),
                     handler)
-            .thenApply(nop -> {
-                try {
-                    return handler.getResult();
-                } catch (HttpClientException e) {
-                    throw new CompletionException(e);
-                }
-            });
+                .toCompletableFuture();
+            return FutureUtils.propagateCancellation(
+                    exchange.thenApply(nop -> {
+                        try {
+                            return handler.getResult();
+                        } catch (HttpClientException e) {
+                            throw new CompletionException(e);
+                        }
+                    }),
+                    exchange);
         } catch (final HttpClientException e) {
             return FutureUtils.completableFailure(e);
         }
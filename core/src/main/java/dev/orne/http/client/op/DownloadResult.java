@@ -0,0 +1,175 @@
+package dev.orne.http.client.op;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.nio.file.Path;
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.lang3.Validate;
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+/**
+ * Result of the execution of a download operation.
+ * 
+ * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see AbstractDownloadOperation
+ */
+public class DownloadResult {
+
+    /** The downloaded file. */
+    private final @NotNull Path file;
+    /** The length of the downloaded resource. */
+    private final long length;
+    /** The validator of the downloaded resource, if any. */
+    private final String validator;
+    /** The number of segments the resource was downloaded in. */
+    private final int segments;
+    /** The bytes recovered from a previous interrupted download. */
+    private final long resumedBytes;
+
+    /**
+     * Creates a new instance.
+     * 
+     * @param file The downloaded file.
+     * @param length The length of the downloaded resource.
+     * @param validator The validator of the downloaded resource, if any.
+     * @param segments The number of segments the resource was downloaded in.
+     * @param resumedBytes The bytes recovered from a previous interrupted
+     * download.
+     */
+    public DownloadResult(
+            final @NotNull Path file,
+            final long length,
+            final String validator,
+            final int segments,
+            final long resumedBytes) {
+        super();
+        this.file = Validate.notNull(file);
+        Validate.isTrue(length >= 0, "Length must be non negative");
+        Validate.isTrue(segments > 0, "Segments must be positive");
+        Validate.isTrue(resumedBytes >= 0 && resumedBytes <= length,
+                "Resumed bytes must be between zero and length");
+        this.length = length;
+        this.validator = validator;
+        this.segments = segments;
+        this.resumedBytes = resumedBytes;
+    }
+
+    /**
+     * Returns the downloaded file.
+     * 
+     * @return The downloaded file.
+     */
+    public @NotNull Path getFile() {
+        return this.file;
+    }
+
+    /**
+     * Returns the length of the downloaded resource.
+     * 
+     * @return The length of the downloaded resource.
+     */
+    public long getLength() {
+        return this.length;
+    }
+
+    /**
+     * Returns the validator of the downloaded resource, if any.
+     * <p>
+     * The validator is the strong entity tag or the last modification
+     * date of the resource, as used in {@code If-Range} headers.
+     * 
+     * @return The validator of the downloaded resource.
+     */
+    public String getValidator() {
+        return this.validator;
+    }
+
+    /**
+     * Returns the number of segments the resource was downloaded in.
+     * 
+     * @return The number of segments.
+     */
+    public int getSegments() {
+        return this.segments;
+    }
+
+    /**
+     * Returns the bytes recovered from a previous interrupted download.
+     * 
+     * @return The resumed bytes.
+     */
+    public long getResumedBytes() {
+        return this.resumedBytes;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        return new HashCodeBuilder()
+                .append(getClass())
+                .append(this.file)
+                .append(this.length)
+                .append(this.validator)
+                .append(this.segments)
+                .append(this.resumedBytes)
+                .toHashCode();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(
+            final Object obj) {
+        if (obj == null) { return false; }
+        if (obj == this) { return true; }
+        if (obj.getClass() != getClass()) {
+            return false;
+        }
+        final DownloadResult other = (DownloadResult) obj;
+        return new EqualsBuilder()
+                .append(this.file, other.file)
+                .append(this.length, other.length)
+                .append(this.validator, other.validator)
+                .append(this.segments, other.segments)
+                .append(this.resumedBytes, other.resumedBytes)
+                .isEquals();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return ToStringBuilder.reflectionToString(this, ToStringStyle.SHORT_PREFIX_STYLE);
+    }
+}
@@ -0,0 +1,368 @@
+package dev.orne.http.client.op;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Progress state of a segmented download, persisted next to the
+ * target file so interrupted downloads can be resumed.
+ * <p>
+ * The state records the validator and length of the resource and the
+ * bytes written of each segment. Progress is only advanced after the
+ * data has been written to the target file, so a persisted state never
+ * claims more data than the file contains.
+ * 
+ * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see AbstractDownloadOperation
+ */
+final class DownloadState {
+
+    /** The property of the resource validator. */
+    private static final String VALIDATOR = "validator";
+    /** The property of the resource length. */
+    private static final String LENGTH = "length";
+    /** The property of the number of segments. */
+    private static final String SEGMENTS = "segments";
+    /** The prefix of the segment properties. */
+    private static final String SEGMENT_PREFIX = "segment.";
+    /** The suffix of the segment start properties. */
+    private static final String START_SUFFIX = ".start";
+    /** The suffix of the segment length properties. */
+    private static final String LENGTH_SUFFIX = ".length";
+    /** The suffix of the segment written bytes properties. */
+    private static final String DONE_SUFFIX = ".done";
+
+    /** The resource validator, if any. */
+    private final String validator;
+    /** The resource length. */
+    private final long length;
+    /** The download segments. */
+    private final @NotNull Segment[] segments;
+
+    /**
+     * Creates a new instance.
+     * 
+     * @param validator The resource validator, if any.
+     * @param length The resource length.
+     * @param segments The download segments.
+     */
+    private DownloadState(
+            final String validator,
+            final long length,
+            final @NotNull Segment[] segments) {
+        super();
+        this.validator = validator;
+        this.length = length;
+        this.segments = segments;
+    }
+
+    /**
+     * Creates a new state that splits the resource in the specified number
+     * of segments of similar length.
+     * <p>
+     * States without validator cannot be persisted.
+     * 
+     * @param validator The resource validator, if any.
+     * @param length The resource length.
+     * @param count The number of segments.
+     * @return The created state.
+     */
+    static @NotNull DownloadState plan(
+            final String validator,
+            final long length,
+            final int count) {
+        Validate.isTrue(length > 0, "Length must be positive");
+        Validate.isTrue(count > 0 && count <= length, "Segment count must be between one and length");
+        final Segment[] segments = new Segment[count];
+        final long base = length / count;
+        final long remainder = length % count;
+        long start = 0;
+        for (int i = 0; i < count; i++) {
+            final long segmentLength = base + (i < remainder ? 1 : 0);
+            segments[i] = new Segment(start, segmentLength, 0);
+            start += segmentLength;
+        }
+        return new DownloadState(validator, length, segments);
+    }
+
+    /**
+     * Loads the state persisted in the specified file.
+     * 
+     * @param file The state file.
+     * @return The loaded state, or {@code null} if the file does not exist
+     * or its contents are not a valid state.
+     */
+    static DownloadState load(
+            final @NotNull Path file) {
+        final Properties props = new Properties();
+        try (final InputStream input = Files.newInputStream(file)) {
+            props.load(input);
+        } catch (final IOException e) {
+            return null;
+        }
+        try {
+            final String validator = props.getProperty(VALIDATOR);
+            final long length = Long.parseLong(props.getProperty(LENGTH));
+            final int count = Integer.parseInt(props.getProperty(SEGMENTS));
+            if (validator == null || length <= 0 || count <= 0 || count > length) {
+                return null;
+            }
+            final Segment[] segments = new Segment[count];
+            long expectedStart = 0;
+            for (int i = 0; i < count; i++) {
+                final String prefix = SEGMENT_PREFIX + i;
+                final long start = Long.parseLong(props.getProperty(prefix + START_SUFFIX));
+                final long segmentLength = Long.parseLong(props.getProperty(prefix + LENGTH_SUFFIX));
+                final long done = Long.parseLong(props.getProperty(prefix + DONE_SUFFIX));
+                if (start != expectedStart || segmentLength <= 0 || done < 0 || done > segmentLength) {
+                    return null;
+                }
+                segments[i] = new Segment(start, segmentLength, done);
+                expectedStart += segmentLength;
+            }
+            if (expectedStart != length) {
+                return null;
+            }
+            return new DownloadState(validator, length, segments);
+        } catch (final NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Persists the state in the specified file.
+     * <p>
+     * The state is written to a temporary file that then replaces the
+     * state file, so a failed write never corrupts a previous state.
+     * 
+     * @param file The state file.
+     * @throws IOException If an I/O error occurs.
+     */
+    synchronized void store(
+            final @NotNull Path file)
+    throws IOException {
+        Validate.validState(this.validator != null, "Download states without validator cannot be stored");
+        final Properties props = new Properties();
+        props.setProperty(VALIDATOR, this.validator);
+        props.setProperty(LENGTH, String.valueOf(this.length));
+        props.setProperty(SEGMENTS, String.valueOf(this.segments.length));
+        for (int i = 0; i < this.segments.length; i++) {
+            final String prefix = SEGMENT_PREFIX + i;
+            final Segment segment = this.segments[i];
+            props.setProperty(prefix + START_SUFFIX, String.valueOf(segment.getStart()));
+            props.setProperty(prefix + LENGTH_SUFFIX, String.valueOf(segment.getLength()));
+            props.setProperty(prefix + DONE_SUFFIX, String.valueOf(segment.getDone()));
+        }
+        final Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (final OutputStream output = Files.newOutputStream(temp)) {
+            props.store(output, null);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Deletes the specified state file, if exists.
+     * 
+     * @param file The state file.
+     * @throws IOException If an I/O error occurs.
+     */
+    static void delete(
+            final @NotNull Path file)
+    throws IOException {
+        try {
+            Files.delete(file);
+        } catch (final NoSuchFileException e) {
+            // Nothing to delete
+        }
+    }
+
+    /**
+     * Returns {@code true} if this state belongs to a resource with
+     * the specified validator and length.
+     * 
+     * @param resourceValidator The resource validator.
+     * @param resourceLength The resource length.
+     * @return If the state belongs to the resource.
+     */
+    boolean matches(
+            final String resourceValidator,
+            final long resourceLength) {
+        return this.validator != null
+                && this.validator.equals(resourceValidator)
+                && this.length == resourceLength;
+    }
+
+    /**
+     * Returns the resource validator, if any.
+     * 
+     * @return The resource validator.
+     */
+    String getValidator() {
+        return this.validator;
+    }
+
+    /**
+     * Returns the resource length.
+     * 
+     * @return The resource length.
+     */
+    long getLength() {
+        return this.length;
+    }
+
+    /**
+     * Returns the download segments.
+     * 
+     * @return The download segments.
+     */
+    @NotNull Segment[] getSegments() {
+        return this.segments.clone();
+    }
+
+    /**
+     * Returns the total bytes written of all the segments.
+     * 
+     * @return The total bytes written.
+     */
+    long getDone() {
+        long done = 0;
+        for (final Segment segment : this.segments) {
+            done += segment.getDone();
+        }
+        return done;
+    }
+
+    /**
+     * Segment of a segmented download.
+     * 
+     * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
+     * @version 1.0, 2023-10
+     * @since DownloadState 1.0
+     */
+    static final class Segment {
+
+        /** The position of the segment in the resource. */
+        private final long start;
+        /** The segment length. */
+        private final long length;
+        /** The bytes of the segment already written. */
+        private final AtomicLong done;
+
+        /**
+         * Creates a new instance.
+         * 
+         * @param start The position of the segment in the resource.
+         * @param length The segment length.
+         * @param done The bytes of the segment already written.
+         */
+        Segment(
+                final long start,
+                final long length,
+                final long done) {
+            super();
+            this.start = start;
+            this.length = length;
+            this.done = new AtomicLong(done);
+        }
+
+        /**
+         * Returns the position of the segment in the resource.
+         * 
+         * @return The segment start position.
+         */
+        long getStart() {
+            return this.start;
+        }
+
+        /**
+         * Returns the segment length.
+         * 
+         * @return The segment length.
+         */
+        long getLength() {
+            return this.length;
+        }
+
+        /**
+         * Returns the bytes of the segment already written.
+         * 
+         * @return The bytes written.
+         */
+        long getDone() {
+            return this.done.get();
+        }
+
+        /**
+         * Returns the position in the resource of the next byte to write.
+         * 
+         * @return The next position.
+         */
+        long getPosition() {
+            return this.start + this.done.get();
+        }
+
+        /**
+         * Returns the bytes of the segment pending to be written.
+         * 
+         * @return The remaining bytes.
+         */
+        long getRemaining() {
+            return this.length - this.done.get();
+        }
+
+        /**
+         * Returns the position in the resource of the last byte of
+         * the segment.
+         * 
+         * @return The last position, inclusive.
+         */
+        long getEnd() {
+            return this.start + this.length - 1;
+        }
+
+        /**
+         * Records the specified bytes as written.
+         * 
+         * @param written The bytes written.
+         */
+        void advance(
+                final long written) {
+            this.done.addAndGet(written);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package dev.orne.http;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@code Methods}.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see Methods
+ */
+@Tag("ut")
+class MethodsTest {
+
+    /**
+     * Test for {@link Methods#isIdempotent(String)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testIsIdempotent()
+    throws Throwable {
+        assertTrue(Methods.isIdempotent(Methods.GET));
+        assertTrue(Methods.isIdempotent(Methods.HEAD));
+        assertTrue(Methods.isIdempotent(Methods.PUT));
+        assertTrue(Methods.isIdempotent(Methods.DELETE));
+        assertTrue(Methods.isIdempotent(Methods.OPTIONS));
+        assertTrue(Methods.isIdempotent(Methods.TRACE));
+        assertFalse(Methods.isIdempotent(Methods.POST));
+        assertFalse(Methods.isIdempotent(Methods.PATCH));
+        assertFalse(Methods.isIdempotent(Methods.CONNECT));
+        assertFalse(Methods.isIdempotent("get"));
+        assertFalse(Methods.isIdempotent(null));
+    }
+}
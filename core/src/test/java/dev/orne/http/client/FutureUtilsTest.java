@@ -0,0 +1,123 @@
+package dev.orne.http.client;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@code FutureUtils}.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see FutureUtils
+ */
+@Tag("ut")
+class FutureUtilsTest {
+
+    /**
+     * Test for {@link FutureUtils#orTimeout(CompletableFuture, Duration)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testOrTimeout()
+    throws Throwable {
+        final CompletableFuture<String> future = new CompletableFuture<>();
+        assertSame(future, FutureUtils.orTimeout(future, Duration.ofMillis(10)));
+        final ExecutionException thrown = assertThrows(ExecutionException.class,
+                () -> future.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(HttpRequestTimeoutException.class, thrown.getCause());
+        assertThrows(IllegalArgumentException.class,
+                () -> FutureUtils.orTimeout(new CompletableFuture<>(), Duration.ofMillis(-1)));
+    }
+
+    /**
+     * Test for {@link FutureUtils#orTimeout(CompletableFuture, Duration)}
+     * with futures completed in time.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testOrTimeout_Completed()
+    throws Throwable {
+        final CompletableFuture<String> future = new CompletableFuture<>();
+        FutureUtils.orTimeout(future, Duration.ofSeconds(30));
+        future.complete("ok");
+        assertEquals("ok", future.get());
+        final CompletableFuture<String> done = CompletableFuture.completedFuture("done");
+        assertSame(done, FutureUtils.orTimeout(done, Duration.ZERO));
+        assertEquals("done", done.get());
+    }
+
+    /**
+     * Test for {@link FutureUtils#orTimeout(CompletableFuture, Duration, java.util.concurrent.Executor)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testOrTimeout_Executor()
+    throws Throwable {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final Thread executorThread = executor.submit(Thread::currentThread).get();
+            final CompletableFuture<String> future = new CompletableFuture<>();
+            final AtomicReference<Thread> callbackThread = new AtomicReference<>();
+            final CompletableFuture<Void> callback = future.whenComplete(
+                    (value, error) -> callbackThread.set(Thread.currentThread()))
+                    .handle((value, error) -> null);
+            FutureUtils.orTimeout(future, Duration.ofMillis(10), executor);
+            callback.get(5, TimeUnit.SECONDS);
+            assertSame(executorThread, callbackThread.get());
+            assertTrue(future.isCompletedExceptionally());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Test for {@link FutureUtils#orTimeout(CompletableFuture, Duration, java.util.concurrent.Executor)}
+     * with rejected completion.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testOrTimeout_Rejected()
+    throws Throwable {
+        final CompletableFuture<String> future = new CompletableFuture<>();
+        FutureUtils.orTimeout(future, Duration.ofMillis(10), task -> {
+            throw new RejectedExecutionException();
+        });
+        final ExecutionException thrown = assertThrows(ExecutionException.class,
+                () -> future.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(HttpRequestTimeoutException.class, thrown.getCause());
+    }
+}
@@ -41,6 +41,10 @@ import org.junit.jupiter.api.Test;
  * @see HttpClientException
  * @see HttpRequestBodyGenerationException
  * @see HttpResponseHandlingException
+ * @see HttpRequestRejectedException
+ * @see HttpRequestTimeoutException
+ * @see CircuitBreakerOpenException
+ * @see RateLimitExceededException
  * @see HttpResponseStatusException
  * @see HttpResponseBodyParsingException
  * @see UnsupportedContentTypeException
@@ -141,6 +145,58 @@ class OrneHttpClientExceptionsTest {
         assertFullException(new HttpResponseHandlingException(TEST_MESSAGE, TEST_CAUSE, false, false));
     }
 
+    /**
+     * Test for {@link HttpRequestRejectedException}.
+     */
+    @Test
+    void testHttpRequestRejectedException() {
+        assertEmptyException(new HttpRequestRejectedException());
+        assertMessageException(new HttpRequestRejectedException(TEST_MESSAGE));
+        assertCauseException(new HttpRequestRejectedException(TEST_CAUSE));
+        assertFullException(new HttpRequestRejectedException(TEST_MESSAGE, TEST_CAUSE));
+        assertFullException(new HttpRequestRejectedException(TEST_MESSAGE, TEST_CAUSE, false, false));
+        assertTrue(HttpClientException.class.isAssignableFrom(HttpRequestRejectedException.class));
+    }
+
+    /**
+     * Test for {@link HttpRequestTimeoutException}.
+     */
+    @Test
+    void testHttpRequestTimeoutException() {
+        assertEmptyException(new HttpRequestTimeoutException());
+        assertMessageException(new HttpRequestTimeoutException(TEST_MESSAGE));
+        assertCauseException(new HttpRequestTimeoutException(TEST_CAUSE));
+        assertFullException(new HttpRequestTimeoutException(TEST_MESSAGE, TEST_CAUSE));
+        assertFullException(new HttpRequestTimeoutException(TEST_MESSAGE, TEST_CAUSE, false, false));
+        assertTrue(HttpClientException.class.isAssignableFrom(HttpRequestTimeoutException.class));
+    }
+
+    /**
+     * Test for {@link CircuitBreakerOpenException}.
+     */
+    @Test
+    void testCircuitBreakerOpenException() {
+        assertEmptyException(new CircuitBreakerOpenException());
+        assertMessageException(new CircuitBreakerOpenException(TEST_MESSAGE));
+        assertCauseException(new CircuitBreakerOpenException(TEST_CAUSE));
+        assertFullException(new CircuitBreakerOpenException(TEST_MESSAGE, TEST_CAUSE));
+        assertFullException(new CircuitBreakerOpenException(TEST_MESSAGE, TEST_CAUSE, false, false));
+        assertTrue(HttpRequestRejectedException.class.isAssignableFrom(CircuitBreakerOpenException.class));
+    }
+
+    /**
+     * Test for {@link RateLimitExceededException}.
+     */
+    @Test
+    void testRateLimitExceededException() {
+        assertEmptyException(new RateLimitExceededException());
+        assertMessageException(new RateLimitExceededException(TEST_MESSAGE));
+        assertCauseException(new RateLimitExceededException(TEST_CAUSE));
+        assertFullException(new RateLimitExceededException(TEST_MESSAGE, TEST_CAUSE));
+        assertFullException(new RateLimitExceededException(TEST_MESSAGE, TEST_CAUSE, false, false));
+        assertTrue(HttpRequestRejectedException.class.isAssignableFrom(RateLimitExceededException.class));
+    }
+
     /**
      * Test for {@link HttpResponseStatusException}.
      */
@@ -0,0 +1,325 @@
+package dev.orne.http.client.engine;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import dev.orne.http.client.HttpRequestRejectedException;
+
+/**
+ * Unit tests for {@code AdmissionControl}.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see AdmissionControl
+ */
+@Tag("ut")
+class AdmissionControlTest {
+
+    /**
+     * Test for {@link AdmissionControl#AdmissionControl(int, int, Duration)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testConstructor()
+    throws Throwable {
+        assertThrows(IllegalArgumentException.class, () -> new AdmissionControl(0, 0, null));
+        assertThrows(IllegalArgumentException.class, () -> new AdmissionControl(1, -1, null));
+        assertThrows(IllegalArgumentException.class, () -> new AdmissionControl(1, 0, Duration.ofSeconds(-1)));
+        try (final AdmissionControl control = new AdmissionControl(10, 20, Duration.ofSeconds(5))) {
+            assertEquals(10, control.getMaxInFlight());
+            assertEquals(20, control.getMaxQueued());
+            assertEquals(Duration.ofSeconds(5), control.getQueueTimeout());
+            assertEquals(0, control.getInFlight());
+            assertEquals(0, control.getQueueDepth());
+            assertEquals(0, control.getRejectedCount());
+            assertEquals(0, control.getExpiredCount());
+        }
+        try (final AdmissionControl control = new AdmissionControl(1, 0, null)) {
+            assertNull(control.getQueueTimeout());
+        }
+    }
+
+    /**
+     * Test for {@link AdmissionControl#AdmissionControl(int, int, Duration, HashedWheelTimer)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testTimerConstructor()
+    throws Throwable {
+        assertThrows(NullPointerException.class,
+                () -> new AdmissionControl(1, 1, null, null));
+        try (final HashedWheelTimer timer = new HashedWheelTimer(Duration.ofMillis(1), 8)) {
+            try (final AdmissionControl control = new AdmissionControl(1, 1, Duration.ofMillis(10), timer)) {
+                final CompletableFuture<String> pending = new CompletableFuture<>();
+                control.submit(() -> pending);
+                final CompletionStage<String> result = control.submit(() -> pending);
+                final ExecutionException thrown = assertThrows(ExecutionException.class,
+                        () -> result.toCompletableFuture().get(5, TimeUnit.SECONDS));
+                assertInstanceOf(HttpRequestRejectedException.class, thrown.getCause());
+                assertEquals(1, control.getExpiredCount());
+            }
+        }
+    }
+
+    /**
+     * Test for {@link AdmissionControl#submit(java.util.function.Supplier)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testSubmit()
+    throws Throwable {
+        try (final AdmissionControl control = new AdmissionControl(1, 1, null)) {
+            assertThrows(NullPointerException.class, () -> control.submit(null));
+            final CompletableFuture<String> first = new CompletableFuture<>();
+            final CompletableFuture<String> second = new CompletableFuture<>();
+            final AtomicInteger started = new AtomicInteger();
+            final CompletionStage<String> firstResult = control.submit(() -> {
+                started.incrementAndGet();
+                return first;
+            });
+            assertEquals(1, started.get());
+            assertEquals(1, control.getInFlight());
+            final CompletionStage<String> secondResult = control.submit(() -> {
+                started.incrementAndGet();
+                return second;
+            });
+            assertEquals(1, started.get());
+            assertEquals(1, control.getInFlight());
+            assertEquals(1, control.getQueueDepth());
+            first.complete("first");
+            assertEquals("first", firstResult.toCompletableFuture().get(1, TimeUnit.SECONDS));
+            assertEquals(2, started.get());
+            assertEquals(1, control.getInFlight());
+            assertEquals(0, control.getQueueDepth());
+            second.complete("second");
+            assertEquals("second", secondResult.toCompletableFuture().get(1, TimeUnit.SECONDS));
+            assertEquals(0, control.getInFlight());
+            assertEquals(0, control.getRejectedCount());
+        }
+    }
+
+    /**
+     * Test for {@link AdmissionControl#submit(java.util.function.Supplier)}
+     * with failed requests.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testSubmit_Failure()
+    throws Throwable {
+        try (final AdmissionControl control = new AdmissionControl(1, 0, null)) {
+            final RuntimeException error = new RuntimeException();
+            CompletionStage<String> result = control.submit(() -> { throw error; });
+            ExecutionException thrown = assertThrows(ExecutionException.class,
+                    () -> result.toCompletableFuture().get(1, TimeUnit.SECONDS));
+            assertSame(error, thrown.getCause());
+            assertEquals(0, control.getInFlight());
+            final CompletableFuture<String> failed = new CompletableFuture<>();
+            final CompletionStage<String> failedResult = control.submit(() -> failed);
+            failed.completeExceptionally(error);
+            thrown = assertThrows(ExecutionException.class,
+                    () -> failedResult.toCompletableFuture().get(1, TimeUnit.SECONDS));
+            assertSame(error, thrown.getCause());
+            assertEquals(0, control.getInFlight());
+        }
+    }
+
+    /**
+     * Test for {@link AdmissionControl#submit(java.util.function.Supplier)}
+     * with full queue.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testSubmit_Rejected()
+    throws Throwable {
+        try (final AdmissionControl control = new AdmissionControl(1, 1, null)) {
+            final CompletableFuture<String> pending = new CompletableFuture<>();
+            control.submit(() -> pending);
+            control.submit(() -> pending);
+            final AtomicInteger started = new AtomicInteger();
+            final CompletionStage<String> result = control.submit(() -> {
+                started.incrementAndGet();
+                return pending;
+            });
+            final ExecutionException thrown = assertThrows(ExecutionException.class,
+                    () -> result.toCompletableFuture().get(1, TimeUnit.SECONDS));
+            assertInstanceOf(HttpRequestRejectedException.class, thrown.getCause());
+            assertEquals(0, started.get());
+            assertEquals(1, control.getRejectedCount());
+            assertEquals(1, control.getInFlight());
+            assertEquals(1, control.getQueueDepth());
+        }
+    }
+
+    /**
+     * Test for {@link AdmissionControl#submit(java.util.function.Supplier)}
+     * with queue timeout expiration.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testSubmit_Expired()
+    throws Throwable {
+        try (final HashedWheelTimer timer = new HashedWheelTimer(Duration.ofMillis(1), 8);
+                final AdmissionControl control = new AdmissionControl(1, 1, Duration.ofMillis(20), timer)) {
+            final CompletableFuture<String> pending = new CompletableFuture<>();
+            control.submit(() -> pending);
+            final AtomicInteger started = new AtomicInteger();
+            final CompletionStage<String> result = control.submit(() -> {
+                started.incrementAndGet();
+                return pending;
+            });
+            assertEquals(1, timer.getPendingTimeouts());
+            final ExecutionException thrown = assertThrows(ExecutionException.class,
+                    () -> result.toCompletableFuture().get(5, TimeUnit.SECONDS));
+            assertInstanceOf(HttpRequestRejectedException.class, thrown.getCause());
+            assertEquals(0, started.get());
+            assertEquals(1, control.getExpiredCount());
+            assertEquals(0, control.getQueueDepth());
+            pending.complete("done");
+            assertEquals(0, control.getInFlight());
+        }
+    }
+
+    /**
+     * Test for {@link AdmissionControl#submit(java.util.function.Supplier)}
+     * with queue timeout not expired.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testSubmit_NotExpired()
+    throws Throwable {
+        try (final HashedWheelTimer timer = new HashedWheelTimer(Duration.ofMillis(1), 8);
+                final AdmissionControl control = new AdmissionControl(1, 1, Duration.ofSeconds(30), timer)) {
+            final CompletableFuture<String> first = new CompletableFuture<>();
+            control.submit(() -> first);
+            final CompletionStage<String> result = control.submit(() -> CompletableFuture.completedFuture("ok"));
+            assertEquals(1, timer.getPendingTimeouts());
+            first.complete("first");
+            assertEquals("ok", result.toCompletableFuture().get(1, TimeUnit.SECONDS));
+            final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (timer.getPendingTimeouts() > 0 && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            assertEquals(0, timer.getPendingTimeouts());
+            assertEquals(0, control.getExpiredCount());
+            assertEquals(0, control.getInFlight());
+        }
+    }
+
+    /**
+     * Test for {@link AdmissionControl#submit(java.util.function.Supplier)}
+     * with cancelled queued requests.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testSubmit_CancelledQueued()
+    throws Throwable {
+        try (final AdmissionControl control = new AdmissionControl(1, 1, null)) {
+            final CompletableFuture<String> pending = new CompletableFuture<>();
+            final AtomicInteger started = new AtomicInteger();
+            control.submit(() -> pending);
+            final CompletionStage<String> queued = control.submit(() -> {
+                started.incrementAndGet();
+                return pending;
+            });
+            assertEquals(1, control.getQueueDepth());
+            assertTrue(queued.toCompletableFuture().cancel(true));
+            assertEquals(0, control.getQueueDepth());
+            pending.complete("done");
+            assertEquals(0, started.get());
+            assertEquals(0, control.getInFlight());
+        }
+    }
+
+    /**
+     * Test for {@link AdmissionControl#submit(java.util.function.Supplier)}
+     * with cancelled in flight requests.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testSubmit_CancelledInFlight()
+    throws Throwable {
+        try (final AdmissionControl control = new AdmissionControl(1, 1, null)) {
+            final CompletableFuture<String> pending = new CompletableFuture<>();
+            final CompletionStage<String> result = control.submit(() -> pending);
+            assertEquals(1, control.getInFlight());
+            assertTrue(result.toCompletableFuture().cancel(true));
+            assertTrue(pending.isCancelled());
+            assertEquals(0, control.getInFlight());
+        }
+    }
+
+    /**
+     * Test for {@link AdmissionControl#close()}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testClose()
+    throws Throwable {
+        final AdmissionControl control = new AdmissionControl(1, 1, null);
+        final CompletableFuture<String> pending = new CompletableFuture<>();
+        final CompletionStage<String> first = control.submit(() -> pending);
+        final CompletionStage<String> queued = control.submit(() -> pending);
+        control.close();
+        ExecutionException thrown = assertThrows(ExecutionException.class,
+                () -> queued.toCompletableFuture().get(1, TimeUnit.SECONDS));
+        assertInstanceOf(HttpRequestRejectedException.class, thrown.getCause());
+        final CompletionStage<String> rejected = control.submit(() -> pending);
+        thrown = assertThrows(ExecutionException.class,
+                () -> rejected.toCompletableFuture().get(1, TimeUnit.SECONDS));
+        assertInstanceOf(HttpRequestRejectedException.class, thrown.getCause());
+        pending.complete("done");
+        assertEquals("done", first.toCompletableFuture().get(1, TimeUnit.SECONDS));
+        assertEquals(0, control.getInFlight());
+        assertEquals(0, control.getQueueDepth());
+    }
+
+    /**
+     * Test for {@link AdmissionControl} with real queue timeout scheduler.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testQueueTimeout()
+    throws Throwable {
+        try (final AdmissionControl control = new AdmissionControl(1, 1, Duration.ofMillis(10))) {
+            final CompletableFuture<String> pending = new CompletableFuture<>();
+            control.submit(() -> pending);
+            final CompletionStage<String> result = control.submit(() -> pending);
+            final ExecutionException thrown = assertThrows(ExecutionException.class,
+                    () -> result.toCompletableFuture().get(5, TimeUnit.SECONDS));
+            assertInstanceOf(HttpRequestRejectedException.class, thrown.getCause());
+            assertEquals(1, control.getExpiredCount());
+        }
+    }
+}
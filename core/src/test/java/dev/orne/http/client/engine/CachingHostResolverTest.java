@@ -0,0 +1,349 @@
+package dev.orne.http.client.engine;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@code CachingHostResolver}.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see CachingHostResolver
+ */
+@Tag("ut")
+class CachingHostResolverTest {
+
+    private static final String HOST = "api.example.org";
+    private static final long SECOND = Duration.ofSeconds(1).toNanos();
+
+    private final AtomicLong clock = new AtomicLong(1000 * SECOND);
+    private final List<Runnable> tasks = new ArrayList<>();
+    private final FakeResolver delegate = new FakeResolver();
+
+    private CachingHostResolver createResolver(
+            final DnsCachePolicy policy) {
+        return new CachingHostResolver(policy, delegate, tasks::add, clock::get);
+    }
+
+    private static DnsCachePolicy createPolicy() {
+        final DnsCachePolicy policy = new DnsCachePolicy();
+        policy.setTtl(Duration.ofSeconds(10));
+        policy.setNegativeTtl(Duration.ofSeconds(2));
+        return policy;
+    }
+
+    private static InetAddress address(
+            final int last)
+    throws UnknownHostException {
+        return InetAddress.getByAddress(HOST, new byte[] { 10, 0, 0, (byte) last });
+    }
+
+    /**
+     * Test for {@link CachingHostResolver#CachingHostResolver(DnsCachePolicy, HostResolver, java.util.concurrent.Executor)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testConstructor()
+    throws Throwable {
+        assertThrows(NullPointerException.class, () -> new CachingHostResolver(null));
+        assertThrows(NullPointerException.class, () -> new CachingHostResolver(new DnsCachePolicy(), null));
+        assertThrows(NullPointerException.class, () -> new CachingHostResolver(new DnsCachePolicy(), delegate, null));
+        final DnsCachePolicy policy = createPolicy();
+        try (final CachingHostResolver resolver = new CachingHostResolver(policy, delegate)) {
+            assertSame(delegate, resolver.getDelegate());
+            assertEquals(policy, resolver.getPolicy());
+            assertNotSame(resolver.getPolicy(), resolver.getPolicy());
+        }
+        try (final CachingHostResolver resolver = new CachingHostResolver()) {
+            assertSame(HostResolver.SYSTEM, resolver.getDelegate());
+            assertEquals(new DnsCachePolicy(), resolver.getPolicy());
+        }
+    }
+
+    /**
+     * Test for {@link CachingHostResolver#resolve(String)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testResolve_Cached()
+    throws Throwable {
+        delegate.addresses = new InetAddress[] { address(1) };
+        final CachingHostResolver resolver = createResolver(createPolicy());
+        assertThrows(NullPointerException.class, () -> resolver.resolve(null));
+        assertArrayEquals(delegate.addresses, resolver.resolve(HOST));
+        clock.addAndGet(5 * SECOND);
+        assertArrayEquals(delegate.addresses, resolver.resolve(HOST.toUpperCase()));
+        assertEquals(1, delegate.calls.get());
+        assertEquals(1, resolver.getMissCount());
+        assertEquals(1, resolver.getHitCount());
+        assertEquals(1, resolver.getCacheSize());
+        clock.addAndGet(5 * SECOND);
+        assertArrayEquals(delegate.addresses, resolver.resolve(HOST));
+        assertEquals(2, delegate.calls.get());
+        assertEquals(2, resolver.getMissCount());
+        assertTrue(tasks.isEmpty());
+    }
+
+    /**
+     * Test for {@link CachingHostResolver#resolve(String)} with multiple
+     * addresses.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testResolve_RoundRobin()
+    throws Throwable {
+        final InetAddress a = address(1);
+        final InetAddress b = address(2);
+        final InetAddress c = address(3);
+        delegate.addresses = new InetAddress[] { a, b, c };
+        final CachingHostResolver resolver = createResolver(createPolicy());
+        assertArrayEquals(new InetAddress[] { a, b, c }, resolver.resolve(HOST));
+        assertArrayEquals(new InetAddress[] { b, c, a }, resolver.resolve(HOST));
+        assertArrayEquals(new InetAddress[] { c, a, b }, resolver.resolve(HOST));
+        assertArrayEquals(new InetAddress[] { a, b, c }, resolver.resolve(HOST));
+        assertEquals(1, delegate.calls.get());
+    }
+
+    /**
+     * Test for {@link CachingHostResolver#resolve(String)} background
+     * refresh of popular hosts.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testResolve_Refresh()
+    throws Throwable {
+        delegate.addresses = new InetAddress[] { address(1) };
+        final CachingHostResolver resolver = createResolver(createPolicy());
+        resolver.resolve(HOST);
+        clock.addAndGet(9 * SECOND);
+        resolver.resolve(HOST);
+        assertTrue(tasks.isEmpty());
+        resolver.resolve(HOST);
+        assertEquals(1, tasks.size());
+        resolver.resolve(HOST);
+        assertEquals(1, tasks.size());
+        final InetAddress[] refreshed = new InetAddress[] { address(2) };
+        delegate.addresses = refreshed;
+        tasks.remove(0).run();
+        assertEquals(2, delegate.calls.get());
+        assertEquals(1, resolver.getRefreshCount());
+        clock.addAndGet(5 * SECOND);
+        assertArrayEquals(refreshed, resolver.resolve(HOST));
+        assertEquals(2, delegate.calls.get());
+        assertEquals(1, resolver.getMissCount());
+    }
+
+    /**
+     * Test for {@link CachingHostResolver#resolve(String)} background
+     * refresh failure.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testResolve_RefreshFailure()
+    throws Throwable {
+        final InetAddress[] original = new InetAddress[] { address(1) };
+        delegate.addresses = original;
+        final CachingHostResolver resolver = createResolver(createPolicy());
+        resolver.resolve(HOST);
+        clock.addAndGet(9 * SECOND);
+        resolver.resolve(HOST);
+        resolver.resolve(HOST);
+        assertEquals(1, tasks.size());
+        delegate.addresses = null;
+        tasks.remove(0).run();
+        assertEquals(0, resolver.getRefreshCount());
+        assertArrayEquals(original, resolver.resolve(HOST));
+        assertTrue(tasks.isEmpty());
+        clock.addAndGet(SECOND);
+        assertThrows(UnknownHostException.class, () -> resolver.resolve(HOST));
+    }
+
+    /**
+     * Test for {@link CachingHostResolver#resolve(String)} with
+     * background refresh disabled.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testResolve_RefreshDisabled()
+    throws Throwable {
+        delegate.addresses = new InetAddress[] { address(1) };
+        final DnsCachePolicy policy = createPolicy();
+        policy.setRefreshRatio(1);
+        final CachingHostResolver resolver = createResolver(policy);
+        resolver.resolve(HOST);
+        clock.addAndGet(10 * SECOND - 1);
+        resolver.resolve(HOST);
+        resolver.resolve(HOST);
+        assertTrue(tasks.isEmpty());
+    }
+
+    /**
+     * Test for {@link CachingHostResolver#resolve(String)} resolution
+     * failures caching.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testResolve_Failure()
+    throws Throwable {
+        final CachingHostResolver resolver = createResolver(createPolicy());
+        assertThrows(UnknownHostException.class, () -> resolver.resolve(HOST));
+        assertThrows(UnknownHostException.class, () -> resolver.resolve(HOST));
+        assertEquals(1, delegate.calls.get());
+        clock.addAndGet(2 * SECOND);
+        delegate.addresses = new InetAddress[] { address(1) };
+        assertArrayEquals(delegate.addresses, resolver.resolve(HOST));
+        assertEquals(2, delegate.calls.get());
+        delegate.addresses = new InetAddress[0];
+        resolver.invalidate(HOST);
+        assertThrows(UnknownHostException.class, () -> resolver.resolve(HOST));
+    }
+
+    /**
+     * Test for {@link CachingHostResolver#resolve(String)} with
+     * resolution failures caching disabled.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testResolve_FailureNotCached()
+    throws Throwable {
+        final DnsCachePolicy policy = createPolicy();
+        policy.setNegativeTtl(Duration.ZERO);
+        final CachingHostResolver resolver = createResolver(policy);
+        assertThrows(UnknownHostException.class, () -> resolver.resolve(HOST));
+        assertThrows(UnknownHostException.class, () -> resolver.resolve(HOST));
+        assertEquals(2, delegate.calls.get());
+        assertEquals(0, resolver.getCacheSize());
+    }
+
+    /**
+     * Test for {@link CachingHostResolver#setHostOverride(String, InetAddress...)}
+     * and {@link CachingHostResolver#removeHostOverride(String)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testHostOverride()
+    throws Throwable {
+        final InetAddress a = address(1);
+        final InetAddress b = address(2);
+        delegate.addresses = new InetAddress[] { address(3) };
+        final CachingHostResolver resolver = createResolver(createPolicy());
+        assertThrows(NullPointerException.class, () -> resolver.setHostOverride(null, a));
+        assertThrows(NullPointerException.class, () -> resolver.setHostOverride(HOST, (InetAddress[]) null));
+        assertThrows(IllegalArgumentException.class, () -> resolver.setHostOverride(HOST));
+        assertThrows(IllegalArgumentException.class, () -> resolver.setHostOverride(HOST, a, null));
+        assertThrows(NullPointerException.class, () -> resolver.removeHostOverride(null));
+        resolver.setHostOverride(HOST.toUpperCase(), a, b);
+        assertArrayEquals(new InetAddress[] { a, b }, resolver.resolve(HOST));
+        assertArrayEquals(new InetAddress[] { b, a }, resolver.resolve(HOST));
+        assertEquals(0, delegate.calls.get());
+        resolver.removeHostOverride(HOST);
+        assertArrayEquals(delegate.addresses, resolver.resolve(HOST));
+        assertEquals(1, delegate.calls.get());
+    }
+
+    /**
+     * Test for {@link CachingHostResolver} cache size limit.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testMaxEntries()
+    throws Throwable {
+        delegate.addresses = new InetAddress[] { address(1) };
+        final DnsCachePolicy policy = createPolicy();
+        policy.setMaxEntries(2);
+        final CachingHostResolver resolver = createResolver(policy);
+        resolver.resolve("a.example.org");
+        resolver.resolve("a.example.org");
+        resolver.resolve("b.example.org");
+        resolver.resolve("c.example.org");
+        assertEquals(2, resolver.getCacheSize());
+        assertEquals(3, delegate.calls.get());
+        resolver.resolve("a.example.org");
+        assertEquals(3, delegate.calls.get());
+        resolver.resolve("b.example.org");
+        assertEquals(4, delegate.calls.get());
+        clock.addAndGet(10 * SECOND);
+        resolver.resolve("d.example.org");
+        assertEquals(1, resolver.getCacheSize());
+    }
+
+    /**
+     * Test for {@link CachingHostResolver#invalidate(String)},
+     * {@link CachingHostResolver#invalidateAll()} and
+     * {@link CachingHostResolver#close()}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testInvalidate()
+    throws Throwable {
+        delegate.addresses = new InetAddress[] { address(1) };
+        final CachingHostResolver resolver = createResolver(createPolicy());
+        assertThrows(NullPointerException.class, () -> resolver.invalidate(null));
+        resolver.resolve(HOST);
+        resolver.resolve("other.example.org");
+        resolver.invalidate(HOST);
+        assertEquals(1, resolver.getCacheSize());
+        resolver.invalidateAll();
+        assertEquals(0, resolver.getCacheSize());
+        resolver.resolve(HOST);
+        resolver.close();
+        assertEquals(0, resolver.getCacheSize());
+        resolver.resolve(HOST);
+        clock.addAndGet(9 * SECOND);
+        resolver.resolve(HOST);
+        resolver.resolve(HOST);
+        assertTrue(tasks.isEmpty());
+    }
+
+    private static class FakeResolver
+    implements HostResolver {
+
+        private final AtomicInteger calls = new AtomicInteger();
+        private volatile InetAddress[] addresses;
+
+        @Override
+        public InetAddress[] resolve(
+                final String host)
+        throws UnknownHostException {
+            calls.incrementAndGet();
+            if (addresses == null) {
+                throw new UnknownHostException(host);
+            }
+            return Arrays.copyOf(addresses, addresses.length);
+        }
+    }
+}
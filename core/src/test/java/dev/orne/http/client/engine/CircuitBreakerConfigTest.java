@@ -0,0 +1,122 @@
+package dev.orne.http.client.engine;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import dev.orne.http.StatusCodes;
+
+/**
+ * Unit tests for {@code CircuitBreakerConfig}.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see CircuitBreakerConfig
+ */
+@Tag("ut")
+class CircuitBreakerConfigTest {
+
+    /**
+     * Test for {@link CircuitBreakerConfig#CircuitBreakerConfig()}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testDefaults()
+    throws Throwable {
+        final CircuitBreakerConfig config = new CircuitBreakerConfig();
+        assertEquals(0.5, config.getFailureRateThreshold());
+        assertEquals(1.0, config.getSlowCallRateThreshold());
+        assertEquals(Duration.ofSeconds(5), config.getSlowCallDuration());
+        assertEquals(100, config.getSlidingWindowSize());
+        assertEquals(10, config.getMinimumCalls());
+        assertEquals(Duration.ofSeconds(30), config.getOpenDuration());
+        assertEquals(3, config.getHalfOpenProbes());
+        assertEquals(
+                new HashSet<>(Arrays.asList(500, 502, 503, 504)),
+                config.getFailureStatusCodes());
+        assertTrue(config.isFailureStatusCode(StatusCodes.SERVICE_UNAVAILABLE));
+        assertFalse(config.isFailureStatusCode(StatusCodes.NOT_FOUND));
+    }
+
+    /**
+     * Test for {@link CircuitBreakerConfig#CircuitBreakerConfig(CircuitBreakerConfig)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testCopy()
+    throws Throwable {
+        assertThrows(NullPointerException.class, () -> new CircuitBreakerConfig(null));
+        final CircuitBreakerConfig config = new CircuitBreakerConfig();
+        config.setFailureRateThreshold(0.25);
+        config.setSlowCallRateThreshold(0.75);
+        config.setSlowCallDuration(Duration.ofSeconds(1));
+        config.setSlidingWindowSize(20);
+        config.setMinimumCalls(5);
+        config.setOpenDuration(Duration.ofSeconds(10));
+        config.setHalfOpenProbes(1);
+        config.setFailureStatusCodes(Collections.singleton(StatusCodes.SERVICE_UNAVAILABLE));
+        final CircuitBreakerConfig copy = new CircuitBreakerConfig(config);
+        assertEquals(config, copy);
+        assertEquals(config.hashCode(), copy.hashCode());
+        assertEquals(config.toString(), copy.toString());
+        copy.setHalfOpenProbes(2);
+        assertNotEquals(config, copy);
+        assertNotEquals(config, null);
+        assertNotEquals(config, new Object());
+    }
+
+    /**
+     * Test for {@link CircuitBreakerConfig} setters validation.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testValidation()
+    throws Throwable {
+        final CircuitBreakerConfig config = new CircuitBreakerConfig();
+        assertThrows(IllegalArgumentException.class, () -> config.setFailureRateThreshold(0));
+        assertThrows(IllegalArgumentException.class, () -> config.setFailureRateThreshold(1.1));
+        assertThrows(IllegalArgumentException.class, () -> config.setSlowCallRateThreshold(0));
+        assertThrows(IllegalArgumentException.class, () -> config.setSlowCallRateThreshold(1.1));
+        assertThrows(NullPointerException.class, () -> config.setSlowCallDuration(null));
+        assertThrows(IllegalArgumentException.class, () -> config.setSlowCallDuration(Duration.ofMillis(-1)));
+        assertThrows(IllegalArgumentException.class, () -> config.setSlidingWindowSize(0));
+        assertThrows(IllegalArgumentException.class, () -> config.setMinimumCalls(0));
+        assertThrows(NullPointerException.class, () -> config.setOpenDuration(null));
+        assertThrows(IllegalArgumentException.class, () -> config.setOpenDuration(Duration.ofMillis(-1)));
+        assertThrows(IllegalArgumentException.class, () -> config.setHalfOpenProbes(0));
+        assertThrows(NullPointerException.class, () -> config.setFailureStatusCodes(null));
+        assertThrows(IllegalArgumentException.class, () -> config.setFailureStatusCodes(
+                new HashSet<>(Arrays.asList(503, null))));
+        config.setFailureStatusCodes(Collections.emptySet());
+        assertFalse(config.isFailureStatusCode(StatusCodes.SERVICE_UNAVAILABLE));
+    }
+}
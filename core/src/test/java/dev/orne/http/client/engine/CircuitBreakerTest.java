@@ -0,0 +1,281 @@
+package dev.orne.http.client.engine;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@code CircuitBreaker}.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see CircuitBreaker
+ */
+@Tag("ut")
+class CircuitBreakerTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    /**
+     * Test for {@link CircuitBreaker#CircuitBreaker(CircuitBreakerConfig)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testConstructor()
+    throws Throwable {
+        assertThrows(NullPointerException.class, () -> new CircuitBreaker(null));
+        final CircuitBreakerConfig config = new CircuitBreakerConfig();
+        final CircuitBreaker breaker = new CircuitBreaker(config);
+        assertEquals(config, breaker.getConfig());
+        assertNotSame(config, breaker.getConfig());
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(0, breaker.getFailureRate());
+        assertEquals(0, breaker.getSlowCallRate());
+        assertEquals(0, breaker.getRejectedCount());
+    }
+
+    /**
+     * Test for {@link CircuitBreaker#tryAcquire()} with failures.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testFailureRate()
+    throws Throwable {
+        final CircuitBreaker breaker = createBreaker();
+        for (int i = 0; i < 3; i++) {
+            breaker.tryAcquire().recordSuccess();
+            breaker.tryAcquire().recordFailure();
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(0.5, breaker.getFailureRate());
+        breaker.tryAcquire().recordSuccess();
+        breaker.tryAcquire().recordFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertNull(breaker.tryAcquire());
+        assertEquals(1, breaker.getRejectedCount());
+        assertEquals(0, breaker.getFailureRate());
+    }
+
+    /**
+     * Test for {@link CircuitBreaker#tryAcquire()} with slow calls.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testSlowCallRate()
+    throws Throwable {
+        final CircuitBreaker breaker = createBreaker();
+        for (int i = 0; i < 7; i++) {
+            final CircuitBreaker.Permit permit = breaker.tryAcquire();
+            this.clock.addAndGet(Duration.ofSeconds(2).toNanos());
+            permit.recordSuccess();
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(1, breaker.getSlowCallRate());
+        final CircuitBreaker.Permit permit = breaker.tryAcquire();
+        this.clock.addAndGet(Duration.ofSeconds(2).toNanos());
+        permit.recordSuccess();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    /**
+     * Test for {@link CircuitBreaker#tryAcquire()} sliding window.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testSlidingWindow()
+    throws Throwable {
+        final CircuitBreaker breaker = createBreaker();
+        for (int i = 0; i < 3; i++) {
+            breaker.tryAcquire().recordFailure();
+        }
+        for (int i = 0; i < 10; i++) {
+            breaker.tryAcquire().recordSuccess();
+        }
+        assertEquals(0, breaker.getFailureRate());
+        for (int i = 0; i < 3; i++) {
+            breaker.tryAcquire().recordFailure();
+        }
+        assertEquals(0.3, breaker.getFailureRate(), 0.001);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    /**
+     * Test for {@link CircuitBreaker#tryAcquire()} with successful probes.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testHalfOpen_Close()
+    throws Throwable {
+        final CircuitBreaker breaker = createOpenBreaker();
+        this.clock.addAndGet(Duration.ofSeconds(9).toNanos());
+        assertNull(breaker.tryAcquire());
+        this.clock.addAndGet(Duration.ofSeconds(1).toNanos());
+        final CircuitBreaker.Permit probe1 = breaker.tryAcquire();
+        assertNotNull(probe1);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        final CircuitBreaker.Permit probe2 = breaker.tryAcquire();
+        assertNotNull(probe2);
+        assertNull(breaker.tryAcquire());
+        probe1.recordSuccess();
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        probe2.recordSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(0, breaker.getFailureRate());
+        assertNotNull(breaker.tryAcquire());
+    }
+
+    /**
+     * Test for {@link CircuitBreaker#tryAcquire()} with failed probes.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testHalfOpen_Open()
+    throws Throwable {
+        final CircuitBreaker breaker = createOpenBreaker();
+        this.clock.addAndGet(Duration.ofSeconds(10).toNanos());
+        final CircuitBreaker.Permit probe1 = breaker.tryAcquire();
+        final CircuitBreaker.Permit probe2 = breaker.tryAcquire();
+        probe1.recordFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        probe2.recordSuccess();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertNull(breaker.tryAcquire());
+    }
+
+    /**
+     * Test for {@link CircuitBreaker.Permit#release()}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testRelease()
+    throws Throwable {
+        final CircuitBreaker breaker = createOpenBreaker();
+        this.clock.addAndGet(Duration.ofSeconds(10).toNanos());
+        final CircuitBreaker.Permit probe1 = breaker.tryAcquire();
+        final CircuitBreaker.Permit probe2 = breaker.tryAcquire();
+        assertNull(breaker.tryAcquire());
+        probe1.release();
+        probe1.release();
+        probe1.recordFailure();
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        final CircuitBreaker.Permit probe3 = breaker.tryAcquire();
+        assertNotNull(probe3);
+        assertNull(breaker.tryAcquire());
+        probe2.recordSuccess();
+        probe3.recordSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    /**
+     * Test for {@link CircuitBreaker} stale outcomes.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testStaleOutcomes()
+    throws Throwable {
+        final CircuitBreaker breaker = createBreaker();
+        final List<CircuitBreaker.Permit> stale = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            stale.add(breaker.tryAcquire());
+        }
+        for (int i = 0; i < 8; i++) {
+            breaker.tryAcquire().recordFailure();
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        this.clock.addAndGet(Duration.ofSeconds(10).toNanos());
+        final CircuitBreaker.Permit probe = breaker.tryAcquire();
+        for (final CircuitBreaker.Permit permit : stale) {
+            permit.recordFailure();
+        }
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        probe.recordSuccess();
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+    }
+
+    /**
+     * Test for {@link CircuitBreaker} concurrent use.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testConcurrency()
+    throws Throwable {
+        final CircuitBreakerConfig config = new CircuitBreakerConfig();
+        config.setSlidingWindowSize(50);
+        config.setMinimumCalls(50);
+        config.setSlowCallDuration(Duration.ofDays(1));
+        final CircuitBreaker breaker = new CircuitBreaker(config);
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        final CountDownLatch latch = new CountDownLatch(8);
+        try {
+            for (int t = 0; t < 8; t++) {
+                executor.execute(() -> {
+                    for (int i = 0; i < 1000; i++) {
+                        breaker.tryAcquire().recordSuccess();
+                    }
+                    latch.countDown();
+                });
+            }
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(0, breaker.getFailureRate());
+        for (int i = 0; i < 25; i++) {
+            breaker.tryAcquire().recordFailure();
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    private CircuitBreaker createBreaker() {
+        final CircuitBreakerConfig config = new CircuitBreakerConfig();
+        config.setSlidingWindowSize(10);
+        config.setMinimumCalls(8);
+        config.setSlowCallDuration(Duration.ofSeconds(1));
+        config.setOpenDuration(Duration.ofSeconds(10));
+        config.setHalfOpenProbes(2);
+        return new CircuitBreaker(config, this.clock::get);
+    }
+
+    private CircuitBreaker createOpenBreaker() {
+        final CircuitBreaker breaker = createBreaker();
+        for (int i = 0; i < 8; i++) {
+            breaker.tryAcquire().recordFailure();
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        return breaker;
+    }
+}
@@ -0,0 +1,331 @@
+package dev.orne.http.client.engine;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.BDDMockito.*;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import dev.orne.http.Methods;
+import dev.orne.http.StatusCodes;
+import dev.orne.http.client.CircuitBreakerOpenException;
+import dev.orne.http.client.HttpClientException;
+import dev.orne.http.client.HttpRequestRejectedException;
+import dev.orne.http.client.HttpRequestTimeoutException;
+import dev.orne.http.client.cookie.CookieStore;
+
+/**
+ * Unit tests for {@code CircuitBreakingHttpClientEngine}.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see CircuitBreakingHttpClientEngine
+ */
+@Tag("ut")
+class CircuitBreakingHttpClientEngineTest {
+
+    private static final URI TARGET = URI.create("http://example.org/path");
+    private static final URI OTHER_TARGET = URI.create("http://example.org:8080/path");
+
+    /**
+     * Test for {@link CircuitBreakingHttpClientEngine#CircuitBreakingHttpClientEngine(HttpClientEngine, CircuitBreakerConfig)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testConstructor()
+    throws Throwable {
+        final HttpClientEngine delegate = mock(HttpClientEngine.class);
+        final CircuitBreakerConfig config = new CircuitBreakerConfig();
+        assertThrows(NullPointerException.class, () -> new CircuitBreakingHttpClientEngine(null));
+        assertThrows(NullPointerException.class, () -> new CircuitBreakingHttpClientEngine(delegate, null));
+        final CircuitBreakingHttpClientEngine engine = new CircuitBreakingHttpClientEngine(delegate, config);
+        assertSame(delegate, engine.getDelegate());
+        assertEquals(config, engine.getConfig());
+        assertNotSame(config, engine.getConfig());
+    }
+
+    /**
+     * Test for {@link CircuitBreakingHttpClientEngine#getCookieStore()},
+     * {@link CircuitBreakingHttpClientEngine#shutdown(Duration)} and
+     * {@link CircuitBreakingHttpClientEngine#close()}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testDelegation()
+    throws Throwable {
+        final HttpClientEngine delegate = mock(HttpClientEngine.class);
+        final CookieStore cookieStore = mock(CookieStore.class);
+        final Duration timeout = Duration.ofSeconds(1);
+        given(delegate.getCookieStore()).willReturn(cookieStore);
+        given(delegate.shutdown(timeout)).willReturn(2);
+        final CircuitBreakingHttpClientEngine engine = new CircuitBreakingHttpClientEngine(delegate);
+        assertSame(cookieStore, engine.getCookieStore());
+        assertEquals(2, engine.shutdown(timeout));
+        engine.close();
+        then(delegate).should().close();
+    }
+
+    /**
+     * Test for {@link CircuitBreakingHttpClientEngine#getCircuitKey(URI)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testGetCircuitKey()
+    throws Throwable {
+        assertEquals("example.org:80", CircuitBreakingHttpClientEngine.getCircuitKey(
+                URI.create("http://Example.ORG/path")));
+        assertEquals("example.org:443", CircuitBreakingHttpClientEngine.getCircuitKey(
+                URI.create("https://example.org/path")));
+        assertEquals("example.org:8443", CircuitBreakingHttpClientEngine.getCircuitKey(
+                URI.create("https://example.org:8443/path")));
+    }
+
+    /**
+     * Test for {@link CircuitBreakingHttpClientEngine#getCircuitBreaker(URI)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testGetCircuitBreaker()
+    throws Throwable {
+        final CircuitBreakingHttpClientEngine engine = new CircuitBreakingHttpClientEngine(
+                mock(HttpClientEngine.class));
+        final CircuitBreaker breaker = engine.getCircuitBreaker(TARGET);
+        assertSame(breaker, engine.getCircuitBreaker(URI.create("http://example.org:80/other")));
+        assertNotSame(breaker, engine.getCircuitBreaker(OTHER_TARGET));
+        assertEquals(engine.getConfig(), breaker.getConfig());
+    }
+
+    /**
+     * Test for {@link CircuitBreakingHttpClientEngine#executeHttpRequest(URI, String, HttpRequestCustomizer, HttpResponseHandler)}
+     * with transport failures.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecute_TransportFailures()
+    throws Throwable {
+        final HttpClientEngine delegate = mock(HttpClientEngine.class);
+        given(delegate.executeHttpRequest(any(), any(), any(), any())).willAnswer(
+                invocation -> failed(new ConnectException("Connection refused")));
+        final CircuitBreakingHttpClientEngine engine = new CircuitBreakingHttpClientEngine(
+                delegate, createConfig());
+        final HttpResponseHandler handler = mock(HttpResponseHandler.class);
+        for (int i = 0; i < 2; i++) {
+            assertFailure(ConnectException.class,
+                    engine.executeHttpRequest(TARGET, Methods.GET, request -> {}, handler));
+        }
+        assertEquals(CircuitBreaker.State.OPEN, engine.getCircuitBreaker(TARGET).getState());
+        assertFailure(CircuitBreakerOpenException.class,
+                engine.executeHttpRequest(TARGET, Methods.GET, request -> {}, handler));
+        then(delegate).should(times(2)).executeHttpRequest(any(), any(), any(), any());
+        assertFailure(ConnectException.class,
+                engine.executeHttpRequest(OTHER_TARGET, Methods.GET, request -> {}, handler));
+        then(delegate).should(times(3)).executeHttpRequest(any(), any(), any(), any());
+        assertEquals(1, engine.getCircuitBreaker(TARGET).getRejectedCount());
+    }
+
+    /**
+     * Test for {@link CircuitBreakingHttpClientEngine#executeHttpRequest(URI, String, HttpRequestCustomizer, HttpResponseHandler)}
+     * with request timeouts.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecute_Timeouts()
+    throws Throwable {
+        final HttpClientEngine delegate = mock(HttpClientEngine.class);
+        given(delegate.executeHttpRequest(any(), any(), any(), any())).willAnswer(
+                invocation -> failed(new HttpRequestTimeoutException()));
+        final CircuitBreakingHttpClientEngine engine = new CircuitBreakingHttpClientEngine(
+                delegate, createConfig());
+        for (int i = 0; i < 2; i++) {
+            engine.executeHttpRequest(TARGET, Methods.GET, request -> {}, mock(HttpResponseHandler.class));
+        }
+        assertEquals(CircuitBreaker.State.OPEN, engine.getCircuitBreaker(TARGET).getState());
+    }
+
+    /**
+     * Test for {@link CircuitBreakingHttpClientEngine#executeHttpRequest(URI, String, HttpRequestCustomizer, HttpResponseHandler)}
+     * with failure response status codes.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecute_FailureStatus()
+    throws Throwable {
+        final HttpClientEngine delegate = mock(HttpClientEngine.class);
+        final CircuitBreakerConfig config = createConfig();
+        config.setFailureRateThreshold(1);
+        final CircuitBreakingHttpClientEngine engine = new CircuitBreakingHttpClientEngine(
+                delegate, config);
+        final HttpResponseHandler handler = mock(HttpResponseHandler.class);
+        given(delegate.executeHttpRequest(any(), any(), any(), any())).willAnswer(
+                invocation -> respond(invocation.getArgument(3), StatusCodes.NOT_FOUND));
+        for (int i = 0; i < 2; i++) {
+            engine.executeHttpRequest(TARGET, Methods.GET, request -> {}, handler)
+                    .toCompletableFuture().get();
+        }
+        assertEquals(0, engine.getCircuitBreaker(TARGET).getFailureRate());
+        given(delegate.executeHttpRequest(any(), any(), any(), any())).willAnswer(
+                invocation -> respond(invocation.getArgument(3), StatusCodes.SERVICE_UNAVAILABLE));
+        for (int i = 0; i < 2; i++) {
+            engine.executeHttpRequest(TARGET, Methods.GET, request -> {}, handler)
+                    .toCompletableFuture().get();
+        }
+        assertEquals(CircuitBreaker.State.OPEN, engine.getCircuitBreaker(TARGET).getState());
+        final ArgumentCaptor<HttpResponse> captor = ArgumentCaptor.forClass(HttpResponse.class);
+        then(handler).should(times(4)).handle(captor.capture());
+        assertEquals(StatusCodes.SERVICE_UNAVAILABLE, captor.getValue().getStatusCode());
+    }
+
+    /**
+     * Test for {@link CircuitBreakingHttpClientEngine#executeHttpRequest(URI, String, HttpRequestCustomizer, HttpResponseHandler)}
+     * with response handler failures.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecute_HandlerFailures()
+    throws Throwable {
+        final HttpClientEngine delegate = mock(HttpClientEngine.class);
+        final CircuitBreakingHttpClientEngine engine = new CircuitBreakingHttpClientEngine(
+                delegate, createConfig());
+        given(delegate.executeHttpRequest(any(), any(), any(), any())).willAnswer(
+                invocation -> respond(invocation.getArgument(3), StatusCodes.OK));
+        for (int i = 0; i < 2; i++) {
+            assertFailure(IllegalStateException.class,
+                    engine.executeHttpRequest(TARGET, Methods.GET, request -> {}, response -> {
+                        throw new IllegalStateException();
+                    }));
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, engine.getCircuitBreaker(TARGET).getState());
+        assertEquals(0, engine.getCircuitBreaker(TARGET).getFailureRate());
+    }
+
+    /**
+     * Test for {@link CircuitBreakingHttpClientEngine#executeHttpRequest(URI, String, HttpRequestCustomizer, HttpResponseHandler)}
+     * with requests not recorded.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecute_NotRecorded()
+    throws Throwable {
+        final HttpClientEngine delegate = mock(HttpClientEngine.class);
+        final CircuitBreakerConfig config = createConfig();
+        config.setHalfOpenProbes(1);
+        final CircuitBreakingHttpClientEngine engine = new CircuitBreakingHttpClientEngine(
+                delegate, config);
+        final HttpResponseHandler handler = mock(HttpResponseHandler.class);
+        given(delegate.executeHttpRequest(any(), any(), any(), any())).willAnswer(
+                invocation -> failed(new ConnectException()));
+        for (int i = 0; i < 2; i++) {
+            engine.executeHttpRequest(TARGET, Methods.GET, request -> {}, handler);
+        }
+        Thread.sleep(50);
+        final CompletableFuture<Void> pending = new CompletableFuture<>();
+        given(delegate.executeHttpRequest(any(), any(), any(), any())).willReturn(pending);
+        engine.executeHttpRequest(TARGET, Methods.GET, request -> {}, handler)
+                .toCompletableFuture()
+                .cancel(true);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, engine.getCircuitBreaker(TARGET).getState());
+        given(delegate.executeHttpRequest(any(), any(), any(), any())).willAnswer(
+                invocation -> failed(new HttpRequestRejectedException()));
+        assertFailure(HttpRequestRejectedException.class,
+                engine.executeHttpRequest(TARGET, Methods.GET, request -> {}, handler));
+        assertEquals(CircuitBreaker.State.HALF_OPEN, engine.getCircuitBreaker(TARGET).getState());
+        final HttpClientException failure = new HttpClientException();
+        willThrow(failure).given(delegate).executeHttpRequest(any(), any(), any(), any());
+        assertSame(failure, assertThrows(HttpClientException.class, () ->
+                engine.executeHttpRequest(TARGET, Methods.GET, request -> {}, handler)));
+        assertEquals(CircuitBreaker.State.HALF_OPEN, engine.getCircuitBreaker(TARGET).getState());
+        willAnswer(invocation -> respond(invocation.getArgument(3), StatusCodes.OK))
+                .given(delegate).executeHttpRequest(any(), any(), any(), any());
+        engine.executeHttpRequest(TARGET, Methods.GET, request -> {}, handler)
+                .toCompletableFuture().get();
+        assertEquals(CircuitBreaker.State.CLOSED, engine.getCircuitBreaker(TARGET).getState());
+    }
+
+    /**
+     * Test for {@link CircuitBreakingHttpClientEngine#isFailure(Throwable)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testIsFailure()
+    throws Throwable {
+        final CircuitBreakingHttpClientEngine engine = new CircuitBreakingHttpClientEngine(
+                mock(HttpClientEngine.class));
+        assertTrue(engine.isFailure(new IOException()));
+        assertTrue(engine.isFailure(new HttpRequestTimeoutException()));
+        assertTrue(engine.isFailure(new ExecutionException(new IOException())));
+        assertFalse(engine.isFailure(new CancellationException()));
+        assertFalse(engine.isFailure(new HttpRequestRejectedException()));
+        assertFalse(engine.isFailure(new HttpClientException()));
+    }
+
+    private static CircuitBreakerConfig createConfig() {
+        final CircuitBreakerConfig config = new CircuitBreakerConfig();
+        config.setSlidingWindowSize(2);
+        config.setMinimumCalls(2);
+        config.setOpenDuration(Duration.ofMillis(10));
+        return config;
+    }
+
+    private static CompletionStage<Void> failed(
+            final Throwable error) {
+        final CompletableFuture<Void> result = new CompletableFuture<>();
+        result.completeExceptionally(error);
+        return result;
+    }
+
+    private static CompletionStage<Void> respond(
+            final HttpResponseHandler handler,
+            final int status) {
+        final HttpResponse response = mock(HttpResponse.class);
+        given(response.getStatusCode()).willReturn(status);
+        final CompletableFuture<Void> result = new CompletableFuture<>();
+        try {
+            handler.handle(response);
+            result.complete(null);
+        } catch (final RuntimeException e) {
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    private static void assertFailure(
+            final Class<? extends Throwable> expected,
+            final CompletionStage<Void> result) {
+        final ExecutionException error = assertThrows(ExecutionException.class,
+                () -> result.toCompletableFuture().get());
+        assertInstanceOf(expected, error.getCause());
+    }
+}
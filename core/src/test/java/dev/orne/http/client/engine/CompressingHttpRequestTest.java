@@ -0,0 +1,222 @@
+package dev.orne.http.client.engine;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.BDDMockito.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import dev.orne.http.ContentType;
+import dev.orne.http.Headers;
+import dev.orne.http.client.engine.HttpRequest.BodyProducer;
+
+/**
+ * Unit tests for {@code CompressingHttpRequest}.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see CompressingHttpRequest
+ */
+@Tag("ut")
+class CompressingHttpRequestTest {
+
+    private static final ContentType CONTENT_TYPE = ContentType.of("application/json");
+    private static final String CONTENT = "{\"value\":\"Some JSON content ñ\"}";
+
+    private static byte[] read(
+            final InputStream input)
+    throws IOException {
+        try (final InputStream content = input) {
+            final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            final byte[] chunk = new byte[64];
+            int count;
+            while ((count = content.read(chunk)) != -1) {
+                buffer.write(chunk, 0, count);
+            }
+            return buffer.toByteArray();
+        }
+    }
+
+    private static byte[] writeBody(
+            final HttpRequest target)
+    throws Throwable {
+        final ArgumentCaptor<BodyProducer> producer = ArgumentCaptor.forClass(BodyProducer.class);
+        then(target).should().addHeader(Headers.Request.CONTENT_ENCODING, "gzip");
+        then(target).should().setBody(eq(CONTENT_TYPE), eq(-1L), producer.capture());
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        producer.getValue().writeBody(output);
+        return read(new GZIPInputStream(new ByteArrayInputStream(output.toByteArray())));
+    }
+
+    /**
+     * Test for {@link CompressingHttpRequest#CompressingHttpRequest(HttpRequest, String, ContentEncoder)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testConstructor()
+    throws Throwable {
+        final HttpRequest target = mock(HttpRequest.class);
+        assertThrows(NullPointerException.class, () -> new CompressingHttpRequest(null, "gzip", ContentEncoder.GZIP));
+        assertThrows(NullPointerException.class, () -> new CompressingHttpRequest(target, null, ContentEncoder.GZIP));
+        assertThrows(IllegalArgumentException.class, () -> new CompressingHttpRequest(target, " ", ContentEncoder.GZIP));
+        assertThrows(NullPointerException.class, () -> new CompressingHttpRequest(target, "gzip", null));
+        final CompressingHttpRequest request = new CompressingHttpRequest(target, "deflate", ContentEncoder.DEFLATE);
+        assertSame(target, request.getTarget());
+        assertEquals("deflate", request.getCoding());
+        assertSame(ContentEncoder.DEFLATE, request.getEncoder());
+        final CompressingHttpRequest gzip = CompressingHttpRequest.gzip(target);
+        assertSame(target, gzip.getTarget());
+        assertEquals("gzip", gzip.getCoding());
+        assertSame(ContentEncoder.GZIP, gzip.getEncoder());
+        then(target).shouldHaveNoInteractions();
+    }
+
+    /**
+     * Test for {@link CompressingHttpRequest#setBody(ContentType, long, BodyProducer)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testSetBody_Producer()
+    throws Throwable {
+        final HttpRequest target = mock(HttpRequest.class);
+        final AtomicBoolean written = new AtomicBoolean();
+        final byte[] content = CONTENT.getBytes(StandardCharsets.UTF_8);
+        CompressingHttpRequest.gzip(target).setBody(CONTENT_TYPE, content.length, output -> {
+            written.set(true);
+            output.write(content);
+            output.close();
+        });
+        assertFalse(written.get());
+        assertArrayEquals(content, writeBody(target));
+        assertTrue(written.get());
+    }
+
+    /**
+     * Test for {@link CompressingHttpRequest#setBody(ContentType, BodyProducer)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testSetBody_UnknownLengthProducer()
+    throws Throwable {
+        final HttpRequest target = mock(HttpRequest.class);
+        final byte[] content = CONTENT.getBytes(StandardCharsets.UTF_8);
+        CompressingHttpRequest.gzip(target).setBody(CONTENT_TYPE, output -> output.write(content));
+        assertArrayEquals(content, writeBody(target));
+    }
+
+    /**
+     * Test for {@link CompressingHttpRequest#setBody(ContentType, byte[])}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testSetBody_Bytes()
+    throws Throwable {
+        final HttpRequest target = mock(HttpRequest.class);
+        final byte[] content = CONTENT.getBytes(StandardCharsets.UTF_8);
+        final CompressingHttpRequest request = CompressingHttpRequest.gzip(target);
+        assertThrows(NullPointerException.class, () -> request.setBody(CONTENT_TYPE, (byte[]) null));
+        request.setBody(CONTENT_TYPE, content);
+        assertArrayEquals(content, writeBody(target));
+    }
+
+    /**
+     * Test for {@link CompressingHttpRequest#setBody(ContentType, String)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testSetBody_String()
+    throws Throwable {
+        final HttpRequest target = mock(HttpRequest.class);
+        final CompressingHttpRequest request = CompressingHttpRequest.gzip(target);
+        assertThrows(NullPointerException.class, () -> request.setBody(CONTENT_TYPE, (String) null));
+        request.setBody(CONTENT_TYPE, CONTENT);
+        assertArrayEquals(CONTENT.getBytes(StandardCharsets.UTF_8), writeBody(target));
+        final HttpRequest latin1Target = mock(HttpRequest.class);
+        final ContentType latin1 = ContentType.of("application/json", StandardCharsets.ISO_8859_1);
+        CompressingHttpRequest.gzip(latin1Target).setBody(latin1, CONTENT);
+        final ArgumentCaptor<BodyProducer> producer = ArgumentCaptor.forClass(BodyProducer.class);
+        then(latin1Target).should().setBody(eq(latin1), eq(-1L), producer.capture());
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        producer.getValue().writeBody(output);
+        assertArrayEquals(CONTENT.getBytes(StandardCharsets.ISO_8859_1),
+                read(new GZIPInputStream(new ByteArrayInputStream(output.toByteArray()))));
+    }
+
+    /**
+     * Test for {@link CompressingHttpRequest#encode(ContentEncoder, BodyProducer)}
+     * with {@link ContentEncoder#DEFLATE}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testEncode()
+    throws Throwable {
+        final byte[] content = CONTENT.getBytes(StandardCharsets.UTF_8);
+        assertThrows(NullPointerException.class, () -> CompressingHttpRequest.encode(null, output -> {}));
+        assertThrows(NullPointerException.class, () -> CompressingHttpRequest.encode(ContentEncoder.DEFLATE, null));
+        final BodyProducer producer = CompressingHttpRequest.encode(
+                ContentEncoder.DEFLATE, output -> output.write(content));
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        producer.writeBody(output);
+        assertArrayEquals(content, read(new InflaterInputStream(
+                new ByteArrayInputStream(output.toByteArray()))));
+    }
+
+    /**
+     * Test for {@link CompressingHttpRequest} delegated methods.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testDelegation()
+    throws Throwable {
+        final HttpRequest target = mock(HttpRequest.class);
+        final CompressingHttpRequest request = CompressingHttpRequest.gzip(target);
+        final Duration timeout = Duration.ofSeconds(3);
+        final Instant deadline = Instant.now().plusSeconds(5);
+        request.addHeader("Accept", "application/json");
+        request.setConnectTimeout(timeout);
+        request.setResponseTimeout(timeout);
+        request.setTimeout(timeout);
+        request.setDeadline(deadline);
+        then(target).should().addHeader("Accept", "application/json");
+        then(target).should().setConnectTimeout(timeout);
+        then(target).should().setResponseTimeout(timeout);
+        then(target).should().setTimeout(timeout);
+        then(target).should().setDeadline(deadline);
+        then(target).shouldHaveNoMoreInteractions();
+    }
+}
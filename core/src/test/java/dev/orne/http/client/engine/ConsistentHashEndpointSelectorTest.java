@@ -0,0 +1,219 @@
+package dev.orne.http.client.engine;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.BDDMockito.*;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@code ConsistentHashEndpointSelector}.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see ConsistentHashEndpointSelector
+ */
+@Tag("ut")
+class ConsistentHashEndpointSelectorTest {
+
+    private static final int KEYS = 1000;
+
+    private static List<Endpoint> createEndpoints(
+            final int count) {
+        final List<Endpoint> endpoints = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            endpoints.add(new Endpoint(URI.create("http://replica-" + i + ":8080/api/")));
+        }
+        return endpoints;
+    }
+
+    private static URI requestURI(
+            final int key) {
+        return URI.create("http://service/api/10.0.0." + key + "?access_key=" + key % 7);
+    }
+
+    /**
+     * Test for {@link ConsistentHashEndpointSelector#ConsistentHashEndpointSelector(int, double, java.util.function.Function)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testConstructor()
+    throws Throwable {
+        final ConsistentHashEndpointSelector selector = new ConsistentHashEndpointSelector();
+        assertEquals(100, selector.getVirtualNodes());
+        assertEquals(1.25, selector.getLoadFactor());
+        assertEquals("/path", selector.getKeyExtractor().apply(URI.create("http://service/path?q")));
+        assertThrows(IllegalArgumentException.class, () -> new ConsistentHashEndpointSelector(0, 1.25));
+        assertThrows(IllegalArgumentException.class, () -> new ConsistentHashEndpointSelector(10, 0.5));
+        assertThrows(NullPointerException.class, () -> new ConsistentHashEndpointSelector(10, 1.25, null));
+    }
+
+    /**
+     * Test for {@link ConsistentHashEndpointSelector#select(List, URI)}
+     * affinity and spread.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testSelect_Affinity()
+    throws Throwable {
+        final List<Endpoint> endpoints = createEndpoints(4);
+        final ConsistentHashEndpointSelector selector = new ConsistentHashEndpointSelector();
+        final Map<Endpoint, Integer> counts = new HashMap<>();
+        for (int i = 0; i < KEYS; i++) {
+            final Endpoint selected = selector.select(endpoints, requestURI(i));
+            assertSame(selected, selector.select(endpoints, requestURI(i)));
+            assertSame(selected, selector.select(new ArrayList<>(endpoints), requestURI(i)));
+            assertSame(selected, selector.select(endpoints, URI.create(
+                    "http://service/api/10.0.0." + i + "?access_key=other")));
+            counts.merge(selected, 1, Integer::sum);
+        }
+        assertEquals(4, counts.size());
+        for (final int count : counts.values()) {
+            assertTrue(count > KEYS / 8, "Unbalanced ring: " + counts);
+        }
+    }
+
+    /**
+     * Test for {@link ConsistentHashEndpointSelector#select(List, URI)}
+     * when endpoints are removed or added.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testSelect_MinimalRemapping()
+    throws Throwable {
+        final List<Endpoint> endpoints = createEndpoints(5);
+        final ConsistentHashEndpointSelector selector = new ConsistentHashEndpointSelector();
+        final Endpoint[] before = new Endpoint[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            before[i] = selector.select(endpoints, requestURI(i));
+        }
+        final Endpoint removed = endpoints.get(2);
+        final List<Endpoint> remaining = new ArrayList<>(endpoints);
+        remaining.remove(removed);
+        for (int i = 0; i < KEYS; i++) {
+            final Endpoint after = selector.select(remaining, requestURI(i));
+            if (before[i] != removed) {
+                assertSame(before[i], after);
+            } else {
+                assertNotSame(removed, after);
+            }
+        }
+        for (int i = 0; i < KEYS; i++) {
+            assertSame(before[i], selector.select(endpoints, requestURI(i)));
+        }
+    }
+
+    /**
+     * Test for {@link ConsistentHashEndpointSelector#select(List, URI)}
+     * with bounded loads.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testSelect_BoundedLoad()
+    throws Throwable {
+        final List<Endpoint> endpoints = createEndpoints(3);
+        final ConsistentHashEndpointSelector selector = new ConsistentHashEndpointSelector();
+        final URI hot = requestURI(42);
+        final Endpoint owner = selector.select(endpoints, hot);
+        for (final Endpoint endpoint : endpoints) {
+            for (int i = 0; i < 4; i++) {
+                endpoint.onStart();
+            }
+        }
+        assertSame(owner, selector.select(endpoints, hot));
+        owner.onStart();
+        owner.onStart();
+        assertSame(owner, selector.select(endpoints, hot));
+        owner.onStart();
+        owner.onStart();
+        final Endpoint overflow = selector.select(endpoints, hot);
+        assertNotSame(owner, overflow);
+        assertSame(overflow, selector.select(endpoints, hot));
+        final ConsistentHashEndpointSelector unbounded = new ConsistentHashEndpointSelector(
+                100, Double.POSITIVE_INFINITY);
+        assertSame(owner, unbounded.select(endpoints, hot));
+    }
+
+    /**
+     * Test for {@link ConsistentHashEndpointSelector#select(List, URI)}
+     * with custom routing keys.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testSelect_KeyExtractor()
+    throws Throwable {
+        final List<Endpoint> endpoints = createEndpoints(3);
+        final ConsistentHashEndpointSelector selector = new ConsistentHashEndpointSelector(
+                100, 1.25, uri -> uri.getQuery());
+        final Endpoint selected = selector.select(endpoints, URI.create("http://service/api/a?tenant=1"));
+        assertSame(selected, selector.select(endpoints, URI.create("http://service/api/b?tenant=1")));
+        assertNotNull(selector.select(endpoints, URI.create("http://service/api/c")));
+        final List<Endpoint> single = createEndpoints(1);
+        assertSame(single.get(0), selector.select(single, URI.create("http://service/api/c")));
+    }
+
+    /**
+     * Test for {@link ConsistentHashEndpointSelector#hash(String)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testHash()
+    throws Throwable {
+        assertEquals(ConsistentHashEndpointSelector.hash("key"), ConsistentHashEndpointSelector.hash("key"));
+        assertNotEquals(ConsistentHashEndpointSelector.hash("key1"), ConsistentHashEndpointSelector.hash("key2"));
+        assertNotEquals(0, ConsistentHashEndpointSelector.hash(""));
+    }
+
+    /**
+     * Test for {@link ConsistentHashEndpointSelector} with
+     * {@code LoadBalancingHttpClientEngine}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testEngineRouting()
+    throws Throwable {
+        final HttpClientEngine delegate = mock(HttpClientEngine.class);
+        final LoadBalancingHttpClientEngine engine = new LoadBalancingHttpClientEngine(
+                delegate,
+                URI.create("http://service/api/"),
+                Arrays.asList(
+                        URI.create("http://replica-1:8080/api/"),
+                        URI.create("http://replica-2:8080/api/")),
+                new LoadBalancerConfig(),
+                new ConsistentHashEndpointSelector());
+        final Endpoint first = engine.getSelector().select(
+                engine.getAvailableEndpoints(), requestURI(1));
+        assertSame(first, engine.getSelector().select(
+                engine.getAvailableEndpoints(), requestURI(1)));
+    }
+}
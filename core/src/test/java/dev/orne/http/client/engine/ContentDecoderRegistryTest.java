@@ -0,0 +1,209 @@
+package dev.orne.http.client.engine;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@code ContentDecoderRegistry}.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see ContentDecoderRegistry
+ */
+@Tag("ut")
+class ContentDecoderRegistryTest {
+
+    private static final byte[] CONTENT = "{\"value\":\"Some JSON content\"}"
+            .getBytes(StandardCharsets.UTF_8);
+
+    static byte[] gzip(
+            final byte[] content)
+    throws IOException {
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (final OutputStream output = new GZIPOutputStream(buffer)) {
+            output.write(content);
+        }
+        return buffer.toByteArray();
+    }
+
+    static byte[] deflate(
+            final byte[] content,
+            final boolean raw)
+    throws IOException {
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, raw);
+        try (final OutputStream output = new DeflaterOutputStream(buffer, deflater)) {
+            output.write(content);
+        } finally {
+            deflater.end();
+        }
+        return buffer.toByteArray();
+    }
+
+    private static byte[] read(
+            final InputStream input)
+    throws IOException {
+        try (final InputStream content = input) {
+            final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            final byte[] chunk = new byte[64];
+            int count;
+            while ((count = content.read(chunk)) != -1) {
+                buffer.write(chunk, 0, count);
+            }
+            return buffer.toByteArray();
+        }
+    }
+
+    /**
+     * Test for {@link ContentDecoderRegistry#ContentDecoderRegistry()}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testDefaults()
+    throws Throwable {
+        final ContentDecoderRegistry registry = new ContentDecoderRegistry();
+        assertEquals(Arrays.asList("gzip", "x-gzip", "deflate"),
+                Arrays.asList(registry.getCodings().toArray()));
+        assertEquals("gzip, x-gzip, deflate", registry.getAcceptEncoding());
+        assertSame(ContentDecoderRegistry.GZIP_DECODER, registry.getDecoder("GZIP"));
+        assertSame(ContentDecoderRegistry.GZIP_DECODER, registry.getDecoder("x-gzip"));
+        assertSame(ContentDecoderRegistry.DEFLATE_DECODER, registry.getDecoder(" deflate "));
+        assertNull(registry.getDecoder("br"));
+        assertThrows(UnsupportedOperationException.class, () -> registry.getCodings().clear());
+    }
+
+    /**
+     * Test for {@link ContentDecoderRegistry#register(String, ContentDecoder)}
+     * and {@link ContentDecoderRegistry#unregister(String)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testRegister()
+    throws Throwable {
+        final ContentDecoderRegistry registry = new ContentDecoderRegistry();
+        final ContentDecoder decoder = content -> content;
+        assertThrows(NullPointerException.class, () -> registry.register(null, decoder));
+        assertThrows(IllegalArgumentException.class, () -> registry.register(" ", decoder));
+        assertThrows(NullPointerException.class, () -> registry.register("br", null));
+        assertThrows(IllegalArgumentException.class, () -> registry.register("identity", decoder));
+        assertThrows(NullPointerException.class, () -> registry.unregister(null));
+        assertThrows(NullPointerException.class, () -> registry.getDecoder(null));
+        registry.register("BR", decoder);
+        assertSame(decoder, registry.getDecoder("br"));
+        assertEquals("gzip, x-gzip, deflate, br", registry.getAcceptEncoding());
+        registry.unregister("x-gzip");
+        registry.unregister("deflate");
+        assertEquals("gzip, br", registry.getAcceptEncoding());
+        registry.unregister("gzip");
+        registry.unregister("br");
+        assertTrue(registry.getCodings().isEmpty());
+        assertNull(registry.getAcceptEncoding());
+    }
+
+    /**
+     * Test for {@link ContentDecoderRegistry#isSupported(String)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testIsSupported()
+    throws Throwable {
+        final ContentDecoderRegistry registry = new ContentDecoderRegistry();
+        assertThrows(NullPointerException.class, () -> registry.isSupported(null));
+        assertTrue(registry.isSupported("gzip"));
+        assertTrue(registry.isSupported("Deflate, GZIP"));
+        assertTrue(registry.isSupported("identity"));
+        assertTrue(registry.isSupported(""));
+        assertFalse(registry.isSupported("br"));
+        assertFalse(registry.isSupported("gzip, br"));
+    }
+
+    /**
+     * Test for {@link ContentDecoderRegistry#decode(String, InputStream)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testDecode()
+    throws Throwable {
+        final ContentDecoderRegistry registry = new ContentDecoderRegistry();
+        assertThrows(NullPointerException.class, () -> registry.decode(null, new ByteArrayInputStream(CONTENT)));
+        assertThrows(NullPointerException.class, () -> registry.decode("gzip", null));
+        assertArrayEquals(CONTENT, read(registry.decode(
+                "gzip", new ByteArrayInputStream(gzip(CONTENT)))));
+        assertArrayEquals(CONTENT, read(registry.decode(
+                "x-gzip", new ByteArrayInputStream(gzip(CONTENT)))));
+        assertArrayEquals(CONTENT, read(registry.decode(
+                "deflate", new ByteArrayInputStream(deflate(CONTENT, false)))));
+        assertArrayEquals(CONTENT, read(registry.decode(
+                "deflate", new ByteArrayInputStream(deflate(CONTENT, true)))));
+        assertArrayEquals(CONTENT, read(registry.decode(
+                "deflate, gzip", new ByteArrayInputStream(gzip(deflate(CONTENT, false))))));
+        assertArrayEquals(CONTENT, read(registry.decode(
+                "identity", new ByteArrayInputStream(CONTENT))));
+        assertArrayEquals(new byte[0], read(registry.decode(
+                "gzip", new ByteArrayInputStream(new byte[0]))));
+        assertThrows(IOException.class, () -> registry.decode(
+                "br", new ByteArrayInputStream(CONTENT)));
+        assertThrows(IOException.class, () -> read(registry.decode(
+                "gzip", new ByteArrayInputStream(CONTENT))));
+    }
+
+    /**
+     * Test for {@link ContentDecoderRegistry#ContentDecoderRegistry(ContentDecoderRegistry)},
+     * {@link ContentDecoderRegistry#hashCode()},
+     * {@link ContentDecoderRegistry#equals(Object)} and
+     * {@link ContentDecoderRegistry#toString()}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testCopy()
+    throws Throwable {
+        assertThrows(NullPointerException.class, () -> new ContentDecoderRegistry(null));
+        final ContentDecoderRegistry registry = new ContentDecoderRegistry();
+        registry.register("br", content -> content);
+        final ContentDecoderRegistry copy = new ContentDecoderRegistry(registry);
+        assertEquals(registry, copy);
+        assertEquals(registry.hashCode(), copy.hashCode());
+        assertEquals(registry.toString(), copy.toString());
+        copy.unregister("br");
+        assertNotEquals(registry, copy);
+        assertNotNull(registry.getDecoder("br"));
+        assertNotEquals(registry, null);
+        assertNotEquals(registry, new Object());
+    }
+}
@@ -0,0 +1,312 @@
+package dev.orne.http.client.engine;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.BDDMockito.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import dev.orne.http.ContentType;
+import dev.orne.http.Headers;
+import dev.orne.http.Methods;
+import dev.orne.http.client.HttpResponseBodyParsingException;
+import dev.orne.http.client.cookie.CookieStore;
+
+/**
+ * Unit tests for {@code DecompressingHttpClientEngine}.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see DecompressingHttpClientEngine
+ */
+@Tag("ut")
+class DecompressingHttpClientEngineTest {
+
+    private static final URI TARGET = URI.create("http://example.org/path");
+    private static final byte[] CONTENT = "{\"value\":\"Some JSON content\"}"
+            .getBytes(StandardCharsets.UTF_8);
+    private static final String ACCEPT_ENCODING = "gzip, x-gzip, deflate";
+
+    private static HttpResponse mockResponse(
+            final String contentEncoding,
+            final HttpResponseBody body)
+    throws Throwable {
+        final HttpResponse response = mock(HttpResponse.class);
+        given(response.getStatusCode()).willReturn(200);
+        given(response.getStatusReason()).willReturn("OK");
+        given(response.getHeader(any())).willReturn(new String[] { "value" });
+        given(response.getHeader(Headers.Response.CONTENT_ENCODING)).willReturn(
+                contentEncoding == null ? new String[0] : new String[] { contentEncoding });
+        given(response.getHeader(Headers.Response.CONTENT_LENGTH)).willReturn(new String[] { "100" });
+        given(response.getBody()).willReturn(body);
+        return response;
+    }
+
+    private static HttpResponseBody mockBody(
+            final byte[] content)
+    throws Throwable {
+        final HttpResponseBody body = mock(HttpResponseBody.class);
+        given(body.getContentLength()).willReturn((long) content.length);
+        given(body.getContent()).willReturn(new ByteArrayInputStream(content));
+        return body;
+    }
+
+    private static HttpClientEngine mockDelegate(
+            final HttpRequest request,
+            final HttpResponse response)
+    throws Throwable {
+        final HttpClientEngine delegate = mock(HttpClientEngine.class);
+        given(delegate.executeHttpRequest(any(), any(), any(), any())).willAnswer(invocation -> {
+            invocation.<HttpRequestCustomizer>getArgument(2).customizeRequest(request);
+            invocation.<HttpResponseHandler>getArgument(3).handle(response);
+            return CompletableFuture.completedFuture(null);
+        });
+        return delegate;
+    }
+
+    private static HttpResponse execute(
+            final HttpClientEngine engine,
+            final HttpRequestCustomizer customizer)
+    throws Throwable {
+        final AtomicReference<HttpResponse> result = new AtomicReference<>();
+        engine.executeHttpRequest(TARGET, Methods.GET, customizer, result::set)
+                .toCompletableFuture().get();
+        return result.get();
+    }
+
+    private static byte[] read(
+            final InputStream input)
+    throws Throwable {
+        try (final InputStream content = input) {
+            final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            final byte[] chunk = new byte[64];
+            int count;
+            while ((count = content.read(chunk)) != -1) {
+                buffer.write(chunk, 0, count);
+            }
+            return buffer.toByteArray();
+        }
+    }
+
+    /**
+     * Test for {@link DecompressingHttpClientEngine#DecompressingHttpClientEngine(HttpClientEngine, ContentDecoderRegistry)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testConstructor()
+    throws Throwable {
+        final HttpClientEngine delegate = mock(HttpClientEngine.class);
+        final ContentDecoderRegistry decoders = new ContentDecoderRegistry();
+        assertThrows(NullPointerException.class, () -> new DecompressingHttpClientEngine(null));
+        assertThrows(NullPointerException.class, () -> new DecompressingHttpClientEngine(delegate, null));
+        final DecompressingHttpClientEngine engine = new DecompressingHttpClientEngine(delegate, decoders);
+        assertSame(delegate, engine.getDelegate());
+        assertEquals(decoders, engine.getDecoders());
+        assertNotSame(decoders, engine.getDecoders());
+    }
+
+    /**
+     * Test for {@link DecompressingHttpClientEngine#getCookieStore()},
+     * {@link DecompressingHttpClientEngine#shutdown(Duration)} and
+     * {@link DecompressingHttpClientEngine#close()}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testDelegation()
+    throws Throwable {
+        final HttpClientEngine delegate = mock(HttpClientEngine.class);
+        final CookieStore cookieStore = mock(CookieStore.class);
+        final Duration timeout = Duration.ofSeconds(1);
+        given(delegate.getCookieStore()).willReturn(cookieStore);
+        given(delegate.shutdown(timeout)).willReturn(2);
+        final DecompressingHttpClientEngine engine = new DecompressingHttpClientEngine(delegate);
+        assertSame(cookieStore, engine.getCookieStore());
+        assertEquals(2, engine.shutdown(timeout));
+        engine.close();
+        then(delegate).should().close();
+    }
+
+    /**
+     * Test for {@link DecompressingHttpClientEngine#executeHttpRequest(URI, String, HttpRequestCustomizer, HttpResponseHandler)}
+     * with encoded responses.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecute_Decoded()
+    throws Throwable {
+        final HttpRequest request = mock(HttpRequest.class);
+        final HttpResponseBody body = mockBody(ContentDecoderRegistryTest.gzip(CONTENT));
+        final HttpResponse response = mockResponse("gzip", body);
+        final DecompressingHttpClientEngine engine = new DecompressingHttpClientEngine(
+                mockDelegate(request, response));
+        assertThrows(NullPointerException.class, () -> engine.executeHttpRequest(
+                null, Methods.GET, r -> {}, r -> {}));
+        final HttpResponse result = execute(engine, r -> r.addHeader("Accept", "application/json"));
+        then(request).should().addHeader("Accept", "application/json");
+        then(request).should().addHeader(Headers.Request.ACCEPT_ENCODING, ACCEPT_ENCODING);
+        assertNotSame(response, result);
+        assertEquals(200, result.getStatusCode());
+        assertEquals("OK", result.getStatusReason());
+        assertEquals(0, result.getHeader(Headers.Response.CONTENT_ENCODING).length);
+        assertEquals(0, result.getHeader("content-length").length);
+        assertArrayEquals(new String[] { "value" }, result.getHeader("Content-Type"));
+        final HttpResponseBody resultBody = result.getBody();
+        assertNotSame(body, resultBody);
+        assertEquals(-1, resultBody.getContentLength());
+        assertNull(resultBody.getContentType());
+        assertArrayEquals(CONTENT, read(resultBody.getContent()));
+        resultBody.discard();
+        then(body).should().discard();
+    }
+
+    /**
+     * Test for {@link DecompressingHttpClientEngine#executeHttpRequest(URI, String, HttpRequestCustomizer, HttpResponseHandler)}
+     * with not encoded responses and unsupported encodings.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecute_NotDecoded()
+    throws Throwable {
+        final HttpResponseBody body = mockBody(CONTENT);
+        HttpResponse response = mockResponse(null, body);
+        HttpResponse result = execute(new DecompressingHttpClientEngine(
+                mockDelegate(mock(HttpRequest.class), response)), r -> {});
+        assertArrayEquals(new String[] { "100" }, result.getHeader(Headers.Response.CONTENT_LENGTH));
+        assertSame(body, result.getBody());
+        response = mockResponse("br", body);
+        result = execute(new DecompressingHttpClientEngine(
+                mockDelegate(mock(HttpRequest.class), response)), r -> {});
+        assertArrayEquals(new String[] { "br" }, result.getHeader(Headers.Response.CONTENT_ENCODING));
+        assertSame(body, result.getBody());
+        response = mockResponse("identity", body);
+        result = execute(new DecompressingHttpClientEngine(
+                mockDelegate(mock(HttpRequest.class), response)), r -> {});
+        assertSame(body, result.getBody());
+        response = mockResponse("gzip", null);
+        result = execute(new DecompressingHttpClientEngine(
+                mockDelegate(mock(HttpRequest.class), response)), r -> {});
+        assertNull(result.getBody());
+    }
+
+    /**
+     * Test for {@link DecompressingHttpClientEngine#executeHttpRequest(URI, String, HttpRequestCustomizer, HttpResponseHandler)}
+     * with invalid encoded content.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecute_InvalidContent()
+    throws Throwable {
+        final HttpResponse response = mockResponse("gzip", mockBody(CONTENT));
+        final HttpResponse result = execute(new DecompressingHttpClientEngine(
+                mockDelegate(mock(HttpRequest.class), response)), r -> {});
+        final HttpResponseBody body = result.getBody();
+        assertThrows(HttpResponseBodyParsingException.class, body::getContent);
+    }
+
+    /**
+     * Test for {@link DecompressingHttpClientEngine#executeHttpRequest(URI, String, HttpRequestCustomizer, HttpResponseHandler)}
+     * with explicit {@code Accept-Encoding} header.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecute_Explicit()
+    throws Throwable {
+        final HttpRequest request = mock(HttpRequest.class);
+        final HttpResponse response = mockResponse("gzip", mockBody(CONTENT));
+        final HttpResponse result = execute(new DecompressingHttpClientEngine(
+                mockDelegate(request, response)),
+                r -> r.addHeader("accept-encoding", "identity"));
+        then(request).should().addHeader("accept-encoding", "identity");
+        then(request).should(never()).addHeader(Headers.Request.ACCEPT_ENCODING, ACCEPT_ENCODING);
+        assertSame(response, result);
+    }
+
+    /**
+     * Test for {@link DecompressingHttpClientEngine#executeHttpRequest(URI, String, HttpRequestCustomizer, HttpResponseHandler)}
+     * without content decoders.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecute_NoDecoders()
+    throws Throwable {
+        final HttpClientEngine delegate = mock(HttpClientEngine.class);
+        final ContentDecoderRegistry decoders = new ContentDecoderRegistry();
+        decoders.unregister("gzip");
+        decoders.unregister("x-gzip");
+        decoders.unregister("deflate");
+        final HttpRequestCustomizer customizer = mock(HttpRequestCustomizer.class);
+        final HttpResponseHandler handler = mock(HttpResponseHandler.class);
+        new DecompressingHttpClientEngine(delegate, decoders).executeHttpRequest(
+                TARGET, Methods.GET, customizer, handler);
+        then(delegate).should().executeHttpRequest(TARGET, Methods.GET, customizer, handler);
+    }
+
+    /**
+     * Test for {@link DecompressingHttpClientEngine#executeHttpRequest(URI, String, HttpRequestCustomizer, HttpResponseHandler)}
+     * request customizations delegation.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecute_RequestDelegation()
+    throws Throwable {
+        final HttpRequest request = mock(HttpRequest.class);
+        final ContentType contentType = ContentType.of("application/json");
+        final byte[] bytes = new byte[] { 1, 2, 3 };
+        final HttpRequest.BodyProducer producer = output -> output.write(bytes);
+        final Duration timeout = Duration.ofSeconds(3);
+        final Instant deadline = Instant.now().plusSeconds(5);
+        execute(new DecompressingHttpClientEngine(mockDelegate(request, mockResponse(null, null))), r -> {
+            r.setBody(contentType, "body");
+            r.setBody(contentType, bytes);
+            r.setBody(contentType, 3, producer);
+            r.setConnectTimeout(timeout);
+            r.setResponseTimeout(timeout);
+            r.setTimeout(timeout);
+            r.setDeadline(deadline);
+        });
+        then(request).should().setBody(contentType, "body");
+        then(request).should().setBody(contentType, bytes);
+        then(request).should().setBody(contentType, 3, producer);
+        then(request).should().setConnectTimeout(timeout);
+        then(request).should().setResponseTimeout(timeout);
+        then(request).should().setTimeout(timeout);
+        then(request).should().setDeadline(deadline);
+        final ArgumentCaptor<String> header = ArgumentCaptor.forClass(String.class);
+        then(request).should().addHeader(header.capture(), any(String[].class));
+        assertEquals(Headers.Request.ACCEPT_ENCODING, header.getValue());
+    }
+}
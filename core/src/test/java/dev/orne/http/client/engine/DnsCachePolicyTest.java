@@ -0,0 +1,99 @@
+package dev.orne.http.client.engine;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@code DnsCachePolicy}.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see DnsCachePolicy
+ */
+@Tag("ut")
+class DnsCachePolicyTest {
+
+    /**
+     * Test for {@link DnsCachePolicy#DnsCachePolicy()}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testDefaults()
+    throws Throwable {
+        final DnsCachePolicy policy = new DnsCachePolicy();
+        assertEquals(Duration.ofSeconds(60), policy.getTtl());
+        assertEquals(Duration.ofSeconds(5), policy.getNegativeTtl());
+        assertEquals(0.8, policy.getRefreshRatio());
+        assertEquals(2, policy.getRefreshMinHits());
+        assertEquals(1024, policy.getMaxEntries());
+    }
+
+    /**
+     * Test for {@link DnsCachePolicy#DnsCachePolicy(DnsCachePolicy)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testCopy()
+    throws Throwable {
+        assertThrows(NullPointerException.class, () -> new DnsCachePolicy(null));
+        final DnsCachePolicy policy = new DnsCachePolicy();
+        policy.setTtl(Duration.ofSeconds(10));
+        policy.setNegativeTtl(Duration.ZERO);
+        policy.setRefreshRatio(1);
+        policy.setRefreshMinHits(0);
+        policy.setMaxEntries(5);
+        final DnsCachePolicy copy = new DnsCachePolicy(policy);
+        assertEquals(policy, copy);
+        assertEquals(policy.hashCode(), copy.hashCode());
+        assertEquals(policy.toString(), copy.toString());
+        copy.setMaxEntries(1);
+        assertNotEquals(policy, copy);
+        assertNotEquals(policy, null);
+        assertNotEquals(policy, new Object());
+    }
+
+    /**
+     * Test for {@link DnsCachePolicy} setters validation.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testValidation()
+    throws Throwable {
+        final DnsCachePolicy policy = new DnsCachePolicy();
+        assertThrows(NullPointerException.class, () -> policy.setTtl(null));
+        assertThrows(IllegalArgumentException.class, () -> policy.setTtl(Duration.ZERO));
+        assertThrows(NullPointerException.class, () -> policy.setNegativeTtl(null));
+        assertThrows(IllegalArgumentException.class, () -> policy.setNegativeTtl(Duration.ofMillis(-1)));
+        assertThrows(IllegalArgumentException.class, () -> policy.setRefreshRatio(0));
+        assertThrows(IllegalArgumentException.class, () -> policy.setRefreshRatio(1.5));
+        assertThrows(IllegalArgumentException.class, () -> policy.setRefreshMinHits(-1));
+        assertThrows(IllegalArgumentException.class, () -> policy.setMaxEntries(0));
+    }
+}
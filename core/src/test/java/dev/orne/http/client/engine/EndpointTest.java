@@ -0,0 +1,127 @@
+package dev.orne.http.client.engine;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.net.URI;
+import java.time.Duration;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@code Endpoint}.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see Endpoint
+ */
+@Tag("ut")
+class EndpointTest {
+
+    private static final URI BASE_URI = URI.create("http://replica-1:8080/api/");
+
+    /**
+     * Test for {@link Endpoint#Endpoint(URI)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testConstructor()
+    throws Throwable {
+        assertThrows(NullPointerException.class, () -> new Endpoint(null));
+        assertThrows(IllegalArgumentException.class, () -> new Endpoint(URI.create("/api/")));
+        final Endpoint endpoint = new Endpoint(BASE_URI);
+        assertEquals(BASE_URI, endpoint.getURI());
+        assertEquals(BASE_URI.toString(), endpoint.toString());
+        assertEquals(0, endpoint.getOutstanding());
+        assertEquals(Duration.ZERO, endpoint.getLatency());
+        assertEquals(0, endpoint.getErrorRate());
+        assertEquals(0, endpoint.getSampleCount());
+        assertEquals(0, endpoint.getEjectionCount());
+        assertFalse(endpoint.isEjected());
+    }
+
+    /**
+     * Test for {@link Endpoint#resolve(String)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testResolve()
+    throws Throwable {
+        final Endpoint endpoint = new Endpoint(BASE_URI);
+        assertEquals(BASE_URI, endpoint.resolve(""));
+        assertEquals(URI.create("http://replica-1:8080/api/items/1?q=a%20b"),
+                endpoint.resolve("items/1?q=a%20b"));
+    }
+
+    /**
+     * Test for {@link Endpoint#onComplete(long, boolean, double)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testMovingAverages()
+    throws Throwable {
+        final Endpoint endpoint = new Endpoint(BASE_URI);
+        endpoint.onStart();
+        endpoint.onStart();
+        assertEquals(2, endpoint.getOutstanding());
+        endpoint.onComplete(100, false, 0.5);
+        assertEquals(1, endpoint.getOutstanding());
+        assertEquals(Duration.ofNanos(100), endpoint.getLatency());
+        assertEquals(0, endpoint.getErrorRate());
+        endpoint.onComplete(300, true, 0.5);
+        assertEquals(0, endpoint.getOutstanding());
+        assertEquals(Duration.ofNanos(200), endpoint.getLatency());
+        assertEquals(0.5, endpoint.getErrorRate());
+        assertEquals(2, endpoint.getSampleCount());
+        endpoint.onStart();
+        endpoint.onRelease();
+        assertEquals(0, endpoint.getOutstanding());
+        assertEquals(2, endpoint.getSampleCount());
+    }
+
+    /**
+     * Test for {@link Endpoint#eject(long)} and
+     * {@link Endpoint#isAvailable(long)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testEject()
+    throws Throwable {
+        final Endpoint endpoint = new Endpoint(BASE_URI);
+        endpoint.onStart();
+        endpoint.onComplete(100, true, 0.5);
+        assertTrue(endpoint.isAvailable(0));
+        endpoint.eject(1000);
+        assertTrue(endpoint.isEjected());
+        assertEquals(1, endpoint.getEjectionCount());
+        assertEquals(0, endpoint.getSampleCount());
+        assertEquals(0, endpoint.getErrorRate());
+        assertFalse(endpoint.isAvailable(999));
+        assertTrue(endpoint.isEjected());
+        assertTrue(endpoint.isAvailable(1000));
+        assertFalse(endpoint.isEjected());
+    }
+}
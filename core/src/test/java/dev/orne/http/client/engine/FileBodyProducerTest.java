@@ -0,0 +1,281 @@
+package dev.orne.http.client.engine;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import org.apache.commons.lang3.RandomUtils;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import dev.orne.http.client.HttpRequestBodyGenerationException;
+
+/**
+ * Unit tests for {@code FileBodyProducer}.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see FileBodyProducer
+ */
+@Tag("ut")
+class FileBodyProducerTest {
+
+    /**
+     * Test for {@link FileBodyProducer#FileBodyProducer(Path, long, long)}
+     * and {@link FileBodyProducer#FileBodyProducer(FileChannel, long, long)}.
+     * @param tempDir The temporary directory
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testConstructor(
+            final @TempDir Path tempDir)
+    throws Throwable {
+        final Path file = tempDir.resolve("body.bin");
+        assertThrows(NullPointerException.class, () -> new FileBodyProducer((Path) null, 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> new FileBodyProducer(file, -1, 0));
+        assertThrows(IllegalArgumentException.class, () -> new FileBodyProducer(file, 0, -1));
+        final FileBodyProducer producer = new FileBodyProducer(file, 10, 20);
+        assertSame(file, producer.getFile());
+        assertNull(producer.getChannel());
+        assertEquals(10, producer.getPosition());
+        assertEquals(20, producer.getLength());
+        Files.write(file, new byte[0]);
+        try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            assertThrows(NullPointerException.class, () -> new FileBodyProducer((FileChannel) null, 0, 0));
+            assertThrows(IllegalArgumentException.class, () -> new FileBodyProducer(channel, -1, 0));
+            assertThrows(IllegalArgumentException.class, () -> new FileBodyProducer(channel, 0, -1));
+            final FileBodyProducer channelProducer = new FileBodyProducer(channel, 10, 20);
+            assertNull(channelProducer.getFile());
+            assertSame(channel, channelProducer.getChannel());
+            assertEquals(10, channelProducer.getPosition());
+            assertEquals(20, channelProducer.getLength());
+        }
+    }
+
+    /**
+     * Test for {@link FileBodyProducer#of(Path)}.
+     * @param tempDir The temporary directory
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testOf_File(
+            final @TempDir Path tempDir)
+    throws Throwable {
+        final Path file = tempDir.resolve("body.bin");
+        assertThrows(NullPointerException.class, () -> FileBodyProducer.of((Path) null));
+        final HttpRequestBodyGenerationException result = assertThrows(
+                HttpRequestBodyGenerationException.class,
+                () -> FileBodyProducer.of(file));
+        assertInstanceOf(IOException.class, result.getCause());
+        Files.write(file, new byte[100]);
+        final FileBodyProducer producer = FileBodyProducer.of(file);
+        assertSame(file, producer.getFile());
+        assertEquals(0, producer.getPosition());
+        assertEquals(100, producer.getLength());
+        assertTrue(producer.isWholeFile());
+        assertFalse(new FileBodyProducer(file, 0, 50).isWholeFile());
+        assertFalse(new FileBodyProducer(file, 50, 50).isWholeFile());
+    }
+
+    /**
+     * Test for {@link FileBodyProducer#of(FileChannel)}.
+     * @param tempDir The temporary directory
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testOf_Channel(
+            final @TempDir Path tempDir)
+    throws Throwable {
+        final Path file = tempDir.resolve("body.bin");
+        Files.write(file, new byte[100]);
+        assertThrows(NullPointerException.class, () -> FileBodyProducer.of((FileChannel) null));
+        try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            channel.position(40);
+            final FileBodyProducer producer = FileBodyProducer.of(channel);
+            assertSame(channel, producer.getChannel());
+            assertEquals(40, producer.getPosition());
+            assertEquals(60, producer.getLength());
+            assertFalse(producer.isWholeFile());
+            channel.position(200);
+            assertEquals(0, FileBodyProducer.of(channel).getLength());
+        }
+        final FileChannel closed = FileChannel.open(file, StandardOpenOption.READ);
+        closed.close();
+        final HttpRequestBodyGenerationException result = assertThrows(
+                HttpRequestBodyGenerationException.class,
+                () -> FileBodyProducer.of(closed));
+        assertInstanceOf(IOException.class, result.getCause());
+    }
+
+    /**
+     * Test for {@link FileBodyProducer#writeBody(java.io.OutputStream)}.
+     * @param tempDir The temporary directory
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testWriteBody(
+            final @TempDir Path tempDir)
+    throws Throwable {
+        final byte[] content = RandomUtils.nextBytes(200000);
+        final Path file = tempDir.resolve("body.bin");
+        Files.write(file, content);
+        final FileBodyProducer producer = new FileBodyProducer(file, 1000, 150000);
+        assertThrows(NullPointerException.class, () -> producer.writeBody(null));
+        for (int i = 0; i < 2; i++) {
+            final ByteArrayOutputStream output = new ByteArrayOutputStream();
+            producer.writeBody(output);
+            assertArrayEquals(Arrays.copyOfRange(content, 1000, 151000), output.toByteArray());
+        }
+    }
+
+    /**
+     * Test for {@link FileBodyProducer#writeBody(java.io.OutputStream)}
+     * with file channel.
+     * @param tempDir The temporary directory
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testWriteBody_Channel(
+            final @TempDir Path tempDir)
+    throws Throwable {
+        final byte[] content = RandomUtils.nextBytes(1000);
+        final Path file = tempDir.resolve("body.bin");
+        Files.write(file, content);
+        try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            channel.position(100);
+            final FileBodyProducer producer = FileBodyProducer.of(channel);
+            for (int i = 0; i < 2; i++) {
+                final ByteArrayOutputStream output = new ByteArrayOutputStream();
+                producer.writeBody(output);
+                assertArrayEquals(Arrays.copyOfRange(content, 100, 1000), output.toByteArray());
+            }
+            assertTrue(channel.isOpen());
+            assertEquals(100, channel.position());
+        }
+    }
+
+    /**
+     * Test for {@link FileBodyProducer#writeBody(java.io.OutputStream)}
+     * with truncated file.
+     * @param tempDir The temporary directory
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testWriteBody_Truncated(
+            final @TempDir Path tempDir)
+    throws Throwable {
+        final Path file = tempDir.resolve("body.bin");
+        Files.write(file, new byte[100]);
+        final FileBodyProducer producer = new FileBodyProducer(file, 0, 200);
+        assertThrows(EOFException.class, () -> producer.writeBody(new ByteArrayOutputStream()));
+    }
+
+    /**
+     * Test for {@link FileBodyProducer#openChannel()},
+     * {@link FileBodyProducer#transferTo(FileChannel, long, WritableByteChannel)}
+     * and {@link FileBodyProducer#releaseChannel(FileChannel)}.
+     * @param tempDir The temporary directory
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testTransferTo(
+            final @TempDir Path tempDir)
+    throws Throwable {
+        final byte[] content = RandomUtils.nextBytes(1000);
+        final Path file = tempDir.resolve("body.bin");
+        Files.write(file, content);
+        final FileBodyProducer producer = new FileBodyProducer(file, 200, 500);
+        final FileChannel source = producer.openChannel();
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        final WritableByteChannel target = Channels.newChannel(output);
+        assertEquals(300, producer.transferTo(source, 200, target));
+        assertEquals(0, producer.transferTo(source, 500, target));
+        assertArrayEquals(Arrays.copyOfRange(content, 400, 700), output.toByteArray());
+        producer.releaseChannel(source);
+        assertFalse(source.isOpen());
+        try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final FileBodyProducer channelProducer = new FileBodyProducer(channel, 0, 1000);
+            assertSame(channel, channelProducer.openChannel());
+            channelProducer.releaseChannel(channel);
+            assertTrue(channel.isOpen());
+        }
+    }
+
+    /**
+     * Test for {@link FileBodyProducer#openStream()}.
+     * @param tempDir The temporary directory
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testOpenStream(
+            final @TempDir Path tempDir)
+    throws Throwable {
+        final byte[] content = RandomUtils.nextBytes(1000);
+        final Path file = tempDir.resolve("body.bin");
+        Files.write(file, content);
+        final FileBodyProducer producer = new FileBodyProducer(file, 10, 500);
+        try (final InputStream input = producer.openStream()) {
+            assertEquals(500, input.available());
+            assertEquals(content[10] & 0xFF, input.read());
+            final byte[] rest = new byte[600];
+            int total = 0;
+            int read;
+            while ((read = input.read(rest, total, rest.length - total)) > 0) {
+                total += read;
+            }
+            assertEquals(499, total);
+            assertArrayEquals(
+                    Arrays.copyOfRange(content, 11, 510),
+                    Arrays.copyOf(rest, total));
+            assertEquals(-1, input.read());
+            input.close();
+            assertThrows(IOException.class, () -> input.read());
+        }
+        final FileBodyProducer truncated = new FileBodyProducer(file, 900, 200);
+        try (final InputStream input = truncated.openStream()) {
+            assertEquals(100, input.read(new byte[200]));
+            assertThrows(EOFException.class, () -> input.read(new byte[200]));
+        }
+        final ByteBuffer check = ByteBuffer.allocate(1);
+        try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final InputStream input = new FileBodyProducer(channel, 0, 1).openStream();
+            input.close();
+            assertEquals(1, channel.read(check));
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package dev.orne.http.client.engine;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@code HashedWheelTimer}.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see HashedWheelTimer
+ */
+@Tag("ut")
+class HashedWheelTimerTest {
+
+    /**
+     * Test for {@link HashedWheelTimer#HashedWheelTimer(Duration, int, java.util.concurrent.ThreadFactory)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testConstructor()
+    throws Throwable {
+        assertThrows(NullPointerException.class, () -> new HashedWheelTimer(null, 8));
+        assertThrows(IllegalArgumentException.class, () -> new HashedWheelTimer(Duration.ZERO, 8));
+        assertThrows(IllegalArgumentException.class, () -> new HashedWheelTimer(Duration.ofMillis(-1), 8));
+        assertThrows(IllegalArgumentException.class, () -> new HashedWheelTimer(Duration.ofMillis(1), 0));
+        assertThrows(NullPointerException.class, () -> new HashedWheelTimer(Duration.ofMillis(1), 8, null));
+        assertThrows(NullPointerException.class, () -> new HashedWheelTimer(Duration.ofMillis(1), 8, task -> null));
+        try (final HashedWheelTimer timer = new HashedWheelTimer(Duration.ofMillis(5), 100)) {
+            assertEquals(Duration.ofMillis(5), timer.getTickDuration());
+            assertEquals(128, timer.getTicksPerWheel());
+            assertEquals(0, timer.getPendingTimeouts());
+        }
+        try (final HashedWheelTimer timer = new HashedWheelTimer()) {
+            assertEquals(HashedWheelTimer.DEFAULT_TICK_DURATION, timer.getTickDuration());
+            assertEquals(HashedWheelTimer.DEFAULT_TICKS_PER_WHEEL, timer.getTicksPerWheel());
+        }
+    }
+
+    /**
+     * Test for {@link HashedWheelTimer#schedule(Runnable, Duration)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testSchedule()
+    throws Throwable {
+        try (final HashedWheelTimer timer = new HashedWheelTimer(Duration.ofMillis(1), 8)) {
+            assertThrows(NullPointerException.class, () -> timer.schedule(null, Duration.ZERO));
+            assertThrows(NullPointerException.class, () -> timer.schedule(() -> {}, null));
+            final CountDownLatch latch = new CountDownLatch(1);
+            final long start = System.nanoTime();
+            final HashedWheelTimer.Timeout timeout = timer.schedule(latch::countDown, Duration.ofMillis(20));
+            assertFalse(timeout.isExpired());
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+            assertTrue(System.nanoTime() - start >= Duration.ofMillis(20).toNanos());
+            assertTrue(timeout.isExpired());
+            assertFalse(timeout.isCancelled());
+            assertFalse(timeout.cancel());
+            assertEquals(0, timer.getPendingTimeouts());
+        }
+    }
+
+    /**
+     * Test for {@link HashedWheelTimer#schedule(Runnable, Duration)} with
+     * delays longer than a wheel round.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testSchedule_MultipleRounds()
+    throws Throwable {
+        try (final HashedWheelTimer timer = new HashedWheelTimer(Duration.ofMillis(1), 4)) {
+            final CountDownLatch latch = new CountDownLatch(2);
+            final long start = System.nanoTime();
+            timer.schedule(latch::countDown, Duration.ofMillis(30));
+            timer.schedule(latch::countDown, Duration.ofMillis(-1));
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+            assertTrue(System.nanoTime() - start >= Duration.ofMillis(30).toNanos());
+        }
+    }
+
+    /**
+     * Test for {@link HashedWheelTimer.Timeout#cancel()}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testCancel()
+    throws Throwable {
+        try (final HashedWheelTimer timer = new HashedWheelTimer(Duration.ofMillis(1), 8)) {
+            final AtomicInteger executions = new AtomicInteger();
+            final CountDownLatch latch = new CountDownLatch(1);
+            final HashedWheelTimer.Timeout timeout = timer.schedule(executions::incrementAndGet, Duration.ofMillis(10));
+            assertTrue(timeout.cancel());
+            assertTrue(timeout.isCancelled());
+            assertFalse(timeout.cancel());
+            timer.schedule(latch::countDown, Duration.ofMillis(30));
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+            assertEquals(0, executions.get());
+            assertFalse(timeout.isExpired());
+            assertEquals(0, timer.getPendingTimeouts());
+        }
+    }
+
+    /**
+     * Test for {@link HashedWheelTimer#schedule(Runnable, Duration)} with
+     * failing tasks.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testSchedule_TaskError()
+    throws Throwable {
+        try (final HashedWheelTimer timer = new HashedWheelTimer(Duration.ofMillis(1), 8)) {
+            final CountDownLatch latch = new CountDownLatch(1);
+            timer.schedule(() -> { throw new IllegalStateException(); }, Duration.ZERO);
+            timer.schedule(latch::countDown, Duration.ofMillis(5));
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        }
+    }
+
+    /**
+     * Test for {@link HashedWheelTimer#delay(Duration)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testDelay()
+    throws Throwable {
+        try (final HashedWheelTimer timer = new HashedWheelTimer(Duration.ofMillis(1), 8)) {
+            final CompletableFuture<Void> result = timer.delay(Duration.ofMillis(10)).toCompletableFuture();
+            assertNull(result.get(5, TimeUnit.SECONDS));
+            final CompletableFuture<Void> cancelled = timer.delay(Duration.ofSeconds(10)).toCompletableFuture();
+            assertEquals(1, timer.getPendingTimeouts());
+            assertTrue(cancelled.cancel(true));
+            final CountDownLatch latch = new CountDownLatch(1);
+            timer.schedule(latch::countDown, Duration.ofMillis(5));
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+            assertEquals(0, timer.getPendingTimeouts());
+        }
+    }
+
+    /**
+     * Test for {@link HashedWheelTimer#close()}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testClose()
+    throws Throwable {
+        final HashedWheelTimer timer = new HashedWheelTimer(Duration.ofMillis(1), 8);
+        final AtomicInteger executions = new AtomicInteger();
+        timer.schedule(executions::incrementAndGet, Duration.ofSeconds(10));
+        timer.close();
+        assertThrows(IllegalStateException.class, () -> timer.schedule(() -> {}, Duration.ZERO));
+        assertEquals(0, executions.get());
+    }
+
+    /**
+     * Test for {@link HashedWheelTimer#shared()}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testShared()
+    throws Throwable {
+        final HashedWheelTimer timer = HashedWheelTimer.shared();
+        assertSame(timer, HashedWheelTimer.shared());
+        timer.close();
+        final CompletableFuture<Void> result = timer.delay(Duration.ofMillis(1)).toCompletableFuture();
+        assertNull(result.get(5, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,490 @@
+package dev.orne.http.client.engine;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.BDDMockito.*;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import dev.orne.http.Methods;
+import dev.orne.http.client.HttpClientException;
+import dev.orne.http.client.cookie.CookieStore;
+
+/**
+ * Unit tests for {@code HedgingHttpClientEngine}.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see HedgingHttpClientEngine
+ */
+@Tag("ut")
+class HedgingHttpClientEngineTest {
+
+    private static final URI URI_VALUE = URI.create("http://example.org/path");
+    private static final long WAIT_SECONDS = 5;
+
+    /**
+     * Creates a hedging policy that hedges after the first sample.
+     * 
+     * @return The hedging policy.
+     */
+    private static HedgingPolicy createPolicy() {
+        final HedgingPolicy policy = new HedgingPolicy();
+        policy.setWindowSize(10);
+        policy.setMinSamples(1);
+        policy.setHedgeRatio(1);
+        return policy;
+    }
+
+    /**
+     * Test for {@link HedgingHttpClientEngine#HedgingHttpClientEngine(HttpClientEngine, HedgingPolicy, HashedWheelTimer, Executor)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testConstructor()
+    throws Throwable {
+        final HttpClientEngine delegate = mock(HttpClientEngine.class);
+        final HedgingPolicy policy = createPolicy();
+        assertThrows(NullPointerException.class, () -> new HedgingHttpClientEngine(null));
+        assertThrows(NullPointerException.class, () -> new HedgingHttpClientEngine(delegate, null));
+        assertThrows(NullPointerException.class, () -> new HedgingHttpClientEngine(delegate, policy, null));
+        assertThrows(NullPointerException.class, () -> new HedgingHttpClientEngine(
+                delegate, policy, HashedWheelTimer.shared(), null));
+        final HedgingHttpClientEngine engine = new HedgingHttpClientEngine(delegate, policy);
+        assertSame(delegate, engine.getDelegate());
+        assertEquals(policy, engine.getPolicy());
+        assertNotSame(policy, engine.getPolicy());
+        assertEquals(0, engine.getHedgeCount());
+        assertEquals(new HedgingPolicy(), new HedgingHttpClientEngine(delegate).getPolicy());
+    }
+
+    /**
+     * Test for {@link HedgingHttpClientEngine#getLatencyTracker(URI)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testGetLatencyTracker()
+    throws Throwable {
+        final HedgingHttpClientEngine engine = new HedgingHttpClientEngine(
+                mock(HttpClientEngine.class), createPolicy());
+        final LatencyTracker tracker = engine.getLatencyTracker(URI_VALUE);
+        assertSame(tracker, engine.getLatencyTracker(URI.create("http://EXAMPLE.org:80/other")));
+        assertNotSame(tracker, engine.getLatencyTracker(URI.create("https://example.org/path")));
+        assertEquals(0.95, tracker.getPercentile());
+    }
+
+    /**
+     * Test for {@link HedgingHttpClientEngine#getCookieStore()},
+     * {@link HedgingHttpClientEngine#shutdown(Duration)} and
+     * {@link HedgingHttpClientEngine#close()}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testDelegation()
+    throws Throwable {
+        final HttpClientEngine delegate = mock(HttpClientEngine.class);
+        final CookieStore cookieStore = mock(CookieStore.class);
+        final Duration timeout = Duration.ofSeconds(1);
+        given(delegate.getCookieStore()).willReturn(cookieStore);
+        given(delegate.shutdown(timeout)).willReturn(2);
+        final HedgingHttpClientEngine engine = new HedgingHttpClientEngine(delegate);
+        assertSame(cookieStore, engine.getCookieStore());
+        assertEquals(2, engine.shutdown(timeout));
+        engine.close();
+        then(delegate).should().close();
+    }
+
+    /**
+     * Test for {@link HedgingHttpClientEngine#executeHttpRequest(URI, String, HttpRequestCustomizer, HttpResponseHandler)}
+     * with non {@code GET} requests.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecute_NotGet()
+    throws Throwable {
+        final PendingEngine delegate = new PendingEngine();
+        final HedgingHttpClientEngine engine = new HedgingHttpClientEngine(delegate, createPolicy());
+        engine.getLatencyTracker(URI_VALUE).record(1);
+        final HttpResponseHandler handler = mock(HttpResponseHandler.class);
+        final CompletionStage<Void> result = engine.executeHttpRequest(
+                URI_VALUE, Methods.POST, request -> {}, handler);
+        final Call call = delegate.next();
+        assertSame(call.future, result);
+        assertSame(handler, call.handler);
+        assertNull(delegate.calls.poll(100, TimeUnit.MILLISECONDS));
+        assertEquals(0, engine.getHedgeCount());
+    }
+
+    /**
+     * Test for {@link HedgingHttpClientEngine#executeHttpRequest(URI, String, HttpRequestCustomizer, HttpResponseHandler)}
+     * without enough latency samples.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecute_Warmup()
+    throws Throwable {
+        final PendingEngine delegate = new PendingEngine();
+        final HedgingHttpClientEngine engine = new HedgingHttpClientEngine(delegate, createPolicy());
+        final HttpResponseHandler handler = mock(HttpResponseHandler.class);
+        final CompletionStage<Void> result = engine.executeHttpRequest(
+                URI_VALUE, Methods.GET, request -> {}, handler);
+        final Call call = delegate.next();
+        assertSame(call.future, result);
+        final HttpResponse response = call.respond();
+        then(handler).should().handle(response);
+        assertEquals(1, engine.getLatencyTracker(URI_VALUE).getSampleCount());
+        assertNotNull(engine.getLatencyTracker(URI_VALUE).getValue());
+        assertNull(delegate.calls.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * Test for {@link HedgingHttpClientEngine#executeHttpRequest(URI, String, HttpRequestCustomizer, HttpResponseHandler)}
+     * when the original attempt responds before the hedging delay.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecute_PrimaryBeforeDelay()
+    throws Throwable {
+        final PendingEngine delegate = new PendingEngine();
+        final HedgingHttpClientEngine engine = new HedgingHttpClientEngine(delegate, createPolicy());
+        engine.getLatencyTracker(URI_VALUE).record(Duration.ofMinutes(1).toNanos());
+        final HttpResponseHandler handler = mock(HttpResponseHandler.class);
+        final CompletableFuture<Void> result = engine.executeHttpRequest(
+                URI_VALUE, Methods.GET, request -> {}, handler).toCompletableFuture();
+        final Call primary = delegate.next();
+        assertFalse(result.isDone());
+        final HttpResponse response = primary.respond();
+        assertNull(result.get(WAIT_SECONDS, TimeUnit.SECONDS));
+        then(handler).should().handle(response);
+        assertEquals(0, engine.getHedgeCount());
+        assertEquals(2, engine.getLatencyTracker(URI_VALUE).getSampleCount());
+    }
+
+    /**
+     * Test for {@link HedgingHttpClientEngine#executeHttpRequest(URI, String, HttpRequestCustomizer, HttpResponseHandler)}
+     * when the hedged attempt responds first.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecute_HedgeWins()
+    throws Throwable {
+        final PendingEngine delegate = new PendingEngine();
+        final HedgingHttpClientEngine engine = new HedgingHttpClientEngine(delegate, createPolicy());
+        engine.getLatencyTracker(URI_VALUE).record(Duration.ofMillis(10).toNanos());
+        final HttpResponseHandler handler = mock(HttpResponseHandler.class);
+        final CompletableFuture<Void> result = engine.executeHttpRequest(
+                URI_VALUE, Methods.GET, request -> request.addHeader("X-Test", "value"), handler)
+                .toCompletableFuture();
+        final Call primary = delegate.next();
+        final Call hedge = delegate.next();
+        assertEquals(1, engine.getHedgeCount());
+        then(primary.request).should().addHeader("X-Test", "value");
+        then(hedge.request).should().addHeader("X-Test", "value");
+        final HttpResponse response = hedge.respond();
+        assertNull(result.get(WAIT_SECONDS, TimeUnit.SECONDS));
+        assertTrue(primary.future.isCancelled());
+        then(handler).should().handle(response);
+        then(handler).shouldHaveNoMoreInteractions();
+    }
+
+    /**
+     * Test for {@link HedgingHttpClientEngine#executeHttpRequest(URI, String, HttpRequestCustomizer, HttpResponseHandler)}
+     * starting the hedged attempt in the configured executor.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecute_HedgeExecutor()
+    throws Throwable {
+        final PendingEngine delegate = new PendingEngine();
+        final AtomicInteger executions = new AtomicInteger();
+        final Executor executor = task -> {
+            executions.incrementAndGet();
+            ForkJoinPool.commonPool().execute(task);
+        };
+        final HedgingHttpClientEngine engine = new HedgingHttpClientEngine(
+                delegate, createPolicy(), HashedWheelTimer.shared(), executor);
+        engine.getLatencyTracker(URI_VALUE).record(Duration.ofMillis(10).toNanos());
+        final HttpResponseHandler handler = mock(HttpResponseHandler.class);
+        final CompletableFuture<Void> result = engine.executeHttpRequest(
+                URI_VALUE, Methods.GET, request -> {}, handler).toCompletableFuture();
+        delegate.next();
+        final Call hedge = delegate.next();
+        assertEquals(1, executions.get());
+        assertEquals(1, engine.getHedgeCount());
+        hedge.respond();
+        assertNull(result.get(WAIT_SECONDS, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Test for {@link HedgingHttpClientEngine#executeHttpRequest(URI, String, HttpRequestCustomizer, HttpResponseHandler)}
+     * when the hedged attempt is rejected by the configured executor.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecute_HedgeRejected()
+    throws Throwable {
+        final PendingEngine delegate = new PendingEngine();
+        final Executor executor = task -> {
+            throw new RejectedExecutionException();
+        };
+        final HedgingHttpClientEngine engine = new HedgingHttpClientEngine(
+                delegate, createPolicy(), HashedWheelTimer.shared(), executor);
+        engine.getLatencyTracker(URI_VALUE).record(Duration.ofMillis(10).toNanos());
+        final HttpResponseHandler handler = mock(HttpResponseHandler.class);
+        final CompletableFuture<Void> result = engine.executeHttpRequest(
+                URI_VALUE, Methods.GET, request -> {}, handler).toCompletableFuture();
+        final Call primary = delegate.next();
+        assertNull(delegate.calls.poll(200, TimeUnit.MILLISECONDS));
+        assertEquals(0, engine.getHedgeCount());
+        final HttpResponse response = primary.respond();
+        assertNull(result.get(WAIT_SECONDS, TimeUnit.SECONDS));
+        then(handler).should().handle(response);
+    }
+
+    /**
+     * Test for {@link HedgingHttpClientEngine#executeHttpRequest(URI, String, HttpRequestCustomizer, HttpResponseHandler)}
+     * when the original attempt responds after the hedged attempt is sent.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecute_PrimaryWins()
+    throws Throwable {
+        final PendingEngine delegate = new PendingEngine();
+        final HedgingHttpClientEngine engine = new HedgingHttpClientEngine(delegate, createPolicy());
+        engine.getLatencyTracker(URI_VALUE).record(Duration.ofMillis(10).toNanos());
+        final HttpResponseHandler handler = mock(HttpResponseHandler.class);
+        final CompletableFuture<Void> result = engine.executeHttpRequest(
+                URI_VALUE, Methods.GET, request -> {}, handler).toCompletableFuture();
+        final Call primary = delegate.next();
+        final Call hedge = delegate.next();
+        final HttpResponse response = primary.respond();
+        assertNull(result.get(WAIT_SECONDS, TimeUnit.SECONDS));
+        assertThrows(CancellationException.class,
+                () -> hedge.future.get(WAIT_SECONDS, TimeUnit.SECONDS));
+        then(handler).should().handle(response);
+        then(handler).shouldHaveNoMoreInteractions();
+    }
+
+    /**
+     * Test for {@link HedgingHttpClientEngine#executeHttpRequest(URI, String, HttpRequestCustomizer, HttpResponseHandler)}
+     * when one attempt fails.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecute_PrimaryFails()
+    throws Throwable {
+        final PendingEngine delegate = new PendingEngine();
+        final HedgingHttpClientEngine engine = new HedgingHttpClientEngine(delegate, createPolicy());
+        engine.getLatencyTracker(URI_VALUE).record(Duration.ofMillis(10).toNanos());
+        final HttpResponseHandler handler = mock(HttpResponseHandler.class);
+        final CompletableFuture<Void> result = engine.executeHttpRequest(
+                URI_VALUE, Methods.GET, request -> {}, handler).toCompletableFuture();
+        final Call primary = delegate.next();
+        final Call hedge = delegate.next();
+        primary.future.completeExceptionally(new ConnectException("Mock error"));
+        assertFalse(result.isDone());
+        final HttpResponse response = hedge.respond();
+        assertNull(result.get(WAIT_SECONDS, TimeUnit.SECONDS));
+        then(handler).should().handle(response);
+    }
+
+    /**
+     * Test for {@link HedgingHttpClientEngine#executeHttpRequest(URI, String, HttpRequestCustomizer, HttpResponseHandler)}
+     * when all the attempts fail.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecute_AllFail()
+    throws Throwable {
+        final PendingEngine delegate = new PendingEngine();
+        final HedgingHttpClientEngine engine = new HedgingHttpClientEngine(delegate, createPolicy());
+        engine.getLatencyTracker(URI_VALUE).record(Duration.ofMillis(10).toNanos());
+        final HttpResponseHandler handler = mock(HttpResponseHandler.class);
+        final CompletableFuture<Void> result = engine.executeHttpRequest(
+                URI_VALUE, Methods.GET, request -> {}, handler).toCompletableFuture();
+        final Call primary = delegate.next();
+        final Call hedge = delegate.next();
+        primary.future.completeExceptionally(new ConnectException("Mock error"));
+        final IOException error = new IOException("Mock error");
+        hedge.future.completeExceptionally(error);
+        final ExecutionException thrown = assertThrows(ExecutionException.class,
+                () -> result.get(WAIT_SECONDS, TimeUnit.SECONDS));
+        assertSame(error, thrown.getCause());
+        then(handler).shouldHaveNoInteractions();
+    }
+
+    /**
+     * Test for {@link HedgingHttpClientEngine#executeHttpRequest(URI, String, HttpRequestCustomizer, HttpResponseHandler)}
+     * when the hedging budget is exhausted.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecute_BudgetExhausted()
+    throws Throwable {
+        final PendingEngine delegate = new PendingEngine();
+        final HedgingPolicy policy = createPolicy();
+        policy.setHedgeRatio(0);
+        final HedgingHttpClientEngine engine = new HedgingHttpClientEngine(delegate, policy);
+        engine.getLatencyTracker(URI_VALUE).record(Duration.ofMillis(1).toNanos());
+        final HttpResponseHandler handler = mock(HttpResponseHandler.class);
+        for (int i = 0; i < RetryBudget.DEFAULT_MAX_BALANCE; i++) {
+            engine.executeHttpRequest(URI_VALUE, Methods.GET, request -> {}, handler);
+            delegate.next();
+            delegate.next();
+        }
+        assertEquals(RetryBudget.DEFAULT_MAX_BALANCE, engine.getHedgeCount());
+        engine.executeHttpRequest(URI_VALUE, Methods.GET, request -> {}, handler);
+        delegate.next();
+        assertNull(delegate.calls.poll(200, TimeUnit.MILLISECONDS));
+        assertEquals(RetryBudget.DEFAULT_MAX_BALANCE, engine.getHedgeCount());
+    }
+
+    /**
+     * Test for {@link HedgingHttpClientEngine#executeHttpRequest(URI, String, HttpRequestCustomizer, HttpResponseHandler)}
+     * when the request customization fails.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecute_CustomizerFails()
+    throws Throwable {
+        final PendingEngine delegate = new PendingEngine();
+        final HedgingHttpClientEngine engine = new HedgingHttpClientEngine(delegate, createPolicy());
+        engine.getLatencyTracker(URI_VALUE).record(Duration.ofMillis(1).toNanos());
+        final HttpClientException error = new HttpClientException("Mock error");
+        final CompletableFuture<Void> result = engine.executeHttpRequest(
+                URI_VALUE, Methods.GET, request -> { throw error; }, mock(HttpResponseHandler.class))
+                .toCompletableFuture();
+        final ExecutionException thrown = assertThrows(ExecutionException.class,
+                () -> result.get(WAIT_SECONDS, TimeUnit.SECONDS));
+        assertSame(error, thrown.getCause());
+        assertNull(delegate.calls.poll(200, TimeUnit.MILLISECONDS));
+        assertEquals(0, engine.getHedgeCount());
+    }
+
+    /**
+     * Test for {@link HedgingHttpClientEngine#executeHttpRequest(URI, String, HttpRequestCustomizer, HttpResponseHandler)}
+     * when the request is cancelled.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecute_Cancelled()
+    throws Throwable {
+        final PendingEngine delegate = new PendingEngine();
+        final HedgingHttpClientEngine engine = new HedgingHttpClientEngine(delegate, createPolicy());
+        engine.getLatencyTracker(URI_VALUE).record(Duration.ofMillis(50).toNanos());
+        final CompletableFuture<Void> result = engine.executeHttpRequest(
+                URI_VALUE, Methods.GET, request -> {}, mock(HttpResponseHandler.class))
+                .toCompletableFuture();
+        final Call primary = delegate.next();
+        result.cancel(true);
+        assertTrue(primary.future.isCancelled());
+        assertNull(delegate.calls.poll(200, TimeUnit.MILLISECONDS));
+        assertEquals(0, engine.getHedgeCount());
+    }
+
+    /**
+     * Delegated HTTP request execution.
+     */
+    private static class Call {
+
+        private final HttpRequest request = mock(HttpRequest.class);
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+        private HttpResponseHandler handler;
+
+        /**
+         * Handles a mock response and completes the execution.
+         * 
+         * @return The mock response.
+         */
+        HttpResponse respond() {
+            final HttpResponse response = mock(HttpResponse.class);
+            this.handler.handle(response);
+            this.future.complete(null);
+            return response;
+        }
+    }
+
+    /**
+     * HTTP client engine whose executions are completed by the test.
+     */
+    private static class PendingEngine
+    implements HttpClientEngine {
+
+        private final BlockingQueue<Call> calls = new LinkedBlockingQueue<>();
+
+        Call next()
+        throws InterruptedException {
+            final Call call = this.calls.poll(WAIT_SECONDS, TimeUnit.SECONDS);
+            assertNotNull(call, "Expected HTTP request not executed");
+            return call;
+        }
+
+        @Override
+        public CookieStore getCookieStore() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public CompletionStage<Void> executeHttpRequest(
+                final URI uri,
+                final String method,
+                final HttpRequestCustomizer requestCustomizer,
+                final HttpResponseHandler responseHandler)
+        throws HttpClientException {
+            final Call call = new Call();
+            call.handler = responseHandler;
+            try {
+                requestCustomizer.customizeRequest(call.request);
+            } catch (final HttpClientException e) {
+                call.future.completeExceptionally(e);
+                return call.future;
+            }
+            this.calls.add(call);
+            return call.future;
+        }
+
+        @Override
+        public void close() {
+            // NOP
+        }
+    }
+}
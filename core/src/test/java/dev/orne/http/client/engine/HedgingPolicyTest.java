@@ -0,0 +1,93 @@
+package dev.orne.http.client.engine;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@code HedgingPolicy}.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see HedgingPolicy
+ */
+@Tag("ut")
+class HedgingPolicyTest {
+
+    /**
+     * Test for {@link HedgingPolicy#HedgingPolicy()}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testDefaults()
+    throws Throwable {
+        final HedgingPolicy policy = new HedgingPolicy();
+        assertEquals(0.95, policy.getPercentile());
+        assertEquals(1000, policy.getWindowSize());
+        assertEquals(100, policy.getMinSamples());
+        assertEquals(0.05, policy.getHedgeRatio());
+    }
+
+    /**
+     * Test for {@link HedgingPolicy#HedgingPolicy(HedgingPolicy)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testCopy()
+    throws Throwable {
+        assertThrows(NullPointerException.class, () -> new HedgingPolicy(null));
+        final HedgingPolicy policy = new HedgingPolicy();
+        policy.setPercentile(0.99);
+        policy.setWindowSize(500);
+        policy.setMinSamples(50);
+        policy.setHedgeRatio(0.1);
+        final HedgingPolicy copy = new HedgingPolicy(policy);
+        assertEquals(policy, copy);
+        assertEquals(policy.hashCode(), copy.hashCode());
+        assertEquals(policy.toString(), copy.toString());
+        copy.setHedgeRatio(0);
+        assertNotEquals(policy, copy);
+        assertNotEquals(policy, null);
+        assertNotEquals(policy, new Object());
+    }
+
+    /**
+     * Test for {@link HedgingPolicy} setters validation.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testValidation()
+    throws Throwable {
+        final HedgingPolicy policy = new HedgingPolicy();
+        assertThrows(IllegalArgumentException.class, () -> policy.setPercentile(0));
+        assertThrows(IllegalArgumentException.class, () -> policy.setPercentile(1));
+        assertThrows(IllegalArgumentException.class, () -> policy.setWindowSize(0));
+        assertThrows(IllegalArgumentException.class, () -> policy.setMinSamples(0));
+        assertThrows(IllegalArgumentException.class, () -> policy.setHedgeRatio(-0.1));
+        assertThrows(IllegalArgumentException.class, () -> policy.setHedgeRatio(1.1));
+    }
+}
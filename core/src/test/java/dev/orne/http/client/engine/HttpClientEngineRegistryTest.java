@@ -0,0 +1,150 @@
+package dev.orne.http.client.engine;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.BDDMockito.*;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@code HttpClientEngineRegistry}.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see HttpClientEngineRegistry
+ */
+@Tag("ut")
+class HttpClientEngineRegistryTest {
+
+    /**
+     * Test for {@link HttpClientEngineRegistry#shared()}.
+     */
+    @Test
+    void testShared() {
+        assertNotNull(HttpClientEngineRegistry.shared());
+        assertSame(HttpClientEngineRegistry.shared(), HttpClientEngineRegistry.shared());
+    }
+
+    /**
+     * Test for {@link HttpClientEngineRegistry#acquire(Object, Supplier)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testAcquire()
+    throws Throwable {
+        final HttpClientEngineRegistry registry = new HttpClientEngineRegistry();
+        final HttpClientEngine engine = mock(HttpClientEngine.class);
+        final AtomicInteger created = new AtomicInteger();
+        final Supplier<HttpClientEngine> factory = () -> {
+            created.incrementAndGet();
+            return engine;
+        };
+        assertEquals(0, registry.getReferenceCount("key"));
+        final SharedHttpClientEngine lease1 = registry.acquire("key", factory);
+        final SharedHttpClientEngine lease2 = registry.acquire("key", factory);
+        assertNotSame(lease1, lease2);
+        assertSame(engine, lease1.getDelegate());
+        assertSame(engine, lease2.getDelegate());
+        assertEquals(1, created.get());
+        assertEquals(2, registry.getReferenceCount("key"));
+        lease1.close();
+        assertEquals(1, registry.getReferenceCount("key"));
+        then(engine).should(never()).close();
+        lease1.close();
+        assertEquals(1, registry.getReferenceCount("key"));
+        lease2.close();
+        assertEquals(0, registry.getReferenceCount("key"));
+        then(engine).should().close();
+        final SharedHttpClientEngine lease3 = registry.acquire("key", factory);
+        assertEquals(2, created.get());
+        assertEquals(1, registry.getReferenceCount("key"));
+        lease3.close();
+    }
+
+    /**
+     * Test for {@link HttpClientEngineRegistry#acquire(Object, Supplier)}
+     * with different configuration keys.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testAcquire_DifferentKeys()
+    throws Throwable {
+        final HttpClientEngineRegistry registry = new HttpClientEngineRegistry();
+        final HttpClientEngine engine1 = mock(HttpClientEngine.class);
+        final HttpClientEngine engine2 = mock(HttpClientEngine.class);
+        try (final SharedHttpClientEngine lease1 = registry.acquire("key1", () -> engine1);
+                final SharedHttpClientEngine lease2 = registry.acquire("key2", () -> engine2)) {
+            assertSame(engine1, lease1.getDelegate());
+            assertSame(engine2, lease2.getDelegate());
+            assertEquals(1, registry.getReferenceCount("key1"));
+            assertEquals(1, registry.getReferenceCount("key2"));
+        }
+        then(engine1).should().close();
+        then(engine2).should().close();
+    }
+
+    /**
+     * Test for {@link HttpClientEngineRegistry#acquire(Object, Supplier)}
+     * with invalid parameters.
+     */
+    @Test
+    void testAcquire_InvalidParameters() {
+        final HttpClientEngineRegistry registry = new HttpClientEngineRegistry();
+        final HttpClientEngine engine = mock(HttpClientEngine.class);
+        assertThrows(NullPointerException.class, () -> registry.acquire(null, () -> engine));
+        assertThrows(NullPointerException.class, () -> registry.acquire("key", null));
+        assertThrows(NullPointerException.class, () -> registry.acquire("key", () -> null));
+        assertEquals(0, registry.getReferenceCount("key"));
+        final IllegalStateException error = new IllegalStateException();
+        assertThrows(IllegalStateException.class, () -> registry.acquire("key", () -> {
+            throw error;
+        }));
+        assertEquals(0, registry.getReferenceCount("key"));
+    }
+
+    /**
+     * Test for {@link HttpClientEngineRegistry#acquire(Object, Supplier)}
+     * when the engine fails to close.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testRelease_CloseError()
+    throws Throwable {
+        final HttpClientEngineRegistry registry = new HttpClientEngineRegistry();
+        final HttpClientEngine engine = mock(HttpClientEngine.class);
+        final IOException error = new IOException();
+        willThrow(error).given(engine).close();
+        final SharedHttpClientEngine lease = registry.acquire("key", () -> engine);
+        final IOException result = assertThrows(IOException.class, lease::close);
+        assertSame(error, result);
+        assertEquals(0, registry.getReferenceCount("key"));
+        assertTrue(lease.isClosed());
+    }
+}
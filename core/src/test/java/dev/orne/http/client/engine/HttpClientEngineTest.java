@@ -0,0 +1,56 @@
+package dev.orne.http.client.engine;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.BDDMockito.*;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@code HttpClientEngine}.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see HttpClientEngine
+ */
+@Tag("ut")
+class HttpClientEngineTest {
+
+    /**
+     * Test for {@link HttpClientEngine#shutdown(Duration)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testShutdown()
+    throws Throwable {
+        final HttpClientEngine engine = mock(HttpClientEngine.class);
+        given(engine.shutdown(any())).willCallRealMethod();
+        assertEquals(0, engine.shutdown(Duration.ofSeconds(1)));
+        then(engine).should().close();
+    }
+}
@@ -0,0 +1,57 @@
+package dev.orne.http.client.engine;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.net.URI;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@code HttpHosts}.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see HttpHosts
+ */
+@Tag("ut")
+class HttpHostsTest {
+
+    /**
+     * Test for {@link HttpHosts#getKey(URI)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testGetKey()
+    throws Throwable {
+        assertEquals("example.org:80", HttpHosts.getKey(URI.create("http://Example.ORG/path")));
+        assertEquals("example.org:80", HttpHosts.getKey(URI.create("http://example.org:80/path")));
+        assertEquals("example.org:443", HttpHosts.getKey(URI.create("https://example.org/path")));
+        assertEquals("example.org:443", HttpHosts.getKey(URI.create("HTTPS://example.org/path")));
+        assertEquals("example.org:8080", HttpHosts.getKey(URI.create("http://example.org:8080/path")));
+        assertEquals("[::1]:80", HttpHosts.getKey(URI.create("http://[::1]/path")));
+    }
+}
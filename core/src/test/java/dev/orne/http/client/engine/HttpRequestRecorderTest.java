@@ -0,0 +1,228 @@
+package dev.orne.http.client.engine;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.BDDMockito.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+
+import dev.orne.http.ContentType;
+import dev.orne.http.Headers;
+import dev.orne.http.client.HttpClientException;
+import dev.orne.http.client.HttpRequestBodyGenerationException;
+
+/**
+ * Unit tests for {@code HttpRequestRecorder}.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see HttpRequestRecorder
+ */
+@Tag("ut")
+class HttpRequestRecorderTest {
+
+    private static final ContentType CONTENT_TYPE = ContentType.of("application/octet-stream");
+
+    /**
+     * Test for {@link HttpRequestRecorder#record(HttpRequestCustomizer, HttpRequest)}
+     * and {@link HttpRequestRecorder#replay(HttpRequest)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testRecordReplay()
+    throws Throwable {
+        final HttpRequestRecorder recorder = new HttpRequestRecorder(true, null);
+        assertTrue(recorder.isRetryable());
+        assertFalse(recorder.isRecorded());
+        final Instant deadline = Instant.now().plusSeconds(60);
+        final HttpRequest original = mock(HttpRequest.class);
+        recorder.record(request -> {
+            request.addHeader("X-Test", "value");
+            request.setBody(CONTENT_TYPE, "body");
+            request.setConnectTimeout(Duration.ofSeconds(1));
+            request.setResponseTimeout(Duration.ofSeconds(2));
+            request.setDeadline(deadline);
+        }, original);
+        assertTrue(recorder.isRecorded());
+        assertEquals(deadline, recorder.getDeadline());
+        then(original).should().addHeader("X-Test", "value");
+        then(original).should().setBody(CONTENT_TYPE, "body");
+        final HttpRequest replayed = mock(HttpRequest.class);
+        recorder.replay(replayed);
+        then(replayed).should().addHeader("X-Test", "value");
+        then(replayed).should().setBody(CONTENT_TYPE, "body");
+        then(replayed).should().setConnectTimeout(Duration.ofSeconds(1));
+        then(replayed).should().setResponseTimeout(Duration.ofSeconds(2));
+        then(replayed).should().setDeadline(deadline);
+    }
+
+    /**
+     * Test for {@link HttpRequestRecorder#record(HttpRequestCustomizer, HttpRequest)}
+     * with total timeouts.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testRecord_Timeout()
+    throws Throwable {
+        final HttpRequestRecorder recorder = new HttpRequestRecorder(true, null);
+        final HttpRequest original = mock(HttpRequest.class);
+        final Instant before = Instant.now();
+        recorder.record(request -> request.setTimeout(Duration.ofSeconds(10)), original);
+        then(original).should().setTimeout(Duration.ofSeconds(10));
+        final Instant deadline = recorder.getDeadline();
+        assertNotNull(deadline);
+        assertFalse(deadline.isBefore(before.plusSeconds(10)));
+        final HttpRequest replayed = mock(HttpRequest.class);
+        recorder.replay(replayed);
+        then(replayed).should().setDeadline(deadline);
+        then(replayed).should(never()).setTimeout(any());
+    }
+
+    /**
+     * Test for {@link HttpRequestRecorder#record(HttpRequestCustomizer, HttpRequest)}
+     * with produced bodies.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testRecord_ProducedBody()
+    throws Throwable {
+        final byte[] body = "body".getBytes(StandardCharsets.UTF_8);
+        final HttpRequestRecorder recorder = new HttpRequestRecorder(true, null);
+        final HttpRequest original = mock(HttpRequest.class);
+        recorder.record(request -> request.setBody(CONTENT_TYPE, -1, output -> output.write(body)), original);
+        then(original).should().setBody(CONTENT_TYPE, body);
+        assertTrue(recorder.isRetryable());
+        final HttpRequest replayed = mock(HttpRequest.class);
+        recorder.replay(replayed);
+        then(replayed).should().setBody(CONTENT_TYPE, body);
+    }
+
+    /**
+     * Test for {@link HttpRequestRecorder#record(HttpRequestCustomizer, HttpRequest)}
+     * with file bodies.
+     * @param tempDir The temporary directory
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testRecord_FileBody(
+            final @TempDir Path tempDir)
+    throws Throwable {
+        final Path file = tempDir.resolve("body.bin");
+        Files.write(file, "body".getBytes(StandardCharsets.UTF_8));
+        final HttpRequestRecorder recorder = new HttpRequestRecorder(true, null);
+        final HttpRequest original = mock(HttpRequest.class);
+        recorder.record(request -> request.setBody(CONTENT_TYPE, file), original);
+        final ArgumentCaptor<HttpRequest.BodyProducer> captor =
+                ArgumentCaptor.forClass(HttpRequest.BodyProducer.class);
+        then(original).should().setBody(same(CONTENT_TYPE), eq(4L), captor.capture());
+        then(original).shouldHaveNoMoreInteractions();
+        final FileBodyProducer producer = assertInstanceOf(FileBodyProducer.class, captor.getValue());
+        assertEquals(file, producer.getFile());
+        assertTrue(recorder.isRetryable());
+        final HttpRequest replayed = mock(HttpRequest.class);
+        recorder.replay(replayed);
+        then(replayed).should().setBody(CONTENT_TYPE, 4L, producer);
+    }
+
+    /**
+     * Test for {@link HttpRequestRecorder#record(HttpRequestCustomizer, HttpRequest)}
+     * with produced bodies of non idempotent requests.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testRecord_ProducedBody_NotIdempotent()
+    throws Throwable {
+        final HttpRequestRecorder recorder = new HttpRequestRecorder(false, null);
+        assertFalse(recorder.isRetryable());
+        final HttpRequest original = mock(HttpRequest.class);
+        final HttpRequest.BodyProducer producer = mock(HttpRequest.BodyProducer.class);
+        recorder.record(request -> request.setBody(CONTENT_TYPE, 4, producer), original);
+        then(original).should().setBody(CONTENT_TYPE, 4, producer);
+        then(producer).shouldHaveNoInteractions();
+        assertFalse(recorder.isRetryable());
+    }
+
+    /**
+     * Test for {@link HttpRequestRecorder#record(HttpRequestCustomizer, HttpRequest)}
+     * with body production failures.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testRecord_ProducedBody_Error()
+    throws Throwable {
+        final HttpRequestRecorder recorder = new HttpRequestRecorder(true, null);
+        final HttpRequest original = mock(HttpRequest.class);
+        final IOException error = new IOException("Mock error");
+        final HttpRequestBodyGenerationException thrown = assertThrows(
+                HttpRequestBodyGenerationException.class,
+                () -> recorder.record(request -> request.setBody(CONTENT_TYPE, -1, output -> {
+                    throw error;
+                }), original));
+        assertSame(error, thrown.getCause());
+        assertFalse(recorder.isRecorded());
+    }
+
+    /**
+     * Test for {@link HttpRequestRecorder#record(HttpRequestCustomizer, HttpRequest)}
+     * with idempotency headers.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testRecord_IdempotencyHeader()
+    throws Throwable {
+        final HttpRequestRecorder recorder = new HttpRequestRecorder(
+                false, Headers.Request.NonStandard.IDEMPOTENCY_KEY);
+        assertFalse(recorder.isRetryable());
+        recorder.record(
+                request -> request.addHeader("idempotency-key", "key"),
+                mock(HttpRequest.class));
+        assertTrue(recorder.isRetryable());
+    }
+
+    /**
+     * Test for {@link HttpRequestRecorder#record(HttpRequestCustomizer, HttpRequest)}
+     * with customization failures.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testRecord_Error()
+    throws Throwable {
+        final HttpRequestRecorder recorder = new HttpRequestRecorder(true, null);
+        final HttpClientException error = new HttpClientException("Mock error");
+        assertSame(error, assertThrows(HttpClientException.class,
+                () -> recorder.record(request -> { throw error; }, mock(HttpRequest.class))));
+        assertFalse(recorder.isRecorded());
+    }
+}
@@ -22,12 +22,24 @@ package dev.orne.http.client.engine;
  * #L%
  */
 
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.BDDMockito.*;
 
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
 
 import dev.orne.http.ContentType;
+import dev.orne.http.client.HttpClientException;
+import dev.orne.http.client.HttpRequestBodyGenerationException;
 import dev.orne.http.client.body.HttpRequestBodyProducer;
 import dev.orne.http.client.engine.HttpRequest.BodyProducer;
 
@@ -73,4 +85,100 @@ class HttpRequestTest {
         then(request).should().setBody(contentType, -1, producer);
         then(request).shouldHaveNoMoreInteractions();
     }
+
+    /**
+     * Test for {@link HttpRequest#setBody(ContentType, Path)}.
+     * @param tempDir The temporary directory
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testSetBody_File(
+            final @TempDir Path tempDir)
+    throws Throwable {
+        final Path file = tempDir.resolve("body.bin");
+        Files.write(file, new byte[100]);
+        final ContentType contentType = mock(ContentType.class);
+        final HttpRequest request = mock(HttpRequest.class);
+        willCallRealMethod().given(request).setBody(contentType, file);
+        request.setBody(contentType, file);
+        final ArgumentCaptor<BodyProducer> captor = ArgumentCaptor.forClass(BodyProducer.class);
+        then(request).should().setBody(contentType, file);
+        then(request).should().setBody(same(contentType), eq(100L), captor.capture());
+        then(request).shouldHaveNoMoreInteractions();
+        final FileBodyProducer producer = assertInstanceOf(FileBodyProducer.class, captor.getValue());
+        assertEquals(file, producer.getFile());
+        assertEquals(0, producer.getPosition());
+        assertEquals(100, producer.getLength());
+    }
+
+    /**
+     * Test for {@link HttpRequest#setBody(ContentType, Path)} with
+     * missing file.
+     * @param tempDir The temporary directory
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testSetBody_File_Missing(
+            final @TempDir Path tempDir)
+    throws Throwable {
+        final Path file = tempDir.resolve("missing.bin");
+        final ContentType contentType = mock(ContentType.class);
+        final HttpRequest request = mock(HttpRequest.class);
+        willCallRealMethod().given(request).setBody(contentType, file);
+        final HttpRequestBodyGenerationException result = assertThrows(
+                HttpRequestBodyGenerationException.class,
+                () -> request.setBody(contentType, file));
+        assertInstanceOf(IOException.class, result.getCause());
+        then(request).should().setBody(contentType, file);
+        then(request).shouldHaveNoMoreInteractions();
+    }
+
+    /**
+     * Test for {@link HttpRequest#setBody(ContentType, FileChannel)}.
+     * @param tempDir The temporary directory
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testSetBody_FileChannel(
+            final @TempDir Path tempDir)
+    throws Throwable {
+        final Path file = tempDir.resolve("body.bin");
+        Files.write(file, new byte[100]);
+        final ContentType contentType = mock(ContentType.class);
+        final HttpRequest request = mock(HttpRequest.class);
+        try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            channel.position(30);
+            willCallRealMethod().given(request).setBody(contentType, channel);
+            request.setBody(contentType, channel);
+            final ArgumentCaptor<BodyProducer> captor = ArgumentCaptor.forClass(BodyProducer.class);
+            then(request).should().setBody(contentType, channel);
+            then(request).should().setBody(same(contentType), eq(70L), captor.capture());
+            then(request).shouldHaveNoMoreInteractions();
+            final FileBodyProducer producer = assertInstanceOf(FileBodyProducer.class, captor.getValue());
+            assertSame(channel, producer.getChannel());
+            assertEquals(30, producer.getPosition());
+            assertEquals(70, producer.getLength());
+            assertEquals(30, channel.position());
+        }
+    }
+
+    /**
+     * Test for the default implementations of
+     * {@link HttpRequest#setConnectTimeout(Duration)},
+     * {@link HttpRequest#setResponseTimeout(Duration)} and
+     * {@link HttpRequest#setTimeout(Duration)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testSetTimeouts_Default()
+    throws Throwable {
+        final HttpRequest request = mock(HttpRequest.class);
+        final Duration timeout = Duration.ofSeconds(5);
+        willCallRealMethod().given(request).setConnectTimeout(timeout);
+        willCallRealMethod().given(request).setResponseTimeout(timeout);
+        willCallRealMethod().given(request).setTimeout(timeout);
+        assertThrows(HttpClientException.class, () -> request.setConnectTimeout(timeout));
+        assertThrows(HttpClientException.class, () -> request.setResponseTimeout(timeout));
+        assertThrows(HttpClientException.class, () -> request.setTimeout(timeout));
+    }
 }
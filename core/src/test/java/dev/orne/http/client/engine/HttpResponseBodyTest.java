@@ -25,15 +25,28 @@ package dev.orne.http.client.engine;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.BDDMockito.*;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Random;
 import java.util.stream.Stream;
 
 import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
@@ -245,4 +258,149 @@ class HttpResponseBodyTest {
                 Arguments.of(false, false)
             );
     }
+    private static HttpResponseBody mockChannelBody(
+            final byte[] content,
+            final long length)
+    throws Throwable {
+        final HttpResponseBody body = mock(HttpResponseBody.class);
+        given(body.getContent()).willReturn(
+                content == null ? null : new ByteArrayInputStream(content));
+        given(body.getContentLength()).willReturn(length);
+        willCallRealMethod().given(body).getContentChannel();
+        willCallRealMethod().given(body).getContentBuffer();
+        willCallRealMethod().given(body).transferTo(nullable(WritableByteChannel.class));
+        willCallRealMethod().given(body).transferTo(nullable(Path.class));
+        return body;
+    }
+
+    private static byte[] randomContent(
+            final int size) {
+        final byte[] result = new byte[size];
+        new Random().nextBytes(result);
+        return result;
+    }
+
+    /**
+     * Test for {@link HttpResponseBody#getContentBuffer()}.
+     * @throws Throwable Should not happen
+     */
+    @ParameterizedTest
+    @MethodSource
+    void testGetContentBuffer(
+            final int size,
+            final long length)
+    throws Throwable {
+        final byte[] content = randomContent(size);
+        final ByteBuffer result = mockChannelBody(content, length).getContentBuffer();
+        assertNotNull(result);
+        assertEquals(0, result.position());
+        assertEquals(size, result.remaining());
+        final byte[] read = new byte[size];
+        result.get(read);
+        assertArrayEquals(content, read);
+    }
+    private static Stream<Arguments> testGetContentBuffer() {
+        return Stream.of(
+                Arguments.of(0, 0),
+                Arguments.of(0, -1),
+                Arguments.of(100, 100),
+                Arguments.of(100, -1),
+                Arguments.of(100, 10),
+                Arguments.of(200000, -1),
+                Arguments.of(200000, 200000)
+            );
+    }
+
+    /**
+     * Test for {@link HttpResponseBody#getContentChannel()},
+     * {@link HttpResponseBody#getContentBuffer()} and
+     * {@link HttpResponseBody#transferTo(WritableByteChannel)}
+     * without content.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testChannels_NoContent()
+    throws Throwable {
+        final HttpResponseBody body = mockChannelBody(null, -1);
+        assertNull(body.getContentChannel());
+        assertNull(body.getContentBuffer());
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        assertEquals(0, body.transferTo(Channels.newChannel(output)));
+        assertEquals(0, output.size());
+    }
+
+    /**
+     * Test for {@link HttpResponseBody#transferTo(WritableByteChannel)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testTransferTo_Channel()
+    throws Throwable {
+        final byte[] content = randomContent(200000);
+        final HttpResponseBody body = mockChannelBody(content, -1);
+        assertThrows(NullPointerException.class, () -> body.transferTo((WritableByteChannel) null));
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        assertEquals(content.length, body.transferTo(Channels.newChannel(output)));
+        assertArrayEquals(content, output.toByteArray());
+    }
+
+    /**
+     * Test for {@link HttpResponseBody#transferTo(WritableByteChannel)}
+     * with a {@code FileChannel}.
+     * @param dir The temporary directory
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testTransferTo_FileChannel(
+            final @TempDir Path dir)
+    throws Throwable {
+        final byte[] content = randomContent(200000);
+        final Path file = dir.resolve("body.bin");
+        try (final FileChannel channel = FileChannel.open(
+                file, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] { 1, 2, 3 }));
+            assertEquals(content.length, mockChannelBody(content, content.length).transferTo(channel));
+            assertEquals(3 + content.length, channel.position());
+        }
+        final byte[] written = Files.readAllBytes(file);
+        assertEquals(3 + content.length, written.length);
+        assertArrayEquals(content, Arrays.copyOfRange(written, 3, written.length));
+    }
+
+    /**
+     * Test for {@link HttpResponseBody#transferTo(Path)}.
+     * @param dir The temporary directory
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testTransferTo_Path(
+            final @TempDir Path dir)
+    throws Throwable {
+        final byte[] content = randomContent(1000);
+        final Path file = dir.resolve("body.bin");
+        Files.write(file, randomContent(5000));
+        final HttpResponseBody body = mockChannelBody(content, content.length);
+        assertThrows(NullPointerException.class, () -> body.transferTo((Path) null));
+        assertEquals(content.length, body.transferTo(file));
+        assertArrayEquals(content, Files.readAllBytes(file));
+        assertThrows(HttpResponseHandlingException.class,
+                () -> mockChannelBody(content, -1).transferTo(dir.resolve("missing/body.bin")));
+    }
+
+    /**
+     * Test for {@link HttpResponseBody#transferTo(WritableByteChannel)}
+     * with write errors.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testTransferTo_Error()
+    throws Throwable {
+        final WritableByteChannel target = mock(WritableByteChannel.class);
+        given(target.write(any())).willThrow(new IOException("Mock error"));
+        final HttpResponseBody body = mockChannelBody(randomContent(100), 100);
+        final HttpResponseHandlingException result = assertThrows(
+                HttpResponseHandlingException.class,
+                () -> body.transferTo(target));
+        assertInstanceOf(IOException.class, result.getCause());
+    }
 }
@@ -0,0 +1,180 @@
+package dev.orne.http.client.engine;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import dev.orne.http.client.HttpClientException;
+import dev.orne.http.client.HttpRequestRejectedException;
+
+/**
+ * Unit tests for {@code InFlightRequests}.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see InFlightRequests
+ */
+@Tag("ut")
+class InFlightRequestsTest {
+
+    /**
+     * Test for {@link InFlightRequests#execute(InFlightRequests.Execution)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecute()
+    throws Throwable {
+        final InFlightRequests requests = new InFlightRequests();
+        assertThrows(NullPointerException.class, () -> requests.execute(null));
+        final CompletableFuture<String> future = new CompletableFuture<>();
+        final CompletableFuture<String> result = requests.execute(() -> future);
+        assertSame(future, result);
+        assertEquals(1, requests.getCount());
+        future.complete("result");
+        assertEquals(0, requests.getCount());
+        assertEquals("done", requests.execute(() -> CompletableFuture.completedFuture("done")).get());
+        assertEquals(0, requests.getCount());
+        assertFalse(requests.isShutdown());
+    }
+
+    /**
+     * Test for {@link InFlightRequests#execute(InFlightRequests.Execution)}
+     * with failed execution start.
+     */
+    @Test
+    void testExecute_Error() {
+        final InFlightRequests requests = new InFlightRequests();
+        final HttpClientException error = new HttpClientException();
+        final HttpClientException result = assertThrows(HttpClientException.class,
+                () -> requests.execute(() -> {
+                    throw error;
+                }));
+        assertSame(error, result);
+        assertEquals(0, requests.getCount());
+    }
+
+    /**
+     * Test for {@link InFlightRequests#shutdown(Duration)} without
+     * requests in flight.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testShutdown()
+    throws Throwable {
+        final InFlightRequests requests = new InFlightRequests();
+        assertThrows(NullPointerException.class, () -> requests.shutdown(null));
+        assertThrows(IllegalArgumentException.class, () -> requests.shutdown(Duration.ofSeconds(-1)));
+        assertFalse(requests.isShutdown());
+        assertEquals(0, requests.shutdown(Duration.ZERO));
+        assertTrue(requests.isShutdown());
+        final AtomicInteger started = new AtomicInteger();
+        assertThrows(HttpRequestRejectedException.class, () -> requests.execute(() -> {
+            started.incrementAndGet();
+            return new CompletableFuture<>();
+        }));
+        assertEquals(0, started.get());
+    }
+
+    /**
+     * Test for {@link InFlightRequests#shutdown(Duration)} with requests
+     * completed within the timeout.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testShutdown_Drained()
+    throws Throwable {
+        final InFlightRequests requests = new InFlightRequests();
+        final CompletableFuture<Void> succeeded = requests.execute(CompletableFuture::new);
+        final CompletableFuture<Void> failed = requests.execute(CompletableFuture::new);
+        final CountDownLatch waiting = new CountDownLatch(1);
+        final Thread completer = new Thread(() -> {
+            try {
+                waiting.await();
+                Thread.sleep(50);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            failed.completeExceptionally(new IllegalStateException());
+            succeeded.complete(null);
+        });
+        completer.start();
+        waiting.countDown();
+        assertEquals(0, requests.shutdown(Duration.ofSeconds(5)));
+        assertFalse(succeeded.isCancelled());
+        assertFalse(failed.isCancelled());
+        assertEquals(0, requests.getCount());
+        completer.join();
+    }
+
+    /**
+     * Test for {@link InFlightRequests#shutdown(Duration)} with requests
+     * in flight after the timeout.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testShutdown_Aborted()
+    throws Throwable {
+        final InFlightRequests requests = new InFlightRequests();
+        final CompletableFuture<Void> completed = requests.execute(CompletableFuture::new);
+        final CompletableFuture<Void> pending1 = requests.execute(CompletableFuture::new);
+        final CompletableFuture<Void> pending2 = requests.execute(CompletableFuture::new);
+        completed.complete(null);
+        final long start = System.nanoTime();
+        assertEquals(2, requests.shutdown(Duration.ofMillis(50)));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+        assertFalse(completed.isCancelled());
+        assertTrue(pending1.isCancelled());
+        assertTrue(pending2.isCancelled());
+        assertEquals(0, requests.getCount());
+    }
+
+    /**
+     * Test for {@link InFlightRequests#shutdown(Duration)} when the
+     * current thread is interrupted.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testShutdown_Interrupted()
+    throws Throwable {
+        final InFlightRequests requests = new InFlightRequests();
+        final CompletableFuture<Void> pending = requests.execute(CompletableFuture::new);
+        Thread.currentThread().interrupt();
+        try {
+            assertEquals(1, requests.shutdown(Duration.ofMinutes(5)));
+            assertTrue(Thread.currentThread().isInterrupted());
+        } finally {
+            Thread.interrupted();
+        }
+        assertTrue(pending.isCancelled());
+    }
+}
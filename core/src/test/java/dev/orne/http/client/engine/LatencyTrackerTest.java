@@ -0,0 +1,101 @@
+package dev.orne.http.client.engine;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@code LatencyTracker}.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see LatencyTracker
+ */
+@Tag("ut")
+class LatencyTrackerTest {
+
+    /**
+     * Test for {@link LatencyTracker#LatencyTracker(double, int, int)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testConstructor()
+    throws Throwable {
+        assertThrows(IllegalArgumentException.class, () -> new LatencyTracker(0, 10, 1));
+        assertThrows(IllegalArgumentException.class, () -> new LatencyTracker(1, 10, 1));
+        assertThrows(IllegalArgumentException.class, () -> new LatencyTracker(0.5, 0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new LatencyTracker(0.5, 10, 0));
+        final LatencyTracker tracker = new LatencyTracker(0.9, 10, 5);
+        assertEquals(0.9, tracker.getPercentile());
+        assertEquals(0, tracker.getSampleCount());
+        assertNull(tracker.getValue());
+    }
+
+    /**
+     * Test for {@link LatencyTracker#getValue()}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testGetValue()
+    throws Throwable {
+        final LatencyTracker tracker = new LatencyTracker(0.9, 100, 10);
+        for (int i = 1; i < 10; i++) {
+            tracker.record(i);
+            assertNull(tracker.getValue());
+        }
+        tracker.record(10);
+        assertEquals(Duration.ofNanos(9), tracker.getValue());
+        for (int i = 11; i <= 100; i++) {
+            tracker.record(i);
+        }
+        assertEquals(100, tracker.getSampleCount());
+        assertEquals(Duration.ofNanos(90), tracker.getValue());
+    }
+
+    /**
+     * Test for {@link LatencyTracker#record(long)} sliding window.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testSlidingWindow()
+    throws Throwable {
+        final LatencyTracker tracker = new LatencyTracker(0.5, 10, 20);
+        for (int i = 0; i < 10; i++) {
+            tracker.record(1000);
+        }
+        assertEquals(Duration.ofNanos(1000), tracker.getValue());
+        for (int i = 0; i < 10; i++) {
+            tracker.record(10);
+        }
+        assertEquals(20, tracker.getSampleCount());
+        assertEquals(Duration.ofNanos(10), tracker.getValue());
+        tracker.record(-5);
+        assertEquals(Duration.ofNanos(10), tracker.getValue());
+    }
+}
@@ -0,0 +1,128 @@
+package dev.orne.http.client.engine;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@code LeastOutstandingEndpointSelector}.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see LeastOutstandingEndpointSelector
+ */
+@Tag("ut")
+class LeastOutstandingEndpointSelectorTest {
+
+    private static final URI REQUEST_URI = URI.create("http://service/path");
+
+    /**
+     * Test for {@link LeastOutstandingEndpointSelector#select(List, URI)}
+     * with a single endpoint.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testSelect_Single()
+    throws Throwable {
+        final Endpoint endpoint = new Endpoint(URI.create("http://replica-1/"));
+        endpoint.onStart();
+        assertSame(endpoint, new LeastOutstandingEndpointSelector().select(
+                Collections.singletonList(endpoint), REQUEST_URI));
+    }
+
+    /**
+     * Test for {@link LeastOutstandingEndpointSelector#select(List, URI)}
+     * with two endpoints.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testSelect_LeastOutstanding()
+    throws Throwable {
+        final Endpoint busy = new Endpoint(URI.create("http://replica-1/"));
+        final Endpoint idle = new Endpoint(URI.create("http://replica-2/"));
+        busy.onStart();
+        final LeastOutstandingEndpointSelector selector = new LeastOutstandingEndpointSelector();
+        final List<Endpoint> endpoints = Arrays.asList(busy, idle);
+        for (int i = 0; i < 20; i++) {
+            assertSame(idle, selector.select(endpoints, REQUEST_URI));
+        }
+    }
+
+    /**
+     * Test for {@link LeastOutstandingEndpointSelector#choose(Endpoint, Endpoint)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testChoose_Latency()
+    throws Throwable {
+        final Endpoint slow = new Endpoint(URI.create("http://replica-1/"));
+        final Endpoint fast = new Endpoint(URI.create("http://replica-2/"));
+        slow.onStart();
+        slow.onComplete(1000, false, 0.5);
+        fast.onStart();
+        fast.onComplete(10, false, 0.5);
+        final LeastOutstandingEndpointSelector selector = new LeastOutstandingEndpointSelector();
+        assertSame(fast, selector.choose(slow, fast));
+        assertSame(fast, selector.choose(fast, slow));
+        slow.onStart();
+        fast.onStart();
+        fast.onStart();
+        assertSame(slow, selector.choose(slow, fast));
+    }
+
+    /**
+     * Test for {@link LeastOutstandingEndpointSelector#select(List, URI)}
+     * with multiple endpoints.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testSelect_Distribution()
+    throws Throwable {
+        final List<Endpoint> endpoints = Arrays.asList(
+                new Endpoint(URI.create("http://replica-1/")),
+                new Endpoint(URI.create("http://replica-2/")),
+                new Endpoint(URI.create("http://replica-3/")));
+        final LeastOutstandingEndpointSelector selector = new LeastOutstandingEndpointSelector();
+        final Set<Endpoint> selected = new HashSet<>();
+        for (int i = 0; i < 30; i++) {
+            final Endpoint endpoint = selector.select(endpoints, REQUEST_URI);
+            endpoint.onStart();
+            selected.add(endpoint);
+        }
+        assertEquals(3, selected.size());
+        for (final Endpoint endpoint : endpoints) {
+            assertTrue(endpoint.getOutstanding() >= 5);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package dev.orne.http.client.engine;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import dev.orne.http.StatusCodes;
+
+/**
+ * Unit tests for {@code LoadBalancerConfig}.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see LoadBalancerConfig
+ */
+@Tag("ut")
+class LoadBalancerConfigTest {
+
+    /**
+     * Test for {@link LoadBalancerConfig#LoadBalancerConfig()}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testDefaults()
+    throws Throwable {
+        final LoadBalancerConfig config = new LoadBalancerConfig();
+        assertEquals(0.1, config.getEwmaWeight());
+        assertEquals(20, config.getMinRequests());
+        assertEquals(0.5, config.getErrorRateThreshold());
+        assertEquals(3, config.getLatencyThreshold());
+        assertEquals(Duration.ofSeconds(30), config.getEjectionDuration());
+        assertEquals(0.5, config.getMaxEjectedRatio());
+        assertEquals(
+                new HashSet<>(Arrays.asList(500, 502, 503, 504)),
+                config.getFailureStatusCodes());
+        assertTrue(config.isFailureStatusCode(StatusCodes.SERVICE_UNAVAILABLE));
+        assertFalse(config.isFailureStatusCode(StatusCodes.NOT_FOUND));
+    }
+
+    /**
+     * Test for {@link LoadBalancerConfig#LoadBalancerConfig(LoadBalancerConfig)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testCopy()
+    throws Throwable {
+        assertThrows(NullPointerException.class, () -> new LoadBalancerConfig(null));
+        final LoadBalancerConfig config = new LoadBalancerConfig();
+        config.setEwmaWeight(0.5);
+        config.setMinRequests(5);
+        config.setErrorRateThreshold(0.25);
+        config.setLatencyThreshold(Double.POSITIVE_INFINITY);
+        config.setEjectionDuration(Duration.ofSeconds(5));
+        config.setMaxEjectedRatio(1);
+        config.setFailureStatusCodes(Collections.singleton(StatusCodes.SERVICE_UNAVAILABLE));
+        final LoadBalancerConfig copy = new LoadBalancerConfig(config);
+        assertEquals(config, copy);
+        assertEquals(config.hashCode(), copy.hashCode());
+        assertEquals(config.toString(), copy.toString());
+        copy.setMinRequests(1);
+        assertNotEquals(config, copy);
+        assertNotEquals(config, null);
+        assertNotEquals(config, new Object());
+    }
+
+    /**
+     * Test for {@link LoadBalancerConfig} setters validation.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testValidation()
+    throws Throwable {
+        final LoadBalancerConfig config = new LoadBalancerConfig();
+        assertThrows(IllegalArgumentException.class, () -> config.setEwmaWeight(0));
+        assertThrows(IllegalArgumentException.class, () -> config.setEwmaWeight(1.5));
+        assertThrows(IllegalArgumentException.class, () -> config.setMinRequests(0));
+        assertThrows(IllegalArgumentException.class, () -> config.setErrorRateThreshold(0));
+        assertThrows(IllegalArgumentException.class, () -> config.setErrorRateThreshold(1.5));
+        assertThrows(IllegalArgumentException.class, () -> config.setLatencyThreshold(1));
+        assertThrows(NullPointerException.class, () -> config.setEjectionDuration(null));
+        assertThrows(IllegalArgumentException.class, () -> config.setEjectionDuration(Duration.ZERO));
+        assertThrows(IllegalArgumentException.class, () -> config.setMaxEjectedRatio(-0.1));
+        assertThrows(IllegalArgumentException.class, () -> config.setMaxEjectedRatio(1.5));
+        assertThrows(NullPointerException.class, () -> config.setFailureStatusCodes(null));
+        assertThrows(IllegalArgumentException.class, () -> config.setFailureStatusCodes(
+                new HashSet<>(Arrays.asList(503, null))));
+        config.setMaxEjectedRatio(0);
+        assertEquals(0, config.getMaxEjectedRatio());
+    }
+}
@@ -0,0 +1,418 @@
+package dev.orne.http.client.engine;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.BDDMockito.*;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import dev.orne.http.Methods;
+import dev.orne.http.StatusCodes;
+import dev.orne.http.client.cookie.CookieStore;
+
+/**
+ * Unit tests for {@code LoadBalancingHttpClientEngine}.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see LoadBalancingHttpClientEngine
+ */
+@Tag("ut")
+class LoadBalancingHttpClientEngineTest {
+
+    private static final URI SERVICE = URI.create("http://service/api/");
+    private static final URI REPLICA_1 = URI.create("http://replica-1:8080/api/");
+    private static final URI REPLICA_2 = URI.create("http://replica-2:8080/v2/");
+    private static final List<URI> REPLICAS = Arrays.asList(REPLICA_1, REPLICA_2);
+    private static final URI REQUEST = URI.create("http://service/api/items/1?q=a");
+
+    private final AtomicLong clock = new AtomicLong();
+    private final AtomicReference<URI> preferred = new AtomicReference<>();
+    private HttpClientEngine delegate;
+
+    @BeforeEach
+    void createDelegate() {
+        this.delegate = mock(HttpClientEngine.class);
+        this.preferred.set(REPLICA_1);
+    }
+
+    /**
+     * Selects the preferred endpoint, if available, or the first one.
+     * 
+     * @param endpoints The available endpoints.
+     * @param uri The request URI.
+     * @return The selected endpoint.
+     */
+    private Endpoint selectPreferred(
+            final List<Endpoint> endpoints,
+            final URI uri) {
+        for (final Endpoint endpoint : endpoints) {
+            if (endpoint.getURI().equals(this.preferred.get())) {
+                return endpoint;
+            }
+        }
+        return endpoints.get(0);
+    }
+
+    /**
+     * Creates an engine with the test clock and selector, that ejects
+     * endpoints after 2 requests.
+     * 
+     * @return The engine.
+     */
+    private LoadBalancingHttpClientEngine createEngine() {
+        final LoadBalancerConfig config = new LoadBalancerConfig();
+        config.setMinRequests(2);
+        config.setEwmaWeight(0.5);
+        config.setEjectionDuration(Duration.ofSeconds(10));
+        return new LoadBalancingHttpClientEngine(
+                this.delegate, SERVICE, REPLICAS, config, this::selectPreferred, this.clock::get);
+    }
+
+    /**
+     * Configures the delegated engine to respond with the specified status
+     * code after the specified latency.
+     * 
+     * @param status The response status code.
+     * @param latency The response latency, in nanoseconds.
+     * @throws Exception Should not happen
+     */
+    private void respondWith(
+            final int status,
+            final long latency)
+    throws Exception {
+        willAnswer(invocation -> {
+            this.clock.addAndGet(latency);
+            final HttpResponse response = mock(HttpResponse.class);
+            given(response.getStatusCode()).willReturn(status);
+            invocation.getArgument(3, HttpResponseHandler.class).handle(response);
+            return CompletableFuture.completedFuture(null);
+        }).given(this.delegate).executeHttpRequest(any(), any(), any(), any());
+    }
+
+    /**
+     * Executes a request and returns the target URI sent to the delegated
+     * engine.
+     * 
+     * @param engine The engine.
+     * @return The target URI.
+     * @throws Exception Should not happen
+     */
+    private URI execute(
+            final LoadBalancingHttpClientEngine engine)
+    throws Exception {
+        clearInvocations(this.delegate);
+        engine.executeHttpRequest(REQUEST, Methods.GET, request -> {}, mock(HttpResponseHandler.class))
+                .toCompletableFuture().get();
+        final ArgumentCaptor<URI> uri = ArgumentCaptor.forClass(URI.class);
+        then(this.delegate).should().executeHttpRequest(uri.capture(), any(), any(), any());
+        return uri.getValue();
+    }
+
+    /**
+     * Test for {@link LoadBalancingHttpClientEngine#LoadBalancingHttpClientEngine(HttpClientEngine, URI, java.util.Collection, LoadBalancerConfig, EndpointSelector)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testConstructor()
+    throws Throwable {
+        final LoadBalancerConfig config = new LoadBalancerConfig();
+        final EndpointSelector selector = this::selectPreferred;
+        assertThrows(NullPointerException.class,
+                () -> new LoadBalancingHttpClientEngine(null, SERVICE, REPLICAS));
+        assertThrows(NullPointerException.class,
+                () -> new LoadBalancingHttpClientEngine(this.delegate, null, REPLICAS));
+        assertThrows(IllegalArgumentException.class,
+                () -> new LoadBalancingHttpClientEngine(this.delegate, URI.create("/api/"), REPLICAS));
+        assertThrows(NullPointerException.class,
+                () -> new LoadBalancingHttpClientEngine(this.delegate, SERVICE, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> new LoadBalancingHttpClientEngine(this.delegate, SERVICE, Collections.emptyList()));
+        assertThrows(IllegalArgumentException.class,
+                () -> new LoadBalancingHttpClientEngine(this.delegate, SERVICE, Arrays.asList(REPLICA_1, null)));
+        assertThrows(NullPointerException.class,
+                () -> new LoadBalancingHttpClientEngine(this.delegate, SERVICE, REPLICAS, null));
+        assertThrows(NullPointerException.class,
+                () -> new LoadBalancingHttpClientEngine(this.delegate, SERVICE, REPLICAS, config, null));
+        final LoadBalancingHttpClientEngine engine = new LoadBalancingHttpClientEngine(
+                this.delegate, SERVICE, REPLICAS, config, selector);
+        assertSame(this.delegate, engine.getDelegate());
+        assertEquals(SERVICE, engine.getServiceURI());
+        assertEquals(config, engine.getConfig());
+        assertNotSame(config, engine.getConfig());
+        assertSame(selector, engine.getSelector());
+        assertEquals(2, engine.getEndpoints().size());
+        assertEquals(REPLICA_1, engine.getEndpoints().get(0).getURI());
+        assertEquals(REPLICA_2, engine.getEndpoints().get(1).getURI());
+        assertInstanceOf(LeastOutstandingEndpointSelector.class,
+                new LoadBalancingHttpClientEngine(this.delegate, SERVICE, REPLICAS).getSelector());
+    }
+
+    /**
+     * Test for {@link LoadBalancingHttpClientEngine#getCookieStore()},
+     * {@link LoadBalancingHttpClientEngine#shutdown(Duration)} and
+     * {@link LoadBalancingHttpClientEngine#close()}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testDelegation()
+    throws Throwable {
+        final CookieStore cookieStore = mock(CookieStore.class);
+        final Duration timeout = Duration.ofSeconds(1);
+        given(this.delegate.getCookieStore()).willReturn(cookieStore);
+        given(this.delegate.shutdown(timeout)).willReturn(2);
+        final LoadBalancingHttpClientEngine engine = createEngine();
+        assertSame(cookieStore, engine.getCookieStore());
+        assertEquals(2, engine.shutdown(timeout));
+        engine.close();
+        then(this.delegate).should().close();
+    }
+
+    /**
+     * Test for {@link LoadBalancingHttpClientEngine#executeHttpRequest(URI, String, HttpRequestCustomizer, HttpResponseHandler)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecute()
+    throws Throwable {
+        respondWith(StatusCodes.OK, 100);
+        final LoadBalancingHttpClientEngine engine = createEngine();
+        final HttpResponseHandler handler = mock(HttpResponseHandler.class);
+        assertThrows(NullPointerException.class,
+                () -> engine.executeHttpRequest(null, Methods.GET, request -> {}, handler));
+        assertThrows(NullPointerException.class,
+                () -> engine.executeHttpRequest(REQUEST, null, request -> {}, handler));
+        assertThrows(NullPointerException.class,
+                () -> engine.executeHttpRequest(REQUEST, Methods.GET, null, handler));
+        assertThrows(NullPointerException.class,
+                () -> engine.executeHttpRequest(REQUEST, Methods.GET, request -> {}, null));
+        assertEquals(URI.create("http://replica-1:8080/api/items/1?q=a"), execute(engine));
+        this.preferred.set(REPLICA_2);
+        assertEquals(URI.create("http://replica-2:8080/v2/items/1?q=a"), execute(engine));
+        for (final Endpoint endpoint : engine.getEndpoints()) {
+            assertEquals(0, endpoint.getOutstanding());
+            assertEquals(1, endpoint.getSampleCount());
+            assertEquals(Duration.ofNanos(100), endpoint.getLatency());
+        }
+    }
+
+    /**
+     * Test for {@link LoadBalancingHttpClientEngine#executeHttpRequest(URI, String, HttpRequestCustomizer, HttpResponseHandler)}
+     * with requests outside the service.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecute_OtherService()
+    throws Throwable {
+        final CompletableFuture<Void> expected = new CompletableFuture<>();
+        given(this.delegate.executeHttpRequest(any(), any(), any(), any())).willReturn(expected);
+        final LoadBalancingHttpClientEngine engine = createEngine();
+        final URI other = URI.create("http://other/api/items");
+        final HttpRequestCustomizer customizer = request -> {};
+        final HttpResponseHandler handler = mock(HttpResponseHandler.class);
+        assertSame(expected, engine.executeHttpRequest(other, Methods.GET, customizer, handler));
+        then(this.delegate).should().executeHttpRequest(other, Methods.GET, customizer, handler);
+        assertEquals(0, engine.getEndpoints().get(0).getOutstanding());
+    }
+
+    /**
+     * Test for {@link LoadBalancingHttpClientEngine#executeHttpRequest(URI, String, HttpRequestCustomizer, HttpResponseHandler)}
+     * with requests in flight.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecute_Outstanding()
+    throws Throwable {
+        final CompletableFuture<Void> pending = new CompletableFuture<>();
+        given(this.delegate.executeHttpRequest(any(), any(), any(), any())).willReturn(pending);
+        final LoadBalancingHttpClientEngine engine = createEngine();
+        final CompletionStage<Void> result = engine.executeHttpRequest(
+                REQUEST, Methods.GET, request -> {}, mock(HttpResponseHandler.class));
+        final Endpoint endpoint = engine.getEndpoints().get(0);
+        assertEquals(1, endpoint.getOutstanding());
+        result.toCompletableFuture().cancel(true);
+        assertThrows(CancellationException.class, () -> pending.get());
+        assertEquals(0, endpoint.getOutstanding());
+        assertEquals(0, endpoint.getSampleCount());
+    }
+
+    /**
+     * Test for {@link LoadBalancingHttpClientEngine#executeHttpRequest(URI, String, HttpRequestCustomizer, HttpResponseHandler)}
+     * when the delegated engine throws an exception.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecute_Exception()
+    throws Throwable {
+        final IllegalStateException error = new IllegalStateException();
+        given(this.delegate.executeHttpRequest(any(), any(), any(), any())).willThrow(error);
+        final LoadBalancingHttpClientEngine engine = createEngine();
+        assertSame(error, assertThrows(IllegalStateException.class, () -> engine.executeHttpRequest(
+                REQUEST, Methods.GET, request -> {}, mock(HttpResponseHandler.class))));
+        assertEquals(0, engine.getEndpoints().get(0).getOutstanding());
+    }
+
+    /**
+     * Test for {@link LoadBalancingHttpClientEngine#executeHttpRequest(URI, String, HttpRequestCustomizer, HttpResponseHandler)}
+     * ejecting endpoints by error rate.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testEjection_ErrorRate()
+    throws Throwable {
+        respondWith(StatusCodes.SERVICE_UNAVAILABLE, 100);
+        final LoadBalancingHttpClientEngine engine = createEngine();
+        final Endpoint first = engine.getEndpoints().get(0);
+        assertEquals(REPLICA_1.getHost(), execute(engine).getHost());
+        assertFalse(first.isEjected());
+        assertEquals(REPLICA_1.getHost(), execute(engine).getHost());
+        assertTrue(first.isEjected());
+        assertEquals(1, first.getEjectionCount());
+        assertEquals(REPLICA_2.getHost(), execute(engine).getHost());
+        assertEquals(REPLICA_2.getHost(), execute(engine).getHost());
+        assertFalse(engine.getEndpoints().get(1).isEjected());
+        this.clock.addAndGet(Duration.ofSeconds(10).toNanos());
+        respondWith(StatusCodes.OK, 100);
+        assertEquals(REPLICA_1.getHost(), execute(engine).getHost());
+        assertFalse(first.isEjected());
+    }
+
+    /**
+     * Test for {@link LoadBalancingHttpClientEngine#executeHttpRequest(URI, String, HttpRequestCustomizer, HttpResponseHandler)}
+     * ejecting endpoints by transport failures.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testEjection_Failure()
+    throws Throwable {
+        given(this.delegate.executeHttpRequest(any(), any(), any(), any())).willAnswer(
+                invocation -> failed(new ConnectException("Mock error")));
+        final LoadBalancingHttpClientEngine engine = createEngine();
+        for (int i = 0; i < 2; i++) {
+            engine.executeHttpRequest(REQUEST, Methods.GET, request -> {}, mock(HttpResponseHandler.class));
+        }
+        assertTrue(engine.getEndpoints().get(0).isEjected());
+        assertEquals(1, engine.getEndpoints().get(0).getEjectionCount());
+    }
+
+    /**
+     * Test for {@link LoadBalancingHttpClientEngine#executeHttpRequest(URI, String, HttpRequestCustomizer, HttpResponseHandler)}
+     * ejecting endpoints by latency.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testEjection_Latency()
+    throws Throwable {
+        final LoadBalancingHttpClientEngine engine = createEngine();
+        respondWith(StatusCodes.OK, 100);
+        this.preferred.set(REPLICA_2);
+        execute(engine);
+        execute(engine);
+        respondWith(StatusCodes.OK, 250);
+        this.preferred.set(REPLICA_1);
+        execute(engine);
+        execute(engine);
+        assertFalse(engine.getEndpoints().get(0).isEjected());
+        respondWith(StatusCodes.OK, 1000);
+        execute(engine);
+        assertTrue(engine.getEndpoints().get(0).isEjected());
+        assertFalse(engine.getEndpoints().get(1).isEjected());
+    }
+
+    /**
+     * Test for {@link LoadBalancingHttpClientEngine#executeHttpRequest(URI, String, HttpRequestCustomizer, HttpResponseHandler)}
+     * with the maximum ratio of endpoints ejected.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testEjection_MaxEjected()
+    throws Throwable {
+        respondWith(StatusCodes.SERVICE_UNAVAILABLE, 100);
+        final LoadBalancingHttpClientEngine engine = createEngine();
+        for (int i = 0; i < 6; i++) {
+            execute(engine);
+        }
+        assertTrue(engine.getEndpoints().get(0).isEjected());
+        assertFalse(engine.getEndpoints().get(1).isEjected());
+        assertEquals(4, engine.getEndpoints().get(1).getSampleCount());
+    }
+
+    /**
+     * Test for {@link LoadBalancingHttpClientEngine#getAvailableEndpoints()}
+     * when all the endpoints are ejected.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testGetAvailableEndpoints_AllEjected()
+    throws Throwable {
+        final LoadBalancingHttpClientEngine engine = createEngine();
+        assertEquals(engine.getEndpoints(), engine.getAvailableEndpoints());
+        engine.getEndpoints().get(1).eject(Duration.ofSeconds(1).toNanos());
+        assertEquals(Collections.singletonList(engine.getEndpoints().get(0)), engine.getAvailableEndpoints());
+        engine.getEndpoints().get(0).eject(Duration.ofSeconds(1).toNanos());
+        assertEquals(engine.getEndpoints(), engine.getAvailableEndpoints());
+    }
+
+    /**
+     * Test for {@link LoadBalancingHttpClientEngine#setEndpoints(java.util.Collection)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testSetEndpoints()
+    throws Throwable {
+        final LoadBalancingHttpClientEngine engine = createEngine();
+        final Endpoint second = engine.getEndpoints().get(1);
+        final URI third = URI.create("http://replica-3:8080/api/");
+        engine.setEndpoints(Arrays.asList(REPLICA_2, third));
+        assertEquals(2, engine.getEndpoints().size());
+        assertSame(second, engine.getEndpoints().get(0));
+        assertEquals(third, engine.getEndpoints().get(1).getURI());
+        assertThrows(IllegalArgumentException.class, () -> engine.setEndpoints(Collections.emptyList()));
+        assertThrows(UnsupportedOperationException.class, () -> engine.getEndpoints().clear());
+    }
+
+    private static CompletionStage<Void> failed(
+            final IOException error) {
+        final CompletableFuture<Void> result = new CompletableFuture<>();
+        result.completeExceptionally(error);
+        return result;
+    }
+}
@@ -0,0 +1,120 @@
+package dev.orne.http.client.engine;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import dev.orne.http.StatusCodes;
+
+/**
+ * Unit tests for {@code RateLimitPolicy}.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see RateLimitPolicy
+ */
+@Tag("ut")
+class RateLimitPolicyTest {
+
+    /**
+     * Test for {@link RateLimitPolicy#RateLimitPolicy()}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testDefaults()
+    throws Throwable {
+        final RateLimitPolicy policy = new RateLimitPolicy();
+        assertEquals(10, policy.getPermitsPerSecond());
+        assertEquals(10, policy.getBurst());
+        assertEquals(Duration.ofSeconds(30), policy.getMaxWait());
+        assertTrue(policy.isPerHost());
+        assertEquals(Collections.singleton(429), policy.getThrottleStatusCodes());
+        assertEquals(0.5, policy.getThrottleFactor());
+        assertEquals(0.1, policy.getMinRateRatio());
+        assertEquals(0.02, policy.getRecoveryRatio());
+        assertTrue(policy.isThrottleStatusCode(StatusCodes.TOO_MANY_REQUESTS));
+        assertFalse(policy.isThrottleStatusCode(StatusCodes.SERVICE_UNAVAILABLE));
+    }
+
+    /**
+     * Test for {@link RateLimitPolicy#RateLimitPolicy(RateLimitPolicy)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testCopy()
+    throws Throwable {
+        assertThrows(NullPointerException.class, () -> new RateLimitPolicy(null));
+        final RateLimitPolicy policy = new RateLimitPolicy();
+        policy.setPermitsPerSecond(2.5);
+        policy.setBurst(5);
+        policy.setMaxWait(Duration.ZERO);
+        policy.setPerHost(false);
+        policy.setThrottleStatusCodes(new HashSet<>(Arrays.asList(429, 503)));
+        policy.setThrottleFactor(0.25);
+        policy.setMinRateRatio(0.5);
+        policy.setRecoveryRatio(0.1);
+        final RateLimitPolicy copy = new RateLimitPolicy(policy);
+        assertEquals(policy, copy);
+        assertEquals(policy.hashCode(), copy.hashCode());
+        assertEquals(policy.toString(), copy.toString());
+        copy.setBurst(1);
+        assertNotEquals(policy, copy);
+        assertNotEquals(policy, null);
+        assertNotEquals(policy, new Object());
+    }
+
+    /**
+     * Test for {@link RateLimitPolicy} setters validation.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testValidation()
+    throws Throwable {
+        final RateLimitPolicy policy = new RateLimitPolicy();
+        assertThrows(IllegalArgumentException.class, () -> policy.setPermitsPerSecond(0));
+        assertThrows(IllegalArgumentException.class, () -> policy.setPermitsPerSecond(Double.POSITIVE_INFINITY));
+        assertThrows(IllegalArgumentException.class, () -> policy.setBurst(0));
+        assertThrows(NullPointerException.class, () -> policy.setMaxWait(null));
+        assertThrows(IllegalArgumentException.class, () -> policy.setMaxWait(Duration.ofMillis(-1)));
+        assertThrows(NullPointerException.class, () -> policy.setThrottleStatusCodes(null));
+        assertThrows(IllegalArgumentException.class, () -> policy.setThrottleStatusCodes(
+                new HashSet<>(Arrays.asList(429, null))));
+        assertThrows(IllegalArgumentException.class, () -> policy.setThrottleFactor(0));
+        assertThrows(IllegalArgumentException.class, () -> policy.setThrottleFactor(1.5));
+        assertThrows(IllegalArgumentException.class, () -> policy.setMinRateRatio(0));
+        assertThrows(IllegalArgumentException.class, () -> policy.setMinRateRatio(1.5));
+        assertThrows(IllegalArgumentException.class, () -> policy.setRecoveryRatio(0));
+        assertThrows(IllegalArgumentException.class, () -> policy.setRecoveryRatio(1.5));
+        policy.setThrottleStatusCodes(Collections.emptySet());
+        assertFalse(policy.isThrottleStatusCode(StatusCodes.TOO_MANY_REQUESTS));
+    }
+}
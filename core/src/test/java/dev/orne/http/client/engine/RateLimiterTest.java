@@ -0,0 +1,206 @@
+package dev.orne.http.client.engine;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@code RateLimiter}.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see RateLimiter
+ */
+@Tag("ut")
+class RateLimiterTest {
+
+    private static final double DELTA = 1e-9;
+
+    private final AtomicLong clock = new AtomicLong();
+
+    /**
+     * Creates a rate limiter of 4 permits per second and bursts of 2
+     * permits, with the test clock.
+     * 
+     * @return The rate limiter.
+     */
+    private RateLimiter createLimiter() {
+        final RateLimitPolicy policy = new RateLimitPolicy();
+        policy.setPermitsPerSecond(4);
+        policy.setBurst(2);
+        return new RateLimiter(policy, this.clock::get);
+    }
+
+    /**
+     * Advances the test clock.
+     * 
+     * @param millis The milliseconds to advance.
+     */
+    private void advance(
+            final long millis) {
+        this.clock.addAndGet(Duration.ofMillis(millis).toNanos());
+    }
+
+    /**
+     * Test for {@link RateLimiter#RateLimiter(RateLimitPolicy)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testConstructor()
+    throws Throwable {
+        assertThrows(NullPointerException.class, () -> new RateLimiter(null));
+        final RateLimitPolicy policy = new RateLimitPolicy();
+        final RateLimiter limiter = new RateLimiter(policy);
+        assertEquals(policy, limiter.getPolicy());
+        assertNotSame(policy, limiter.getPolicy());
+        assertEquals(10, limiter.getRate());
+        assertEquals(10, limiter.getAvailablePermits(), DELTA);
+        assertEquals(0, limiter.getRejectedCount());
+    }
+
+    /**
+     * Test for {@link RateLimiter#tryAcquire()}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testTryAcquire()
+    throws Throwable {
+        final RateLimiter limiter = createLimiter();
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+        assertEquals(1, limiter.getRejectedCount());
+        advance(250);
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+        advance(10_000);
+        assertEquals(2, limiter.getAvailablePermits(), DELTA);
+    }
+
+    /**
+     * Test for {@link RateLimiter#reserve(Duration)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testReserve()
+    throws Throwable {
+        final RateLimiter limiter = createLimiter();
+        assertThrows(NullPointerException.class, () -> limiter.reserve(null));
+        assertEquals(Duration.ZERO, limiter.reserve(Duration.ofSeconds(1)));
+        assertEquals(Duration.ZERO, limiter.reserve(Duration.ofSeconds(1)));
+        assertEquals(Duration.ofMillis(250), limiter.reserve(Duration.ofSeconds(1)));
+        assertEquals(Duration.ofMillis(500), limiter.reserve(Duration.ofSeconds(1)));
+        assertNull(limiter.reserve(Duration.ofMillis(600)));
+        assertEquals(1, limiter.getRejectedCount());
+        assertEquals(-2, limiter.getAvailablePermits(), DELTA);
+        advance(250);
+        assertEquals(-1, limiter.getAvailablePermits(), DELTA);
+        assertEquals(Duration.ofMillis(500), limiter.reserve(Duration.ofMillis(500)));
+        assertNotNull(limiter.reserve(Duration.ofSeconds(Long.MAX_VALUE)));
+    }
+
+    /**
+     * Test for {@link RateLimiter#release()}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testRelease()
+    throws Throwable {
+        final RateLimiter limiter = createLimiter();
+        limiter.reserve(Duration.ofSeconds(1));
+        limiter.reserve(Duration.ofSeconds(1));
+        limiter.reserve(Duration.ofSeconds(1));
+        assertEquals(-1, limiter.getAvailablePermits(), DELTA);
+        limiter.release();
+        assertEquals(0, limiter.getAvailablePermits(), DELTA);
+        limiter.release();
+        limiter.release();
+        limiter.release();
+        assertEquals(2, limiter.getAvailablePermits(), DELTA);
+    }
+
+    /**
+     * Test for {@link RateLimiter#throttle(Duration)} without pause.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testThrottle()
+    throws Throwable {
+        final RateLimiter limiter = createLimiter();
+        limiter.throttle(null);
+        assertEquals(2, limiter.getRate(), DELTA);
+        assertEquals(0, limiter.getAvailablePermits(), DELTA);
+        assertEquals(Duration.ofMillis(500), limiter.reserve(Duration.ofSeconds(1)));
+        limiter.throttle(null);
+        assertEquals(1, limiter.getRate(), DELTA);
+        limiter.throttle(null);
+        limiter.throttle(null);
+        assertEquals(0.4, limiter.getRate(), DELTA);
+    }
+
+    /**
+     * Test for {@link RateLimiter#throttle(Duration)} with pause.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testThrottle_Pause()
+    throws Throwable {
+        final RateLimiter limiter = createLimiter();
+        limiter.throttle(Duration.ofSeconds(1));
+        assertNull(limiter.reserve(Duration.ofMillis(1400)));
+        assertEquals(Duration.ofMillis(1500), limiter.reserve(Duration.ofSeconds(2)));
+        advance(1000);
+        assertEquals(-1, limiter.getAvailablePermits(), DELTA);
+        advance(500);
+        assertEquals(0, limiter.getAvailablePermits(), DELTA);
+        limiter.throttle(Duration.ofMillis(100));
+        limiter.throttle(Duration.ofSeconds(Long.MAX_VALUE));
+        assertNull(limiter.reserve(Duration.ofDays(365)));
+    }
+
+    /**
+     * Test for {@link RateLimiter#recover()}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testRecover()
+    throws Throwable {
+        final RateLimiter limiter = createLimiter();
+        limiter.recover();
+        assertEquals(4, limiter.getRate(), DELTA);
+        limiter.throttle(null);
+        limiter.recover();
+        assertEquals(2.08, limiter.getRate(), DELTA);
+        for (int i = 0; i < 100; i++) {
+            limiter.recover();
+        }
+        assertEquals(4, limiter.getRate(), DELTA);
+    }
+}
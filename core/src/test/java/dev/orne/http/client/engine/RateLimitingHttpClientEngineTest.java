@@ -0,0 +1,402 @@
+package dev.orne.http.client.engine;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.BDDMockito.*;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import dev.orne.http.Headers;
+import dev.orne.http.Methods;
+import dev.orne.http.StatusCodes;
+import dev.orne.http.client.HttpClientException;
+import dev.orne.http.client.RateLimitExceededException;
+import dev.orne.http.client.cookie.CookieStore;
+
+/**
+ * Unit tests for {@code RateLimitingHttpClientEngine}.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see RateLimitingHttpClientEngine
+ */
+@Tag("ut")
+class RateLimitingHttpClientEngineTest {
+
+    private static final URI TARGET = URI.create("http://example.org/path");
+    private static final URI OTHER_TARGET = URI.create("http://example.com/path");
+    private static final long WAIT_SECONDS = 5;
+
+    /**
+     * Creates a rate limiting policy with the specified rate, without
+     * bursts.
+     * 
+     * @param permitsPerSecond The permits per second.
+     * @param maxWait The maximum wait for a permit.
+     * @return The rate limiting policy.
+     */
+    private static RateLimitPolicy createPolicy(
+            final double permitsPerSecond,
+            final Duration maxWait) {
+        final RateLimitPolicy policy = new RateLimitPolicy();
+        policy.setPermitsPerSecond(permitsPerSecond);
+        policy.setBurst(1);
+        policy.setMaxWait(maxWait);
+        return policy;
+    }
+
+    /**
+     * Test for {@link RateLimitingHttpClientEngine#RateLimitingHttpClientEngine(HttpClientEngine, RateLimitPolicy, HashedWheelTimer, Executor)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testConstructor()
+    throws Throwable {
+        final HttpClientEngine delegate = mock(HttpClientEngine.class);
+        final RateLimitPolicy policy = createPolicy(1, Duration.ZERO);
+        assertThrows(NullPointerException.class, () -> new RateLimitingHttpClientEngine(null));
+        assertThrows(NullPointerException.class, () -> new RateLimitingHttpClientEngine(delegate, null));
+        assertThrows(NullPointerException.class, () -> new RateLimitingHttpClientEngine(delegate, policy, null));
+        assertThrows(NullPointerException.class, () -> new RateLimitingHttpClientEngine(
+                delegate, policy, HashedWheelTimer.shared(), null));
+        final RateLimitingHttpClientEngine engine = new RateLimitingHttpClientEngine(delegate, policy);
+        assertSame(delegate, engine.getDelegate());
+        assertEquals(policy, engine.getPolicy());
+        assertNotSame(policy, engine.getPolicy());
+        assertEquals(new RateLimitPolicy(), new RateLimitingHttpClientEngine(delegate).getPolicy());
+    }
+
+    /**
+     * Test for {@link RateLimitingHttpClientEngine#getRateLimiter(URI)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testGetRateLimiter()
+    throws Throwable {
+        final HttpClientEngine delegate = mock(HttpClientEngine.class);
+        final RateLimitPolicy policy = new RateLimitPolicy();
+        final RateLimitingHttpClientEngine perHost = new RateLimitingHttpClientEngine(delegate, policy);
+        final RateLimiter limiter = perHost.getRateLimiter(TARGET);
+        assertSame(limiter, perHost.getRateLimiter(URI.create("http://EXAMPLE.org:80/other")));
+        assertNotSame(limiter, perHost.getRateLimiter(OTHER_TARGET));
+        assertEquals(policy, limiter.getPolicy());
+        policy.setPerHost(false);
+        final RateLimitingHttpClientEngine shared = new RateLimitingHttpClientEngine(delegate, policy);
+        assertSame(shared.getRateLimiter(TARGET), shared.getRateLimiter(OTHER_TARGET));
+    }
+
+    /**
+     * Test for {@link RateLimitingHttpClientEngine#getCookieStore()},
+     * {@link RateLimitingHttpClientEngine#shutdown(Duration)} and
+     * {@link RateLimitingHttpClientEngine#close()}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testDelegation()
+    throws Throwable {
+        final HttpClientEngine delegate = mock(HttpClientEngine.class);
+        final CookieStore cookieStore = mock(CookieStore.class);
+        final Duration timeout = Duration.ofSeconds(1);
+        given(delegate.getCookieStore()).willReturn(cookieStore);
+        given(delegate.shutdown(timeout)).willReturn(2);
+        final RateLimitingHttpClientEngine engine = new RateLimitingHttpClientEngine(delegate);
+        assertSame(cookieStore, engine.getCookieStore());
+        assertEquals(2, engine.shutdown(timeout));
+        engine.close();
+        then(delegate).should().close();
+    }
+
+    /**
+     * Test for {@link RateLimitingHttpClientEngine#executeHttpRequest(URI, String, HttpRequestCustomizer, HttpResponseHandler)}
+     * when the rate limit is exceeded without wait.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecute_Rejected()
+    throws Throwable {
+        final HttpClientEngine delegate = mock(HttpClientEngine.class);
+        willAnswer(invocation -> respond(invocation.getArgument(3), StatusCodes.OK))
+                .given(delegate).executeHttpRequest(any(), any(), any(), any());
+        final RateLimitingHttpClientEngine engine = new RateLimitingHttpClientEngine(
+                delegate, createPolicy(1, Duration.ZERO));
+        final HttpRequestCustomizer customizer = mock(HttpRequestCustomizer.class);
+        final HttpResponseHandler handler = mock(HttpResponseHandler.class);
+        assertThrows(NullPointerException.class,
+                () -> engine.executeHttpRequest(null, Methods.GET, customizer, handler));
+        assertThrows(NullPointerException.class,
+                () -> engine.executeHttpRequest(TARGET, null, customizer, handler));
+        assertThrows(NullPointerException.class,
+                () -> engine.executeHttpRequest(TARGET, Methods.GET, null, handler));
+        assertThrows(NullPointerException.class,
+                () -> engine.executeHttpRequest(TARGET, Methods.GET, customizer, null));
+        engine.executeHttpRequest(TARGET, Methods.GET, customizer, handler)
+                .toCompletableFuture().get(WAIT_SECONDS, TimeUnit.SECONDS);
+        then(handler).should().handle(any());
+        assertFailure(RateLimitExceededException.class,
+                engine.executeHttpRequest(TARGET, Methods.GET, customizer, handler));
+        then(delegate).should(times(1)).executeHttpRequest(any(), any(), any(), any());
+        assertEquals(1, engine.getRateLimiter(TARGET).getRejectedCount());
+        engine.executeHttpRequest(OTHER_TARGET, Methods.GET, customizer, handler)
+                .toCompletableFuture().get(WAIT_SECONDS, TimeUnit.SECONDS);
+        then(delegate).should(times(2)).executeHttpRequest(any(), any(), any(), any());
+    }
+
+    /**
+     * Test for {@link RateLimitingHttpClientEngine#executeHttpRequest(URI, String, HttpRequestCustomizer, HttpResponseHandler)}
+     * when the request waits for a permit.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecute_Wait()
+    throws Throwable {
+        final HttpClientEngine delegate = mock(HttpClientEngine.class);
+        willAnswer(invocation -> respond(invocation.getArgument(3), StatusCodes.OK))
+                .given(delegate).executeHttpRequest(any(), any(), any(), any());
+        final RateLimitingHttpClientEngine engine = new RateLimitingHttpClientEngine(
+                delegate, createPolicy(5, Duration.ofSeconds(1)));
+        final HttpResponseHandler handler = mock(HttpResponseHandler.class);
+        engine.executeHttpRequest(TARGET, Methods.GET, request -> {}, handler)
+                .toCompletableFuture().get(WAIT_SECONDS, TimeUnit.SECONDS);
+        final long start = System.nanoTime();
+        final CompletableFuture<Void> result = engine.executeHttpRequest(
+                TARGET, Methods.GET, request -> {}, handler).toCompletableFuture();
+        result.get(WAIT_SECONDS, TimeUnit.SECONDS);
+        assertTrue(System.nanoTime() - start >= Duration.ofMillis(150).toNanos());
+        then(delegate).should(times(2)).executeHttpRequest(any(), any(), any(), any());
+        then(handler).should(times(2)).handle(any());
+    }
+
+    /**
+     * Test for {@link RateLimitingHttpClientEngine#executeHttpRequest(URI, String, HttpRequestCustomizer, HttpResponseHandler)}
+     * dispatching the request in the configured executor after waiting for
+     * a permit.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecute_Wait_Executor()
+    throws Throwable {
+        final HttpClientEngine delegate = mock(HttpClientEngine.class);
+        willAnswer(invocation -> respond(invocation.getArgument(3), StatusCodes.OK))
+                .given(delegate).executeHttpRequest(any(), any(), any(), any());
+        final AtomicInteger executions = new AtomicInteger();
+        final Executor executor = task -> {
+            executions.incrementAndGet();
+            ForkJoinPool.commonPool().execute(task);
+        };
+        final RateLimitingHttpClientEngine engine = new RateLimitingHttpClientEngine(
+                delegate, createPolicy(10, Duration.ofSeconds(1)), HashedWheelTimer.shared(), executor);
+        final HttpResponseHandler handler = mock(HttpResponseHandler.class);
+        engine.executeHttpRequest(TARGET, Methods.GET, request -> {}, handler)
+                .toCompletableFuture().get(WAIT_SECONDS, TimeUnit.SECONDS);
+        assertEquals(0, executions.get());
+        engine.executeHttpRequest(TARGET, Methods.GET, request -> {}, handler)
+                .toCompletableFuture().get(WAIT_SECONDS, TimeUnit.SECONDS);
+        assertEquals(1, executions.get());
+        then(delegate).should(times(2)).executeHttpRequest(any(), any(), any(), any());
+    }
+
+    /**
+     * Test for {@link RateLimitingHttpClientEngine#executeHttpRequest(URI, String, HttpRequestCustomizer, HttpResponseHandler)}
+     * when the configured executor rejects the request after waiting for
+     * a permit.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecute_Wait_Rejected()
+    throws Throwable {
+        final HttpClientEngine delegate = mock(HttpClientEngine.class);
+        willAnswer(invocation -> respond(invocation.getArgument(3), StatusCodes.OK))
+                .given(delegate).executeHttpRequest(any(), any(), any(), any());
+        final Executor executor = task -> {
+            throw new RejectedExecutionException();
+        };
+        final RateLimitingHttpClientEngine engine = new RateLimitingHttpClientEngine(
+                delegate, createPolicy(10, Duration.ofSeconds(1)), HashedWheelTimer.shared(), executor);
+        final HttpResponseHandler handler = mock(HttpResponseHandler.class);
+        engine.executeHttpRequest(TARGET, Methods.GET, request -> {}, handler)
+                .toCompletableFuture().get(WAIT_SECONDS, TimeUnit.SECONDS);
+        final ExecutionException thrown = assertThrows(ExecutionException.class,
+                () -> engine.executeHttpRequest(TARGET, Methods.GET, request -> {}, handler)
+                    .toCompletableFuture().get(WAIT_SECONDS, TimeUnit.SECONDS));
+        assertInstanceOf(RejectedExecutionException.class, thrown.getCause());
+        then(delegate).should(times(1)).executeHttpRequest(any(), any(), any(), any());
+    }
+
+    /**
+     * Test for {@link RateLimitingHttpClientEngine#executeHttpRequest(URI, String, HttpRequestCustomizer, HttpResponseHandler)}
+     * when the delegated engine fails after waiting for a permit.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecute_Wait_Failure()
+    throws Throwable {
+        final HttpClientEngine delegate = mock(HttpClientEngine.class);
+        final HttpClientException error = new HttpClientException("Mock error");
+        given(delegate.executeHttpRequest(any(), any(), any(), any()))
+                .willReturn(CompletableFuture.completedFuture(null))
+                .willThrow(error);
+        final RateLimitingHttpClientEngine engine = new RateLimitingHttpClientEngine(
+                delegate, createPolicy(10, Duration.ofSeconds(1)));
+        final HttpResponseHandler handler = mock(HttpResponseHandler.class);
+        engine.executeHttpRequest(TARGET, Methods.GET, request -> {}, handler);
+        final ExecutionException thrown = assertThrows(ExecutionException.class,
+                () -> engine.executeHttpRequest(TARGET, Methods.GET, request -> {}, handler)
+                    .toCompletableFuture().get(WAIT_SECONDS, TimeUnit.SECONDS));
+        assertSame(error, thrown.getCause());
+    }
+
+    /**
+     * Test for {@link RateLimitingHttpClientEngine#executeHttpRequest(URI, String, HttpRequestCustomizer, HttpResponseHandler)}
+     * when the request is cancelled while waiting for a permit.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecute_Wait_Cancelled()
+    throws Throwable {
+        final HttpClientEngine delegate = mock(HttpClientEngine.class);
+        willAnswer(invocation -> respond(invocation.getArgument(3), StatusCodes.OK))
+                .given(delegate).executeHttpRequest(any(), any(), any(), any());
+        final RateLimitingHttpClientEngine engine = new RateLimitingHttpClientEngine(
+                delegate, createPolicy(0.5, Duration.ofSeconds(10)));
+        final HttpResponseHandler handler = mock(HttpResponseHandler.class);
+        engine.executeHttpRequest(TARGET, Methods.GET, request -> {}, handler);
+        final CompletableFuture<Void> result = engine.executeHttpRequest(
+                TARGET, Methods.GET, request -> {}, handler).toCompletableFuture();
+        final RateLimiter limiter = engine.getRateLimiter(TARGET);
+        assertTrue(limiter.getAvailablePermits() < -0.5);
+        result.cancel(true);
+        assertTrue(limiter.getAvailablePermits() > -0.5);
+        Thread.sleep(100);
+        then(delegate).should(times(1)).executeHttpRequest(any(), any(), any(), any());
+    }
+
+    /**
+     * Test for {@link RateLimitingHttpClientEngine#executeHttpRequest(URI, String, HttpRequestCustomizer, HttpResponseHandler)}
+     * with throttle status codes.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecute_Throttled()
+    throws Throwable {
+        final HttpClientEngine delegate = mock(HttpClientEngine.class);
+        final HttpResponse throttled = mock(HttpResponse.class);
+        given(throttled.getStatusCode()).willReturn(StatusCodes.TOO_MANY_REQUESTS);
+        given(throttled.getFirstHeaderValue(Headers.Response.RETRY_AFTER)).willReturn("60");
+        final HttpResponse success = mock(HttpResponse.class);
+        given(success.getStatusCode()).willReturn(StatusCodes.OK);
+        willAnswer(invocation -> respond(invocation.getArgument(3), throttled))
+                .willAnswer(invocation -> respond(invocation.getArgument(3), success))
+                .given(delegate).executeHttpRequest(any(), any(), any(), any());
+        final RateLimitPolicy policy = createPolicy(100, Duration.ofSeconds(1));
+        policy.setBurst(10);
+        final RateLimitingHttpClientEngine engine = new RateLimitingHttpClientEngine(delegate, policy);
+        final HttpResponseHandler handler = mock(HttpResponseHandler.class);
+        engine.executeHttpRequest(TARGET, Methods.GET, request -> {}, handler)
+                .toCompletableFuture().get(WAIT_SECONDS, TimeUnit.SECONDS);
+        then(handler).should().handle(throttled);
+        final RateLimiter limiter = engine.getRateLimiter(TARGET);
+        assertEquals(50, limiter.getRate());
+        assertFailure(RateLimitExceededException.class,
+                engine.executeHttpRequest(TARGET, Methods.GET, request -> {}, handler));
+        engine.executeHttpRequest(OTHER_TARGET, Methods.GET, request -> {}, handler)
+                .toCompletableFuture().get(WAIT_SECONDS, TimeUnit.SECONDS);
+        then(handler).should().handle(success);
+        assertEquals(100, engine.getRateLimiter(OTHER_TARGET).getRate());
+    }
+
+    /**
+     * Test for {@link RateLimitingHttpClientEngine#executeHttpRequest(URI, String, HttpRequestCustomizer, HttpResponseHandler)}
+     * recovering the rate with successful responses.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecute_Recovered()
+    throws Throwable {
+        final HttpClientEngine delegate = mock(HttpClientEngine.class);
+        willAnswer(invocation -> respond(invocation.getArgument(3), StatusCodes.OK))
+                .given(delegate).executeHttpRequest(any(), any(), any(), any());
+        final RateLimitPolicy policy = createPolicy(100, Duration.ofSeconds(1));
+        policy.setRecoveryRatio(0.25);
+        final RateLimitingHttpClientEngine engine = new RateLimitingHttpClientEngine(delegate, policy);
+        engine.throttle(TARGET, null);
+        final RateLimiter limiter = engine.getRateLimiter(TARGET);
+        assertEquals(50, limiter.getRate());
+        engine.executeHttpRequest(TARGET, Methods.GET, request -> {}, mock(HttpResponseHandler.class))
+                .toCompletableFuture().get(WAIT_SECONDS, TimeUnit.SECONDS);
+        assertEquals(75, limiter.getRate());
+    }
+
+    /**
+     * Test for {@link RateLimitingHttpClientEngine#throttle(URI, Duration)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testThrottle()
+    throws Throwable {
+        final HttpClientEngine delegate = mock(HttpClientEngine.class);
+        final RateLimitingHttpClientEngine engine = new RateLimitingHttpClientEngine(
+                delegate, createPolicy(10, Duration.ofSeconds(1)));
+        engine.throttle(TARGET, Duration.ofMinutes(1));
+        assertEquals(5, engine.getRateLimiter(TARGET).getRate());
+        assertFailure(RateLimitExceededException.class,
+                engine.executeHttpRequest(TARGET, Methods.GET, request -> {}, mock(HttpResponseHandler.class)));
+        then(delegate).shouldHaveNoInteractions();
+    }
+
+    private static CompletionStage<Void> respond(
+            final HttpResponseHandler handler,
+            final int status) {
+        final HttpResponse response = mock(HttpResponse.class);
+        given(response.getStatusCode()).willReturn(status);
+        return respond(handler, response);
+    }
+
+    private static CompletionStage<Void> respond(
+            final HttpResponseHandler handler,
+            final HttpResponse response) {
+        handler.handle(response);
+        return CompletableFuture.completedFuture(null);
+    }
+
+    private static void assertFailure(
+            final Class<? extends Throwable> expected,
+            final CompletionStage<Void> result) {
+        final ExecutionException error = assertThrows(ExecutionException.class,
+                () -> result.toCompletableFuture().get(WAIT_SECONDS, TimeUnit.SECONDS));
+        assertInstanceOf(expected, error.getCause());
+    }
+}
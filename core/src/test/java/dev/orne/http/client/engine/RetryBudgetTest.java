@@ -0,0 +1,106 @@
+package dev.orne.http.client.engine;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@code RetryBudget}.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see RetryBudget
+ */
+@Tag("ut")
+class RetryBudgetTest {
+
+    /**
+     * Test for {@link RetryBudget#RetryBudget(double, int)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testConstructor()
+    throws Throwable {
+        assertThrows(IllegalArgumentException.class, () -> new RetryBudget(-0.1, 10));
+        assertThrows(IllegalArgumentException.class, () -> new RetryBudget(1.1, 10));
+        assertThrows(IllegalArgumentException.class, () -> new RetryBudget(0.1, -1));
+        final RetryBudget budget = new RetryBudget();
+        assertEquals(RetryBudget.DEFAULT_RATIO, budget.getRatio());
+        assertEquals(RetryBudget.DEFAULT_MAX_BALANCE, budget.getMaxBalance());
+        assertEquals(RetryBudget.DEFAULT_MAX_BALANCE, budget.getBalance());
+    }
+
+    /**
+     * Test for {@link RetryBudget#tryRetry()}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testTryRetry()
+    throws Throwable {
+        final RetryBudget budget = new RetryBudget(0.5, 2);
+        assertTrue(budget.tryRetry());
+        assertTrue(budget.tryRetry());
+        assertFalse(budget.tryRetry());
+        assertEquals(0, budget.getBalance());
+    }
+
+    /**
+     * Test for {@link RetryBudget#onRequest()}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testOnRequest()
+    throws Throwable {
+        final RetryBudget budget = new RetryBudget(0.25, 2);
+        budget.onRequest();
+        assertEquals(2, budget.getBalance());
+        assertTrue(budget.tryRetry());
+        assertTrue(budget.tryRetry());
+        for (int i = 0; i < 3; i++) {
+            budget.onRequest();
+            assertFalse(budget.tryRetry());
+        }
+        budget.onRequest();
+        assertEquals(1, budget.getBalance());
+        assertTrue(budget.tryRetry());
+        assertFalse(budget.tryRetry());
+    }
+
+    /**
+     * Test for {@link RetryBudget} with zero ratio.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testZeroRatio()
+    throws Throwable {
+        final RetryBudget budget = new RetryBudget(0, 0);
+        for (int i = 0; i < 10; i++) {
+            budget.onRequest();
+        }
+        assertFalse(budget.tryRetry());
+    }
+}
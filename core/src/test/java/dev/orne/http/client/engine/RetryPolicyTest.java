@@ -0,0 +1,145 @@
+package dev.orne.http.client.engine;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import dev.orne.http.Headers;
+import dev.orne.http.StatusCodes;
+
+/**
+ * Unit tests for {@code RetryPolicy}.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see RetryPolicy
+ */
+@Tag("ut")
+class RetryPolicyTest {
+
+    /**
+     * Test for {@link RetryPolicy#RetryPolicy()}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testDefaults()
+    throws Throwable {
+        final RetryPolicy policy = new RetryPolicy();
+        assertEquals(3, policy.getMaxRetries());
+        assertEquals(Duration.ofMillis(100), policy.getBaseDelay());
+        assertEquals(Duration.ofSeconds(10), policy.getMaxDelay());
+        assertEquals(
+                new HashSet<>(Arrays.asList(429, 502, 503, 504)),
+                policy.getRetryableStatusCodes());
+        assertEquals(Headers.Request.NonStandard.IDEMPOTENCY_KEY, policy.getIdempotencyHeader());
+        assertTrue(policy.isRetryableStatusCode(StatusCodes.SERVICE_UNAVAILABLE));
+        assertFalse(policy.isRetryableStatusCode(StatusCodes.INTERNAL_SERVER_ERROR));
+    }
+
+    /**
+     * Test for {@link RetryPolicy#RetryPolicy(RetryPolicy)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testCopy()
+    throws Throwable {
+        assertThrows(NullPointerException.class, () -> new RetryPolicy(null));
+        final RetryPolicy policy = new RetryPolicy();
+        policy.setMaxRetries(5);
+        policy.setBaseDelay(Duration.ofMillis(50));
+        policy.setMaxDelay(Duration.ofSeconds(2));
+        policy.setRetryableStatusCodes(Collections.singleton(StatusCodes.SERVICE_UNAVAILABLE));
+        policy.setIdempotencyHeader(null);
+        final RetryPolicy copy = new RetryPolicy(policy);
+        assertEquals(policy, copy);
+        assertEquals(policy.hashCode(), copy.hashCode());
+        assertEquals(policy.toString(), copy.toString());
+        copy.setMaxRetries(1);
+        assertNotEquals(policy, copy);
+        assertNotEquals(policy, null);
+        assertNotEquals(policy, new Object());
+    }
+
+    /**
+     * Test for {@link RetryPolicy} setters validation.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testValidation()
+    throws Throwable {
+        final RetryPolicy policy = new RetryPolicy();
+        assertThrows(IllegalArgumentException.class, () -> policy.setMaxRetries(-1));
+        assertThrows(NullPointerException.class, () -> policy.setBaseDelay(null));
+        assertThrows(IllegalArgumentException.class, () -> policy.setBaseDelay(Duration.ofMillis(-1)));
+        assertThrows(NullPointerException.class, () -> policy.setMaxDelay(null));
+        assertThrows(IllegalArgumentException.class, () -> policy.setMaxDelay(Duration.ofMillis(-1)));
+        assertThrows(NullPointerException.class, () -> policy.setRetryableStatusCodes(null));
+        assertThrows(IllegalArgumentException.class, () -> policy.setRetryableStatusCodes(
+                new HashSet<>(Arrays.asList(503, null))));
+        policy.setMaxRetries(0);
+        assertEquals(0, policy.getMaxRetries());
+        policy.setRetryableStatusCodes(Collections.emptySet());
+        assertFalse(policy.isRetryableStatusCode(StatusCodes.SERVICE_UNAVAILABLE));
+    }
+
+    /**
+     * Test for {@link RetryPolicy#getBackoffDelay(int)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testGetBackoffDelay()
+    throws Throwable {
+        final RetryPolicy policy = new RetryPolicy();
+        policy.setBaseDelay(Duration.ofMillis(100));
+        policy.setMaxDelay(Duration.ofMillis(350));
+        assertThrows(IllegalArgumentException.class, () -> policy.getBackoffDelay(0));
+        for (int i = 0; i < 100; i++) {
+            assertBetween(Duration.ZERO, Duration.ofMillis(100), policy.getBackoffDelay(1));
+            assertBetween(Duration.ZERO, Duration.ofMillis(200), policy.getBackoffDelay(2));
+            assertBetween(Duration.ZERO, Duration.ofMillis(350), policy.getBackoffDelay(3));
+            assertBetween(Duration.ZERO, Duration.ofMillis(350), policy.getBackoffDelay(Integer.MAX_VALUE));
+        }
+        policy.setBaseDelay(Duration.ZERO);
+        assertEquals(Duration.ZERO, policy.getBackoffDelay(5));
+        policy.setBaseDelay(Duration.ofSeconds(Long.MAX_VALUE));
+        policy.setMaxDelay(Duration.ofSeconds(Long.MAX_VALUE));
+        assertFalse(policy.getBackoffDelay(100).isNegative());
+    }
+
+    private static void assertBetween(
+            final Duration min,
+            final Duration max,
+            final Duration value) {
+        assertTrue(value.compareTo(min) >= 0, () -> value + " < " + min);
+        assertTrue(value.compareTo(max) <= 0, () -> value + " > " + max);
+    }
+}
@@ -0,0 +1,611 @@
+package dev.orne.http.client.engine;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.BDDMockito.*;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ConnectException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import dev.orne.http.ContentType;
+import dev.orne.http.Headers;
+import dev.orne.http.Methods;
+import dev.orne.http.StatusCodes;
+import dev.orne.http.client.HttpClientException;
+import dev.orne.http.client.cookie.CookieStore;
+
+/**
+ * Unit tests for {@code RetryingHttpClientEngine}.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see RetryingHttpClientEngine
+ */
+@Tag("ut")
+class RetryingHttpClientEngineTest {
+
+    private static final URI TARGET = URI.create("http://example.org/path");
+    private static final ContentType CONTENT_TYPE = ContentType.of("application/octet-stream");
+
+    /**
+     * Test for {@link RetryingHttpClientEngine#RetryingHttpClientEngine(HttpClientEngine, RetryPolicy, RetryBudget, HashedWheelTimer, Executor)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testConstructor()
+    throws Throwable {
+        final HttpClientEngine delegate = mock(HttpClientEngine.class);
+        final RetryPolicy policy = new RetryPolicy();
+        final RetryBudget budget = new RetryBudget();
+        final HashedWheelTimer timer = HashedWheelTimer.shared();
+        assertThrows(NullPointerException.class, () -> new RetryingHttpClientEngine(null));
+        assertThrows(NullPointerException.class, () -> new RetryingHttpClientEngine(delegate, null));
+        assertThrows(NullPointerException.class, () -> new RetryingHttpClientEngine(delegate, policy, null));
+        assertThrows(NullPointerException.class, () -> new RetryingHttpClientEngine(delegate, policy, budget, null));
+        assertThrows(NullPointerException.class, () -> new RetryingHttpClientEngine(delegate, policy, budget, timer, null));
+        final RetryingHttpClientEngine engine = new RetryingHttpClientEngine(delegate, policy, budget, timer);
+        assertSame(delegate, engine.getDelegate());
+        assertEquals(policy, engine.getPolicy());
+        assertNotSame(policy, engine.getPolicy());
+        assertSame(budget, engine.getBudget());
+        assertEquals(0, engine.getRetryCount());
+    }
+
+    /**
+     * Test for {@link RetryingHttpClientEngine#getCookieStore()},
+     * {@link RetryingHttpClientEngine#shutdown(Duration)} and
+     * {@link RetryingHttpClientEngine#close()}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testDelegation()
+    throws Throwable {
+        final HttpClientEngine delegate = mock(HttpClientEngine.class);
+        final CookieStore cookieStore = mock(CookieStore.class);
+        final Duration timeout = Duration.ofSeconds(1);
+        given(delegate.getCookieStore()).willReturn(cookieStore);
+        given(delegate.shutdown(timeout)).willReturn(2);
+        final RetryingHttpClientEngine engine = new RetryingHttpClientEngine(delegate);
+        assertSame(cookieStore, engine.getCookieStore());
+        assertEquals(2, engine.shutdown(timeout));
+        engine.close();
+        then(delegate).should().close();
+    }
+
+    /**
+     * Test for {@link RetryingHttpClientEngine#executeHttpRequest(URI, String, HttpRequestCustomizer, HttpResponseHandler)}
+     * with retries disabled.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecute_RetriesDisabled()
+    throws Throwable {
+        final HttpClientEngine delegate = mock(HttpClientEngine.class);
+        final HttpRequestCustomizer customizer = mock(HttpRequestCustomizer.class);
+        final HttpResponseHandler handler = mock(HttpResponseHandler.class);
+        final CompletionStage<Void> future = CompletableFuture.completedFuture(null);
+        given(delegate.executeHttpRequest(TARGET, Methods.GET, customizer, handler)).willReturn(future);
+        final RetryPolicy policy = new RetryPolicy();
+        policy.setMaxRetries(0);
+        final RetryingHttpClientEngine engine = new RetryingHttpClientEngine(delegate, policy);
+        assertSame(future, engine.executeHttpRequest(TARGET, Methods.GET, customizer, handler));
+        policy.setMaxRetries(1);
+        policy.setIdempotencyHeader(null);
+        final RetryingHttpClientEngine postEngine = new RetryingHttpClientEngine(delegate, policy);
+        given(delegate.executeHttpRequest(TARGET, Methods.POST, customizer, handler)).willReturn(future);
+        assertSame(future, postEngine.executeHttpRequest(TARGET, Methods.POST, customizer, handler));
+    }
+
+    /**
+     * Test for {@link RetryingHttpClientEngine#executeHttpRequest(URI, String, HttpRequestCustomizer, HttpResponseHandler)}
+     * with retryable response status codes.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecute_RetryableStatus()
+    throws Throwable {
+        final ScriptedEngine delegate = new ScriptedEngine(
+                response(StatusCodes.SERVICE_UNAVAILABLE, null),
+                response(StatusCodes.BAD_GATEWAY, null),
+                response(StatusCodes.OK, null));
+        final RetryingHttpClientEngine engine = new RetryingHttpClientEngine(delegate, fastPolicy());
+        final AtomicInteger customizations = new AtomicInteger();
+        final HttpResponseHandler handler = mock(HttpResponseHandler.class);
+        engine.executeHttpRequest(TARGET, Methods.GET, request -> {
+            customizations.incrementAndGet();
+            request.addHeader("X-Test", "value");
+            request.setResponseTimeout(Duration.ofSeconds(5));
+        }, handler).toCompletableFuture().get(5, TimeUnit.SECONDS);
+        assertEquals(3, delegate.requests.size());
+        assertEquals(1, customizations.get());
+        for (final HttpRequest request : delegate.requests) {
+            then(request).should().addHeader("X-Test", "value");
+            then(request).should().setResponseTimeout(Duration.ofSeconds(5));
+        }
+        final ArgumentCaptor<HttpResponse> captor = ArgumentCaptor.forClass(HttpResponse.class);
+        then(handler).should().handle(captor.capture());
+        assertEquals(StatusCodes.OK, captor.getValue().getStatusCode());
+        assertEquals(2, engine.getRetryCount());
+    }
+
+    /**
+     * Test for {@link RetryingHttpClientEngine#executeHttpRequest(URI, String, HttpRequestCustomizer, HttpResponseHandler)}
+     * with transport failures.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecute_TransportFailure()
+    throws Throwable {
+        final ScriptedEngine delegate = new ScriptedEngine(
+                new ConnectException("Connection refused"),
+                response(StatusCodes.OK, null));
+        final RetryingHttpClientEngine engine = new RetryingHttpClientEngine(delegate, fastPolicy());
+        final HttpResponseHandler handler = mock(HttpResponseHandler.class);
+        engine.executeHttpRequest(TARGET, Methods.GET, request -> {}, handler)
+                .toCompletableFuture().get(5, TimeUnit.SECONDS);
+        assertEquals(2, delegate.requests.size());
+        then(handler).should().handle(any());
+        assertEquals(1, engine.getRetryCount());
+    }
+
+    /**
+     * Test for {@link RetryingHttpClientEngine#executeHttpRequest(URI, String, HttpRequestCustomizer, HttpResponseHandler)}
+     * starting the retries in the configured executor.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecute_RetryExecutor()
+    throws Throwable {
+        final ScriptedEngine delegate = new ScriptedEngine(
+                new ConnectException("Connection refused"),
+                response(StatusCodes.OK, null));
+        final AtomicInteger executions = new AtomicInteger();
+        final Executor executor = task -> {
+            executions.incrementAndGet();
+            ForkJoinPool.commonPool().execute(task);
+        };
+        final RetryingHttpClientEngine engine = new RetryingHttpClientEngine(
+                delegate, fastPolicy(), new RetryBudget(), HashedWheelTimer.shared(), executor);
+        final HttpResponseHandler handler = mock(HttpResponseHandler.class);
+        engine.executeHttpRequest(TARGET, Methods.GET, request -> {}, handler)
+                .toCompletableFuture().get(5, TimeUnit.SECONDS);
+        assertEquals(2, delegate.requests.size());
+        assertEquals(1, executions.get());
+        then(handler).should().handle(any());
+    }
+
+    /**
+     * Test for {@link RetryingHttpClientEngine#executeHttpRequest(URI, String, HttpRequestCustomizer, HttpResponseHandler)}
+     * with retries rejected by the configured executor.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecute_RetryRejected()
+    throws Throwable {
+        final ScriptedEngine delegate = new ScriptedEngine(
+                new ConnectException("Connection refused"),
+                response(StatusCodes.OK, null));
+        final Executor executor = task -> {
+            throw new RejectedExecutionException();
+        };
+        final RetryingHttpClientEngine engine = new RetryingHttpClientEngine(
+                delegate, fastPolicy(), new RetryBudget(), HashedWheelTimer.shared(), executor);
+        final HttpResponseHandler handler = mock(HttpResponseHandler.class);
+        final CompletableFuture<Void> result = engine.executeHttpRequest(
+                TARGET, Methods.GET, request -> {}, handler)
+                .toCompletableFuture();
+        final ExecutionException thrown = assertThrows(ExecutionException.class,
+                () -> result.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(RejectedExecutionException.class, thrown.getCause());
+        assertEquals(1, delegate.requests.size());
+        then(handler).shouldHaveNoInteractions();
+    }
+
+    /**
+     * Test for {@link RetryingHttpClientEngine#executeHttpRequest(URI, String, HttpRequestCustomizer, HttpResponseHandler)}
+     * with not retryable failures.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecute_NotRetryableFailure()
+    throws Throwable {
+        final HttpClientException failure = new HttpClientException("Mock error");
+        final ScriptedEngine delegate = new ScriptedEngine(
+                failure,
+                response(StatusCodes.OK, null));
+        final RetryingHttpClientEngine engine = new RetryingHttpClientEngine(delegate, fastPolicy());
+        final ExecutionException result = assertThrows(ExecutionException.class, () ->
+                engine.executeHttpRequest(TARGET, Methods.GET, request -> {}, mock(HttpResponseHandler.class))
+                        .toCompletableFuture().get(5, TimeUnit.SECONDS));
+        assertSame(failure, result.getCause());
+        assertEquals(1, delegate.requests.size());
+    }
+
+    /**
+     * Test for {@link RetryingHttpClientEngine#executeHttpRequest(URI, String, HttpRequestCustomizer, HttpResponseHandler)}
+     * with response handler failures.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecute_HandlerFailure()
+    throws Throwable {
+        final ScriptedEngine delegate = new ScriptedEngine(
+                response(StatusCodes.OK, null),
+                response(StatusCodes.OK, null));
+        final RetryingHttpClientEngine engine = new RetryingHttpClientEngine(delegate, fastPolicy());
+        final UncheckedIOException failure = new UncheckedIOException(new IOException("Mock error"));
+        final ExecutionException result = assertThrows(ExecutionException.class, () ->
+                engine.executeHttpRequest(TARGET, Methods.GET, request -> {}, response -> {
+                    throw failure;
+                }).toCompletableFuture().get(5, TimeUnit.SECONDS));
+        assertSame(failure, result.getCause());
+        assertEquals(1, delegate.requests.size());
+    }
+
+    /**
+     * Test for {@link RetryingHttpClientEngine#executeHttpRequest(URI, String, HttpRequestCustomizer, HttpResponseHandler)}
+     * with non idempotent requests.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecute_NotIdempotent()
+    throws Throwable {
+        final ScriptedEngine delegate = new ScriptedEngine(
+                response(StatusCodes.SERVICE_UNAVAILABLE, null),
+                response(StatusCodes.OK, null));
+        final RetryingHttpClientEngine engine = new RetryingHttpClientEngine(delegate, fastPolicy());
+        final HttpResponseHandler handler = mock(HttpResponseHandler.class);
+        engine.executeHttpRequest(TARGET, Methods.POST, request -> {}, handler)
+                .toCompletableFuture().get(5, TimeUnit.SECONDS);
+        assertEquals(1, delegate.requests.size());
+        final ArgumentCaptor<HttpResponse> captor = ArgumentCaptor.forClass(HttpResponse.class);
+        then(handler).should().handle(captor.capture());
+        assertEquals(StatusCodes.SERVICE_UNAVAILABLE, captor.getValue().getStatusCode());
+        assertEquals(0, engine.getRetryCount());
+    }
+
+    /**
+     * Test for {@link RetryingHttpClientEngine#executeHttpRequest(URI, String, HttpRequestCustomizer, HttpResponseHandler)}
+     * with non idempotent requests with idempotency header.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecute_IdempotencyHeader()
+    throws Throwable {
+        final ScriptedEngine delegate = new ScriptedEngine(
+                new ConnectException("Connection refused"),
+                response(StatusCodes.OK, null));
+        final RetryingHttpClientEngine engine = new RetryingHttpClientEngine(delegate, fastPolicy());
+        engine.executeHttpRequest(TARGET, Methods.POST, request -> {
+            request.addHeader("idempotency-key", "key");
+        }, mock(HttpResponseHandler.class)).toCompletableFuture().get(5, TimeUnit.SECONDS);
+        assertEquals(2, delegate.requests.size());
+        then(delegate.requests.get(1)).should().addHeader("idempotency-key", "key");
+    }
+
+    /**
+     * Test for {@link RetryingHttpClientEngine#executeHttpRequest(URI, String, HttpRequestCustomizer, HttpResponseHandler)}
+     * with more failures than the maximum number of retries.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecute_MaxRetries()
+    throws Throwable {
+        final ScriptedEngine delegate = new ScriptedEngine(
+                response(StatusCodes.SERVICE_UNAVAILABLE, null),
+                response(StatusCodes.SERVICE_UNAVAILABLE, null),
+                response(StatusCodes.SERVICE_UNAVAILABLE, null),
+                response(StatusCodes.GATEWAY_TIMEOUT, null),
+                response(StatusCodes.OK, null));
+        final RetryingHttpClientEngine engine = new RetryingHttpClientEngine(delegate, fastPolicy());
+        final HttpResponseHandler handler = mock(HttpResponseHandler.class);
+        engine.executeHttpRequest(TARGET, Methods.GET, request -> {}, handler)
+                .toCompletableFuture().get(5, TimeUnit.SECONDS);
+        assertEquals(4, delegate.requests.size());
+        final ArgumentCaptor<HttpResponse> captor = ArgumentCaptor.forClass(HttpResponse.class);
+        then(handler).should().handle(captor.capture());
+        assertEquals(StatusCodes.GATEWAY_TIMEOUT, captor.getValue().getStatusCode());
+        assertEquals(3, engine.getRetryCount());
+    }
+
+    /**
+     * Test for {@link RetryingHttpClientEngine#executeHttpRequest(URI, String, HttpRequestCustomizer, HttpResponseHandler)}
+     * with exhausted retry budget.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecute_RetryBudget()
+    throws Throwable {
+        final IOException failure = new ConnectException("Connection refused");
+        final ScriptedEngine delegate = new ScriptedEngine(
+                failure,
+                response(StatusCodes.OK, null),
+                failure,
+                response(StatusCodes.OK, null));
+        final RetryBudget budget = new RetryBudget(0, 1);
+        final RetryingHttpClientEngine engine = new RetryingHttpClientEngine(delegate, fastPolicy(), budget);
+        engine.executeHttpRequest(TARGET, Methods.GET, request -> {}, mock(HttpResponseHandler.class))
+                .toCompletableFuture().get(5, TimeUnit.SECONDS);
+        final ExecutionException result = assertThrows(ExecutionException.class, () ->
+                engine.executeHttpRequest(TARGET, Methods.GET, request -> {}, mock(HttpResponseHandler.class))
+                        .toCompletableFuture().get(5, TimeUnit.SECONDS));
+        assertSame(failure, result.getCause());
+        assertEquals(3, delegate.requests.size());
+        assertEquals(1, engine.getRetryCount());
+    }
+
+    /**
+     * Test for {@link RetryingHttpClientEngine#executeHttpRequest(URI, String, HttpRequestCustomizer, HttpResponseHandler)}
+     * with {@code Retry-After} response header.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecute_RetryAfter()
+    throws Throwable {
+        final ScriptedEngine delegate = new ScriptedEngine(
+                response(StatusCodes.TOO_MANY_REQUESTS, "0"),
+                response(StatusCodes.TOO_MANY_REQUESTS, "60"),
+                response(StatusCodes.OK, null));
+        final RetryingHttpClientEngine engine = new RetryingHttpClientEngine(delegate, fastPolicy());
+        final HttpResponseHandler handler = mock(HttpResponseHandler.class);
+        engine.executeHttpRequest(TARGET, Methods.GET, request -> {}, handler)
+                .toCompletableFuture().get(5, TimeUnit.SECONDS);
+        assertEquals(2, delegate.requests.size());
+        final ArgumentCaptor<HttpResponse> captor = ArgumentCaptor.forClass(HttpResponse.class);
+        then(handler).should().handle(captor.capture());
+        assertEquals(StatusCodes.TOO_MANY_REQUESTS, captor.getValue().getStatusCode());
+    }
+
+    /**
+     * Test for {@link RetryingHttpClientEngine#executeHttpRequest(URI, String, HttpRequestCustomizer, HttpResponseHandler)}
+     * with streamed request bodies.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecute_BufferedBody()
+    throws Throwable {
+        final ScriptedEngine delegate = new ScriptedEngine(
+                new ConnectException("Connection refused"),
+                response(StatusCodes.OK, null));
+        final RetryingHttpClientEngine engine = new RetryingHttpClientEngine(delegate, fastPolicy());
+        final AtomicInteger writes = new AtomicInteger();
+        final byte[] body = "Request body".getBytes(StandardCharsets.UTF_8);
+        engine.executeHttpRequest(TARGET, Methods.PUT, request -> {
+            request.setBody(CONTENT_TYPE, output -> {
+                writes.incrementAndGet();
+                output.write(body);
+            });
+        }, mock(HttpResponseHandler.class)).toCompletableFuture().get(5, TimeUnit.SECONDS);
+        assertEquals(1, writes.get());
+        assertEquals(2, delegate.requests.size());
+        for (final HttpRequest request : delegate.requests) {
+            then(request).should().setBody(CONTENT_TYPE, body);
+            then(request).should(never()).setBody(any(), anyLong(), any());
+        }
+    }
+
+    /**
+     * Test for {@link RetryingHttpClientEngine#executeHttpRequest(URI, String, HttpRequestCustomizer, HttpResponseHandler)}
+     * with streamed request bodies of non idempotent requests.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecute_StreamedBody()
+    throws Throwable {
+        final IOException failure = new ConnectException("Connection refused");
+        final ScriptedEngine delegate = new ScriptedEngine(
+                failure,
+                response(StatusCodes.OK, null));
+        final RetryingHttpClientEngine engine = new RetryingHttpClientEngine(delegate, fastPolicy());
+        final HttpRequest.BodyProducer producer = output -> output.write(1);
+        final ExecutionException result = assertThrows(ExecutionException.class, () ->
+                engine.executeHttpRequest(TARGET, Methods.POST, request -> {
+                    request.setBody(CONTENT_TYPE, 1, producer);
+                    request.addHeader(Headers.Request.NonStandard.IDEMPOTENCY_KEY, "key");
+                }, mock(HttpResponseHandler.class)).toCompletableFuture().get(5, TimeUnit.SECONDS));
+        assertSame(failure, result.getCause());
+        assertEquals(1, delegate.requests.size());
+        then(delegate.requests.get(0)).should().setBody(CONTENT_TYPE, 1, producer);
+    }
+
+    /**
+     * Test for {@link RetryingHttpClientEngine#executeHttpRequest(URI, String, HttpRequestCustomizer, HttpResponseHandler)}
+     * with request deadline.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecute_Deadline()
+    throws Throwable {
+        final IOException failure = new ConnectException("Connection refused");
+        final ScriptedEngine delegate = new ScriptedEngine(
+                failure,
+                response(StatusCodes.OK, null));
+        final RetryPolicy policy = fastPolicy();
+        policy.setBaseDelay(Duration.ofSeconds(10));
+        policy.setMaxDelay(Duration.ofSeconds(10));
+        final RetryingHttpClientEngine engine = new RetryingHttpClientEngine(delegate, policy);
+        final ExecutionException result = assertThrows(ExecutionException.class, () ->
+                engine.executeHttpRequest(TARGET, Methods.GET, request -> {
+                    request.setTimeout(Duration.ZERO);
+                }, mock(HttpResponseHandler.class)).toCompletableFuture().get(5, TimeUnit.SECONDS));
+        assertSame(failure, result.getCause());
+        assertEquals(1, delegate.requests.size());
+        then(delegate.requests.get(0)).should().setTimeout(Duration.ZERO);
+    }
+
+    /**
+     * Test for {@link RetryingHttpClientEngine#executeHttpRequest(URI, String, HttpRequestCustomizer, HttpResponseHandler)}
+     * cancellation.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecute_Cancel()
+    throws Throwable {
+        final HttpClientEngine delegate = mock(HttpClientEngine.class);
+        final CompletableFuture<Void> attempt = new CompletableFuture<>();
+        given(delegate.executeHttpRequest(any(), any(), any(), any())).willReturn(attempt);
+        final RetryingHttpClientEngine engine = new RetryingHttpClientEngine(delegate, fastPolicy());
+        final CompletableFuture<Void> result = engine.executeHttpRequest(
+                TARGET, Methods.GET, request -> {}, mock(HttpResponseHandler.class))
+                .toCompletableFuture();
+        assertFalse(result.isDone());
+        result.cancel(true);
+        assertTrue(attempt.isCancelled());
+        then(delegate).should(times(1)).executeHttpRequest(any(), any(), any(), any());
+    }
+
+    /**
+     * Test for {@link RetryingHttpClientEngine#parseRetryAfter(String, Instant)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testParseRetryAfter()
+    throws Throwable {
+        final Instant now = Instant.parse("2023-10-01T10:00:00Z");
+        assertEquals(Duration.ofSeconds(120), RetryingHttpClientEngine.parseRetryAfter(" 120 ", now));
+        assertEquals(Duration.ZERO, RetryingHttpClientEngine.parseRetryAfter("0", now));
+        assertEquals(Duration.ofSeconds(30), RetryingHttpClientEngine.parseRetryAfter(
+                DateTimeFormatter.RFC_1123_DATE_TIME.format(now.plusSeconds(30).atZone(ZoneOffset.UTC)),
+                now));
+        assertEquals(Duration.ZERO, RetryingHttpClientEngine.parseRetryAfter(
+                "Sun, 01 Oct 2023 09:00:00 GMT",
+                now));
+        assertNull(RetryingHttpClientEngine.parseRetryAfter("", now));
+        assertNull(RetryingHttpClientEngine.parseRetryAfter("-1", now));
+        assertNull(RetryingHttpClientEngine.parseRetryAfter("soon", now));
+        assertNull(RetryingHttpClientEngine.parseRetryAfter("99999999999999999999", now));
+    }
+
+    /**
+     * Test for {@link RetryingHttpClientEngine#isRetryableFailure(Throwable)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testIsRetryableFailure()
+    throws Throwable {
+        final RetryingHttpClientEngine engine = new RetryingHttpClientEngine(mock(HttpClientEngine.class));
+        assertTrue(engine.isRetryableFailure(new IOException()));
+        assertTrue(engine.isRetryableFailure(new CompletionException(new IOException())));
+        assertTrue(engine.isRetryableFailure(new ExecutionException(new IOException())));
+        assertFalse(engine.isRetryableFailure(new HttpClientException()));
+        assertFalse(engine.isRetryableFailure(new UncheckedIOException(new IOException())));
+        assertFalse(engine.isRetryableFailure(new CompletionException(null)));
+    }
+
+    private static RetryPolicy fastPolicy() {
+        final RetryPolicy policy = new RetryPolicy();
+        policy.setBaseDelay(Duration.ZERO);
+        policy.setMaxDelay(Duration.ofSeconds(1));
+        return policy;
+    }
+
+    private static HttpResponse response(
+            final int status,
+            final String retryAfter)
+    throws HttpClientException {
+        final HttpResponse response = mock(HttpResponse.class);
+        given(response.getStatusCode()).willReturn(status);
+        given(response.getFirstHeaderValue(Headers.Response.RETRY_AFTER)).willReturn(retryAfter);
+        return response;
+    }
+
+    /**
+     * HTTP client engine that completes the requests with the scripted
+     * responses and failures.
+     */
+    private static class ScriptedEngine
+    implements HttpClientEngine {
+
+        private final Deque<Object> outcomes = new ConcurrentLinkedDeque<>();
+        private final List<HttpRequest> requests = new CopyOnWriteArrayList<>();
+
+        ScriptedEngine(
+                final Object... outcomes) {
+            super();
+            for (final Object outcome : outcomes) {
+                this.outcomes.add(outcome);
+            }
+        }
+
+        @Override
+        public CookieStore getCookieStore() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public CompletionStage<Void> executeHttpRequest(
+                final URI uri,
+                final String method,
+                final HttpRequestCustomizer requestCustomizer,
+                final HttpResponseHandler responseHandler)
+        throws HttpClientException {
+            final HttpRequest request = mock(HttpRequest.class);
+            this.requests.add(request);
+            final CompletableFuture<Void> result = new CompletableFuture<>();
+            try {
+                requestCustomizer.customizeRequest(request);
+                final Object outcome = this.outcomes.poll();
+                if (outcome instanceof Throwable) {
+                    result.completeExceptionally((Throwable) outcome);
+                } else {
+                    responseHandler.handle((HttpResponse) outcome);
+                    result.complete(null);
+                }
+            } catch (final Exception e) {
+                result.completeExceptionally(e);
+            }
+            return result;
+        }
+
+        @Override
+        public void close() {
+            // NOP
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package dev.orne.http.client.engine;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.BDDMockito.*;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import dev.orne.http.Methods;
+import dev.orne.http.client.cookie.CookieStore;
+
+/**
+ * Unit tests for {@code SharedHttpClientEngine}.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see SharedHttpClientEngine
+ */
+@Tag("ut")
+class SharedHttpClientEngineTest {
+
+    /**
+     * Test for {@link SharedHttpClientEngine#getCookieStore()} and
+     * {@link SharedHttpClientEngine#executeHttpRequest(URI, String, HttpRequestCustomizer, HttpResponseHandler)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testDelegation()
+    throws Throwable {
+        final HttpClientEngineRegistry registry = new HttpClientEngineRegistry();
+        final HttpClientEngine engine = mock(HttpClientEngine.class);
+        final CookieStore cookieStore = mock(CookieStore.class);
+        final URI uri = URI.create("http://example.org/path");
+        final HttpRequestCustomizer customizer = mock(HttpRequestCustomizer.class);
+        final HttpResponseHandler handler = mock(HttpResponseHandler.class);
+        final CompletionStage<Void> future = CompletableFuture.completedFuture(null);
+        given(engine.getCookieStore()).willReturn(cookieStore);
+        given(engine.executeHttpRequest(uri, Methods.GET, customizer, handler)).willReturn(future);
+        try (final SharedHttpClientEngine lease = registry.acquire("key", () -> engine)) {
+            assertFalse(lease.isClosed());
+            assertSame(cookieStore, lease.getCookieStore());
+            assertSame(future, lease.executeHttpRequest(uri, Methods.GET, customizer, handler));
+        }
+        then(engine).should().executeHttpRequest(uri, Methods.GET, customizer, handler);
+    }
+
+    /**
+     * Test for {@link SharedHttpClientEngine#close()}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testClose()
+    throws Throwable {
+        final HttpClientEngineRegistry registry = new HttpClientEngineRegistry();
+        final HttpClientEngine engine = mock(HttpClientEngine.class);
+        final SharedHttpClientEngine lease = registry.acquire("key", () -> engine);
+        final SharedHttpClientEngine other = registry.acquire("key", () -> engine);
+        lease.close();
+        assertTrue(lease.isClosed());
+        assertFalse(other.isClosed());
+        assertThrows(IllegalStateException.class, () -> lease.executeHttpRequest(
+                URI.create("http://example.org/path"),
+                Methods.GET,
+                mock(HttpRequestCustomizer.class),
+                mock(HttpResponseHandler.class)));
+        then(engine).should(never()).executeHttpRequest(any(), any(), any(), any());
+        then(engine).should(never()).close();
+        other.close();
+        then(engine).should().close();
+    }
+
+    /**
+     * Test for {@link SharedHttpClientEngine#shutdown(Duration)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testShutdown()
+    throws Throwable {
+        final HttpClientEngineRegistry registry = new HttpClientEngineRegistry();
+        final HttpClientEngine engine = mock(HttpClientEngine.class);
+        final Duration timeout = Duration.ofSeconds(1);
+        given(engine.shutdown(timeout)).willReturn(3);
+        final SharedHttpClientEngine lease = registry.acquire("key", () -> engine);
+        final SharedHttpClientEngine other = registry.acquire("key", () -> engine);
+        assertThrows(NullPointerException.class, () -> lease.shutdown(null));
+        assertEquals(0, lease.shutdown(timeout));
+        assertTrue(lease.isClosed());
+        assertEquals(0, lease.shutdown(timeout));
+        then(engine).should(never()).shutdown(any());
+        assertEquals(3, other.shutdown(timeout));
+        then(engine).should().shutdown(timeout);
+        then(engine).should(never()).close();
+        assertEquals(0, registry.getReferenceCount("key"));
+    }
+}
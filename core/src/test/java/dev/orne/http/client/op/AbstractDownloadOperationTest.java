@@ -0,0 +1,625 @@
+package dev.orne.http.client.op;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.BDDMockito.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.RandomUtils;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import dev.orne.http.ContentType;
+import dev.orne.http.Headers;
+import dev.orne.http.Methods;
+import dev.orne.http.StatusCodes;
+import dev.orne.http.client.cookie.CookieStore;
+import dev.orne.http.client.HttpResponseHandlingException;
+import dev.orne.http.client.HttpResponseStatusException;
+import dev.orne.http.client.HttpServiceClient;
+import dev.orne.http.client.engine.HttpClientEngine;
+import dev.orne.http.client.engine.HttpRequest;
+import dev.orne.http.client.engine.HttpRequestCustomizer;
+import dev.orne.http.client.engine.HttpResponse;
+import dev.orne.http.client.engine.HttpResponseBody;
+import dev.orne.http.client.engine.HttpResponseHandler;
+
+/**
+ * Unit tests for {@code AbstractDownloadOperation}.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see AbstractDownloadOperation
+ */
+@Tag("ut")
+class AbstractDownloadOperationTest {
+
+    private static final URI BASE_URI = URI.create("http://localhost/");
+    private static final URI RESOURCE_URI = URI.create("http://localhost/file");
+    private static final String ETAG = "\"v1\"";
+
+    /**
+     * Test for {@link AbstractDownloadOperation#execute(Object, HttpServiceClient)}
+     * with segmented download.
+     * @param tempDir The temporary directory
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecute_Segmented(
+            final @TempDir Path tempDir)
+    throws Throwable {
+        final RangeServer server = new RangeServer(RandomUtils.nextBytes(10000));
+        final Path target = tempDir.resolve("file.bin");
+        final TestOperation operation = new TestOperation();
+        final DownloadResult result = operation.execute(target, client(server))
+                .toCompletableFuture()
+                .get(5, TimeUnit.SECONDS);
+        assertEquals(new DownloadResult(target, 10000, ETAG, 4, 0), result);
+        assertArrayEquals(server.content, Files.readAllBytes(target));
+        assertFalse(Files.exists(operation.getStateFile(target)));
+        assertEquals(5, server.requests.size());
+        final RecordedRequest probe = server.requests.get(0);
+        assertEquals(Methods.HEAD, probe.method);
+        assertEquals(RESOURCE_URI, probe.uri);
+        assertEquals("test", probe.headers.get("X-Test"));
+        final List<String> ranges = new ArrayList<>();
+        for (final RecordedRequest request : server.requests.subList(1, 5)) {
+            assertEquals(Methods.GET, request.method);
+            assertEquals("test", request.headers.get("X-Test"));
+            assertEquals(ETAG, request.headers.get(Headers.Request.IF_RANGE));
+            ranges.add(request.headers.get(Headers.Request.RANGE));
+        }
+        Collections.sort(ranges);
+        assertEquals(
+                Arrays.asList("bytes=0-2499", "bytes=2500-4999", "bytes=5000-7499", "bytes=7500-9999"),
+                ranges);
+    }
+
+    /**
+     * Test for {@link AbstractDownloadOperation#execute(Object, HttpServiceClient)}
+     * with small resources.
+     * @param tempDir The temporary directory
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecute_SingleSegment(
+            final @TempDir Path tempDir)
+    throws Throwable {
+        final RangeServer server = new RangeServer(RandomUtils.nextBytes(1500));
+        final Path target = tempDir.resolve("file.bin");
+        Files.write(target, RandomUtils.nextBytes(5000));
+        final DownloadResult result = new TestOperation().execute(target, client(server))
+                .toCompletableFuture()
+                .get(5, TimeUnit.SECONDS);
+        assertEquals(new DownloadResult(target, 1500, ETAG, 1, 0), result);
+        assertArrayEquals(server.content, Files.readAllBytes(target));
+        assertEquals(2, server.requests.size());
+        assertEquals("bytes=0-1499", server.requests.get(1).headers.get(Headers.Request.RANGE));
+    }
+
+    /**
+     * Test for {@link AbstractDownloadOperation#execute(Object, HttpServiceClient)}
+     * without range support.
+     * @param tempDir The temporary directory
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecute_NoRanges(
+            final @TempDir Path tempDir)
+    throws Throwable {
+        final RangeServer server = new RangeServer(RandomUtils.nextBytes(10000));
+        server.acceptRanges = false;
+        final Path target = tempDir.resolve("file.bin");
+        final DownloadResult result = new TestOperation().execute(target, client(server))
+                .toCompletableFuture()
+                .get(5, TimeUnit.SECONDS);
+        assertEquals(new DownloadResult(target, 10000, ETAG, 1, 0), result);
+        assertArrayEquals(server.content, Files.readAllBytes(target));
+        assertEquals(2, server.requests.size());
+        assertEquals(Methods.GET, server.requests.get(1).method);
+        assertNull(server.requests.get(1).headers.get(Headers.Request.RANGE));
+    }
+
+    /**
+     * Test for {@link AbstractDownloadOperation#execute(Object, HttpServiceClient)}
+     * with probe request not supported.
+     * @param tempDir The temporary directory
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecute_ProbeRejected(
+            final @TempDir Path tempDir)
+    throws Throwable {
+        final RangeServer server = new RangeServer(RandomUtils.nextBytes(10000));
+        server.headStatus = StatusCodes.METHOD_NOT_ALLOWED;
+        final Path target = tempDir.resolve("file.bin");
+        final DownloadResult result = new TestOperation().execute(target, client(server))
+                .toCompletableFuture()
+                .get(5, TimeUnit.SECONDS);
+        assertEquals(1, result.getSegments());
+        assertArrayEquals(server.content, Files.readAllBytes(target));
+        assertEquals(2, server.requests.size());
+    }
+
+    /**
+     * Test for {@link AbstractDownloadOperation#execute(Object, HttpServiceClient)}
+     * resuming an interrupted download.
+     * @param tempDir The temporary directory
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecute_Resume(
+            final @TempDir Path tempDir)
+    throws Throwable {
+        final RangeServer server = new RangeServer(RandomUtils.nextBytes(10000));
+        server.truncateFrom = 5000;
+        final Path target = tempDir.resolve("file.bin");
+        final TestOperation operation = new TestOperation();
+        final HttpServiceClient client = client(server);
+        final ExecutionException error = assertThrows(ExecutionException.class,
+                () -> operation.execute(target, client).toCompletableFuture().get(5, TimeUnit.SECONDS));
+        assertInstanceOf(HttpResponseHandlingException.class, error.getCause());
+        final Path stateFile = operation.getStateFile(target);
+        assertTrue(Files.exists(stateFile));
+        final DownloadState state = DownloadState.load(stateFile);
+        assertNotNull(state);
+        assertEquals(5000 + 1250 + 1250, state.getDone());
+        server.truncateFrom = Long.MAX_VALUE;
+        server.requests.clear();
+        final DownloadResult result = operation.execute(target, client)
+                .toCompletableFuture()
+                .get(5, TimeUnit.SECONDS);
+        assertEquals(new DownloadResult(target, 10000, ETAG, 4, 7500), result);
+        assertArrayEquals(server.content, Files.readAllBytes(target));
+        assertFalse(Files.exists(stateFile));
+        assertEquals(3, server.requests.size());
+        final List<String> ranges = new ArrayList<>();
+        for (final RecordedRequest request : server.requests.subList(1, 3)) {
+            ranges.add(request.headers.get(Headers.Request.RANGE));
+        }
+        Collections.sort(ranges);
+        assertEquals(Arrays.asList("bytes=6250-7499", "bytes=8750-9999"), ranges);
+    }
+
+    /**
+     * Test for {@link AbstractDownloadOperation#execute(Object, HttpServiceClient)}
+     * ignoring download states of changed resources.
+     * @param tempDir The temporary directory
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecute_ResumeChanged(
+            final @TempDir Path tempDir)
+    throws Throwable {
+        final RangeServer server = new RangeServer(RandomUtils.nextBytes(10000));
+        server.truncateFrom = 5000;
+        final Path target = tempDir.resolve("file.bin");
+        final TestOperation operation = new TestOperation();
+        final HttpServiceClient client = client(server);
+        assertThrows(ExecutionException.class,
+                () -> operation.execute(target, client).toCompletableFuture().get(5, TimeUnit.SECONDS));
+        server.truncateFrom = Long.MAX_VALUE;
+        server.content = RandomUtils.nextBytes(10000);
+        server.etag = "\"v2\"";
+        server.requests.clear();
+        final DownloadResult result = operation.execute(target, client)
+                .toCompletableFuture()
+                .get(5, TimeUnit.SECONDS);
+        assertEquals(new DownloadResult(target, 10000, "\"v2\"", 4, 0), result);
+        assertArrayEquals(server.content, Files.readAllBytes(target));
+        assertEquals(5, server.requests.size());
+    }
+
+    /**
+     * Test for {@link AbstractDownloadOperation#execute(Object, HttpServiceClient)}
+     * with resource changed during the download.
+     * @param tempDir The temporary directory
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecute_Changed(
+            final @TempDir Path tempDir)
+    throws Throwable {
+        final RangeServer server = new RangeServer(RandomUtils.nextBytes(10000));
+        server.getEtag = "\"v2\"";
+        final Path target = tempDir.resolve("file.bin");
+        final TestOperation operation = new TestOperation();
+        final ExecutionException error = assertThrows(ExecutionException.class,
+                () -> operation.execute(target, client(server)).toCompletableFuture().get(5, TimeUnit.SECONDS));
+        assertInstanceOf(HttpResponseHandlingException.class, error.getCause());
+        assertFalse(Files.exists(operation.getStateFile(target)));
+    }
+
+    /**
+     * Test for {@link AbstractDownloadOperation#execute(Object, HttpServiceClient)}
+     * with error responses to range requests.
+     * @param tempDir The temporary directory
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecute_StatusError(
+            final @TempDir Path tempDir)
+    throws Throwable {
+        final RangeServer server = new RangeServer(RandomUtils.nextBytes(10000));
+        server.failFrom = 7500;
+        final Path target = tempDir.resolve("file.bin");
+        final TestOperation operation = new TestOperation();
+        final ExecutionException error = assertThrows(ExecutionException.class,
+                () -> operation.execute(target, client(server)).toCompletableFuture().get(5, TimeUnit.SECONDS));
+        final HttpResponseStatusException statusError = assertInstanceOf(
+                HttpResponseStatusException.class, error.getCause());
+        assertEquals(StatusCodes.INTERNAL_SERVER_ERROR, statusError.getStatusCode());
+        final DownloadState state = DownloadState.load(operation.getStateFile(target));
+        assertNotNull(state);
+        assertEquals(7500, state.getDone());
+    }
+
+    /**
+     * Test for {@link AbstractDownloadOperation#execute(Object, HttpServiceClient)}
+     * without resource validator.
+     * @param tempDir The temporary directory
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecute_NoValidator(
+            final @TempDir Path tempDir)
+    throws Throwable {
+        final RangeServer server = new RangeServer(RandomUtils.nextBytes(10000));
+        server.etag = null;
+        server.failFrom = 7500;
+        final Path target = tempDir.resolve("file.bin");
+        final TestOperation operation = new TestOperation();
+        assertThrows(ExecutionException.class,
+                () -> operation.execute(target, client(server)).toCompletableFuture().get(5, TimeUnit.SECONDS));
+        assertFalse(Files.exists(operation.getStateFile(target)));
+        assertNull(server.requests.get(1).headers.get(Headers.Request.IF_RANGE));
+    }
+
+    /**
+     * Test for {@link AbstractDownloadOperation#getSegmentCount(long)}.
+     */
+    @Test
+    void testGetSegmentCount() {
+        final TestOperation operation = new TestOperation();
+        assertEquals(1, operation.getSegmentCount(1));
+        assertEquals(1, operation.getSegmentCount(1999));
+        assertEquals(2, operation.getSegmentCount(2000));
+        assertEquals(4, operation.getSegmentCount(4000));
+        assertEquals(4, operation.getSegmentCount(Long.MAX_VALUE));
+    }
+
+    /**
+     * Test for {@link AbstractDownloadOperation#getValidator(HttpResponse)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testGetValidator()
+    throws Throwable {
+        final HttpResponse response = mock(HttpResponse.class);
+        willCallRealMethod().given(response).getFirstHeaderValue(any());
+        given(response.getHeader(any())).willReturn(new String[0]);
+        assertNull(AbstractDownloadOperation.getValidator(response));
+        given(response.getHeader(Headers.Response.LAST_MODIFIED)).willReturn(
+                new String[] { "Wed, 21 Oct 2015 07:28:00 GMT" });
+        assertEquals("Wed, 21 Oct 2015 07:28:00 GMT", AbstractDownloadOperation.getValidator(response));
+        given(response.getHeader(Headers.Response.ETAG)).willReturn(new String[] { "W/\"weak\"" });
+        assertEquals("Wed, 21 Oct 2015 07:28:00 GMT", AbstractDownloadOperation.getValidator(response));
+        given(response.getHeader(Headers.Response.ETAG)).willReturn(new String[] { ETAG });
+        assertEquals(ETAG, AbstractDownloadOperation.getValidator(response));
+    }
+
+    /**
+     * Test for {@link AbstractDownloadOperation#acceptsByteRanges(HttpResponse)}
+     * and {@link AbstractDownloadOperation#getContentLength(HttpResponse)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testProbeHeaders()
+    throws Throwable {
+        final HttpResponse response = mock(HttpResponse.class);
+        willCallRealMethod().given(response).getFirstHeaderValue(any());
+        given(response.getHeader(any())).willReturn(new String[0]);
+        assertFalse(AbstractDownloadOperation.acceptsByteRanges(response));
+        assertEquals(-1, AbstractDownloadOperation.getContentLength(response));
+        given(response.getHeader(Headers.Response.ACCEPT_RANGES)).willReturn(new String[] { "none" });
+        assertFalse(AbstractDownloadOperation.acceptsByteRanges(response));
+        given(response.getHeader(Headers.Response.ACCEPT_RANGES)).willReturn(new String[] { "other, Bytes" });
+        assertTrue(AbstractDownloadOperation.acceptsByteRanges(response));
+        given(response.getHeader(Headers.Response.CONTENT_LENGTH)).willReturn(new String[] { "invalid" });
+        assertEquals(-1, AbstractDownloadOperation.getContentLength(response));
+        given(response.getHeader(Headers.Response.CONTENT_LENGTH)).willReturn(new String[] { "-5" });
+        assertEquals(-1, AbstractDownloadOperation.getContentLength(response));
+        given(response.getHeader(Headers.Response.CONTENT_LENGTH)).willReturn(new String[] { " 1234 " });
+        assertEquals(1234, AbstractDownloadOperation.getContentLength(response));
+    }
+
+    private static HttpServiceClient client(
+            final HttpClientEngine engine) {
+        final HttpServiceClient client = mock(HttpServiceClient.class);
+        given(client.getBaseURI()).willReturn(BASE_URI);
+        given(client.getEngine()).willReturn(engine);
+        return client;
+    }
+
+    /**
+     * Download operation for tests.
+     */
+    private static class TestOperation
+    extends AbstractDownloadOperation<Path> {
+
+        @Override
+        protected URI getRequestURI(
+                final Path params) {
+            return URI.create("file");
+        }
+
+        @Override
+        protected void prepareRequest(
+                final Path params,
+                final HttpRequest request)
+        throws dev.orne.http.client.HttpClientException {
+            request.addHeader("X-Test", "test");
+        }
+
+        @Override
+        protected Path getTargetFile(
+                final Path params) {
+            return params;
+        }
+
+        @Override
+        protected long getMinSegmentSize() {
+            return 1000;
+        }
+    }
+
+    /**
+     * HTTP request recorded by the range server.
+     */
+    private static class RecordedRequest
+    implements HttpRequest {
+
+        private final URI uri;
+        private final String method;
+        private final Map<String, String> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+
+        RecordedRequest(
+                final URI uri,
+                final String method) {
+            super();
+            this.uri = uri;
+            this.method = method;
+        }
+
+        @Override
+        public void addHeader(
+                final String header,
+                final String... values) {
+            this.headers.put(header, String.join(",", values));
+        }
+
+        @Override
+        public void setBody(
+                final ContentType contentType,
+                final String body) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void setBody(
+                final ContentType contentType,
+                final byte[] body) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void setBody(
+                final ContentType contentType,
+                final long length,
+                final BodyProducer bodyProducer) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void setConnectTimeout(
+                final Duration timeout) {
+            // Ignored
+        }
+
+        @Override
+        public void setResponseTimeout(
+                final Duration timeout) {
+            // Ignored
+        }
+
+        @Override
+        public void setTimeout(
+                final Duration timeout) {
+            // Ignored
+        }
+    }
+
+    /**
+     * In memory HTTP response.
+     */
+    private static class TestResponse
+    implements HttpResponse {
+
+        private final int status;
+        private final Map<String, String> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        private final byte[] body;
+
+        TestResponse(
+                final int status,
+                final byte[] body) {
+            super();
+            this.status = status;
+            this.body = body;
+        }
+
+        @Override
+        public int getStatusCode() {
+            return this.status;
+        }
+
+        @Override
+        public String getStatusReason() {
+            return "Test";
+        }
+
+        @Override
+        public String[] getHeader(
+                final String header) {
+            final String value = this.headers.get(header);
+            return value == null ? new String[0] : new String[] { value };
+        }
+
+        @Override
+        public HttpResponseBody getBody() {
+            if (this.body == null) {
+                return null;
+            }
+            return new HttpResponseBody() {
+                private final InputStream content = new ByteArrayInputStream(TestResponse.this.body);
+                @Override
+                public ContentType getContentType() {
+                    return null;
+                }
+                @Override
+                public long getContentLength() {
+                    return TestResponse.this.body.length;
+                }
+                @Override
+                public InputStream getContent() {
+                    return this.content;
+                }
+            };
+        }
+    }
+
+    /**
+     * In memory HTTP engine serving a resource with byte range support.
+     */
+    private static class RangeServer
+    implements HttpClientEngine {
+
+        private final List<RecordedRequest> requests = new CopyOnWriteArrayList<>();
+        private byte[] content;
+        private String etag = ETAG;
+        private String getEtag;
+        private boolean acceptRanges = true;
+        private int headStatus = StatusCodes.OK;
+        private long truncateFrom = Long.MAX_VALUE;
+        private long failFrom = Long.MAX_VALUE;
+
+        RangeServer(
+                final byte[] content) {
+            super();
+            this.content = content;
+        }
+
+        @Override
+        public CookieStore getCookieStore() {
+            return mock(CookieStore.class);
+        }
+
+        @Override
+        public CompletionStage<Void> executeHttpRequest(
+                final URI uri,
+                final String method,
+                final HttpRequestCustomizer requestCustomizer,
+                final HttpResponseHandler responseHandler)
+        throws dev.orne.http.client.HttpClientException {
+            final RecordedRequest request = new RecordedRequest(uri, method);
+            requestCustomizer.customizeRequest(request);
+            this.requests.add(request);
+            final TestResponse response = respond(request);
+            return CompletableFuture.runAsync(() -> responseHandler.handle(response));
+        }
+
+        private TestResponse respond(
+                final RecordedRequest request) {
+            final TestResponse response;
+            if (Methods.HEAD.equals(request.method)) {
+                response = new TestResponse(this.headStatus, null);
+                response.headers.put(Headers.Response.CONTENT_LENGTH, String.valueOf(this.content.length));
+            } else {
+                final String currentEtag = this.getEtag == null ? this.etag : this.getEtag;
+                final String range = request.headers.get(Headers.Request.RANGE);
+                final String ifRange = request.headers.get(Headers.Request.IF_RANGE);
+                if (range != null && this.acceptRanges && (ifRange == null || ifRange.equals(currentEtag))) {
+                    final String[] bounds = range.substring("bytes=".length()).split("-");
+                    final int start = Integer.parseInt(bounds[0]);
+                    final int end = Integer.parseInt(bounds[1]);
+                    if (start >= this.failFrom) {
+                        return new TestResponse(StatusCodes.INTERNAL_SERVER_ERROR, new byte[0]);
+                    }
+                    int bodyEnd = end + 1;
+                    if (start >= this.truncateFrom) {
+                        bodyEnd = start + (end + 1 - start) / 2;
+                    }
+                    response = new TestResponse(
+                            StatusCodes.PARTIAL_CONTENT,
+                            Arrays.copyOfRange(this.content, start, bodyEnd));
+                    response.headers.put(Headers.Response.CONTENT_RANGE,
+                            "bytes " + start + "-" + end + "/" + this.content.length);
+                } else {
+                    response = new TestResponse(StatusCodes.OK, this.content);
+                    response.headers.put(Headers.Response.CONTENT_LENGTH, String.valueOf(this.content.length));
+                }
+            }
+            if (this.acceptRanges) {
+                response.headers.put(Headers.Response.ACCEPT_RANGES, "bytes");
+            }
+            if (this.etag != null) {
+                response.headers.put(Headers.Response.ETAG, this.etag);
+            }
+            return response;
+        }
+
+        @Override
+        public void close() {
+            // Nothing to close
+        }
+    }
+}
@@ -323,6 +323,38 @@ extends AbstractHttpServiceOperationTest {
         then(handler).shouldHaveNoMoreInteractions();
     }
 
+    /**
+     * Test for {@link AbstractStatusDependentOperation#execute(Object, Object, StatedHttpServiceClient)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecute_cancelled()
+    throws Throwable {
+        final AbstractStatusDependentOperation<Object, Object, Object, Object> operation = createOperation();
+        final Object params = new Object();
+        final Object status = new Object();
+        final StatedHttpServiceClient<Object> client = createMockClient();
+        final HttpClientEngine engine = mock(HttpClientEngine.class);
+        given(client.getEngine()).willReturn(engine);
+        final URI operationURI = URI.create("/mockURI");
+        given(operation.getRequestURI(params, status)).willReturn(operationURI);
+        final URI requestURI = URI.create("http://example.org/mockURI");
+        willReturn(requestURI).given(operation).resolveRequestURI(operationURI, client);
+        final String operationMethod = "Mock method";
+        given(operation.getRequestMethod()).willReturn(operationMethod);
+        @SuppressWarnings("unchecked")
+        final OperationResponseHandler<Object> handler = mock(OperationResponseHandler.class);
+        given(operation.createResponseHandler(params, status)).willReturn(handler);
+        final CompletableFuture<Void> engineFuture = new CompletableFuture<>();
+        given(engine.executeHttpRequest(eq(requestURI), eq(operationMethod), any(), any())).willReturn(engineFuture);
+        
+        final CompletableFuture<Object> futureResult = operation.execute(params, status, client).toCompletableFuture();
+        assertFalse(engineFuture.isDone());
+        assertTrue(futureResult.cancel(true));
+        assertTrue(engineFuture.isCancelled());
+        then(handler).shouldHaveNoInteractions();
+    }
+
     /**
      * Test for {@link AbstractStatusDependentOperation#execute(Object, Object, StatedHttpServiceClient)}.
      * @throws Throwable Should not happen
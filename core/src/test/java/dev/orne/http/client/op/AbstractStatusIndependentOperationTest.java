@@ -310,6 +310,37 @@ extends AbstractHttpServiceOperationTest {
         then(handler).shouldHaveNoMoreInteractions();
     }
 
+    /**
+     * Test for {@link AbstractStatusIndependentOperation#execute(Object, HttpServiceClient)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecute_cancelled()
+    throws Throwable {
+        final AbstractStatusIndependentOperation<Object, Object, Object> operation = createOperation();
+        final Object params = new Object();
+        final HttpServiceClient client = createMockClient();
+        final HttpClientEngine engine = mock(HttpClientEngine.class);
+        given(client.getEngine()).willReturn(engine);
+        final URI operationURI = URI.create("/mockURI");
+        given(operation.getRequestURI(params)).willReturn(operationURI);
+        final URI requestURI = URI.create("http://example.org/mockURI");
+        willReturn(requestURI).given(operation).resolveRequestURI(operationURI, client);
+        final String operationMethod = "Mock method";
+        given(operation.getRequestMethod()).willReturn(operationMethod);
+        @SuppressWarnings("unchecked")
+        final OperationResponseHandler<Object> handler = mock(OperationResponseHandler.class);
+        given(operation.createResponseHandler(params)).willReturn(handler);
+        final CompletableFuture<Void> engineFuture = new CompletableFuture<>();
+        given(engine.executeHttpRequest(eq(requestURI), eq(operationMethod), any(), any())).willReturn(engineFuture);
+        
+        final CompletableFuture<Object> futureResult = operation.execute(params, client).toCompletableFuture();
+        assertFalse(engineFuture.isDone());
+        assertTrue(futureResult.cancel(true));
+        assertTrue(engineFuture.isCancelled());
+        then(handler).shouldHaveNoInteractions();
+    }
+
     /**
      * Test for {@link AbstractStatusIndependentOperation#execute(Object, HttpServiceClient)}.
      * @throws Throwable Should not happen
@@ -0,0 +1,95 @@
+package dev.orne.http.client.op;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@code DownloadResult}.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see DownloadResult
+ */
+@Tag("ut")
+class DownloadResultTest {
+
+    private static final Path FILE = Paths.get("target", "file.bin");
+
+    /**
+     * Test for {@link DownloadResult#DownloadResult(Path, long, String, int, long)}.
+     */
+    @Test
+    void testConstructor() {
+        final DownloadResult result = new DownloadResult(FILE, 100, "\"v1\"", 4, 30);
+        assertSame(FILE, result.getFile());
+        assertEquals(100, result.getLength());
+        assertEquals("\"v1\"", result.getValidator());
+        assertEquals(4, result.getSegments());
+        assertEquals(30, result.getResumedBytes());
+        assertNull(new DownloadResult(FILE, 0, null, 1, 0).getValidator());
+    }
+
+    /**
+     * Test for {@link DownloadResult#DownloadResult(Path, long, String, int, long)}
+     * with invalid arguments.
+     */
+    @Test
+    void testConstructor_Invalid() {
+        assertThrows(NullPointerException.class, () -> new DownloadResult(null, 100, null, 1, 0));
+        assertThrows(IllegalArgumentException.class, () -> new DownloadResult(FILE, -1, null, 1, 0));
+        assertThrows(IllegalArgumentException.class, () -> new DownloadResult(FILE, 100, null, 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> new DownloadResult(FILE, 100, null, 1, -1));
+        assertThrows(IllegalArgumentException.class, () -> new DownloadResult(FILE, 100, null, 1, 101));
+    }
+
+    /**
+     * Test for {@link DownloadResult#equals(Object)},
+     * {@link DownloadResult#hashCode()} and
+     * {@link DownloadResult#toString()}.
+     */
+    @Test
+    void testEqualsHashCodeToString() {
+        final DownloadResult result = new DownloadResult(FILE, 100, "\"v1\"", 4, 30);
+        final DownloadResult other = new DownloadResult(FILE, 100, "\"v1\"", 4, 30);
+        assertEquals(result, result);
+        assertEquals(result, other);
+        assertEquals(result.hashCode(), other.hashCode());
+        assertEquals(result.toString(), other.toString());
+        assertNotEquals(result, null);
+        assertNotEquals(result, new Object());
+        assertNotEquals(result, new DownloadResult(Paths.get("other"), 100, "\"v1\"", 4, 30));
+        assertNotEquals(result, new DownloadResult(FILE, 101, "\"v1\"", 4, 30));
+        assertNotEquals(result, new DownloadResult(FILE, 100, "\"v2\"", 4, 30));
+        assertNotEquals(result, new DownloadResult(FILE, 100, null, 4, 30));
+        assertNotEquals(result, new DownloadResult(FILE, 100, "\"v1\"", 3, 30));
+        assertNotEquals(result, new DownloadResult(FILE, 100, "\"v1\"", 4, 31));
+    }
+}
@@ -0,0 +1,206 @@
+package dev.orne.http.client.op;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Unit tests for {@code DownloadState}.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see DownloadState
+ */
+@Tag("ut")
+class DownloadStateTest {
+
+    /**
+     * Test for {@link DownloadState#plan(String, long, int)}.
+     */
+    @Test
+    void testPlan() {
+        final DownloadState state = DownloadState.plan("\"v1\"", 10, 3);
+        assertEquals("\"v1\"", state.getValidator());
+        assertEquals(10, state.getLength());
+        assertEquals(0, state.getDone());
+        final DownloadState.Segment[] segments = state.getSegments();
+        assertEquals(3, segments.length);
+        assertSegment(segments[0], 0, 4, 0);
+        assertSegment(segments[1], 4, 3, 0);
+        assertSegment(segments[2], 7, 3, 0);
+        assertEquals(3, segments[0].getEnd());
+        assertEquals(6, segments[1].getEnd());
+        assertEquals(9, segments[2].getEnd());
+    }
+
+    /**
+     * Test for {@link DownloadState#plan(String, long, int)} with
+     * invalid arguments.
+     */
+    @Test
+    void testPlan_Invalid() {
+        assertThrows(IllegalArgumentException.class, () -> DownloadState.plan(null, 0, 1));
+        assertThrows(IllegalArgumentException.class, () -> DownloadState.plan(null, 10, 0));
+        assertThrows(IllegalArgumentException.class, () -> DownloadState.plan(null, 10, 11));
+    }
+
+    /**
+     * Test for {@link DownloadState.Segment#advance(long)}.
+     */
+    @Test
+    void testAdvance() {
+        final DownloadState state = DownloadState.plan(null, 10, 2);
+        final DownloadState.Segment segment = state.getSegments()[1];
+        segment.advance(2);
+        assertSegment(segment, 5, 5, 2);
+        assertEquals(7, segment.getPosition());
+        assertEquals(3, segment.getRemaining());
+        assertEquals(2, state.getDone());
+    }
+
+    /**
+     * Test for {@link DownloadState#matches(String, long)}.
+     */
+    @Test
+    void testMatches() {
+        final DownloadState state = DownloadState.plan("\"v1\"", 10, 2);
+        assertTrue(state.matches("\"v1\"", 10));
+        assertFalse(state.matches("\"v2\"", 10));
+        assertFalse(state.matches("\"v1\"", 11));
+        assertFalse(state.matches(null, 10));
+        assertFalse(DownloadState.plan(null, 10, 2).matches(null, 10));
+    }
+
+    /**
+     * Test for {@link DownloadState#store(Path)} and
+     * {@link DownloadState#load(Path)}.
+     * @param tempDir The temporary directory
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testStoreLoad(
+            final @TempDir Path tempDir)
+    throws Throwable {
+        final Path file = tempDir.resolve("state");
+        final DownloadState state = DownloadState.plan("\"v1\"", 10, 3);
+        state.getSegments()[0].advance(4);
+        state.getSegments()[2].advance(1);
+        state.store(file);
+        assertFalse(Files.exists(tempDir.resolve("state.tmp")));
+        final DownloadState result = DownloadState.load(file);
+        assertNotNull(result);
+        assertEquals("\"v1\"", result.getValidator());
+        assertEquals(10, result.getLength());
+        assertEquals(5, result.getDone());
+        final DownloadState.Segment[] segments = result.getSegments();
+        assertEquals(3, segments.length);
+        assertSegment(segments[0], 0, 4, 4);
+        assertSegment(segments[1], 4, 3, 0);
+        assertSegment(segments[2], 7, 3, 1);
+    }
+
+    /**
+     * Test for {@link DownloadState#store(Path)} without validator.
+     * @param tempDir The temporary directory
+     */
+    @Test
+    void testStore_NoValidator(
+            final @TempDir Path tempDir) {
+        final Path file = tempDir.resolve("state");
+        final DownloadState state = DownloadState.plan(null, 10, 3);
+        assertThrows(IllegalStateException.class, () -> state.store(file));
+        assertFalse(Files.exists(file));
+    }
+
+    /**
+     * Test for {@link DownloadState#load(Path)} with missing and
+     * invalid files.
+     * @param tempDir The temporary directory
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testLoad_Invalid(
+            final @TempDir Path tempDir)
+    throws Throwable {
+        final Path file = tempDir.resolve("state");
+        assertNull(DownloadState.load(file));
+        write(file, "length=10\nsegments=1\nsegment.0.start=0\nsegment.0.length=10\nsegment.0.done=0\n");
+        assertNull(DownloadState.load(file));
+        write(file, "validator=v\nlength=a\nsegments=1\n");
+        assertNull(DownloadState.load(file));
+        write(file, "validator=v\nlength=10\nsegments=1\nsegment.0.start=0\nsegment.0.length=10\nsegment.0.done=11\n");
+        assertNull(DownloadState.load(file));
+        write(file, "validator=v\nlength=10\nsegments=1\nsegment.0.start=1\nsegment.0.length=9\nsegment.0.done=0\n");
+        assertNull(DownloadState.load(file));
+        write(file, "validator=v\nlength=10\nsegments=1\nsegment.0.start=0\nsegment.0.length=9\nsegment.0.done=0\n");
+        assertNull(DownloadState.load(file));
+        write(file, "validator=v\nlength=10\nsegments=2\nsegment.0.start=0\nsegment.0.length=10\nsegment.0.done=0\n");
+        assertNull(DownloadState.load(file));
+        write(file, "validator=v\nlength=10\nsegments=1\nsegment.0.start=0\nsegment.0.length=10\nsegment.0.done=3\n");
+        final DownloadState state = DownloadState.load(file);
+        assertNotNull(state);
+        assertEquals(3, state.getDone());
+    }
+
+    /**
+     * Test for {@link DownloadState#delete(Path)}.
+     * @param tempDir The temporary directory
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testDelete(
+            final @TempDir Path tempDir)
+    throws Throwable {
+        final Path file = tempDir.resolve("state");
+        DownloadState.plan("\"v1\"", 10, 3).store(file);
+        DownloadState.delete(file);
+        assertFalse(Files.exists(file));
+        assertDoesNotThrow(() -> DownloadState.delete(file));
+    }
+
+    private static void assertSegment(
+            final DownloadState.Segment segment,
+            final long start,
+            final long length,
+            final long done) {
+        assertEquals(start, segment.getStart());
+        assertEquals(length, segment.getLength());
+        assertEquals(done, segment.getDone());
+    }
+
+    private static void write(
+            final Path file,
+            final String content)
+    throws Exception {
+        Files.write(file, content.getBytes(StandardCharsets.ISO_8859_1));
+    }
+}
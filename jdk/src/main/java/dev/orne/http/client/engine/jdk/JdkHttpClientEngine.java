@@ -0,0 +1,95 @@
+package dev.orne.http.client.engine.jdk;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.concurrent.CompletionStage;
+
+import javax.validation.constraints.NotNull;
+
+import dev.orne.http.client.HttpClientException;
+import dev.orne.http.client.cookie.CookieStore;
+import dev.orne.http.client.engine.HttpClientEngine;
+import dev.orne.http.client.engine.HttpRequestCustomizer;
+import dev.orne.http.client.engine.HttpResponseHandler;
+
+/**
+ * Implementation of {@code HtppClientEngine} based on
+ * JDK 11+ HTTP Client.
+ * <p>
+ * This is the Java 8 version of the class, included so the module can be
+ * compiled with Java 8 baseline. The actual implementation is packaged
+ * as a Java 11 multi-release class. Instantiation of this version
+ * always fails, so {@code HttpClientEngine.fromSpi()} skips this engine
+ * in Java 8-10 runtimes.
+ * 
+ * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ */
+public class JdkHttpClientEngine
+implements HttpClientEngine {
+
+    /**
+     * Creates a new instance.
+     * 
+     * @throws UnsupportedOperationException Always. JDK HTTP client
+     * requires Java 11 or above.
+     */
+    public JdkHttpClientEngine() {
+        super();
+        throw new UnsupportedOperationException(
+                "JDK HTTP client engine requires Java 11 or above");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull CookieStore getCookieStore() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull CompletionStage<Void> executeHttpRequest(
+            final @NotNull URI uri,
+            final @NotNull String method,
+            final @NotNull HttpRequestCustomizer requestCustomizer,
+            final @NotNull HttpResponseHandler responseHandler)
+    throws HttpClientException {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close()
+    throws IOException {
+        // Nothing to close
+    }
+}
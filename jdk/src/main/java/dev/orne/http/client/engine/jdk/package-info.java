@@ -0,0 +1,37 @@
+/**
+ * HTTP client engine implementation based on JDK 11+ HTTP Client
+ * ({@code java.net.http.HttpClient}).
+ * <p>
+ * The implementation classes are packaged as Java 11 multi-release
+ * classes. On older Java runtimes the engine cannot be instantiated
+ * and is ignored by {@code HttpClientEngine.fromSpi()}.
+ * 
+ * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
+ * @since 0.1
+ */
+@API(status = API.Status.INTERNAL, since = "0.1")
+package dev.orne.http.client.engine.jdk;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import org.apiguardian.api.API;
@@ -0,0 +1,357 @@
+package dev.orne.http.client.engine.jdk;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.CookieHandler;
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.lang3.Validate;
+
+import dev.orne.http.Methods;
+import dev.orne.http.client.FutureUtils;
+import dev.orne.http.client.HttpClientException;
+import dev.orne.http.client.engine.HttpClientEngine;
+import dev.orne.http.client.engine.HttpRequestCustomizer;
+import dev.orne.http.client.engine.HttpResponseHandler;
+import dev.orne.http.client.engine.InFlightRequests;
+
+/**
+ * Implementation of {@code HtppClientEngine} based on
+ * JDK 11+ HTTP Client ({@code java.net.http.HttpClient}).
+ * <p>
+ * Requests are sent with {@code HttpClient.sendAsync()}, so no thread is
+ * blocked waiting for the HTTP responses, and HTTP/2 connections are
+ * multiplexed when supported by the server.
+ * The {@code HttpResponseHandler} is invoked in a thread of the
+ * HTTP client's executor once the response headers are received.
+ * The response body is streamed from the connection while handled.
+ * <p>
+ * Bodies produced by {@code HttpRequest.BodyProducer} instances are
+ * buffered in memory before the request is sent.
+ * 
+ * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ */
+public class JdkHttpClientEngine
+implements HttpClientEngine {
+
+    /** The {@code HttpClient.shutdownNow()} method, available in Java 21+. */
+    private static final Method SHUTDOWN_NOW = getShutdownNowMethod();
+
+    /** The HTTP client's cookie store. */
+    private final @NotNull JdkCookieStore cookieStore;
+    /** The HTTP client. */
+    private final @NotNull HttpClient client;
+    /** The requests in flight. */
+    private final @NotNull InFlightRequests inFlightRequests = new InFlightRequests();
+
+    /**
+     * Creates a new instance with the default configuration.
+     * <p>
+     * This includes:
+     * <ul>
+     * <li>A clean {@code CookieManager}.</li>
+     * <li>HTTP/2 preferred, with HTTP/1.1 fallback.</li>
+     * <li>Redirects followed, except from HTTPS to HTTP.</li>
+     * </ul>
+     * <p>
+     * Custom configuration of {@code HttpClient} can be added
+     * overriding {@code configureClient(Builder)} method.
+     * 
+     * @see #configureClient(HttpClient.Builder)
+     */
+    public JdkHttpClientEngine() {
+        super();
+        final CookieManager cookieManager = new CookieManager();
+        this.cookieStore = new JdkCookieStore(cookieManager.getCookieStore());
+        final HttpClient.Builder builder = HttpClient.newBuilder()
+                .cookieHandler(cookieManager)
+                .version(HttpClient.Version.HTTP_2)
+                .followRedirects(HttpClient.Redirect.NORMAL);
+        configureClient(builder);
+        this.client = builder.build();
+    }
+
+    /**
+     * Creates a new instance with the specified HTTP client.
+     * <p>
+     * The HTTP client must be configured with a {@code CookieManager}
+     * as cookie handler.
+     * 
+     * @param client The HTTP client.
+     * @throws IllegalArgumentException If the HTTP client has no
+     * {@code CookieManager} as cookie handler.
+     */
+    public JdkHttpClientEngine(
+            final @NotNull HttpClient client) {
+        super();
+        this.client = Validate.notNull(client, "HTTP client is required");
+        final CookieHandler handler = client.cookieHandler().orElse(null);
+        Validate.isTrue(
+                handler instanceof CookieManager,
+                "HTTP client must use a CookieManager as cookie handler");
+        this.cookieStore = new JdkCookieStore(((CookieManager) handler).getCookieStore());
+    }
+
+    /**
+     * Configures the HTTP client builder.
+     * The implementations should override this method to configure the
+     * HTTP client if needed.
+     * 
+     * @param builder The HTTP client builder
+     */
+    protected void configureClient(
+            final @NotNull HttpClient.Builder builder) {
+        // Override if needed
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull JdkCookieStore getCookieStore() {
+        return this.cookieStore;
+    }
+
+    /**
+     * Returns the HTTP client.
+     * 
+     * @return The HTTP client.
+     */
+    protected @NotNull HttpClient getClient() {
+        return this.client;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The connect and response timeouts set in the request are combined
+     * in the timeout of the JDK HTTP request.
+     */
+    @Override
+    public @NotNull CompletionStage<Void> executeHttpRequest(
+            final @NotNull URI uri,
+            final @NotNull String method,
+            final @NotNull HttpRequestCustomizer requestCustomizer,
+            final @NotNull HttpResponseHandler responseHandler)
+    throws HttpClientException {
+        Validate.notNull(uri);
+        Validate.isTrue(uri.isAbsolute(), "The request URI must be absolute");
+        return this.inFlightRequests.execute(
+                () -> submitHttpRequest(uri, method, requestCustomizer, responseHandler));
+    }
+
+    /**
+     * Creates the HTTP request and sends it asynchronously.
+     * 
+     * @param uri The HTTP request target absolute URI.
+     * @param method The HTTP request method.
+     * @param requestCustomizer The HTTP request customizer.
+     * @param responseHandler The HTTP response handler.
+     * @return The future HTTP request result.
+     * @throws HttpClientException If an exception occurs creating the
+     * request
+     */
+    private @NotNull CompletionStage<Void> submitHttpRequest(
+            final @NotNull URI uri,
+            final @NotNull String method,
+            final @NotNull HttpRequestCustomizer requestCustomizer,
+            final @NotNull HttpResponseHandler responseHandler)
+    throws HttpClientException {
+        final JdkHttpRequest request = createRequest(method, uri);
+        requestCustomizer.customizeRequest(request);
+        final CompletableFuture<java.net.http.HttpResponse<InputStream>> exchange =
+                this.client.sendAsync(request.build(), BodyHandlers.ofInputStream());
+        final CompletableFuture<Void> handling = exchange.thenAccept(
+                response -> handleResponse(response, responseHandler));
+        final CompletableFuture<Void> result = new CompletableFuture<>();
+        handling.whenComplete((nop, error) -> {
+            if (error == null) {
+                result.complete(null);
+            } else {
+                result.completeExceptionally(error);
+            }
+        });
+        result.whenComplete((nop, error) -> {
+            if (!handling.isDone()) {
+                // Cancelled or timed out
+                abortExchange(exchange);
+            }
+        });
+        if (request.getTimeout() != null) {
+            FutureUtils.orTimeout(result, request.getTimeout());
+        }
+        return result;
+    }
+
+    /**
+     * Aborts the specified HTTP exchange, if still in progress.
+     * <p>
+     * If the response has not been received yet the exchange is cancelled.
+     * Otherwise the response body stream is closed, so any response handling
+     * in progress fails.
+     * 
+     * @param exchange The HTTP exchange.
+     */
+    protected void abortExchange(
+            final @NotNull CompletableFuture<java.net.http.HttpResponse<InputStream>> exchange) {
+        if (exchange.cancel(true) || exchange.isCompletedExceptionally()) {
+            return;
+        }
+        try {
+            exchange.join().body().close();
+        } catch (final IOException e) {
+            // Error discarding unconsumed body
+        }
+    }
+
+    /**
+     * Creates a new HTTP request to the specified path and with the specified
+     * HTTP method.
+     * <p>
+     * The request is used to collect the headers and body set by the
+     * request customizer.
+     * 
+     * @param method The HTTP method.
+     * @param path The target URI.
+     * @return The HTTP request.
+     * @throws HttpClientException If the specified method is not supported.
+     */
+    protected @NotNull JdkHttpRequest createRequest(
+            final @NotNull String method,
+            final @NotNull URI path)
+    throws HttpClientException {
+        switch (method) {
+            case Methods.GET:
+            case Methods.HEAD:
+            case Methods.POST:
+            case Methods.PUT:
+            case Methods.DELETE:
+            case Methods.OPTIONS:
+            case Methods.TRACE:
+            case Methods.PATCH:
+                return new JdkHttpRequest(method, path);
+            default:
+                throw new HttpClientException(
+                        String.format("Unsupported HTTP method: %s", method));
+        }
+    }
+
+    /**
+     * Handles the received HTTP response with the specified handler.
+     * <p>
+     * The response body stream is closed after the handler returns,
+     * discarding any content not consumed by the handler.
+     * 
+     * @param response The received HTTP response.
+     * @param responseHandler The HTTP response handler.
+     */
+    protected void handleResponse(
+            final @NotNull java.net.http.HttpResponse<InputStream> response,
+            final @NotNull HttpResponseHandler responseHandler) {
+        try (final InputStream body = response.body()) {
+            responseHandler.handle(new JdkHttpResponse(response));
+        } catch (final IOException e) {
+            // Error discarding unconsumed body. Response already handled.
+        }
+    }
+
+    /**
+     * Returns the number of requests in flight.
+     * 
+     * @return The number of requests in flight.
+     */
+    public int getInFlightCount() {
+        return this.inFlightRequests.getCount();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * In Java 21+ runtimes the HTTP client is shut down, terminating its
+     * internal executor, once the requests in flight complete or are
+     * aborted.
+     */
+    @Override
+    public int shutdown(
+            final @NotNull Duration timeout)
+    throws IOException {
+        Validate.notNull(timeout, "Timeout is required");
+        final int aborted = this.inFlightRequests.shutdown(timeout);
+        close();
+        return aborted;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * In Java 21+ runtimes the HTTP client is shut down immediately,
+     * aborting the requests in flight, instead of waiting for them with
+     * {@code HttpClient.close()}. Use {@link #shutdown(Duration)} to wait
+     * for them before closing. In previous versions the HTTP client
+     * resources are released when the client is garbage collected.
+     */
+    @Override
+    public void close()
+    throws IOException {
+        if (SHUTDOWN_NOW != null) {
+            try {
+                SHUTDOWN_NOW.invoke(this.client);
+            } catch (final InvocationTargetException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new IOException(e.getCause());
+            } catch (final IllegalAccessException e) {
+                throw new IOException(e);
+            }
+        }
+    }
+
+    /**
+     * Returns the {@code HttpClient.shutdownNow()} method, if available
+     * in the current runtime.
+     * 
+     * @return The method, or {@code null} in runtimes previous to Java 21.
+     */
+    static Method getShutdownNowMethod() {
+        try {
+            return HttpClient.class.getMethod("shutdownNow");
+        } catch (final NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
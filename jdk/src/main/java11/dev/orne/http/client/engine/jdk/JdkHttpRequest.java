@@ -0,0 +1,315 @@
+package dev.orne.http.client.engine.jdk;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpRequest.BodyPublisher;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.lang3.Validate;
+
+import dev.orne.http.ContentType;
+import dev.orne.http.Headers;
+import dev.orne.http.client.HttpClientException;
+import dev.orne.http.client.HttpRequestBodyGenerationException;
+import dev.orne.http.client.engine.FileBodyProducer;
+import dev.orne.http.client.engine.HttpRequest;
+
+/**
+ * Implementation of {@code HttpRequest} based on
+ * JDK 11+ HTTP Client.
+ * <p>
+ * Collects the headers and body of the request, building the immutable
+ * {@code java.net.http.HttpRequest} on demand.
+ * <p>
+ * The JDK HTTP client supports a single per request timeout, covering the
+ * connection and the reception of the response headers. Connect and
+ * response timeouts are combined in it.
+ * 
+ * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ */
+public class JdkHttpRequest
+implements HttpRequest {
+
+    /** The default charset for text bodies without charset. */
+    private static final Charset DEFAULT_CHARSET = StandardCharsets.UTF_8;
+
+    /** The HTTP method. */
+    private final @NotNull String method;
+    /** The JDK HTTP client request builder. */
+    private final @NotNull java.net.http.HttpRequest.Builder builder;
+    /** The HTTP request body publisher. */
+    private BodyPublisher body;
+    /** The connect timeout of the request, if any. */
+    private Duration connectTimeout;
+    /** The response timeout of the request, if any. */
+    private Duration responseTimeout;
+    /** The total timeout of the request, if any. */
+    private Duration timeout;
+
+    /**
+     * Creates a new instance.
+     * 
+     * @param method The HTTP method.
+     * @param uri The target URI.
+     */
+    public JdkHttpRequest(
+            final @NotNull String method,
+            final @NotNull URI uri) {
+        super();
+        this.method = Validate.notNull(method);
+        this.builder = java.net.http.HttpRequest.newBuilder(Validate.notNull(uri));
+    }
+
+    /**
+     * Returns the HTTP method.
+     * 
+     * @return The HTTP method.
+     */
+    public @NotNull String getMethod() {
+        return this.method;
+    }
+
+    /**
+     * Returns the JDK HTTP client request builder.
+     * 
+     * @return The JDK HTTP client request builder.
+     */
+    protected @NotNull java.net.http.HttpRequest.Builder getBuilder() {
+        return this.builder;
+    }
+
+    /**
+     * Returns the HTTP request body publisher, if any.
+     * 
+     * @return The HTTP request body publisher.
+     */
+    protected BodyPublisher getBodyPublisher() {
+        return this.body;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void addHeader(
+            final @NotNull String header,
+            final @NotNull String... values)
+    throws HttpClientException {
+        Validate.notNull(header);
+        Validate.notNull(values);
+        Validate.noNullElements(values);
+        for (final String value : values) {
+            try {
+                this.builder.header(header, value);
+            } catch (final IllegalArgumentException e) {
+                throw new HttpClientException(
+                        String.format("Unsupported HTTP request header: %s", header),
+                        e);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setBody(
+            final @NotNull ContentType contentType,
+            final @NotNull String body)
+    throws HttpClientException {
+        Validate.notNull(contentType);
+        Validate.notNull(body);
+        final Charset charset = contentType.getCharset();
+        setBodyPublisher(contentType, BodyPublishers.ofString(
+                body,
+                charset == null ? DEFAULT_CHARSET : charset));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setBody(
+            final @NotNull ContentType contentType,
+            final @NotNull byte[] body)
+    throws HttpClientException {
+        Validate.notNull(body);
+        setBodyPublisher(contentType, BodyPublishers.ofByteArray(body));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The produced body is buffered in memory, unless the producer
+     * is a {@code FileBodyProducer}. File bodies are streamed from the
+     * file with a known length.
+     */
+    @Override
+    public void setBody(
+            final @NotNull ContentType contentType,
+            final long length,
+            final @NotNull BodyProducer dataProvider)
+    throws HttpClientException {
+        Validate.notNull(dataProvider);
+        if (dataProvider instanceof FileBodyProducer) {
+            final FileBodyProducer file = (FileBodyProducer) dataProvider;
+            if (file.getLength() == 0) {
+                setBodyPublisher(contentType, BodyPublishers.noBody());
+                return;
+            }
+            setBodyPublisher(contentType, BodyPublishers.fromPublisher(
+                    BodyPublishers.ofInputStream(() -> {
+                        try {
+                            return file.openStream();
+                        } catch (final IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }),
+                    file.getLength()));
+            return;
+        }
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try {
+            dataProvider.writeBody(buffer);
+        } catch (final IOException e) {
+            throw new HttpRequestBodyGenerationException("Error generating HTTP request body", e);
+        }
+        setBodyPublisher(contentType, BodyPublishers.ofByteArray(buffer.toByteArray()));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setConnectTimeout(
+            final @NotNull Duration timeout) {
+        this.connectTimeout = validateTimeout(timeout, false);
+    }
+
+    /**
+     * Returns the connect timeout of the request, if any.
+     * 
+     * @return The connect timeout, or {@code null} to use the client's
+     * default.
+     */
+    public Duration getConnectTimeout() {
+        return this.connectTimeout;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setResponseTimeout(
+            final @NotNull Duration timeout) {
+        this.responseTimeout = validateTimeout(timeout, false);
+    }
+
+    /**
+     * Returns the response timeout of the request, if any.
+     * 
+     * @return The response timeout, or {@code null} for no response
+     * timeout.
+     */
+    public Duration getResponseTimeout() {
+        return this.responseTimeout;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setTimeout(
+            final @NotNull Duration timeout) {
+        this.timeout = validateTimeout(timeout, true);
+    }
+
+    /**
+     * Returns the total timeout of the request, if any.
+     * 
+     * @return The total timeout, or {@code null} for no total timeout.
+     */
+    public Duration getTimeout() {
+        return this.timeout;
+    }
+
+    /**
+     * Validates that the specified timeout is not {@code null} nor negative.
+     * 
+     * @param timeout The timeout to validate.
+     * @param allowZero If zero timeouts are allowed.
+     * @return The validated timeout.
+     */
+    protected static @NotNull Duration validateTimeout(
+            final @NotNull Duration timeout,
+            final boolean allowZero) {
+        Validate.notNull(timeout);
+        Validate.isTrue(!timeout.isNegative(), "Timeout cannot be negative");
+        Validate.isTrue(allowZero || !timeout.isZero(), "Timeout cannot be zero");
+        return timeout;
+    }
+
+    /**
+     * Sets the HTTP request body publisher and content type.
+     * 
+     * @param contentType The body content type.
+     * @param publisher The HTTP request body publisher.
+     */
+    protected void setBodyPublisher(
+            final @NotNull ContentType contentType,
+            final @NotNull BodyPublisher publisher) {
+        Validate.notNull(contentType);
+        this.builder.setHeader(Headers.Request.CONTENT_TYPE, contentType.getHeader());
+        this.body = Validate.notNull(publisher);
+    }
+
+    /**
+     * Builds the JDK HTTP client request.
+     * 
+     * @return The JDK HTTP client request.
+     */
+    public @NotNull java.net.http.HttpRequest build() {
+        if (this.connectTimeout != null && this.responseTimeout != null) {
+            this.builder.timeout(this.connectTimeout.plus(this.responseTimeout));
+        } else if (this.connectTimeout != null) {
+            this.builder.timeout(this.connectTimeout);
+        } else if (this.responseTimeout != null) {
+            this.builder.timeout(this.responseTimeout);
+        }
+        return this.builder.method(
+                this.method,
+                this.body == null ? BodyPublishers.noBody() : this.body)
+                .build();
+    }
+}
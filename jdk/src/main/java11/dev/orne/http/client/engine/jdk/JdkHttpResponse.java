@@ -0,0 +1,121 @@
+package dev.orne.http.client.engine.jdk;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.io.InputStream;
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.lang3.Validate;
+
+import dev.orne.http.Methods;
+import dev.orne.http.StatusCodes;
+import dev.orne.http.client.HttpClientException;
+import dev.orne.http.client.engine.HttpResponse;
+import dev.orne.http.client.engine.HttpResponseBody;
+
+/**
+ * Implementation of {@code HttpResponse} based on
+ * JDK 11+ HTTP Client.
+ * <p>
+ * JDK HTTP client does not expose the status reason phrase, so
+ * {@link #getStatusReason()} always returns {@code null}.
+ * 
+ * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ */
+public class JdkHttpResponse
+implements HttpResponse {
+
+    /** The JDK HTTP client response. */
+    private final @NotNull java.net.http.HttpResponse<InputStream> delegate;
+
+    /**
+     * Creates a new instance.
+     * 
+     * @param delegated The delegated JDK HTTP client response.
+     */
+    public JdkHttpResponse(
+            final @NotNull java.net.http.HttpResponse<InputStream> delegated) {
+        super();
+        this.delegate = Validate.notNull(delegated);
+    }
+
+    /**
+     * Returns the delegated JDK HTTP client response.
+     * 
+     * @return The JDK HTTP client response.
+     */
+    protected @NotNull java.net.http.HttpResponse<InputStream> getDelegate() {
+        return this.delegate;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getStatusCode() {
+        return this.delegate.statusCode();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getStatusReason() {
+        return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull String[] getHeader(
+            final @NotNull String header)
+    throws HttpClientException {
+        Validate.notNull(header);
+        return this.delegate.headers().allValues(header).toArray(new String[0]);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Returns {@code null} for responses that cannot contain a body:
+     * responses to {@code HEAD} requests and informational,
+     * {@code 204 No Content} and {@code 304 Not Modified} responses.
+     */
+    @Override
+    public HttpResponseBody getBody()
+    throws HttpClientException {
+        final int status = this.delegate.statusCode();
+        if (Methods.HEAD.equals(this.delegate.request().method())
+                || StatusCodes.isInformational(status)
+                || status == StatusCodes.NO_CONTENT
+                || status == StatusCodes.NOT_MODIFIED
+                || this.delegate.body() == null) {
+            return null;
+        }
+        return new JdkHttpResponseBody(this.delegate);
+    }
+}
@@ -0,0 +1,199 @@
+package dev.orne.http.client.engine.jdk;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.BDDMockito.*;
+
+import java.net.CookieStore;
+import java.net.HttpCookie;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.lang3.RandomStringUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import dev.orne.http.client.cookie.Cookie;
+import dev.orne.http.client.cookie.DefaultCookie;
+
+/**
+ * Unit tests for {@code JdkCookieStore}.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see JdkCookieStore
+ */
+@Tag("ut")
+class JdkCookieStoreTest {
+
+    private @Mock CookieStore delegate;
+    private @Captor ArgumentCaptor<HttpCookie> jdkCookieCaptor;
+    private AutoCloseable mocks;
+
+    @BeforeEach public void openMocks() {
+        this.mocks = MockitoAnnotations.openMocks(this);
+    }
+
+    @AfterEach public void releaseMocks() throws Exception {
+        this.mocks.close();
+    }
+
+    /**
+     * Test for {@link JdkCookieStore#JdkCookieStore()}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testConstructor()
+    throws Throwable {
+        final JdkCookieStore store = new JdkCookieStore();
+        assertNotNull(store.getDelegate());
+    }
+
+    /**
+     * Test for {@link JdkCookieStore#JdkCookieStore(CookieStore)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testDelegatedConstructor()
+    throws Throwable {
+        assertThrows(NullPointerException.class, () -> new JdkCookieStore(null));
+        final JdkCookieStore store = new JdkCookieStore(delegate);
+        assertSame(delegate, store.getDelegate());
+        then(delegate).shouldHaveNoInteractions();
+    }
+
+    /**
+     * Test for {@link JdkCookieStore#addCookie(Cookie)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testAddCookie()
+    throws Throwable {
+        final JdkCookieStore store = new JdkCookieStore(delegate);
+        assertThrows(NullPointerException.class, () -> store.addCookie(null));
+        final DefaultCookie cookie = randomCookie();
+        cookie.setExpiryTime(Instant.now().plus(1, ChronoUnit.HOURS));
+        store.addCookie(cookie);
+        then(delegate).should().add(isNull(), jdkCookieCaptor.capture());
+        then(delegate).shouldHaveNoMoreInteractions();
+        final HttpCookie result = jdkCookieCaptor.getValue();
+        assertEquals(cookie.getName(), result.getName());
+        assertEquals(cookie.getValue(), result.getValue());
+        assertEquals(cookie.getDomain(), result.getDomain());
+        assertEquals(cookie.getPath(), result.getPath());
+        assertEquals(cookie.isSecureOnly(), result.getSecure());
+        assertEquals(cookie.isHttpOnly(), result.isHttpOnly());
+        assertTrue(result.getMaxAge() > 3500 && result.getMaxAge() <= 3600);
+    }
+
+    /**
+     * Test for {@link JdkCookieStore#addCookie(Cookie)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testAddCookie_Session()
+    throws Throwable {
+        final JdkCookieStore store = new JdkCookieStore(delegate);
+        final DefaultCookie cookie = randomCookie();
+        store.addCookie(cookie);
+        then(delegate).should().add(isNull(), jdkCookieCaptor.capture());
+        assertEquals(-1, jdkCookieCaptor.getValue().getMaxAge());
+    }
+
+    /**
+     * Test for {@link JdkCookieStore#getCookies()}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testGetCookies()
+    throws Throwable {
+        final HttpCookie persistent = new HttpCookie("persistent", "value0");
+        persistent.setDomain("example.org");
+        persistent.setPath("/path");
+        persistent.setSecure(true);
+        persistent.setHttpOnly(true);
+        persistent.setMaxAge(3600);
+        final HttpCookie session = new HttpCookie("session", "value1");
+        given(delegate.getCookies()).willReturn(Arrays.asList(persistent, session));
+        final JdkCookieStore store = new JdkCookieStore(delegate);
+        final List<Cookie> result = store.getCookies();
+        assertEquals(2, result.size());
+        final Cookie persistentResult = result.get(0);
+        assertEquals("persistent", persistentResult.getName());
+        assertEquals("value0", persistentResult.getValue());
+        assertEquals("example.org", persistentResult.getDomain());
+        assertFalse(persistentResult.isHostOnly());
+        assertEquals("/path", persistentResult.getPath());
+        assertTrue(persistentResult.isSecureOnly());
+        assertTrue(persistentResult.isHttpOnly());
+        assertTrue(persistentResult.isPersistent());
+        final Cookie sessionResult = result.get(1);
+        assertEquals("session", sessionResult.getName());
+        assertEquals("value1", sessionResult.getValue());
+        assertNull(sessionResult.getDomain());
+        assertTrue(sessionResult.isHostOnly());
+        assertFalse(sessionResult.isSecureOnly());
+        assertFalse(sessionResult.isHttpOnly());
+        assertFalse(sessionResult.isPersistent());
+        assertSame(persistentResult.getName(), store.getCookie("persistent").getName());
+        assertNull(store.getCookie("missing"));
+    }
+
+    /**
+     * Test for {@link JdkCookieStore#addCookie(Cookie)} and
+     * {@link JdkCookieStore#getCookies()} with a real JDK cookie store.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testRoundTrip()
+    throws Throwable {
+        final JdkCookieStore store = new JdkCookieStore();
+        final DefaultCookie cookie = randomCookie();
+        store.addCookie(cookie);
+        final Cookie result = store.getCookie(cookie.getName());
+        assertNotNull(result);
+        assertEquals(cookie.getValue(), result.getValue());
+        assertEquals(cookie.getPath(), result.getPath());
+    }
+
+    private static DefaultCookie randomCookie() {
+        final DefaultCookie cookie = new DefaultCookie(
+                RandomStringUtils.randomAlphabetic(10),
+                RandomStringUtils.randomAlphanumeric(10));
+        cookie.setDomain("example.org");
+        cookie.setPath("/" + RandomStringUtils.randomAlphabetic(5));
+        cookie.setSecureOnly(true);
+        cookie.setHttpOnly(true);
+        return cookie;
+    }
+}
@@ -0,0 +1,463 @@
+package dev.orne.http.client.engine.jdk;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.BDDMockito.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Modifier;
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse.BodyHandler;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.apache.commons.lang3.RandomStringUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.invocation.Invocation;
+
+import dev.orne.http.Methods;
+import dev.orne.http.client.HttpClientException;
+import dev.orne.http.client.HttpRequestRejectedException;
+import dev.orne.http.client.HttpRequestTimeoutException;
+import dev.orne.http.client.engine.HttpClientEngine;
+import dev.orne.http.client.engine.HttpRequest;
+import dev.orne.http.client.engine.HttpRequestCustomizer;
+import dev.orne.http.client.engine.HttpResponse;
+import dev.orne.http.client.engine.HttpResponseHandler;
+
+/**
+ * Unit tests for {@code JdkHttpClientEngine}.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see JdkHttpClientEngine
+ */
+@Tag("ut")
+class JdkHttpClientEngineTest {
+
+    private @Mock HttpClient client;
+    private @Mock java.net.http.HttpResponse<InputStream> jdkResponse;
+    private @Mock InputStream body;
+    private @Captor ArgumentCaptor<java.net.http.HttpRequest> jdkRequestCaptor;
+    private @Captor ArgumentCaptor<HttpRequest> requestCaptor;
+    private @Captor ArgumentCaptor<HttpResponse> responseCaptor;
+    private AutoCloseable mocks;
+
+    @BeforeEach public void openMocks() {
+        this.mocks = MockitoAnnotations.openMocks(this);
+        given(client.cookieHandler()).willReturn(Optional.of(new CookieManager()));
+        given(jdkResponse.body()).willReturn(body);
+    }
+
+    @AfterEach public void releaseMocks() throws Exception {
+        this.mocks.close();
+    }
+
+    /**
+     * Test for {@link JdkHttpClientEngine#JdkHttpClientEngine()}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testConstructor()
+    throws Throwable {
+        try (final JdkHttpClientEngine engine = new JdkHttpClientEngine()) {
+            assertNotNull(engine.getCookieStore());
+            assertNotNull(engine.getCookieStore().getDelegate());
+            assertNotNull(engine.getClient());
+            assertEquals(HttpClient.Version.HTTP_2, engine.getClient().version());
+            assertEquals(HttpClient.Redirect.NORMAL, engine.getClient().followRedirects());
+            final CookieManager cookieManager = assertInstanceOf(
+                    CookieManager.class,
+                    engine.getClient().cookieHandler().get());
+            assertSame(cookieManager.getCookieStore(), engine.getCookieStore().getDelegate());
+        }
+    }
+
+    /**
+     * Test for {@link JdkHttpClientEngine#JdkHttpClientEngine()}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testConstructor_Configure()
+    throws Throwable {
+        try (final JdkHttpClientEngine engine = new JdkHttpClientEngine() {
+            @Override
+            protected void configureClient(
+                    final HttpClient.Builder builder) {
+                builder.version(HttpClient.Version.HTTP_1_1);
+            }
+        }) {
+            assertEquals(HttpClient.Version.HTTP_1_1, engine.getClient().version());
+        }
+    }
+
+    /**
+     * Test for {@link JdkHttpClientEngine#JdkHttpClientEngine(HttpClient)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testConstructor_Client()
+    throws Throwable {
+        assertThrows(NullPointerException.class, () -> new JdkHttpClientEngine(null));
+        final CookieManager cookieManager = new CookieManager();
+        given(client.cookieHandler()).willReturn(Optional.of(cookieManager));
+        try (final JdkHttpClientEngine engine = new JdkHttpClientEngine(client)) {
+            assertSame(client, engine.getClient());
+            assertSame(cookieManager.getCookieStore(), engine.getCookieStore().getDelegate());
+        }
+        given(client.cookieHandler()).willReturn(Optional.empty());
+        assertThrows(IllegalArgumentException.class, () -> new JdkHttpClientEngine(client));
+    }
+
+    /**
+     * Test for {@link HttpClientEngine#fromSpi()}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testFromSpi()
+    throws Throwable {
+        try (final HttpClientEngine engine = HttpClientEngine.fromSpi()) {
+            assertInstanceOf(JdkHttpClientEngine.class, engine);
+        }
+    }
+
+    /**
+     * Test for {@link JdkHttpClientEngine#createRequest(String, URI)}.
+     * @throws Throwable Should not happen
+     */
+    @ParameterizedTest
+    @MethodSource("knownHttpMethods")
+    void testCreateRequest(
+            final String method)
+    throws Throwable {
+        final URI uri = randomUri();
+        try (final JdkHttpClientEngine engine = new JdkHttpClientEngine(client)) {
+            final JdkHttpRequest result = engine.createRequest(method, uri);
+            assertEquals(method, result.getMethod());
+            final java.net.http.HttpRequest jdkRequest = result.build();
+            assertEquals(uri, jdkRequest.uri());
+            assertEquals(method, jdkRequest.method());
+            assertThrows(HttpClientException.class, () -> engine.createRequest(Methods.CONNECT, uri));
+            assertThrows(HttpClientException.class, () -> engine.createRequest("NOT_AN_HTTP_METHOD", uri));
+        }
+    }
+
+    /**
+     * Test for {@link JdkHttpClientEngine#executeHttpRequest(URI, String, HttpRequestCustomizer, HttpResponseHandler)}.
+     * @throws Throwable Should not happen
+     */
+    @ParameterizedTest
+    @MethodSource("knownHttpMethods")
+    void testExecuteHttpRequest(
+            final String method)
+    throws Throwable {
+        final URI uri = randomUri();
+        final HttpRequestCustomizer requestCustomizer = mock(HttpRequestCustomizer.class);
+        final HttpResponseHandler responseHandler = mock(HttpResponseHandler.class);
+        final CompletableFuture<java.net.http.HttpResponse<InputStream>> clientResult =
+                new CompletableFuture<>();
+        willReturn(clientResult).given(client).sendAsync(any(), any());
+        try (final JdkHttpClientEngine engine = new JdkHttpClientEngine(client)) {
+            final CompletableFuture<Void> result = engine.executeHttpRequest(
+                    uri,
+                    method,
+                    requestCustomizer,
+                    responseHandler).toCompletableFuture();
+            then(requestCustomizer).should().customizeRequest(requestCaptor.capture());
+            then(requestCustomizer).shouldHaveNoMoreInteractions();
+            final JdkHttpRequest request = assertInstanceOf(
+                    JdkHttpRequest.class,
+                    requestCaptor.getValue());
+            assertEquals(method, request.getMethod());
+            then(client).should().sendAsync(jdkRequestCaptor.capture(), any(BodyHandler.class));
+            assertEquals(uri, jdkRequestCaptor.getValue().uri());
+            assertEquals(method, jdkRequestCaptor.getValue().method());
+            then(responseHandler).shouldHaveNoInteractions();
+            assertFalse(result.isDone());
+            clientResult.complete(jdkResponse);
+            then(responseHandler).should().handle(responseCaptor.capture());
+            then(responseHandler).shouldHaveNoMoreInteractions();
+            final JdkHttpResponse response = assertInstanceOf(
+                    JdkHttpResponse.class,
+                    responseCaptor.getValue());
+            assertSame(jdkResponse, response.getDelegate());
+            then(body).should().close();
+            assertTrue(result.isDone());
+            assertNull(result.get());
+        }
+    }
+
+    /**
+     * Test for {@link JdkHttpClientEngine#executeHttpRequest(URI, String, HttpRequestCustomizer, HttpResponseHandler)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecuteHttpRequest_RelativeUri()
+    throws Throwable {
+        final URI uri = URI.create("/" + RandomStringUtils.randomAlphanumeric(10));
+        final HttpRequestCustomizer requestCustomizer = mock(HttpRequestCustomizer.class);
+        final HttpResponseHandler responseHandler = mock(HttpResponseHandler.class);
+        try (final JdkHttpClientEngine engine = new JdkHttpClientEngine(client)) {
+            assertThrows(IllegalArgumentException.class, () -> engine.executeHttpRequest(
+                    uri,
+                    Methods.GET,
+                    requestCustomizer,
+                    responseHandler));
+            then(requestCustomizer).shouldHaveNoInteractions();
+            then(client).should(never()).sendAsync(any(), any());
+        }
+    }
+
+    /**
+     * Test for {@link JdkHttpClientEngine#executeHttpRequest(URI, String, HttpRequestCustomizer, HttpResponseHandler)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecuteHttpRequest_HandlerError()
+    throws Throwable {
+        final URI uri = randomUri();
+        final HttpRequestCustomizer requestCustomizer = mock(HttpRequestCustomizer.class);
+        final HttpResponseHandler responseHandler = mock(HttpResponseHandler.class);
+        final RuntimeException error = new RuntimeException();
+        willThrow(error).given(responseHandler).handle(any());
+        willReturn(CompletableFuture.completedFuture(jdkResponse)).given(client).sendAsync(any(), any());
+        try (final JdkHttpClientEngine engine = new JdkHttpClientEngine(client)) {
+            final CompletableFuture<Void> result = engine.executeHttpRequest(
+                    uri,
+                    Methods.GET,
+                    requestCustomizer,
+                    responseHandler).toCompletableFuture();
+            assertTrue(result.isDone());
+            final ExecutionException futureErr = assertThrows(ExecutionException.class, () -> result.get());
+            assertSame(error, futureErr.getCause());
+            then(body).should().close();
+        }
+    }
+
+    /**
+     * Test for {@link JdkHttpClientEngine#executeHttpRequest(URI, String, HttpRequestCustomizer, HttpResponseHandler)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecuteHttpRequest_Failed()
+    throws Throwable {
+        final URI uri = randomUri();
+        final HttpRequestCustomizer requestCustomizer = mock(HttpRequestCustomizer.class);
+        final HttpResponseHandler responseHandler = mock(HttpResponseHandler.class);
+        final IOException clientException = new IOException();
+        final CompletableFuture<java.net.http.HttpResponse<InputStream>> clientResult =
+                new CompletableFuture<>();
+        willReturn(clientResult).given(client).sendAsync(any(), any());
+        try (final JdkHttpClientEngine engine = new JdkHttpClientEngine(client)) {
+            final CompletableFuture<Void> result = engine.executeHttpRequest(
+                    uri,
+                    Methods.GET,
+                    requestCustomizer,
+                    responseHandler).toCompletableFuture();
+            clientResult.completeExceptionally(clientException);
+            assertTrue(result.isDone());
+            final ExecutionException futureErr = assertThrows(ExecutionException.class, () -> result.get());
+            assertSame(clientException, futureErr.getCause());
+            then(responseHandler).shouldHaveNoInteractions();
+        }
+    }
+
+    /**
+     * Test for {@link JdkHttpClientEngine#executeHttpRequest(URI, String, HttpRequestCustomizer, HttpResponseHandler)}
+     * with cancelled result.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecuteHttpRequest_Cancelled()
+    throws Throwable {
+        final URI uri = randomUri();
+        final HttpRequestCustomizer requestCustomizer = mock(HttpRequestCustomizer.class);
+        final HttpResponseHandler responseHandler = mock(HttpResponseHandler.class);
+        final CompletableFuture<java.net.http.HttpResponse<InputStream>> clientResult =
+                new CompletableFuture<>();
+        willReturn(clientResult).given(client).sendAsync(any(), any());
+        try (final JdkHttpClientEngine engine = new JdkHttpClientEngine(client)) {
+            final CompletableFuture<Void> result = engine.executeHttpRequest(
+                    uri,
+                    Methods.GET,
+                    requestCustomizer,
+                    responseHandler).toCompletableFuture();
+            assertTrue(result.cancel(true));
+            assertTrue(clientResult.isCancelled());
+            then(responseHandler).shouldHaveNoInteractions();
+        }
+    }
+
+    /**
+     * Test for {@link JdkHttpClientEngine#executeHttpRequest(URI, String, HttpRequestCustomizer, HttpResponseHandler)}
+     * with request timeouts.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecuteHttpRequest_Timeouts()
+    throws Throwable {
+        final URI uri = randomUri();
+        final HttpRequestCustomizer requestCustomizer = request -> {
+            request.setResponseTimeout(Duration.ofMillis(200));
+            request.setTimeout(Duration.ofMillis(10));
+        };
+        final HttpResponseHandler responseHandler = mock(HttpResponseHandler.class);
+        final CompletableFuture<java.net.http.HttpResponse<InputStream>> clientResult =
+                new CompletableFuture<>();
+        willReturn(clientResult).given(client).sendAsync(any(), any());
+        try (final JdkHttpClientEngine engine = new JdkHttpClientEngine(client)) {
+            final CompletableFuture<Void> result = engine.executeHttpRequest(
+                    uri,
+                    Methods.GET,
+                    requestCustomizer,
+                    responseHandler).toCompletableFuture();
+            then(client).should().sendAsync(jdkRequestCaptor.capture(), any(BodyHandler.class));
+            assertEquals(Duration.ofMillis(200), jdkRequestCaptor.getValue().timeout().get());
+            final ExecutionException thrown = assertThrows(ExecutionException.class,
+                    () -> result.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(HttpRequestTimeoutException.class, thrown.getCause());
+            assertTrue(clientResult.isCancelled());
+            then(responseHandler).shouldHaveNoInteractions();
+        }
+    }
+
+    /**
+     * Test for {@link JdkHttpClientEngine#executeHttpRequest(URI, String, HttpRequestCustomizer, HttpResponseHandler)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecuteHttpRequest_CustomizerError()
+    throws Throwable {
+        final URI uri = randomUri();
+        final HttpRequestCustomizer requestCustomizer = mock(HttpRequestCustomizer.class);
+        final HttpResponseHandler responseHandler = mock(HttpResponseHandler.class);
+        final HttpClientException error = new HttpClientException();
+        willThrow(error).given(requestCustomizer).customizeRequest(any());
+        try (final JdkHttpClientEngine engine = new JdkHttpClientEngine(client)) {
+            final HttpClientException result = assertThrows(HttpClientException.class,
+                    () -> engine.executeHttpRequest(
+                        uri,
+                        Methods.GET,
+                        requestCustomizer,
+                        responseHandler));
+            assertSame(error, result);
+            then(client).should(never()).sendAsync(any(), any());
+        }
+    }
+
+    /**
+     * Test for {@link JdkHttpClientEngine#close()}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testClose()
+    throws Throwable {
+        final JdkHttpClientEngine engine = new JdkHttpClientEngine(client);
+        final int previous = mockingDetails(client).getInvocations().size();
+        assertDoesNotThrow(engine::close);
+        final List<String> invoked = new ArrayList<>();
+        for (final Invocation invocation : mockingDetails(client).getInvocations()) {
+            invoked.add(invocation.getMethod().getName());
+        }
+        invoked.subList(0, previous).clear();
+        if (JdkHttpClientEngine.getShutdownNowMethod() == null) {
+            assertTrue(invoked.isEmpty());
+        } else {
+            assertEquals(Arrays.asList("shutdownNow"), invoked);
+        }
+    }
+
+    /**
+     * Test for {@link JdkHttpClientEngine#shutdown(Duration)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testShutdown()
+    throws Throwable {
+        final HttpResponseHandler responseHandler = mock(HttpResponseHandler.class);
+        final CompletableFuture<java.net.http.HttpResponse<InputStream>> clientResult =
+                new CompletableFuture<>();
+        willReturn(clientResult).given(client).sendAsync(any(), any());
+        final JdkHttpClientEngine engine = new JdkHttpClientEngine(client);
+        final CompletableFuture<Void> result = engine.executeHttpRequest(
+                randomUri(),
+                Methods.GET,
+                request -> {},
+                responseHandler).toCompletableFuture();
+        assertEquals(1, engine.getInFlightCount());
+        assertEquals(1, engine.shutdown(Duration.ofMillis(10)));
+        assertTrue(result.isCancelled());
+        assertTrue(clientResult.isCancelled());
+        assertEquals(0, engine.getInFlightCount());
+        assertThrows(HttpRequestRejectedException.class, () -> engine.executeHttpRequest(
+                randomUri(),
+                Methods.GET,
+                request -> {},
+                responseHandler));
+        then(responseHandler).shouldHaveNoInteractions();
+    }
+
+    private static URI randomUri() {
+        return URI.create("http://localhost/" + RandomStringUtils.randomAlphanumeric(10));
+    }
+
+    private static Stream<Arguments> knownHttpMethods() {
+        return Stream.of(Methods.class.getDeclaredFields())
+                .filter(field -> {
+                    return String.class.equals(field.getType())
+                            && Modifier.isStatic(field.getModifiers())
+                            && Modifier.isFinal(field.getModifiers());
+                })
+                .map(field -> {
+                    try {
+                        return String.valueOf(field.get(null));
+                    } catch (ReflectiveOperationException e) {
+                        throw new RuntimeException(e);
+                    }
+                })
+                .filter(method -> !Methods.CONNECT.equals(method))
+                .map(value -> Arguments.of(value));
+    }
+}
@@ -0,0 +1,340 @@
+package dev.orne.http.client.engine.jdk;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpRequest.BodyPublisher;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.RandomStringUtils;
+import org.apache.commons.lang3.RandomUtils;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import dev.orne.http.ContentType;
+import dev.orne.http.Headers;
+import dev.orne.http.MediaTypes;
+import dev.orne.http.Methods;
+import dev.orne.http.client.HttpClientException;
+import dev.orne.http.client.HttpRequestBodyGenerationException;
+import dev.orne.http.client.engine.HttpRequest.BodyProducer;
+
+/**
+ * Unit tests for {@code JdkHttpRequest}.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see JdkHttpRequest
+ */
+@Tag("ut")
+class JdkHttpRequestTest {
+
+    private static final URI TEST_URI = URI.create("http://localhost/test");
+
+    /**
+     * Test for {@link JdkHttpRequest#JdkHttpRequest(String, URI)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testConstructor()
+    throws Throwable {
+        assertThrows(NullPointerException.class, () -> new JdkHttpRequest(null, TEST_URI));
+        assertThrows(NullPointerException.class, () -> new JdkHttpRequest(Methods.GET, null));
+        final JdkHttpRequest request = new JdkHttpRequest(Methods.GET, TEST_URI);
+        assertEquals(Methods.GET, request.getMethod());
+        assertNotNull(request.getBuilder());
+        assertNull(request.getBodyPublisher());
+        final java.net.http.HttpRequest result = request.build();
+        assertEquals(TEST_URI, result.uri());
+        assertEquals(Methods.GET, result.method());
+        assertTrue(result.headers().map().isEmpty());
+        assertEquals(0, result.bodyPublisher().get().contentLength());
+    }
+
+    /**
+     * Test for {@link JdkHttpRequest#setConnectTimeout(Duration)},
+     * {@link JdkHttpRequest#setResponseTimeout(Duration)} and
+     * {@link JdkHttpRequest#setTimeout(Duration)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testTimeouts()
+    throws Throwable {
+        final JdkHttpRequest request = new JdkHttpRequest(Methods.GET, TEST_URI);
+        assertNull(request.getConnectTimeout());
+        assertNull(request.getResponseTimeout());
+        assertNull(request.getTimeout());
+        assertFalse(request.build().timeout().isPresent());
+        assertThrows(NullPointerException.class, () -> request.setConnectTimeout(null));
+        assertThrows(IllegalArgumentException.class, () -> request.setConnectTimeout(Duration.ZERO));
+        assertThrows(NullPointerException.class, () -> request.setResponseTimeout(null));
+        assertThrows(IllegalArgumentException.class, () -> request.setResponseTimeout(Duration.ofMillis(-1)));
+        assertThrows(NullPointerException.class, () -> request.setTimeout(null));
+        assertThrows(IllegalArgumentException.class, () -> request.setTimeout(Duration.ofMillis(-1)));
+        request.setTimeout(Duration.ofSeconds(1));
+        assertEquals(Duration.ofSeconds(1), request.getTimeout());
+        assertFalse(request.build().timeout().isPresent());
+        request.setResponseTimeout(Duration.ofMillis(200));
+        assertEquals(Duration.ofMillis(200), request.build().timeout().get());
+        request.setConnectTimeout(Duration.ofMillis(100));
+        assertEquals(Duration.ofMillis(300), request.build().timeout().get());
+        final JdkHttpRequest connectOnly = new JdkHttpRequest(Methods.GET, TEST_URI);
+        connectOnly.setConnectTimeout(Duration.ofMillis(100));
+        assertEquals(Duration.ofMillis(100), connectOnly.build().timeout().get());
+    }
+
+    /**
+     * Test for {@link JdkHttpRequest#addHeader(String, String...)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testAddHeader()
+    throws Throwable {
+        final JdkHttpRequest request = new JdkHttpRequest(Methods.GET, TEST_URI);
+        assertThrows(NullPointerException.class, () -> request.addHeader(null));
+        final String name = "X-" + RandomStringUtils.randomAlphabetic(10);
+        assertThrows(NullPointerException.class, () -> request.addHeader(name, (String[]) null));
+        assertThrows(IllegalArgumentException.class, () -> request.addHeader(name, (String) null));
+        final String value0 = RandomStringUtils.randomAlphanumeric(10);
+        assertThrows(IllegalArgumentException.class, () -> request.addHeader(name, value0, null));
+        final String value1 = RandomStringUtils.randomAlphanumeric(10);
+        assertThrows(IllegalArgumentException.class, () -> request.addHeader(name, value0, null, value1));
+        request.addHeader(name, value0, value1);
+        assertEquals(
+                Arrays.asList(value0, value1),
+                request.build().headers().allValues(name));
+    }
+
+    /**
+     * Test for {@link JdkHttpRequest#addHeader(String, String...)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testAddHeader_Restricted()
+    throws Throwable {
+        final JdkHttpRequest request = new JdkHttpRequest(Methods.GET, TEST_URI);
+        final HttpClientException result = assertThrows(HttpClientException.class,
+                () -> request.addHeader("Host", "example.org"));
+        assertInstanceOf(IllegalArgumentException.class, result.getCause());
+    }
+
+    /**
+     * Test for {@link JdkHttpRequest#setBody(ContentType, String)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testSetBody_String()
+    throws Throwable {
+        final JdkHttpRequest request = new JdkHttpRequest(Methods.POST, TEST_URI);
+        final ContentType contentType = ContentType.of(
+                MediaTypes.Text.PLAIN,
+                StandardCharsets.UTF_16);
+        final String body = RandomStringUtils.random(20);
+        assertThrows(NullPointerException.class, () -> request.setBody(null, (String) null));
+        assertThrows(NullPointerException.class, () -> request.setBody(null, body));
+        assertThrows(NullPointerException.class, () -> request.setBody(contentType, (String) null));
+        request.setBody(contentType, body);
+        final java.net.http.HttpRequest result = request.build();
+        assertEquals(
+                contentType.getHeader(),
+                result.headers().firstValue(Headers.Request.CONTENT_TYPE).get());
+        assertArrayEquals(
+                body.getBytes(StandardCharsets.UTF_16),
+                publishedBytes(result.bodyPublisher().get()));
+    }
+
+    /**
+     * Test for {@link JdkHttpRequest#setBody(ContentType, String)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testSetBody_String_NoCharset()
+    throws Throwable {
+        final JdkHttpRequest request = new JdkHttpRequest(Methods.POST, TEST_URI);
+        final ContentType contentType = new ContentType(MediaTypes.Text.PLAIN);
+        final String body = RandomStringUtils.random(20);
+        request.setBody(contentType, body);
+        assertArrayEquals(
+                body.getBytes(StandardCharsets.UTF_8),
+                publishedBytes(request.build().bodyPublisher().get()));
+    }
+
+    /**
+     * Test for {@link JdkHttpRequest#setBody(ContentType, byte[])}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testSetBody_Bytes()
+    throws Throwable {
+        final JdkHttpRequest request = new JdkHttpRequest(Methods.POST, TEST_URI);
+        final ContentType contentType = ContentType.of(MediaTypes.Application.OCTET_STREAM);
+        final byte[] body = RandomUtils.nextBytes(RandomUtils.nextInt(10, 100));
+        assertThrows(NullPointerException.class, () -> request.setBody(null, (byte[]) null));
+        assertThrows(NullPointerException.class, () -> request.setBody(null, body));
+        assertThrows(NullPointerException.class, () -> request.setBody(contentType, (byte[]) null));
+        request.setBody(contentType, body);
+        final java.net.http.HttpRequest result = request.build();
+        assertEquals(
+                contentType.getHeader(),
+                result.headers().firstValue(Headers.Request.CONTENT_TYPE).get());
+        assertEquals(body.length, result.bodyPublisher().get().contentLength());
+        assertArrayEquals(body, publishedBytes(result.bodyPublisher().get()));
+    }
+
+    /**
+     * Test for {@link JdkHttpRequest#setBody(ContentType, long, BodyProducer)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testSetBody_Producer()
+    throws Throwable {
+        final JdkHttpRequest request = new JdkHttpRequest(Methods.POST, TEST_URI);
+        final ContentType contentType = ContentType.of(MediaTypes.Application.OCTET_STREAM);
+        final byte[] body = RandomUtils.nextBytes(RandomUtils.nextInt(10, 100));
+        final BodyProducer producer = output -> output.write(body);
+        assertThrows(NullPointerException.class, () -> request.setBody(null, -1, (BodyProducer) null));
+        assertThrows(NullPointerException.class, () -> request.setBody(null, -1, producer));
+        assertThrows(NullPointerException.class, () -> request.setBody(contentType, -1, (BodyProducer) null));
+        request.setBody(contentType, -1, producer);
+        final java.net.http.HttpRequest result = request.build();
+        assertEquals(
+                contentType.getHeader(),
+                result.headers().firstValue(Headers.Request.CONTENT_TYPE).get());
+        assertEquals(body.length, result.bodyPublisher().get().contentLength());
+        assertArrayEquals(body, publishedBytes(result.bodyPublisher().get()));
+    }
+
+    /**
+     * Test for {@link JdkHttpRequest#setBody(ContentType, long, BodyProducer)}
+     * with file body.
+     * @param tempDir The temporary directory
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testSetBody_File(
+            final @TempDir Path tempDir)
+    throws Throwable {
+        final JdkHttpRequest request = new JdkHttpRequest(Methods.PUT, TEST_URI);
+        final ContentType contentType = ContentType.of(MediaTypes.Application.OCTET_STREAM);
+        final byte[] body = RandomUtils.nextBytes(100000);
+        final Path file = tempDir.resolve("body.bin");
+        Files.write(file, body);
+        request.setBody(contentType, file);
+        final java.net.http.HttpRequest result = request.build();
+        assertEquals(
+                contentType.getHeader(),
+                result.headers().firstValue(Headers.Request.CONTENT_TYPE).get());
+        assertEquals(body.length, result.bodyPublisher().get().contentLength());
+        assertArrayEquals(body, publishedBytes(result.bodyPublisher().get()));
+        final Path empty = tempDir.resolve("empty.bin");
+        Files.write(empty, new byte[0]);
+        request.setBody(contentType, empty);
+        assertEquals(0, request.build().bodyPublisher().get().contentLength());
+    }
+
+    /**
+     * Test for {@link JdkHttpRequest#setBody(ContentType, long, BodyProducer)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testSetBody_Producer_IOException()
+    throws Throwable {
+        final JdkHttpRequest request = new JdkHttpRequest(Methods.POST, TEST_URI);
+        final ContentType contentType = ContentType.of(MediaTypes.Application.OCTET_STREAM);
+        final IOException error = new IOException();
+        final HttpRequestBodyGenerationException result = assertThrows(
+                HttpRequestBodyGenerationException.class,
+                () -> request.setBody(contentType, -1, output -> { throw error; }));
+        assertSame(error, result.getCause());
+        assertNull(request.getBodyPublisher());
+    }
+
+    /**
+     * Test for {@link JdkHttpRequest#setBody(ContentType, long, BodyProducer)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testSetBody_Producer_GenerationException()
+    throws Throwable {
+        final JdkHttpRequest request = new JdkHttpRequest(Methods.POST, TEST_URI);
+        final ContentType contentType = ContentType.of(MediaTypes.Application.OCTET_STREAM);
+        final HttpRequestBodyGenerationException error = new HttpRequestBodyGenerationException();
+        final HttpRequestBodyGenerationException result = assertThrows(
+                HttpRequestBodyGenerationException.class,
+                () -> request.setBody(contentType, -1, output -> { throw error; }));
+        assertSame(error, result);
+        assertNull(request.getBodyPublisher());
+    }
+
+    /**
+     * Reads all the bytes published by the specified body publisher.
+     * 
+     * @param publisher The body publisher.
+     * @return The published bytes.
+     * @throws Exception If an error occurs.
+     */
+    private static byte[] publishedBytes(
+            final BodyPublisher publisher)
+    throws Exception {
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        final CompletableFuture<byte[]> result = new CompletableFuture<>();
+        publisher.subscribe(new Flow.Subscriber<ByteBuffer>() {
+            @Override
+            public void onSubscribe(
+                    final Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+            @Override
+            public void onNext(
+                    final ByteBuffer item) {
+                final byte[] bytes = new byte[item.remaining()];
+                item.get(bytes);
+                buffer.write(bytes, 0, bytes.length);
+            }
+            @Override
+            public void onError(
+                    final Throwable throwable) {
+                result.completeExceptionally(throwable);
+            }
+            @Override
+            public void onComplete() {
+                result.complete(buffer.toByteArray());
+            }
+        });
+        return result.get(5, TimeUnit.SECONDS);
+    }
+}
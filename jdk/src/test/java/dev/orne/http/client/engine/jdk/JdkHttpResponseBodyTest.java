@@ -0,0 +1,227 @@
+package dev.orne.http.client.engine.jdk;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.BDDMockito.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpHeaders;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.commons.lang3.RandomUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import dev.orne.http.ContentType;
+import dev.orne.http.Headers;
+import dev.orne.http.MediaTypes;
+import dev.orne.http.client.HttpResponseHandlingException;
+
+/**
+ * Unit tests for {@code JdkHttpResponseBody}.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see JdkHttpResponseBody
+ */
+@Tag("ut")
+class JdkHttpResponseBodyTest {
+
+    private @Mock java.net.http.HttpResponse<InputStream> delegate;
+    private AutoCloseable mocks;
+
+    @BeforeEach public void openMocks() {
+        this.mocks = MockitoAnnotations.openMocks(this);
+        given(delegate.headers()).willReturn(HttpHeaders.of(
+                Collections.emptyMap(),
+                (name, value) -> true));
+    }
+
+    @AfterEach public void releaseMocks() throws Exception {
+        this.mocks.close();
+    }
+
+    /**
+     * Test for {@link JdkHttpResponseBody#JdkHttpResponseBody(java.net.http.HttpResponse)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testConstructor()
+    throws Throwable {
+        assertThrows(NullPointerException.class, () -> new JdkHttpResponseBody(null));
+        final JdkHttpResponseBody body = new JdkHttpResponseBody(delegate);
+        assertSame(delegate, body.getDelegate());
+        then(delegate).shouldHaveNoInteractions();
+    }
+
+    /**
+     * Test for {@link JdkHttpResponseBody#getContentType()}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testGetContentType()
+    throws Throwable {
+        final ContentType expected = ContentType.of(
+                MediaTypes.Text.PLAIN,
+                StandardCharsets.UTF_8);
+        withHeader(Headers.Response.CONTENT_TYPE, expected.getHeader());
+        final JdkHttpResponseBody body = new JdkHttpResponseBody(delegate);
+        assertEquals(expected, body.getContentType());
+    }
+
+    /**
+     * Test for {@link JdkHttpResponseBody#getContentType()}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testGetContentType_NoHeader()
+    throws Throwable {
+        final JdkHttpResponseBody body = new JdkHttpResponseBody(delegate);
+        assertNull(body.getContentType());
+    }
+
+    /**
+     * Test for {@link JdkHttpResponseBody#getContentLength()}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testGetContentLength()
+    throws Throwable {
+        final JdkHttpResponseBody body = new JdkHttpResponseBody(delegate);
+        assertEquals(-1, body.getContentLength());
+        final long expected = RandomUtils.nextLong(0, Long.MAX_VALUE);
+        withHeader(Headers.Response.CONTENT_LENGTH, String.valueOf(expected));
+        assertEquals(expected, body.getContentLength());
+    }
+
+    /**
+     * Test for {@link JdkHttpResponseBody#getContent()}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testGetContent()
+    throws Throwable {
+        final InputStream content = mock(InputStream.class);
+        given(delegate.body()).willReturn(content);
+        final JdkHttpResponseBody body = new JdkHttpResponseBody(delegate);
+        assertSame(content, body.getContent());
+        then(content).shouldHaveNoInteractions();
+    }
+
+    /**
+     * Test for {@link JdkHttpResponseBody#discard()}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testDiscard()
+    throws Throwable {
+        final AtomicBoolean closed = new AtomicBoolean();
+        final InputStream content = new ByteArrayInputStream(
+                RandomUtils.nextBytes(RandomUtils.nextInt(10, 100))) {
+            @Override
+            public void close() {
+                closed.set(true);
+            }
+        };
+        given(delegate.body()).willReturn(content);
+        final JdkHttpResponseBody body = new JdkHttpResponseBody(delegate);
+        body.discard();
+        assertEquals(0, content.available());
+        assertTrue(closed.get());
+    }
+
+    /**
+     * Test for {@link JdkHttpResponseBody#discard()}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testDiscard_IOException()
+    throws Throwable {
+        final InputStream content = mock(InputStream.class);
+        final IOException error = new IOException();
+        given(content.read(any(), anyInt(), anyInt())).willThrow(error);
+        given(content.transferTo(any())).willThrow(error);
+        given(delegate.body()).willReturn(content);
+        final JdkHttpResponseBody body = new JdkHttpResponseBody(delegate);
+        final HttpResponseHandlingException result = assertThrows(
+                HttpResponseHandlingException.class,
+                body::discard);
+        assertSame(error, result.getCause());
+        then(content).should().close();
+    }
+
+    /**
+     * Test for {@link JdkHttpResponseBody#parseContentType(String)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testParseContentType()
+    throws Throwable {
+        assertNull(JdkHttpResponseBody.parseContentType(null));
+        assertNull(JdkHttpResponseBody.parseContentType(""));
+        assertNull(JdkHttpResponseBody.parseContentType("  "));
+        assertEquals(
+                new ContentType(MediaTypes.Application.JSON),
+                JdkHttpResponseBody.parseContentType(MediaTypes.Application.JSON));
+        final Map<String, String> params = new HashMap<>();
+        params.put(ContentType.CHARSET_PARAM, "UTF-8");
+        assertEquals(
+                new ContentType(MediaTypes.Text.PLAIN, params),
+                JdkHttpResponseBody.parseContentType("text/plain;charset=UTF-8"));
+        assertEquals(
+                new ContentType(MediaTypes.Text.PLAIN, params),
+                JdkHttpResponseBody.parseContentType(" text/plain ; charset=\"UTF-8\" "));
+        params.clear();
+        params.put(ContentType.BOUNDARY_PARAM, "a;\"b");
+        params.put("other", "value");
+        assertEquals(
+                new ContentType("multipart/form-data", params),
+                JdkHttpResponseBody.parseContentType(
+                        "multipart/form-data; boundary=\"a;\\\"b\"; other=value"));
+        assertThrows(HttpResponseHandlingException.class,
+                () -> JdkHttpResponseBody.parseContentType("text"));
+        assertThrows(HttpResponseHandlingException.class,
+                () -> JdkHttpResponseBody.parseContentType("; charset=UTF-8"));
+    }
+
+    private void withHeader(
+            final String name,
+            final String value) {
+        final Map<String, List<String>> headers = new HashMap<>();
+        headers.put(name, Collections.singletonList(value));
+        given(delegate.headers()).willReturn(HttpHeaders.of(headers, (n, v) -> true));
+    }
+}
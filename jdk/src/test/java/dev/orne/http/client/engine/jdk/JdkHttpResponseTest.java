@@ -0,0 +1,193 @@
+package dev.orne.http.client.engine.jdk;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.BDDMockito.*;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpHeaders;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import dev.orne.http.Methods;
+import dev.orne.http.StatusCodes;
+
+/**
+ * Unit tests for {@code JdkHttpResponse}.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see JdkHttpResponse
+ */
+@Tag("ut")
+class JdkHttpResponseTest {
+
+    private static final URI TEST_URI = URI.create("http://localhost/test");
+
+    private @Mock java.net.http.HttpResponse<InputStream> delegate;
+    private @Mock InputStream body;
+    private AutoCloseable mocks;
+
+    @BeforeEach public void openMocks() {
+        this.mocks = MockitoAnnotations.openMocks(this);
+        given(delegate.request()).willReturn(java.net.http.HttpRequest.newBuilder(TEST_URI).build());
+        given(delegate.statusCode()).willReturn(StatusCodes.OK);
+        given(delegate.body()).willReturn(body);
+    }
+
+    @AfterEach public void releaseMocks() throws Exception {
+        this.mocks.close();
+    }
+
+    /**
+     * Test for {@link JdkHttpResponse#JdkHttpResponse(java.net.http.HttpResponse)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testConstructor()
+    throws Throwable {
+        assertThrows(NullPointerException.class, () -> new JdkHttpResponse(null));
+        final JdkHttpResponse response = new JdkHttpResponse(delegate);
+        assertSame(delegate, response.getDelegate());
+        then(delegate).shouldHaveNoMoreInteractions();
+    }
+
+    /**
+     * Test for {@link JdkHttpResponse#getStatusCode()}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testGetStatusCode()
+    throws Throwable {
+        given(delegate.statusCode()).willReturn(StatusCodes.CREATED);
+        final JdkHttpResponse response = new JdkHttpResponse(delegate);
+        assertEquals(StatusCodes.CREATED, response.getStatusCode());
+    }
+
+    /**
+     * Test for {@link JdkHttpResponse#getStatusReason()}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testGetStatusReason()
+    throws Throwable {
+        final JdkHttpResponse response = new JdkHttpResponse(delegate);
+        assertNull(response.getStatusReason());
+    }
+
+    /**
+     * Test for {@link JdkHttpResponse#getHeader(String)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testGetHeader()
+    throws Throwable {
+        final Map<String, List<String>> headers = new HashMap<>();
+        headers.put("X-Single", Collections.singletonList("value"));
+        headers.put("X-Multiple", Arrays.asList("value0", "value1"));
+        given(delegate.headers()).willReturn(HttpHeaders.of(headers, (name, value) -> true));
+        final JdkHttpResponse response = new JdkHttpResponse(delegate);
+        assertThrows(NullPointerException.class, () -> response.getHeader(null));
+        assertArrayEquals(new String[] { "value" }, response.getHeader("X-Single"));
+        assertArrayEquals(new String[] { "value" }, response.getHeader("x-single"));
+        assertArrayEquals(new String[] { "value0", "value1" }, response.getHeader("X-Multiple"));
+        assertArrayEquals(new String[0], response.getHeader("X-Missing"));
+        assertTrue(response.containsHeader("X-Single"));
+        assertFalse(response.containsHeader("X-Missing"));
+        assertEquals("value0", response.getFirstHeaderValue("X-Multiple"));
+        assertEquals("value1", response.getLastHeaderValue("X-Multiple"));
+    }
+
+    /**
+     * Test for {@link JdkHttpResponse#getBody()}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testGetBody()
+    throws Throwable {
+        final JdkHttpResponse response = new JdkHttpResponse(delegate);
+        final JdkHttpResponseBody result = assertInstanceOf(
+                JdkHttpResponseBody.class,
+                response.getBody());
+        assertSame(delegate, result.getDelegate());
+    }
+
+    /**
+     * Test for {@link JdkHttpResponse#getBody()}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testGetBody_Head()
+    throws Throwable {
+        given(delegate.request()).willReturn(java.net.http.HttpRequest.newBuilder(TEST_URI)
+                .method(Methods.HEAD, java.net.http.HttpRequest.BodyPublishers.noBody())
+                .build());
+        final JdkHttpResponse response = new JdkHttpResponse(delegate);
+        assertNull(response.getBody());
+    }
+
+    /**
+     * Test for {@link JdkHttpResponse#getBody()}.
+     * @throws Throwable Should not happen
+     */
+    @ParameterizedTest
+    @ValueSource(ints = {
+        StatusCodes.CONTINUE,
+        StatusCodes.NO_CONTENT,
+        StatusCodes.NOT_MODIFIED
+    })
+    void testGetBody_NoContentStatus(
+            final int status)
+    throws Throwable {
+        given(delegate.statusCode()).willReturn(status);
+        final JdkHttpResponse response = new JdkHttpResponse(delegate);
+        assertNull(response.getBody());
+    }
+
+    /**
+     * Test for {@link JdkHttpResponse#getBody()}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testGetBody_NullBody()
+    throws Throwable {
+        given(delegate.body()).willReturn(null);
+        final JdkHttpResponse response = new JdkHttpResponse(delegate);
+        assertNull(response.getBody());
+    }
+}
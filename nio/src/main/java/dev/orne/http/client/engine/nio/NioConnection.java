@@ -0,0 +1,500 @@
+package dev.orne.http.client.engine.nio;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.time.Duration;
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.lang3.Validate;
+
+import dev.orne.http.client.HttpRequestTimeoutException;
+import dev.orne.http.client.engine.FileBodyProducer;
+import dev.orne.http.client.engine.HashedWheelTimer;
+
+/**
+ * A HTTP/1.1 connection of the NIO HTTP/1.1 engine.
+ * <p>
+ * Executes one exchange at a time. The request line and headers are copied
+ * to a reusable direct buffer and written together with the request body
+ * in gathering writes. File bodies are then transferred from the file to
+ * the socket channel with {@code FileChannel.transferTo()}, avoiding copies
+ * in user space where the platform supports it. The response is parsed
+ * incrementally as it is read.
+ * Once the response is complete the connection is returned to the event
+ * loop idle pool if it can be reused.
+ * <p>
+ * Instances are not thread safe, and are intended to be used from the
+ * event loop thread only.
+ * 
+ * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ */
+class NioConnection {
+
+    /** The size of the direct read buffer. */
+    static final int READ_BUFFER_SIZE = 16 * 1024;
+    /** The initial size of the direct request head buffer. */
+    static final int HEAD_BUFFER_SIZE = 1024;
+    /** Empty buffer for requests without body. */
+    private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+
+    /** The owner event loop. */
+    private final @NotNull NioEventLoop loop;
+    /** The socket channel. */
+    private final @NotNull SocketChannel channel;
+    /** The connection route key. */
+    private final @NotNull String route;
+    /** The direct read buffer. */
+    private final @NotNull ByteBuffer readBuffer;
+    /** The gathering write buffers. */
+    private final @NotNull ByteBuffer[] writeBuffers = new ByteBuffer[2];
+    /** The direct request head buffer. */
+    private @NotNull ByteBuffer headBuffer;
+    /** The file channel of the current request file body, if open. */
+    private FileChannel bodySource;
+    /** The bytes of the current request file body already written. */
+    private long bodyOffset;
+    /** The selection key of the channel. */
+    private SelectionKey key;
+    /** The current exchange, if any. */
+    private NioExchange exchange;
+    /** The response parser of the current exchange. */
+    private NioResponseParser parser;
+    /** If the connection has been used by previous exchanges. */
+    private boolean reused;
+    /** If the connection is still being established. */
+    private boolean connecting;
+    /** If the connection has been closed. */
+    private boolean closed;
+    /** The time of the last activity of the current exchange, in nanoseconds. */
+    private long lastActivity;
+    /** The pending connect or response timeout check, if any. */
+    private HashedWheelTimer.Timeout timeout;
+
+    /**
+     * Creates a new instance.
+     * 
+     * @param loop The owner event loop.
+     * @param channel The socket channel, in non blocking mode.
+     * @param route The connection route key.
+     */
+    NioConnection(
+            final @NotNull NioEventLoop loop,
+            final @NotNull SocketChannel channel,
+            final @NotNull String route) {
+        super();
+        this.loop = Validate.notNull(loop);
+        this.channel = Validate.notNull(channel);
+        this.route = Validate.notNull(route);
+        this.readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+        this.headBuffer = ByteBuffer.allocateDirect(HEAD_BUFFER_SIZE);
+    }
+
+    /**
+     * Returns the connection route key.
+     * 
+     * @return The connection route key.
+     */
+    @NotNull String getRoute() {
+        return this.route;
+    }
+
+    /**
+     * Returns the socket channel.
+     * 
+     * @return The socket channel.
+     */
+    @NotNull SocketChannel getChannel() {
+        return this.channel;
+    }
+
+    /**
+     * Returns the current exchange, if any.
+     * 
+     * @return The current exchange.
+     */
+    NioExchange getExchange() {
+        return this.exchange;
+    }
+
+    /**
+     * Returns {@code true} if the connection has been closed.
+     * 
+     * @return If the connection has been closed.
+     */
+    boolean isClosed() {
+        return this.closed;
+    }
+
+    /**
+     * Starts the connection to the target address of the specified exchange,
+     * that will be executed once connected.
+     * 
+     * @param key The selection key of the channel.
+     * @param first The first exchange.
+     * @throws IOException If an I/O error occurs.
+     */
+    void connect(
+            final @NotNull SelectionKey key,
+            final @NotNull NioExchange first)
+    throws IOException {
+        this.key = key;
+        attach(first);
+        if (this.channel.connect(first.getAddress())) {
+            writeRequest();
+        } else {
+            this.connecting = true;
+            this.key.interestOps(SelectionKey.OP_CONNECT);
+            final Duration connectTimeout = first.getConnectTimeout();
+            if (connectTimeout != null) {
+                this.timeout = HashedWheelTimer.shared().schedule(
+                        () -> this.loop.execute(() -> checkConnectTimeout(first, connectTimeout)),
+                        connectTimeout);
+            }
+        }
+    }
+
+    /**
+     * Executes the specified exchange in this idle connection.
+     * 
+     * @param next The exchange to execute.
+     */
+    void send(
+            final @NotNull NioExchange next) {
+        this.reused = true;
+        attach(next);
+        try {
+            writeRequest();
+        } catch (final IOException e) {
+            fail(e);
+        }
+    }
+
+    /**
+     * Attaches the specified exchange to the connection.
+     * 
+     * @param next The exchange.
+     */
+    private void attach(
+            final @NotNull NioExchange next) {
+        this.exchange = next;
+        next.setConnection(this);
+        this.parser = new NioResponseParser(next.isBodylessResponse());
+        final byte[] head = next.getHead();
+        if (head.length > this.headBuffer.capacity()) {
+            this.headBuffer = ByteBuffer.allocateDirect(Integer.highestOneBit(head.length) << 1);
+        }
+        this.headBuffer.clear();
+        this.headBuffer.put(head).flip();
+        this.writeBuffers[0] = this.headBuffer;
+        final ByteBuffer body = next.getBody();
+        if (body == null) {
+            this.writeBuffers[1] = EMPTY;
+        } else {
+            body.rewind();
+            this.writeBuffers[1] = body;
+        }
+        this.bodyOffset = 0;
+    }
+
+    /**
+     * Handles the connectable event of the channel.
+     */
+    void onConnectable() {
+        try {
+            if (this.channel.finishConnect()) {
+                this.connecting = false;
+                cancelTimeout();
+                writeRequest();
+            }
+        } catch (final IOException e) {
+            fail(e);
+        }
+    }
+
+    /**
+     * Handles the writable event of the channel.
+     */
+    void onWritable() {
+        try {
+            writeRequest();
+        } catch (final IOException e) {
+            fail(e);
+        }
+    }
+
+    /**
+     * Writes the pending request data with a gathering write, followed by
+     * the file body, if any, waiting for the response once the request has
+     * been completely written.
+     * 
+     * @throws IOException If an I/O error occurs.
+     */
+    private void writeRequest()
+    throws IOException {
+        while (this.writeBuffers[1].hasRemaining() || this.writeBuffers[0].hasRemaining()) {
+            if (this.channel.write(this.writeBuffers) == 0) {
+                this.key.interestOps(SelectionKey.OP_WRITE);
+                return;
+            }
+        }
+        if (!writeFileBody()) {
+            this.key.interestOps(SelectionKey.OP_WRITE);
+            return;
+        }
+        this.writeBuffers[1] = EMPTY;
+        this.key.interestOps(SelectionKey.OP_READ);
+        this.lastActivity = System.nanoTime();
+        final Duration responseTimeout = this.exchange.getResponseTimeout();
+        if (responseTimeout != null) {
+            scheduleResponseTimeout(this.exchange, responseTimeout, responseTimeout);
+        }
+    }
+
+    /**
+     * Transfers the pending data of the request file body, if any, to the
+     * socket channel.
+     * 
+     * @return If the file body has been completely written.
+     * @throws IOException If an I/O error occurs.
+     */
+    private boolean writeFileBody()
+    throws IOException {
+        final FileBodyProducer file = this.exchange.getBodyFile();
+        if (file == null) {
+            return true;
+        }
+        if (this.bodySource == null) {
+            this.bodySource = file.openChannel();
+        }
+        while (this.bodyOffset < file.getLength()) {
+            final long written = file.transferTo(this.bodySource, this.bodyOffset, this.channel);
+            if (written == 0) {
+                return false;
+            }
+            this.bodyOffset += written;
+        }
+        releaseBodySource();
+        return true;
+    }
+
+    /**
+     * Releases the file channel of the current request file body, if open.
+     */
+    private void releaseBodySource() {
+        final FileChannel source = this.bodySource;
+        if (source != null) {
+            this.bodySource = null;
+            try {
+                this.exchange.getBodyFile().releaseChannel(source);
+            } catch (final IOException e) {
+                // Ignore close errors
+            }
+        }
+    }
+
+    /**
+     * Handles the readable event of the channel.
+     */
+    void onReadable() {
+        if (this.exchange == null) {
+            // Idle connection closed by the server or unexpected data
+            close();
+            return;
+        }
+        try {
+            int read;
+            while ((read = this.channel.read(this.readBuffer)) > 0) {
+                this.lastActivity = System.nanoTime();
+                this.readBuffer.flip();
+                final boolean complete = this.parser.parse(this.readBuffer);
+                final boolean extraData = this.readBuffer.hasRemaining();
+                this.readBuffer.clear();
+                if (complete) {
+                    responseComplete(!extraData);
+                    return;
+                }
+            }
+            if (read < 0) {
+                onEndOfInput();
+            }
+        } catch (final IOException e) {
+            fail(e);
+        }
+    }
+
+    /**
+     * Handles the closing of the connection by the server.
+     * 
+     * @throws IOException If the response is not complete.
+     */
+    private void onEndOfInput()
+    throws IOException {
+        final NioExchange current = this.exchange;
+        if (this.reused && !this.parser.isStarted() && current.tryRetry()) {
+            // Stale persistent connection. Retry with a new connection.
+            close();
+            this.loop.dispatch(current, false);
+        } else if (this.parser.endOfInput()) {
+            responseComplete(false);
+        }
+    }
+
+    /**
+     * Completes the current exchange with the parsed response, releasing
+     * the connection to the event loop idle pool if it can be reused.
+     * 
+     * @param reusable If the connection can be reused.
+     */
+    private void responseComplete(
+            final boolean reusable) {
+        final NioExchange current = this.exchange;
+        final NioResponseParser result = this.parser;
+        this.exchange = null;
+        this.parser = null;
+        cancelTimeout();
+        if (reusable && result.isKeepAlive() && !current.isDone()) {
+            this.loop.release(this);
+        } else {
+            close();
+        }
+        current.complete(new NioHttpResponse(
+                result.getStatusCode(),
+                result.getReason(),
+                result.getHeaders(),
+                result.getBody()));
+    }
+
+    /**
+     * Fails the current exchange, if any, with the specified error and
+     * closes the connection.
+     * 
+     * @param error The error.
+     */
+    void fail(
+            final @NotNull Throwable error) {
+        final NioExchange current = this.exchange;
+        close();
+        if (current != null) {
+            current.fail(error);
+        }
+    }
+
+    /**
+     * Fails the specified exchange with a timeout error if the connection
+     * is still being established for it.
+     * 
+     * @param target The exchange.
+     * @param timeout The connect timeout.
+     */
+    private void checkConnectTimeout(
+            final @NotNull NioExchange target,
+            final @NotNull Duration timeout) {
+        if (this.connecting && this.exchange == target) {
+            fail(new HttpRequestTimeoutException(
+                    String.format("HTTP connection timed out after %s", timeout)));
+        }
+    }
+
+    /**
+     * Schedules a check of the response timeout of the specified exchange.
+     * 
+     * @param target The exchange.
+     * @param timeout The response timeout.
+     * @param delay The delay of the check.
+     */
+    private void scheduleResponseTimeout(
+            final @NotNull NioExchange target,
+            final @NotNull Duration timeout,
+            final @NotNull Duration delay) {
+        this.timeout = HashedWheelTimer.shared().schedule(
+                () -> this.loop.execute(() -> checkResponseTimeout(target, timeout)),
+                delay);
+    }
+
+    /**
+     * Fails the specified exchange with a timeout error if no response data
+     * has been received during the response timeout. Otherwise schedules
+     * a new check.
+     * 
+     * @param target The exchange.
+     * @param timeout The response timeout.
+     */
+    private void checkResponseTimeout(
+            final @NotNull NioExchange target,
+            final @NotNull Duration timeout) {
+        if (this.exchange != target) {
+            return;
+        }
+        this.timeout = null;
+        final long idle = System.nanoTime() - this.lastActivity;
+        if (idle >= timeout.toNanos()) {
+            fail(new HttpRequestTimeoutException(
+                    String.format("HTTP response timed out after %s", timeout)));
+        } else {
+            scheduleResponseTimeout(target, timeout, timeout.minusNanos(idle));
+        }
+    }
+
+    /**
+     * Cancels the pending connect or response timeout check, if any.
+     */
+    private void cancelTimeout() {
+        if (this.timeout != null) {
+            this.timeout.cancel();
+            this.timeout = null;
+        }
+    }
+
+    /**
+     * Closes the connection, discarding the current exchange, if any.
+     */
+    void close() {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+        cancelTimeout();
+        if (this.exchange != null) {
+            releaseBodySource();
+        }
+        this.exchange = null;
+        this.parser = null;
+        if (this.key != null) {
+            this.key.cancel();
+        }
+        try {
+            this.channel.close();
+        } catch (final IOException e) {
+            // Ignore close errors
+        }
+        this.loop.remove(this);
+    }
+}
@@ -0,0 +1,136 @@
+package dev.orne.http.client.engine.nio;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.net.CookieManager;
+import java.net.HttpCookie;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.lang3.Validate;
+
+import dev.orne.http.client.cookie.Cookie;
+import dev.orne.http.client.cookie.CookieStore;
+import dev.orne.http.client.cookie.DefaultCookie;
+
+/**
+ * Implementation of {@code CookieStore} based on
+ * JDK {@code java.net.CookieStore}.
+ * <p>
+ * JDK cookies don't expose their creation time, so the returned cookies
+ * have no creation or expiration time. Cookies with a max age are
+ * reported as persistent.
+ * 
+ * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ */
+public class NioCookieStore
+implements CookieStore {
+
+    /** The JDK cookie store. */
+    private final @NotNull java.net.CookieStore delegate;
+
+    /**
+     * Creates a new instance with a clean in memory cookie store.
+     */
+    public NioCookieStore() {
+        this(new CookieManager().getCookieStore());
+    }
+
+    /**
+     * Creates a new instance.
+     * 
+     * @param delegate The JDK cookie store.
+     */
+    public NioCookieStore(
+            final @NotNull java.net.CookieStore delegate) {
+        super();
+        this.delegate = Validate.notNull(delegate, "The delegated cookie store is required");
+    }
+
+    /**
+     * Returns the delegated JDK cookie store.
+     * 
+     * @return The JDK cookie store.
+     */
+    protected @NotNull java.net.CookieStore getDelegate() {
+        return this.delegate;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void addCookie(
+            final @NotNull Cookie cookie) {
+        Validate.notNull(cookie, "The cookie is required");
+        final HttpCookie bean = new HttpCookie(
+                Validate.notNull(cookie.getName(), "The cookie name is required"),
+                Validate.notNull(cookie.getValue(), "The cookie value is required"));
+        bean.setDomain(cookie.getDomain());
+        bean.setPath(cookie.getPath());
+        bean.setSecure(cookie.isSecureOnly());
+        bean.setHttpOnly(cookie.isHttpOnly());
+        if (cookie.getExpiryTime() != null) {
+            bean.setMaxAge(Math.max(0, Duration.between(
+                    Instant.now(),
+                    cookie.getExpiryTime()).getSeconds()));
+        }
+        this.delegate.add(null, bean);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull List<Cookie> getCookies() {
+        return this.delegate.getCookies().stream()
+                .map(NioCookieStore::toCookie)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Converts the specified JDK cookie to a {@code Cookie}.
+     * 
+     * @param cookie The JDK cookie.
+     * @return The converted cookie.
+     */
+    protected static @NotNull Cookie toCookie(
+            final @NotNull HttpCookie cookie) {
+        final DefaultCookie result = new DefaultCookie(
+                cookie.getName(),
+                cookie.getValue());
+        result.setDomain(cookie.getDomain());
+        result.setHostOnly(cookie.getDomain() == null);
+        result.setPath(cookie.getPath());
+        result.setSecureOnly(cookie.getSecure());
+        result.setHttpOnly(cookie.isHttpOnly());
+        result.setPersistent(cookie.getMaxAge() >= 0);
+        return result;
+    }
+}
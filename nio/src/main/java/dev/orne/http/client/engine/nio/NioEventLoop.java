@@ -0,0 +1,398 @@
+package dev.orne.http.client.engine.nio;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.lang3.Validate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Single threaded {@code Selector} event loop of the NIO HTTP/1.1 engine.
+ * <p>
+ * All the connections of the engine are registered in the loop selector
+ * and handled by the loop thread, so no thread is required per request.
+ * Tasks submitted from other threads are queued and executed by the loop
+ * thread, waking up the selector only when required.
+ * <p>
+ * Connections that can be reused after an exchange are kept in a per route
+ * idle pool, limited to a maximum number of connections per route.
+ * 
+ * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ */
+class NioEventLoop
+implements Closeable {
+
+    /** The class logger. */
+    private static final Logger LOG = LoggerFactory.getLogger(NioEventLoop.class);
+
+    /** The maximum number of idle connections per route. */
+    private final int maxIdlePerRoute;
+    /** The selector. */
+    private final @NotNull Selector selector;
+    /** The loop thread. */
+    private final @NotNull Thread thread;
+    /** The pending tasks. */
+    private final @NotNull Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    /** If a wake up of the selector is pending. */
+    private final @NotNull AtomicBoolean wakenUp = new AtomicBoolean();
+    /** The idle connections, by route key. */
+    private final @NotNull Map<String, ArrayDeque<NioConnection>> idle = new HashMap<>();
+    /** If the loop has been closed. */
+    private volatile boolean closed;
+
+    /**
+     * Creates and starts a new instance.
+     * 
+     * @param maxIdlePerRoute The maximum number of idle connections per route.
+     * @param threadFactory The loop thread factory.
+     * @throws IOException If an error occurs opening the selector.
+     */
+    NioEventLoop(
+            final int maxIdlePerRoute,
+            final @NotNull ThreadFactory threadFactory)
+    throws IOException {
+        super();
+        Validate.isTrue(maxIdlePerRoute >= 0, "Maximum idle connections per route cannot be negative");
+        Validate.notNull(threadFactory);
+        this.maxIdlePerRoute = maxIdlePerRoute;
+        this.selector = Selector.open();
+        this.thread = Validate.notNull(
+                threadFactory.newThread(this::run),
+                "Thread factory returned no thread");
+        this.thread.start();
+    }
+
+    /**
+     * Returns {@code true} if the loop has been closed.
+     * 
+     * @return If the loop has been closed.
+     */
+    boolean isClosed() {
+        return this.closed;
+    }
+
+    /**
+     * Returns {@code true} if the calling thread is the loop thread.
+     * 
+     * @return If the calling thread is the loop thread.
+     */
+    boolean inLoop() {
+        return Thread.currentThread() == this.thread;
+    }
+
+    /**
+     * Queues the specified task for execution in the loop thread.
+     * <p>
+     * The task is queued before checking if the loop has been closed, so
+     * a loop closed concurrently either runs the task in its final tasks
+     * run or the task is removed from the queue and rejected.
+     * 
+     * @param task The task to execute.
+     * @return If the task has been queued, {@code false} if the loop
+     * has been closed.
+     */
+    boolean execute(
+            final @NotNull Runnable task) {
+        if (this.closed) {
+            return false;
+        }
+        this.tasks.add(task);
+        if (this.closed && this.tasks.remove(task)) {
+            return false;
+        }
+        if (!inLoop() && this.wakenUp.compareAndSet(false, true)) {
+            this.selector.wakeup();
+        }
+        return true;
+    }
+
+    /**
+     * Executes the specified exchange in an idle connection to its route,
+     * or in a new connection if no idle connection is available.
+     * <p>
+     * Must be called from the loop thread.
+     * 
+     * @param exchange The exchange to execute.
+     * @param pooled If idle connections can be used.
+     */
+    void dispatch(
+            final @NotNull NioExchange exchange,
+            final boolean pooled) {
+        if (exchange.isDone()) {
+            return;
+        }
+        if (this.closed) {
+            exchange.fail(new IOException("HTTP client engine closed"));
+            return;
+        }
+        final NioConnection connection = pooled ? pollIdle(exchange.getRoute()) : null;
+        if (connection == null) {
+            connect(exchange);
+        } else {
+            connection.send(exchange);
+        }
+    }
+
+    /**
+     * Opens a new connection for the specified exchange.
+     * 
+     * @param exchange The exchange to execute.
+     */
+    private void connect(
+            final @NotNull NioExchange exchange) {
+        SocketChannel channel = null;
+        try {
+            if (exchange.getAddress() instanceof InetSocketAddress) {
+                channel = SocketChannel.open();
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            } else {
+                channel = UnixDomainSockets.open();
+                channel.configureBlocking(false);
+            }
+            final NioConnection connection = new NioConnection(this, channel, exchange.getRoute());
+            final SelectionKey key = channel.register(this.selector, 0, connection);
+            connection.connect(key, exchange);
+        } catch (final IOException | RuntimeException e) {
+            closeQuietly(channel);
+            exchange.fail(e);
+        }
+    }
+
+    /**
+     * Returns the most recently used idle connection to the specified route,
+     * if any.
+     * 
+     * @param route The route key.
+     * @return The idle connection, or {@code null} if none is available.
+     */
+    private NioConnection pollIdle(
+            final @NotNull String route) {
+        final ArrayDeque<NioConnection> connections = this.idle.get(route);
+        if (connections == null) {
+            return null;
+        }
+        NioConnection result = connections.pollLast();
+        while (result != null && result.isClosed()) {
+            result = connections.pollLast();
+        }
+        return result;
+    }
+
+    /**
+     * Returns the specified connection to the idle pool, closing it if the
+     * pool of its route is full.
+     * <p>
+     * Must be called from the loop thread.
+     * 
+     * @param connection The connection to release.
+     */
+    void release(
+            final @NotNull NioConnection connection) {
+        final ArrayDeque<NioConnection> connections = this.idle.computeIfAbsent(
+                connection.getRoute(),
+                k -> new ArrayDeque<>());
+        if (this.closed || connections.size() >= this.maxIdlePerRoute) {
+            connection.close();
+        } else {
+            connections.addLast(connection);
+        }
+    }
+
+    /**
+     * Removes the specified closed connection from the idle pool.
+     * <p>
+     * Must be called from the loop thread.
+     * 
+     * @param connection The closed connection.
+     */
+    void remove(
+            final @NotNull NioConnection connection) {
+        final ArrayDeque<NioConnection> connections = this.idle.get(connection.getRoute());
+        if (connections != null) {
+            connections.remove(connection);
+        }
+    }
+
+    /**
+     * Returns the number of idle connections in the pool.
+     * <p>
+     * Must be called from the loop thread.
+     * 
+     * @return The number of idle connections.
+     */
+    int getIdleConnections() {
+        int result = 0;
+        for (final ArrayDeque<NioConnection> connections : this.idle.values()) {
+            result += connections.size();
+        }
+        return result;
+    }
+
+    /**
+     * Runs the event loop until closed.
+     */
+    private void run() {
+        try {
+            while (!this.closed) {
+                this.wakenUp.set(false);
+                if (this.tasks.isEmpty()) {
+                    this.selector.select();
+                } else {
+                    this.selector.selectNow();
+                }
+                processSelectedKeys();
+                runTasks();
+            }
+        } catch (final IOException | ClosedSelectorException e) {
+            LOG.error("Unexpected error in HTTP client event loop", e);
+        } finally {
+            this.closed = true;
+            shutdown();
+        }
+    }
+
+    /**
+     * Handles the events of the selected channels.
+     */
+    private void processSelectedKeys() {
+        final Iterator<SelectionKey> it = this.selector.selectedKeys().iterator();
+        while (it.hasNext()) {
+            final SelectionKey key = it.next();
+            it.remove();
+            final NioConnection connection = (NioConnection) key.attachment();
+            try {
+                if (!key.isValid()) {
+                    connection.close();
+                } else if (key.isConnectable()) {
+                    connection.onConnectable();
+                } else if (key.isWritable()) {
+                    connection.onWritable();
+                } else if (key.isReadable()) {
+                    connection.onReadable();
+                }
+            } catch (final RuntimeException e) {
+                connection.fail(e);
+            }
+        }
+    }
+
+    /**
+     * Runs the pending tasks.
+     */
+    private void runTasks() {
+        Runnable task;
+        while ((task = this.tasks.poll()) != null) {
+            try {
+                task.run();
+            } catch (final RuntimeException e) {
+                LOG.warn("Error running HTTP client event loop task", e);
+            }
+        }
+    }
+
+    /**
+     * Runs the remaining tasks and closes all the connections and the
+     * selector, failing the exchanges in progress.
+     */
+    private void shutdown() {
+        runTasks();
+        final IOException error = new IOException("HTTP client engine closed");
+        final List<NioConnection> connections = new ArrayList<>();
+        try {
+            for (final SelectionKey key : this.selector.keys()) {
+                connections.add((NioConnection) key.attachment());
+            }
+        } catch (final ClosedSelectorException e) {
+            // Already closed
+        }
+        for (final NioConnection connection : connections) {
+            connection.fail(error);
+        }
+        this.idle.clear();
+        try {
+            this.selector.close();
+        } catch (final IOException e) {
+            LOG.warn("Error closing HTTP client event loop selector", e);
+        }
+        runTasks();
+    }
+
+    /**
+     * Closes the event loop and all its connections, failing the exchanges
+     * in progress. Waits for the loop thread to terminate, unless called
+     * from the loop thread.
+     */
+    @Override
+    public void close()
+    throws IOException {
+        this.closed = true;
+        this.selector.wakeup();
+        if (!inLoop()) {
+            try {
+                this.thread.join();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Closes the specified channel, ignoring errors.
+     * 
+     * @param channel The channel to close, if any.
+     */
+    private static void closeQuietly(
+            final SocketChannel channel) {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (final IOException e) {
+                // Ignore
+            }
+        }
+    }
+}
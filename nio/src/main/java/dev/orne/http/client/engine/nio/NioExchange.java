@@ -0,0 +1,268 @@
+package dev.orne.http.client.engine.nio;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.lang3.Validate;
+
+import dev.orne.http.Methods;
+import dev.orne.http.client.engine.FileBodyProducer;
+
+/**
+ * A HTTP request and response exchange of the NIO HTTP/1.1 engine.
+ * <p>
+ * Holds the encoded request, ready to be written to a connection, and the
+ * future response. The connection state is only accessed from the event
+ * loop thread.
+ * 
+ * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ */
+class NioExchange {
+
+    /** The HTTP method. */
+    private final @NotNull String method;
+    /** The target address. */
+    private final @NotNull SocketAddress address;
+    /** The connection route key. */
+    private final @NotNull String route;
+    /** The encoded request line and headers. */
+    private final @NotNull byte[] head;
+    /** The request body, if any. */
+    private final ByteBuffer body;
+    /** The request file body, if any. */
+    private final FileBodyProducer bodyFile;
+    /** The connect timeout, if any. */
+    private final Duration connectTimeout;
+    /** The response timeout, if any. */
+    private final Duration responseTimeout;
+    /** The future response. */
+    private final @NotNull CompletableFuture<NioHttpResponse> response =
+            new CompletableFuture<>();
+    /** The connection the exchange is being executed on, if any. */
+    private NioConnection connection;
+    /** If the exchange has been retried on a new connection. */
+    private boolean retried;
+
+    /**
+     * Creates a new instance for the specified request.
+     * <p>
+     * If a Unix domain socket file is specified the request is sent through
+     * it, regardless of the host and port of the request URI. Otherwise the
+     * target host name is resolved in the calling thread, so the event loop
+     * is never blocked by name resolution.
+     * 
+     * @param request The HTTP request.
+     * @param unixDomainSocket The Unix domain socket file, if any.
+     */
+    NioExchange(
+            final @NotNull NioHttpRequest request,
+            final Path unixDomainSocket) {
+        super();
+        Validate.notNull(request);
+        this.method = request.getMethod();
+        if (unixDomainSocket == null) {
+            this.address = new InetSocketAddress(request.getHost(), request.getPort());
+            this.route = request.getHost() + ":" + request.getPort();
+        } else {
+            this.address = UnixDomainSockets.address(unixDomainSocket);
+            this.route = "unix:" + unixDomainSocket;
+        }
+        this.head = request.encodeHead();
+        this.body = request.getBodyBuffer();
+        this.bodyFile = request.getBodyFile();
+        this.connectTimeout = request.getConnectTimeout();
+        this.responseTimeout = request.getResponseTimeout();
+    }
+
+    /**
+     * Returns the target address.
+     * 
+     * @return The target address.
+     */
+    @NotNull SocketAddress getAddress() {
+        return this.address;
+    }
+
+    /**
+     * Returns the connection route key.
+     * 
+     * @return The connection route key.
+     */
+    @NotNull String getRoute() {
+        return this.route;
+    }
+
+    /**
+     * Returns the encoded request line and headers.
+     * 
+     * @return The encoded request head.
+     */
+    @NotNull byte[] getHead() {
+        return this.head;
+    }
+
+    /**
+     * Returns the request body, if any.
+     * 
+     * @return The request body.
+     */
+    ByteBuffer getBody() {
+        return this.body;
+    }
+
+    /**
+     * Returns the request file body, if any.
+     * 
+     * @return The request file body.
+     */
+    FileBodyProducer getBodyFile() {
+        return this.bodyFile;
+    }
+
+    /**
+     * Returns the connect timeout, if any.
+     * 
+     * @return The connect timeout.
+     */
+    Duration getConnectTimeout() {
+        return this.connectTimeout;
+    }
+
+    /**
+     * Returns the response timeout, if any.
+     * 
+     * @return The response timeout.
+     */
+    Duration getResponseTimeout() {
+        return this.responseTimeout;
+    }
+
+    /**
+     * Returns {@code true} if the response to this request cannot have
+     * a body.
+     * 
+     * @return If the response cannot have a body.
+     */
+    boolean isBodylessResponse() {
+        return Methods.HEAD.equals(this.method);
+    }
+
+    /**
+     * Returns the future response.
+     * 
+     * @return The future response.
+     */
+    @NotNull CompletableFuture<NioHttpResponse> getResponse() {
+        return this.response;
+    }
+
+    /**
+     * Returns {@code true} if the exchange has been completed, normally,
+     * exceptionally or through cancellation.
+     * 
+     * @return If the exchange has been completed.
+     */
+    boolean isDone() {
+        return this.response.isDone();
+    }
+
+    /**
+     * Completes the exchange with the specified response.
+     * 
+     * @param result The HTTP response.
+     */
+    void complete(
+            final @NotNull NioHttpResponse result) {
+        this.response.complete(result);
+    }
+
+    /**
+     * Completes the exchange with the specified error.
+     * 
+     * @param error The error.
+     */
+    void fail(
+            final @NotNull Throwable error) {
+        this.response.completeExceptionally(error);
+    }
+
+    /**
+     * Returns the connection the exchange is being executed on, if any.
+     * 
+     * @return The connection.
+     */
+    NioConnection getConnection() {
+        return this.connection;
+    }
+
+    /**
+     * Sets the connection the exchange is being executed on.
+     * 
+     * @param connection The connection.
+     */
+    void setConnection(
+            final NioConnection connection) {
+        this.connection = connection;
+    }
+
+    /**
+     * Returns {@code true} if the exchange can be retried on a new connection
+     * after a reused connection was found closed by the server before any
+     * response data was received. Only requests with idempotent methods are
+     * retried, and only once.
+     * 
+     * @return If the exchange can be retried.
+     */
+    boolean tryRetry() {
+        if (this.retried
+                || isDone()
+                || Methods.POST.equals(this.method)
+                || Methods.PATCH.equals(this.method)) {
+            return false;
+        }
+        this.retried = true;
+        return true;
+    }
+
+    /**
+     * Aborts the exchange, closing its connection if still in use by it.
+     * <p>
+     * Must be called from the event loop thread.
+     */
+    void abort() {
+        final NioConnection current = this.connection;
+        if (current != null && current.getExchange() == this) {
+            current.close();
+        }
+    }
+}
@@ -0,0 +1,417 @@
+package dev.orne.http.client.engine.nio;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.CookieManager;
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.lang3.Validate;
+
+import dev.orne.http.Methods;
+import dev.orne.http.client.FutureUtils;
+import dev.orne.http.client.HttpClientException;
+import dev.orne.http.client.engine.HttpClientEngine;
+import dev.orne.http.client.engine.HttpRequestCustomizer;
+import dev.orne.http.client.engine.HttpResponseHandler;
+import dev.orne.http.client.engine.InFlightRequests;
+
+/**
+ * Lightweight implementation of {@code HtppClientEngine} based on Java NIO,
+ * with no third party HTTP transport dependency.
+ * <p>
+ * Intended for plain HTTP/1.1 calls to local or sidecar services. All the
+ * connections are handled by a single {@code Selector} event loop thread,
+ * so no thread is blocked per request. Connections are kept alive and
+ * reused for subsequent requests to the same host and port. Request heads
+ * are written from direct buffers, together with the request body in
+ * gathering writes, and responses are parsed incrementally as they are
+ * received.
+ * <p>
+ * The response body is received completely before the
+ * {@code HttpResponseHandler} is invoked in a thread of the handler
+ * executor, so the event loop thread is never blocked by response handling.
+ * Bodies produced by {@code HttpRequest.BodyProducer} instances are
+ * buffered in memory before the request is sent.
+ * <p>
+ * Requests to local sidecar services can be sent through a Unix domain
+ * socket file instead of TCP connections (Java 16+). In that case the host
+ * and port of the request URIs are only used for the {@code Host} header and
+ * cookies, and all the requests are sent through the socket file.
+ * <p>
+ * Only {@code http} URIs are supported. TLS, proxies, redirects,
+ * HTTP/2 and response content decoding are not supported. The engine is
+ * not registered as {@code HttpClientEngine} SPI provider, so it must be
+ * instantiated explicitly.
+ * 
+ * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ */
+public class NioHttpClientEngine
+implements HttpClientEngine {
+
+    /** The supported URI scheme. */
+    public static final String SCHEME = "http";
+    /** The default maximum number of idle connections per route. */
+    public static final int DEFAULT_MAX_IDLE_PER_ROUTE = 16;
+    /** The event loop thread names prefix. */
+    private static final String THREAD_NAME_PREFIX = "http-client-nio-";
+    /** The event loop threads counter. */
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+    /** The cookie manager. */
+    private final @NotNull CookieManager cookieManager;
+    /** The HTTP client's cookie store. */
+    private final @NotNull NioCookieStore cookieStore;
+    /** The executor of the HTTP response handlers. */
+    private final @NotNull Executor handlerExecutor;
+    /** The Unix domain socket file, if any. */
+    private final Path unixDomainSocket;
+    /** The event loop. */
+    private final @NotNull NioEventLoop eventLoop;
+    /** The requests in flight. */
+    private final @NotNull InFlightRequests inFlightRequests = new InFlightRequests();
+
+    /**
+     * Creates a new instance with the default configuration.
+     * <p>
+     * This includes:
+     * <ul>
+     * <li>A clean {@code CookieManager}.</li>
+     * <li>Up to {@value #DEFAULT_MAX_IDLE_PER_ROUTE} idle connections
+     * per route.</li>
+     * <li>HTTP response handlers executed in
+     * {@code ForkJoinPool.commonPool()}.</li>
+     * </ul>
+     */
+    public NioHttpClientEngine() {
+        this(DEFAULT_MAX_IDLE_PER_ROUTE, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a new instance with a clean {@code CookieManager}.
+     * 
+     * @param maxIdlePerRoute The maximum number of idle connections kept
+     * alive per route.
+     * @param handlerExecutor The executor of the HTTP response handlers.
+     */
+    public NioHttpClientEngine(
+            final int maxIdlePerRoute,
+            final @NotNull Executor handlerExecutor) {
+        this(maxIdlePerRoute, handlerExecutor, new CookieManager());
+    }
+
+    /**
+     * Creates a new instance.
+     * 
+     * @param maxIdlePerRoute The maximum number of idle connections kept
+     * alive per route.
+     * @param handlerExecutor The executor of the HTTP response handlers.
+     * @param cookieManager The cookie manager.
+     * @throws UncheckedIOException If an error occurs opening the
+     * event loop selector.
+     */
+    public NioHttpClientEngine(
+            final int maxIdlePerRoute,
+            final @NotNull Executor handlerExecutor,
+            final @NotNull CookieManager cookieManager) {
+        this(maxIdlePerRoute, handlerExecutor, cookieManager, null);
+    }
+
+    /**
+     * Creates a new instance that sends all the requests through the
+     * specified Unix domain socket file.
+     * 
+     * @param maxIdlePerRoute The maximum number of idle connections kept
+     * alive per route.
+     * @param handlerExecutor The executor of the HTTP response handlers.
+     * @param cookieManager The cookie manager.
+     * @param unixDomainSocket The Unix domain socket file, or {@code null}
+     * to use TCP connections.
+     * @throws UnsupportedOperationException If a Unix domain socket file is
+     * specified and Unix domain sockets are not supported in the current
+     * runtime.
+     * @throws UncheckedIOException If an error occurs opening the
+     * event loop selector.
+     */
+    public NioHttpClientEngine(
+            final int maxIdlePerRoute,
+            final @NotNull Executor handlerExecutor,
+            final @NotNull CookieManager cookieManager,
+            final Path unixDomainSocket) {
+        super();
+        this.handlerExecutor = Validate.notNull(handlerExecutor, "Handler executor is required");
+        this.cookieManager = Validate.notNull(cookieManager, "Cookie manager is required");
+        if (unixDomainSocket != null && !UnixDomainSockets.isSupported()) {
+            throw new UnsupportedOperationException(
+                    "Unix domain sockets require Java 16 or above");
+        }
+        this.unixDomainSocket = unixDomainSocket;
+        this.cookieStore = new NioCookieStore(cookieManager.getCookieStore());
+        try {
+            this.eventLoop = new NioEventLoop(maxIdlePerRoute, NioHttpClientEngine::newLoopThread);
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Error opening HTTP client event loop", e);
+        }
+    }
+
+    /**
+     * Creates a new event loop thread.
+     * 
+     * @param task The event loop task.
+     * @return The event loop thread.
+     */
+    private static @NotNull Thread newLoopThread(
+            final @NotNull Runnable task) {
+        final Thread thread = new Thread(task, THREAD_NAME_PREFIX + THREAD_COUNT.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull NioCookieStore getCookieStore() {
+        return this.cookieStore;
+    }
+
+    /**
+     * Returns the executor of the HTTP response handlers.
+     * 
+     * @return The executor of the HTTP response handlers.
+     */
+    protected @NotNull Executor getHandlerExecutor() {
+        return this.handlerExecutor;
+    }
+
+    /**
+     * Returns the Unix domain socket file all the requests are sent through,
+     * if any.
+     * 
+     * @return The Unix domain socket file, or {@code null} if TCP
+     * connections are used.
+     */
+    public Path getUnixDomainSocket() {
+        return this.unixDomainSocket;
+    }
+
+    /**
+     * Returns the event loop.
+     * 
+     * @return The event loop.
+     */
+    @NotNull NioEventLoop getEventLoop() {
+        return this.eventLoop;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The connect timeout of the request limits the establishment of new
+     * connections. The response timeout limits the inactivity time while
+     * waiting for response data.
+     */
+    @Override
+    public @NotNull CompletionStage<Void> executeHttpRequest(
+            final @NotNull URI uri,
+            final @NotNull String method,
+            final @NotNull HttpRequestCustomizer requestCustomizer,
+            final @NotNull HttpResponseHandler responseHandler)
+    throws HttpClientException {
+        Validate.notNull(uri);
+        Validate.isTrue(uri.isAbsolute(), "The request URI must be absolute");
+        return this.inFlightRequests.execute(
+                () -> submitHttpRequest(uri, method, requestCustomizer, responseHandler));
+    }
+
+    /**
+     * Creates the HTTP request and dispatches it to the event loop.
+     * 
+     * @param uri The HTTP request target absolute URI.
+     * @param method The HTTP request method.
+     * @param requestCustomizer The HTTP request customizer.
+     * @param responseHandler The HTTP response handler.
+     * @return The future HTTP request result.
+     * @throws HttpClientException If an exception occurs creating the
+     * request
+     */
+    private @NotNull CompletionStage<Void> submitHttpRequest(
+            final @NotNull URI uri,
+            final @NotNull String method,
+            final @NotNull HttpRequestCustomizer requestCustomizer,
+            final @NotNull HttpResponseHandler responseHandler)
+    throws HttpClientException {
+        if (!SCHEME.equalsIgnoreCase(uri.getScheme())) {
+            throw new HttpClientException(
+                    String.format("Unsupported URI scheme: %s", uri.getScheme()));
+        }
+        final NioHttpRequest request = createRequest(method, uri);
+        requestCustomizer.customizeRequest(request);
+        addCookies(request);
+        final NioExchange exchange = new NioExchange(request, this.unixDomainSocket);
+        final CompletableFuture<Void> handling = exchange.getResponse().thenAcceptAsync(
+                response -> handleResponse(uri, response, responseHandler),
+                this.handlerExecutor);
+        final CompletableFuture<Void> result = new CompletableFuture<>();
+        handling.whenComplete((nop, error) -> {
+            if (error == null) {
+                result.complete(null);
+            } else {
+                result.completeExceptionally(error);
+            }
+        });
+        result.whenComplete((nop, error) -> {
+            if (!exchange.isDone()) {
+                // Cancelled or timed out
+                exchange.getResponse().cancel(false);
+            }
+        });
+        exchange.getResponse().whenComplete((response, error) -> {
+            if (error != null) {
+                this.eventLoop.execute(exchange::abort);
+            }
+        });
+        if (!this.eventLoop.execute(() -> this.eventLoop.dispatch(exchange, true))) {
+            throw new HttpClientException("HTTP client engine is closed");
+        }
+        if (request.getTimeout() != null) {
+            FutureUtils.orTimeout(result, request.getTimeout(), this.handlerExecutor);
+        }
+        return result;
+    }
+
+    /**
+     * Creates a new HTTP request to the specified path and with the specified
+     * HTTP method.
+     * 
+     * @param method The HTTP method.
+     * @param path The target URI.
+     * @return The HTTP request.
+     * @throws HttpClientException If the specified method is not supported.
+     */
+    protected @NotNull NioHttpRequest createRequest(
+            final @NotNull String method,
+            final @NotNull URI path)
+    throws HttpClientException {
+        switch (method) {
+            case Methods.GET:
+            case Methods.HEAD:
+            case Methods.POST:
+            case Methods.PUT:
+            case Methods.DELETE:
+            case Methods.OPTIONS:
+            case Methods.TRACE:
+            case Methods.PATCH:
+                return new NioHttpRequest(method, path);
+            default:
+                throw new HttpClientException(
+                        String.format("Unsupported HTTP method: %s", method));
+        }
+    }
+
+    /**
+     * Adds the stored cookies applicable to the specified request.
+     * 
+     * @param request The HTTP request.
+     * @throws HttpClientException If an error occurs retrieving the cookies.
+     */
+    protected void addCookies(
+            final @NotNull NioHttpRequest request)
+    throws HttpClientException {
+        try {
+            request.addCookies(this.cookieManager.get(request.getUri(), Collections.emptyMap()));
+        } catch (final IOException e) {
+            throw new HttpClientException("Error retrieving HTTP request cookies", e);
+        }
+    }
+
+    /**
+     * Stores the cookies of the received HTTP response and handles it with
+     * the specified handler.
+     * 
+     * @param uri The request URI.
+     * @param response The received HTTP response.
+     * @param responseHandler The HTTP response handler.
+     */
+    protected void handleResponse(
+            final @NotNull URI uri,
+            final @NotNull NioHttpResponse response,
+            final @NotNull HttpResponseHandler responseHandler) {
+        try {
+            this.cookieManager.put(uri, response.getHeaders());
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Error storing HTTP response cookies", e);
+        }
+        responseHandler.handle(response);
+    }
+
+    /**
+     * Returns the number of requests in flight.
+     * 
+     * @return The number of requests in flight.
+     */
+    public int getInFlightCount() {
+        return this.inFlightRequests.getCount();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The event loop thread is terminated when the engine is closed. The
+     * executor of the HTTP response handlers is not owned by the engine,
+     * and is not shut down.
+     */
+    @Override
+    public int shutdown(
+            final @NotNull Duration timeout)
+    throws IOException {
+        Validate.notNull(timeout, "Timeout is required");
+        final int aborted = this.inFlightRequests.shutdown(timeout);
+        close();
+        return aborted;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Closes all the connections, failing the requests in progress.
+     */
+    @Override
+    public void close()
+    throws IOException {
+        this.eventLoop.close();
+    }
+}
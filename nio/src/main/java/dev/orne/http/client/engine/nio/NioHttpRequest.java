@@ -0,0 +1,474 @@
+package dev.orne.http.client.engine.nio;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.lang3.Validate;
+
+import dev.orne.http.ContentType;
+import dev.orne.http.Headers;
+import dev.orne.http.Methods;
+import dev.orne.http.client.HttpClientException;
+import dev.orne.http.client.HttpRequestBodyGenerationException;
+import dev.orne.http.client.engine.FileBodyProducer;
+import dev.orne.http.client.engine.HttpRequest;
+
+/**
+ * Implementation of {@code HttpRequest} for the NIO HTTP/1.1 engine.
+ * <p>
+ * Collects the headers and body of the request and encodes the request
+ * line and headers in HTTP/1.1 wire format. Bodies produced by
+ * {@code HttpRequest.BodyProducer} instances are buffered in memory,
+ * so every request is sent with a {@code Content-Length} header. File
+ * bodies are not buffered; they are transferred from the file to the
+ * socket channel when the request is sent.
+ * 
+ * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ */
+public class NioHttpRequest
+implements HttpRequest {
+
+    /** The HTTP protocol version of the requests. */
+    public static final String PROTOCOL_VERSION = "HTTP/1.1";
+    /** The default port of HTTP URIs. */
+    public static final int DEFAULT_PORT = 80;
+    /** The default charset for text bodies without charset. */
+    private static final Charset DEFAULT_CHARSET = StandardCharsets.UTF_8;
+    /** The charset of the request line and headers. */
+    private static final Charset HEAD_CHARSET = StandardCharsets.ISO_8859_1;
+    /** The header line separator. */
+    private static final String CRLF = "\r\n";
+    /** The header name and value separator. */
+    private static final String HEADER_SEPARATOR = ": ";
+
+    /** The HTTP method. */
+    private final @NotNull String method;
+    /** The target URI. */
+    private final @NotNull URI uri;
+    /** The HTTP request headers, as name and value pairs. */
+    private final @NotNull List<String[]> headers = new ArrayList<>();
+    /** The HTTP request body content type. */
+    private ContentType contentType;
+    /** The HTTP request body. */
+    private byte[] body;
+    /** The HTTP request file body. */
+    private FileBodyProducer bodyFile;
+    /** The connect timeout of the request, if any. */
+    private Duration connectTimeout;
+    /** The response timeout of the request, if any. */
+    private Duration responseTimeout;
+    /** The total timeout of the request, if any. */
+    private Duration timeout;
+
+    /**
+     * Creates a new instance.
+     * 
+     * @param method The HTTP method.
+     * @param uri The target URI.
+     */
+    public NioHttpRequest(
+            final @NotNull String method,
+            final @NotNull URI uri) {
+        super();
+        this.method = Validate.notNull(method);
+        this.uri = Validate.notNull(uri);
+        Validate.notNull(uri.getHost(), "The request URI must contain a host");
+    }
+
+    /**
+     * Returns the HTTP method.
+     * 
+     * @return The HTTP method.
+     */
+    public @NotNull String getMethod() {
+        return this.method;
+    }
+
+    /**
+     * Returns the target URI.
+     * 
+     * @return The target URI.
+     */
+    public @NotNull URI getUri() {
+        return this.uri;
+    }
+
+    /**
+     * Returns the target host.
+     * 
+     * @return The target host.
+     */
+    public @NotNull String getHost() {
+        return this.uri.getHost();
+    }
+
+    /**
+     * Returns the target port, defaulting to {@value #DEFAULT_PORT}.
+     * 
+     * @return The target port.
+     */
+    public int getPort() {
+        return this.uri.getPort() < 0 ? DEFAULT_PORT : this.uri.getPort();
+    }
+
+    /**
+     * Returns the HTTP request headers, as name and value pairs.
+     * 
+     * @return The HTTP request headers.
+     */
+    protected @NotNull List<String[]> getHeaders() {
+        return this.headers;
+    }
+
+    /**
+     * Returns the HTTP request body content type, if any.
+     * 
+     * @return The HTTP request body content type.
+     */
+    public ContentType getContentType() {
+        return this.contentType;
+    }
+
+    /**
+     * Returns the HTTP request body, if any.
+     * 
+     * @return The HTTP request body.
+     */
+    public byte[] getBody() {
+        return this.body;
+    }
+
+    /**
+     * Returns the HTTP request file body, if any.
+     * 
+     * @return The HTTP request file body.
+     */
+    public FileBodyProducer getBodyFile() {
+        return this.bodyFile;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void addHeader(
+            final @NotNull String header,
+            final @NotNull String... values)
+    throws HttpClientException {
+        Validate.notNull(header);
+        Validate.notNull(values);
+        Validate.noNullElements(values);
+        if (!isValidHeaderName(header)) {
+            throw new HttpClientException(
+                    String.format("Unsupported HTTP request header: %s", header));
+        }
+        for (final String value : values) {
+            if (value.indexOf('\r') >= 0 || value.indexOf('\n') >= 0) {
+                throw new HttpClientException(
+                        String.format("Unsupported HTTP request header value: %s", header));
+            }
+        }
+        for (final String value : values) {
+            this.headers.add(new String[] { header, value });
+        }
+    }
+
+    /**
+     * Adds the cookies returned by a {@code CookieManager} for this request
+     * as a single {@code Cookie} header.
+     * 
+     * @param cookies The cookie headers returned by the cookie manager.
+     */
+    public void addCookies(
+            final @NotNull Map<String, List<String>> cookies) {
+        Validate.notNull(cookies);
+        final List<String> values = cookies.get(Headers.Request.COOKIE);
+        if (values != null && !values.isEmpty()) {
+            this.headers.add(new String[] {
+                    Headers.Request.COOKIE,
+                    String.join("; ", values) });
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setBody(
+            final @NotNull ContentType contentType,
+            final @NotNull String body)
+    throws HttpClientException {
+        Validate.notNull(contentType);
+        Validate.notNull(body);
+        final Charset charset = contentType.getCharset();
+        setBodyContent(contentType, body.getBytes(charset == null ? DEFAULT_CHARSET : charset));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setBody(
+            final @NotNull ContentType contentType,
+            final @NotNull byte[] body)
+    throws HttpClientException {
+        Validate.notNull(body);
+        setBodyContent(contentType, body);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The produced body is buffered in memory, unless the producer
+     * is a {@code FileBodyProducer}.
+     */
+    @Override
+    public void setBody(
+            final @NotNull ContentType contentType,
+            final long length,
+            final @NotNull BodyProducer dataProvider)
+    throws HttpClientException {
+        Validate.notNull(dataProvider);
+        if (dataProvider instanceof FileBodyProducer) {
+            this.contentType = Validate.notNull(contentType);
+            this.body = null;
+            this.bodyFile = (FileBodyProducer) dataProvider;
+            return;
+        }
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream(
+                length > 0 && length < Integer.MAX_VALUE ? (int) length : 256);
+        try {
+            dataProvider.writeBody(buffer);
+        } catch (final IOException e) {
+            throw new HttpRequestBodyGenerationException("Error generating HTTP request body", e);
+        }
+        setBodyContent(contentType, buffer.toByteArray());
+    }
+
+    /**
+     * Sets the HTTP request body content and content type.
+     * 
+     * @param contentType The body content type.
+     * @param body The body content.
+     */
+    protected void setBodyContent(
+            final @NotNull ContentType contentType,
+            final @NotNull byte[] body) {
+        this.contentType = Validate.notNull(contentType);
+        this.body = Validate.notNull(body);
+        this.bodyFile = null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setConnectTimeout(
+            final @NotNull Duration timeout) {
+        this.connectTimeout = validateTimeout(timeout, false);
+    }
+
+    /**
+     * Returns the connect timeout of the request, if any.
+     * 
+     * @return The connect timeout, or {@code null} for no connect timeout.
+     */
+    public Duration getConnectTimeout() {
+        return this.connectTimeout;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The response timeout is applied as the maximum inactivity time
+     * while waiting for response data.
+     */
+    @Override
+    public void setResponseTimeout(
+            final @NotNull Duration timeout) {
+        this.responseTimeout = validateTimeout(timeout, false);
+    }
+
+    /**
+     * Returns the response timeout of the request, if any.
+     * 
+     * @return The response timeout, or {@code null} for no response
+     * timeout.
+     */
+    public Duration getResponseTimeout() {
+        return this.responseTimeout;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setTimeout(
+            final @NotNull Duration timeout) {
+        this.timeout = validateTimeout(timeout, true);
+    }
+
+    /**
+     * Returns the total timeout of the request, if any.
+     * 
+     * @return The total timeout, or {@code null} for no total timeout.
+     */
+    public Duration getTimeout() {
+        return this.timeout;
+    }
+
+    /**
+     * Validates that the specified timeout is not {@code null} nor negative.
+     * 
+     * @param timeout The timeout to validate.
+     * @param allowZero If zero timeouts are allowed.
+     * @return The validated timeout.
+     */
+    protected static @NotNull Duration validateTimeout(
+            final @NotNull Duration timeout,
+            final boolean allowZero) {
+        Validate.notNull(timeout);
+        Validate.isTrue(!timeout.isNegative(), "Timeout cannot be negative");
+        Validate.isTrue(allowZero || !timeout.isZero(), "Timeout cannot be zero");
+        return timeout;
+    }
+
+    /**
+     * Returns {@code true} if the specified header name is a valid HTTP
+     * token.
+     * 
+     * @param name The header name.
+     * @return If the header name is valid.
+     */
+    protected static boolean isValidHeaderName(
+            final @NotNull String name) {
+        if (name.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            final char current = name.charAt(i);
+            if (current <= ' ' || current >= 127 || "\"(),/:;<=>?@[\\]{}".indexOf(current) >= 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Encodes the request line and headers of the request in HTTP/1.1
+     * wire format, including the terminating empty line.
+     * <p>
+     * A {@code Host} header is added unless set explicitly. The
+     * {@code Content-Type} and {@code Content-Length} headers are added
+     * for requests with body. Requests with methods that expect a body
+     * are sent with a zero {@code Content-Length} if no body is set.
+     * 
+     * @return The encoded request head.
+     */
+    public @NotNull byte[] encodeHead() {
+        final StringBuilder head = new StringBuilder(256);
+        head.append(this.method).append(' ');
+        final String path = this.uri.getRawPath();
+        head.append(path == null || path.isEmpty() ? "/" : path);
+        if (this.uri.getRawQuery() != null) {
+            head.append('?').append(this.uri.getRawQuery());
+        }
+        head.append(' ').append(PROTOCOL_VERSION).append(CRLF);
+        if (!containsHeader(Headers.Request.HOST)) {
+            appendHeader(head, Headers.Request.HOST, this.uri.getPort() < 0
+                    ? this.uri.getHost()
+                    : this.uri.getHost() + ":" + this.uri.getPort());
+        }
+        for (final String[] header : this.headers) {
+            appendHeader(head, header[0], header[1]);
+        }
+        if (this.body != null) {
+            appendHeader(head, Headers.Request.CONTENT_TYPE, this.contentType.getHeader());
+            appendHeader(head, Headers.Request.CONTENT_LENGTH, String.valueOf(this.body.length));
+        } else if (this.bodyFile != null) {
+            appendHeader(head, Headers.Request.CONTENT_TYPE, this.contentType.getHeader());
+            appendHeader(head, Headers.Request.CONTENT_LENGTH, String.valueOf(this.bodyFile.getLength()));
+        } else if (Methods.POST.equals(this.method)
+                || Methods.PUT.equals(this.method)
+                || Methods.PATCH.equals(this.method)) {
+            appendHeader(head, Headers.Request.CONTENT_LENGTH, "0");
+        }
+        head.append(CRLF);
+        return head.toString().getBytes(HEAD_CHARSET);
+    }
+
+    /**
+     * Returns the HTTP request body as a buffer ready to be written, if any.
+     * 
+     * @return The HTTP request body buffer, or {@code null} if the request
+     * has no body.
+     */
+    public ByteBuffer getBodyBuffer() {
+        return this.body == null ? null : ByteBuffer.wrap(this.body);
+    }
+
+    /**
+     * Returns {@code true} if a header with the specified name has been
+     * added to the request.
+     * 
+     * @param name The header name.
+     * @return If the header has been added.
+     */
+    protected boolean containsHeader(
+            final @NotNull String name) {
+        for (final String[] header : this.headers) {
+            if (header[0].equalsIgnoreCase(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Appends the specified header line to the request head.
+     * 
+     * @param head The request head.
+     * @param name The header name.
+     * @param value The header value.
+     */
+    private static void appendHeader(
+            final @NotNull StringBuilder head,
+            final @NotNull String name,
+            final @NotNull String value) {
+        head.append(name).append(HEADER_SEPARATOR).append(value).append(CRLF);
+    }
+}
@@ -0,0 +1,135 @@
+package dev.orne.http.client.engine.nio;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.lang3.Validate;
+
+import dev.orne.http.client.HttpClientException;
+import dev.orne.http.client.engine.HttpResponse;
+import dev.orne.http.client.engine.HttpResponseBody;
+
+/**
+ * Implementation of {@code HttpResponse} for the NIO HTTP/1.1 engine.
+ * <p>
+ * The response body content is completely received and buffered in
+ * memory before the response is handled.
+ * 
+ * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ */
+public class NioHttpResponse
+implements HttpResponse {
+
+    /** The response status code. */
+    private final int statusCode;
+    /** The response status reason phrase. */
+    private final String statusReason;
+    /** The response headers, indexed by case insensitive name. */
+    private final @NotNull Map<String, List<String>> headers;
+    /** The response body content. */
+    private final byte[] body;
+
+    /**
+     * Creates a new instance.
+     * 
+     * @param statusCode The response status code.
+     * @param statusReason The response status reason phrase.
+     * @param headers The response headers.
+     * @param body The response body content, or {@code null} if the
+     * response has no body.
+     */
+    public NioHttpResponse(
+            final int statusCode,
+            final String statusReason,
+            final @NotNull Map<String, List<String>> headers,
+            final byte[] body) {
+        super();
+        this.statusCode = statusCode;
+        this.statusReason = statusReason;
+        Validate.notNull(headers);
+        this.headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        this.headers.putAll(headers);
+        this.body = body;
+    }
+
+    /**
+     * Returns the response headers, indexed by case insensitive name.
+     * 
+     * @return The response headers.
+     */
+    public @NotNull Map<String, List<String>> getHeaders() {
+        return Collections.unmodifiableMap(this.headers);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getStatusCode() {
+        return this.statusCode;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getStatusReason() {
+        return this.statusReason;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull String[] getHeader(
+            final @NotNull String header)
+    throws HttpClientException {
+        Validate.notNull(header);
+        return this.headers.getOrDefault(header, Collections.emptyList())
+                .toArray(new String[0]);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Returns {@code null} for responses that cannot contain a body:
+     * responses to {@code HEAD} requests and informational,
+     * {@code 204 No Content} and {@code 304 Not Modified} responses.
+     */
+    @Override
+    public HttpResponseBody getBody()
+    throws HttpClientException {
+        if (this.body == null) {
+            return null;
+        }
+        return new NioHttpResponseBody(this.headers, this.body);
+    }
+}
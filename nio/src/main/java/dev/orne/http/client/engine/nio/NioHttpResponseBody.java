@@ -0,0 +1,232 @@
+package dev.orne.http.client.engine.nio;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.lang3.Validate;
+
+import dev.orne.http.ContentType;
+import dev.orne.http.Headers;
+import dev.orne.http.client.HttpResponseHandlingException;
+import dev.orne.http.client.engine.HttpResponseBody;
+
+/**
+ * Implementation of {@code HttpResponseBody} for the NIO HTTP/1.1 engine,
+ * backed by the buffered response body content.
+ * 
+ * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ */
+class NioHttpResponseBody
+implements HttpResponseBody {
+
+    /** The response headers. */
+    private final @NotNull Map<String, List<String>> headers;
+    /** The response body content. */
+    private final @NotNull byte[] content;
+
+    /**
+     * Creates a new intance.
+     * 
+     * @param headers The response headers, indexed by case insensitive name.
+     * @param content The response body content.
+     */
+    public NioHttpResponseBody(
+            final @NotNull Map<String, List<String>> headers,
+            final @NotNull byte[] content) {
+        super();
+        this.headers = Validate.notNull(headers);
+        this.content = Validate.notNull(content);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ContentType getContentType()
+    throws HttpResponseHandlingException {
+        final List<String> values = this.headers.get(Headers.Response.CONTENT_TYPE);
+        return parseContentType(values == null || values.isEmpty() ? null : values.get(0));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Returns the length of the received content, that is always known.
+     */
+    @Override
+    public long getContentLength()
+    throws HttpResponseHandlingException {
+        return this.content.length;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public InputStream getContent()
+    throws HttpResponseHandlingException {
+        return new ByteArrayInputStream(this.content);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Returns a read only view of the received content, without copying it.
+     */
+    @Override
+    public ByteBuffer getContentBuffer()
+    throws HttpResponseHandlingException {
+        return ByteBuffer.wrap(this.content).asReadOnlyBuffer();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The received content is written directly to the target channel.
+     */
+    @Override
+    public long transferTo(
+            final @NotNull WritableByteChannel target)
+    throws HttpResponseHandlingException {
+        Validate.notNull(target, "Target channel is required");
+        final ByteBuffer buffer = getContentBuffer();
+        try {
+            while (buffer.hasRemaining()) {
+                target.write(buffer);
+            }
+        } catch (final IOException e) {
+            throw new HttpResponseHandlingException(
+                    "Error transferring response body content", e);
+        }
+        return this.content.length;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The content is already received, so there is nothing to discard.
+     */
+    @Override
+    public void discard()
+    throws HttpResponseHandlingException {
+        // Content already received
+    }
+
+    /**
+     * Parses the specified content type header and creates a
+     * {@code ContentType} instance with the header values.
+     * 
+     * @param header The content type header value.
+     * @return The parsed content type.
+     * @throws HttpResponseHandlingException If the header is not a valid
+     * content type.
+     */
+    public static ContentType parseContentType(
+            final String header)
+    throws HttpResponseHandlingException {
+        if (header == null || header.trim().isEmpty()) {
+            return null;
+        }
+        final List<String> tokens = splitParameters(header);
+        final String mimeType = tokens.get(0).trim();
+        if (mimeType.isEmpty() || mimeType.indexOf('/') < 0) {
+            throw new HttpResponseHandlingException("Received illegal Content-Type header: " + header);
+        }
+        final Map<String, String> parameters = new LinkedHashMap<>();
+        for (final String token : tokens.subList(1, tokens.size())) {
+            final int separator = token.indexOf(ContentType.PARAMETER_VALUE_SEPARATOR);
+            if (separator > 0) {
+                parameters.put(
+                        token.substring(0, separator).trim(),
+                        unquote(token.substring(separator + 1).trim()));
+            } else if (!token.trim().isEmpty()) {
+                parameters.put(token.trim(), null);
+            }
+        }
+        return new ContentType(mimeType, parameters);
+    }
+
+    /**
+     * Splits the specified header value in parameter separated tokens,
+     * ignoring separators in quoted strings.
+     * 
+     * @param header The header value.
+     * @return The header value tokens.
+     */
+    private static @NotNull List<String> splitParameters(
+            final @NotNull String header) {
+        final List<String> result = new ArrayList<>();
+        final char separator = ContentType.PARAMETER_SEPARATOR.charAt(0);
+        boolean quoted = false;
+        int start = 0;
+        for (int i = 0; i < header.length(); i++) {
+            final char current = header.charAt(i);
+            if (current == '"') {
+                quoted = !quoted;
+            } else if (current == '\\' && quoted) {
+                i++;
+            } else if (current == separator && !quoted) {
+                result.add(header.substring(start, i));
+                start = i + 1;
+            }
+        }
+        result.add(header.substring(start));
+        return result;
+    }
+
+    /**
+     * Removes the surrounding quotes and escape characters of the specified
+     * parameter value, if quoted.
+     * 
+     * @param value The parameter value.
+     * @return The unquoted parameter value.
+     */
+    private static @NotNull String unquote(
+            final @NotNull String value) {
+        if (value.length() < 2 || value.charAt(0) != '"' || value.charAt(value.length() - 1) != '"') {
+            return value;
+        }
+        final StringBuilder result = new StringBuilder(value.length());
+        for (int i = 1; i < value.length() - 1; i++) {
+            char current = value.charAt(i);
+            if (current == '\\' && i < value.length() - 2) {
+                current = value.charAt(++i);
+            }
+            result.append(current);
+        }
+        return result.toString();
+    }
+}
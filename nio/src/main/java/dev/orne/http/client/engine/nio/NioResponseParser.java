@@ -0,0 +1,555 @@
+package dev.orne.http.client.engine.nio;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.validation.constraints.NotNull;
+
+import dev.orne.http.Headers;
+import dev.orne.http.StatusCodes;
+
+/**
+ * Incremental HTTP/1.1 response parser.
+ * <p>
+ * Response data is fed as it is read from the connection, in buffers of
+ * any size. The status line and headers are parsed as soon as they are
+ * complete, and the body content is accumulated as it arrives, supporting
+ * {@code Content-Length} delimited, chunked and connection close delimited
+ * bodies. Interim {@code 1xx} responses are skipped.
+ * <p>
+ * Instances are not thread safe, and are intended to be used from the
+ * event loop thread only.
+ * 
+ * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ */
+class NioResponseParser {
+
+    /** The maximum length of the status, header and chunk size lines. */
+    public static final int MAX_LINE_LENGTH = 8 * 1024;
+    /** The maximum number of headers in a response. */
+    public static final int MAX_HEADER_COUNT = 256;
+    /** The maximum size of a buffered response body. */
+    public static final int MAX_BODY_LENGTH = Integer.MAX_VALUE - 8;
+    /** The maximum initial capacity of the body buffer. */
+    private static final int MAX_INITIAL_BODY_CAPACITY = 64 * 1024;
+    /** The chunked transfer coding. */
+    private static final String CHUNKED = "chunked";
+    /** The connection close option. */
+    private static final String CLOSE = "close";
+    /** The connection keep alive option. */
+    private static final String KEEP_ALIVE = "keep-alive";
+    /** The HTTP/1.0 protocol version. */
+    private static final String HTTP_1_0 = "HTTP/1.0";
+    /** The HTTP protocol version prefix. */
+    private static final String HTTP_PREFIX = "HTTP/";
+
+    /**
+     * The parser states.
+     */
+    enum State {
+        /** Waiting for the status line. */
+        STATUS_LINE,
+        /** Parsing the response headers. */
+        HEADERS,
+        /** Reading a {@code Content-Length} delimited body. */
+        BODY,
+        /** Waiting for a chunk size line. */
+        CHUNK_SIZE,
+        /** Reading chunk data. */
+        CHUNK_DATA,
+        /** Waiting for the line break after chunk data. */
+        CHUNK_END,
+        /** Parsing the chunked body trailers. */
+        TRAILERS,
+        /** Reading a connection close delimited body. */
+        UNTIL_CLOSE,
+        /** Response completely parsed. */
+        COMPLETE
+    }
+
+    /** If the response is for a request that cannot have a response body. */
+    private final boolean bodyless;
+    /** The current line buffer. */
+    private final StringBuilder line = new StringBuilder(128);
+    /** The response headers. */
+    private final @NotNull Map<String, List<String>> headers =
+            new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    /** The current state. */
+    private @NotNull State state = State.STATUS_LINE;
+    /** If any response data has been received. */
+    private boolean started;
+    /** The response protocol version. */
+    private String version;
+    /** The response status code. */
+    private int statusCode;
+    /** The response status reason phrase. */
+    private String reason;
+    /** The number of parsed headers. */
+    private int headerCount;
+    /** The remaining bytes of the current body or chunk. */
+    private long remaining;
+    /** The response body buffer. */
+    private byte[] body;
+    /** The response body length. */
+    private int bodyLength;
+    /** If the connection can be reused after the response. */
+    private boolean keepAlive;
+
+    /**
+     * Creates a new instance.
+     * 
+     * @param bodyless If the response is for a request that cannot have
+     * a response body, like {@code HEAD} requests.
+     */
+    NioResponseParser(
+            final boolean bodyless) {
+        super();
+        this.bodyless = bodyless;
+    }
+
+    /**
+     * Returns the current parser state.
+     * 
+     * @return The current parser state.
+     */
+    @NotNull State getState() {
+        return this.state;
+    }
+
+    /**
+     * Returns {@code true} if any response data has been received.
+     * 
+     * @return If any response data has been received.
+     */
+    boolean isStarted() {
+        return this.started;
+    }
+
+    /**
+     * Returns {@code true} if the response has been completely parsed.
+     * 
+     * @return If the response has been completely parsed.
+     */
+    boolean isComplete() {
+        return this.state == State.COMPLETE;
+    }
+
+    /**
+     * Returns the response protocol version.
+     * 
+     * @return The response protocol version.
+     */
+    String getVersion() {
+        return this.version;
+    }
+
+    /**
+     * Returns the response status code.
+     * 
+     * @return The response status code.
+     */
+    int getStatusCode() {
+        return this.statusCode;
+    }
+
+    /**
+     * Returns the response status reason phrase, if any.
+     * 
+     * @return The response status reason phrase.
+     */
+    String getReason() {
+        return this.reason;
+    }
+
+    /**
+     * Returns the response headers, indexed by case insensitive name.
+     * 
+     * @return The response headers.
+     */
+    @NotNull Map<String, List<String>> getHeaders() {
+        return this.headers;
+    }
+
+    /**
+     * Returns the response body content, if the response has body.
+     * 
+     * @return The response body content, or {@code null} if the response
+     * cannot have body.
+     */
+    byte[] getBody() {
+        if (this.body == null) {
+            return null;
+        }
+        return this.body.length == this.bodyLength
+                ? this.body
+                : Arrays.copyOf(this.body, this.bodyLength);
+    }
+
+    /**
+     * Returns {@code true} if the connection can be reused for other
+     * requests once the response is complete.
+     * 
+     * @return If the connection can be reused.
+     */
+    boolean isKeepAlive() {
+        return this.keepAlive;
+    }
+
+    /**
+     * Parses the available data of the specified buffer.
+     * <p>
+     * Data is consumed until the buffer is exhausted or the response is
+     * complete. Any data after the end of the response is left in the
+     * buffer.
+     * 
+     * @param buffer The buffer with the received data.
+     * @return If the response is complete.
+     * @throws IOException If the received data is not a valid HTTP/1.1
+     * response.
+     */
+    boolean parse(
+            final @NotNull ByteBuffer buffer)
+    throws IOException {
+        if (buffer.hasRemaining()) {
+            this.started = true;
+        }
+        while (buffer.hasRemaining() && this.state != State.COMPLETE) {
+            switch (this.state) {
+                case STATUS_LINE:
+                    if (readLine(buffer)) {
+                        parseStatusLine(takeLine());
+                    }
+                    break;
+                case HEADERS:
+                    if (readLine(buffer)) {
+                        parseHeaderLine(takeLine());
+                    }
+                    break;
+                case BODY:
+                case CHUNK_DATA:
+                    readContent(buffer);
+                    break;
+                case CHUNK_SIZE:
+                    if (readLine(buffer)) {
+                        parseChunkSize(takeLine());
+                    }
+                    break;
+                case CHUNK_END:
+                    if (readLine(buffer)) {
+                        if (!takeLine().isEmpty()) {
+                            throw new IOException("Invalid chunked HTTP response body");
+                        }
+                        this.state = State.CHUNK_SIZE;
+                    }
+                    break;
+                case TRAILERS:
+                    if (readLine(buffer) && takeLine().isEmpty()) {
+                        this.state = State.COMPLETE;
+                    }
+                    break;
+                case UNTIL_CLOSE:
+                default:
+                    append(buffer, buffer.remaining());
+                    break;
+            }
+        }
+        return this.state == State.COMPLETE;
+    }
+
+    /**
+     * Notifies the parser that the connection has been closed by the peer.
+     * 
+     * @return If the response is complete.
+     * @throws IOException If the response was not complete.
+     */
+    boolean endOfInput()
+    throws IOException {
+        if (this.state == State.UNTIL_CLOSE) {
+            this.state = State.COMPLETE;
+        }
+        if (this.state != State.COMPLETE) {
+            throw new IOException("Connection closed before HTTP response was complete");
+        }
+        return true;
+    }
+
+    /**
+     * Reads the available bytes of the current line from the buffer.
+     * 
+     * @param buffer The buffer with the received data.
+     * @return If the line is complete.
+     * @throws IOException If the line is too long.
+     */
+    private boolean readLine(
+            final @NotNull ByteBuffer buffer)
+    throws IOException {
+        while (buffer.hasRemaining()) {
+            final char current = (char) (buffer.get() & 0xFF);
+            if (current == '\n') {
+                final int last = this.line.length() - 1;
+                if (last >= 0 && this.line.charAt(last) == '\r') {
+                    this.line.setLength(last);
+                }
+                return true;
+            }
+            if (this.line.length() >= MAX_LINE_LENGTH) {
+                throw new IOException("HTTP response line too long");
+            }
+            this.line.append(current);
+        }
+        return false;
+    }
+
+    /**
+     * Returns the current line and clears the line buffer.
+     * 
+     * @return The current line.
+     */
+    private @NotNull String takeLine() {
+        final String result = this.line.toString();
+        this.line.setLength(0);
+        return result;
+    }
+
+    /**
+     * Parses the response status line.
+     * 
+     * @param statusLine The status line.
+     * @throws IOException If the status line is not valid.
+     */
+    private void parseStatusLine(
+            final @NotNull String statusLine)
+    throws IOException {
+        final int versionEnd = statusLine.indexOf(' ');
+        if (!statusLine.startsWith(HTTP_PREFIX)
+                || versionEnd < 0
+                || statusLine.length() < versionEnd + 4) {
+            throw new IOException("Invalid HTTP response status line: " + statusLine);
+        }
+        this.version = statusLine.substring(0, versionEnd);
+        try {
+            this.statusCode = Integer.parseInt(statusLine.substring(versionEnd + 1, versionEnd + 4));
+        } catch (final NumberFormatException e) {
+            throw new IOException("Invalid HTTP response status line: " + statusLine, e);
+        }
+        this.reason = statusLine.length() > versionEnd + 5
+                ? statusLine.substring(versionEnd + 5)
+                : null;
+        this.headers.clear();
+        this.headerCount = 0;
+        this.state = State.HEADERS;
+    }
+
+    /**
+     * Parses a response header line.
+     * 
+     * @param headerLine The header line.
+     * @throws IOException If the header line is not valid.
+     */
+    private void parseHeaderLine(
+            final @NotNull String headerLine)
+    throws IOException {
+        if (headerLine.isEmpty()) {
+            headersComplete();
+            return;
+        }
+        final int separator = headerLine.indexOf(':');
+        if (separator <= 0) {
+            throw new IOException("Invalid HTTP response header: " + headerLine);
+        }
+        if (++this.headerCount > MAX_HEADER_COUNT) {
+            throw new IOException("Too many HTTP response headers");
+        }
+        this.headers.computeIfAbsent(
+                headerLine.substring(0, separator).trim(),
+                k -> new ArrayList<>(1))
+            .add(headerLine.substring(separator + 1).trim());
+    }
+
+    /**
+     * Determines how the response body is delimited once the response
+     * headers are complete.
+     * 
+     * @throws IOException If the body delimitation headers are not valid.
+     */
+    private void headersComplete()
+    throws IOException {
+        if (StatusCodes.isInformational(this.statusCode)
+                && this.statusCode != StatusCodes.SWITCHING_PROTOCOLS) {
+            // Interim response. Wait for the final response.
+            this.state = State.STATUS_LINE;
+            return;
+        }
+        this.keepAlive = isPersistentConnection();
+        if (this.bodyless
+                || this.statusCode == StatusCodes.SWITCHING_PROTOCOLS
+                || this.statusCode == StatusCodes.NO_CONTENT
+                || this.statusCode == StatusCodes.NOT_MODIFIED) {
+            this.keepAlive &= this.statusCode != StatusCodes.SWITCHING_PROTOCOLS;
+            this.state = State.COMPLETE;
+            return;
+        }
+        final List<String> transferEncoding = this.headers.getOrDefault(
+                Headers.Response.TRANSFER_ENCODING,
+                Collections.emptyList());
+        final List<String> contentLength = this.headers.getOrDefault(
+                Headers.Response.CONTENT_LENGTH,
+                Collections.emptyList());
+        if (!transferEncoding.isEmpty()) {
+            final String coding = transferEncoding.get(transferEncoding.size() - 1);
+            if (!coding.toLowerCase().endsWith(CHUNKED)) {
+                throw new IOException("Unsupported HTTP response transfer encoding: " + coding);
+            }
+            this.body = new byte[256];
+            this.state = State.CHUNK_SIZE;
+        } else if (!contentLength.isEmpty()) {
+            final long length = parseContentLength(contentLength);
+            this.body = new byte[(int) Math.min(length, MAX_INITIAL_BODY_CAPACITY)];
+            this.remaining = length;
+            this.state = length == 0 ? State.COMPLETE : State.BODY;
+        } else {
+            this.body = new byte[256];
+            this.keepAlive = false;
+            this.state = State.UNTIL_CLOSE;
+        }
+    }
+
+    /**
+     * Returns {@code true} if the connection is persistent according to
+     * the response protocol version and {@code Connection} header.
+     * 
+     * @return If the connection is persistent.
+     */
+    private boolean isPersistentConnection() {
+        final List<String> options = this.headers.getOrDefault(
+                Headers.Response.CONNECTION,
+                Collections.emptyList());
+        boolean close = false;
+        boolean keep = false;
+        for (final String option : options) {
+            for (final String token : option.split(",")) {
+                close |= CLOSE.equalsIgnoreCase(token.trim());
+                keep |= KEEP_ALIVE.equalsIgnoreCase(token.trim());
+            }
+        }
+        if (HTTP_1_0.equals(this.version)) {
+            return keep && !close;
+        }
+        return !close;
+    }
+
+    /**
+     * Parses the {@code Content-Length} header values.
+     * 
+     * @param values The header values.
+     * @return The content length.
+     * @throws IOException If the header values are not valid.
+     */
+    private static long parseContentLength(
+            final @NotNull List<String> values)
+    throws IOException {
+        long result = -1;
+        for (final String value : values) {
+            final long length;
+            try {
+                length = Long.parseLong(value);
+            } catch (final NumberFormatException e) {
+                throw new IOException("Invalid HTTP response content length: " + value, e);
+            }
+            if (length < 0 || (result >= 0 && result != length)) {
+                throw new IOException("Invalid HTTP response content length: " + value);
+            }
+            result = length;
+        }
+        if (result > MAX_BODY_LENGTH) {
+            throw new IOException("HTTP response body too large: " + result);
+        }
+        return result;
+    }
+
+    /**
+     * Parses a chunk size line.
+     * 
+     * @param chunkLine The chunk size line.
+     * @throws IOException If the chunk size line is not valid.
+     */
+    private void parseChunkSize(
+            final @NotNull String chunkLine)
+    throws IOException {
+        final int extensions = chunkLine.indexOf(';');
+        final String size = (extensions < 0 ? chunkLine : chunkLine.substring(0, extensions)).trim();
+        try {
+            this.remaining = Long.parseLong(size, 16);
+        } catch (final NumberFormatException e) {
+            throw new IOException("Invalid HTTP response chunk size: " + chunkLine, e);
+        }
+        if (this.remaining < 0 || this.bodyLength + this.remaining > MAX_BODY_LENGTH) {
+            throw new IOException("Invalid HTTP response chunk size: " + chunkLine);
+        }
+        this.state = this.remaining == 0 ? State.TRAILERS : State.CHUNK_DATA;
+    }
+
+    /**
+     * Reads the available bytes of the current body or chunk.
+     * 
+     * @param buffer The buffer with the received data.
+     */
+    private void readContent(
+            final @NotNull ByteBuffer buffer) {
+        final int count = (int) Math.min(this.remaining, buffer.remaining());
+        append(buffer, count);
+        this.remaining -= count;
+        if (this.remaining == 0) {
+            this.state = this.state == State.BODY ? State.COMPLETE : State.CHUNK_END;
+        }
+    }
+
+    /**
+     * Appends the specified number of bytes from the buffer to the body.
+     * 
+     * @param buffer The buffer with the received data.
+     * @param count The number of bytes to append.
+     */
+    private void append(
+            final @NotNull ByteBuffer buffer,
+            final int count) {
+        final int required = this.bodyLength + count;
+        if (required > this.body.length) {
+            this.body = Arrays.copyOf(this.body, (int) Math.min(
+                    MAX_BODY_LENGTH,
+                    Math.max(required, this.body.length * 2L)));
+        }
+        buffer.get(this.body, this.bodyLength, count);
+        this.bodyLength = required;
+    }
+}
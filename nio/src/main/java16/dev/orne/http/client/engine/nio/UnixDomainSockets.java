@@ -0,0 +1,88 @@
+package dev.orne.http.client.engine.nio;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Unix domain sockets support detection and creation.
+ * <p>
+ * This is the Java 16 version of the class, packaged as multi-release
+ * class.
+ * 
+ * @author <a href="https://github.com/ihernaez">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ */
+final class UnixDomainSockets {
+
+    /**
+     * Private constructor.
+     */
+    private UnixDomainSockets() {
+        // Utility class
+    }
+
+    /**
+     * Returns {@code true} if Unix domain socket channels are supported in
+     * the current runtime.
+     * 
+     * @return If Unix domain sockets are supported.
+     */
+    static boolean isSupported() {
+        return true;
+    }
+
+    /**
+     * Creates a new Unix domain socket address for the specified socket
+     * file.
+     * 
+     * @param path The socket file path.
+     * @return The socket address.
+     */
+    static @NotNull SocketAddress address(
+            final @NotNull Path path) {
+        Validate.notNull(path);
+        return UnixDomainSocketAddress.of(path);
+    }
+
+    /**
+     * Opens a new Unix domain socket channel.
+     * 
+     * @return The new socket channel.
+     * @throws IOException If an I/O error occurs.
+     */
+    static @NotNull SocketChannel open()
+    throws IOException {
+        return SocketChannel.open(StandardProtocolFamily.UNIX);
+    }
+}
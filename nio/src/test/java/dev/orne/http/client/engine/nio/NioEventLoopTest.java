@@ -0,0 +1,96 @@
+package dev.orne.http.client.engine.nio;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@code NioEventLoop}.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see NioEventLoop
+ */
+@Tag("ut")
+class NioEventLoopTest {
+
+    /**
+     * Test for {@link NioEventLoop#execute(Runnable)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecute()
+    throws Throwable {
+        final NioEventLoop loop = new NioEventLoop(1, Thread::new);
+        try {
+            final CountDownLatch latch = new CountDownLatch(1);
+            final AtomicInteger inLoop = new AtomicInteger();
+            assertTrue(loop.execute(() -> {
+                if (loop.inLoop()) {
+                    inLoop.incrementAndGet();
+                }
+                latch.countDown();
+            }));
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+            assertEquals(1, inLoop.get());
+        } finally {
+            loop.close();
+        }
+        assertTrue(loop.isClosed());
+        assertFalse(loop.execute(() -> fail("Task executed after close")));
+    }
+
+    /**
+     * Test for {@link NioEventLoop#execute(Runnable)} concurrent with
+     * {@link NioEventLoop#close()}. Every accepted task must be executed.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecute_ConcurrentClose()
+    throws Throwable {
+        for (int i = 0; i < 50; i++) {
+            final NioEventLoop loop = new NioEventLoop(1, Thread::new);
+            final AtomicInteger accepted = new AtomicInteger();
+            final AtomicInteger executed = new AtomicInteger();
+            final Thread producer = new Thread(() -> {
+                while (loop.execute(executed::incrementAndGet)) {
+                    accepted.incrementAndGet();
+                }
+            });
+            producer.start();
+            Thread.sleep(1);
+            loop.close();
+            producer.join(5000);
+            assertFalse(producer.isAlive());
+            assertEquals(accepted.get(), executed.get());
+        }
+    }
+}
@@ -0,0 +1,872 @@
+package dev.orne.http.client.engine.nio;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.*;
+import static org.mockito.BDDMockito.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.CookieManager;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ProtocolFamily;
+import java.net.ServerSocket;
+import java.net.StandardProtocolFamily;
+import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import dev.orne.http.ContentType;
+import dev.orne.http.MediaTypes;
+import dev.orne.http.Methods;
+import dev.orne.http.client.HttpClientException;
+import dev.orne.http.client.HttpRequestRejectedException;
+import dev.orne.http.client.HttpRequestTimeoutException;
+import dev.orne.http.client.engine.HashedWheelTimer;
+import dev.orne.http.client.engine.HttpResponse;
+import dev.orne.http.client.engine.HttpResponseHandler;
+
+/**
+ * Unit tests for {@code NioHttpClientEngine}.
+ * <p>
+ * Requests are executed against a local stub HTTP server.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see NioHttpClientEngine
+ */
+@Tag("ut")
+class NioHttpClientEngineTest {
+
+    private static final String OK_RESPONSE =
+            "HTTP/1.1 200 OK\r\nContent-Type: text/plain\r\nContent-Length: 2\r\n\r\nOK";
+
+    private StubServer server;
+
+    @AfterEach void stopServer() throws IOException {
+        if (this.server != null) {
+            this.server.close();
+        }
+    }
+
+    /**
+     * Test for {@link NioHttpClientEngine#NioHttpClientEngine()}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testConstructor()
+    throws Throwable {
+        try (final NioHttpClientEngine engine = new NioHttpClientEngine()) {
+            assertNotNull(engine.getCookieStore());
+            assertNotNull(engine.getCookieStore().getDelegate());
+            assertNotNull(engine.getHandlerExecutor());
+            assertNotNull(engine.getEventLoop());
+            assertFalse(engine.getEventLoop().isClosed());
+        }
+        assertThrows(NullPointerException.class,
+                () -> new NioHttpClientEngine(1, null));
+        assertThrows(NullPointerException.class,
+                () -> new NioHttpClientEngine(1, Runnable::run, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> new NioHttpClientEngine(-1, Runnable::run));
+        final CookieManager cookieManager = new CookieManager();
+        final Executor executor = Runnable::run;
+        try (final NioHttpClientEngine engine = new NioHttpClientEngine(2, executor, cookieManager)) {
+            assertSame(cookieManager.getCookieStore(), engine.getCookieStore().getDelegate());
+            assertSame(executor, engine.getHandlerExecutor());
+        }
+    }
+
+    private static Stream<Arguments> testCreateRequest() {
+        return Stream.of(
+                Arguments.of(Methods.GET),
+                Arguments.of(Methods.HEAD),
+                Arguments.of(Methods.POST),
+                Arguments.of(Methods.PUT),
+                Arguments.of(Methods.DELETE),
+                Arguments.of(Methods.OPTIONS),
+                Arguments.of(Methods.TRACE),
+                Arguments.of(Methods.PATCH));
+    }
+
+    /**
+     * Test for {@link NioHttpClientEngine#createRequest(String, URI)}.
+     * @param method The HTTP method
+     * @throws Throwable Should not happen
+     */
+    @ParameterizedTest
+    @MethodSource
+    void testCreateRequest(
+            final String method)
+    throws Throwable {
+        final URI uri = URI.create("http://localhost/test");
+        try (final NioHttpClientEngine engine = new NioHttpClientEngine()) {
+            final NioHttpRequest result = engine.createRequest(method, uri);
+            assertEquals(method, result.getMethod());
+            assertSame(uri, result.getUri());
+            assertThrows(HttpClientException.class, () -> engine.createRequest(Methods.CONNECT, uri));
+        }
+    }
+
+    /**
+     * Test for {@link NioHttpClientEngine#executeHttpRequest(URI, String, dev.orne.http.client.engine.HttpRequestCustomizer, HttpResponseHandler)}
+     * with invalid URIs.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecuteHttpRequest_InvalidUri()
+    throws Throwable {
+        try (final NioHttpClientEngine engine = new NioHttpClientEngine()) {
+            assertThrows(NullPointerException.class, () -> engine.executeHttpRequest(
+                    null, Methods.GET, request -> {}, response -> {}));
+            assertThrows(IllegalArgumentException.class, () -> engine.executeHttpRequest(
+                    URI.create("/test"), Methods.GET, request -> {}, response -> {}));
+            assertThrows(HttpClientException.class, () -> engine.executeHttpRequest(
+                    URI.create("https://localhost/test"), Methods.GET, request -> {}, response -> {}));
+        }
+    }
+
+    /**
+     * Test for {@link NioHttpClientEngine#executeHttpRequest(URI, String, dev.orne.http.client.engine.HttpRequestCustomizer, HttpResponseHandler)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecuteHttpRequest()
+    throws Throwable {
+        this.server = new StubServer(request -> OK_RESPONSE);
+        try (final NioHttpClientEngine engine = new NioHttpClientEngine()) {
+            final AtomicReference<HttpResponse> response = new AtomicReference<>();
+            final AtomicReference<String> content = new AtomicReference<>();
+            engine.executeHttpRequest(
+                    this.server.uri("/test?a=b"),
+                    Methods.GET,
+                    request -> request.addHeader("X-Test", "value"),
+                    result -> {
+                        response.set(result);
+                        content.set(readBody(result));
+                    })
+                .toCompletableFuture()
+                .get(5, TimeUnit.SECONDS);
+            assertEquals(200, response.get().getStatusCode());
+            assertEquals("OK", response.get().getStatusReason());
+            assertEquals("text/plain", response.get().getFirstHeaderValue("content-type"));
+            assertEquals("OK", content.get());
+            final String received = this.server.requests.get(0);
+            assertTrue(received.startsWith("GET /test?a=b HTTP/1.1\r\n"));
+            assertTrue(received.contains("\r\nHost: localhost:" + this.server.getPort() + "\r\n"));
+            assertTrue(received.contains("\r\nX-Test: value\r\n"));
+        }
+    }
+
+    /**
+     * Test for {@link NioHttpClientEngine#NioHttpClientEngine(int, Executor, CookieManager, Path)}.
+     * @param tempDir The temporary directory
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testConstructor_UnixDomainSocket(
+            final @TempDir Path tempDir)
+    throws Throwable {
+        final Path socketFile = tempDir.resolve("sidecar.sock");
+        try (final NioHttpClientEngine engine = new NioHttpClientEngine()) {
+            assertNull(engine.getUnixDomainSocket());
+        }
+        if (UnixDomainSockets.isSupported()) {
+            try (final NioHttpClientEngine engine = new NioHttpClientEngine(
+                    2, Runnable::run, new CookieManager(), socketFile)) {
+                assertEquals(socketFile, engine.getUnixDomainSocket());
+            }
+        } else {
+            assertThrows(UnsupportedOperationException.class,
+                    () -> new NioHttpClientEngine(2, Runnable::run, new CookieManager(), socketFile));
+        }
+    }
+
+    /**
+     * Test for {@link NioHttpClientEngine#executeHttpRequest(URI, String, dev.orne.http.client.engine.HttpRequestCustomizer, HttpResponseHandler)}
+     * through a Unix domain socket.
+     * @param tempDir The temporary directory
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecuteHttpRequest_UnixDomainSocket(
+            final @TempDir Path tempDir)
+    throws Throwable {
+        assumeTrue(UnixDomainSockets.isSupported());
+        final Path socketFile = tempDir.resolve("sidecar.sock");
+        this.server = new StubServer(request -> OK_RESPONSE, socketFile);
+        try (final NioHttpClientEngine engine = new NioHttpClientEngine(
+                2, Runnable::run, new CookieManager(), socketFile)) {
+            for (int i = 0; i < 3; i++) {
+                final AtomicReference<String> content = new AtomicReference<>();
+                engine.executeHttpRequest(
+                        URI.create("http://sidecar/test"),
+                        Methods.GET,
+                        request -> {},
+                        response -> content.set(readBody(response)))
+                    .toCompletableFuture()
+                    .get(5, TimeUnit.SECONDS);
+                assertEquals("OK", content.get());
+            }
+            assertEquals(3, this.server.requests.size());
+            assertEquals(1, this.server.connections.get());
+            final String received = this.server.requests.get(0);
+            assertTrue(received.startsWith("GET /test HTTP/1.1\r\n"));
+            assertTrue(received.contains("\r\nHost: sidecar\r\n"));
+        }
+    }
+
+    /**
+     * Test for {@link NioHttpClientEngine#executeHttpRequest(URI, String, dev.orne.http.client.engine.HttpRequestCustomizer, HttpResponseHandler)}
+     * with request body.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecuteHttpRequest_Body()
+    throws Throwable {
+        this.server = new StubServer(request -> OK_RESPONSE);
+        final StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            body.append((char) ('a' + i % 26));
+        }
+        try (final NioHttpClientEngine engine = new NioHttpClientEngine()) {
+            engine.executeHttpRequest(
+                    this.server.uri("/test"),
+                    Methods.POST,
+                    request -> request.setBody(
+                            ContentType.of(MediaTypes.Text.PLAIN, StandardCharsets.UTF_8),
+                            body.toString()),
+                    response -> assertEquals(200, response.getStatusCode()))
+                .toCompletableFuture()
+                .get(5, TimeUnit.SECONDS);
+            final String received = this.server.requests.get(0);
+            assertTrue(received.startsWith("POST /test HTTP/1.1\r\n"));
+            assertTrue(received.contains("\r\nContent-Length: 20000\r\n"));
+            assertTrue(received.endsWith("\r\n\r\n" + body));
+        }
+    }
+
+    /**
+     * Test for {@link NioHttpClientEngine#executeHttpRequest(URI, String, dev.orne.http.client.engine.HttpRequestCustomizer, HttpResponseHandler)}
+     * with file request body.
+     * @param tempDir The temporary directory
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecuteHttpRequest_FileBody(
+            final @TempDir Path tempDir)
+    throws Throwable {
+        this.server = new StubServer(request -> OK_RESPONSE);
+        final StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 500000; i++) {
+            body.append((char) ('a' + i % 26));
+        }
+        final Path file = tempDir.resolve("body.txt");
+        Files.write(file, body.toString().getBytes(StandardCharsets.US_ASCII));
+        try (final NioHttpClientEngine engine = new NioHttpClientEngine()) {
+            for (int i = 0; i < 2; i++) {
+                engine.executeHttpRequest(
+                        this.server.uri("/test"),
+                        Methods.PUT,
+                        request -> request.setBody(
+                                ContentType.of(MediaTypes.Text.PLAIN, StandardCharsets.UTF_8),
+                                file),
+                        response -> assertEquals(200, response.getStatusCode()))
+                    .toCompletableFuture()
+                    .get(5, TimeUnit.SECONDS);
+            }
+            assertEquals(2, this.server.requests.size());
+            assertEquals(1, this.server.connections.get());
+            for (final String received : this.server.requests) {
+                assertTrue(received.startsWith("PUT /test HTTP/1.1\r\n"));
+                assertTrue(received.contains("\r\nContent-Length: 500000\r\n"));
+                assertTrue(received.endsWith("\r\n\r\n" + body));
+            }
+        }
+    }
+
+    /**
+     * Test for {@link NioHttpClientEngine#executeHttpRequest(URI, String, dev.orne.http.client.engine.HttpRequestCustomizer, HttpResponseHandler)}
+     * reusing persistent connections.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecuteHttpRequest_KeepAlive()
+    throws Throwable {
+        this.server = new StubServer(request -> OK_RESPONSE);
+        try (final NioHttpClientEngine engine = new NioHttpClientEngine()) {
+            for (int i = 0; i < 5; i++) {
+                engine.executeHttpRequest(
+                        this.server.uri("/test"),
+                        Methods.GET,
+                        request -> {},
+                        response -> assertEquals(200, response.getStatusCode()))
+                    .toCompletableFuture()
+                    .get(5, TimeUnit.SECONDS);
+            }
+            assertEquals(5, this.server.requests.size());
+            assertEquals(1, this.server.connections.get());
+        }
+    }
+
+    /**
+     * Test for {@link NioHttpClientEngine#executeHttpRequest(URI, String, dev.orne.http.client.engine.HttpRequestCustomizer, HttpResponseHandler)}
+     * with {@code Connection: close} and chunked responses.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecuteHttpRequest_ConnectionClose()
+    throws Throwable {
+        this.server = new StubServer(request ->
+                "HTTP/1.1 200 OK\r\nConnection: close\r\nTransfer-Encoding: chunked\r\n\r\n"
+                + "2\r\nOK\r\n0\r\n\r\n");
+        try (final NioHttpClientEngine engine = new NioHttpClientEngine()) {
+            for (int i = 0; i < 2; i++) {
+                final AtomicReference<String> content = new AtomicReference<>();
+                engine.executeHttpRequest(
+                        this.server.uri("/test"),
+                        Methods.GET,
+                        request -> {},
+                        response -> content.set(readBody(response)))
+                    .toCompletableFuture()
+                    .get(5, TimeUnit.SECONDS);
+                assertEquals("OK", content.get());
+            }
+            assertEquals(2, this.server.connections.get());
+        }
+    }
+
+    /**
+     * Test for {@link NioHttpClientEngine#executeHttpRequest(URI, String, dev.orne.http.client.engine.HttpRequestCustomizer, HttpResponseHandler)}
+     * retrying requests on stale persistent connections.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecuteHttpRequest_StaleConnection()
+    throws Throwable {
+        this.server = new StubServer(request -> OK_RESPONSE);
+        this.server.closeAfterResponse = true;
+        try (final NioHttpClientEngine engine = new NioHttpClientEngine()) {
+            for (int i = 0; i < 3; i++) {
+                engine.executeHttpRequest(
+                        this.server.uri("/test"),
+                        Methods.GET,
+                        request -> {},
+                        response -> assertEquals(200, response.getStatusCode()))
+                    .toCompletableFuture()
+                    .get(5, TimeUnit.SECONDS);
+            }
+            assertEquals(3, this.server.requests.size());
+        }
+    }
+
+    /**
+     * Test for {@link NioHttpClientEngine#executeHttpRequest(URI, String, dev.orne.http.client.engine.HttpRequestCustomizer, HttpResponseHandler)}
+     * with incomplete responses.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecuteHttpRequest_Incomplete()
+    throws Throwable {
+        this.server = new StubServer(request -> "HTTP/1.1 200 OK\r\nContent-Length: 10\r\n\r\n12345");
+        this.server.closeAfterResponse = true;
+        final HttpResponseHandler handler = mock(HttpResponseHandler.class);
+        try (final NioHttpClientEngine engine = new NioHttpClientEngine()) {
+            final CompletableFuture<Void> result = engine.executeHttpRequest(
+                    this.server.uri("/test"),
+                    Methods.GET,
+                    request -> {},
+                    handler)
+                .toCompletableFuture();
+            final ExecutionException error = assertThrows(ExecutionException.class,
+                    () -> result.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(IOException.class, error.getCause());
+            then(handler).shouldHaveNoInteractions();
+        }
+    }
+
+    /**
+     * Test for {@link NioHttpClientEngine#executeHttpRequest(URI, String, dev.orne.http.client.engine.HttpRequestCustomizer, HttpResponseHandler)}
+     * with connection errors.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecuteHttpRequest_ConnectionRefused()
+    throws Throwable {
+        final int port;
+        try (final ServerSocket socket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            port = socket.getLocalPort();
+        }
+        try (final NioHttpClientEngine engine = new NioHttpClientEngine()) {
+            final CompletableFuture<Void> result = engine.executeHttpRequest(
+                    URI.create("http://127.0.0.1:" + port + "/test"),
+                    Methods.GET,
+                    request -> {},
+                    response -> {})
+                .toCompletableFuture();
+            final ExecutionException error = assertThrows(ExecutionException.class,
+                    () -> result.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(IOException.class, error.getCause());
+        }
+    }
+
+    /**
+     * Test for {@link NioHttpClientEngine#executeHttpRequest(URI, String, dev.orne.http.client.engine.HttpRequestCustomizer, HttpResponseHandler)}
+     * with handler errors.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecuteHttpRequest_HandlerError()
+    throws Throwable {
+        this.server = new StubServer(request -> OK_RESPONSE);
+        final RuntimeException handlerError = new RuntimeException();
+        try (final NioHttpClientEngine engine = new NioHttpClientEngine()) {
+            final CompletableFuture<Void> result = engine.executeHttpRequest(
+                    this.server.uri("/test"),
+                    Methods.GET,
+                    request -> {},
+                    response -> { throw handlerError; })
+                .toCompletableFuture();
+            final ExecutionException error = assertThrows(ExecutionException.class,
+                    () -> result.get(5, TimeUnit.SECONDS));
+            assertSame(handlerError, error.getCause());
+        }
+    }
+
+    /**
+     * Test for {@link NioHttpClientEngine#executeHttpRequest(URI, String, dev.orne.http.client.engine.HttpRequestCustomizer, HttpResponseHandler)}
+     * storing and sending cookies.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecuteHttpRequest_Cookies()
+    throws Throwable {
+        this.server = new StubServer(request ->
+                "HTTP/1.1 200 OK\r\nSet-Cookie: session=abc; Path=/\r\nContent-Length: 0\r\n\r\n");
+        try (final NioHttpClientEngine engine = new NioHttpClientEngine()) {
+            for (int i = 0; i < 2; i++) {
+                engine.executeHttpRequest(
+                        this.server.uri("/test"),
+                        Methods.GET,
+                        request -> {},
+                        response -> {})
+                    .toCompletableFuture()
+                    .get(5, TimeUnit.SECONDS);
+            }
+            assertEquals(1, engine.getCookieStore().getCookies().size());
+            assertEquals("session", engine.getCookieStore().getCookies().get(0).getName());
+            assertFalse(this.server.requests.get(0).contains("Cookie:"));
+            assertTrue(this.server.requests.get(1).contains("\r\nCookie: session=abc\r\n"));
+        }
+    }
+
+    /**
+     * Test for {@link NioHttpClientEngine#executeHttpRequest(URI, String, dev.orne.http.client.engine.HttpRequestCustomizer, HttpResponseHandler)}
+     * with response timeout.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecuteHttpRequest_ResponseTimeout()
+    throws Throwable {
+        this.server = new StubServer(request -> null);
+        try (final NioHttpClientEngine engine = new NioHttpClientEngine()) {
+            final CompletableFuture<Void> result = engine.executeHttpRequest(
+                    this.server.uri("/test"),
+                    Methods.GET,
+                    request -> request.setResponseTimeout(Duration.ofMillis(50)),
+                    response -> {})
+                .toCompletableFuture();
+            final ExecutionException error = assertThrows(ExecutionException.class,
+                    () -> result.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(HttpRequestTimeoutException.class, error.getCause());
+            assertTrue(this.server.closed.await(5, TimeUnit.SECONDS));
+        }
+    }
+
+    /**
+     * Test for {@link NioHttpClientEngine#executeHttpRequest(URI, String, dev.orne.http.client.engine.HttpRequestCustomizer, HttpResponseHandler)}
+     * cancelling the response timeout check once the response is received.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecuteHttpRequest_ResponseTimeoutCancelled()
+    throws Throwable {
+        this.server = new StubServer(request -> OK_RESPONSE);
+        final HashedWheelTimer timer = HashedWheelTimer.shared();
+        try (final NioHttpClientEngine engine = new NioHttpClientEngine()) {
+            final int before = timer.getPendingTimeouts();
+            engine.executeHttpRequest(
+                    this.server.uri("/test"),
+                    Methods.GET,
+                    request -> {
+                        request.setConnectTimeout(Duration.ofMinutes(5));
+                        request.setResponseTimeout(Duration.ofMinutes(5));
+                    },
+                    response -> {})
+                .toCompletableFuture()
+                .get(5, TimeUnit.SECONDS);
+            final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (timer.getPendingTimeouts() > before && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            assertTrue(timer.getPendingTimeouts() <= before);
+        }
+    }
+
+    /**
+     * Test for {@link NioHttpClientEngine#executeHttpRequest(URI, String, dev.orne.http.client.engine.HttpRequestCustomizer, HttpResponseHandler)}
+     * with total timeout.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecuteHttpRequest_Timeout()
+    throws Throwable {
+        this.server = new StubServer(request -> null);
+        try (final NioHttpClientEngine engine = new NioHttpClientEngine()) {
+            final CompletableFuture<Void> result = engine.executeHttpRequest(
+                    this.server.uri("/test"),
+                    Methods.GET,
+                    request -> request.setTimeout(Duration.ofMillis(50)),
+                    response -> {})
+                .toCompletableFuture();
+            final ExecutionException error = assertThrows(ExecutionException.class,
+                    () -> result.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(HttpRequestTimeoutException.class, error.getCause());
+            assertTrue(this.server.closed.await(5, TimeUnit.SECONDS));
+        }
+    }
+
+    /**
+     * Test for {@link NioHttpClientEngine#executeHttpRequest(URI, String, dev.orne.http.client.engine.HttpRequestCustomizer, HttpResponseHandler)}
+     * with cancelled result.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecuteHttpRequest_Cancelled()
+    throws Throwable {
+        this.server = new StubServer(request -> null);
+        final HttpResponseHandler handler = mock(HttpResponseHandler.class);
+        try (final NioHttpClientEngine engine = new NioHttpClientEngine()) {
+            final CompletableFuture<Void> result = engine.executeHttpRequest(
+                    this.server.uri("/test"),
+                    Methods.GET,
+                    request -> {},
+                    handler)
+                .toCompletableFuture();
+            assertTrue(this.server.received.await(5, TimeUnit.SECONDS));
+            assertTrue(result.cancel(true));
+            assertTrue(this.server.closed.await(5, TimeUnit.SECONDS));
+            then(handler).shouldHaveNoInteractions();
+        }
+    }
+
+    /**
+     * Test for {@link NioHttpClientEngine#executeHttpRequest(URI, String, dev.orne.http.client.engine.HttpRequestCustomizer, HttpResponseHandler)}
+     * with concurrent requests.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testExecuteHttpRequest_Concurrent()
+    throws Throwable {
+        this.server = new StubServer(request -> OK_RESPONSE);
+        final AtomicInteger handled = new AtomicInteger();
+        try (final NioHttpClientEngine engine = new NioHttpClientEngine(4, Runnable::run)) {
+            for (int round = 0; round < 2; round++) {
+                final List<CompletableFuture<Void>> results = new ArrayList<>();
+                for (int i = 0; i < 20; i++) {
+                    results.add(engine.executeHttpRequest(
+                            this.server.uri("/test/" + i),
+                            Methods.GET,
+                            request -> {},
+                            response -> handled.incrementAndGet())
+                        .toCompletableFuture());
+                }
+                CompletableFuture.allOf(results.toArray(new CompletableFuture<?>[0]))
+                    .get(10, TimeUnit.SECONDS);
+            }
+            assertEquals(40, handled.get());
+            assertTrue(this.server.connections.get() <= 36);
+        }
+    }
+
+    /**
+     * Test for {@link NioHttpClientEngine#close()}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testClose()
+    throws Throwable {
+        this.server = new StubServer(request -> null);
+        final NioHttpClientEngine engine = new NioHttpClientEngine();
+        final CompletableFuture<Void> result = engine.executeHttpRequest(
+                this.server.uri("/test"),
+                Methods.GET,
+                request -> {},
+                response -> {})
+            .toCompletableFuture();
+        assertTrue(this.server.received.await(5, TimeUnit.SECONDS));
+        engine.close();
+        assertTrue(engine.getEventLoop().isClosed());
+        final ExecutionException error = assertThrows(ExecutionException.class,
+                () -> result.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IOException.class, error.getCause());
+        assertThrows(HttpClientException.class, () -> engine.executeHttpRequest(
+                this.server.uri("/test"),
+                Methods.GET,
+                request -> {},
+                response -> {}));
+    }
+
+    /**
+     * Test for {@link NioHttpClientEngine#shutdown(Duration)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testShutdown()
+    throws Throwable {
+        this.server = new StubServer(request -> OK_RESPONSE);
+        final NioHttpClientEngine engine = new NioHttpClientEngine();
+        engine.executeHttpRequest(
+                this.server.uri("/test"),
+                Methods.GET,
+                request -> {},
+                response -> {})
+            .toCompletableFuture()
+            .get(5, TimeUnit.SECONDS);
+        assertEquals(0, engine.getInFlightCount());
+        assertEquals(0, engine.shutdown(Duration.ofSeconds(1)));
+        assertTrue(engine.getEventLoop().isClosed());
+        assertThrows(HttpRequestRejectedException.class, () -> engine.executeHttpRequest(
+                this.server.uri("/test"),
+                Methods.GET,
+                request -> {},
+                response -> {}));
+    }
+
+    /**
+     * Test for {@link NioHttpClientEngine#shutdown(Duration)} with
+     * requests in flight after the timeout.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testShutdown_Aborted()
+    throws Throwable {
+        this.server = new StubServer(request -> null);
+        final HttpResponseHandler handler = mock(HttpResponseHandler.class);
+        final NioHttpClientEngine engine = new NioHttpClientEngine();
+        final CompletableFuture<Void> result = engine.executeHttpRequest(
+                this.server.uri("/test"),
+                Methods.GET,
+                request -> {},
+                handler)
+            .toCompletableFuture();
+        assertTrue(this.server.received.await(5, TimeUnit.SECONDS));
+        assertEquals(1, engine.getInFlightCount());
+        assertEquals(1, engine.shutdown(Duration.ofMillis(50)));
+        assertTrue(result.isCancelled());
+        assertTrue(this.server.closed.await(5, TimeUnit.SECONDS));
+        assertTrue(engine.getEventLoop().isClosed());
+        then(handler).shouldHaveNoInteractions();
+    }
+
+    private static String readBody(
+            final HttpResponse response) {
+        try (final InputStream content = response.getBody().getContent()) {
+            return IOUtils.toString(content, StandardCharsets.US_ASCII);
+        } catch (final IOException | HttpClientException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    /**
+     * Minimal blocking HTTP/1.1 stub server. Responds each received request
+     * with the response returned by the configured function. A
+     * {@code null} response leaves the request unanswered.
+     */
+    private static class StubServer
+    implements AutoCloseable {
+
+        final List<String> requests = new CopyOnWriteArrayList<>();
+        final AtomicInteger connections = new AtomicInteger();
+        final CountDownLatch received = new CountDownLatch(1);
+        final CountDownLatch closed = new CountDownLatch(1);
+        final List<SocketChannel> sockets = new CopyOnWriteArrayList<>();
+        volatile boolean closeAfterResponse;
+        private final Function<String, String> responder;
+        private final ServerSocketChannel serverChannel;
+
+        StubServer(
+                final Function<String, String> responder)
+        throws IOException {
+            this(responder, ServerSocketChannel.open().bind(
+                    new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 50));
+        }
+
+        StubServer(
+                final Function<String, String> responder,
+                final Path socketFile)
+        throws IOException {
+            this(responder, openUnixServerChannel().bind(
+                    UnixDomainSockets.address(socketFile), 50));
+        }
+
+        private StubServer(
+                final Function<String, String> responder,
+                final ServerSocketChannel serverChannel) {
+            this.responder = responder;
+            this.serverChannel = serverChannel;
+            final Thread acceptor = new Thread(this::accept, "stub-server");
+            acceptor.setDaemon(true);
+            acceptor.start();
+        }
+
+        private static ServerSocketChannel openUnixServerChannel()
+        throws IOException {
+            // Java 16+ API, invoked reflectively to keep Java 8 test sources
+            try {
+                return (ServerSocketChannel) ServerSocketChannel.class
+                        .getMethod("open", ProtocolFamily.class)
+                        .invoke(null, StandardProtocolFamily.valueOf("UNIX"));
+            } catch (final ReflectiveOperationException e) {
+                throw new IOException(e);
+            }
+        }
+
+        int getPort()
+        throws IOException {
+            return ((InetSocketAddress) this.serverChannel.getLocalAddress()).getPort();
+        }
+
+        URI uri(
+                final String path)
+        throws IOException {
+            return URI.create("http://localhost:" + getPort() + path);
+        }
+
+        private void accept() {
+            try {
+                while (true) {
+                    final SocketChannel socket = this.serverChannel.accept();
+                    this.connections.incrementAndGet();
+                    this.sockets.add(socket);
+                    final Thread handler = new Thread(() -> serve(socket), "stub-connection");
+                    handler.setDaemon(true);
+                    handler.start();
+                }
+            } catch (final IOException e) {
+                // Server closed
+            }
+        }
+
+        private void serve(
+                final SocketChannel socket) {
+            try (final SocketChannel s = socket;
+                    final InputStream in = Channels.newInputStream(s);
+                    final OutputStream out = Channels.newOutputStream(s)) {
+                String request;
+                while ((request = readRequest(in)) != null) {
+                    this.requests.add(request);
+                    this.received.countDown();
+                    final String response = this.responder.apply(request);
+                    if (response != null) {
+                        out.write(response.getBytes(StandardCharsets.ISO_8859_1));
+                        out.flush();
+                        if (this.closeAfterResponse) {
+                            return;
+                        }
+                    }
+                }
+                this.closed.countDown();
+            } catch (final IOException e) {
+                this.closed.countDown();
+            }
+        }
+
+        private static String readRequest(
+                final InputStream in)
+        throws IOException {
+            final ByteArrayOutputStream data = new ByteArrayOutputStream();
+            int matched = 0;
+            int current;
+            while (matched < 4 && (current = in.read()) >= 0) {
+                data.write(current);
+                matched = (current == (matched % 2 == 0 ? '\r' : '\n')) ? matched + 1 : (current == '\r' ? 1 : 0);
+            }
+            if (matched < 4) {
+                return null;
+            }
+            final String head = new String(data.toByteArray(), StandardCharsets.ISO_8859_1);
+            int length = 0;
+            for (final String line : head.split("\r\n")) {
+                if (line.toLowerCase(Locale.ROOT).startsWith("content-length:")) {
+                    length = Integer.parseInt(line.substring(15).trim());
+                }
+            }
+            for (int i = 0; i < length; i++) {
+                data.write(in.read());
+            }
+            return new String(data.toByteArray(), StandardCharsets.ISO_8859_1);
+        }
+
+        @Override
+        public void close()
+        throws IOException {
+            this.serverChannel.close();
+            for (final SocketChannel socket : this.sockets) {
+                socket.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,320 @@
+package dev.orne.http.client.engine.nio;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang3.RandomStringUtils;
+import org.apache.commons.lang3.RandomUtils;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import dev.orne.http.ContentType;
+import dev.orne.http.Headers;
+import dev.orne.http.MediaTypes;
+import dev.orne.http.Methods;
+import dev.orne.http.client.HttpClientException;
+import dev.orne.http.client.HttpRequestBodyGenerationException;
+
+/**
+ * Unit tests for {@code NioHttpRequest}.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see NioHttpRequest
+ */
+@Tag("ut")
+class NioHttpRequestTest {
+
+    private static final URI TEST_URI = URI.create("http://localhost/test");
+
+    /**
+     * Test for {@link NioHttpRequest#NioHttpRequest(String, URI)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testConstructor()
+    throws Throwable {
+        assertThrows(NullPointerException.class, () -> new NioHttpRequest(null, TEST_URI));
+        assertThrows(NullPointerException.class, () -> new NioHttpRequest(Methods.GET, null));
+        assertThrows(NullPointerException.class, () -> new NioHttpRequest(Methods.GET, URI.create("/test")));
+        final NioHttpRequest request = new NioHttpRequest(Methods.GET, TEST_URI);
+        assertEquals(Methods.GET, request.getMethod());
+        assertSame(TEST_URI, request.getUri());
+        assertEquals("localhost", request.getHost());
+        assertEquals(NioHttpRequest.DEFAULT_PORT, request.getPort());
+        assertTrue(request.getHeaders().isEmpty());
+        assertNull(request.getContentType());
+        assertNull(request.getBody());
+        assertNull(request.getBodyBuffer());
+        assertEquals(8080, new NioHttpRequest(Methods.GET, URI.create("http://localhost:8080/")).getPort());
+    }
+
+    /**
+     * Test for {@link NioHttpRequest#setConnectTimeout(Duration)},
+     * {@link NioHttpRequest#setResponseTimeout(Duration)} and
+     * {@link NioHttpRequest#setTimeout(Duration)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testTimeouts()
+    throws Throwable {
+        final NioHttpRequest request = new NioHttpRequest(Methods.GET, TEST_URI);
+        assertNull(request.getConnectTimeout());
+        assertNull(request.getResponseTimeout());
+        assertNull(request.getTimeout());
+        assertThrows(NullPointerException.class, () -> request.setConnectTimeout(null));
+        assertThrows(IllegalArgumentException.class, () -> request.setConnectTimeout(Duration.ZERO));
+        assertThrows(NullPointerException.class, () -> request.setResponseTimeout(null));
+        assertThrows(IllegalArgumentException.class, () -> request.setResponseTimeout(Duration.ofMillis(-1)));
+        assertThrows(NullPointerException.class, () -> request.setTimeout(null));
+        assertThrows(IllegalArgumentException.class, () -> request.setTimeout(Duration.ofMillis(-1)));
+        request.setConnectTimeout(Duration.ofMillis(100));
+        request.setResponseTimeout(Duration.ofMillis(200));
+        request.setTimeout(Duration.ZERO);
+        assertEquals(Duration.ofMillis(100), request.getConnectTimeout());
+        assertEquals(Duration.ofMillis(200), request.getResponseTimeout());
+        assertEquals(Duration.ZERO, request.getTimeout());
+    }
+
+    /**
+     * Test for {@link NioHttpRequest#addHeader(String, String...)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testAddHeader()
+    throws Throwable {
+        final NioHttpRequest request = new NioHttpRequest(Methods.GET, TEST_URI);
+        assertThrows(NullPointerException.class, () -> request.addHeader(null));
+        final String name = "X-" + RandomStringUtils.randomAlphabetic(10);
+        assertThrows(NullPointerException.class, () -> request.addHeader(name, (String[]) null));
+        assertThrows(IllegalArgumentException.class, () -> request.addHeader(name, (String) null));
+        final String value0 = RandomStringUtils.randomAlphanumeric(10);
+        final String value1 = RandomStringUtils.randomAlphanumeric(10);
+        assertThrows(IllegalArgumentException.class, () -> request.addHeader(name, value0, null, value1));
+        request.addHeader(name, value0, value1);
+        assertEquals(2, request.getHeaders().size());
+        assertArrayEquals(new String[] { name, value0 }, request.getHeaders().get(0));
+        assertArrayEquals(new String[] { name, value1 }, request.getHeaders().get(1));
+        assertTrue(request.containsHeader(name.toLowerCase()));
+        assertFalse(request.containsHeader(Headers.Request.HOST));
+    }
+
+    /**
+     * Test for {@link NioHttpRequest#addHeader(String, String...)} with
+     * invalid header names and values.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testAddHeader_Invalid()
+    throws Throwable {
+        final NioHttpRequest request = new NioHttpRequest(Methods.GET, TEST_URI);
+        assertThrows(HttpClientException.class, () -> request.addHeader("", "value"));
+        assertThrows(HttpClientException.class, () -> request.addHeader("X Test", "value"));
+        assertThrows(HttpClientException.class, () -> request.addHeader("X-Test:", "value"));
+        assertThrows(HttpClientException.class, () -> request.addHeader("X-Test", "value\r\nX-Other: value"));
+        assertThrows(HttpClientException.class, () -> request.addHeader("X-Test", "valid", "value\n"));
+        assertTrue(request.getHeaders().isEmpty());
+    }
+
+    /**
+     * Test for {@link NioHttpRequest#addCookies(Map)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testAddCookies()
+    throws Throwable {
+        final NioHttpRequest request = new NioHttpRequest(Methods.GET, TEST_URI);
+        assertThrows(NullPointerException.class, () -> request.addCookies(null));
+        request.addCookies(Collections.emptyMap());
+        final Map<String, List<String>> cookies = new HashMap<>();
+        cookies.put(Headers.Request.COOKIE, Collections.emptyList());
+        request.addCookies(cookies);
+        assertTrue(request.getHeaders().isEmpty());
+        cookies.put(Headers.Request.COOKIE, Arrays.asList("a=1", "b=2"));
+        request.addCookies(cookies);
+        assertEquals(1, request.getHeaders().size());
+        assertArrayEquals(
+                new String[] { Headers.Request.COOKIE, "a=1; b=2" },
+                request.getHeaders().get(0));
+    }
+
+    /**
+     * Test for {@link NioHttpRequest#setBody(ContentType, String)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testSetBody_String()
+    throws Throwable {
+        final NioHttpRequest request = new NioHttpRequest(Methods.POST, TEST_URI);
+        final ContentType contentType = ContentType.of(
+                MediaTypes.Text.PLAIN,
+                StandardCharsets.ISO_8859_1);
+        final String body = "Test ñ";
+        assertThrows(NullPointerException.class, () -> request.setBody(null, body));
+        assertThrows(NullPointerException.class, () -> request.setBody(contentType, (String) null));
+        request.setBody(contentType, body);
+        assertSame(contentType, request.getContentType());
+        assertArrayEquals(body.getBytes(StandardCharsets.ISO_8859_1), request.getBody());
+        request.setBody(new ContentType(MediaTypes.Text.PLAIN), body);
+        assertArrayEquals(body.getBytes(StandardCharsets.UTF_8), request.getBody());
+    }
+
+    /**
+     * Test for {@link NioHttpRequest#setBody(ContentType, byte[])}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testSetBody_Bytes()
+    throws Throwable {
+        final NioHttpRequest request = new NioHttpRequest(Methods.POST, TEST_URI);
+        final ContentType contentType = ContentType.of(MediaTypes.Application.OCTET_STREAM);
+        final byte[] body = RandomUtils.nextBytes(100);
+        assertThrows(NullPointerException.class, () -> request.setBody(null, body));
+        assertThrows(NullPointerException.class, () -> request.setBody(contentType, (byte[]) null));
+        request.setBody(contentType, body);
+        assertSame(contentType, request.getContentType());
+        assertSame(body, request.getBody());
+        final ByteBuffer buffer = request.getBodyBuffer();
+        assertEquals(100, buffer.remaining());
+        assertNotSame(buffer, request.getBodyBuffer());
+    }
+
+    /**
+     * Test for {@link NioHttpRequest#setBody(ContentType, long, dev.orne.http.client.engine.HttpRequest.BodyProducer)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testSetBody_Producer()
+    throws Throwable {
+        final NioHttpRequest request = new NioHttpRequest(Methods.POST, TEST_URI);
+        final ContentType contentType = ContentType.of(MediaTypes.Application.OCTET_STREAM);
+        final byte[] body = RandomUtils.nextBytes(100);
+        assertThrows(NullPointerException.class, () -> request.setBody(contentType, -1, null));
+        request.setBody(contentType, -1, output -> output.write(body));
+        assertArrayEquals(body, request.getBody());
+        final IOException ioError = new IOException();
+        final HttpRequestBodyGenerationException result = assertThrows(
+                HttpRequestBodyGenerationException.class,
+                () -> request.setBody(contentType, 100, output -> { throw ioError; }));
+        assertSame(ioError, result.getCause());
+        final HttpRequestBodyGenerationException genError = new HttpRequestBodyGenerationException();
+        assertSame(genError, assertThrows(
+                HttpRequestBodyGenerationException.class,
+                () -> request.setBody(contentType, 100, output -> { throw genError; })));
+    }
+
+    /**
+     * Test for {@link NioHttpRequest#setBody(ContentType, long, dev.orne.http.client.engine.HttpRequest.BodyProducer)}
+     * with file body.
+     * @param tempDir The temporary directory
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testSetBody_File(
+            final @TempDir Path tempDir)
+    throws Throwable {
+        final NioHttpRequest request = new NioHttpRequest(Methods.PUT, TEST_URI);
+        final ContentType contentType = ContentType.of(MediaTypes.Application.OCTET_STREAM);
+        final Path file = tempDir.resolve("body.bin");
+        Files.write(file, RandomUtils.nextBytes(100));
+        request.setBody(contentType, "previous");
+        request.setBody(contentType, file);
+        assertNull(request.getBody());
+        assertNull(request.getBodyBuffer());
+        assertNotNull(request.getBodyFile());
+        assertEquals(file, request.getBodyFile().getFile());
+        assertEquals(
+                "PUT /test HTTP/1.1\r\n"
+                + "Host: localhost\r\n"
+                + "Content-Type: application/octet-stream\r\n"
+                + "Content-Length: 100\r\n"
+                + "\r\n",
+                new String(request.encodeHead(), StandardCharsets.ISO_8859_1));
+        request.setBody(contentType, "body");
+        assertNull(request.getBodyFile());
+    }
+
+    /**
+     * Test for {@link NioHttpRequest#encodeHead()}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testEncodeHead()
+    throws Throwable {
+        final NioHttpRequest request = new NioHttpRequest(Methods.GET, URI.create("http://localhost:8080/a%20b?c=d#e"));
+        request.addHeader("X-Test", "value");
+        assertEquals(
+                "GET /a%20b?c=d HTTP/1.1\r\n"
+                + "Host: localhost:8080\r\n"
+                + "X-Test: value\r\n"
+                + "\r\n",
+                new String(request.encodeHead(), StandardCharsets.ISO_8859_1));
+        final NioHttpRequest noPath = new NioHttpRequest(Methods.DELETE, URI.create("http://localhost"));
+        noPath.addHeader(Headers.Request.HOST, "example.org");
+        assertEquals(
+                "DELETE / HTTP/1.1\r\n"
+                + "Host: example.org\r\n"
+                + "\r\n",
+                new String(noPath.encodeHead(), StandardCharsets.ISO_8859_1));
+    }
+
+    /**
+     * Test for {@link NioHttpRequest#encodeHead()} with request body.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testEncodeHead_Body()
+    throws Throwable {
+        final NioHttpRequest request = new NioHttpRequest(Methods.POST, TEST_URI);
+        assertEquals(
+                "POST /test HTTP/1.1\r\n"
+                + "Host: localhost\r\n"
+                + "Content-Length: 0\r\n"
+                + "\r\n",
+                new String(request.encodeHead(), StandardCharsets.ISO_8859_1));
+        request.setBody(ContentType.of(MediaTypes.Text.PLAIN, StandardCharsets.UTF_8), "body");
+        assertEquals(
+                "POST /test HTTP/1.1\r\n"
+                + "Host: localhost\r\n"
+                + "Content-Type: text/plain; charset=UTF-8\r\n"
+                + "Content-Length: 4\r\n"
+                + "\r\n",
+                new String(request.encodeHead(), StandardCharsets.ISO_8859_1));
+    }
+}
@@ -0,0 +1,189 @@
+package dev.orne.http.client.engine.nio;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.RandomUtils;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import dev.orne.http.ContentType;
+import dev.orne.http.Headers;
+import dev.orne.http.MediaTypes;
+import dev.orne.http.client.HttpResponseHandlingException;
+
+/**
+ * Unit tests for {@code NioHttpResponseBody}.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see NioHttpResponseBody
+ */
+@Tag("ut")
+class NioHttpResponseBodyTest {
+
+    /**
+     * Test for {@link NioHttpResponseBody#NioHttpResponseBody(Map, byte[])}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testConstructor()
+    throws Throwable {
+        assertThrows(NullPointerException.class,
+                () -> new NioHttpResponseBody(null, new byte[0]));
+        assertThrows(NullPointerException.class,
+                () -> new NioHttpResponseBody(Collections.emptyMap(), null));
+    }
+
+    /**
+     * Test for {@link NioHttpResponseBody#getContentType()}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testGetContentType()
+    throws Throwable {
+        final Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        final NioHttpResponseBody body = new NioHttpResponseBody(headers, new byte[0]);
+        assertNull(body.getContentType());
+        headers.put(Headers.Response.CONTENT_TYPE, Collections.emptyList());
+        assertNull(body.getContentType());
+        headers.put("content-type", Collections.singletonList("application/json; charset=UTF-8"));
+        final ContentType result = body.getContentType();
+        assertEquals(MediaTypes.Application.JSON, result.getMediaType());
+        assertEquals("UTF-8", result.getCharset().name());
+    }
+
+    /**
+     * Test for {@link NioHttpResponseBody#getContentLength()},
+     * {@link NioHttpResponseBody#getContent()} and
+     * {@link NioHttpResponseBody#discard()}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testGetContent()
+    throws Throwable {
+        final byte[] content = RandomUtils.nextBytes(100);
+        final NioHttpResponseBody body = new NioHttpResponseBody(Collections.emptyMap(), content);
+        assertEquals(100, body.getContentLength());
+        try (final InputStream stream = body.getContent()) {
+            assertArrayEquals(content, IOUtils.toByteArray(stream));
+        }
+        assertDoesNotThrow(body::discard);
+        try (final InputStream stream = body.getContent()) {
+            assertArrayEquals(content, IOUtils.toByteArray(stream));
+        }
+    }
+
+    /**
+     * Test for {@link NioHttpResponseBody#getContentBuffer()} and
+     * {@link NioHttpResponseBody#getContentChannel()}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testGetContentBuffer()
+    throws Throwable {
+        final byte[] content = RandomUtils.nextBytes(100);
+        final NioHttpResponseBody body = new NioHttpResponseBody(Collections.emptyMap(), content);
+        final ByteBuffer buffer = body.getContentBuffer();
+        assertTrue(buffer.isReadOnly());
+        assertEquals(100, buffer.remaining());
+        final byte[] read = new byte[100];
+        buffer.get(read);
+        assertArrayEquals(content, read);
+        assertEquals(100, body.getContentBuffer().remaining());
+        try (final ReadableByteChannel channel = body.getContentChannel()) {
+            assertArrayEquals(content, IOUtils.toByteArray(Channels.newInputStream(channel)));
+        }
+    }
+
+    /**
+     * Test for {@link NioHttpResponseBody#transferTo(WritableByteChannel)}
+     * and {@link NioHttpResponseBody#transferTo(Path)}.
+     * @param dir The temporary directory
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testTransferTo(
+            final @TempDir Path dir)
+    throws Throwable {
+        final byte[] content = RandomUtils.nextBytes(100);
+        final NioHttpResponseBody body = new NioHttpResponseBody(Collections.emptyMap(), content);
+        assertThrows(NullPointerException.class,
+                () -> body.transferTo((WritableByteChannel) null));
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        assertEquals(100, body.transferTo(Channels.newChannel(output)));
+        assertArrayEquals(content, output.toByteArray());
+        final Path file = dir.resolve("body.bin");
+        assertEquals(100, body.transferTo(file));
+        assertArrayEquals(content, Files.readAllBytes(file));
+    }
+
+    /**
+     * Test for {@link NioHttpResponseBody#parseContentType(String)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testParseContentType()
+    throws Throwable {
+        assertNull(NioHttpResponseBody.parseContentType(null));
+        assertNull(NioHttpResponseBody.parseContentType(""));
+        assertNull(NioHttpResponseBody.parseContentType("  "));
+        assertEquals(
+                new ContentType(MediaTypes.Application.JSON),
+                NioHttpResponseBody.parseContentType(MediaTypes.Application.JSON));
+        final Map<String, String> params = new HashMap<>();
+        params.put(ContentType.CHARSET_PARAM, "UTF-8");
+        assertEquals(
+                new ContentType(MediaTypes.Text.PLAIN, params),
+                NioHttpResponseBody.parseContentType(" text/plain ; charset=\"UTF-8\" "));
+        params.clear();
+        params.put(ContentType.BOUNDARY_PARAM, "a;\"b");
+        params.put("other", "value");
+        assertEquals(
+                new ContentType("multipart/form-data", params),
+                NioHttpResponseBody.parseContentType(
+                        "multipart/form-data; boundary=\"a;\\\"b\"; other=value"));
+        assertThrows(HttpResponseHandlingException.class,
+                () -> NioHttpResponseBody.parseContentType("text"));
+        assertThrows(HttpResponseHandlingException.class,
+                () -> NioHttpResponseBody.parseContentType("; charset=UTF-8"));
+    }
+}
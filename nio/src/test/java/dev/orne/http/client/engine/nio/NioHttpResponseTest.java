@@ -0,0 +1,109 @@
+package dev.orne.http.client.engine.nio;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang3.RandomUtils;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import dev.orne.http.Headers;
+import dev.orne.http.StatusCodes;
+import dev.orne.http.client.engine.HttpResponseBody;
+
+/**
+ * Unit tests for {@code NioHttpResponse}.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see NioHttpResponse
+ */
+@Tag("ut")
+class NioHttpResponseTest {
+
+    /**
+     * Test for {@link NioHttpResponse#NioHttpResponse(int, String, Map, byte[])}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testConstructor()
+    throws Throwable {
+        assertThrows(NullPointerException.class,
+                () -> new NioHttpResponse(StatusCodes.OK, "OK", null, null));
+        final NioHttpResponse response = new NioHttpResponse(
+                StatusCodes.NOT_FOUND,
+                "Not Found",
+                Collections.emptyMap(),
+                null);
+        assertEquals(StatusCodes.NOT_FOUND, response.getStatusCode());
+        assertEquals("Not Found", response.getStatusReason());
+        assertTrue(response.getHeaders().isEmpty());
+        assertNull(new NioHttpResponse(StatusCodes.OK, null, Collections.emptyMap(), null).getStatusReason());
+    }
+
+    /**
+     * Test for {@link NioHttpResponse#getHeader(String)}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testGetHeader()
+    throws Throwable {
+        final Map<String, List<String>> headers = new HashMap<>();
+        headers.put("X-Test", Arrays.asList("a", "b"));
+        final NioHttpResponse response = new NioHttpResponse(StatusCodes.OK, "OK", headers, null);
+        assertThrows(NullPointerException.class, () -> response.getHeader(null));
+        assertArrayEquals(new String[] { "a", "b" }, response.getHeader("X-Test"));
+        assertArrayEquals(new String[] { "a", "b" }, response.getHeader("x-test"));
+        assertArrayEquals(new String[0], response.getHeader("X-Other"));
+        assertTrue(response.containsHeader("X-TEST"));
+        assertEquals("a", response.getFirstHeaderValue("X-Test"));
+        assertThrows(UnsupportedOperationException.class,
+                () -> response.getHeaders().put("X-Other", Collections.emptyList()));
+    }
+
+    /**
+     * Test for {@link NioHttpResponse#getBody()}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testGetBody()
+    throws Throwable {
+        final byte[] content = RandomUtils.nextBytes(20);
+        final Map<String, List<String>> headers = new HashMap<>();
+        headers.put(Headers.Response.CONTENT_TYPE, Collections.singletonList("text/plain"));
+        final NioHttpResponse response = new NioHttpResponse(StatusCodes.OK, "OK", headers, content);
+        final HttpResponseBody body = response.getBody();
+        assertNotNull(body);
+        assertEquals(20, body.getContentLength());
+        assertEquals("text/plain", body.getContentType().getMediaType());
+        assertNull(new NioHttpResponse(StatusCodes.NO_CONTENT, null, headers, null).getBody());
+    }
+}
@@ -0,0 +1,305 @@
+package dev.orne.http.client.engine.nio;
+
+/*-
+ * #%L
+ * Orne HTTP Client
+ * %%
+ * Copyright (C) 2023 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Unit tests for {@code NioResponseParser}.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2023-10
+ * @since 0.1
+ * @see NioResponseParser
+ */
+@Tag("ut")
+class NioResponseParserTest {
+
+    /**
+     * Test for {@link NioResponseParser#parse(ByteBuffer)} with
+     * {@code Content-Length} delimited body.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testParse_ContentLength()
+    throws Throwable {
+        final NioResponseParser parser = new NioResponseParser(false);
+        assertEquals(NioResponseParser.State.STATUS_LINE, parser.getState());
+        assertFalse(parser.isStarted());
+        assertTrue(parser.parse(buffer(
+                "HTTP/1.1 200 OK\r\n"
+                + "Content-Type: text/plain\r\n"
+                + "content-length: 4\r\n"
+                + "X-Multi: a\r\n"
+                + "X-Multi:  b \r\n"
+                + "\r\n"
+                + "body")));
+        assertTrue(parser.isStarted());
+        assertTrue(parser.isComplete());
+        assertEquals("HTTP/1.1", parser.getVersion());
+        assertEquals(200, parser.getStatusCode());
+        assertEquals("OK", parser.getReason());
+        assertEquals(Collections.singletonList("4"), parser.getHeaders().get("Content-Length"));
+        assertEquals(Arrays.asList("a", "b"), parser.getHeaders().get("x-multi"));
+        assertEquals("body", new String(parser.getBody(), StandardCharsets.US_ASCII));
+        assertTrue(parser.isKeepAlive());
+    }
+
+    /**
+     * Test for {@link NioResponseParser#parse(ByteBuffer)} with data
+     * received one byte at a time.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testParse_Incremental()
+    throws Throwable {
+        final NioResponseParser parser = new NioResponseParser(false);
+        final byte[] data = ("HTTP/1.1 201 Created\r\n"
+                + "Content-Length: 5\r\n"
+                + "\r\n"
+                + "12345").getBytes(StandardCharsets.US_ASCII);
+        for (int i = 0; i < data.length - 1; i++) {
+            assertFalse(parser.parse(ByteBuffer.wrap(data, i, 1)));
+        }
+        assertTrue(parser.parse(ByteBuffer.wrap(data, data.length - 1, 1)));
+        assertEquals(201, parser.getStatusCode());
+        assertEquals("Created", parser.getReason());
+        assertEquals("12345", new String(parser.getBody(), StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Test for {@link NioResponseParser#parse(ByteBuffer)} with
+     * chunked body.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testParse_Chunked()
+    throws Throwable {
+        final NioResponseParser parser = new NioResponseParser(false);
+        assertFalse(parser.parse(buffer(
+                "HTTP/1.1 200 OK\r\n"
+                + "Transfer-Encoding: chunked\r\n"
+                + "\r\n"
+                + "4;ext=value\r\n"
+                + "Wiki\r\n"
+                + "A\r\n"
+                + "pedia in\r\n")));
+        assertEquals(NioResponseParser.State.CHUNK_END, parser.getState());
+        final ByteBuffer rest = buffer(
+                "\r\n"
+                + "0\r\n"
+                + "X-Trailer: value\r\n"
+                + "\r\n"
+                + "HTTP/1.1");
+        assertTrue(parser.parse(rest));
+        assertEquals("Wikipedia in\r\n", new String(parser.getBody(), StandardCharsets.US_ASCII));
+        assertEquals(8, rest.remaining());
+        assertTrue(parser.isKeepAlive());
+    }
+
+    /**
+     * Test for {@link NioResponseParser#parse(ByteBuffer)} with large
+     * chunked body.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testParse_Chunked_Large()
+    throws Throwable {
+        final NioResponseParser parser = new NioResponseParser(false);
+        final String chunk = StringUtils.repeat('x', 1000);
+        final StringBuilder data = new StringBuilder("HTTP/1.1 200 OK\r\nTransfer-Encoding: chunked\r\n\r\n");
+        for (int i = 0; i < 10; i++) {
+            data.append("3e8\r\n").append(chunk).append("\r\n");
+        }
+        data.append("0\r\n\r\n");
+        assertTrue(parser.parse(buffer(data.toString())));
+        assertEquals(10000, parser.getBody().length);
+    }
+
+    /**
+     * Test for {@link NioResponseParser#parse(ByteBuffer)} with
+     * connection close delimited body.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testParse_UntilClose()
+    throws Throwable {
+        final NioResponseParser parser = new NioResponseParser(false);
+        assertFalse(parser.parse(buffer(
+                "HTTP/1.1 200 OK\r\n"
+                + "\r\n"
+                + "partial ")));
+        assertFalse(parser.parse(buffer("body")));
+        assertEquals(NioResponseParser.State.UNTIL_CLOSE, parser.getState());
+        assertTrue(parser.endOfInput());
+        assertEquals("partial body", new String(parser.getBody(), StandardCharsets.US_ASCII));
+        assertFalse(parser.isKeepAlive());
+    }
+
+    /**
+     * Test for {@link NioResponseParser#endOfInput()} with incomplete
+     * responses.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testEndOfInput_Incomplete()
+    throws Throwable {
+        assertThrows(IOException.class, () -> new NioResponseParser(false).endOfInput());
+        final NioResponseParser parser = new NioResponseParser(false);
+        parser.parse(buffer("HTTP/1.1 200 OK\r\nContent-Length: 10\r\n\r\n12345"));
+        assertThrows(IOException.class, parser::endOfInput);
+    }
+
+    /**
+     * Test for {@link NioResponseParser#parse(ByteBuffer)} with responses
+     * without body.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testParse_NoBody()
+    throws Throwable {
+        NioResponseParser parser = new NioResponseParser(true);
+        assertTrue(parser.parse(buffer("HTTP/1.1 200 OK\r\nContent-Length: 10\r\n\r\n")));
+        assertNull(parser.getBody());
+        assertTrue(parser.isKeepAlive());
+        parser = new NioResponseParser(false);
+        assertTrue(parser.parse(buffer("HTTP/1.1 204 No Content\r\n\r\n")));
+        assertNull(parser.getBody());
+        parser = new NioResponseParser(false);
+        assertTrue(parser.parse(buffer("HTTP/1.1 304 Not Modified\r\nContent-Length: 10\r\n\r\n")));
+        assertNull(parser.getBody());
+        parser = new NioResponseParser(false);
+        assertTrue(parser.parse(buffer("HTTP/1.1 200 OK\r\nContent-Length: 0\r\n\r\n")));
+        assertArrayEquals(new byte[0], parser.getBody());
+        parser = new NioResponseParser(false);
+        assertTrue(parser.parse(buffer("HTTP/1.1 101 Switching Protocols\r\n\r\n")));
+        assertNull(parser.getBody());
+        assertFalse(parser.isKeepAlive());
+    }
+
+    /**
+     * Test for {@link NioResponseParser#parse(ByteBuffer)} with interim
+     * responses.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testParse_Interim()
+    throws Throwable {
+        final NioResponseParser parser = new NioResponseParser(false);
+        assertTrue(parser.parse(buffer(
+                "HTTP/1.1 100 Continue\r\n"
+                + "X-Interim: value\r\n"
+                + "\r\n"
+                + "HTTP/1.1 200\r\n"
+                + "Content-Length: 2\r\n"
+                + "\r\n"
+                + "OK")));
+        assertEquals(200, parser.getStatusCode());
+        assertNull(parser.getReason());
+        assertFalse(parser.getHeaders().containsKey("X-Interim"));
+        assertEquals("OK", new String(parser.getBody(), StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Test for {@link NioResponseParser#isKeepAlive()}.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testIsKeepAlive()
+    throws Throwable {
+        assertFalse(parse("HTTP/1.1 200 OK\r\nConnection: close\r\nContent-Length: 0\r\n\r\n").isKeepAlive());
+        assertFalse(parse("HTTP/1.1 200 OK\r\nConnection: foo, Close\r\nContent-Length: 0\r\n\r\n").isKeepAlive());
+        assertFalse(parse("HTTP/1.0 200 OK\r\nContent-Length: 0\r\n\r\n").isKeepAlive());
+        assertTrue(parse("HTTP/1.0 200 OK\r\nConnection: Keep-Alive\r\nContent-Length: 0\r\n\r\n").isKeepAlive());
+        assertTrue(parse("HTTP/1.1 200 OK\r\nConnection: keep-alive\r\nContent-Length: 0\r\n\r\n").isKeepAlive());
+    }
+
+    /**
+     * Test for {@link NioResponseParser#parse(ByteBuffer)} with invalid
+     * responses.
+     * @param response The invalid response
+     * @throws Throwable Should not happen
+     */
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "FOO/1.1 200 OK\r\n",
+            "HTTP/1.1\r\n",
+            "HTTP/1.1 2x0 OK\r\n",
+            "HTTP/1.1 200 OK\r\nInvalid header\r\n",
+            "HTTP/1.1 200 OK\r\n: value\r\n",
+            "HTTP/1.1 200 OK\r\nContent-Length: -1\r\n\r\n",
+            "HTTP/1.1 200 OK\r\nContent-Length: x\r\n\r\n",
+            "HTTP/1.1 200 OK\r\nContent-Length: 1\r\nContent-Length: 2\r\n\r\n",
+            "HTTP/1.1 200 OK\r\nTransfer-Encoding: gzip\r\n\r\n",
+            "HTTP/1.1 200 OK\r\nTransfer-Encoding: chunked\r\n\r\nx\r\n",
+            "HTTP/1.1 200 OK\r\nTransfer-Encoding: chunked\r\n\r\n1\r\nab\r\n",
+    })
+    void testParse_Invalid(
+            final String response)
+    throws Throwable {
+        final NioResponseParser parser = new NioResponseParser(false);
+        assertThrows(IOException.class, () -> parser.parse(buffer(response)));
+    }
+
+    /**
+     * Test for {@link NioResponseParser#parse(ByteBuffer)} with too long
+     * lines and too many headers.
+     * @throws Throwable Should not happen
+     */
+    @Test
+    void testParse_Limits()
+    throws Throwable {
+        final NioResponseParser longLine = new NioResponseParser(false);
+        assertThrows(IOException.class, () -> longLine.parse(buffer(
+                "HTTP/1.1 200 " + StringUtils.repeat('x', NioResponseParser.MAX_LINE_LENGTH))));
+        final NioResponseParser manyHeaders = new NioResponseParser(false);
+        assertThrows(IOException.class, () -> manyHeaders.parse(buffer(
+                "HTTP/1.1 200 OK\r\n"
+                + StringUtils.repeat("X-Test: value\r\n", NioResponseParser.MAX_HEADER_COUNT + 1))));
+    }
+
+    private static NioResponseParser parse(
+            final String response)
+    throws IOException {
+        final NioResponseParser parser = new NioResponseParser(false);
+        assertTrue(parser.parse(buffer(response)));
+        return parser;
+    }
+
+    private static ByteBuffer buffer(
+            final String data) {
+        return ByteBuffer.wrap(data.getBytes(StandardCharsets.ISO_8859_1));
+    }
+}